@@ -0,0 +1,206 @@
+package org.fastcatsearch.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.lucene.analysis.core.WhitespaceAnalyzer;
+import org.fastcatsearch.ir.analysis.AnalyzerPoolManager;
+import org.fastcatsearch.ir.analysis.DefaultAnalyzerFactory;
+import org.fastcatsearch.ir.common.IRException;
+import org.fastcatsearch.ir.config.DataInfo.SegmentInfo;
+import org.fastcatsearch.ir.config.IndexConfig;
+import org.fastcatsearch.ir.document.Document;
+import org.fastcatsearch.ir.index.SegmentWriter;
+import org.fastcatsearch.ir.search.SegmentReader;
+import org.fastcatsearch.ir.settings.FieldIndexSetting;
+import org.fastcatsearch.ir.settings.FieldSetting;
+import org.fastcatsearch.ir.settings.FieldSetting.Type;
+import org.fastcatsearch.ir.settings.GroupIndexSetting;
+import org.fastcatsearch.ir.settings.IndexRefSetting;
+import org.fastcatsearch.ir.settings.IndexSetting;
+import org.fastcatsearch.ir.settings.PrimaryKeySetting;
+import org.fastcatsearch.ir.settings.RefSetting;
+import org.fastcatsearch.ir.settings.Schema;
+import org.fastcatsearch.ir.settings.SchemaSetting;
+
+/**
+ * 벤치마크용 합성 세그먼트 생성기.
+ *
+ * 스키마 : ID(pk), TITLE(검색), BODY(검색), CATEGORY(그룹/필드색인), PRICE(필드색인/정렬)
+ * 단어는 zipf 분포에 가깝게 뽑으므로 앞쪽 단어(w0, w1..)는 posting이 길고 뒤쪽 단어는 짧다.
+ * 같은 seed이면 항상 같은 문서가 만들어지므로 변경 전후 결과를 비교할수 있다.
+ * */
+public class BenchmarkIndex {
+
+	public static final String ANALYZER_ID = "WHITESPACE";
+	public static final String TITLE_INDEX = "TITLE";
+	public static final String BODY_INDEX = "BODY";
+	public static final String CATEGORY_INDEX = "CATEGORY";
+	public static final String PRICE_INDEX = "PRICE";
+
+	public static final long DEFAULT_SEED = 20131001L;
+	public static final int VOCABULARY_SIZE = 50000;
+	public static final int CATEGORY_SIZE = 1000;
+	private static final int TITLE_LENGTH = 8;
+	private static final int BODY_LENGTH = 60;
+
+	private final Schema schema;
+	private final AnalyzerPoolManager analyzerPoolManager;
+	private final Random random;
+	private final double[] zipf;
+
+	public BenchmarkIndex(long seed) {
+		schema = new Schema(schemaSetting());
+		analyzerPoolManager = new AnalyzerPoolManager();
+		analyzerPoolManager.registerAnalyzer(ANALYZER_ID, new DefaultAnalyzerFactory(WhitespaceAnalyzer.class));
+		random = new Random(seed);
+		zipf = new double[VOCABULARY_SIZE];
+		double sum = 0;
+		for (int i = 0; i < VOCABULARY_SIZE; i++) {
+			sum += 1.0 / (i + 1);
+			zipf[i] = sum;
+		}
+		for (int i = 0; i < VOCABULARY_SIZE; i++) {
+			zipf[i] /= sum;
+		}
+	}
+
+	public static SchemaSetting schemaSetting() {
+		SchemaSetting setting = new SchemaSetting();
+
+		List<FieldSetting> fieldSettingList = new ArrayList<FieldSetting>();
+		FieldSetting id = new FieldSetting("ID", "id", Type.ASTRING);
+		id.setSize(16);
+		fieldSettingList.add(id);
+		fieldSettingList.add(new FieldSetting("TITLE", "title", Type.STRING));
+		fieldSettingList.add(new FieldSetting("BODY", "body", Type.STRING));
+		FieldSetting category = new FieldSetting("CATEGORY", "category", Type.ASTRING);
+		category.setSize(8);
+		fieldSettingList.add(category);
+		fieldSettingList.add(new FieldSetting("PRICE", "price", Type.INT));
+		setting.setFieldSettingList(fieldSettingList);
+
+		PrimaryKeySetting primaryKeySetting = new PrimaryKeySetting(PrimaryKeySetting.ID);
+		primaryKeySetting.setFieldList(new ArrayList<RefSetting>());
+		primaryKeySetting.getFieldList().add(new RefSetting("ID"));
+		setting.setPrimaryKeySetting(primaryKeySetting);
+
+		List<IndexSetting> indexSettingList = new ArrayList<IndexSetting>();
+		indexSettingList.add(indexSetting(TITLE_INDEX, "TITLE", true));
+		indexSettingList.add(indexSetting(BODY_INDEX, "BODY", false));
+		setting.setIndexSettingList(indexSettingList);
+
+		List<FieldIndexSetting> fieldIndexSettingList = new ArrayList<FieldIndexSetting>();
+		fieldIndexSettingList.add(new FieldIndexSetting(CATEGORY_INDEX, "category", "CATEGORY"));
+		fieldIndexSettingList.add(new FieldIndexSetting(PRICE_INDEX, "price", "PRICE"));
+		setting.setFieldIndexSettingList(fieldIndexSettingList);
+
+		List<GroupIndexSetting> groupIndexSettingList = new ArrayList<GroupIndexSetting>();
+		groupIndexSettingList.add(new GroupIndexSetting(CATEGORY_INDEX, "category", "CATEGORY"));
+		setting.setGroupIndexSettingList(groupIndexSettingList);
+		return setting;
+	}
+
+	private static IndexSetting indexSetting(String indexId, String fieldId, boolean storePosition) {
+		IndexSetting indexSetting = new IndexSetting(indexId, ANALYZER_ID);
+		List<IndexRefSetting> refList = new ArrayList<IndexRefSetting>();
+		refList.add(new IndexRefSetting(fieldId, ANALYZER_ID));
+		indexSetting.setFieldList(refList);
+		indexSetting.setIgnoreCase(true);
+		indexSetting.setStorePosition(storePosition);
+		return indexSetting;
+	}
+
+	public Schema schema() {
+		return schema;
+	}
+
+	public AnalyzerPoolManager analyzerPoolManager() {
+		return analyzerPoolManager;
+	}
+
+	/**
+	 * rank 번째로 빈도가 높은 단어.
+	 * */
+	public static String term(int rank) {
+		return "w" + rank;
+	}
+
+	public int nextTermRank() {
+		double r = random.nextDouble();
+		int low = 0;
+		int high = VOCABULARY_SIZE - 1;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (zipf[mid] < r) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	private String text(int length) {
+		StringBuilder sb = new StringBuilder(length * 6);
+		for (int i = 0; i < length; i++) {
+			if (i > 0) {
+				sb.append(' ');
+			}
+			sb.append(term(nextTermRank()));
+		}
+		return sb.toString();
+	}
+
+	public Document createDocument(int id) throws IRException {
+		List<FieldSetting> fieldSettingList = schema.schemaSetting().getFieldSettingList();
+		Document document = new Document(fieldSettingList.size());
+		document.add(fieldSettingList.get(0).createIndexableField("D" + id, null));
+		document.add(fieldSettingList.get(1).createIndexableField(text(TITLE_LENGTH), null));
+		document.add(fieldSettingList.get(2).createIndexableField(text(BODY_LENGTH), null));
+		document.add(fieldSettingList.get(3).createIndexableField("C" + random.nextInt(CATEGORY_SIZE), null));
+		document.add(fieldSettingList.get(4).createIndexableField(String.valueOf(random.nextInt(1000000)), null));
+		return document;
+	}
+
+	/**
+	 * dir에 baseId 부터 count 개의 문서를 가진 세그먼트를 만든다.
+	 * */
+	public SegmentInfo writeSegment(File dir, String segmentId, int baseId, int count) throws IRException, IOException {
+		if (dir.exists()) {
+			FileUtils.deleteDirectory(dir);
+		}
+		dir.mkdirs();
+		SegmentWriter writer = new SegmentWriter(schema, dir, new SegmentInfo(segmentId), IndexConfig.defaultConfig, analyzerPoolManager);
+		try {
+			for (int i = 0; i < count; i++) {
+				writer.addDocument(createDocument(baseId + i));
+			}
+		} finally {
+			writer.close();
+		}
+		return new SegmentInfo(segmentId, count, 0, System.currentTimeMillis());
+	}
+
+	public SegmentReader openSegment(File dir, SegmentInfo segmentInfo) throws IRException, IOException {
+		return new SegmentReader(segmentInfo, schema, dir, analyzerPoolManager);
+	}
+
+	public static File createTempDir(String prefix) throws IOException {
+		File dir = File.createTempFile(prefix, "");
+		dir.delete();
+		dir.mkdirs();
+		return dir;
+	}
+
+	/**
+	 * 디렉토리 하위 파일크기의 합.
+	 * */
+	public static long sizeOf(File dir) {
+		return FileUtils.sizeOfDirectory(dir);
+	}
+}
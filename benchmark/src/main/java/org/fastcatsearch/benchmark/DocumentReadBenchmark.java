@@ -0,0 +1,99 @@
+package org.fastcatsearch.benchmark;
+
+import java.io.File;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.fastcatsearch.ir.config.DataInfo.SegmentInfo;
+import org.fastcatsearch.ir.document.Document;
+import org.fastcatsearch.ir.document.DocumentReader;
+import org.fastcatsearch.ir.search.SegmentReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 저장문서 읽기 속도. 검색결과 10건을 가져올때와 같이 임의의 문서번호를 읽는다.
+ * 여러 쓰레드에서 세그먼트의 thread local reader를 사용한다.
+ * */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class DocumentReadBenchmark {
+
+	private static final int ROWS = 10;
+
+	@State(Scope.Benchmark)
+	public static class Segment {
+		@Param({ "100000" })
+		public int docCount;
+
+		private File dir;
+		private SegmentReader segmentReader;
+
+		@Setup(Level.Trial)
+		public void setUp() throws Exception {
+			BenchmarkIndex index = new BenchmarkIndex(BenchmarkIndex.DEFAULT_SEED);
+			dir = BenchmarkIndex.createTempDir("document-bench");
+			SegmentInfo segmentInfo = index.writeSegment(dir, "a0", 0, docCount);
+			segmentReader = index.openSegment(dir, segmentInfo);
+		}
+
+		@TearDown(Level.Trial)
+		public void tearDown() throws Exception {
+			segmentReader.close();
+			FileUtils.deleteDirectory(dir);
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class Reader {
+		private DocumentReader documentReader;
+		private Random random;
+		private int docCount;
+
+		@Setup(Level.Trial)
+		public void setUp(Segment segment) {
+			documentReader = segment.segmentReader.newDocumentReader();
+			random = new Random(BenchmarkIndex.DEFAULT_SEED);
+			docCount = segment.docCount;
+		}
+	}
+
+	@Benchmark
+	@Threads(1)
+	public Document readOne(Reader reader) throws Exception {
+		return reader.documentReader.readDocument(reader.random.nextInt(reader.docCount));
+	}
+
+	@Benchmark
+	@Threads(4)
+	public Document readOneConcurrent(Reader reader) throws Exception {
+		return reader.documentReader.readDocument(reader.random.nextInt(reader.docCount));
+	}
+
+	@Benchmark
+	@Threads(1)
+	public int readPage(Reader reader) throws Exception {
+		int start = reader.random.nextInt(reader.docCount - ROWS);
+		int size = 0;
+		for (int docNo = start; docNo < start + ROWS; docNo++) {
+			size += reader.documentReader.readDocument(docNo).size();
+		}
+		return size;
+	}
+}
@@ -0,0 +1,102 @@
+package org.fastcatsearch.benchmark;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.fastcatsearch.ir.config.DataInfo.SegmentInfo;
+import org.fastcatsearch.ir.group.GroupDataGenerator;
+import org.fastcatsearch.ir.group.GroupFunction;
+import org.fastcatsearch.ir.group.GroupFunctionType;
+import org.fastcatsearch.ir.group.GroupsData;
+import org.fastcatsearch.ir.query.Group;
+import org.fastcatsearch.ir.query.Groups;
+import org.fastcatsearch.ir.query.RankInfo;
+import org.fastcatsearch.ir.search.SegmentReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * GroupDataGenerator 집계속도. hitRatio 비율의 문서를 검색결과로 보고 CATEGORY 그룹을 만든다.
+ * SegmentSearcher와 같은 크기의 RankInfo 묶음으로 insert 한다.
+ * */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class GroupBenchmark {
+
+	private static final int BULK_SIZE = 100;
+
+	@Param({ "100000" })
+	public int docCount;
+
+	@Param({ "1.0", "0.1" })
+	public double hitRatio;
+
+	@Param({ "COUNT", "SUM" })
+	public String function;
+
+	private File dir;
+	private BenchmarkIndex index;
+	private SegmentReader segmentReader;
+	private Groups groups;
+	private RankInfo[][] rankInfoBulkList;
+	private int[] rankInfoCount;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		index = new BenchmarkIndex(BenchmarkIndex.DEFAULT_SEED);
+		dir = BenchmarkIndex.createTempDir("group-bench");
+		SegmentInfo segmentInfo = index.writeSegment(dir, "a0", 0, docCount);
+		segmentReader = index.openSegment(dir, segmentInfo);
+
+		GroupFunctionType type = GroupFunctionType.valueOf(function);
+		String fieldId = type == GroupFunctionType.COUNT ? null : BenchmarkIndex.PRICE_INDEX;
+		groups = new Groups();
+		groups.add(new Group(BenchmarkIndex.CATEGORY_INDEX, new GroupFunction[] { new GroupFunction(type, Group.SORT_VALUE_DESC, fieldId) }, Group.SORT_VALUE_DESC));
+
+		int step = Math.max(1, (int) Math.round(1 / hitRatio));
+		int hitCount = (docCount + step - 1) / step;
+		int bulkCount = (hitCount + BULK_SIZE - 1) / BULK_SIZE;
+		rankInfoBulkList = new RankInfo[bulkCount][BULK_SIZE];
+		rankInfoCount = new int[bulkCount];
+		int docNo = 0;
+		for (int i = 0; i < bulkCount; i++) {
+			for (int j = 0; j < BULK_SIZE && docNo < docCount; j++, docNo += step) {
+				RankInfo rankInfo = new RankInfo();
+				rankInfo.init(docNo, 0);
+				rankInfoBulkList[i][j] = rankInfo;
+				rankInfoCount[i]++;
+			}
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws Exception {
+		segmentReader.close();
+		FileUtils.deleteDirectory(dir);
+	}
+
+	@Benchmark
+	public GroupsData insertAndGenerate() throws Exception {
+		GroupDataGenerator generator = groups.getGroupDataGenerator(index.schema(), segmentReader.newGroupIndexesReader(), segmentReader.newFieldIndexesReader());
+		for (int i = 0; i < rankInfoBulkList.length; i++) {
+			generator.insert(rankInfoBulkList[i], rankInfoCount[i]);
+		}
+		return generator.generate();
+	}
+}
@@ -0,0 +1,115 @@
+package org.fastcatsearch.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.fastcatsearch.ir.config.DataInfo.SegmentInfo;
+import org.fastcatsearch.ir.io.FixedMaxPriorityQueue;
+import org.fastcatsearch.ir.query.Metadata;
+import org.fastcatsearch.ir.query.Query;
+import org.fastcatsearch.ir.query.Sort;
+import org.fastcatsearch.ir.query.Sorts;
+import org.fastcatsearch.ir.query.Term;
+import org.fastcatsearch.ir.search.DefaultRanker;
+import org.fastcatsearch.ir.search.HitElement;
+import org.fastcatsearch.ir.search.HitReader;
+import org.fastcatsearch.ir.search.SegmentReader;
+import org.fastcatsearch.ir.search.clause.Clause;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * HitReader 결과수집의 할당량. 문서마다 HitElement 를 새로 만드는 수집과 SegmentSearchTask 처럼
+ * 랭커를 알려주고 밀려난 HitElement 를 돌려주는 수집을 비교한다. 할당량은 -prof gc 의 gc.alloc.rate.norm 으로 본다.
+ * */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class HitCollectionBenchmark {
+
+	private static final int ROWS = 10;
+
+	@Param({ "100000" })
+	public int docCount;
+
+	@Param({ "score", "price" })
+	public String sort;
+
+	private File dir;
+	private BenchmarkIndex index;
+	private SegmentReader segmentReader;
+	private Query query;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		index = new BenchmarkIndex(BenchmarkIndex.DEFAULT_SEED);
+		dir = BenchmarkIndex.createTempDir("hit-collection-bench");
+		SegmentInfo segmentInfo = index.writeSegment(dir, "a0", 0, docCount);
+		segmentReader = index.openSegment(dir, segmentInfo);
+
+		query = new Query();
+		query.setClause(new Clause(new Term(BenchmarkIndex.BODY_INDEX, BenchmarkIndex.term(1))));
+		query.setMeta(new Metadata(1, ROWS));
+		if (sort.equals("price")) {
+			Sorts sorts = new Sorts();
+			sorts.add(new Sort(BenchmarkIndex.PRICE_INDEX, false));
+			query.setSorts(sorts);
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws Exception {
+		segmentReader.close();
+		FileUtils.deleteDirectory(dir);
+	}
+
+	private FixedMaxPriorityQueue<HitElement> createRanker() throws IOException {
+		Sorts sorts = query.getSorts();
+		return sorts == null ? new DefaultRanker(ROWS) : sorts.createRanker(index.schema(), ROWS);
+	}
+
+	@Benchmark
+	public void allocating(Blackhole bh) throws Exception {
+		HitReader hitReader = segmentReader.segmentSearcher().searchHitReader(query, null);
+		FixedMaxPriorityQueue<HitElement> ranker = createRanker();
+		HitElement e = null;
+		while ((e = hitReader.next()) != null) {
+			ranker.push(e);
+		}
+		bh.consume(ranker.size());
+		bh.consume(hitReader.totalCount());
+	}
+
+	@Benchmark
+	public void pooled(Blackhole bh) throws Exception {
+		HitReader hitReader = segmentReader.segmentSearcher().searchHitReader(query, null);
+		FixedMaxPriorityQueue<HitElement> ranker = createRanker();
+		hitReader.setCompetitiveRanker(ranker);
+		HitElement e = null;
+		while ((e = hitReader.next()) != null) {
+			HitElement overflow = ranker.insertWithOverflow(e);
+			if (overflow != null) {
+				hitReader.recycle(overflow);
+			}
+		}
+		bh.consume(ranker.size());
+		bh.consume(hitReader.totalCount());
+	}
+}
@@ -0,0 +1,93 @@
+package org.fastcatsearch.benchmark;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.fastcatsearch.ir.config.DataInfo.SegmentInfo;
+import org.fastcatsearch.ir.config.IndexConfig;
+import org.fastcatsearch.ir.document.Document;
+import org.fastcatsearch.ir.index.MemoryPosting;
+import org.fastcatsearch.ir.index.SegmentWriter;
+import org.fastcatsearch.ir.io.CharVector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 색인 처리량.
+ * memoryPostingAdd 는 초당 추가한 term 갯수, writeSegment 는 초당 색인한 문서갯수이다.
+ * 문서와 term은 미리 만들어두므로 생성비용은 측정에 포함되지 않는다.
+ * */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class IndexingBenchmark {
+
+	private static final int TERM_COUNT = 100000;
+	private static final int DOCUMENT_COUNT = 10000;
+	private static final int TERMS_PER_DOCUMENT = 60;
+
+	private BenchmarkIndex index;
+	private CharVector[] terms;
+	private MemoryPosting memoryPosting;
+	private Document[] documents;
+	private File dir;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		index = new BenchmarkIndex(BenchmarkIndex.DEFAULT_SEED);
+		terms = new CharVector[TERM_COUNT];
+		for (int i = 0; i < TERM_COUNT; i++) {
+			terms[i] = new CharVector(BenchmarkIndex.term(index.nextTermRank()));
+		}
+		memoryPosting = new MemoryPosting(IndexConfig.defaultConfig.getIndexWorkBucketSize());
+
+		documents = new Document[DOCUMENT_COUNT];
+		for (int i = 0; i < DOCUMENT_COUNT; i++) {
+			documents[i] = index.createDocument(i);
+		}
+		dir = BenchmarkIndex.createTempDir("indexing-bench");
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws Exception {
+		FileUtils.deleteDirectory(dir);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(TERM_COUNT)
+	public int memoryPostingAdd() throws Exception {
+		memoryPosting.clear();
+		for (int i = 0; i < TERM_COUNT; i++) {
+			memoryPosting.add(terms[i], i / TERMS_PER_DOCUMENT);
+		}
+		return memoryPosting.count();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(DOCUMENT_COUNT)
+	public SegmentInfo writeSegment() throws Exception {
+		File segmentDir = new File(dir, "a0");
+		FileUtils.deleteDirectory(segmentDir);
+		segmentDir.mkdirs();
+		SegmentWriter writer = new SegmentWriter(index.schema(), segmentDir, new SegmentInfo("a0"), IndexConfig.defaultConfig, index.analyzerPoolManager());
+		for (int i = 0; i < DOCUMENT_COUNT; i++) {
+			writer.addDocument(documents[i]);
+		}
+		return writer.close();
+	}
+}
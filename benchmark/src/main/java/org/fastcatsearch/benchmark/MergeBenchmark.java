@@ -0,0 +1,84 @@
+package org.fastcatsearch.benchmark;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.fastcatsearch.ir.common.IndexFileNames;
+import org.fastcatsearch.ir.config.IndexConfig;
+import org.fastcatsearch.ir.index.SearchIndexMerger;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 두 세그먼트의 검색색인 머징 속도.
+ * 결과의 mergedBytes 는 초당 읽은 입력 posting/lexicon 크기(byte/s)이다.
+ * */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class MergeBenchmark {
+
+	@Param({ "50000" })
+	public int docCount;
+
+	@Param({ "TITLE", "BODY" })
+	public String indexId;
+
+	private File dir;
+	private File[] segmentDirs;
+	private long inputBytes;
+
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	@State(Scope.Thread)
+	public static class MergeCounters {
+		public long mergedBytes;
+	}
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		BenchmarkIndex index = new BenchmarkIndex(BenchmarkIndex.DEFAULT_SEED);
+		dir = BenchmarkIndex.createTempDir("merge-bench");
+		segmentDirs = new File[] { new File(dir, "a0"), new File(dir, "a1") };
+		for (int i = 0; i < segmentDirs.length; i++) {
+			index.writeSegment(segmentDirs[i], "a" + i, i * docCount, docCount);
+			inputBytes += new File(segmentDirs[i], IndexFileNames.getSearchPostingFileName(indexId)).length();
+			inputBytes += new File(segmentDirs[i], IndexFileNames.getSearchLexiconFileName(indexId)).length();
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws Exception {
+		FileUtils.deleteDirectory(dir);
+	}
+
+	@Benchmark
+	public long merge(MergeCounters counters) throws Exception {
+		File targetDir = new File(dir, "merged");
+		FileUtils.deleteDirectory(targetDir);
+		targetDir.mkdirs();
+		SearchIndexMerger merger = new SearchIndexMerger(indexId, targetDir, IndexConfig.defaultConfig.getIndexTermInterval());
+		try {
+			merger.merge(segmentDirs);
+		} finally {
+			merger.close();
+		}
+		counters.mergedBytes += inputBytes;
+		return new File(targetDir, IndexFileNames.getSearchPostingFileName(indexId)).length();
+	}
+}
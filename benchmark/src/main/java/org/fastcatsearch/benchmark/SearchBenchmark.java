@@ -0,0 +1,148 @@
+package org.fastcatsearch.benchmark;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.fastcatsearch.ir.config.DataInfo.SegmentInfo;
+import org.fastcatsearch.ir.group.GroupFunction;
+import org.fastcatsearch.ir.group.GroupFunctionType;
+import org.fastcatsearch.ir.io.FixedMaxPriorityQueue;
+import org.fastcatsearch.ir.query.Group;
+import org.fastcatsearch.ir.query.Groups;
+import org.fastcatsearch.ir.query.Metadata;
+import org.fastcatsearch.ir.query.Query;
+import org.fastcatsearch.ir.query.Sort;
+import org.fastcatsearch.ir.query.Sorts;
+import org.fastcatsearch.ir.query.Term;
+import org.fastcatsearch.ir.search.DefaultRanker;
+import org.fastcatsearch.ir.search.HitElement;
+import org.fastcatsearch.ir.search.HitReader;
+import org.fastcatsearch.ir.search.SegmentReader;
+import org.fastcatsearch.ir.search.clause.Clause;
+import org.fastcatsearch.ir.search.clause.Clause.Operator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * 한 세그먼트에 대한 질의 처리량. SegmentSearchTask와 같이 HitReader의 모든 hit을 ranker에 넣고 그룹결과까지 만든다.
+ *
+ * 단어 순위가 낮을수록 posting이 길다. w0 은 거의 모든 문서에, w2000 은 소수의 문서에 나온다.
+ * */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SearchBenchmark {
+
+	private static final int ROWS = 10;
+
+	@Param({ "100000" })
+	public int docCount;
+
+	private File dir;
+	private BenchmarkIndex index;
+	private SegmentReader segmentReader;
+
+	private Query frequentTermQuery;
+	private Query rareTermQuery;
+	private Query andQuery;
+	private Query orQuery;
+	private Query sortQuery;
+	private Query groupQuery;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		index = new BenchmarkIndex(BenchmarkIndex.DEFAULT_SEED);
+		dir = BenchmarkIndex.createTempDir("search-bench");
+		SegmentInfo segmentInfo = index.writeSegment(dir, "a0", 0, docCount);
+		segmentReader = index.openSegment(dir, segmentInfo);
+
+		frequentTermQuery = query(new Clause(new Term(BenchmarkIndex.BODY_INDEX, BenchmarkIndex.term(1))));
+		rareTermQuery = query(new Clause(new Term(BenchmarkIndex.BODY_INDEX, BenchmarkIndex.term(2000))));
+		andQuery = query(new Clause(new Term(BenchmarkIndex.BODY_INDEX, BenchmarkIndex.term(3)), Operator.AND, new Term(BenchmarkIndex.BODY_INDEX,
+				BenchmarkIndex.term(50))));
+		orQuery = query(new Clause(new Term(BenchmarkIndex.TITLE_INDEX, BenchmarkIndex.term(10)), Operator.OR, new Term(BenchmarkIndex.TITLE_INDEX,
+				BenchmarkIndex.term(20))));
+
+		sortQuery = query(new Clause(new Term(BenchmarkIndex.BODY_INDEX, BenchmarkIndex.term(1))));
+		Sorts sorts = new Sorts();
+		sorts.add(new Sort(BenchmarkIndex.PRICE_INDEX, false));
+		sortQuery.setSorts(sorts);
+
+		groupQuery = query(new Clause(new Term(BenchmarkIndex.BODY_INDEX, BenchmarkIndex.term(1))));
+		Groups groups = new Groups();
+		groups.add(new Group(BenchmarkIndex.CATEGORY_INDEX, new GroupFunction[] { new GroupFunction(GroupFunctionType.COUNT, Group.SORT_VALUE_DESC, null) },
+				Group.SORT_VALUE_DESC));
+		groupQuery.setGroups(groups);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws Exception {
+		segmentReader.close();
+		FileUtils.deleteDirectory(dir);
+	}
+
+	private Query query(Clause clause) {
+		Query query = new Query();
+		query.setClause(clause);
+		query.setMeta(new Metadata(1, ROWS));
+		return query;
+	}
+
+	@Benchmark
+	public void frequentTerm(Blackhole bh) throws Exception {
+		search(frequentTermQuery, bh);
+	}
+
+	@Benchmark
+	public void rareTerm(Blackhole bh) throws Exception {
+		search(rareTermQuery, bh);
+	}
+
+	@Benchmark
+	public void and(Blackhole bh) throws Exception {
+		search(andQuery, bh);
+	}
+
+	@Benchmark
+	public void or(Blackhole bh) throws Exception {
+		search(orQuery, bh);
+	}
+
+	@Benchmark
+	public void sortByField(Blackhole bh) throws Exception {
+		search(sortQuery, bh);
+	}
+
+	@Benchmark
+	public void group(Blackhole bh) throws Exception {
+		search(groupQuery, bh);
+	}
+
+	private void search(Query query, Blackhole bh) throws Exception {
+		HitReader hitReader = segmentReader.segmentSearcher().searchHitReader(query, null);
+		Sorts sorts = query.getSorts();
+		FixedMaxPriorityQueue<HitElement> ranker = sorts == null ? new DefaultRanker(ROWS) : sorts.createRanker(index.schema(), ROWS);
+		HitElement e = null;
+		while ((e = hitReader.next()) != null) {
+			ranker.push(e);
+		}
+		bh.consume(ranker.size());
+		bh.consume(hitReader.makeGroupData());
+	}
+}
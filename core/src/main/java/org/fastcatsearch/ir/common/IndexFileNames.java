@@ -23,6 +23,8 @@ public class IndexFileNames {
 	public static final String docDeleteSet = "delete.set"; //deleted docs in segment
 	public static final String docDeleteReq = "delete.req"; //실제삭제가 아닌 delete doc 으로 요청된 삭제문서 아이디 리스트.
 	public static final String primaryKeyMap = "primarykey.map";
+	public static final String primaryKeyBloom = "primarykey.bloom"; //pk맵의 bloom filter.
+	public static final String segmentIndexSettings = "index.settings"; //세그먼트를 기록한 필드색인, 그룹색인 설정.
 	
 	public static final String tempFile = "temp";
 	
@@ -47,6 +49,18 @@ public class IndexFileNames {
 	public static String getSearchIndexFileName(String name){
 		return "search." + name + ".index";
 	}
+	//텀 -> lexicon 위치 FST.
+	public static String getSearchFSTFileName(String name){
+		return "search." + name + ".fst";
+	}
+	//뒤집은 텀 -> lexicon 위치 FST. suffix 검색용.
+	public static String getSearchReverseFSTFileName(String name){
+		return "search." + name + ".rfst";
+	}
+	//문서별 텀 오프셋. 하이라이팅시 문서를 다시 분석하지 않기 위해 사용한다. 위치파일은 getPositionFileName 을 붙인다.
+	public static String getSearchOffsetFileName(String name){
+		return "search." + name + ".offset";
+	}
 	
 	//
 	// group
@@ -69,6 +83,10 @@ public class IndexFileNames {
 	public static String getFieldIndexFileName(String name){
 		return "field." + name + ".index";
 	}
+	//숫자필드의 값 정렬 포인트색인.
+	public static String getFieldPointFileName(String name){
+		return "field." + name + ".point";
+	}
 	
 	
 	//
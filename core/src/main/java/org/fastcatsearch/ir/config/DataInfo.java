@@ -155,7 +155,7 @@ public class DataInfo {
 	}
 
 	@XmlRootElement(name = "segment")
-	@XmlType(propOrder = { "id", "documentCount", "createTime", "deleteCount", "merged" })
+	@XmlType(propOrder = { "id", "documentCount", "createTime", "deleteCount", "merged", "indexSort" })
 	public static class SegmentInfo implements Comparable<SegmentInfo>{
 		private String id;
         private int documentCount;
@@ -164,6 +164,7 @@ public class DataInfo {
 
         private long startTime = System.currentTimeMillis();
         private boolean merged;
+        private String indexSort; //문서가 이 순서로 기록되어 있다. null 이면 색인순서.
 
         public SegmentInfo() {
 			this.id = "a0";
@@ -191,6 +192,7 @@ public class DataInfo {
             segmentInfo.documentCount = documentCount;
             segmentInfo.deleteCount = deleteCount;
             segmentInfo.createTime = createTime;
+            segmentInfo.indexSort = indexSort;
 			return segmentInfo;
 		}
 
@@ -208,6 +210,7 @@ public class DataInfo {
             this.documentCount = segmentInfo.documentCount;
             this.deleteCount = segmentInfo.deleteCount;
             this.createTime = segmentInfo.createTime;
+            this.indexSort = segmentInfo.indexSort;
 		}
 
 		@XmlAttribute
@@ -265,6 +268,15 @@ public class DataInfo {
             return merged;
         }
 
+        @XmlAttribute
+        public String getIndexSort() {
+            return indexSort;
+        }
+
+        public void setIndexSort(String indexSort) {
+            this.indexSort = indexSort;
+        }
+
 		@Override
 		public int compareTo(SegmentInfo o) {
 			return id.compareTo(o.id);
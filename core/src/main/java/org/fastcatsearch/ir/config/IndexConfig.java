@@ -10,7 +10,12 @@ import javax.xml.bind.annotation.XmlRootElement;
 	<work-memory-size>128M</work-memory-size>
 	<work-bucket-size>256</work-bucket-size>
 	<compression-type>fast</compression-type>
+	<index-input-type>mmap</index-input-type>
+	<index-sort>REGDATE:desc</index-sort>
 </index-config>
+
+index-input-type : 검색시 색인파일을 읽는 방식. buffered(기본) 또는 mmap.
+index-sort : 세그먼트내 문서를 이 필드색인 순서로 기록한다. 첫 정렬조건이 같은 검색은 필요한 갯수만 모으고 끝낸다. 없으면 색인순서.
  * */
 @XmlRootElement(name = "index-config")
 public class IndexConfig {
@@ -30,6 +35,8 @@ public class IndexConfig {
 	private int indexTermInterval;// inmemory lexicon ratio = 1/indexTermInterval
 	private int indexWorkBucketSize;
 	private int indexWorkMemorySize;// limit memory use. if exeed this value, flush.
+	private String indexInputType;// buffered | mmap
+	private String indexSort;// FIELD_INDEX_ID:asc|desc
 	
 
 	@XmlElement(name="pk-term-interval")
@@ -57,6 +64,16 @@ public class IndexConfig {
 		return indexWorkMemorySize;
 	}
 
+	@XmlElement(name="index-input-type")
+	public String getIndexInputType() {
+		return indexInputType;
+	}
+
+	@XmlElement(name="index-sort")
+	public String getIndexSort() {
+		return indexSort;
+	}
+
 	public void setPkTermInterval(int pkTermInterval) {
 		this.pkTermInterval = pkTermInterval;
 	}
@@ -76,6 +93,14 @@ public class IndexConfig {
 	public void setIndexWorkMemorySize(int indexWorkMemorySize) {
 		this.indexWorkMemorySize = indexWorkMemorySize;
 	}
+
+	public void setIndexInputType(String indexInputType) {
+		this.indexInputType = indexInputType;
+	}
+
+	public void setIndexSort(String indexSort) {
+		this.indexSort = indexSort;
+	}
 	
 }
 
@@ -0,0 +1,63 @@
+package org.fastcatsearch.ir.document;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 압축을 푼 문서블럭의 LRU 캐시. 세그먼트의 DocumentReader 와 그 clone들이 공유한다.
+ * 블럭 데이터는 캐시에 넣은뒤 변경하지 않으므로 여러 쓰레드에서 함께 읽어도 된다.
+ * */
+public class DocumentBlockCache {
+
+	public static final int DEFAULT_CAPACITY = 32;
+
+	private final int capacity;
+	private final LinkedHashMap<Long, byte[]> map;
+
+	private long hitCount;
+	private long missCount;
+
+	public DocumentBlockCache() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	public DocumentBlockCache(int capacity) {
+		this.capacity = capacity;
+		map = new LinkedHashMap<Long, byte[]>(capacity * 2, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Long, byte[]> eldest) {
+				return size() > DocumentBlockCache.this.capacity;
+			}
+		};
+	}
+
+	public synchronized byte[] get(long blockPosition) {
+		byte[] block = map.get(blockPosition);
+		if (block != null) {
+			hitCount++;
+		} else {
+			missCount++;
+		}
+		return block;
+	}
+
+	public synchronized void put(long blockPosition, byte[] block) {
+		map.put(blockPosition, block);
+	}
+
+	public synchronized int size() {
+		return map.size();
+	}
+
+	public synchronized long hitCount() {
+		return hitCount;
+	}
+
+	public synchronized long missCount() {
+		return missCount;
+	}
+
+	public synchronized void clear() {
+		map.clear();
+	}
+}
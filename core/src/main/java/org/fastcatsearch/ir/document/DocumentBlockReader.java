@@ -0,0 +1,224 @@
+package org.fastcatsearch.ir.document;
+
+import java.io.IOException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import org.apache.lucene.util.BytesRef;
+import org.fastcatsearch.ir.io.IOUtil;
+import org.fastcatsearch.ir.io.IndexInput;
+
+/**
+ * document.stored 에서 문서의 압축을 푼 원본데이터를 읽는다.
+ * 블럭포맷은 압축을 푼 블럭을 DocumentBlockCache 에 넣어두어, 한 페이지의 결과문서들이 같은 블럭에 있다면 한번만 압축을 푼다.
+ * 예전의 문서별 압축포맷도 읽을수 있다.
+ *
+ * Inflater는 reader마다 하나를 재사용하며 close시 해제한다. thread-safe 하지 않으므로 쓰레드마다 clone해서 사용한다.
+ * @see DocumentBlockWriter
+ * */
+public class DocumentBlockReader implements Cloneable {
+
+	private IndexInput docInput;
+	private IndexInput positionInput;
+	private boolean isBlockFormat;
+	private int documentCount;
+	private long positionLimit;
+
+	private DocumentBlockCache blockCache;
+	private Inflater decompressor;
+	private byte[] compressedBuffer;
+
+	//마지막으로 읽은 블럭. 순차적으로 읽을때 캐시를 거치지 않는다.
+	private long lastBlockPosition = -1;
+	private byte[] lastBlock;
+
+	//예전 포맷에서 압축을 푼 문서데이터. 재사용된다.
+	private byte[] documentBuffer;
+
+	private DocumentBlockReader() {
+	}
+
+	public DocumentBlockReader(IndexInput docInput, IndexInput positionInput, DocumentBlockCache blockCache) throws IOException {
+		this.docInput = docInput;
+		this.positionInput = positionInput;
+		this.blockCache = blockCache;
+		positionLimit = positionInput.length();
+		docInput.seek(0);
+		int header = docInput.readInt();
+		if (header == DocumentBlockWriter.BLOCK_FORMAT) {
+			isBlockFormat = true;
+			documentCount = docInput.readInt();
+		} else {
+			documentCount = header;
+		}
+		compressedBuffer = new byte[1024];
+	}
+
+	/**
+	 * document.stored 의 헤더에서 문서갯수를 읽는다.
+	 * */
+	public static int readDocumentCount(IndexInput docInput) throws IOException {
+		docInput.seek(0);
+		int header = docInput.readInt();
+		if (header == DocumentBlockWriter.BLOCK_FORMAT) {
+			return docInput.readInt();
+		}
+		return header;
+	}
+
+	public int documentCount() {
+		return documentCount;
+	}
+
+	public boolean isBlockFormat() {
+		return isBlockFormat;
+	}
+
+	/**
+	 * 문서의 원본데이터를 읽는다. 블럭포맷에서는 다음문서의 시작위치가 같은 블럭에 있으면 그 앞까지, 아니면 블럭 끝까지가 문서데이터이다.
+	 * 리턴된 데이터는 다음 read 호출시 바뀔수 있으며, 캐시된 블럭일수 있으므로 수정하면 안된다.
+	 * @return 없는 문서이면 null
+	 * */
+	public BytesRef read(int docNo) throws IOException {
+		long positionOffset = ((long) docNo) * IOUtil.SIZE_OF_LONG;
+		if (docNo < 0 || positionOffset >= positionLimit) {
+			return null;
+		}
+		positionInput.seek(positionOffset);
+		long pointer = positionInput.readLong();
+
+		if (isBlockFormat) {
+			long blockPosition = pointer >>> DocumentBlockWriter.OFFSET_BITS;
+			int offset = (int) (pointer & DocumentBlockWriter.OFFSET_MASK);
+			int end = -1;
+			if (positionOffset + IOUtil.SIZE_OF_LONG < positionLimit) {
+				long nextPointer = positionInput.readLong();
+				if ((nextPointer >>> DocumentBlockWriter.OFFSET_BITS) == blockPosition) {
+					end = (int) (nextPointer & DocumentBlockWriter.OFFSET_MASK);
+				}
+			}
+			byte[] block = readBlock(blockPosition);
+			if (end < 0) {
+				end = block.length;
+			}
+			return new BytesRef(block, offset, end - offset);
+		} else {
+			docInput.seek(pointer);
+			int len = docInput.readInt();
+			readCompressed(len);
+			return inflateDocument(len);
+		}
+	}
+
+	private byte[] readBlock(long blockPosition) throws IOException {
+		if (blockPosition == lastBlockPosition) {
+			return lastBlock;
+		}
+		byte[] block = null;
+		if (blockCache != null) {
+			block = blockCache.get(blockPosition);
+		}
+		if (block == null) {
+			docInput.seek(blockPosition);
+			int compressedLength = docInput.readInt();
+			int rawLength = docInput.readInt();
+			readCompressed(compressedLength);
+			block = inflate(decompressor(), compressedBuffer, 0, compressedLength, rawLength);
+			if (blockCache != null) {
+				blockCache.put(blockPosition, block);
+			}
+		}
+		lastBlockPosition = blockPosition;
+		lastBlock = block;
+		return block;
+	}
+
+	private void readCompressed(int len) throws IOException {
+		if (compressedBuffer.length < len) {
+			compressedBuffer = new byte[Math.max(len, compressedBuffer.length * 2)];
+		}
+		docInput.readBytes(compressedBuffer, 0, len);
+	}
+
+	private Inflater decompressor() {
+		if (decompressor == null) {
+			decompressor = new Inflater();
+		}
+		return decompressor;
+	}
+
+	// 예전 포맷은 원본길이가 기록되어 있지 않으므로 버퍼를 늘려가며 푼다.
+	private BytesRef inflateDocument(int len) throws IOException {
+		Inflater inflater = decompressor();
+		inflater.reset();
+		inflater.setInput(compressedBuffer, 0, len);
+		if (documentBuffer == null) {
+			documentBuffer = new byte[len * 4 + 64];
+		}
+		int total = 0;
+		try {
+			while (!inflater.finished()) {
+				if (total == documentBuffer.length) {
+					byte[] newBuffer = new byte[documentBuffer.length * 2];
+					System.arraycopy(documentBuffer, 0, newBuffer, 0, total);
+					documentBuffer = newBuffer;
+				}
+				int n = inflater.inflate(documentBuffer, total, documentBuffer.length - total);
+				if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+					break;
+				}
+				total += n;
+			}
+		} catch (DataFormatException e) {
+			throw new IOException("Corrupted document data", e);
+		}
+		return new BytesRef(documentBuffer, 0, total);
+	}
+
+	static byte[] inflate(Inflater inflater, byte[] compressed, int offset, int length, int rawLength) throws IOException {
+		byte[] result = new byte[rawLength];
+		inflater.reset();
+		inflater.setInput(compressed, offset, length);
+		int total = 0;
+		try {
+			while (total < rawLength) {
+				int n = inflater.inflate(result, total, rawLength - total);
+				if (n == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+					break;
+				}
+				total += n;
+			}
+		} catch (DataFormatException e) {
+			throw new IOException("Corrupted document block", e);
+		}
+		if (total != rawLength) {
+			throw new IOException("Corrupted document block. expected=" + rawLength + ", actual=" + total);
+		}
+		return result;
+	}
+
+	@Override
+	public DocumentBlockReader clone() {
+		DocumentBlockReader reader = new DocumentBlockReader();
+		reader.docInput = docInput.clone();
+		reader.positionInput = positionInput.clone();
+		reader.isBlockFormat = isBlockFormat;
+		reader.documentCount = documentCount;
+		reader.positionLimit = positionLimit;
+		reader.blockCache = blockCache;
+		reader.compressedBuffer = new byte[1024];
+		return reader;
+	}
+
+	public void close() throws IOException {
+		try {
+			docInput.close();
+			positionInput.close();
+		} finally {
+			if (decompressor != null) {
+				decompressor.end();
+				decompressor = null;
+			}
+		}
+	}
+}
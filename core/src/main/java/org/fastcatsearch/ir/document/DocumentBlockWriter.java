@@ -0,0 +1,182 @@
+package org.fastcatsearch.ir.document;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.apache.lucene.util.BytesRef;
+import org.fastcatsearch.ir.common.IndexFileNames;
+import org.fastcatsearch.ir.index.IndexWriteInfo;
+import org.fastcatsearch.ir.io.BufferedFileOutput;
+import org.fastcatsearch.ir.io.BytesDataOutput;
+import org.fastcatsearch.ir.io.IOUtil;
+
+/**
+ * 문서데이터를 BLOCK_SIZE 단위로 모아서 압축기록한다.
+ *
+ * document.stored
+ *     포맷 : int(BLOCK_FORMAT), int(문서갯수), { int(압축길이), int(원본길이), byte[](압축데이터) }
+ * document.position
+ *     포맷 : { long(블럭위치 << OFFSET_BITS | 블럭내 문서시작위치) }
+ *
+ * 블럭은 원본데이터가 BLOCK_SIZE 이상이 되면 닫히므로, 문서시작위치는 항상 BLOCK_SIZE 보다 작다.
+ * 블럭내 문서의 끝위치는 따로 기록하지 않고 다음문서의 시작위치나 블럭의 끝으로 알아낸다.
+ *
+ * 예전 포맷은 문서하나씩 압축되어 있으며 파일의 첫 int가 문서갯수이다. BLOCK_FORMAT은 음수이므로 헤더로 구분한다.
+ * @see DocumentBlockReader
+ * */
+public class DocumentBlockWriter {
+
+	public static final int BLOCK_FORMAT = 0xFCDB0001;
+	public static final int BLOCK_SIZE = 32 * 1024;
+	public static final int OFFSET_BITS = 16;
+	public static final long OFFSET_MASK = (1L << OFFSET_BITS) - 1;
+
+	private BufferedFileOutput docOutput;
+	private BufferedFileOutput positionOutput;
+
+	private BytesDataOutput blockBuffer; //아직 기록하지 않은 블럭의 원본데이터
+	private long blockPosition; //현재 블럭이 기록될 위치
+	private BytesDataOutput compressBuffer;
+	private byte[] workingBuffer;
+	private Deflater compressor;
+	private Inflater decompressor;
+
+	private int documentCount;
+
+	public DocumentBlockWriter(File dir) throws IOException {
+		docOutput = new BufferedFileOutput(dir, IndexFileNames.docStored);
+		positionOutput = new BufferedFileOutput(dir, IndexFileNames.docPosition);
+		docOutput.writeInt(BLOCK_FORMAT);
+		docOutput.writeInt(0); // document count
+		blockPosition = docOutput.position();
+
+		blockBuffer = new BytesDataOutput(BLOCK_SIZE * 2);
+		compressBuffer = new BytesDataOutput(BLOCK_SIZE);
+		workingBuffer = new byte[4096];
+		compressor = new Deflater(Deflater.BEST_SPEED);
+	}
+
+	/**
+	 * 압축하지 않은 문서데이터를 추가한다.
+	 * @return 추가된 문서번호
+	 * */
+	public int add(byte[] data, int offset, int length) throws IOException {
+		positionOutput.writeLong((blockPosition << OFFSET_BITS) | blockBuffer.position());
+		blockBuffer.writeBytes(data, offset, length);
+		if (blockBuffer.position() >= BLOCK_SIZE) {
+			flushBlock();
+		}
+		return documentCount++;
+	}
+
+	private void flushBlock() throws IOException {
+		int rawLength = (int) blockBuffer.position();
+		if (rawLength == 0) {
+			return;
+		}
+		compressor.reset();
+		compressor.setInput(blockBuffer.array(), 0, rawLength);
+		compressor.finish();
+		compressBuffer.reset();
+		while (!compressor.finished()) {
+			int count = compressor.deflate(workingBuffer);
+			compressBuffer.writeBytes(workingBuffer, 0, count);
+		}
+		int compressedLength = (int) compressBuffer.position();
+		docOutput.writeInt(compressedLength);
+		docOutput.writeInt(rawLength);
+		docOutput.writeBytes(compressBuffer.array(), 0, compressedLength);
+
+		blockBuffer.reset();
+		blockPosition = docOutput.position();
+	}
+
+	/**
+	 * 색인중에 기록된 문서의 원본데이터를 읽는다. 아직 기록되지 않은 블럭이라면 메모리에서 읽는다.
+	 * */
+	public BytesRef read(int docNo) throws IOException {
+		long pointer = -1;
+		long prevPosPos = positionOutput.position();
+		try {
+			positionOutput.seek(((long) docNo) * IOUtil.SIZE_OF_LONG);
+			pointer = IOUtil.readLong(positionOutput.getRaf());
+		} finally {
+			positionOutput.seek(prevPosPos);
+		}
+
+		long position = pointer >>> OFFSET_BITS;
+		int offset = (int) (pointer & OFFSET_MASK);
+		int end = -1;
+		if (docNo + 1 < documentCount) {
+			long nextPointer = -1;
+			prevPosPos = positionOutput.position();
+			try {
+				positionOutput.seek(((long) docNo + 1) * IOUtil.SIZE_OF_LONG);
+				nextPointer = IOUtil.readLong(positionOutput.getRaf());
+			} finally {
+				positionOutput.seek(prevPosPos);
+			}
+			if ((nextPointer >>> OFFSET_BITS) == position) {
+				end = (int) (nextPointer & OFFSET_MASK);
+			}
+		}
+		if (position == blockPosition) {
+			if (end < 0) {
+				end = (int) blockBuffer.position();
+			}
+			return new BytesRef(blockBuffer.array(), offset, end - offset);
+		}
+
+		byte[] block = null;
+		long prevDocPos = docOutput.position();
+		try {
+			docOutput.seek(position);
+			RandomAccessFile raf = docOutput.getRaf();
+			int compressedLength = raf.readInt();
+			int rawLength = raf.readInt();
+			byte[] compressed = new byte[compressedLength];
+			raf.readFully(compressed);
+			if (decompressor == null) {
+				decompressor = new Inflater();
+			}
+			block = DocumentBlockReader.inflate(decompressor, compressed, 0, compressedLength, rawLength);
+		} finally {
+			docOutput.seek(prevDocPos);
+		}
+		if (end < 0) {
+			end = block.length;
+		}
+		return new BytesRef(block, offset, end - offset);
+	}
+
+	public int documentCount() {
+		return documentCount;
+	}
+
+	public IndexWriteInfo docWriteInfo() {
+		return docOutput.getWriteInfo();
+	}
+
+	public IndexWriteInfo positionWriteInfo() {
+		return positionOutput.getWriteInfo();
+	}
+
+	public void close() throws IOException {
+		try {
+			flushBlock();
+			// write header
+			docOutput.seek(IOUtil.SIZE_OF_INT);
+			docOutput.writeInt(documentCount);
+			docOutput.close();
+			positionOutput.close();
+		} finally {
+			compressor.end();
+			if (decompressor != null) {
+				decompressor.end();
+			}
+		}
+	}
+}
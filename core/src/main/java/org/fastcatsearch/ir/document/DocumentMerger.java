@@ -1,8 +1,5 @@
 package org.fastcatsearch.ir.document;
 
-import org.fastcatsearch.ir.common.IndexFileNames;
-import org.fastcatsearch.ir.io.BufferedFileOutput;
-import org.fastcatsearch.ir.io.IndexOutput;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -10,25 +7,22 @@ import java.io.File;
 import java.io.IOException;
 
 /**
- * doc.position File
- *   format : {long(docStore position)}
- * doc.stored File
- *   format : int(docCount), {int(compress data length), byte[](one document)}
+ * 세그먼트들의 살아있는 문서를 순서대로 모아 하나의 문서파일로 기록한다. 포맷은 DocumentBlockWriter 를 참조.
+ * 블럭경계가 세그먼트마다 다르므로 문서원본을 다시 블럭으로 압축한다.
+ * 색인정렬시에는 주어진 (세그먼트, 문서번호) 순서로 읽어 기록한다.
  *
  * Created by swsong on 2015. 11. 17..
  */
 public class DocumentMerger {
     private static Logger logger = LoggerFactory.getLogger(DocumentMerger.class);
 
-    private IndexOutput docOutput;
-    private IndexOutput positionOutput;
+    private DocumentBlockWriter blockWriter;
     private PrimaryKeyIndexWriter primaryKeyIndexWriter;
     private int readerSize;
     private DocumentRawReader[] reader;
 
     public DocumentMerger(File dir) throws IOException {
-        docOutput = new BufferedFileOutput(dir, IndexFileNames.docStored);
-        positionOutput = new BufferedFileOutput(dir, IndexFileNames.docPosition);
+        blockWriter = new DocumentBlockWriter(dir);
 //        primaryKeyIndexWriter = new PrimaryKeyIndexWriter();
     }
 
@@ -42,7 +36,6 @@ public class DocumentMerger {
 
         int totalCount = 0;
         int deleteCount = 0;
-        docOutput.writeInt(totalCount);
         try {
             for (int i = 0; i < readerSize; i++) {
 
@@ -55,10 +48,7 @@ public class DocumentMerger {
                         //기록.
                         byte[] buffer = reader[i].getBuffer();
                         int dataLength = reader[i].getDataLength();
-                        long docPosition = docOutput.position();
-                        positionOutput.writeLong(docPosition);
-                        docOutput.writeInt(dataLength);
-                        docOutput.writeBytes(buffer, dataLength);
+                        blockWriter.add(buffer, 0, dataLength);
                         totalCount++;
                     } else {
                         deleteCount++;
@@ -66,8 +56,6 @@ public class DocumentMerger {
                 }
             }
 
-            docOutput.seek(0);
-            docOutput.writeInt(totalCount);
             logger.debug("Total Count[{}] Delete[{}]", totalCount, deleteCount);
         } finally {
             //CLOSE
@@ -87,24 +75,46 @@ public class DocumentMerger {
 
     }
 
-    public void close() throws IOException {
-        IOException exception = null;
-        try {
-            if (docOutput != null) {
-                docOutput.close();
-            }
-        } catch (IOException e) {
-            exception = e;
+    /**
+     * 색인정렬된 순서로 기록한다. 새 문서번호 i 의 원래 문서는 dirs[segmentList[i]] 의 docNoList[i] 번 문서이다.
+     */
+    public void merge(File[] dirs, int[] segmentList, int[] docNoList) throws IOException {
+        readerSize = dirs.length;
+        if (readerSize <= 0) {
+            return;
         }
+        reader = new DocumentRawReader[readerSize];
         try {
-            if (positionOutput != null) {
-                positionOutput.close();
+            for (int i = 0; i < readerSize; i++) {
+                //정렬순서로 읽으면 같은 블럭을 여러번 읽게되므로 블럭캐시를 사용한다.
+                reader[i] = new DocumentRawReader(dirs[i], new DocumentBlockCache());
+            }
+            for (int i = 0; i < docNoList.length; i++) {
+                DocumentRawReader r = reader[segmentList[i]];
+                r.read(docNoList[i]);
+                blockWriter.add(r.getBuffer(), 0, r.getDataLength());
+            }
+            logger.debug("Total Count[{}] sorted", docNoList.length);
+        } finally {
+            IOException exception = null;
+            for (int i = 0; i < readerSize; i++) {
+                try {
+                    if (reader[i] != null) {
+                        reader[i].close();
+                    }
+                } catch (IOException e) {
+                    exception = e;
+                }
+            }
+            if (exception != null) {
+                throw exception;
             }
-        } catch (IOException e) {
-            exception = e;
         }
-        if (exception != null) {
-            throw exception;
+    }
+
+    public void close() throws IOException {
+        if (blockWriter != null) {
+            blockWriter.close();
         }
     }
 }
@@ -1,10 +1,9 @@
 package org.fastcatsearch.ir.document;
 
+import org.apache.lucene.util.BytesRef;
 import org.fastcatsearch.ir.common.IndexFileNames;
 import org.fastcatsearch.ir.io.BitSet;
 import org.fastcatsearch.ir.io.BufferedFileInput;
-import org.fastcatsearch.ir.io.IOUtil;
-import org.fastcatsearch.ir.io.IndexInput;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -14,6 +13,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 /**
+ * 머징을 위해 삭제되지 않은 문서의 압축을 푼 원본데이터를 순서대로 읽는다.
  * Created by swsong on 2015. 11. 18..
  */
 public class DocumentRawReader {
@@ -21,12 +21,10 @@ public class DocumentRawReader {
     private int lastDocNo;
     private int docNo;
 
-    private IndexInput docInput;
-    private IndexInput positionInput;
+    private DocumentBlockReader blockReader;
     private final BitSet deleteSet;
 
     private int documentCount;
-    private long positionLimit;
 
     private byte[] buffer = new byte[8192];
     private int dataLength;
@@ -34,11 +32,17 @@ public class DocumentRawReader {
     private boolean isAlive;
 
     public DocumentRawReader(File dir) throws IOException {
-        docInput = new BufferedFileInput(dir, IndexFileNames.docStored);
-        positionInput = new BufferedFileInput(dir, IndexFileNames.docPosition);
+        //순차적으로 한번씩만 읽으므로 블럭캐시는 사용하지 않는다.
+        this(dir, null);
+    }
+
+    /**
+     * 색인정렬 머징처럼 문서를 번호순이 아닌 순서로 읽을때는 블럭캐시를 준다.
+     */
+    public DocumentRawReader(File dir, DocumentBlockCache blockCache) throws IOException {
+        blockReader = new DocumentBlockReader(new BufferedFileInput(dir, IndexFileNames.docStored), new BufferedFileInput(dir, IndexFileNames.docPosition), blockCache);
         deleteSet = new BitSet(dir, IndexFileNames.docDeleteSet);
-        positionLimit = positionInput.length();
-        documentCount = docInput.readInt();
+        documentCount = blockReader.documentCount();
         logger.info("DocumentCount = {}", documentCount);
     }
 
@@ -51,23 +55,10 @@ public class DocumentRawReader {
             return false;
         }
 
-        long positionOffset = docNo * IOUtil.SIZE_OF_LONG;
         if(deleteSet.isSet(docNo)) {
             isAlive = false;
         } else {
-            positionInput.seek(positionOffset);
-            long pos = positionInput.readLong();
-            // find a document block
-            docInput.seek(pos);
-            dataLength = docInput.readInt();
-            if (buffer.length < dataLength) {
-                int newLen = buffer.length;
-                while (newLen < dataLength) {
-                    newLen *= 2;
-                }
-                buffer = new byte[newLen];
-            }
-            docInput.readBytes(buffer, 0, dataLength);
+            readBuffer(docNo);
             isAlive = true;
         }
         lastDocNo = docNo;
@@ -75,6 +66,28 @@ public class DocumentRawReader {
         return true;
     }
 
+    /**
+     * 지정한 문서를 읽는다. 순차읽기 위치는 바뀌지 않는다.
+     */
+    public void read(int docNo) throws IOException {
+        readBuffer(docNo);
+        isAlive = !deleteSet.isSet(docNo);
+        lastDocNo = docNo;
+    }
+
+    private void readBuffer(int docNo) throws IOException {
+        BytesRef bytesRef = blockReader.read(docNo);
+        dataLength = bytesRef.length;
+        if (buffer.length < dataLength) {
+            int newLen = buffer.length;
+            while (newLen < dataLength) {
+                newLen *= 2;
+            }
+            buffer = new byte[newLen];
+        }
+        System.arraycopy(bytesRef.bytes, bytesRef.offset, buffer, 0, dataLength);
+    }
+
     public byte[] getBuffer() {
         return buffer;
     }
@@ -92,24 +105,8 @@ public class DocumentRawReader {
     }
 
     public void close() throws IOException {
-        IOException exception = null;
-        try {
-            if (docInput != null) {
-                docInput.close();
-            }
-        } catch (IOException e) {
-            exception = e;
-        }
-        try {
-            if (positionInput != null) {
-                positionInput.close();
-            }
-        } catch (IOException e) {
-            exception = e;
-        }
-
-        if (exception != null) {
-            throw exception;
+        if (blockReader != null) {
+            blockReader.close();
         }
     }
 }
@@ -20,20 +20,14 @@ import java.io.File;
 import java.io.IOException;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.zip.Inflater;
-import java.util.zip.InflaterInputStream;
 
-import org.apache.commons.io.input.BoundedInputStream;
 import org.apache.lucene.util.BytesRef;
 import org.fastcatsearch.ir.common.IndexFileNames;
 import org.fastcatsearch.ir.field.Field;
 import org.fastcatsearch.ir.field.FieldDataParseException;
-import org.fastcatsearch.ir.io.BufferedFileInput;
-import org.fastcatsearch.ir.io.ByteRefArrayOutputStream;
+import org.fastcatsearch.ir.io.IndexInputFactory;
 import org.fastcatsearch.ir.io.BytesDataInput;
 import org.fastcatsearch.ir.io.DataInput;
-import org.fastcatsearch.ir.io.IOUtil;
-import org.fastcatsearch.ir.io.IndexInput;
 import org.fastcatsearch.ir.settings.FieldSetting;
 import org.fastcatsearch.ir.settings.SchemaSetting;
 import org.slf4j.Logger;
@@ -41,22 +35,18 @@ import org.slf4j.LoggerFactory;
 
 /**
  * 문서번호는 세그먼트마다 0부터 시작하는 번호로 read한다. baseNo와는 상관없는 내부문서번호.
+ * 압축된 문서블럭은 DocumentBlockReader 가 읽으며, 압축을 푼 블럭 캐시는 clone들이 공유한다.
  * */
 
 public class DocumentReader implements Cloneable {
 	private static Logger logger = LoggerFactory.getLogger(DocumentReader.class);
 
-	private static final int INFLATE_BUFFER_INIT_SIZE = 20 * 1024;
 	private List<FieldSetting> fields;
-	private IndexInput docInput;
-	private IndexInput positionInput;
-	private ByteRefArrayOutputStream inflaterOutput;
-	private byte[] workingBuffer;
+	private DocumentBlockReader blockReader;
 
 	private int documentCount;
 	private int lastDocNo = -1;
 	private DataInput lastBai;
-	private long positionLimit;
 
     private AtomicInteger referenceCount;
 
@@ -64,15 +54,15 @@ public class DocumentReader implements Cloneable {
 	}
 
 	public DocumentReader(SchemaSetting schemaSetting, File dir) throws IOException {
+		this(schemaSetting, dir, IndexInputFactory.BUFFERED);
+	}
+
+	public DocumentReader(SchemaSetting schemaSetting, File dir, IndexInputFactory inputFactory) throws IOException {
 		fields = schemaSetting.getFieldSettingList();
-		docInput = new BufferedFileInput(dir, IndexFileNames.docStored);
-		positionInput = new BufferedFileInput(dir, IndexFileNames.docPosition);
-		positionLimit = positionInput.length();
-		documentCount = docInput.readInt();
-		logger.debug("DocumentCount = {}", documentCount);
-
-		inflaterOutput = new ByteRefArrayOutputStream(INFLATE_BUFFER_INIT_SIZE); // 자동 증가됨. 초기 20KB으로 내림. 예전에는 3MB였음.
-		workingBuffer = new byte[1024];
+		blockReader = new DocumentBlockReader(inputFactory.open(dir, IndexFileNames.docStored), inputFactory.open(dir, IndexFileNames.docPosition), new DocumentBlockCache());
+		documentCount = blockReader.documentCount();
+		logger.debug("DocumentCount = {}, block = {}", documentCount, blockReader.isBlockFormat());
+
         referenceCount = new AtomicInteger();
 	}
 
@@ -99,35 +89,12 @@ public class DocumentReader implements Cloneable {
 		DataInput bai = null;
 
 		if (docNo != lastDocNo) {
-			long positionOffset = docNo * IOUtil.SIZE_OF_LONG;
-			if(positionOffset >= positionLimit){
+			BytesRef bytesRef = blockReader.read(docNo);
+			if(bytesRef == null){
 				//없는문서.
 				return null;
 			}
-			positionInput.seek(positionOffset);
-			long pos = positionInput.readLong();
-			// find a document block
-			docInput.seek(pos);
-			int len = docInput.readInt();
-			
-			//2014-11-26 검색요청이 많아서 working 버퍼가 너무 빠르게 많이 생길경우 GC 되기전에 OOM 발생할수 있음.
-			// Stream으로 바꾸어 해결.
-			InflaterInputStream decompressInputStream = null;
-			inflaterOutput.reset();
-			int count = -1;
-			try {
-				BoundedInputStream boundedInputStream = new BoundedInputStream(docInput, len);
-				boundedInputStream.setPropagateClose(false);//하위 docInput 를 닫지않는다.
-				decompressInputStream = new InflaterInputStream(boundedInputStream, new Inflater(), 512);
-				while ((count = decompressInputStream.read(workingBuffer)) != -1) {
-					inflaterOutput.write(workingBuffer, 0, count);
-				}
-			} finally {
-				decompressInputStream.close();
-			}
-
-			BytesRef bytesRef = inflaterOutput.getBytesRef();
-			bai = new BytesDataInput(bytesRef.bytes, 0, bytesRef.length);
+			bai = new BytesDataInput(bytesRef.bytes, bytesRef.offset, bytesRef.length);
 
 			lastDocNo = docNo;
 			lastBai = bai;
@@ -178,21 +145,15 @@ public class DocumentReader implements Cloneable {
 	public DocumentReader clone() {
 		DocumentReader reader = new DocumentReader();
 		reader.fields = fields;
-		reader.docInput = docInput.clone();
-		reader.positionInput = positionInput.clone();
+		reader.blockReader = blockReader.clone();
 		reader.documentCount = documentCount;
-
-		reader.inflaterOutput = new ByteRefArrayOutputStream(INFLATE_BUFFER_INIT_SIZE); // 자동 증가됨.
-		reader.workingBuffer = new byte[1024];
-		reader.positionLimit = positionLimit;
         reader.referenceCount = referenceCount;
         referenceCount.incrementAndGet();
 		return reader;
 	}
 
 	public void close() throws IOException {
-		docInput.close();
-		positionInput.close();
+		blockReader.close();
         referenceCount.decrementAndGet();
 	}
 }
@@ -16,7 +16,6 @@
 
 package org.fastcatsearch.ir.document;
 
-import org.apache.commons.io.input.BoundedInputStream;
 import org.apache.lucene.util.BytesRef;
 import org.fastcatsearch.ir.common.IRException;
 import org.fastcatsearch.ir.common.IndexFileNames;
@@ -33,17 +32,11 @@ import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.RandomAccessFile;
-import java.nio.channels.Channels;
 import java.util.List;
-import java.util.zip.Deflater;
-import java.util.zip.Inflater;
-import java.util.zip.InflaterInputStream;
 
 
 /**
- * 문서를 한개씩 압축하여 기록한다.
+ * 문서를 DocumentBlockWriter 로 블럭단위로 모아서 압축하여 기록한다.
  * 입력되는 Document들을 파일로 기록하는 클래스.
  * 
  * 생성되는파일은 2개인데 문서데이터파일, 데이터파일내 문서위치를 기록한 문서위치파일이다.
@@ -59,39 +52,23 @@ public class DocumentWriter implements WriteInfoLoggable {
 	private static Logger logger = LoggerFactory.getLogger(DocumentWriter.class);
 
 	private List<FieldSetting> fields;
-	private BufferedFileOutput docOutput;
-	private BufferedFileOutput positionOutput;
-	private byte[] workingBuffer;
+	private DocumentBlockWriter blockWriter;
 	private BytesDataOutput fbaos;
 	private int totalCount;  //누적문서갯수.
-	private Deflater compressor;
 	private int count; //현 색인시 추가문서갯수.
 
-    private static final int INFLATE_BUFFER_INIT_SIZE = 20 * 1024;
-    private ByteRefArrayOutputStream inflaterOutput;
-
-
 	public DocumentWriter(SchemaSetting schemaSetting, File dir, IndexConfig indexConfig) throws IOException, IRException {
 		
-		compressor = new Deflater(Deflater.BEST_SPEED);
 		fields = schemaSetting.getFieldSettingList();
 		
-		docOutput = new BufferedFileOutput(dir, IndexFileNames.docStored);
-		positionOutput = new BufferedFileOutput(dir, IndexFileNames.docPosition);
+		blockWriter = new DocumentBlockWriter(dir);
 
 		fbaos = new BytesDataOutput(3 * 1024 * 1024); //초기 3Mb로 시작.
-		workingBuffer = new byte[1024];
-		docOutput.writeInt(0); // document count
-
-        inflaterOutput = new ByteRefArrayOutputStream(INFLATE_BUFFER_INIT_SIZE);
-
 	}
 
 
 	public int write(Document document) throws IOException, IRException {
 		fbaos.reset();
-		long docStartPosition = docOutput.position();
-		positionOutput.writeLong(docStartPosition);
 		
 		for (int i = 0; i < document.size(); i++) {
 			Field f = document.get(i);
@@ -107,70 +84,15 @@ public class DocumentWriter implements WriteInfoLoggable {
 			}
 		}
 		
-		compressor.reset();
-		compressor.setInput(fbaos.array(), 0, (int) fbaos.position());
-		compressor.finish();
-
-		long pos = docOutput.position();
-		docOutput.writeInt(0); // 압축데이터길이 임시기록.
-
-		int compressedDataLength = 0;
-		while (!compressor.finished()) {
-			int count = compressor.deflate(workingBuffer);
-			docOutput.writeBytes(workingBuffer, 0, count);
-			compressedDataLength += count;
-		}
-		
-		long lastPos = docOutput.position();
-		// 길이헤더를 정확한 데이터로 기록한다.
-		docOutput.seek(pos);
-		docOutput.writeInt(compressedDataLength);
-		docOutput.seek(lastPos);
+		blockWriter.add(fbaos.array(), 0, (int) fbaos.position());
 		
 		count++;
 		return totalCount++;
 	}
 
     public Document readDocument(int docNo) throws IOException, IRException {
-        long prevPosPos = positionOutput.position();
-        long docPos = -1;
-        try {
-            long positionOffset = ((long) docNo) * IOUtil.SIZE_OF_LONG;
-            positionOutput.seek(positionOffset);
-            docPos = IOUtil.readLong(positionOutput.getRaf());
-        } finally {
-            positionOutput.seek(prevPosPos);
-        }
-
-        // find a document block
-        long prevDocPos = docOutput.position();
-        try {
-            docOutput.seek(docPos);
-            RandomAccessFile raf = docOutput.getRaf();
-            int len = IOUtil.readInt(raf);
-            long n = raf.getFilePointer();
-            InputStream docInput = Channels.newInputStream(docOutput.getRaf().getChannel().position(n));
-            //2014-11-26 검색요청이 많아서 working 버퍼가 너무 빠르게 많이 생길경우 GC 되기전에 OOM 발생할수 있음.
-            // Stream으로 바꾸어 해결.
-            InflaterInputStream decompressInputStream = null;
-            inflaterOutput.reset();
-            int count = -1;
-            try {
-                BoundedInputStream boundedInputStream = new BoundedInputStream(docInput, len);
-                boundedInputStream.setPropagateClose(false);//하위 docInput 를 닫지않는다.
-                decompressInputStream = new InflaterInputStream(boundedInputStream, new Inflater(), 512);
-                while ((count = decompressInputStream.read(workingBuffer)) != -1) {
-                    inflaterOutput.write(workingBuffer, 0, count);
-                }
-            } finally {
-                decompressInputStream.close();
-            }
-        } finally {
-            docOutput.seek(prevDocPos);
-        }
-
-        BytesRef bytesRef = inflaterOutput.getBytesRef();
-        DataInput bai = new BytesDataInput(bytesRef.bytes, 0, bytesRef.length);
+        BytesRef bytesRef = blockWriter.read(docNo);
+        DataInput bai = new BytesDataInput(bytesRef.bytes, bytesRef.offset, bytesRef.length);
 
         Document document = new Document(fields.size());
         for (int i = 0; i < fields.size(); i++) {
@@ -204,21 +126,14 @@ public class DocumentWriter implements WriteInfoLoggable {
 	public void close() throws IOException {
 		logger.debug("DocumentWriter close() count={}", count);
 
-		// write header
-		if(count > 0){
-			docOutput.seek(0);
-			docOutput.writeInt(totalCount);
-		}
-		docOutput.close();
-		
-		positionOutput.close();
+		blockWriter.close();
 	}
 
 	@Override
 	public void getIndexWriteInfo(IndexWriteInfoList writeInfoList) {
 		writeInfoList.setDocumentSize(totalCount);
-		writeInfoList.add(docOutput.getWriteInfo());
-		writeInfoList.add(positionOutput.getWriteInfo());
+		writeInfoList.add(blockWriter.docWriteInfo());
+		writeInfoList.add(blockWriter.positionWriteInfo());
 		
 	}
 }
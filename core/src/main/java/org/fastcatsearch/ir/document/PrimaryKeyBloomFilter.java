@@ -0,0 +1,143 @@
+package org.fastcatsearch.ir.document;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.fastcatsearch.ir.common.IndexFileNames;
+import org.fastcatsearch.ir.io.BufferedFileInput;
+import org.fastcatsearch.ir.io.BufferedFileOutput;
+import org.fastcatsearch.ir.io.BytesBuffer;
+import org.fastcatsearch.ir.io.IndexInput;
+import org.fastcatsearch.ir.io.IndexOutput;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 세그먼트 pk맵의 bloom filter. 동적색인 반영시 pk가 절대 없는 세그먼트는 pk맵을 찾지 않고 건너뛴다.
+ * mightContain 이 false이면 세그먼트에 없는 pk이며, true이면 pk맵에서 다시 확인해야 한다.
+ *
+ * primarykey.bloom
+ *     포맷 : int(hash갯수), int(long 갯수), long[](bit)
+ * */
+public class PrimaryKeyBloomFilter {
+	private static Logger logger = LoggerFactory.getLogger(PrimaryKeyBloomFilter.class);
+
+	//키당 10bit, hash 7개이면 false positive 는 약 1%.
+	private static final int BITS_PER_KEY = 10;
+	private static final int HASH_COUNT = 7;
+
+	private final int hashCount;
+	private final long[] bits;
+	private final long bitSize;
+
+	public PrimaryKeyBloomFilter(int expectedKeyCount) {
+		this(HASH_COUNT, new long[(int) ((Math.max(expectedKeyCount, 1) * (long) BITS_PER_KEY + 63) >>> 6)]);
+	}
+
+	private PrimaryKeyBloomFilter(int hashCount, long[] bits) {
+		this.hashCount = hashCount;
+		this.bits = bits;
+		this.bitSize = (long) bits.length << 6;
+	}
+
+	public void add(byte[] data, int offset, int length) {
+		long hash = hash64(data, offset, length);
+		int h1 = (int) hash;
+		int h2 = (int) (hash >>> 32);
+		for (int i = 1; i <= hashCount; i++) {
+			long bit = ((h1 + i * h2) & 0x7fffffffL) % bitSize;
+			bits[(int) (bit >>> 6)] |= 1L << bit;
+		}
+	}
+
+	public boolean mightContain(byte[] data, int offset, int length) {
+		long hash = hash64(data, offset, length);
+		int h1 = (int) hash;
+		int h2 = (int) (hash >>> 32);
+		for (int i = 1; i <= hashCount; i++) {
+			long bit = ((h1 + i * h2) & 0x7fffffffL) % bitSize;
+			if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	public boolean mightContain(BytesBuffer bytesBuffer) {
+		return mightContain(bytesBuffer.bytes, bytesBuffer.offset, bytesBuffer.remaining());
+	}
+
+	// FNV-1a 후 murmur3 finalizer로 섞는다.
+	private static long hash64(byte[] data, int offset, int length) {
+		long h = 0xcbf29ce484222325L;
+		int end = offset + length;
+		for (int i = offset; i < end; i++) {
+			h ^= data[i] & 0xff;
+			h *= 0x100000001b3L;
+		}
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+		return h;
+	}
+
+	public long memorySize() {
+		return bits.length * 8L;
+	}
+
+	public void save(File dir) throws IOException {
+		IndexOutput output = new BufferedFileOutput(dir, IndexFileNames.primaryKeyBloom);
+		try {
+			output.writeInt(hashCount);
+			output.writeInt(bits.length);
+			for (int i = 0; i < bits.length; i++) {
+				output.writeLong(bits[i]);
+			}
+		} finally {
+			output.close();
+		}
+	}
+
+	/**
+	 * 세그먼트의 bloom filter 파일을 읽는다. 파일이 없으면 null.
+	 * */
+	public static PrimaryKeyBloomFilter load(File dir) throws IOException {
+		File file = new File(dir, IndexFileNames.primaryKeyBloom);
+		if (!file.exists()) {
+			return null;
+		}
+		IndexInput input = new BufferedFileInput(file);
+		try {
+			int hashCount = input.readInt();
+			long[] bits = new long[input.readInt()];
+			for (int i = 0; i < bits.length; i++) {
+				bits[i] = input.readLong();
+			}
+			return new PrimaryKeyBloomFilter(hashCount, bits);
+		} finally {
+			input.close();
+		}
+	}
+
+	/**
+	 * pk맵 파일의 모든 키로 bloom filter를 만든다.
+	 * */
+	public static PrimaryKeyBloomFilter build(File pkFile) throws IOException {
+		PrimaryKeyIndexBulkReader pkBulkReader = new PrimaryKeyIndexBulkReader(pkFile);
+		try {
+			PrimaryKeyBloomFilter bloomFilter = new PrimaryKeyBloomFilter(pkBulkReader.size());
+			// 제약조건: pk 크기는 1k를 넘지않는다.
+			BytesBuffer buf = new BytesBuffer(1024);
+			while (pkBulkReader.next(buf) != -1) {
+				bloomFilter.add(buf.bytes, buf.offset, buf.remaining());
+				buf.clear();
+			}
+			logger.debug("build pk bloom filter {} size[{}] mem[{}]", pkFile.getAbsolutePath(), pkBulkReader.size(), bloomFilter.memorySize());
+			return bloomFilter;
+		} finally {
+			pkBulkReader.close();
+		}
+	}
+}
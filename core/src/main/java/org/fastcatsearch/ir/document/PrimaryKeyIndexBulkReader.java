@@ -30,12 +30,21 @@ public class PrimaryKeyIndexBulkReader {
 	
 	private BufferedFileInput input;
 	private int keyCount;
+	private int size;
     private File file;
 	
 	public PrimaryKeyIndexBulkReader(File file) throws IOException{
         this.file = file;
 		input  = new BufferedFileInput(file);
 		keyCount = input.readInt();
+		size = keyCount;
+	}
+
+	/**
+	 * pk맵의 전체 키 갯수.
+	 * */
+	public int size() {
+		return size;
 	}
 	
 	public int next(BytesBuffer buf) throws IOException{
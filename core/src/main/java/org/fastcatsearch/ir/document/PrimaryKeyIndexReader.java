@@ -20,7 +20,7 @@ import java.io.File;
 import java.io.IOException;
 
 import org.fastcatsearch.ir.common.IndexFileNames;
-import org.fastcatsearch.ir.io.BufferedFileInput;
+import org.fastcatsearch.ir.io.IndexInputFactory;
 import org.fastcatsearch.ir.io.BytesBuffer;
 import org.fastcatsearch.ir.io.IndexInput;
 import org.slf4j.Logger;
@@ -48,11 +48,15 @@ public class PrimaryKeyIndexReader implements BytesToIntReader, Cloneable {
 //	}
 
 	public PrimaryKeyIndexReader(File dir, String filename) throws IOException {
+		this(dir, filename, IndexInputFactory.BUFFERED);
+	}
+
+	public PrimaryKeyIndexReader(File dir, String filename, IndexInputFactory inputFactory) throws IOException {
         this.dir = dir;
 		String pkIndexFilename = IndexFileNames.getIndexFileName(filename);
 
-		input = new BufferedFileInput(dir, filename);
-		IndexInput indexInput = new BufferedFileInput(dir, pkIndexFilename);
+		input = inputFactory.open(dir, filename);
+		IndexInput indexInput = inputFactory.open(dir, pkIndexFilename);
 
 		init(input, indexInput);
 	}
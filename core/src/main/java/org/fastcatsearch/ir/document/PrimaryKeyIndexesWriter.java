@@ -51,11 +51,13 @@ public class PrimaryKeyIndexesWriter {
 	private LargePrimaryKeyIndexWriter indexWriter;
 	private PrimaryKeySetting primaryKeySetting;
 	private int[] primaryKeyFieldIdList;
+	private File dir;
 
 	int MEMORY_LIMIT = 64 * 1024 * 1024; //적절은 64M
 	int CHECK_COUNT = 100000;
 	int count;
 	public PrimaryKeyIndexesWriter(Schema schema, File dir, IndexConfig indexConfig) throws IOException, IRException {
+		this.dir = dir;
 		primaryKeySetting = schema.schemaSetting().getPrimaryKeySetting();
 		
 		if (primaryKeySetting != null &&  primaryKeySetting.getFieldList() != null) {
@@ -139,6 +141,8 @@ public class PrimaryKeyIndexesWriter {
 	public void close() throws IOException {
 		if(indexWriter != null){
 			indexWriter.close();
+			// 동적색인 반영시 pk가 없는 세그먼트를 건너뛰기 위해 bloom filter를 함께 기록한다.
+			PrimaryKeyBloomFilter.build(new File(dir, IndexFileNames.primaryKeyMap)).save(dir);
 		}
 		
 		// save delete list
@@ -24,8 +24,11 @@ import org.fastcatsearch.ir.filter.FilterFunction;
 import org.fastcatsearch.ir.io.DataRef;
 import org.fastcatsearch.ir.query.Filter;
 import org.fastcatsearch.ir.query.RankInfo;
+import org.fastcatsearch.ir.search.ColumnDataRef;
+import org.fastcatsearch.ir.search.PointIndexReader;
 import org.fastcatsearch.ir.settings.FieldIndexSetting;
 import org.fastcatsearch.ir.settings.FieldSetting;
+import org.fastcatsearch.ir.settings.FieldSetting.Type;
 
 /**
  * 범위조건을 지정할수 있다. ~를 구분자로 시작과 끝범위를 지정하며, ;를 사용하여 여러범위를 포함할수있다. 시작패턴과 끝패턴이 함께
@@ -36,17 +39,65 @@ import org.fastcatsearch.ir.settings.FieldSetting;
  */
 public class SectionFilter extends PatternFilterFunction {
 
+	//메모리 column 비교용 범위값. 패턴이 없는 쪽은 최소, 최대값으로 채운다.
+	private long[] longStart;
+	private long[] longEnd;
+	private double[] doubleStart;
+	private double[] doubleEnd;
+
 	public SectionFilter(Filter filter, FieldIndexSetting fieldIndexSetting, FieldSetting fieldSetting) throws FilterException {
-		super(filter, fieldIndexSetting, fieldSetting, false);
+		this(filter, fieldIndexSetting, fieldSetting, false);
 	}
 
 	public SectionFilter(Filter filter, FieldIndexSetting fieldIndexSetting, FieldSetting fieldSetting, boolean isBoostFunction) throws FilterException {
 		super(filter, fieldIndexSetting, fieldSetting, isBoostFunction);
+		if (fieldSetting != null) {
+			Type type = fieldSetting.getType();
+			if (type == Type.INT || type == Type.LONG || type == Type.DATETIME) {
+				longStart = new long[patternCount];
+				longEnd = new long[patternCount];
+				for (int j = 0; j < patternCount; j++) {
+					longStart[j] = patternList[j] == null ? Long.MIN_VALUE : (type == Type.INT ? patternList[j].toIntValue() : patternList[j].toLongValue());
+					longEnd[j] = endPatternList[j] == null ? Long.MAX_VALUE : (type == Type.INT ? endPatternList[j].toIntValue() : endPatternList[j].toLongValue());
+				}
+			} else if (type == Type.FLOAT || type == Type.DOUBLE) {
+				doubleStart = new double[patternCount];
+				doubleEnd = new double[patternCount];
+				for (int j = 0; j < patternCount; j++) {
+					doubleStart[j] = patternList[j] == null ? Double.NEGATIVE_INFINITY : (type == Type.FLOAT ? Float.intBitsToFloat(patternList[j].toIntValue()) : Double.longBitsToDouble(patternList[j].toLongValue()));
+					doubleEnd[j] = endPatternList[j] == null ? Double.POSITIVE_INFINITY : (type == Type.FLOAT ? Float.intBitsToFloat(endPatternList[j].toIntValue()) : Double.longBitsToDouble(endPatternList[j].toLongValue()));
+				}
+			}
+		}
 	}
 
 	@Override
 	public boolean filtering(RankInfo rankInfo, DataRef dataRef) throws IOException {
 		
+		if (dataRef instanceof ColumnDataRef && ((ColumnDataRef) dataRef).isPrimitive()) {
+			//메모리에 올려진 숫자필드는 byte 비교없이 값으로 바로 비교한다.
+			ColumnDataRef columnDataRef = (ColumnDataRef) dataRef;
+			if (longStart != null) {
+				Type type = columnDataRef.column().type();
+				long value = type == Type.INT ? columnDataRef.intValue() : columnDataRef.longValue();
+				for (int j = 0; j < patternCount; j++) {
+					if (value >= longStart[j] && value <= longEnd[j]) {
+						return accept(rankInfo);
+					}
+				}
+				return isBoostFunction;
+			} else if (doubleStart != null) {
+				Type type = columnDataRef.column().type();
+				double value = type == Type.FLOAT ? columnDataRef.floatValue() : columnDataRef.doubleValue();
+				for (int j = 0; j < patternCount; j++) {
+					if (value >= doubleStart[j] && value <= doubleEnd[j]) {
+						return accept(rankInfo);
+					}
+				}
+				return isBoostFunction;
+			}
+		}
+		
 		while (dataRef.next()) {
 			
 			BytesRef bytesRef = dataRef.bytesRef();
@@ -96,6 +147,42 @@ public class SectionFilter extends PatternFilterFunction {
 		return isBoostFunction;
 	}
 
+	/**
+	 * 포인트색인으로 찾을 범위. PointIndexReader.sortableValue 로 변환된 { 시작[], 끝[] } 이며,
+	 * boost 필터이거나 숫자필드가 아니면 문서별로 비교해야 하므로 null.
+	 * */
+	public long[][] pointRanges() {
+		if (isBoostFunction) {
+			return null;
+		}
+		long[] start = new long[patternCount];
+		long[] end = new long[patternCount];
+		if (longStart != null) {
+			System.arraycopy(longStart, 0, start, 0, patternCount);
+			System.arraycopy(longEnd, 0, end, 0, patternCount);
+		} else if (doubleStart != null) {
+			boolean isFloat = fieldSetting.getType() == Type.FLOAT;
+			for (int j = 0; j < patternCount; j++) {
+				start[j] = isFloat ? PointIndexReader.sortableValue((float) doubleStart[j]) : PointIndexReader.sortableValue(doubleStart[j]);
+				end[j] = isFloat ? PointIndexReader.sortableValue((float) doubleEnd[j]) : PointIndexReader.sortableValue(doubleEnd[j]);
+			}
+		} else {
+			return null;
+		}
+		return new long[][] { start, end };
+	}
+
+	private boolean accept(RankInfo rankInfo) {
+		if(isBoostFunction){
+			//boost옵션이 있다면 점수를 올려주고 리턴한다.
+			rankInfo.addScore(boostScore);
+			if(rankInfo.isExplain()) {
+				rankInfo.explain(fieldIndexId, boostScore, "SECTION_BOOST_FILTER");
+			}
+		}
+		return true;
+	}
+
 	private static int compareString(BytesRef lval, int lsize, BytesRef rval, int rsize) {
 		// 무조건 앞에서부터 비교.. 두 값 중 짧은 길이로 선택
 		// 앞부분이 모두 같다면 긴쪽이 더 큰 값
@@ -0,0 +1,307 @@
+package org.fastcatsearch.ir.fst;
+
+import org.fastcatsearch.ir.io.BufferedFileInput;
+import org.fastcatsearch.ir.io.BufferedFileOutput;
+import org.fastcatsearch.ir.io.CharVector;
+import org.fastcatsearch.ir.io.IndexInput;
+import org.fastcatsearch.ir.io.IndexOutput;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * 정렬된 텀 -> long 값(0 이상)을 저장하는 최소 비순환 유한상태변환기(FST).
+ * 공통 접두어와 접미어를 공유하므로 모든 텀을 char[][]로 들고 있는 것보다 훨씬 작고, 탐색은 텀 길이에 비례한다.
+ * 출력값은 arc를 따라 더해지며 최종노드의 final output 을 더한 값이 텀의 값이다.
+ *
+ * 파일포맷 : int(버전), int(텀갯수), int(root 주소), int(바이트길이), byte[]
+ * 노드포맷 : byte(플래그), vInt(arc갯수), [vLong(final output)], byte(output바이트수 << 4 | target바이트수),
+ *           { char(label), output, target } * arc갯수. arc는 label 오름차순이며 고정길이이므로 이진탐색한다.
+ *
+ * @see FSTBuilder
+ */
+public class FST {
+
+    protected static final int VERSION = 1;
+
+    protected static final int FLAG_FINAL = 1;
+    protected static final int FLAG_FINAL_OUTPUT = 1 << 1;
+
+    private final byte[] bytes;
+    private final int root;
+    private final int size;
+
+    protected FST(byte[] bytes, int root, int size) {
+        this.bytes = bytes;
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * 저장된 텀 갯수.
+     */
+    public int size() {
+        return size;
+    }
+
+    public long memorySize() {
+        return bytes.length;
+    }
+
+    /**
+     * 텀의 값. 없으면 -1.
+     */
+    public long get(CharVector term) {
+        Node node = new Node();
+        node.read(root);
+        long output = 0;
+        for (int i = 0; i < term.length(); i++) {
+            int idx = node.find(term.charAt(i));
+            if (idx < 0) {
+                return -1;
+            }
+            output += node.output(idx);
+            node.read(node.target(idx));
+        }
+        if (node.isFinal) {
+            return output + node.finalOutput;
+        }
+        return -1;
+    }
+
+    /**
+     * term 과 같거나 큰 텀중 가장 작은 텀의 값. 없으면 -1.
+     */
+    public long ceil(CharVector term) {
+        int length = term.length();
+        int[] addressStack = new int[length];
+        int[] arcStack = new int[length];
+        long[] outputStack = new long[length];
+
+        Node node = new Node();
+        int address = root;
+        long output = 0;
+        for (int depth = 0; depth < length; depth++) {
+            node.read(address);
+            char ch = term.charAt(depth);
+            int idx = node.ceilArc(ch);
+            if (idx < node.arcCount && node.label(idx) == ch) {
+                addressStack[depth] = address;
+                arcStack[depth] = idx;
+                outputStack[depth] = output;
+                output += node.output(idx);
+                address = node.target(idx);
+            } else if (idx < node.arcCount) {
+                return first(node.target(idx), output + node.output(idx));
+            } else {
+                return next(addressStack, arcStack, outputStack, depth - 1);
+            }
+        }
+        node.read(address);
+        if (node.isFinal) {
+            return output + node.finalOutput;
+        }
+        return first(address, output);
+    }
+
+    /**
+     * prefix 로 시작하는 모든 텀의 값을 오름차순으로 리턴한다.
+     */
+    public long[] prefix(CharVector prefix) {
+        Node node = new Node();
+        node.read(root);
+        long output = 0;
+        for (int i = 0; i < prefix.length(); i++) {
+            int idx = node.find(prefix.charAt(i));
+            if (idx < 0) {
+                return new long[0];
+            }
+            output += node.output(idx);
+            node.read(node.target(idx));
+        }
+
+        long[] result = new long[16];
+        int count = 0;
+        int[] addressStack = new int[16];
+        long[] outputStack = new long[16];
+        int top = 0;
+        addressStack[top] = node.address;
+        outputStack[top++] = output;
+        while (top > 0) {
+            top--;
+            node.read(addressStack[top]);
+            long nodeOutput = outputStack[top];
+            if (node.isFinal) {
+                if (count == result.length) {
+                    result = Arrays.copyOf(result, count * 2);
+                }
+                result[count++] = nodeOutput + node.finalOutput;
+            }
+            if (top + node.arcCount > addressStack.length) {
+                int newLength = Math.max(addressStack.length * 2, top + node.arcCount);
+                addressStack = Arrays.copyOf(addressStack, newLength);
+                outputStack = Arrays.copyOf(outputStack, newLength);
+            }
+            for (int idx = 0; idx < node.arcCount; idx++) {
+                addressStack[top] = node.target(idx);
+                outputStack[top++] = nodeOutput + node.output(idx);
+            }
+        }
+        result = Arrays.copyOf(result, count);
+        Arrays.sort(result);
+        return result;
+    }
+
+    //depth 부터 거꾸로 올라가며 현재 arc 다음 arc의 가장 작은 텀을 찾는다.
+    private long next(int[] addressStack, int[] arcStack, long[] outputStack, int depth) {
+        Node node = new Node();
+        for (int d = depth; d >= 0; d--) {
+            node.read(addressStack[d]);
+            int idx = arcStack[d] + 1;
+            if (idx < node.arcCount) {
+                return first(node.target(idx), outputStack[d] + node.output(idx));
+            }
+        }
+        return -1;
+    }
+
+    //address 노드 하위의 가장 작은 텀.
+    private long first(int address, long output) {
+        Node node = new Node();
+        while (true) {
+            node.read(address);
+            if (node.isFinal) {
+                return output + node.finalOutput;
+            }
+            output += node.output(0);
+            address = node.target(0);
+        }
+    }
+
+    public void save(File file) throws IOException {
+        IndexOutput output = new BufferedFileOutput(file);
+        try {
+            output.writeInt(VERSION);
+            output.writeInt(size);
+            output.writeInt(root);
+            output.writeInt(bytes.length);
+            output.writeBytes(bytes, 0, bytes.length);
+        } finally {
+            output.close();
+        }
+    }
+
+    public static FST load(File file) throws IOException {
+        IndexInput input = new BufferedFileInput(file);
+        try {
+            int version = input.readInt();
+            if (version != VERSION) {
+                throw new IOException("Unknown fst version " + version + " : " + file.getAbsolutePath());
+            }
+            int size = input.readInt();
+            int root = input.readInt();
+            byte[] bytes = new byte[input.readInt()];
+            input.readBytes(bytes, 0, bytes.length);
+            return new FST(bytes, root, size);
+        } finally {
+            input.close();
+        }
+    }
+
+    /**
+     * 노드 하나를 해석한다. 탐색중 재사용한다.
+     */
+    private class Node {
+        int address;
+        boolean isFinal;
+        long finalOutput;
+        int arcCount;
+        int outputBytes;
+        int targetBytes;
+        int arcStart;
+        int arcSize;
+
+        void read(int address) {
+            this.address = address;
+            int pos = address;
+            int flag = bytes[pos++];
+            isFinal = (flag & FLAG_FINAL) != 0;
+            int b = bytes[pos++];
+            arcCount = b & 0x7F;
+            for (int shift = 7; (b & 0x80) != 0; shift += 7) {
+                b = bytes[pos++];
+                arcCount |= (b & 0x7F) << shift;
+            }
+            finalOutput = 0;
+            if ((flag & FLAG_FINAL_OUTPUT) != 0) {
+                b = bytes[pos++];
+                finalOutput = b & 0x7F;
+                for (int shift = 7; (b & 0x80) != 0; shift += 7) {
+                    b = bytes[pos++];
+                    finalOutput |= (long) (b & 0x7F) << shift;
+                }
+            }
+            if (arcCount > 0) {
+                int widths = bytes[pos++] & 0xFF;
+                outputBytes = widths >>> 4;
+                targetBytes = widths & 0x0F;
+            } else {
+                outputBytes = 0;
+                targetBytes = 0;
+            }
+            arcStart = pos;
+            arcSize = 2 + outputBytes + targetBytes;
+        }
+
+        char label(int idx) {
+            int pos = arcStart + idx * arcSize;
+            return (char) (((bytes[pos] & 0xFF) << 8) | (bytes[pos + 1] & 0xFF));
+        }
+
+        long output(int idx) {
+            int pos = arcStart + idx * arcSize + 2;
+            long value = 0;
+            for (int i = 0; i < outputBytes; i++) {
+                value = (value << 8) | (bytes[pos + i] & 0xFF);
+            }
+            return value;
+        }
+
+        int target(int idx) {
+            int pos = arcStart + idx * arcSize + 2 + outputBytes;
+            int value = 0;
+            for (int i = 0; i < targetBytes; i++) {
+                value = (value << 8) | (bytes[pos + i] & 0xFF);
+            }
+            return value;
+        }
+
+        //label 이 ch 인 arc. 없으면 -1.
+        int find(char ch) {
+            int idx = ceilArc(ch);
+            if (idx < arcCount && label(idx) == ch) {
+                return idx;
+            }
+            return -1;
+        }
+
+        //label 이 ch 이상인 첫 arc. 없으면 arcCount.
+        int ceilArc(char ch) {
+            int low = 0;
+            int high = arcCount - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                char label = label(mid);
+                if (label < ch) {
+                    low = mid + 1;
+                } else if (label > ch) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return low;
+        }
+    }
+}
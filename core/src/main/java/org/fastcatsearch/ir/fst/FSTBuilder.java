@@ -0,0 +1,282 @@
+package org.fastcatsearch.ir.fst;
+
+import org.fastcatsearch.ir.io.CharVector;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 정렬된 텀을 순서대로 받아 최소 FST를 만든다.(Daciuk-Mihov 점진적 생성)
+ * 이전 텀과 공통접두어 이후의 노드는 더이상 바뀌지 않으므로 바로 기록하고, 같은 구조의 노드는 하나만 기록하여 접미어를 공유한다.
+ * 출력값은 공통접두어 arc로 최대한 앞당겨(min) 기록한다.
+ *
+ * 텀은 char 단위 오름차순으로 중복없이 입력되어야 하며, 값은 0 이상이어야 한다.
+ */
+public class FSTBuilder {
+
+    private UnCompiledNode[] frontier;
+    private char[] lastTerm;
+    private int lastLength;
+    private int count;
+
+    private byte[] bytes;
+    private int position;
+    private Map<NodeKey, Integer> registry;
+
+    public FSTBuilder() {
+        frontier = new UnCompiledNode[16];
+        for (int i = 0; i < frontier.length; i++) {
+            frontier[i] = new UnCompiledNode();
+        }
+        lastTerm = new char[16];
+        bytes = new byte[1024];
+        registry = new HashMap<NodeKey, Integer>();
+    }
+
+    public int count() {
+        return count;
+    }
+
+    public void add(CharVector term, long output) {
+        add(term.array(), term.start(), term.length(), output);
+    }
+
+    public void add(char[] array, int start, int length, long output) {
+        if (output < 0) {
+            throw new IllegalArgumentException("output must be positive : " + output);
+        }
+        int prefixLength = 0;
+        int max = Math.min(length, lastLength);
+        while (prefixLength < max && lastTerm[prefixLength] == array[start + prefixLength]) {
+            prefixLength++;
+        }
+        if (count > 0 && (prefixLength == length || (prefixLength < lastLength && lastTerm[prefixLength] > array[start + prefixLength]))) {
+            throw new IllegalArgumentException("terms must be added in sorted order : " + new String(array, start, length) + " after "
+                    + new String(lastTerm, 0, lastLength));
+        }
+        if (length == 0) {
+            frontier[0].isFinal = true;
+            frontier[0].finalOutput = output;
+            count++;
+            return;
+        }
+
+        //공통접두어 이후의 이전 텀 노드들은 확정된다.
+        freezeTail(prefixLength + 1);
+
+        if (frontier.length <= length) {
+            int oldLength = frontier.length;
+            frontier = Arrays.copyOf(frontier, Math.max(length + 1, oldLength * 2));
+            for (int i = oldLength; i < frontier.length; i++) {
+                frontier[i] = new UnCompiledNode();
+            }
+        }
+        for (int depth = prefixLength + 1; depth <= length; depth++) {
+            frontier[depth].clear();
+            frontier[depth - 1].addArc(array[start + depth - 1]);
+        }
+        frontier[length].isFinal = true;
+        frontier[length].finalOutput = 0;
+
+        //공통접두어 arc의 출력값을 두 텀의 공통값으로 줄이고 나머지는 하위노드로 민다.
+        for (int depth = 1; depth <= prefixLength; depth++) {
+            UnCompiledNode parent = frontier[depth - 1];
+            long lastOutput = parent.lastOutput();
+            long common = 0;
+            if (lastOutput != 0) {
+                common = Math.min(output, lastOutput);
+                parent.setLastOutput(common);
+                frontier[depth].prependOutput(lastOutput - common);
+            }
+            output -= common;
+        }
+        frontier[prefixLength].setLastOutput(output);
+
+        if (lastTerm.length < length) {
+            lastTerm = new char[Math.max(length, lastTerm.length * 2)];
+        }
+        System.arraycopy(array, start, lastTerm, 0, length);
+        lastLength = length;
+        count++;
+    }
+
+    public FST finish() {
+        freezeTail(1);
+        int root = compile(frontier[0]);
+        registry = null;
+        return new FST(Arrays.copyOf(bytes, position), root, count);
+    }
+
+    private void freezeTail(int downTo) {
+        for (int depth = lastLength; depth >= downTo; depth--) {
+            int address = compile(frontier[depth]);
+            frontier[depth - 1].setLastTarget(address);
+        }
+    }
+
+    private int compile(UnCompiledNode node) {
+        NodeKey key = new NodeKey(node);
+        Integer address = registry.get(key);
+        if (address != null) {
+            return address;
+        }
+        int nodeAddress = position;
+        int flag = 0;
+        if (node.isFinal) {
+            flag |= FST.FLAG_FINAL;
+            if (node.finalOutput != 0) {
+                flag |= FST.FLAG_FINAL_OUTPUT;
+            }
+        }
+        writeByte(flag);
+        writeVLong(node.arcCount);
+        if ((flag & FST.FLAG_FINAL_OUTPUT) != 0) {
+            writeVLong(node.finalOutput);
+        }
+        if (node.arcCount > 0) {
+            long maxOutput = 0;
+            int maxTarget = 0;
+            for (int i = 0; i < node.arcCount; i++) {
+                maxOutput = Math.max(maxOutput, node.outputs[i]);
+                maxTarget = Math.max(maxTarget, node.targets[i]);
+            }
+            int outputBytes = byteSize(maxOutput);
+            int targetBytes = byteSize(maxTarget);
+            writeByte((outputBytes << 4) | targetBytes);
+            for (int i = 0; i < node.arcCount; i++) {
+                writeByte(node.labels[i] >>> 8);
+                writeByte(node.labels[i]);
+                writeFixed(node.outputs[i], outputBytes);
+                writeFixed(node.targets[i], targetBytes);
+            }
+        }
+        registry.put(key, nodeAddress);
+        node.clear();
+        return nodeAddress;
+    }
+
+    private static int byteSize(long value) {
+        int size = 0;
+        while (value != 0) {
+            size++;
+            value >>>= 8;
+        }
+        return size;
+    }
+
+    private void ensure(int length) {
+        if (position + length > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(position + length, bytes.length * 2));
+        }
+    }
+
+    private void writeByte(int b) {
+        ensure(1);
+        bytes[position++] = (byte) b;
+    }
+
+    private void writeVLong(long value) {
+        while ((value & ~0x7FL) != 0) {
+            writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        writeByte((int) value);
+    }
+
+    private void writeFixed(long value, int size) {
+        for (int i = size - 1; i >= 0; i--) {
+            writeByte((int) (value >>> (i * 8)));
+        }
+    }
+
+    private static class UnCompiledNode {
+        boolean isFinal;
+        long finalOutput;
+        int arcCount;
+        char[] labels = new char[4];
+        long[] outputs = new long[4];
+        int[] targets = new int[4];
+
+        void clear() {
+            isFinal = false;
+            finalOutput = 0;
+            arcCount = 0;
+        }
+
+        void addArc(char label) {
+            if (arcCount == labels.length) {
+                int newLength = arcCount * 2;
+                labels = Arrays.copyOf(labels, newLength);
+                outputs = Arrays.copyOf(outputs, newLength);
+                targets = Arrays.copyOf(targets, newLength);
+            }
+            labels[arcCount] = label;
+            outputs[arcCount] = 0;
+            targets[arcCount] = -1;
+            arcCount++;
+        }
+
+        long lastOutput() {
+            return outputs[arcCount - 1];
+        }
+
+        void setLastOutput(long output) {
+            outputs[arcCount - 1] = output;
+        }
+
+        void setLastTarget(int target) {
+            targets[arcCount - 1] = target;
+        }
+
+        void prependOutput(long output) {
+            if (output == 0) {
+                return;
+            }
+            for (int i = 0; i < arcCount; i++) {
+                outputs[i] += output;
+            }
+            if (isFinal) {
+                finalOutput += output;
+            }
+        }
+    }
+
+    /**
+     * 같은 구조의 노드를 찾기 위한 키.
+     */
+    private static class NodeKey {
+        private final boolean isFinal;
+        private final long finalOutput;
+        private final char[] labels;
+        private final long[] outputs;
+        private final int[] targets;
+        private final int hash;
+
+        NodeKey(UnCompiledNode node) {
+            isFinal = node.isFinal;
+            finalOutput = node.finalOutput;
+            labels = Arrays.copyOf(node.labels, node.arcCount);
+            outputs = Arrays.copyOf(node.outputs, node.arcCount);
+            targets = Arrays.copyOf(node.targets, node.arcCount);
+            int h = isFinal ? 1 : 0;
+            h = 31 * h + (int) (finalOutput ^ (finalOutput >>> 32));
+            h = 31 * h + Arrays.hashCode(labels);
+            h = 31 * h + Arrays.hashCode(outputs);
+            h = 31 * h + Arrays.hashCode(targets);
+            hash = h;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            NodeKey other = (NodeKey) obj;
+            return hash == other.hash && isFinal == other.isFinal && finalOutput == other.finalOutput && Arrays.equals(labels, other.labels)
+                    && Arrays.equals(outputs, other.outputs) && Arrays.equals(targets, other.targets);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package org.fastcatsearch.ir.group;
+
+import java.io.IOException;
+
+import org.fastcatsearch.ir.group.aggregator.DoubleGroupAggregator;
+import org.fastcatsearch.ir.group.aggregator.FloatGroupAggregator;
+import org.fastcatsearch.ir.group.aggregator.IntGroupAggregator;
+import org.fastcatsearch.ir.group.aggregator.LongGroupAggregator;
+import org.fastcatsearch.ir.group.aggregator.ObjectGroupAggregator;
+import org.fastcatsearch.ir.io.DataRef;
+import org.fastcatsearch.ir.search.ColumnDataRef;
+import org.fastcatsearch.ir.settings.FieldSetting.Type;
+
+/**
+ * 한 세그먼트에서 그룹 function 하나의 그룹번호별 집계값을 primitive 배열에 쌓는다.
+ * 그룹키마다 GroupingValue 객체를 만들지 않고, 결과를 만들때 값이 있는 그룹에 대해서만 GroupingValue를 생성한다.
+ *
+ * GroupFunction 은 질의에 포함되어 여러 세그먼트가 함께 사용하므로, 집계상태는 GroupDataGenerator 가 가지는 aggregator에 둔다.
+ * */
+public abstract class GroupAggregator {
+
+	protected final GroupFunctionType type;
+	private final long[] setBits; //값이 한번이라도 들어온 그룹번호.
+
+	public GroupAggregator(GroupFunctionType type, int groupKeySize) {
+		this.type = type;
+		this.setBits = new long[(groupKeySize + 63) >>> 6];
+	}
+
+	/**
+	 * 그룹 function과 연산대상 필드타입에 맞는 aggregator를 만든다. COUNT는 필드타입에 상관없이 int로 센다.
+	 * */
+	public static GroupAggregator create(GroupFunctionType type, Type fieldType, int groupKeySize) {
+		if (type == GroupFunctionType.COUNT || fieldType == Type.INT) {
+			return new IntGroupAggregator(type, groupKeySize);
+		} else if (fieldType == Type.LONG) {
+			return new LongGroupAggregator(type, groupKeySize);
+		} else if (fieldType == Type.FLOAT) {
+			return new FloatGroupAggregator(type, groupKeySize);
+		} else if (fieldType == Type.DOUBLE) {
+			return new DoubleGroupAggregator(type, groupKeySize);
+		} else {
+			return new ObjectGroupAggregator(type, groupKeySize);
+		}
+	}
+
+	public GroupFunctionType getType() {
+		return type;
+	}
+
+	protected final boolean isSet(int groupNo) {
+		return (setBits[groupNo >>> 6] & (1L << groupNo)) != 0;
+	}
+
+	/**
+	 * @return 처음 값이 들어온 그룹이면 true
+	 * */
+	protected final boolean set(int groupNo) {
+		long bit = 1L << groupNo;
+		int i = groupNo >>> 6;
+		if ((setBits[i] & bit) != 0) {
+			return false;
+		}
+		setBits[i] |= bit;
+		return true;
+	}
+
+	/**
+	 * 같은 function 연산을 primitive 값에 적용할때 새 값을 취할지 여부.
+	 * @param cmp 새 값과 기존 값의 비교결과
+	 * */
+	protected final boolean accept(boolean isFirst, int cmp) {
+		if (isFirst) {
+			return true;
+		}
+		if (type == GroupFunctionType.MIN) {
+			return cmp < 0;
+		} else if (type == GroupFunctionType.MAX) {
+			return cmp > 0;
+		} else if (type == GroupFunctionType.LAST) {
+			return true;
+		}
+		//FIRST, NONE 은 처음 값을 유지한다.
+		return false;
+	}
+
+	/**
+	 * 검색결과 문서가 그룹에 속할때마다 호출된다. COUNT 만 사용한다.
+	 * */
+	public void increment(int groupNo) {
+	}
+
+	/**
+	 * 연산대상 필드의 값을 읽어 집계한다. 멀티밸류 필드는 모든 값을 집계한다.
+	 * */
+	public abstract void addValue(int groupNo, DataRef dataRef) throws IOException;
+
+	/**
+	 * 그룹번호의 집계결과. 비어있으면 null.
+	 * */
+	public GroupingValue value(int groupNo) {
+		if (!isSet(groupNo)) {
+			return null;
+		}
+		GroupingValue groupingValue = newValue(groupNo);
+		return groupingValue.isEmpty() ? null : groupingValue;
+	}
+
+	protected abstract GroupingValue newValue(int groupNo);
+
+	// 메모리에 올려진 숫자필드는 byte 디코딩 없이 바로 읽는다.
+	protected static int readInt(DataRef dataRef) {
+		if (dataRef instanceof ColumnDataRef && ((ColumnDataRef) dataRef).isPrimitive()) {
+			return ((ColumnDataRef) dataRef).intValue();
+		}
+		return dataRef.bytesRef().toIntValue();
+	}
+
+	protected static long readLong(DataRef dataRef) {
+		if (dataRef instanceof ColumnDataRef && ((ColumnDataRef) dataRef).isPrimitive()) {
+			return ((ColumnDataRef) dataRef).longValue();
+		}
+		return dataRef.bytesRef().toLongValue();
+	}
+
+	protected static float readFloat(DataRef dataRef) {
+		if (dataRef instanceof ColumnDataRef && ((ColumnDataRef) dataRef).isPrimitive()) {
+			return ((ColumnDataRef) dataRef).floatValue();
+		}
+		return Float.intBitsToFloat(dataRef.bytesRef().toIntValue());
+	}
+
+	protected static double readDouble(DataRef dataRef) {
+		if (dataRef instanceof ColumnDataRef && ((ColumnDataRef) dataRef).isPrimitive()) {
+			return ((ColumnDataRef) dataRef).doubleValue();
+		}
+		return Double.longBitsToDouble(dataRef.bytesRef().toLongValue());
+	}
+}
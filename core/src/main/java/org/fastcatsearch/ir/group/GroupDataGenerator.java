@@ -20,18 +20,11 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 import org.apache.lucene.util.BytesRef;
 import org.fastcatsearch.ir.field.FieldDataStringer;
-import org.fastcatsearch.ir.group.value.DoubleGroupingValue;
-import org.fastcatsearch.ir.group.value.FloatGroupingValue;
-import org.fastcatsearch.ir.group.value.IntGroupingValue;
-import org.fastcatsearch.ir.group.value.LongGroupingValue;
-import org.fastcatsearch.ir.group.value.StringGroupingValue;
 import org.fastcatsearch.ir.io.DataRef;
 import org.fastcatsearch.ir.query.Group;
 import org.fastcatsearch.ir.query.RankInfo;
@@ -48,19 +41,26 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 
-
+/**
+ * 한 세그먼트의 검색결과로 그룹핑 데이터를 만든다.
+ * 그룹 function별 집계는 GroupAggregator 의 primitive 배열에 쌓고, 검색결과에 나온 그룹번호만 기록해 두었다가
+ * generate시 해당 그룹에 대해서만 결과를 만든다. 따라서 비용은 그룹키 갯수가 아닌 검색결과 갯수에 비례한다.
+ * */
 public class GroupDataGenerator {
 	private static Logger logger = LoggerFactory.getLogger(GroupDataGenerator.class);
 	
 //	private int[] indexSequence;
 	private int groupSize;
 	private GroupFunction[][] groupFunctionList;
+	private GroupAggregator[][] aggregatorList; //function별 집계. 세그먼트마다 따로 만든다.
 	private int totalSearchCount;
 	private IndexRef<GroupIndexReader> indexRef;
-	private Set<Integer> redundancyCheck;
 	private IndexRef<FieldIndexReader>[] fieldIndexRefList;
-	private Map<String, DataRef>[] fieldBytesRefMap;
+	private DataRef[][] functionDataRefList; //function별 연산대상 필드 데이터.
 	private int[] groupKeySizeList; //그룹별 키의 총 갯수.
+	private long[][] touchedBits; //그룹별로 검색결과에 나온 그룹번호.
+	private int[][] touchedGroupNoList;
+	private int[] touchedSizeList;
 //	private String[] groupFieldIdList;
 	private FieldSetting[] fieldSettingList;
 	
@@ -71,10 +71,13 @@ public class GroupDataGenerator {
 		
 		fieldSettingList = new FieldSetting[groupSize];
 		groupFunctionList = new GroupFunction[groupSize][];
+		aggregatorList = new GroupAggregator[groupSize][];
 		fieldIndexRefList = new IndexRef[groupSize];
-		fieldBytesRefMap = new Map[groupSize];
+		functionDataRefList = new DataRef[groupSize][];
 		groupKeySizeList = new int[groupSize];
-		redundancyCheck = new HashSet<Integer>();
+		touchedBits = new long[groupSize][];
+		touchedGroupNoList = new int[groupSize][];
+		touchedSizeList = new int[groupSize];
 		
 		List<String> indexIdList = new ArrayList<String>(groupSize);
 		for (int i = 0; i < groupSize; i++) {
@@ -99,6 +102,8 @@ public class GroupDataGenerator {
 			GroupIndexReader groupIndexReader = indexRef.getReader(i);
 			int groupKeySize = groupIndexReader.getGroupKeySize();
 			groupKeySizeList[i] = groupKeySize;
+			touchedBits[i] = new long[(groupKeySize + 63) >>> 6];
+			touchedGroupNoList[i] = new int[Math.min(groupKeySize, 64)];
 			logger.debug("group#{} [{}] groupKeySize[{}]", i, groupIndexId, groupKeySize);
 			
 			GroupIndexSetting groupIndexSetting = schema.getGroupIndexSetting(groupIndexId);
@@ -107,10 +112,10 @@ public class GroupDataGenerator {
 			
 			groupFunctionList[i] = group.function();
 			int functionSize = groupFunctionList[i].length;
-			//내부 grouping object 배열 초기화.
-			//function별로 결과 객체를 만들어준다.
-			//count는 key갯수만큼 생성후 검색결과로 존재하는 키에 대해서만 갯수를 증가시켜주고,
-			//range도 count와 동일하게 생성후 done을 통해 범위결과로 재구성한다.
+			aggregatorList[i] = new GroupAggregator[functionSize];
+			functionDataRefList[i] = new DataRef[functionSize];
+			//function별로 key갯수 크기의 primitive 배열 집계를 만든다.
+			//count는 검색결과로 존재하는 키에 대해서만 갯수를 증가시켜준다.
 			List<String> paramFieldNameList = new ArrayList<String>(groupSize);
 			for (int j = 0; j < functionSize; j++) {
 				GroupFunction groupFunction = groupFunctionList[i][j];
@@ -121,11 +126,7 @@ public class GroupDataGenerator {
 				
 				if(groupFunction.getType() == GroupFunctionType.COUNT){
 					//int로 만들어준다.
-					groupFunction.init(IntGroupingValue.createList(groupKeySize, groupFunction.getType()));
-//					logger.debug("groupFunction #{} valuelist = {}", i, groupFunction.valueList);
-//				}else if(groupFunction instanceof RangeCountGroupFunction){
-//					//범위 그룹핑은 COUNT와 동일하게 int형으로 생성.
-//					groupFunction.init(IntGroupingValue.createList(groupKeySize));
+					aggregatorList[i][j] = GroupAggregator.create(groupFunction.getType(), Type.INT, groupKeySize);
 				}else{
 					//
 					// sum, min, max 필드에 대한 그룹핑. 연산대상 fieldId가 필요하다.
@@ -137,19 +138,9 @@ public class GroupDataGenerator {
 						if(!paramFieldNameList.contains(groupFunction.getFieldId())) {
                             paramFieldNameList.add(groupFunction.getFieldId());
                         }
-                        //fieldId 타입에 따라서 value를 만들어준다.
+                        //fieldId 타입에 따라서 집계배열을 만들어준다.
                         FieldSetting fieldSetting = schema.fieldSettingMap().get(groupFunction.getFieldId());
-                        if(fieldSetting.getType() == FieldSetting.Type.INT){
-                            groupFunction.init(IntGroupingValue.createList(groupKeySize, groupFunction.getType()));
-                        }else if(fieldSetting.getType() == FieldSetting.Type.LONG){
-                            groupFunction.init(LongGroupingValue.createList(groupKeySize, groupFunction.getType()));
-                        }else if(fieldSetting.getType() == FieldSetting.Type.FLOAT){
-                            groupFunction.init(FloatGroupingValue.createList(groupKeySize, groupFunction.getType()));
-                        }else if(fieldSetting.getType() == FieldSetting.Type.DOUBLE){
-                            groupFunction.init(DoubleGroupingValue.createList(groupKeySize, groupFunction.getType()));
-                        }else{
-                            groupFunction.init(StringGroupingValue.createList(groupKeySize, groupFunction.getType()));
-                        }
+                        aggregatorList[i][j] = GroupAggregator.create(groupFunction.getType(), fieldSetting.getType(), groupKeySize);
 
 					}
 				}
@@ -157,7 +148,7 @@ public class GroupDataGenerator {
 			
 			if(paramFieldNameList.size() > 0){
 				fieldIndexRefList[i] = fieldIndexesReader.selectIndexRef(paramFieldNameList.toArray(new String[0]));
-				fieldBytesRefMap[i] = new HashMap<String, DataRef>(paramFieldNameList.size());
+				Map<String, DataRef> fieldBytesRefMap = new HashMap<String, DataRef>(paramFieldNameList.size());
 			
 				//동일한 필드가 파라미터로 여러번 들어올경우 한번만 읽기위해서는 동일한 bytesRef 참조를 가지고 있도록 한다. 
 				int k = 0;
@@ -168,7 +159,13 @@ public class GroupDataGenerator {
 					FieldSetting fieldSetting = schema.fieldSettingMap().get(paramFieldId);
 					dataRef.setType(fieldSetting.getType());
 					//차후 dataRef.next하면서 데이터를 읽는다.
-					fieldBytesRefMap[i].put(paramFieldId, dataRef);
+					fieldBytesRefMap.put(paramFieldId, dataRef);
+				}
+				for (int j = 0; j < functionSize; j++) {
+					GroupFunction groupFunction = groupFunctionList[i][j];
+					if(groupFunction != null && groupFunction.getType() != GroupFunctionType.COUNT && groupFunction.getFieldId() != null){
+						functionDataRefList[i][j] = fieldBytesRefMap.get(groupFunction.getFieldId());
+					}
 				}
 			}
 		}
@@ -188,37 +185,27 @@ public class GroupDataGenerator {
 			indexRef.read(ri.docNo());
 			
 			for(int i = 0; i < groupSize ;i++){
+				GroupAggregator[] aggregators = aggregatorList[i];
+				if(aggregators == null){
+					continue;
+				}
 				if(fieldIndexRefList[i] != null){
 					fieldIndexRefList[i].read(docNo);
 				}
-				redundancyCheck.clear();
-				while(indexRef.getDataRef(i).next()){
+				DataRef groupDataRef = indexRef.getDataRef(i);
+				while(groupDataRef.next()){
 					//multi-value는 여러번..
-					BytesRef bytesRef = indexRef.getDataRef(i).bytesRef();
-					int groupNo = bytesRef.toIntValue();
-					for(GroupFunction groupFunction : groupFunctionList[i]){
-						if(groupFunction == null){
+					int groupNo = groupDataRef.bytesRef().toIntValue();
+					touch(i, groupNo);
+					for (int j = 0; j < aggregators.length; j++) {
+						GroupAggregator aggregator = aggregators[j];
+						if(aggregator == null){
 							continue;
 						}
-						Object value = null;
-						if(groupFunction.getFieldId() != null){
-							DataRef dataRef = fieldBytesRefMap[i].get(groupFunction.getFieldId());
-							dataRef.reset();
-							while(dataRef.next()){
-								value = dataRef.getValue();
-								if(value!=null && value instanceof String) {
-									String strValue = (String)value;
-									//trim nil character
-									int inx = strValue.indexOf('\0');
-									if(inx != -1) {
-										value = strValue.substring(0, inx);
-									}
-								}
-								groupFunction.addValue(groupNo, value);
-							}
-						}else{
-//							logger.debug("doc {} add group value groupNo={} val={}", docNo, groupNo, value);
-							groupFunction.addValue(groupNo, value);
+						if(aggregator.getType() == GroupFunctionType.COUNT){
+							aggregator.increment(groupNo);
+						}else if(functionDataRefList[i][j] != null){
+							aggregator.addValue(groupNo, functionDataRefList[i][j]);
 						}
 					}
 				}
@@ -228,6 +215,23 @@ public class GroupDataGenerator {
 		
 	}
 	
+	private void touch(int i, int groupNo) {
+		long bit = 1L << groupNo;
+		int w = groupNo >>> 6;
+		if((touchedBits[i][w] & bit) != 0){
+			return;
+		}
+		touchedBits[i][w] |= bit;
+		int size = touchedSizeList[i];
+		if(size == touchedGroupNoList[i].length){
+			int[] newList = new int[Math.min(size * 2, groupKeySizeList[i])];
+			System.arraycopy(touchedGroupNoList[i], 0, newList, 0, size);
+			touchedGroupNoList[i] = newList;
+		}
+		touchedGroupNoList[i][size] = groupNo;
+		touchedSizeList[i] = size + 1;
+	}
+	
 	//make an each group data
 	public GroupsData generate() throws IOException{
 		List<GroupEntryList> result = new ArrayList<GroupEntryList>(groupSize);
@@ -249,24 +253,29 @@ public class GroupDataGenerator {
 
 			//범위 그룹핑은 후처리를 수행한다.
 			for (GroupFunction groupFunction : groupFunctionList[i]) {
-				groupFunction.done();
+				if(groupFunction != null){
+					groupFunction.done();
+				}
 			}
 			
 			Type fieldType = fieldSettingList[i].getType();
 			//group function 갯수만큼 []를 만든다.
 			int functionSize = groupFunctionList[i].length;
-			//모든 키에대해 검사를 수행한다.
-			for (int groupNo = 0; groupNo < groupKeySizeList[i]; groupNo++) {
+			GroupAggregator[] aggregators = aggregatorList[i];
+			//검색결과에 나온 키에 대해서만 검사를 수행한다.
+			int touchedSize = touchedSizeList[i];
+			for (int t = 0; t < touchedSize; t++) {
+				int groupNo = touchedGroupNoList[i][t];
 				
 				GroupingValue[] valueList = new GroupingValue[functionSize];
 				
 				int j = 0;
 				boolean hasValue = false;
-				for(GroupFunction groupFunction : groupFunctionList[i]){
-					if(groupFunction == null){
+				for(GroupAggregator aggregator : aggregators){
+					if(aggregator == null){
 						continue;
 					}
-					GroupingValue groupingValue = groupFunction.value(groupNo);
+					GroupingValue groupingValue = aggregator.value(groupNo);
 					//null이거나 비어있지 않으면 추가.
 					if(groupingValue != null && !groupingValue.isEmpty()){
 						valueList[j++] = groupingValue; 
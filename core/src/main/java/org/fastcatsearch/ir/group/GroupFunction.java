@@ -27,7 +27,6 @@ public class GroupFunction {
     private String fieldId;
 
     private GroupFunctionType type;
-    private GroupingValue[] valueList; //그룹번호별로 데이터를 쌓아놓을 공간확보.
 	
 	public GroupFunction(GroupFunctionType type, int sortOrder, String fieldId){
 		this.type = type;
@@ -35,11 +34,6 @@ public class GroupFunction {
 		this.fieldId = fieldId != null ? fieldId.toUpperCase() : null;
 	}
 	
-	public void init(GroupingValue[] valueList){
-        this.valueList = valueList;
-//		logger.debug("INIT GroupFunction size={}, {}", valueList.length, valueList);
-	}
-	
 	public String getHeaderName() {
         if(type == GroupFunctionType.COUNT || type == GroupFunctionType.NONE) {
             return type.name();
@@ -48,26 +42,10 @@ public class GroupFunction {
         }
     }
 		
-	public GroupingValue[] valueList() {
-		return valueList;
-	}
-	
-	public GroupingValue value(int i){
-		return valueList[i];
-	}
-	
-	public int valueSize(){
-		return valueList.length;
-	}
-	
 	public String name(){
 		return type.name();
 	}
 	
-    public void addValue(int groupNo, Object value) {
-        valueList[groupNo].addValue(value);
-    }
-
     public GroupFunctionType getType() {
         return type;
     }
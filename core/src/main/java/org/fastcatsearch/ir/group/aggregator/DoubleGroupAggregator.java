@@ -0,0 +1,41 @@
+package org.fastcatsearch.ir.group.aggregator;
+
+import java.io.IOException;
+
+import org.fastcatsearch.ir.group.GroupAggregator;
+import org.fastcatsearch.ir.group.GroupFunctionType;
+import org.fastcatsearch.ir.group.GroupingValue;
+import org.fastcatsearch.ir.group.value.DoubleGroupingValue;
+import org.fastcatsearch.ir.io.DataRef;
+
+/**
+ * double[] 에 그룹번호별 double 필드의 SUM, MIN, MAX, FIRST, LAST 를 집계한다.
+ * */
+public class DoubleGroupAggregator extends GroupAggregator {
+
+	private final double[] values;
+
+	public DoubleGroupAggregator(GroupFunctionType type, int groupKeySize) {
+		super(type, groupKeySize);
+		values = new double[groupKeySize];
+	}
+
+	@Override
+	public void addValue(int groupNo, DataRef dataRef) throws IOException {
+		dataRef.reset();
+		while (dataRef.next()) {
+			double v = readDouble(dataRef);
+			boolean isFirst = set(groupNo);
+			if (type == GroupFunctionType.SUM) {
+				values[groupNo] = isFirst ? v : values[groupNo] + v;
+			} else if (accept(isFirst, Double.compare(v, values[groupNo]))) {
+				values[groupNo] = v;
+			}
+		}
+	}
+
+	@Override
+	protected GroupingValue newValue(int groupNo) {
+		return new DoubleGroupingValue(values[groupNo], type);
+	}
+}
@@ -0,0 +1,41 @@
+package org.fastcatsearch.ir.group.aggregator;
+
+import java.io.IOException;
+
+import org.fastcatsearch.ir.group.GroupAggregator;
+import org.fastcatsearch.ir.group.GroupFunctionType;
+import org.fastcatsearch.ir.group.GroupingValue;
+import org.fastcatsearch.ir.group.value.FloatGroupingValue;
+import org.fastcatsearch.ir.io.DataRef;
+
+/**
+ * float[] 에 그룹번호별 float 필드의 SUM, MIN, MAX, FIRST, LAST 를 집계한다.
+ * */
+public class FloatGroupAggregator extends GroupAggregator {
+
+	private final float[] values;
+
+	public FloatGroupAggregator(GroupFunctionType type, int groupKeySize) {
+		super(type, groupKeySize);
+		values = new float[groupKeySize];
+	}
+
+	@Override
+	public void addValue(int groupNo, DataRef dataRef) throws IOException {
+		dataRef.reset();
+		while (dataRef.next()) {
+			float v = readFloat(dataRef);
+			boolean isFirst = set(groupNo);
+			if (type == GroupFunctionType.SUM) {
+				values[groupNo] = isFirst ? v : values[groupNo] + v;
+			} else if (accept(isFirst, Float.compare(v, values[groupNo]))) {
+				values[groupNo] = v;
+			}
+		}
+	}
+
+	@Override
+	protected GroupingValue newValue(int groupNo) {
+		return new FloatGroupingValue(values[groupNo], type);
+	}
+}
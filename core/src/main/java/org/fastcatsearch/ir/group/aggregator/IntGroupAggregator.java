@@ -0,0 +1,47 @@
+package org.fastcatsearch.ir.group.aggregator;
+
+import java.io.IOException;
+
+import org.fastcatsearch.ir.group.GroupAggregator;
+import org.fastcatsearch.ir.group.GroupFunctionType;
+import org.fastcatsearch.ir.group.GroupingValue;
+import org.fastcatsearch.ir.group.value.IntGroupingValue;
+import org.fastcatsearch.ir.io.DataRef;
+
+/**
+ * int[] 에 그룹번호별 갯수(COUNT) 또는 int 필드의 SUM, MIN, MAX, FIRST, LAST 를 집계한다.
+ * */
+public class IntGroupAggregator extends GroupAggregator {
+
+	private final int[] values;
+
+	public IntGroupAggregator(GroupFunctionType type, int groupKeySize) {
+		super(type, groupKeySize);
+		values = new int[groupKeySize];
+	}
+
+	@Override
+	public void increment(int groupNo) {
+		set(groupNo);
+		values[groupNo]++;
+	}
+
+	@Override
+	public void addValue(int groupNo, DataRef dataRef) throws IOException {
+		dataRef.reset();
+		while (dataRef.next()) {
+			int v = readInt(dataRef);
+			boolean isFirst = set(groupNo);
+			if (type == GroupFunctionType.SUM) {
+				values[groupNo] = isFirst ? v : values[groupNo] + v;
+			} else if (accept(isFirst, (v < values[groupNo] ? -1 : (v == values[groupNo] ? 0 : 1)))) {
+				values[groupNo] = v;
+			}
+		}
+	}
+
+	@Override
+	protected GroupingValue newValue(int groupNo) {
+		return new IntGroupingValue(values[groupNo], type);
+	}
+}
@@ -0,0 +1,41 @@
+package org.fastcatsearch.ir.group.aggregator;
+
+import java.io.IOException;
+
+import org.fastcatsearch.ir.group.GroupAggregator;
+import org.fastcatsearch.ir.group.GroupFunctionType;
+import org.fastcatsearch.ir.group.GroupingValue;
+import org.fastcatsearch.ir.group.value.LongGroupingValue;
+import org.fastcatsearch.ir.io.DataRef;
+
+/**
+ * long[] 에 그룹번호별 long 필드의 SUM, MIN, MAX, FIRST, LAST 를 집계한다.
+ * */
+public class LongGroupAggregator extends GroupAggregator {
+
+	private final long[] values;
+
+	public LongGroupAggregator(GroupFunctionType type, int groupKeySize) {
+		super(type, groupKeySize);
+		values = new long[groupKeySize];
+	}
+
+	@Override
+	public void addValue(int groupNo, DataRef dataRef) throws IOException {
+		dataRef.reset();
+		while (dataRef.next()) {
+			long v = readLong(dataRef);
+			boolean isFirst = set(groupNo);
+			if (type == GroupFunctionType.SUM) {
+				values[groupNo] = isFirst ? v : values[groupNo] + v;
+			} else if (accept(isFirst, (v < values[groupNo] ? -1 : (v == values[groupNo] ? 0 : 1)))) {
+				values[groupNo] = v;
+			}
+		}
+	}
+
+	@Override
+	protected GroupingValue newValue(int groupNo) {
+		return new LongGroupingValue(values[groupNo], type);
+	}
+}
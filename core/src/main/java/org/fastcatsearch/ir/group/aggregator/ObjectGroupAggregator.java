@@ -0,0 +1,47 @@
+package org.fastcatsearch.ir.group.aggregator;
+
+import java.io.IOException;
+
+import org.fastcatsearch.ir.group.GroupAggregator;
+import org.fastcatsearch.ir.group.GroupFunctionType;
+import org.fastcatsearch.ir.group.GroupingValue;
+import org.fastcatsearch.ir.group.value.StringGroupingValue;
+import org.fastcatsearch.ir.io.DataRef;
+
+/**
+ * 숫자형이 아닌 필드(문자열, 날짜등)의 그룹 function. 값이 들어온 그룹에 대해서만 StringGroupingValue 를 만든다.
+ * */
+public class ObjectGroupAggregator extends GroupAggregator {
+
+	private final GroupingValue[] values;
+
+	public ObjectGroupAggregator(GroupFunctionType type, int groupKeySize) {
+		super(type, groupKeySize);
+		values = new GroupingValue[groupKeySize];
+	}
+
+	@Override
+	public void addValue(int groupNo, DataRef dataRef) throws IOException {
+		dataRef.reset();
+		while (dataRef.next()) {
+			Object value = dataRef.getValue();
+			if (value instanceof String) {
+				String strValue = (String) value;
+				//trim nil character
+				int inx = strValue.indexOf('\0');
+				if (inx != -1) {
+					value = strValue.substring(0, inx);
+				}
+			}
+			if (set(groupNo)) {
+				values[groupNo] = new StringGroupingValue(type);
+			}
+			values[groupNo].addValue(value);
+		}
+	}
+
+	@Override
+	protected GroupingValue newValue(int groupNo) {
+		return values[groupNo];
+	}
+}
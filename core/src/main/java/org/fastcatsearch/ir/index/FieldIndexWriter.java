@@ -49,6 +49,7 @@ public class FieldIndexWriter implements WriteInfoLoggable {
 	private int limitSize;
 	private int fieldSequence;
 	private boolean isIgnoreCase;
+	private PointIndexWriter pointIndexWriter;
 
 	public FieldIndexWriter(FieldIndexSetting fieldIndexSetting, Map<String, FieldSetting> fieldSettingMap, Map<String, Integer> fieldSequenceMap,
 			File dir) throws IOException, IRException {
@@ -68,6 +69,11 @@ public class FieldIndexWriter implements WriteInfoLoggable {
 			multiValueOutput = new BufferedFileOutput(dir, IndexFileNames.getMultiValueFileName(IndexFileNames.getFieldIndexFileName(id)));
 		}
 
+		if (PointIndexWriter.isPointIndex(fieldIndexSetting, refFieldSetting)) {
+			pointIndexWriter = new PointIndexWriter(fieldIndexSetting, refFieldSetting, dir);
+		} else if (fieldIndexSetting.isPoint()) {
+			logger.warn("필드색인 {}는 숫자형 고정길이 필드가 아니므로 포인트색인을 만들지 않습니다.", id);
+		}
 	}
 
 	public void write(Document document) throws IOException, IRException {
@@ -123,6 +129,10 @@ public class FieldIndexWriter implements WriteInfoLoggable {
 		if (isMultiValue) {
 			multiValueOutput.close();
 		}
+		
+		if (pointIndexWriter != null) {
+			pointIndexWriter.write();
+		}
 	}
 
 	@Override
@@ -3,6 +3,12 @@ package org.fastcatsearch.ir.index;
 public class IndexFieldOption {
 	
 	public static final int STORE_POSITION = 1 << 1;
+	//포스팅마다 skip 정보를 기록한다. 이 옵션이 없는 이전 색인파일은 skip 정보없이 순차로 읽는다.
+	public static final int STORE_SKIP = 1 << 2;
+	//뒤집은 텀의 FST를 기록하여 suffix 검색에 사용한다.
+	public static final int STORE_REVERSE_TERM = 1 << 3;
+	//skip 정보에 포스팅의 최대 출현횟수를 함께 기록하여 검색시 텀의 최대점수를 구하는데 사용한다. STORE_SKIP 과 함께 쓰인다.
+	public static final int STORE_MAX_TF = 1 << 4;
 	
 	private int optionValue;
 	
@@ -27,6 +33,30 @@ public class IndexFieldOption {
 		return (optionValue & STORE_POSITION) > 0 ;
 	}
 	
+	public void setStoreSkip(){
+		optionValue |= STORE_SKIP;
+	}
+	
+	public boolean isStoreSkip(){
+		return (optionValue & STORE_SKIP) > 0 ;
+	}
+	
+	public void setStoreReverseTerm(){
+		optionValue |= STORE_REVERSE_TERM;
+	}
+	
+	public boolean isStoreReverseTerm(){
+		return (optionValue & STORE_REVERSE_TERM) > 0 ;
+	}
+	
+	public void setStoreMaxTf(){
+		optionValue |= STORE_MAX_TF;
+	}
+	
+	public boolean isStoreMaxTf(){
+		return (optionValue & STORE_MAX_TF) > 0 ;
+	}
+	
 	public boolean equals(Object obj){
 		IndexFieldOption other = (IndexFieldOption) obj;
 		return optionValue == other.optionValue;
@@ -0,0 +1,104 @@
+package org.fastcatsearch.ir.index;
+
+import org.fastcatsearch.ir.common.IndexFileNames;
+import org.fastcatsearch.ir.fst.FST;
+import org.fastcatsearch.ir.fst.FSTBuilder;
+import org.fastcatsearch.ir.io.CharVector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * lexicon 에 기록되는 텀 -> lexicon 위치를 FST로 기록한다.
+ * 텀은 lexicon 과 같은 순서(오름차순)로 받으며, STORE_REVERSE_TERM 옵션이면 뒤집은 텀의 FST도 함께 만들어 suffix 검색에 사용한다.
+ *
+ * 포맷은 FST 참조. 파일명은 search.[indexId].fst, search.[indexId].rfst
+ *
+ * @see org.fastcatsearch.ir.search.SearchIndexReader
+ */
+public class LexiconFSTWriter {
+    private static Logger logger = LoggerFactory.getLogger(LexiconFSTWriter.class);
+
+    private File dir;
+    private String indexId;
+    private FSTBuilder builder;
+    private List<ReverseTerm> reverseTermList;
+    private char[] buffer;
+
+    public LexiconFSTWriter(File dir, String indexId, IndexFieldOption fieldIndexOption) {
+        this.dir = dir;
+        this.indexId = indexId;
+        builder = new FSTBuilder();
+        if (fieldIndexOption.isStoreReverseTerm()) {
+            reverseTermList = new ArrayList<ReverseTerm>();
+        }
+        buffer = new char[32];
+    }
+
+    public void add(CharVector term, long lexiconPosition) {
+        int length = term.length();
+        if (buffer.length < length) {
+            buffer = new char[length * 2];
+        }
+        for (int i = 0; i < length; i++) {
+            buffer[i] = term.charAt(i);
+        }
+        builder.add(buffer, 0, length, lexiconPosition);
+
+        if (reverseTermList != null) {
+            char[] reverse = new char[length];
+            for (int i = 0; i < length; i++) {
+                reverse[i] = buffer[length - 1 - i];
+            }
+            reverseTermList.add(new ReverseTerm(reverse, lexiconPosition));
+        }
+    }
+
+    public void close() throws IOException {
+        FST fst = builder.finish();
+        fst.save(new File(dir, IndexFileNames.getSearchFSTFileName(indexId)));
+        logger.debug("## write fst [{}] terms[{}] size[{}]", indexId, fst.size(), fst.memorySize());
+        builder = null;
+
+        if (reverseTermList != null) {
+            Collections.sort(reverseTermList, new Comparator<ReverseTerm>() {
+                @Override
+                public int compare(ReverseTerm o1, ReverseTerm o2) {
+                    char[] t1 = o1.term;
+                    char[] t2 = o2.term;
+                    int len = Math.min(t1.length, t2.length);
+                    for (int i = 0; i < len; i++) {
+                        if (t1[i] != t2[i]) {
+                            return t1[i] - t2[i];
+                        }
+                    }
+                    return t1.length - t2.length;
+                }
+            });
+            FSTBuilder reverseBuilder = new FSTBuilder();
+            for (ReverseTerm reverseTerm : reverseTermList) {
+                reverseBuilder.add(reverseTerm.term, 0, reverseTerm.term.length, reverseTerm.lexiconPosition);
+            }
+            FST reverseFST = reverseBuilder.finish();
+            reverseFST.save(new File(dir, IndexFileNames.getSearchReverseFSTFileName(indexId)));
+            logger.debug("## write reverse fst [{}] terms[{}] size[{}]", indexId, reverseFST.size(), reverseFST.memorySize());
+            reverseTermList = null;
+        }
+    }
+
+    private static class ReverseTerm {
+        char[] term;
+        long lexiconPosition;
+
+        ReverseTerm(char[] term, long lexiconPosition) {
+            this.term = term;
+            this.lexiconPosition = lexiconPosition;
+        }
+    }
+}
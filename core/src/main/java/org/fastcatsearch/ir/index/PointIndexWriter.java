@@ -0,0 +1,204 @@
+package org.fastcatsearch.ir.index;
+
+import org.fastcatsearch.ir.common.IndexFileNames;
+import org.fastcatsearch.ir.io.BufferedFileInput;
+import org.fastcatsearch.ir.io.BufferedFileOutput;
+import org.fastcatsearch.ir.io.IOUtil;
+import org.fastcatsearch.ir.io.IndexInput;
+import org.fastcatsearch.ir.io.IndexOutput;
+import org.fastcatsearch.ir.search.PointIndexReader;
+import org.fastcatsearch.ir.settings.FieldIndexSetting;
+import org.fastcatsearch.ir.settings.FieldSetting;
+import org.fastcatsearch.ir.settings.FieldSetting.Type;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * 완성된 숫자 필드색인 파일을 읽어 포인트색인을 만든다.
+ * 필드색인 기록이 끝난뒤(색인, 머징) 호출하며, 필드색인 파일만 있으면 되므로 두 경로가 같은 결과를 만든다.
+ *
+ * @see PointIndexReader
+ */
+public class PointIndexWriter {
+    private static Logger logger = LoggerFactory.getLogger(PointIndexWriter.class);
+
+    public static final int DEFAULT_BLOCK_SIZE = 512;
+
+    private String indexId;
+    private Type type;
+    private int dataSize;
+    private boolean isMultiValue;
+    private File dir;
+    private int blockSize;
+
+    private long[] values;
+    private int[] docs;
+    private int count;
+    private int documentCount;
+
+    public PointIndexWriter(FieldIndexSetting fieldIndexSetting, FieldSetting refFieldSetting, File dir) {
+        this(fieldIndexSetting, refFieldSetting, dir, DEFAULT_BLOCK_SIZE);
+    }
+
+    public PointIndexWriter(FieldIndexSetting fieldIndexSetting, FieldSetting refFieldSetting, File dir, int blockSize) {
+        this.indexId = fieldIndexSetting.getId();
+        this.type = refFieldSetting.getType();
+        this.dataSize = refFieldSetting.getByteSize(fieldIndexSetting.getSize());
+        this.isMultiValue = refFieldSetting.isMultiValue();
+        this.dir = dir;
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * 포인트색인을 만들수 있는 필드색인인지 여부. 숫자형 고정길이 필드만 가능하다.
+     */
+    public static boolean isPointIndex(FieldIndexSetting fieldIndexSetting, FieldSetting refFieldSetting) {
+        return fieldIndexSetting.isPoint() && PointIndexReader.isSupported(refFieldSetting.getType(), refFieldSetting.getByteSize(fieldIndexSetting.getSize()));
+    }
+
+    public void write() throws IOException {
+        String fileName = IndexFileNames.getFieldIndexFileName(indexId);
+        values = new long[1024];
+        docs = new int[1024];
+        count = 0;
+
+        IndexInput input = new BufferedFileInput(dir, fileName);
+        IndexInput multiValueInput = isMultiValue ? new BufferedFileInput(dir, IndexFileNames.getMultiValueFileName(fileName)) : null;
+        try {
+            if (isMultiValue) {
+                documentCount = (int) (input.length() / IOUtil.SIZE_OF_LONG);
+                for (int docNo = 0; docNo < documentCount; docNo++) {
+                    long ptr = input.readLong();
+                    if (ptr < 0) {
+                        continue;
+                    }
+                    multiValueInput.seek(ptr);
+                    int multiValueCount = multiValueInput.readVInt();
+                    for (int i = 0; i < multiValueCount; i++) {
+                        add(readValue(multiValueInput), docNo);
+                    }
+                }
+            } else {
+                documentCount = (int) (input.length() / dataSize);
+                for (int docNo = 0; docNo < documentCount; docNo++) {
+                    add(readValue(input), docNo);
+                }
+            }
+        } finally {
+            input.close();
+            if (multiValueInput != null) {
+                multiValueInput.close();
+            }
+        }
+
+        sort(0, count - 1);
+
+        int blockCount = (count + blockSize - 1) / blockSize;
+        IndexOutput output = new BufferedFileOutput(dir, IndexFileNames.getFieldPointFileName(indexId));
+        try {
+            output.writeInt(PointIndexReader.VERSION);
+            output.writeInt(documentCount);
+            output.writeInt(count);
+            output.writeInt(blockSize);
+            output.writeInt(blockCount);
+            for (int i = 0; i < blockCount; i++) {
+                output.writeLong(values[i * blockSize]);
+            }
+            for (int i = 0; i < count; i++) {
+                output.writeLong(values[i]);
+                output.writeInt(docs[i]);
+            }
+        } finally {
+            output.close();
+        }
+        logger.debug("write point index [{}] entries[{}] blocks[{}]", indexId, count, blockCount);
+        values = null;
+        docs = null;
+    }
+
+    private long readValue(IndexInput input) throws IOException {
+        long bits = dataSize == IOUtil.SIZE_OF_INT ? input.readInt() : input.readLong();
+        return PointIndexReader.sortableValue(type, bits);
+    }
+
+    private void add(long value, int docNo) {
+        if (count == values.length) {
+            long[] newValues = new long[count * 2];
+            System.arraycopy(values, 0, newValues, 0, count);
+            values = newValues;
+            int[] newDocs = new int[count * 2];
+            System.arraycopy(docs, 0, newDocs, 0, count);
+            docs = newDocs;
+        }
+        values[count] = value;
+        docs[count] = docNo;
+        count++;
+    }
+
+    //(값, 문서번호) 순으로 정렬한다.
+    private void sort(int left, int right) {
+        while (right - left > 16) {
+            int mid = (left + right) >>> 1;
+            if (compare(mid, left) < 0) {
+                swap(mid, left);
+            }
+            if (compare(right, left) < 0) {
+                swap(right, left);
+            }
+            if (compare(right, mid) < 0) {
+                swap(right, mid);
+            }
+            long pivotValue = values[mid];
+            int pivotDoc = docs[mid];
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (compare(i, pivotValue, pivotDoc) < 0) {
+                    i++;
+                }
+                while (compare(j, pivotValue, pivotDoc) > 0) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(i++, j--);
+                }
+            }
+            //작은 쪽을 재귀로 처리하여 스택깊이를 제한한다.
+            if (j - left < right - i) {
+                sort(left, j);
+                left = i;
+            } else {
+                sort(i, right);
+                right = j;
+            }
+        }
+        for (int i = left + 1; i <= right; i++) {
+            for (int j = i; j > left && compare(j, j - 1) < 0; j--) {
+                swap(j, j - 1);
+            }
+        }
+    }
+
+    private int compare(int a, int b) {
+        return compare(a, values[b], docs[b]);
+    }
+
+    private int compare(int a, long value, int docNo) {
+        if (values[a] != value) {
+            return values[a] < value ? -1 : 1;
+        }
+        return docs[a] - docNo;
+    }
+
+    private void swap(int a, int b) {
+        long value = values[a];
+        values[a] = values[b];
+        values[b] = value;
+        int docNo = docs[a];
+        docs[a] = docs[b];
+        docs[b] = docNo;
+    }
+}
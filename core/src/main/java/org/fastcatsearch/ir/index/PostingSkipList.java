@@ -0,0 +1,150 @@
+package org.fastcatsearch.ir.index;
+
+import org.fastcatsearch.ir.io.BytesBuffer;
+import org.fastcatsearch.ir.io.BytesDataOutput;
+import org.fastcatsearch.ir.io.DataOutput;
+import org.fastcatsearch.ir.io.IOUtil;
+import org.fastcatsearch.ir.io.IndexInput;
+
+import java.io.IOException;
+
+/**
+ * 포스팅의 skip 정보.
+ * 문서 SKIP_INTERVAL 개 마다 블럭의 마지막 문서번호와 다음 블럭의 시작위치를 기록해두어,
+ * 검색시 advance(docNo)에서 대상 문서번호보다 작은 블럭은 읽지 않고 건너뛸수 있게 한다.
+ *
+ * IndexFieldOption.STORE_SKIP 일때 포스팅 헤더와 문서데이터 사이에 기록된다.
+ *    포맷 : vInt(skip 갯수), vInt(skip 데이터길이), [ vInt(최대 출현횟수) ], { vInt(블럭 마지막문서번호 delta), vInt(다음블럭 위치 delta) }
+ * 위치는 skip 데이터 바로 다음, 즉 첫 문서데이터로부터의 상대위치이다.
+ * 최대 출현횟수는 IndexFieldOption.STORE_MAX_TF 일때만 기록되며 skip 데이터길이에 포함되므로, skip()으로 건너뛰는 쪽은 신경쓰지 않아도 된다.
+ *
+ * @see org.fastcatsearch.ir.search.StreamPostingReader
+ */
+public class PostingSkipList {
+
+	public static final int SKIP_INTERVAL = 128;
+
+	private BytesDataOutput skipOutput;
+	private int skipCount;
+	private int prevDocNo;
+	private int prevOffset;
+	private boolean isStoreMaxTf;
+	private int maxTf;
+
+	public PostingSkipList() {
+		this(false);
+	}
+
+	public PostingSkipList(boolean isStoreMaxTf) {
+		skipOutput = new BytesDataOutput(1024);
+		this.isStoreMaxTf = isStoreMaxTf;
+	}
+
+	public void reset() {
+		skipOutput.reset();
+		skipCount = 0;
+		prevDocNo = 0;
+		prevOffset = 0;
+		maxTf = 0;
+	}
+
+	/**
+	 * 기록하는 문서의 출현횟수를 받아 최대 출현횟수를 갱신한다.
+	 */
+	public void updateMaxTf(int tf) {
+		if (tf > maxTf) {
+			maxTf = tf;
+		}
+	}
+
+	public int maxTf() {
+		return maxTf;
+	}
+
+	/**
+	 * @param docCount 지금까지 기록한 문서갯수
+	 * @param lastDocNo 마지막으로 기록한 문서번호
+	 * @param offset 다음 문서가 기록될 상대위치
+	 */
+	public void add(int docCount, int lastDocNo, int offset) throws IOException {
+		if (docCount % SKIP_INTERVAL != 0) {
+			return;
+		}
+		skipOutput.writeVInt(lastDocNo - prevDocNo);
+		skipOutput.writeVInt(offset - prevOffset);
+		prevDocNo = lastDocNo;
+		prevOffset = offset;
+		skipCount++;
+	}
+
+	public int skipCount() {
+		return skipCount;
+	}
+
+	/**
+	 * 헤더를 포함한 skip 정보의 전체길이.
+	 */
+	public int length() throws IOException {
+		int dataLength = dataLength();
+		return IOUtil.lenVariableByte(skipCount) + IOUtil.lenVariableByte(dataLength) + dataLength;
+	}
+
+	private int dataLength() throws IOException {
+		int dataLength = (int) skipOutput.position();
+		if (isStoreMaxTf) {
+			dataLength += IOUtil.lenVariableByte(maxTf);
+		}
+		return dataLength;
+	}
+
+	public void writeTo(DataOutput output) throws IOException {
+		output.writeVInt(skipCount);
+		output.writeVInt(dataLength());
+		if (isStoreMaxTf) {
+			output.writeVInt(maxTf);
+		}
+		output.writeBytes(skipOutput.array(), 0, (int) skipOutput.position());
+	}
+
+	/**
+	 * 메모리에 모아진 문서데이터를 읽어 skip 정보를 만든다. 데이터의 첫 문서번호는 delta가 아닌 문서번호 그대로 기록되어 있어야 한다.
+	 */
+	public void build(byte[] data, int length, int count, boolean isStorePosition) throws IOException {
+		reset();
+		boolean isStoreSkip = count > SKIP_INTERVAL;
+		if (!isStoreSkip && !isStoreMaxTf) {
+			return;
+		}
+		BytesBuffer buffer = new BytesBuffer(data, 0, length);
+		int docNo = -1;
+		for (int i = 0; i < count; i++) {
+			int delta = IOUtil.readVInt(buffer);
+			docNo = (i == 0) ? delta : docNo + delta + 1;
+			int tf = IOUtil.readVInt(buffer);
+			if (tf > 0 && isStorePosition) {
+				for (int j = 0; j < tf; j++) {
+					IOUtil.readVInt(buffer);
+				}
+			}
+			updateMaxTf(tf);
+			if (isStoreSkip) {
+				add(i + 1, docNo, buffer.pos());
+			}
+		}
+	}
+
+	/**
+	 * 포스팅 헤더 바로 뒤에서 호출하여 skip 정보를 건너뛴다.
+	 */
+	public static void skip(IndexInput input) throws IOException {
+		input.readVInt();
+		int dataLength = input.readVInt();
+		input.seek(input.position() + dataLength);
+	}
+
+	public static void skip(BytesBuffer buffer) {
+		IOUtil.readVInt(buffer);
+		int dataLength = IOUtil.readVInt(buffer);
+		buffer.skip(dataLength);
+	}
+}
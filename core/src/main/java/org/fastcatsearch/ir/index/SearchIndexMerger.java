@@ -8,17 +8,23 @@ import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
 
 /**
  * 1. Lexicon. 키워드는 알피벳 오름차순 정렬.
  *    포맷 : int(텀갯수), { string(키워드), long(위치) }
  *
  * 2. Posting
- *    포맷 : int(필드옵션), { int(포스팅 데이터길이), int(문서갯수), int(마지막문서번호), { vInt(문서번호 delta), vInt(출현횟수), [ { vInt(위치 delta) } ] } }
+ *    포맷 : int(필드옵션), { int(포스팅 데이터길이), int(문서갯수), int(마지막문서번호), [ skip 정보 ], { vInt(문서번호 delta), vInt(출현횟수), [ { vInt(위치 delta) } ] } }
+ *    skip 정보는 PostingSkipList 참조. 이전 세그먼트에 skip 정보나 최대 출현횟수가 없더라도 머징결과에는 항상 기록한다.
+ *    색인정렬시에는 세그먼트별 문서번호 맵으로 새 문서번호를 받고, 텀마다 문서번호순으로 다시 정렬하여 기록한다.
  *
  * 3. Index
  *    포맷 : int(텀갯수), { string(색인키워드), long(가까운키워드위치), long(포스팅위치) }
  *
+ * 4. FST
+ *    텀 -> lexicon 위치. LexiconFSTWriter 참조. 이전 세그먼트에 FST가 없더라도 머징결과에는 항상 기록한다.
+ *
  * @see SearchPostingReader
  * Created by swsong on 2015. 11. 17..
  */
@@ -30,21 +36,50 @@ public class SearchIndexMerger {
     private IndexOutput postingOutput;
     private IndexOutput lexiconOutput;
     private IndexOutput indexOutput;
+    private File dir;
 
     protected int[] heap;
     private int readerSize;
     private SearchPostingReader[] reader;
     private SearchPostingBufferReader[] workingReaders;
     private int workingReaderSize;
+    private BytesDataOutput docOutput; //skip 정보를 먼저 기록해야 하므로 한 텀의 문서데이터를 모아둔다.
+    private PostingSkipList skipList;
+
+    //색인정렬시 세그먼트 순번별 원래 문서번호 -> 새 문서번호. null 이면 세그먼트 순서대로 이어붙인다.
+    private int[][] docMaps;
+    //색인정렬시 한 텀의 문서들을 새 문서번호로 정렬하기 위한 버퍼.
+    private long[] sortKeys;
+    private int[] sortTfs;
+    private int[] sortPositionOffsets;
+    private BytesDataOutput sortPositionOutput;
+    private int lastSortedDocNo;
+
     /**
      * 각 세그먼트의 indexId 를 머징한다. 출력 디렉토리는 dir.
      */
     public SearchIndexMerger(String indexId, File dir, int indexInterval) throws IOException {
         this.indexId = indexId;
         this.indexInterval = indexInterval;
+        this.dir = dir;
         lexiconOutput = new BufferedFileOutput(dir, IndexFileNames.getSearchLexiconFileName(indexId));
         postingOutput = new BufferedFileOutput(dir, IndexFileNames.getSearchPostingFileName(indexId));
         indexOutput = new BufferedFileOutput(dir, IndexFileNames.getSearchIndexFileName(indexId));
+        docOutput = new BytesDataOutput(1024 * 1024);
+        skipList = new PostingSkipList(true);
+    }
+
+    /**
+     * 색인정렬된 문서번호로 머징한다. docMaps[i] 는 dirs[i] 세그먼트의 원래 문서번호 -> 새 문서번호 맵이며 삭제문서는 -1.
+     */
+    public void setDocMaps(int[][] docMaps) {
+        this.docMaps = docMaps;
+        if (docMaps != null) {
+            sortKeys = new long[1024];
+            sortTfs = new int[1024];
+            sortPositionOffsets = new int[1025];
+            sortPositionOutput = new BytesDataOutput(1024 * 1024);
+        }
     }
 
     /**
@@ -66,9 +101,12 @@ public class SearchIndexMerger {
             prevSegmentAliveDocumentCount += reader[i].getAliveDocumentCount();
         }
 
-        IndexFieldOption fieldIndexOption = reader[0].indexFieldOption();
+        IndexFieldOption fieldIndexOption = new IndexFieldOption(reader[0].indexFieldOption().value());
+        fieldIndexOption.setStoreSkip();
+        fieldIndexOption.setStoreMaxTf();
         boolean isStorePosition = fieldIndexOption.isStorePosition();
         postingOutput.writeInt(fieldIndexOption.value());
+        LexiconFSTWriter fstWriter = new LexiconFSTWriter(dir, indexId, fieldIndexOption);
 
         makeHeap(readerSize);
 
@@ -96,54 +134,64 @@ public class SearchIndexMerger {
             }
             // cv == null일경우는 모든 reader가 종료되어 null이 된경우이며
             // cvOld 와 cv 가 다른 경우는 머징시 텀이 바뀐경우. cvOld를 기록해야한다.
-            logger.debug("cv[{}] old[{}]", cv, cvOld);
+            if (logger.isTraceEnabled()) {
+                logger.trace("cv[{}] old[{}]", cv, cvOld);
+            }
             if ((cv == null || !cv.equals(cvOld)) && cvOld != null) {
                 // merge workingReaders
-                postingBeforePosition = postingOutput.position();
-                //1. data Size
-                postingOutput.writeInt(0);
-                //2. 문서갯수
-                postingOutput.writeInt(0);
-                //3. last doc no
-                postingOutput.writeInt(0);
-
+                docOutput.reset();
+                skipList.reset();
                 prevDocNo = -1;
                 totalCount = 0;
-                for (int k = 0; k < workingReaderSize; k++) {
-                    SearchPostingBufferReader reader = workingReaders[k];
-                    for (int i = 0; i < reader.docSize(); i++) {
-                        int docNo = reader.readDocNo();
-                        /*
-                        * 여기서 실제 삭제가 이루어 진다.
-                        * */
-                        if (reader.isAlive(docNo)) {
-                            //삭제문서가 적용된 새로운 문서번호가 리턴된다.
-                            docNo = reader.getNewDocNo(docNo);
-                            if (prevDocNo >= 0) {
-                                postingOutput.writeVInt(docNo - prevDocNo - 1);
-                            } else {
-                                postingOutput.writeVInt(docNo);
-                            }
-                            postingOutput.writeVInt(reader.getFrequency());
-                            //출현횟수와 출현위치(isStorePosition일때만)를 기록한다.
-                            if(isStorePosition) {
-                                reader.readPositionData(postingOutput);
+                if (docMaps != null) {
+                    totalCount = mergeSortedPostings(isStorePosition);
+                    prevDocNo = totalCount > 0 ? lastSortedDocNo : -1;
+                } else {
+                    for (int k = 0; k < workingReaderSize; k++) {
+                        SearchPostingBufferReader reader = workingReaders[k];
+                        for (int i = 0; i < reader.docSize(); i++) {
+                            int docNo = reader.readDocNo();
+                            /*
+                            * 여기서 실제 삭제가 이루어 진다.
+                            * */
+                            if (reader.isAlive(docNo)) {
+                                //삭제문서가 적용된 새로운 문서번호가 리턴된다.
+                                docNo = reader.getNewDocNo(docNo);
+                                if (prevDocNo >= 0) {
+                                    docOutput.writeVInt(docNo - prevDocNo - 1);
+                                } else {
+                                    docOutput.writeVInt(docNo);
+                                }
+                                int tf = reader.getFrequency();
+                                docOutput.writeVInt(tf);
+                                skipList.updateMaxTf(tf);
+                                //출현횟수와 출현위치(isStorePosition일때만)를 기록한다.
+                                if(isStorePosition) {
+                                    reader.readPositionData(docOutput);
+                                }
+                                //기록한 문서번호만 prevDocNo로 셋팅해야 정확한 delta가 계산된다.
+                                prevDocNo = docNo;
+                                totalCount++;
+                                skipList.add(totalCount, prevDocNo, (int) docOutput.position());
+                            } else if (isStorePosition) {
+                                //삭제문서의 위치정보도 읽어야 다음 문서를 올바로 읽는다.
+                                reader.skipPositionData();
                             }
-                            //기록한 문서번호만 prevDocNo로 셋팅해야 정확한 delta가 계산된다.
-                            prevDocNo = docNo;
-                            totalCount++;
-                        }
 
+                        }
                     }
                 }
 
-                termMade = true;
+                //모든 문서가 삭제된 텀은 기록하지 않는다.
+                termMade = totalCount > 0;
                 term.init(cvOld.array(), cvOld.start(), cvOld.length());
 
                 workingReaderSize = 0;
             }
 
-            if (workingReaderSize < workingReaders.length) {
+            if (cv == null) {
+                //모든 reader가 종료되었다.
+            } else if (workingReaderSize < workingReaders.length) {
                 try {
                     workingReaders[workingReaderSize++] = reader[idx].bufferReader();
                 } catch (ArrayIndexOutOfBoundsException e) {
@@ -162,18 +210,20 @@ public class SearchIndexMerger {
 
             if (termMade) {
                 //1. Write Posting
-                long postingCurrentPosition = postingOutput.position();
-                int dataLength = (int) (postingCurrentPosition - postingBeforePosition - IOUtil.SIZE_OF_INT); //data Size 기록은 뺀다.
-                postingOutput.seek(postingBeforePosition);
+                postingBeforePosition = postingOutput.position();
+                int docDataLength = (int) docOutput.position();
+                int dataLength = IOUtil.SIZE_OF_INT * 2 + skipList.length() + docDataLength; //data Size 기록은 뺀다.
                 postingOutput.writeInt(dataLength);
                 postingOutput.writeInt(totalCount);
                 postingOutput.writeInt(prevDocNo);
-                postingOutput.seek(postingCurrentPosition);
+                skipList.writeTo(postingOutput);
+                postingOutput.writeBytes(docOutput.array(), 0, docDataLength);
 
                 //2. Write Lexicon
                 long lexiconPosition = lexiconOutput.position();
                 lexiconOutput.writeUString(term.array(), term.start(), term.length());
                 lexiconOutput.writeLong(postingBeforePosition);
+                fstWriter.add(term, lexiconPosition);
 
                 //3. Write Index
                 if (indexInterval > 0 && (termCount % indexInterval) == 0) {
@@ -184,7 +234,9 @@ public class SearchIndexMerger {
                 }
 
                 termCount++;
-                logger.debug("Write Term-{} : {}", termCount, new String(term.array(), term.start(), term.length()));
+                if (logger.isTraceEnabled()) {
+                    logger.trace("Write Term-{} : {}", termCount, new String(term.array(), term.start(), term.length()));
+                }
             }
         } // while(true)
 
@@ -201,9 +253,70 @@ public class SearchIndexMerger {
         lexiconOutput.flush();
         indexOutput.flush();
         postingOutput.flush();
+        fstWriter.close();
 
     }
 
+    /**
+     * 색인정렬시 workingReaders 의 문서를 새 문서번호로 바꾸어 모은뒤 정렬하여 docOutput 에 기록한다.
+     * 위치정보는 문서별로 독립된 delta 이므로 문서단위로 옮기면 된다.
+     */
+    private int mergeSortedPostings(boolean isStorePosition) throws IOException {
+        int count = 0;
+        sortPositionOutput.reset();
+        for (int k = 0; k < workingReaderSize; k++) {
+            SearchPostingBufferReader reader = workingReaders[k];
+            int[] docMap = docMaps[reader.sequence()];
+            for (int i = 0; i < reader.docSize(); i++) {
+                int docNo = reader.readDocNo();
+                int newDocNo = docMap[docNo];
+                if (newDocNo < 0) {
+                    if (isStorePosition) {
+                        reader.skipPositionData();
+                    }
+                    continue;
+                }
+                if (count == sortKeys.length) {
+                    sortKeys = Arrays.copyOf(sortKeys, count * 2);
+                    sortTfs = Arrays.copyOf(sortTfs, count * 2);
+                    sortPositionOffsets = Arrays.copyOf(sortPositionOffsets, count * 2 + 1);
+                }
+                //상위 32bit 는 새 문서번호, 하위는 버퍼순번.
+                sortKeys[count] = ((long) newDocNo << 32) | count;
+                sortTfs[count] = reader.getFrequency();
+                sortPositionOffsets[count] = (int) sortPositionOutput.position();
+                if (isStorePosition) {
+                    reader.readPositionData(sortPositionOutput);
+                }
+                count++;
+            }
+        }
+        sortPositionOffsets[count] = (int) sortPositionOutput.position();
+        Arrays.sort(sortKeys, 0, count);
+
+        int prevDocNo = -1;
+        for (int i = 0; i < count; i++) {
+            int docNo = (int) (sortKeys[i] >>> 32);
+            int index = (int) sortKeys[i];
+            if (prevDocNo >= 0) {
+                docOutput.writeVInt(docNo - prevDocNo - 1);
+            } else {
+                docOutput.writeVInt(docNo);
+            }
+            int tf = sortTfs[index];
+            docOutput.writeVInt(tf);
+            skipList.updateMaxTf(tf);
+            if (isStorePosition) {
+                int start = sortPositionOffsets[index];
+                docOutput.writeBytes(sortPositionOutput.array(), start, sortPositionOffsets[index + 1] - start);
+            }
+            prevDocNo = docNo;
+            skipList.add(i + 1, prevDocNo, (int) docOutput.position());
+        }
+        lastSortedDocNo = prevDocNo;
+        return count;
+    }
+
     public void close() throws IOException {
         IOException exception = null;
         try {
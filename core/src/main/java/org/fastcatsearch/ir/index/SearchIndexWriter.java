@@ -67,6 +67,7 @@ public class SearchIndexWriter implements SingleIndexWriter {
 	private int positionIncrementGap;
 
 	private AnalyzerOption indexingAnalyzerOption;
+	private TermOffsetsWriter termOffsetsWriter; //storeOffset 일때 하이라이팅용 텀 오프셋 기록.
 	
 	@Override
 	public String toString(){
@@ -83,12 +84,17 @@ public class SearchIndexWriter implements SingleIndexWriter {
 		int indexBucketSize = indexConfig.getIndexWorkBucketSize();
 
 		fieldIndexOption = new IndexFieldOption();
+		fieldIndexOption.setStoreSkip();
+		fieldIndexOption.setStoreMaxTf();
 		if (indexSetting.isStorePosition()) {
 			memoryPosting = new MemoryPostingWithPosition(indexBucketSize, ignoreCase);
 			fieldIndexOption.setStorePosition();
 		} else {
 			memoryPosting = new MemoryPosting(indexBucketSize, ignoreCase);
 		}
+		if (indexSetting.isStoreSuffix()) {
+			fieldIndexOption.setStoreReverseTerm();
+		}
 
 		List<IndexRefSetting> refList = indexSetting.getFieldList();
 		indexFieldSequence = new int[refList.size()];
@@ -119,6 +125,10 @@ public class SearchIndexWriter implements SingleIndexWriter {
 		tempFile = new File(dir, IndexFileNames.getSearchTempFileName(indexId));
 		tempOutput = new BufferedFileOutput(tempFile, false);
 		
+		if (indexSetting.isStoreOffset()) {
+			termOffsetsWriter = new TermOffsetsWriter(indexId, refList.size(), dir);
+		}
+		
 		//색인시는 stopword만 본다.
 		indexingAnalyzerOption = new AnalyzerOption();
 		indexingAnalyzerOption.useStopword(true);
@@ -132,6 +142,9 @@ public class SearchIndexWriter implements SingleIndexWriter {
 	@Override
 	public void write(Document doc, int docNo) throws IRException, IOException {
 
+		if (termOffsetsWriter != null) {
+			termOffsetsWriter.startDocument(docNo);
+		}
 		int[] sequenceList = indexFieldSequence;
 		for (int i = 0; i < sequenceList.length; i++) {
 			int sequence = sequenceList[i];
@@ -142,6 +155,9 @@ public class SearchIndexWriter implements SingleIndexWriter {
 			// positionIncrementGap은 필드가 증가할때마다 동일량으로 증가. 예) 0, 100, 200, 300...
 			positionIncrementGap += positionIncrementGap;
 		}
+		if (termOffsetsWriter != null) {
+			termOffsetsWriter.endDocument();
+		}
 
 		count++;
 	}
@@ -156,17 +172,18 @@ public class SearchIndexWriter implements SingleIndexWriter {
 			Iterator<Object> iterator = field.getMultiValueIterator();
 			if (iterator != null) {
 				while (iterator.hasNext()) {
-					indexValue(docNo, i, iterator.next(), isNoAdditional, positionIncrementGap);
+					//멀티밸류는 값마다 오프셋이 다시 시작하므로 오프셋을 기록하지 않는다.
+					indexValue(docNo, i, iterator.next(), isNoAdditional, positionIncrementGap, null);
 					// 멀티밸류도 positionIncrementGap을 증가시킨다. 즉, 필드가 다를때처럼 position거리가 멀어진다.
 					positionIncrementGap += positionIncrementGap;
 				}
 			}
 		} else {
-			indexValue(docNo, i, field.getValue(), isNoAdditional, positionIncrementGap);
+			indexValue(docNo, i, field.getValue(), isNoAdditional, positionIncrementGap, termOffsetsWriter);
 		}
 	}
 
-	private void indexValue(int docNo, int i, Object value, boolean isNoAdditional, int positionIncrementGap) throws IOException, IRException {
+	private void indexValue(int docNo, int i, Object value, boolean isNoAdditional, int positionIncrementGap, TermOffsetsWriter offsetsWriter) throws IOException, IRException {
 		if(value == null){
 			return;
 		}
@@ -201,6 +218,15 @@ public class SearchIndexWriter implements SingleIndexWriter {
 		if (tokenStream.hasAttribute(CharTermAttribute.class)) {
 			charTermAttribute = tokenStream.getAttribute(CharTermAttribute.class);
 		}
+		OffsetAttribute offsetAttribute = null;
+		if (offsetsWriter != null) {
+			if (tokenStream.hasAttribute(OffsetAttribute.class)) {
+				offsetAttribute = tokenStream.getAttribute(OffsetAttribute.class);
+				offsetsWriter.startField(i, fieldValue);
+			} else {
+				offsetsWriter = null;
+			}
+		}
 		
 		int lastPosition = 0;
 
@@ -230,6 +256,10 @@ public class SearchIndexWriter implements SingleIndexWriter {
 			}else{
 				memoryPosting.add(key, docNo, position);
 			}
+			//하이라이팅 분석과 같도록 불용어도 기록한다.
+			if (offsetsWriter != null) {
+				offsetsWriter.addToken(offsetAttribute.startOffset(), offsetAttribute.endOffset(), key.array(), key.start(), key.length());
+			}
 //			if(synonymAttribute != null) {
 //				CharVector[] synonym = synonymAttribute.getSynonym();
 //				if(synonym != null) {
@@ -238,11 +268,18 @@ public class SearchIndexWriter implements SingleIndexWriter {
 //					}
 //				}
 //			}
-			if(!isNoAdditional && additionalTermAttribute!=null && additionalTermAttribute.size() > 0) {
+			if((!isNoAdditional || offsetsWriter != null) && additionalTermAttribute!=null && additionalTermAttribute.size() > 0) {
 				Iterator<String> iter = additionalTermAttribute.iterateAdditionalTerms();
 				while(iter.hasNext()) {
-					CharVector token = new CharVector(iter.next().toCharArray());
-					memoryPosting.add(token, docNo, lastPosition);
+					String term = iter.next();
+					if (offsetsWriter != null) {
+						//iterator 가 offsetAttribute 를 추가텀의 오프셋으로 바꾼다.
+						offsetsWriter.addAdditionalTerm(term, offsetAttribute.startOffset(), offsetAttribute.endOffset());
+					}
+					if (!isNoAdditional) {
+						CharVector token = new CharVector(term.toCharArray());
+						memoryPosting.add(token, docNo, lastPosition);
+					}
 				}
 			}
 		}
@@ -291,6 +328,9 @@ public class SearchIndexWriter implements SingleIndexWriter {
 			flush();
 		} finally {
 			tempOutput.close();
+			if (termOffsetsWriter != null) {
+				termOffsetsWriter.close();
+			}
 		}
 
 		try {
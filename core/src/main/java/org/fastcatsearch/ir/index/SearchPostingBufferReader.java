@@ -4,7 +4,7 @@ import org.apache.lucene.util.BytesRef;
 import org.fastcatsearch.ir.io.BitSet;
 import org.fastcatsearch.ir.io.BytesBuffer;
 import org.fastcatsearch.ir.io.IOUtil;
-import org.fastcatsearch.ir.io.IndexOutput;
+import org.fastcatsearch.ir.io.DataOutput;
 import org.fastcatsearch.ir.util.DocumentNumberConverter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -30,7 +30,7 @@ public class SearchPostingBufferReader {
     private int prevDocNo; // 이전 문서번호. delta에 더하기 위해 필요.
     private int frequency; //출현횟수.
 
-    public SearchPostingBufferReader(int sequence, BytesBuffer currentBuffer, int offset, BitSet deleteSet, int[] deleteIdList, DocumentNumberConverter converter) {
+    public SearchPostingBufferReader(int sequence, BytesBuffer currentBuffer, int offset, BitSet deleteSet, int[] deleteIdList, DocumentNumberConverter converter, IndexFieldOption indexFieldOption) {
         this.sequence = sequence;
         this.currentBuffer = currentBuffer;
         this.offset = offset;
@@ -41,7 +41,14 @@ public class SearchPostingBufferReader {
         this.frequency = 0;
         docSize = IOUtil.readInt(currentBuffer);
         lastDocNo = IOUtil.readInt(currentBuffer);
-        logger.debug("SearchPostingBufferReader:{}:init dataSize={}, pos={}, limit={}", sequence, currentBuffer.remaining(), currentBuffer.pos(), currentBuffer.limit);
+        if (indexFieldOption.isStoreSkip()) {
+            //머징시에는 모든 문서를 순차로 읽으므로 skip 정보는 필요없다.
+            PostingSkipList.skip(currentBuffer);
+        }
+    }
+
+    public int sequence() {
+        return sequence;
     }
 
     public int docSize() {
@@ -60,12 +67,9 @@ public class SearchPostingBufferReader {
             prevDocNo = IOUtil.readVInt(currentBuffer);
         } else {
             int delta = IOUtil.readVInt(currentBuffer);
-            logger.debug("delta > {}", delta);
             prevDocNo += (delta + 1);
         }
         frequency = IOUtil.readVInt(currentBuffer);
-        logger.debug("readDocNo {} >> {}) {}", sequence, docPos, prevDocNo);
-        logger.debug("readDocNo:{}:done dataSize={}, pos={}, limit={}", sequence, currentBuffer.remaining(), currentBuffer.pos(), currentBuffer.limit);
         docPos++;
         return prevDocNo;
     }
@@ -75,12 +79,17 @@ public class SearchPostingBufferReader {
     }
 
     //출현 횟수와 위치정보를 적는다. 버퍼끝까지 모두 적기.
-    public void readPositionData(IndexOutput output) throws IOException {
-        logger.debug("readPositionData:{}:start dataSize={}, pos={}, limit={}", sequence, currentBuffer.remaining(), currentBuffer.pos(), currentBuffer.limit);
+    public void readPositionData(DataOutput output) throws IOException {
         for (int i = 0; i < frequency; i++) {
             output.writeVInt(IOUtil.readVInt(currentBuffer));
         }
-        logger.debug("readPositionData:{}:done dataSize={}, pos={}, limit={}", sequence, currentBuffer.remaining(), currentBuffer.pos(), currentBuffer.limit);
+    }
+
+    //삭제문서의 위치정보를 건너뛴다.
+    public void skipPositionData() throws IOException {
+        for (int i = 0; i < frequency; i++) {
+            IOUtil.readVInt(currentBuffer);
+        }
     }
 
     public int getNewDocNo(int docNo) {
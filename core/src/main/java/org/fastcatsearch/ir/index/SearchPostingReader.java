@@ -18,6 +18,7 @@ package org.fastcatsearch.ir.index;
 
 import org.apache.lucene.util.BytesRef;
 import org.fastcatsearch.ir.common.IndexFileNames;
+import org.fastcatsearch.ir.document.DocumentBlockReader;
 import org.fastcatsearch.ir.io.*;
 import org.fastcatsearch.ir.util.DocumentNumberConverter;
 import org.slf4j.Logger;
@@ -36,7 +37,7 @@ import java.util.List;
  *    포맷 : int(텀갯수), { string(키워드), long(위치) }
  *
  * 2. Posting
- *    포맷 : int(필드옵션), { vInt(포스팅 데이터길이), int(갯수), int(마지막문서번호), { vInt(문서번호 delta), vInt(출현횟수), [ { vInt(위치 delta) } ] } }
+ *    포맷 : int(필드옵션), { int(포스팅 데이터길이), int(갯수), int(마지막문서번호), [ skip 정보 ], { vInt(문서번호 delta), vInt(출현횟수), [ { vInt(위치 delta) } ] } }
  *
  * @see SearchIndexMerger
  */
@@ -76,7 +77,7 @@ public class SearchPostingReader {
         int documentCount = 0;
         try {
             docInput = new BufferedFileInput(dir, IndexFileNames.docStored);
-            documentCount = docInput.readInt();
+            documentCount = DocumentBlockReader.readDocumentCount(docInput);
         } finally {
             if (docInput != null) {
                 docInput.close();
@@ -158,7 +159,9 @@ public class SearchPostingReader {
         * */
         int dataSize = postingInput.readInt();
 
-        logger.debug("dataSize : {}, fileSize:{}, filePos:{}", dataSize, postingInput.length(), postingInput.position());
+        if (logger.isTraceEnabled()) {
+            logger.trace("dataSize : {}, fileSize:{}, filePos:{}", dataSize, postingInput.length(), postingInput.position());
+        }
         currentBuffer = borrowBuffer(dataSize);
         postingInput.readBytes(currentBuffer);
 //        docSize = postingInput.readInt();
@@ -171,7 +174,7 @@ public class SearchPostingReader {
     }
 
     public SearchPostingBufferReader bufferReader() {
-        return new SearchPostingBufferReader(sequence, currentBuffer, offset, deleteSet, deleteIdList, converter);
+        return new SearchPostingBufferReader(sequence, currentBuffer, offset, deleteSet, deleteIdList, converter, indexFieldOption);
     }
     //재사용 버퍼는 얻는다.
     private BytesBuffer borrowBuffer(int minimumSize) {
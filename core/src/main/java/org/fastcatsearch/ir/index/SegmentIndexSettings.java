@@ -0,0 +1,148 @@
+package org.fastcatsearch.ir.index;
+
+import org.fastcatsearch.ir.common.IndexFileNames;
+import org.fastcatsearch.ir.settings.FieldIndexSetting;
+import org.fastcatsearch.ir.settings.FieldSetting;
+import org.fastcatsearch.ir.settings.GroupIndexSetting;
+import org.fastcatsearch.ir.settings.Schema;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.TreeSet;
+
+/**
+ * 세그먼트를 기록할때 사용한 필드색인, 그룹색인 설정을 세그먼트 디렉토리에 남긴다.
+ * 필드색인과 그룹색인은 문서당 고정길이로 기록되므로, 머징시 byte를 그대로 복사하려면 설정이 현재 스키마와 같아야 한다.
+ * 설정파일이 없는 이전 세그먼트는 같은지 알수 없으므로 다르다고 본다.
+ */
+public class SegmentIndexSettings {
+    private static Logger logger = LoggerFactory.getLogger(SegmentIndexSettings.class);
+
+    private static final String FIELD_PREFIX = "field.";
+    private static final String GROUP_PREFIX = "group.";
+
+    /**
+     * 기록한 색인의 설정을 저장한다. 일부 색인만 다시 기록했으면 기존 설정파일에서 해당 색인만 바꾼다.
+     * selectedIndexList 가 null 이면 스키마의 모든 색인을 기록한 것이다.
+     */
+    public static void write(File dir, Schema schema, SelectedIndexList selectedIndexList) throws IOException {
+        Properties props = selectedIndexList == null ? new Properties() : read(dir);
+        if (props == null) {
+            props = new Properties();
+        }
+        List<String> fieldIndexList = selectedIndexList == null ? null : selectedIndexList.getFieldIndexList();
+        List<FieldIndexSetting> fieldIndexSettingList = schema.schemaSetting().getFieldIndexSettingList();
+        if (fieldIndexSettingList != null) {
+            for (FieldIndexSetting setting : fieldIndexSettingList) {
+                if (fieldIndexList == null || fieldIndexList.contains(setting.getId())) {
+                    props.setProperty(FIELD_PREFIX + setting.getId(), describe(schema, setting));
+                }
+            }
+        }
+        List<String> groupIndexList = selectedIndexList == null ? null : selectedIndexList.getGroupIndexList();
+        List<GroupIndexSetting> groupIndexSettingList = schema.schemaSetting().getGroupIndexSettingList();
+        if (groupIndexSettingList != null) {
+            for (GroupIndexSetting setting : groupIndexSettingList) {
+                if (groupIndexList == null || groupIndexList.contains(setting.getId())) {
+                    props.setProperty(GROUP_PREFIX + setting.getId(), describe(schema, setting));
+                }
+            }
+        }
+        //같은 설정이면 같은 파일이 되도록 기록시각 없이 키 순서로 기록한다.
+        Writer writer = new OutputStreamWriter(new FileOutputStream(new File(dir, IndexFileNames.segmentIndexSettings)), "utf-8");
+        try {
+            for (String key : new TreeSet<String>(props.stringPropertyNames())) {
+                writer.write(key + "=" + props.getProperty(key) + "\n");
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * 세그먼트의 필드색인, 그룹색인이 현재 스키마와 같은 설정으로 기록되었는지 확인한다.
+     */
+    public static boolean matches(File dir, Schema schema) {
+        Properties props = null;
+        try {
+            props = read(dir);
+        } catch (IOException e) {
+            logger.error("Cannot read index settings of segment " + dir.getAbsolutePath(), e);
+        }
+        if (props == null) {
+            logger.info("Segment {} has no {}.", dir.getAbsolutePath(), IndexFileNames.segmentIndexSettings);
+            return false;
+        }
+        List<String> keyList = new ArrayList<String>();
+        List<String> valueList = new ArrayList<String>();
+        List<FieldIndexSetting> fieldIndexSettingList = schema.schemaSetting().getFieldIndexSettingList();
+        if (fieldIndexSettingList != null) {
+            for (FieldIndexSetting setting : fieldIndexSettingList) {
+                keyList.add(FIELD_PREFIX + setting.getId());
+                valueList.add(describe(schema, setting));
+            }
+        }
+        List<GroupIndexSetting> groupIndexSettingList = schema.schemaSetting().getGroupIndexSettingList();
+        if (groupIndexSettingList != null) {
+            for (GroupIndexSetting setting : groupIndexSettingList) {
+                keyList.add(GROUP_PREFIX + setting.getId());
+                valueList.add(describe(schema, setting));
+            }
+        }
+        for (int i = 0; i < keyList.size(); i++) {
+            String recorded = props.getProperty(keyList.get(i));
+            if (!valueList.get(i).equals(recorded)) {
+                logger.info("Segment {} {} was written as [{}], schema is [{}].", dir.getAbsolutePath(), keyList.get(i), recorded, valueList.get(i));
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Properties read(File dir) throws IOException {
+        File file = new File(dir, IndexFileNames.segmentIndexSettings);
+        if (!file.exists()) {
+            return null;
+        }
+        Properties props = new Properties();
+        Reader reader = new InputStreamReader(new FileInputStream(file), "utf-8");
+        try {
+            props.load(reader);
+        } finally {
+            reader.close();
+        }
+        return props;
+    }
+
+    //FieldIndexWriter 의 기록형식을 정하는 설정.
+    private static String describe(Schema schema, FieldIndexSetting setting) {
+        FieldSetting refFieldSetting = schema.getFieldSetting(setting.getRef());
+        if (refFieldSetting == null) {
+            return "ref=" + setting.getRef();
+        }
+        return "ref=" + setting.getRef() + ",type=" + refFieldSetting.getType() + ",byteSize=" + refFieldSetting.getByteSize(setting.getSize())
+                + ",multiValue=" + refFieldSetting.isMultiValue() + ",ignoreCase=" + setting.isIgnoreCase()
+                + ",point=" + PointIndexWriter.isPointIndex(setting, refFieldSetting);
+    }
+
+    //GroupIndexWriter 의 기록형식을 정하는 설정.
+    private static String describe(Schema schema, GroupIndexSetting setting) {
+        FieldSetting refFieldSetting = schema.getFieldSetting(setting.getRef());
+        if (refFieldSetting == null) {
+            return "ref=" + setting.getRef();
+        }
+        return "ref=" + setting.getRef() + ",type=" + refFieldSetting.getType() + ",byteSize=" + refFieldSetting.getByteSize()
+                + ",variable=" + refFieldSetting.isVariableField() + ",multiValue=" + refFieldSetting.isMultiValue() + ",ignoreCase=" + setting.isIgnoreCase();
+    }
+}
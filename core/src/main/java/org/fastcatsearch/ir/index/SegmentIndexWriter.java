@@ -32,6 +32,8 @@ public class SegmentIndexWriter implements IndexWritable {
 	protected String segmentId;
 	protected File targetDir;
 	protected DataInfo.SegmentInfo segmentInfo;
+	private Schema schema;
+	private SelectedIndexList selectedIndexList;
 
 	public SegmentIndexWriter(Schema schema, File targetDir, DataInfo.SegmentInfo segmentInfo, IndexConfig indexConfig, AnalyzerPoolManager analyzerPoolManager,
 			SelectedIndexList selectedIndexList) throws IRException {
@@ -44,6 +46,8 @@ public class SegmentIndexWriter implements IndexWritable {
 			this.segmentId = targetDir.getName();
 			this.targetDir = targetDir;
 			this.segmentInfo = segmentInfo;
+			this.schema = schema;
+			this.selectedIndexList = selectedIndexList;
 
 			// make a default 0 revision directory
             targetDir.mkdirs();
@@ -165,6 +169,9 @@ public class SegmentIndexWriter implements IndexWritable {
 	public DataInfo.SegmentInfo close() throws IOException, IRException {
 		try {
 			closeWriter();
+			if (targetDir.exists()) {
+				SegmentIndexSettings.write(targetDir, schema, selectedIndexList);
+			}
 
 			// 여기서는 동일 수집문서내 pk중복만 처리하고 삭제문서갯수는 알수 없다.
 			// 삭제문서는 DataSourceReader에서 알수 있으므로, 이 writer를 호출하는 class에서 처리한다.
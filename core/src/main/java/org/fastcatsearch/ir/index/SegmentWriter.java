@@ -24,14 +24,23 @@ import org.fastcatsearch.ir.config.IndexConfig;
 import org.fastcatsearch.ir.document.Document;
 import org.fastcatsearch.ir.document.DocumentWriter;
 import org.fastcatsearch.ir.io.BytesDataOutput;
+import org.fastcatsearch.ir.merge.IndexSortOrder;
+import org.fastcatsearch.ir.merge.SegmentMerger;
 import org.fastcatsearch.ir.settings.Schema;
 
 import java.io.File;
 import java.io.IOException;
 
+/**
+ * 문서와 색인을 함께 기록하는 세그먼트 writer.
+ * IndexConfig 에 색인정렬(index-sort)이 있으면 닫을때 세그먼트를 정렬필드 순서로 다시 기록한다.
+ * */
 public class SegmentWriter extends SegmentIndexWriter implements WriteInfoLoggable {
 
 	private DocumentWriter documentWriter;
+	private Schema schema;
+	private IndexConfig indexConfig;
+	private boolean isAllIndexSelected;
 
 	public SegmentWriter(Schema schema, File targetDir, DataInfo.SegmentInfo segmentInfo, IndexConfig indexConfig, AnalyzerPoolManager analyzerPoolManager) throws IRException {
 		this(schema, targetDir, segmentInfo, indexConfig, analyzerPoolManager, null);
@@ -39,6 +48,9 @@ public class SegmentWriter extends SegmentIndexWriter implements WriteInfoLoggab
 
 	public SegmentWriter(Schema schema, File targetDir, DataInfo.SegmentInfo segmentInfo, IndexConfig indexConfig, AnalyzerPoolManager analyzerPoolManager, SelectedIndexList selectedIndexList) throws IRException {
 		super(schema, targetDir, segmentInfo, indexConfig, analyzerPoolManager, selectedIndexList);
+		this.schema = schema;
+		this.indexConfig = indexConfig;
+		this.isAllIndexSelected = selectedIndexList == null;
 		try {
 			documentWriter = new DocumentWriter(schema.schemaSetting(), targetDir, indexConfig);
 		} catch (IOException e) {
@@ -80,6 +92,11 @@ public class SegmentWriter extends SegmentIndexWriter implements WriteInfoLoggab
 	}
 
 	public DataInfo.SegmentInfo close() throws IOException, IRException {
+		DataInfo.SegmentInfo segmentInfo = closeSegment();
+		return sortSegment(segmentInfo);
+	}
+
+	private DataInfo.SegmentInfo closeSegment() throws IOException, IRException {
 		try {
 			closeWriter();
 		} catch (Exception e) {
@@ -90,6 +107,30 @@ public class SegmentWriter extends SegmentIndexWriter implements WriteInfoLoggab
 		}
 	}
 
+	/**
+	 * 색인순서로 기록된 세그먼트를 색인정렬 순서로 다시 기록한다.
+	 * 문서를 다시 분석하지 않고 SegmentMerger 로 자기자신을 머징하며, 세그먼트내 pk중복으로 삭제된 문서는 이때 빠진다.
+	 */
+	private DataInfo.SegmentInfo sortSegment(DataInfo.SegmentInfo segmentInfo) throws IOException, IRException {
+		if (!isAllIndexSelected || segmentInfo.getDocumentCount() == 0 || !targetDir.exists()
+				|| IndexSortOrder.indexSort(schema, indexConfig.getIndexSort()) == null || !SegmentMerger.canMerge(schema, targetDir)) {
+			return segmentInfo;
+		}
+		File sortDir = new File(targetDir.getParentFile(), targetDir.getName() + ".sort");
+		FileUtils.deleteQuietly(sortDir);
+		try {
+			new SegmentMerger(schema, sortDir, segmentInfo, indexConfig).merge(targetDir);
+			for (File file : sortDir.listFiles()) {
+				File targetFile = new File(targetDir, file.getName());
+				FileUtils.deleteQuietly(targetFile);
+				FileUtils.moveFile(file, targetFile);
+			}
+		} finally {
+			FileUtils.deleteQuietly(sortDir);
+		}
+		return segmentInfo;
+	}
+
 	public void getIndexWriteInfo(IndexWriteInfoList list) {
 		documentWriter.getIndexWriteInfo(list);
 		super.getIndexWriteInfo(list);
@@ -0,0 +1,162 @@
+package org.fastcatsearch.ir.index;
+
+import org.fastcatsearch.ir.common.IndexFileNames;
+import org.fastcatsearch.ir.io.BufferedFileOutput;
+import org.fastcatsearch.ir.io.BytesDataOutput;
+import org.fastcatsearch.ir.io.IndexOutput;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * 검색색인의 문서별 텀과 오프셋을 기록한다. 하이라이팅시 문서본문을 다시 분석하지 않고 이 정보로 매칭위치를 찾는다.
+ * 색인시 분석한 토큰을 그대로 기록하므로 하이라이팅 분석결과와 같다. 멀티밸류 필드는 기록하지 않는다.
+ *
+ * search.{id}.offset : 문서마다 [VInt 엔트리길이][VInt 필드갯수][필드..]
+ * 필드 : [VInt 0(기록안함) 또는 토큰갯수+1][VInt 토큰블럭길이][토큰..]
+ * 토큰 : [VInt 시작오프셋][VInt 길이][byte 원문과 같으면 0, 아니면 1 + UString 텀][VInt 추가텀갯수][(UString 추가텀, VInt 시작, VInt 길이)..]
+ * search.{id}.offset.position : 문서번호별 엔트리 위치(long). 기록되지 않은 문서는 -1.
+ *
+ * @see org.fastcatsearch.ir.search.TermOffsetsReader
+ */
+public class TermOffsetsWriter {
+
+    private IndexOutput dataOutput;
+    private IndexOutput positionOutput;
+    private int fieldCount;
+    private BytesDataOutput[] fieldOutputs;
+    private int[] tokenCounts;
+    private BytesDataOutput entryOutput;
+    private int documentCount;
+
+    private int currentField;
+    private char[] currentText;
+    private BytesDataOutput additionalOutput;
+    private int additionalCount;
+    //추가텀을 아직 기록하지 않은 토큰이 있는지 여부.
+    private boolean pendingToken;
+
+    public TermOffsetsWriter(String indexId, int fieldCount, File dir) throws IOException {
+        this.fieldCount = fieldCount;
+        String fileName = IndexFileNames.getSearchOffsetFileName(indexId);
+        dataOutput = new BufferedFileOutput(dir, fileName);
+        positionOutput = new BufferedFileOutput(dir, IndexFileNames.getPositionFileName(fileName));
+        fieldOutputs = new BytesDataOutput[fieldCount];
+        for (int i = 0; i < fieldCount; i++) {
+            fieldOutputs[i] = new BytesDataOutput();
+        }
+        tokenCounts = new int[fieldCount];
+        entryOutput = new BytesDataOutput();
+        additionalOutput = new BytesDataOutput();
+    }
+
+    /**
+     * 문서번호가 건너뛰면 사이의 문서는 기록되지 않은 것으로 한다.
+     */
+    public void startDocument(int docNo) throws IOException {
+        while (documentCount < docNo) {
+            positionOutput.writeLong(-1L);
+            documentCount++;
+        }
+        for (int i = 0; i < fieldCount; i++) {
+            fieldOutputs[i].reset();
+            tokenCounts[i] = -1;
+        }
+        pendingToken = false;
+        additionalOutput.reset();
+        additionalCount = 0;
+    }
+
+    /**
+     * 필드값의 분석을 시작한다. 이후 addToken 의 오프셋은 text 기준이다.
+     */
+    public void startField(int field, char[] text) throws IOException {
+        flushAdditional();
+        currentField = field;
+        currentText = text;
+        tokenCounts[field] = 0;
+    }
+
+    public void addToken(int start, int end, char[] term, int offset, int length) throws IOException {
+        flushAdditional();
+        BytesDataOutput output = fieldOutputs[currentField];
+        output.writeVInt(start);
+        output.writeVInt(end - start);
+        if (isSameAsText(start, end, term, offset, length)) {
+            output.writeByte(0);
+        } else {
+            output.writeByte(1);
+            output.writeUString(term, offset, length);
+        }
+        tokenCounts[currentField]++;
+        pendingToken = true;
+    }
+
+    /**
+     * 바로 앞 토큰의 추가텀.
+     */
+    public void addAdditionalTerm(String term, int start, int end) throws IOException {
+        if (!pendingToken) {
+            return;
+        }
+        char[] chars = term.toCharArray();
+        additionalOutput.writeUString(chars, 0, chars.length);
+        additionalOutput.writeVInt(start);
+        additionalOutput.writeVInt(end - start);
+        additionalCount++;
+    }
+
+    public void endDocument() throws IOException {
+        flushAdditional();
+        entryOutput.reset();
+        entryOutput.writeVInt(fieldCount);
+        for (int i = 0; i < fieldCount; i++) {
+            if (tokenCounts[i] < 0) {
+                entryOutput.writeVInt(0);
+            } else {
+                entryOutput.writeVInt(tokenCounts[i] + 1);
+                entryOutput.writeVInt(fieldOutputs[i].length());
+                entryOutput.writeBytes(fieldOutputs[i].array(), 0, fieldOutputs[i].length());
+            }
+        }
+        positionOutput.writeLong(dataOutput.position());
+        dataOutput.writeVInt(entryOutput.length());
+        dataOutput.writeBytes(entryOutput.array(), 0, entryOutput.length());
+        documentCount++;
+        currentText = null;
+    }
+
+    public void close() throws IOException {
+        try {
+            dataOutput.close();
+        } finally {
+            positionOutput.close();
+        }
+    }
+
+    private void flushAdditional() throws IOException {
+        if (!pendingToken) {
+            return;
+        }
+        BytesDataOutput output = fieldOutputs[currentField];
+        output.writeVInt(additionalCount);
+        if (additionalCount > 0) {
+            output.writeBytes(additionalOutput.array(), 0, additionalOutput.length());
+        }
+        additionalOutput.reset();
+        additionalCount = 0;
+        pendingToken = false;
+    }
+
+    private boolean isSameAsText(int start, int end, char[] term, int offset, int length) {
+        if (end - start != length || start < 0 || end > currentText.length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (currentText[start + i] != term[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
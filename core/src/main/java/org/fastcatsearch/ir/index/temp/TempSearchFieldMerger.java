@@ -23,6 +23,8 @@ import java.util.List;
 import org.apache.lucene.util.BytesRef;
 import org.fastcatsearch.ir.common.IndexFileNames;
 import org.fastcatsearch.ir.index.IndexFieldOption;
+import org.fastcatsearch.ir.index.LexiconFSTWriter;
+import org.fastcatsearch.ir.index.PostingSkipList;
 import org.fastcatsearch.ir.io.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -68,6 +70,10 @@ public class TempSearchFieldMerger {
 		IndexOutput postingOutput = new BufferedFileOutput(baseDir, IndexFileNames.getSearchPostingFileName(indexId));
 		IndexOutput lexiconOutput = new BufferedFileOutput(baseDir, IndexFileNames.getSearchLexiconFileName(indexId));
 		IndexOutput indexOutput = new BufferedFileOutput(baseDir, IndexFileNames.getSearchIndexFileName(indexId));
+		LexiconFSTWriter fstWriter = new LexiconFSTWriter(baseDir, indexId, fieldIndexOption);
+
+		boolean isStoreSkip = fieldIndexOption.isStoreSkip();
+		PostingSkipList skipList = new PostingSkipList(fieldIndexOption.isStoreMaxTf());
 
 		try {
 			postingOutput.writeInt(fieldIndexOption.value());
@@ -95,7 +101,12 @@ public class TempSearchFieldMerger {
 
 				long postingPosition = postingOutput.position();
 
-				int len2 = IOUtil.SIZE_OF_INT * 2 + sz + len;
+				int skipLength = 0;
+				if (isStoreSkip) {
+					skipList.build(tempPostingOutput.array(), (int) tempPostingOutput.position(), count, fieldIndexOption.isStorePosition());
+					skipLength = skipList.length();
+				}
+				int len2 = IOUtil.SIZE_OF_INT * 2 + skipLength + sz + len;
 				if (len2 < 8) {
                     throw new IOException("Terrible Error!! " + len2);
                 }
@@ -105,6 +116,9 @@ public class TempSearchFieldMerger {
 				postingOutput.writeInt(len2);
                 postingOutput.writeInt(count);
 				postingOutput.writeInt(lastDocNo);
+				if (isStoreSkip) {
+					skipList.writeTo(postingOutput);
+				}
 				postingOutput.writeVInt(firstDocNo);
 				postingOutput.writeBytes(tempPostingOutput.array(), sz, len);
 
@@ -113,6 +127,7 @@ public class TempSearchFieldMerger {
 				long lexiconPosition = lexiconOutput.position();
 				lexiconOutput.writeUString(term.array(), term.start(), term.length());
 				lexiconOutput.writeLong(postingPosition);
+				fstWriter.add(term, lexiconPosition);
 				
 				//3. Write Index
 				if (indexInterval > 0 && (termCount % indexInterval) == 0) {
@@ -142,6 +157,7 @@ public class TempSearchFieldMerger {
 			lexiconOutput.flush();
 			indexOutput.flush();
 			postingOutput.flush();
+			fstWriter.close();
 
 		} finally {
 			IOException exception = null;
@@ -21,6 +21,7 @@ import java.io.IOException;
 import java.io.RandomAccessFile;
 
 import org.fastcatsearch.ir.index.IndexWriteInfo;
+import org.fastcatsearch.ir.merge.MergeProgress;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -40,6 +41,7 @@ public class BufferedFileOutput extends IndexOutput {
 	protected int count;
 
 	protected IndexWriteInfo writeInfo;
+	protected MergeProgress mergeProgress; //머징쓰레드에서 만들어졌으면 기록량을 알려주고 속도제한을 받는다.
 	
 	public BufferedFileOutput(String filename) throws IOException {
 		this(new File("."), filename, false);
@@ -74,6 +76,7 @@ public class BufferedFileOutput extends IndexOutput {
 			raf.seek(fp);
 		}
 		writeInfo = new IndexWriteInfo(f);
+		mergeProgress = MergeProgress.current();
 	}
 
 	public String toString() {
@@ -83,6 +86,9 @@ public class BufferedFileOutput extends IndexOutput {
 	public void flush() throws IOException {
 		if (count > 0) {
 			raf.write(buf, 0, count);
+			if (mergeProgress != null) {
+				mergeProgress.written(count);
+			}
 			count = 0;
 		}
 	}
@@ -115,6 +121,9 @@ public class BufferedFileOutput extends IndexOutput {
 		if (len >= buf.length) {
 			flush();
 			raf.write(b, off, len);
+			if (mergeProgress != null) {
+				mergeProgress.written(len);
+			}
 			return;
 		}
 		if (len > buf.length - count) {
@@ -29,6 +29,7 @@ public class BytesDataInput extends DataInput {
 		this.array = array;
 		this.offset = offset;
 		this.limit = Math.min(offset + length, array.length);
+		this.pos = offset;
 	}
 	
 	@Override
@@ -54,6 +54,10 @@ public abstract class FixedMaxPriorityQueue<T> {
 		return size;
 	}
 	
+	public boolean isFull(){
+		return size == maxsize;
+	}
+	
 	public int totalSize(){
 		return totalSize;
 	}
@@ -77,7 +81,35 @@ public abstract class FixedMaxPriorityQueue<T> {
 		totalSize++;
 		return true;
 	}
-	
+
+	/**
+	 * push 와 같지만 heap 에 남지 못한 원소를 리턴한다. 새 원소가 reject 되면 새 원소를, root 를 밀어냈으면 밀려난 root 를 리턴하고,
+	 * heap 이 다 차지 않았으면 null 이다. 리턴된 원소는 heap 에서 참조하지 않으므로 재사용할수 있다.
+	 * push 를 재정의한 동작(묶음키 비교등)은 적용되지 않는다.
+	 */
+	public T insertWithOverflow(T e){
+		totalSize++;
+		if (size < maxsize) {
+			size++;
+			heap[size] = e;
+			upHeap();
+			return null;
+		} else if (size > 0 && compare(peek(), e) > 0) {
+			T top = (T) heap[1];
+			heap[1] = e;
+			downHeap();
+			return top;
+		}
+		return e;
+	}
+
+	/**
+	 * 원소를 넣었을때 heap 에 남을수 있는지 여부. 다 찼으면 root 와 비교한다.
+	 */
+	public boolean isCompetitive(T e){
+		return size < maxsize || (size > 0 && compare(peek(), e) > 0);
+	}
+
 	public T remove(T e) {
 		for (int i = 1; i <= size; i++) {
 			if(compare((T) heap[i], e) == 0){
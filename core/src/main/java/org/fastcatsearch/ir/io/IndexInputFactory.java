@@ -0,0 +1,59 @@
+package org.fastcatsearch.ir.io;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.fastcatsearch.ir.config.IndexConfig;
+
+/**
+ * 세그먼트 reader들이 색인파일을 열때 사용할 IndexInput 구현을 결정한다.
+ * 컬렉션의 index-config 에 <index-input-type>mmap</index-input-type> 으로 설정하면 MMapIndexInput을, 그외에는 BufferedFileInput을 사용한다.
+ * */
+public class IndexInputFactory {
+
+	public static final String TYPE_BUFFERED = "buffered";
+	public static final String TYPE_MMAP = "mmap";
+
+	public static final IndexInputFactory BUFFERED = new IndexInputFactory(false);
+	public static final IndexInputFactory MMAP = new IndexInputFactory(true);
+
+	private final boolean isMMap;
+
+	private IndexInputFactory(boolean isMMap) {
+		this.isMMap = isMMap;
+	}
+
+	public static IndexInputFactory getFactory(IndexConfig indexConfig) {
+		if (indexConfig == null) {
+			return BUFFERED;
+		}
+		return getFactory(indexConfig.getIndexInputType());
+	}
+
+	public static IndexInputFactory getFactory(String type) {
+		if (type != null && TYPE_MMAP.equalsIgnoreCase(type.trim())) {
+			return MMAP;
+		}
+		return BUFFERED;
+	}
+
+	public IndexInput open(File dir, String filename) throws IOException {
+		return open(new File(dir, filename));
+	}
+
+	public IndexInput open(File f) throws IOException {
+		if (isMMap) {
+			return new MMapIndexInput(f);
+		}
+		return new BufferedFileInput(f);
+	}
+
+	public String type() {
+		return isMMap ? TYPE_MMAP : TYPE_BUFFERED;
+	}
+
+	@Override
+	public String toString() {
+		return "[IndexInputFactory]" + type();
+	}
+}
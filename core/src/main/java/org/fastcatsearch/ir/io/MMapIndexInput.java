@@ -0,0 +1,219 @@
+package org.fastcatsearch.ir.io;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Method;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 파일을 chunk 단위로 memory map 하여 읽는 IndexInput.
+ * 읽기시 시스템콜이나 힙 버퍼로의 복사없이 page cache를 바로 읽으므로, 필드색인처럼 랜덤하게 읽는 파일에 유리하다.
+ *
+ * clone은 mapping을 공유하고 위치만 독립적으로 가진다. 따라서 thread local clone마다 버퍼를 새로 만들지 않는다.
+ * mapping은 파일을 연 직후 만들어지므로 파일핸들은 바로 닫는다.
+ * 원본을 close 하면 mapping을 바로 해제한다. GC를 기다리면 지워진 세그먼트 파일의 디스크와 가상메모리가 계속 남기 때문이다.
+ * 해제된 mapping을 clone이 읽으면 JVM이 죽으므로, 원본은 clone을 쓰는 검색이 모두 끝난뒤 닫아야 한다.
+ * 교체된 세그먼트는 SegmentDelayedClose 로 검색이 끝날 시간을 두고 닫는다. clone의 close는 mapping을 해제하지 않는다.
+ * */
+public class MMapIndexInput extends IndexInput {
+	private static Logger logger = LoggerFactory.getLogger(MMapIndexInput.class);
+
+	// 2^30 = 1GB. int 범위를 넘는 파일은 여러 chunk로 나누어 매핑한다.
+	public static final int DEFAULT_CHUNK_POWER = 30;
+
+	private final File f;
+	private final long length;
+	private final int chunkPower;
+	private final long chunkMask;
+
+	private ByteBuffer[] buffers;
+	private ByteBuffer current;
+	private int currentIndex;
+
+	protected boolean isClone;
+
+	public MMapIndexInput(File dir, String filename) throws IOException {
+		this(new File(dir, filename));
+	}
+
+	public MMapIndexInput(File f) throws IOException {
+		this(f, DEFAULT_CHUNK_POWER);
+	}
+
+	public MMapIndexInput(File f, int chunkPower) throws IOException {
+		this.f = f;
+		this.chunkPower = chunkPower;
+		this.chunkMask = (1L << chunkPower) - 1L;
+
+		RandomAccessFile file = new RandomAccessFile(f, "r");
+		try {
+			length = file.length();
+			FileChannel channel = file.getChannel();
+			// 마지막 chunk는 길이가 0일수 있다. 이때 position == length 인 위치로도 seek가 가능하다.
+			int chunkCount = (int) (length >>> chunkPower) + 1;
+			buffers = new ByteBuffer[chunkCount];
+			long chunkStart = 0;
+			for (int i = 0; i < chunkCount; i++) {
+				long chunkSize = Math.min(1L << chunkPower, length - chunkStart);
+				buffers[i] = channel.map(MapMode.READ_ONLY, chunkStart, chunkSize);
+				chunkStart += chunkSize;
+			}
+		} finally {
+			file.close();
+		}
+		currentIndex = 0;
+		current = buffers[0];
+	}
+
+	public String toString() {
+		return "[" + getClass().getName() + "]" + f.getName() + ", length=" + length;
+	}
+
+	@Override
+	public MMapIndexInput clone() {
+		MMapIndexInput clone = (MMapIndexInput) super.clone();
+		clone.buffers = new ByteBuffer[buffers.length];
+		for (int i = 0; i < buffers.length; i++) {
+			clone.buffers[i] = buffers[i].duplicate();
+		}
+		clone.isClone = true;
+		try {
+			clone.seek(position());
+		} catch (IOException e) {
+			// 현재 위치는 항상 유효하다.
+			throw new IllegalStateException(e);
+		}
+		return clone;
+	}
+
+	@Override
+	public final byte readByte() throws IOException {
+		try {
+			return current.get();
+		} catch (BufferUnderflowException e) {
+			nextChunk();
+			return current.get();
+		}
+	}
+
+	@Override
+	public void readBytes(byte[] b, int offset, int len) throws IOException {
+		int remain = current.remaining();
+		while (len > remain) {
+			current.get(b, offset, remain);
+			offset += remain;
+			len -= remain;
+			nextChunk();
+			remain = current.remaining();
+		}
+		current.get(b, offset, len);
+	}
+
+	@Override
+	public final short readShort() throws IOException {
+		try {
+			return current.getShort();
+		} catch (BufferUnderflowException e) {
+			return super.readShort();
+		}
+	}
+
+	@Override
+	public final int readInt() throws IOException {
+		try {
+			return current.getInt();
+		} catch (BufferUnderflowException e) {
+			return super.readInt();
+		}
+	}
+
+	@Override
+	public final long readLong() throws IOException {
+		try {
+			return current.getLong();
+		} catch (BufferUnderflowException e) {
+			return super.readLong();
+		}
+	}
+
+	private void nextChunk() throws IOException {
+		// 길이가 0인 마지막 chunk는 파일의 끝이다.
+		if (currentIndex + 1 >= buffers.length || buffers[currentIndex + 1].limit() == 0) {
+			throw new EOFException("read past EOF: " + this);
+		}
+		currentIndex++;
+		current = buffers[currentIndex];
+		current.position(0);
+	}
+
+	@Override
+	public long position() {
+		return ((long) currentIndex << chunkPower) + current.position();
+	}
+
+	@Override
+	public void seek(long pos) throws IOException {
+		if (pos < 0 || pos > length) {
+			throw new EOFException("seek past EOF: pos=" + pos + ", " + this);
+		}
+		currentIndex = (int) (pos >>> chunkPower);
+		current = buffers[currentIndex];
+		current.position((int) (pos & chunkMask));
+	}
+
+	@Override
+	public final long length() {
+		return length;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (!isClone && buffers != null) {
+			ByteBuffer[] mapped = buffers;
+			buffers = null;
+			current = null;
+			for (ByteBuffer buffer : mapped) {
+				unmap(buffer);
+			}
+		}
+	}
+
+	/**
+	 * 매핑된 버퍼를 GC를 기다리지 않고 해제한다. 해제후에는 버퍼와 duplicate 모두 접근하면 안된다.
+	 * cleaner 를 얻을수 없는 JVM 이면 해제를 GC에 맡긴다.
+	 * */
+	public static void unmap(ByteBuffer buffer) {
+		if (buffer == null || !buffer.isDirect()) {
+			return;
+		}
+		try {
+			Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+			cleanerMethod.setAccessible(true);
+			Object cleaner = cleanerMethod.invoke(buffer);
+			// 길이가 0인 매핑은 cleaner가 없다.
+			if (cleaner != null) {
+				cleaner.getClass().getMethod("clean").invoke(cleaner);
+			}
+		} catch (Exception e) {
+			logger.debug("Cannot unmap buffer. Leave it to GC. {}", e.toString());
+		}
+	}
+
+	@Override
+	public void reset() throws IOException {
+
+	}
+
+	@Override
+	public int read() throws IOException {
+		return readByte() & 0xff;
+	}
+}
@@ -0,0 +1,118 @@
+package org.fastcatsearch.ir.io;
+
+import java.util.Arrays;
+
+/**
+ * 압축된 문서번호 집합. 문서번호를 상위 16bit 로 65536개 단위 chunk 로 나누고,
+ * chunk 마다 문서가 적으면 정렬된 하위 16bit 배열(char[]), 많으면 8KB bitmap(long[])으로 저장한다.(roaring bitmap 방식)
+ * 드물게 걸리는 조건은 문서갯수 크기의 bitmap 보다 훨씬 작고, 흔한 조건도 bitmap 크기를 넘지 않는다.
+ *
+ * 문서번호는 오름차순으로 add 해야 하며, 다 만든 뒤에는 읽기전용으로 여러 쓰레드에서 공유한다.
+ * */
+public class RoaringDocSet {
+
+	//이 갯수를 넘으면 배열보다 bitmap 이 작다.
+	private static final int ARRAY_MAX_SIZE = 4096;
+	private static final int BITMAP_SIZE = 65536 / IOUtil.BITS_OF_LONG;
+
+	private Object[] containers;
+	private int[] sizes;
+	private int cardinality;
+	private int lastDocNo = -1;
+
+	public RoaringDocSet(int documentCount) {
+		int chunkCount = (documentCount >>> 16) + 1;
+		containers = new Object[chunkCount];
+		sizes = new int[chunkCount];
+	}
+
+	public void add(int docNo) {
+		if (docNo <= lastDocNo) {
+			throw new IllegalArgumentException("docNo must be added in ascending order : " + docNo + " after " + lastDocNo);
+		}
+		int high = docNo >>> 16;
+		char low = (char) docNo;
+		if (high >= containers.length) {
+			containers = Arrays.copyOf(containers, high + 1);
+			sizes = Arrays.copyOf(sizes, high + 1);
+		}
+		Object container = containers[high];
+		int size = sizes[high];
+		if (container == null) {
+			containers[high] = new char[] { low };
+		} else if (container instanceof char[]) {
+			char[] array = (char[]) container;
+			if (size == ARRAY_MAX_SIZE) {
+				long[] bitmap = new long[BITMAP_SIZE];
+				for (int i = 0; i < size; i++) {
+					bitmap[array[i] >>> 6] |= 1L << array[i];
+				}
+				bitmap[low >>> 6] |= 1L << low;
+				containers[high] = bitmap;
+			} else {
+				if (size == array.length) {
+					array = Arrays.copyOf(array, Math.min(size * 2, ARRAY_MAX_SIZE));
+					containers[high] = array;
+				}
+				array[size] = low;
+			}
+		} else {
+			long[] bitmap = (long[]) container;
+			bitmap[low >>> 6] |= 1L << low;
+		}
+		sizes[high]++;
+		cardinality++;
+		lastDocNo = docNo;
+	}
+
+	/**
+	 * 다 만든 뒤 호출하여 배열의 남는 공간을 줄인다.
+	 * */
+	public void trim() {
+		for (int i = 0; i < containers.length; i++) {
+			if (containers[i] instanceof char[] && ((char[]) containers[i]).length > sizes[i]) {
+				containers[i] = Arrays.copyOf((char[]) containers[i], sizes[i]);
+			}
+		}
+	}
+
+	public boolean contains(int docNo) {
+		int high = docNo >>> 16;
+		if (docNo < 0 || high >= containers.length) {
+			return false;
+		}
+		Object container = containers[high];
+		if (container == null) {
+			return false;
+		}
+		char low = (char) docNo;
+		if (container instanceof char[]) {
+			return Arrays.binarySearch((char[]) container, 0, sizes[high], low) >= 0;
+		}
+		return (((long[]) container)[low >>> 6] & (1L << low)) != 0;
+	}
+
+	public int cardinality() {
+		return cardinality;
+	}
+
+	/**
+	 * 대략적인 메모리 사용량(byte).
+	 * */
+	public long memorySize() {
+		long size = 16 + containers.length * 8L + sizes.length * 4L;
+		for (Object container : containers) {
+			if (container instanceof char[]) {
+				size += 16 + ((char[]) container).length * 2L;
+			} else if (container != null) {
+				size += 16 + BITMAP_SIZE * 8L;
+			}
+		}
+		return size;
+	}
+
+	@Override
+	public String toString() {
+		return "[RoaringDocSet] cardinality[" + cardinality + "] memory[" + memorySize() + "]";
+	}
+}
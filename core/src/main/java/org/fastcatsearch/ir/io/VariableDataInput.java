@@ -34,12 +34,7 @@ public class VariableDataInput implements SequencialDataInput {
 			bytesRef.bytes = new byte[size];
 		}
 		dataInput.readBytes(bytesRef.bytes, 0, size);
-		
-		String str = "";
-		for (int i = 0; i < size; i++) {
-			str += (bytesRef.bytes[i] +",");
-		}
-//		logger.debug("read variable data [{}] seq[{}]", str, sequence);
+
 		
 		bytesRef.offset = 0;
 		bytesRef.length = size;
@@ -1,7 +1,168 @@
 package org.fastcatsearch.ir.merge;
 
+import org.fastcatsearch.ir.common.IRException;
+import org.fastcatsearch.ir.common.IndexFileNames;
+import org.fastcatsearch.ir.index.PointIndexWriter;
+import org.fastcatsearch.ir.io.BufferedFileInput;
+import org.fastcatsearch.ir.io.BufferedFileOutput;
+import org.fastcatsearch.ir.io.IOUtil;
+import org.fastcatsearch.ir.io.IndexInput;
+import org.fastcatsearch.ir.io.IndexOutput;
+import org.fastcatsearch.ir.settings.FieldIndexSetting;
+import org.fastcatsearch.ir.settings.FieldSetting;
+import org.fastcatsearch.ir.settings.Schema;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
 /**
- * Created by swsong on 2015. 11. 16..
+ * 세그먼트들의 필드색인을 살아있는 문서만 이어붙인다. 필드색인은 문서당 고정길이이므로 분석없이 byte를 그대로 복사한다.
+ * 멀티밸류 필드는 새 mv 파일의 위치로 포인터를 다시 기록한다.
+ * 색인정렬시에는 IndexSortOrder 순서로 각 세그먼트의 위치를 찾아 복사한다.
  */
 public class FieldIndexesMerger {
+    private static Logger logger = LoggerFactory.getLogger(FieldIndexesMerger.class);
+
+    private Schema schema;
+    private File dir;
+
+    public FieldIndexesMerger(Schema schema, File dir) {
+        this.schema = schema;
+        this.dir = dir;
+    }
+
+    public void merge(MergingSegment[] segments) throws IOException, IRException {
+        merge(segments, null);
+    }
+
+    public void merge(MergingSegment[] segments, IndexSortOrder order) throws IOException, IRException {
+        List<FieldIndexSetting> fieldIndexSettingList = schema.schemaSetting().getFieldIndexSettingList();
+        if (fieldIndexSettingList == null) {
+            return;
+        }
+        for (FieldIndexSetting fieldIndexSetting : fieldIndexSettingList) {
+            merge(fieldIndexSetting, segments, order);
+        }
+    }
+
+    private void merge(FieldIndexSetting fieldIndexSetting, MergingSegment[] segments, IndexSortOrder order) throws IOException, IRException {
+        String id = fieldIndexSetting.getId();
+        FieldSetting refFieldSetting = schema.getFieldSetting(fieldIndexSetting.getRef());
+        int dataSize = refFieldSetting.getByteSize(fieldIndexSetting.getSize());
+        if (dataSize <= 0) {
+            throw new IRException("필드색인은 고정길이필드이거나 field index size를 정해야 합니다. " + id);
+        }
+        boolean isMultiValue = refFieldSetting.isMultiValue();
+        String fileName = IndexFileNames.getFieldIndexFileName(id);
+        String multiValueFileName = IndexFileNames.getMultiValueFileName(fileName);
+
+        IndexOutput output = new BufferedFileOutput(dir, fileName);
+        IndexOutput multiValueOutput = isMultiValue ? new BufferedFileOutput(dir, multiValueFileName) : null;
+        byte[] buffer = new byte[dataSize];
+        try {
+            if (order != null) {
+                mergeSorted(segments, order, fileName, multiValueFileName, dataSize, isMultiValue, output, multiValueOutput);
+            } else {
+                for (MergingSegment segment : segments) {
+                    IndexInput input = new BufferedFileInput(segment.dir(), fileName);
+                    IndexInput multiValueInput = isMultiValue ? new BufferedFileInput(segment.dir(), multiValueFileName) : null;
+                    try {
+                        for (int docNo = 0; docNo < segment.documentCount(); docNo++) {
+                            if (isMultiValue) {
+                                long ptr = input.readLong();
+                                if (!segment.isAlive(docNo)) {
+                                    continue;
+                                }
+                                if (ptr < 0) {
+                                    output.writeLong(-1);
+                                    continue;
+                                }
+                                multiValueInput.seek(ptr);
+                                int multiValueCount = multiValueInput.readVInt();
+                                output.writeLong(multiValueOutput.position());
+                                multiValueOutput.writeVInt(multiValueCount);
+                                for (int i = 0; i < multiValueCount; i++) {
+                                    multiValueInput.readBytes(buffer, 0, dataSize);
+                                    multiValueOutput.writeBytes(buffer, 0, dataSize);
+                                }
+                            } else {
+                                input.readBytes(buffer, 0, dataSize);
+                                if (segment.isAlive(docNo)) {
+                                    output.writeBytes(buffer, 0, dataSize);
+                                }
+                            }
+                        }
+                    } finally {
+                        input.close();
+                        if (multiValueInput != null) {
+                            multiValueInput.close();
+                        }
+                    }
+                }
+            }
+            logger.debug("merge field index [{}] size[{}]", id, output.position());
+        } finally {
+            output.close();
+            if (multiValueOutput != null) {
+                multiValueOutput.close();
+            }
+        }
+        //포인트색인은 머징된 필드색인에서 다시 만든다.
+        if (PointIndexWriter.isPointIndex(fieldIndexSetting, refFieldSetting)) {
+            new PointIndexWriter(fieldIndexSetting, refFieldSetting, dir).write();
+        }
+    }
+
+    private void mergeSorted(MergingSegment[] segments, IndexSortOrder order, String fileName, String multiValueFileName, int dataSize, boolean isMultiValue,
+                             IndexOutput output, IndexOutput multiValueOutput) throws IOException {
+        IndexInput[] inputs = new IndexInput[segments.length];
+        IndexInput[] multiValueInputs = new IndexInput[segments.length];
+        byte[] buffer = new byte[dataSize];
+        try {
+            for (int i = 0; i < segments.length; i++) {
+                inputs[i] = new BufferedFileInput(segments[i].dir(), fileName);
+                if (isMultiValue) {
+                    multiValueInputs[i] = new BufferedFileInput(segments[i].dir(), multiValueFileName);
+                }
+            }
+            for (int newDocNo = 0; newDocNo < order.size(); newDocNo++) {
+                int segment = order.segment(newDocNo);
+                int docNo = order.docNo(newDocNo);
+                IndexInput input = inputs[segment];
+                if (isMultiValue) {
+                    input.seek((long) docNo * IOUtil.SIZE_OF_LONG);
+                    long ptr = input.readLong();
+                    if (ptr < 0) {
+                        output.writeLong(-1);
+                        continue;
+                    }
+                    IndexInput multiValueInput = multiValueInputs[segment];
+                    multiValueInput.seek(ptr);
+                    int multiValueCount = multiValueInput.readVInt();
+                    output.writeLong(multiValueOutput.position());
+                    multiValueOutput.writeVInt(multiValueCount);
+                    for (int i = 0; i < multiValueCount; i++) {
+                        multiValueInput.readBytes(buffer, 0, dataSize);
+                        multiValueOutput.writeBytes(buffer, 0, dataSize);
+                    }
+                } else {
+                    input.seek((long) docNo * dataSize);
+                    input.readBytes(buffer, 0, dataSize);
+                    output.writeBytes(buffer, 0, dataSize);
+                }
+            }
+        } finally {
+            for (int i = 0; i < segments.length; i++) {
+                if (inputs[i] != null) {
+                    inputs[i].close();
+                }
+                if (multiValueInputs[i] != null) {
+                    multiValueInputs[i].close();
+                }
+            }
+        }
+    }
 }
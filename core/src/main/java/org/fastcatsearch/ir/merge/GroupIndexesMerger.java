@@ -1,7 +1,267 @@
 package org.fastcatsearch.ir.merge;
 
+import org.apache.lucene.util.BytesRef;
+import org.fastcatsearch.ir.common.IndexFileNames;
+import org.fastcatsearch.ir.config.IndexConfig;
+import org.fastcatsearch.ir.document.PrimaryKeyIndexReader;
+import org.fastcatsearch.ir.document.PrimaryKeyIndexWriter;
+import org.fastcatsearch.ir.io.BufferedFileInput;
+import org.fastcatsearch.ir.io.BufferedFileOutput;
+import org.fastcatsearch.ir.io.FixedDataInput;
+import org.fastcatsearch.ir.io.FixedDataOutput;
+import org.fastcatsearch.ir.io.IOUtil;
+import org.fastcatsearch.ir.io.IndexInput;
+import org.fastcatsearch.ir.io.IndexOutput;
+import org.fastcatsearch.ir.io.SequencialDataInput;
+import org.fastcatsearch.ir.io.SequencialDataOutput;
+import org.fastcatsearch.ir.io.VariableDataInput;
+import org.fastcatsearch.ir.io.VariableDataOutput;
+import org.fastcatsearch.ir.settings.FieldSetting;
+import org.fastcatsearch.ir.settings.GroupIndexSetting;
+import org.fastcatsearch.ir.settings.Schema;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
 /**
- * Created by swsong on 2015. 11. 16..
+ * 세그먼트들의 그룹색인을 머징한다. 그룹번호는 세그먼트마다 다르므로 키를 읽어 새 키맵의 그룹번호로 바꿔 기록한다.
+ * 키는 세그먼트별로 처음 참조될때 한번만 읽고, 살아있는 문서가 참조하는 키만 새 세그먼트에 남는다.
  */
 public class GroupIndexesMerger {
+    private static Logger logger = LoggerFactory.getLogger(GroupIndexesMerger.class);
+
+    private Schema schema;
+    private File dir;
+    private IndexConfig indexConfig;
+
+    public GroupIndexesMerger(Schema schema, File dir, IndexConfig indexConfig) {
+        this.schema = schema;
+        this.dir = dir;
+        this.indexConfig = indexConfig;
+    }
+
+    public void merge(MergingSegment[] segments) throws IOException {
+        merge(segments, null);
+    }
+
+    public void merge(MergingSegment[] segments, IndexSortOrder order) throws IOException {
+        List<GroupIndexSetting> groupIndexSettingList = schema.schemaSetting().getGroupIndexSettingList();
+        if (groupIndexSettingList == null) {
+            return;
+        }
+        for (GroupIndexSetting groupIndexSetting : groupIndexSettingList) {
+            merge(groupIndexSetting, segments, order);
+        }
+    }
+
+    private void merge(GroupIndexSetting groupIndexSetting, MergingSegment[] segments, IndexSortOrder order) throws IOException {
+        String id = groupIndexSetting.getId();
+        FieldSetting refFieldSetting = schema.getFieldSetting(groupIndexSetting.getRef());
+        boolean isMultiValue = refFieldSetting.isMultiValue();
+        boolean isVariableField = refFieldSetting.isVariableField();
+        String fileName = IndexFileNames.getGroupIndexFileName(id);
+        String multiValueFileName = IndexFileNames.getMultiValueFileName(fileName);
+        String keyFileName = IndexFileNames.getGroupKeyFileName(id);
+        String keyMapFileName = IndexFileNames.getGroupKeyMapFileName(id);
+
+        IndexOutput output = new BufferedFileOutput(dir, fileName);
+        IndexOutput multiValueOutput = isMultiValue ? new BufferedFileOutput(dir, multiValueFileName) : null;
+        SequencialDataOutput keyOutput = isVariableField ? new VariableDataOutput(dir, keyFileName) : new FixedDataOutput(dir, keyFileName);
+        PrimaryKeyIndexWriter keyIndex = new PrimaryKeyIndexWriter(indexConfig.getPkTermInterval(), indexConfig.getPkBucketSize());
+        GroupKeyMapper mapper = new GroupKeyMapper(keyIndex, keyOutput);
+        int count = 0;
+        try {
+            if (order != null) {
+                count = mergeSorted(segments, order, fileName, multiValueFileName, keyFileName, keyMapFileName, refFieldSetting, mapper, output, multiValueOutput);
+            } else {
+                for (MergingSegment segment : segments) {
+                    IndexInput input = new BufferedFileInput(segment.dir(), fileName);
+                    IndexInput multiValueInput = isMultiValue ? new BufferedFileInput(segment.dir(), multiValueFileName) : null;
+                    SegmentGroupKeys segmentKeys = mapper.segmentKeys(segment.dir(), keyFileName, keyMapFileName, refFieldSetting);
+                    try {
+                        for (int docNo = 0; docNo < segment.documentCount(); docNo++) {
+                            if (isMultiValue) {
+                                long ptr = input.readLong();
+                                if (!segment.isAlive(docNo)) {
+                                    continue;
+                                }
+                                writeMultiValue(ptr, multiValueInput, segmentKeys, output, multiValueOutput);
+                            } else {
+                                int groupNo = input.readInt();
+                                if (!segment.isAlive(docNo)) {
+                                    continue;
+                                }
+                                output.writeInt(groupNo < 0 ? -1 : segmentKeys.map(groupNo));
+                            }
+                            count++;
+                        }
+                    } finally {
+                        input.close();
+                        if (multiValueInput != null) {
+                            multiValueInput.close();
+                        }
+                        segmentKeys.close();
+                    }
+                }
+            }
+        } finally {
+            output.close();
+            if (multiValueOutput != null) {
+                multiValueOutput.close();
+            }
+            keyOutput.close();
+        }
+
+        //GroupIndexWriter 와 동일하게 문서가 있을때만 키맵을 기록한다.
+        if (count > 0) {
+            IndexOutput keyMapOutput = new BufferedFileOutput(dir, keyMapFileName);
+            IndexOutput keyMapIndexOutput = new BufferedFileOutput(dir, IndexFileNames.getIndexFileName(keyMapFileName));
+            try {
+                keyIndex.setDestination(keyMapOutput, keyMapIndexOutput);
+                keyIndex.write();
+            } finally {
+                keyMapOutput.close();
+                keyMapIndexOutput.close();
+            }
+        }
+        logger.debug("merge group index [{}] documents[{}] keys[{}]", id, count, mapper.keyCount());
+    }
+
+    /**
+     * 색인정렬 순서로 각 세그먼트의 그룹번호를 찾아 기록한다. 세그먼트별 키 매핑을 모두 열어둔다.
+     */
+    private int mergeSorted(MergingSegment[] segments, IndexSortOrder order, String fileName, String multiValueFileName, String keyFileName, String keyMapFileName,
+                            FieldSetting refFieldSetting, GroupKeyMapper mapper, IndexOutput output, IndexOutput multiValueOutput) throws IOException {
+        boolean isMultiValue = refFieldSetting.isMultiValue();
+        IndexInput[] inputs = new IndexInput[segments.length];
+        IndexInput[] multiValueInputs = new IndexInput[segments.length];
+        SegmentGroupKeys[] segmentKeysList = new SegmentGroupKeys[segments.length];
+        try {
+            for (int i = 0; i < segments.length; i++) {
+                inputs[i] = new BufferedFileInput(segments[i].dir(), fileName);
+                if (isMultiValue) {
+                    multiValueInputs[i] = new BufferedFileInput(segments[i].dir(), multiValueFileName);
+                }
+                segmentKeysList[i] = mapper.segmentKeys(segments[i].dir(), keyFileName, keyMapFileName, refFieldSetting);
+            }
+            for (int newDocNo = 0; newDocNo < order.size(); newDocNo++) {
+                int segment = order.segment(newDocNo);
+                int docNo = order.docNo(newDocNo);
+                if (isMultiValue) {
+                    inputs[segment].seek((long) docNo * IOUtil.SIZE_OF_LONG);
+                    writeMultiValue(inputs[segment].readLong(), multiValueInputs[segment], segmentKeysList[segment], output, multiValueOutput);
+                } else {
+                    inputs[segment].seek((long) docNo * IOUtil.SIZE_OF_INT);
+                    int groupNo = inputs[segment].readInt();
+                    output.writeInt(groupNo < 0 ? -1 : segmentKeysList[segment].map(groupNo));
+                }
+            }
+            return order.size();
+        } finally {
+            for (int i = 0; i < segments.length; i++) {
+                if (inputs[i] != null) {
+                    inputs[i].close();
+                }
+                if (multiValueInputs[i] != null) {
+                    multiValueInputs[i].close();
+                }
+                if (segmentKeysList[i] != null) {
+                    segmentKeysList[i].close();
+                }
+            }
+        }
+    }
+
+    private void writeMultiValue(long ptr, IndexInput multiValueInput, SegmentGroupKeys segmentKeys, IndexOutput output, IndexOutput multiValueOutput) throws IOException {
+        if (ptr < 0) {
+            output.writeLong(-1L);
+            return;
+        }
+        multiValueInput.seek(ptr);
+        int multiValueCount = multiValueInput.readVInt();
+        output.writeLong(multiValueOutput.position());
+        multiValueOutput.writeVInt(multiValueCount);
+        for (int i = 0; i < multiValueCount; i++) {
+            multiValueOutput.writeInt(segmentKeys.map(multiValueInput.readInt()));
+        }
+    }
+
+    /**
+     * 머징된 세그먼트의 그룹키와 그룹번호. 키는 처음 참조된 순서로 번호를 받는다.
+     */
+    private static class GroupKeyMapper {
+        private PrimaryKeyIndexWriter keyIndex;
+        private SequencialDataOutput keyOutput;
+        private int groupNumber;
+
+        public GroupKeyMapper(PrimaryKeyIndexWriter keyIndex, SequencialDataOutput keyOutput) {
+            this.keyIndex = keyIndex;
+            this.keyOutput = keyOutput;
+        }
+
+        public SegmentGroupKeys segmentKeys(File segmentDir, String keyFileName, String keyMapFileName, FieldSetting refFieldSetting) throws IOException {
+            int keyCount = 0;
+            SequencialDataInput keyInput = null;
+            if (new File(segmentDir, keyMapFileName).exists()) {
+                PrimaryKeyIndexReader keyMapReader = new PrimaryKeyIndexReader(segmentDir, keyMapFileName);
+                keyCount = keyMapReader.count();
+                keyMapReader.close();
+                keyInput = refFieldSetting.isVariableField() ? new VariableDataInput(segmentDir, keyFileName) : new FixedDataInput(segmentDir, keyFileName, refFieldSetting.getByteSize());
+            }
+            return new SegmentGroupKeys(this, keyInput, keyCount);
+        }
+
+        public int groupNo(BytesRef keyRef) throws IOException {
+            int newGroupNo = keyIndex.get(keyRef.bytes, keyRef.offset, keyRef.length);
+            if (newGroupNo == -1) {
+                newGroupNo = groupNumber++;
+                keyIndex.put(keyRef.bytes, keyRef.offset, keyRef.length, newGroupNo);
+                keyOutput.writeBytes(keyRef.bytes, keyRef.offset, keyRef.length);
+            }
+            return newGroupNo;
+        }
+
+        public int keyCount() {
+            return groupNumber;
+        }
+    }
+
+    /**
+     * 세그먼트의 그룹번호를 머징된 세그먼트의 그룹번호로 바꾼다. 키는 세그먼트별로 처음 참조될때 한번만 읽는다.
+     */
+    private static class SegmentGroupKeys {
+        private GroupKeyMapper mapper;
+        private SequencialDataInput keyInput;
+        private int[] groupNoMap;
+        private BytesRef keyRef;
+
+        public SegmentGroupKeys(GroupKeyMapper mapper, SequencialDataInput keyInput, int keyCount) {
+            this.mapper = mapper;
+            this.keyInput = keyInput;
+            groupNoMap = new int[keyCount];
+            Arrays.fill(groupNoMap, -1);
+            keyRef = new BytesRef(64);
+        }
+
+        public int map(int groupNo) throws IOException {
+            int newGroupNo = groupNoMap[groupNo];
+            if (newGroupNo >= 0) {
+                return newGroupNo;
+            }
+            keyInput.read(keyRef, groupNo);
+            newGroupNo = mapper.groupNo(keyRef);
+            groupNoMap[groupNo] = newGroupNo;
+            return newGroupNo;
+        }
+
+        public void close() throws IOException {
+            if (keyInput != null) {
+                keyInput.close();
+            }
+        }
+    }
 }
@@ -0,0 +1,161 @@
+package org.fastcatsearch.ir.merge;
+
+import org.apache.lucene.util.BytesRef;
+import org.fastcatsearch.ir.common.IRException;
+import org.fastcatsearch.ir.common.IndexFileNames;
+import org.fastcatsearch.ir.io.BufferedFileInput;
+import org.fastcatsearch.ir.io.IndexInput;
+import org.fastcatsearch.ir.query.Sort;
+import org.fastcatsearch.ir.settings.FieldIndexSetting;
+import org.fastcatsearch.ir.settings.FieldSetting;
+import org.fastcatsearch.ir.settings.Schema;
+import org.fastcatsearch.ir.sort.SortFunction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * 색인정렬(index sort)된 머징 세그먼트의 문서순서.
+ * 정렬필드의 필드색인 값을 검색시와 같은 SortFunction 으로 비교하여, 정렬순서상 앞선 문서가 작은 문서번호를 받는다.
+ * 값이 같으면 원래 순서(세그먼트순, 문서번호순)를 유지한다.
+ * 새 문서번호 순서대로 원래 세그먼트와 문서번호를 가지며, 각 MergingSegment 에는 원래 문서번호 -> 새 문서번호 맵을 설정한다.
+ *
+ * 정렬필드는 싱글밸류 필드색인이어야 한다.
+ */
+public class IndexSortOrder {
+    private static Logger logger = LoggerFactory.getLogger(IndexSortOrder.class);
+
+    private int[] segmentList;
+    private int[] docNoList;
+
+    private IndexSortOrder(int size) {
+        segmentList = new int[size];
+        docNoList = new int[size];
+    }
+
+    /**
+     * 스키마에서 정렬할수 있는 색인정렬 설정인지 확인한다. 아니면 null.
+     */
+    public static Sort indexSort(Schema schema, String indexSortValue) {
+        Sort sort = Sort.parse(indexSortValue);
+        if (sort == null) {
+            return null;
+        }
+        FieldIndexSetting fieldIndexSetting = schema.getFieldIndexSetting(sort.fieldIndexId());
+        if (fieldIndexSetting == null) {
+            logger.warn("Index sort field index not found. {}", indexSortValue);
+            return null;
+        }
+        FieldSetting fieldSetting = schema.getFieldSetting(fieldIndexSetting.getRef());
+        if (fieldSetting == null || fieldSetting.isMultiValue()) {
+            logger.warn("Index sort field must be single value. {}", indexSortValue);
+            return null;
+        }
+        return sort;
+    }
+
+    static IndexSortOrder sort(Schema schema, Sort sort, MergingSegment[] segments) throws IOException, IRException {
+        FieldIndexSetting fieldIndexSetting = schema.getFieldIndexSetting(sort.fieldIndexId());
+        FieldSetting fieldSetting = schema.getFieldSetting(fieldIndexSetting.getRef());
+        final int dataSize = fieldSetting.getByteSize(fieldIndexSetting.getSize());
+        if (dataSize <= 0) {
+            throw new IRException("필드색인은 고정길이필드이거나 field index size를 정해야 합니다. " + fieldIndexSetting.getId());
+        }
+        int size = 0;
+        for (MergingSegment segment : segments) {
+            size += segment.aliveDocumentCount();
+        }
+        final IndexSortOrder order = new IndexSortOrder(size);
+        final byte[] data = new byte[size * dataSize];
+        String fileName = IndexFileNames.getFieldIndexFileName(fieldIndexSetting.getId());
+        int n = 0;
+        for (int i = 0; i < segments.length; i++) {
+            MergingSegment segment = segments[i];
+            IndexInput input = new BufferedFileInput(segment.dir(), fileName);
+            try {
+                for (int docNo = 0; docNo < segment.documentCount(); docNo++) {
+                    if (segment.isAlive(docNo)) {
+                        input.readBytes(data, n * dataSize, dataSize);
+                        order.segmentList[n] = i;
+                        order.docNoList[n] = docNo;
+                        n++;
+                    } else {
+                        input.seek(input.position() + dataSize);
+                    }
+                }
+            } finally {
+                input.close();
+            }
+        }
+
+        final SortFunction sortFunction = sort.createSortFunction(fieldSetting);
+        Integer[] indexList = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            indexList[i] = i;
+        }
+        //Arrays.sort 는 객체배열에 대해 stable 하다.
+        Arrays.sort(indexList, new Comparator<Integer>() {
+            BytesRef one = new BytesRef(data, 0, dataSize);
+            BytesRef two = new BytesRef(data, 0, dataSize);
+
+            @Override
+            public int compare(Integer o1, Integer o2) {
+                one.offset = o1 * dataSize;
+                one.limit = one.offset + dataSize;
+                two.offset = o2 * dataSize;
+                two.limit = two.offset + dataSize;
+                return sortFunction.compare(one, two);
+            }
+        });
+
+        int[] segmentList = new int[size];
+        int[] docNoList = new int[size];
+        int[][] docMaps = new int[segments.length][];
+        for (int i = 0; i < segments.length; i++) {
+            docMaps[i] = new int[segments[i].documentCount()];
+            Arrays.fill(docMaps[i], -1);
+        }
+        for (int newDocNo = 0; newDocNo < size; newDocNo++) {
+            int index = indexList[newDocNo];
+            segmentList[newDocNo] = order.segmentList[index];
+            docNoList[newDocNo] = order.docNoList[index];
+            docMaps[segmentList[newDocNo]][docNoList[newDocNo]] = newDocNo;
+        }
+        order.segmentList = segmentList;
+        order.docNoList = docNoList;
+        for (int i = 0; i < segments.length; i++) {
+            segments[i].setDocMap(docMaps[i]);
+        }
+        logger.debug("index sort [{}] documents[{}]", sort.toIndexSortString(), size);
+        return order;
+    }
+
+    public int size() {
+        return docNoList.length;
+    }
+
+    /**
+     * 새 문서번호의 원래 세그먼트 순번.
+     */
+    public int segment(int newDocNo) {
+        return segmentList[newDocNo];
+    }
+
+    /**
+     * 새 문서번호의 원래 세그먼트내 문서번호.
+     */
+    public int docNo(int newDocNo) {
+        return docNoList[newDocNo];
+    }
+
+    public int[] segmentList() {
+        return segmentList;
+    }
+
+    public int[] docNoList() {
+        return docNoList;
+    }
+}
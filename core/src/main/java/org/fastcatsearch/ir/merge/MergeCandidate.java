@@ -0,0 +1,50 @@
+package org.fastcatsearch.ir.merge;
+
+/**
+ * MergePolicy 에 넘기는 세그먼트의 크기정보.
+ */
+public class MergeCandidate {
+    private String segmentId;
+    private int documentCount;
+    private int deleteCount;
+    private long sizeInBytes;
+
+    public MergeCandidate(String segmentId, int documentCount, int deleteCount, long sizeInBytes) {
+        this.segmentId = segmentId;
+        this.documentCount = documentCount;
+        this.deleteCount = deleteCount;
+        this.sizeInBytes = sizeInBytes;
+    }
+
+    public String segmentId() {
+        return segmentId;
+    }
+
+    public int documentCount() {
+        return documentCount;
+    }
+
+    public int deleteCount() {
+        return deleteCount;
+    }
+
+    public long sizeInBytes() {
+        return sizeInBytes;
+    }
+
+    public double deleteRatio() {
+        return documentCount > 0 ? (double) deleteCount / documentCount : 0;
+    }
+
+    /**
+     * 삭제문서를 제외한 추정크기. 머징후 세그먼트 크기로 사용한다.
+     */
+    public long liveBytes() {
+        return (long) (sizeInBytes * (1 - deleteRatio()));
+    }
+
+    @Override
+    public String toString() {
+        return segmentId + "[docs=" + documentCount + ", deletes=" + deleteCount + ", bytes=" + sizeInBytes + "]";
+    }
+}
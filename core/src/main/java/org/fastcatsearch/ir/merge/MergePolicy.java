@@ -0,0 +1,18 @@
+package org.fastcatsearch.ir.merge;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 머징할 세그먼트 묶음을 고른다. 머징 스케쥴러가 주기적으로 호출하며, 리턴한 묶음마다 머징작업이 하나씩 수행된다.
+ * 이미 머징중인 세그먼트와 살아있는 문서가 없는 세그먼트는 후보에서 제외하고 넘긴다.
+ */
+public interface MergePolicy {
+
+    /**
+     * @param segments 머징 가능한 세그먼트들.
+     * @param runningMergeCount 현재 진행중인 머징작업 갯수.
+     * @return 머징할 세그먼트 id 묶음들. 머징할 것이 없으면 빈 리스트.
+     */
+    public List<Set<String>> findMerges(List<MergeCandidate> segments, int runningMergeCount);
+}
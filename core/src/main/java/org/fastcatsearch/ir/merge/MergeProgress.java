@@ -0,0 +1,134 @@
+package org.fastcatsearch.ir.merge;
+
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 진행중인 세그먼트 머징의 상태. 머징 단계(문서, 검색색인, 필드색인등)를 수행하는 쓰레드에 bind 되며,
+ * 그 쓰레드에서 만든 BufferedFileOutput 이 기록량을 알려주고 rate limiter 에 따라 쉰다.
+ */
+public class MergeProgress {
+
+    private static final ThreadLocal<MergeProgress> current = new ThreadLocal<MergeProgress>();
+
+    private String segmentId;
+    private volatile int documentCount;
+    private volatile int stepCount;
+    private volatile long startTime;
+    private volatile long finishTime;
+    private volatile MergeRateLimiter rateLimiter;
+
+    private final AtomicInteger finishedStepCount = new AtomicInteger();
+    private final AtomicLong bytesWritten = new AtomicLong();
+    private final AtomicLong pausedNanos = new AtomicLong();
+    private final Map<String, Long> runningSteps = new ConcurrentHashMap<String, Long>();
+
+    public MergeProgress(String segmentId) {
+        this.segmentId = segmentId;
+        this.startTime = System.currentTimeMillis();
+    }
+
+    void start(int documentCount, int stepCount, MergeRateLimiter rateLimiter) {
+        this.documentCount = documentCount;
+        this.stepCount = stepCount;
+        this.rateLimiter = rateLimiter;
+        this.startTime = System.currentTimeMillis();
+    }
+
+    /**
+     * 현재 쓰레드가 수행중인 머징. 머징쓰레드가 아니면 null.
+     */
+    public static MergeProgress current() {
+        return current.get();
+    }
+
+    void startStep(String step) {
+        current.set(this);
+        runningSteps.put(step, System.currentTimeMillis());
+    }
+
+    void finishStep(String step) {
+        runningSteps.remove(step);
+        finishedStepCount.incrementAndGet();
+        current.remove();
+    }
+
+    void finish() {
+        finishTime = System.currentTimeMillis();
+    }
+
+    public boolean isFinished() {
+        return finishTime > 0;
+    }
+
+    /**
+     * 기록한 byte 수를 더하고 속도제한을 적용한다.
+     */
+    public void written(long bytes) throws InterruptedIOException {
+        bytesWritten.addAndGet(bytes);
+        if (rateLimiter != null) {
+            pausedNanos.addAndGet(rateLimiter.pause(bytes));
+        }
+    }
+
+    public String segmentId() {
+        return segmentId;
+    }
+
+    public int documentCount() {
+        return documentCount;
+    }
+
+    public int stepCount() {
+        return stepCount;
+    }
+
+    public int finishedStepCount() {
+        return finishedStepCount.get();
+    }
+
+    public List<String> runningSteps() {
+        return new ArrayList<String>(runningSteps.keySet());
+    }
+
+    public long startTime() {
+        return startTime;
+    }
+
+    public long elapsed() {
+        return (finishTime > 0 ? finishTime : System.currentTimeMillis()) - startTime;
+    }
+
+    public long bytesWritten() {
+        return bytesWritten.get();
+    }
+
+    public long pausedMillis() {
+        return pausedNanos.get() / 1000000L;
+    }
+
+    /**
+     * 시작부터의 평균 기록속도(MB/s).
+     */
+    public double throughputMBPerSec() {
+        long elapsed = elapsed();
+        if (elapsed <= 0) {
+            return 0;
+        }
+        return bytesWritten() / (1024.0 * 1024.0) / (elapsed / 1000.0);
+    }
+
+    public MergeRateLimiter rateLimiter() {
+        return rateLimiter;
+    }
+
+    @Override
+    public String toString() {
+        return "[MergeProgress]" + segmentId + " steps[" + finishedStepCount() + "/" + stepCount + "] bytes[" + bytesWritten() + "] elapsed[" + elapsed() + "]";
+    }
+}
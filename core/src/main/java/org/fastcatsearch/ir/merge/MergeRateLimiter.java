@@ -0,0 +1,118 @@
+package org.fastcatsearch.ir.merge;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 세그먼트 머징의 쓰기 속도를 MB/s 로 제한한다. 동시에 진행되는 모든 머징이 하나의 limiter 를 공유하여 디스크 대역폭을 나눠쓴다.
+ * 기록한 만큼 시간을 예약하고, 예약된 시간보다 앞서 있으면 그만큼 쉰다.
+ *
+ * Backoff 가 설정되면 1초마다 비율(0~1)을 다시 읽어 최대속도에 곱한다. 검색부하가 높을때 머징속도를 낮추는데 사용한다.
+ * 최대속도가 0 이하이면 제한하지 않는다.
+ */
+public class MergeRateLimiter {
+
+    /**
+     * 최대속도에 곱할 비율. 1 이면 최대속도, 0 이면 최소속도.
+     */
+    public interface Backoff {
+        public double ratio();
+    }
+
+    private static final double MB = 1024 * 1024;
+    private static final long MIN_PAUSE_NS = 2000000L;
+    private static final long BACKOFF_CHECK_NS = 1000000000L;
+
+    private volatile double maxMBPerSec;
+    private volatile double minMBPerSec;
+    private volatile double currentMBPerSec;
+    private Backoff backoff;
+    private volatile long lastBackoffCheck;
+
+    private long nextNS;
+
+    private final AtomicLong totalBytes = new AtomicLong();
+    private final AtomicLong pausedNanos = new AtomicLong();
+
+    public MergeRateLimiter(double maxMBPerSec) {
+        this(maxMBPerSec, maxMBPerSec, null);
+    }
+
+    public MergeRateLimiter(double maxMBPerSec, double minMBPerSec, Backoff backoff) {
+        this.maxMBPerSec = maxMBPerSec;
+        this.minMBPerSec = Math.min(minMBPerSec, maxMBPerSec);
+        this.backoff = backoff;
+        this.currentMBPerSec = maxMBPerSec;
+        //처음 호출시 바로 backoff 를 확인한다.
+        lastBackoffCheck = System.nanoTime() - BACKOFF_CHECK_NS;
+    }
+
+    public void setMBPerSec(double maxMBPerSec, double minMBPerSec) {
+        this.maxMBPerSec = maxMBPerSec;
+        this.minMBPerSec = Math.min(minMBPerSec, maxMBPerSec);
+        this.currentMBPerSec = maxMBPerSec;
+    }
+
+    public double maxMBPerSec() {
+        return maxMBPerSec;
+    }
+
+    /**
+     * backoff 가 반영된 현재 제한속도. 0 이하이면 제한없음.
+     */
+    public double currentMBPerSec() {
+        if (maxMBPerSec <= 0) {
+            return 0;
+        }
+        if (backoff != null) {
+            long now = System.nanoTime();
+            if (now - lastBackoffCheck >= BACKOFF_CHECK_NS) {
+                lastBackoffCheck = now;
+                double ratio = Math.max(0, Math.min(1, backoff.ratio()));
+                currentMBPerSec = Math.max(minMBPerSec, maxMBPerSec * ratio);
+            }
+        }
+        return currentMBPerSec;
+    }
+
+    /**
+     * bytes 를 기록한 뒤 호출한다. 제한속도를 넘었으면 쉬고, 쉰 시간(ns)을 리턴한다.
+     */
+    public long pause(long bytes) throws InterruptedIOException {
+        totalBytes.addAndGet(bytes);
+        double mbPerSec = currentMBPerSec();
+        if (mbPerSec <= 0) {
+            return 0;
+        }
+        long costNS = (long) (bytes / (mbPerSec * MB) * 1000000000L);
+        long targetNS;
+        long now = System.nanoTime();
+        synchronized (this) {
+            //쉬고있던 시간은 쌓아두지 않는다.
+            if (nextNS < now) {
+                nextNS = now;
+            }
+            nextNS += costNS;
+            targetNS = nextNS;
+        }
+        long waitNS = targetNS - now;
+        if (waitNS < MIN_PAUSE_NS) {
+            return 0;
+        }
+        try {
+            Thread.sleep(waitNS / 1000000L, (int) (waitNS % 1000000L));
+        } catch (InterruptedException e) {
+            throw new InterruptedIOException("merge interrupted while throttling");
+        }
+        pausedNanos.addAndGet(waitNS);
+        return waitNS;
+    }
+
+    public long totalBytes() {
+        return totalBytes.get();
+    }
+
+    public long pausedMillis() {
+        return pausedNanos.get() / 1000000L;
+    }
+}
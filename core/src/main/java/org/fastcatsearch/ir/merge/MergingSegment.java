@@ -0,0 +1,99 @@
+package org.fastcatsearch.ir.merge;
+
+import org.fastcatsearch.ir.common.IndexFileNames;
+import org.fastcatsearch.ir.document.DocumentBlockReader;
+import org.fastcatsearch.ir.io.BitSet;
+import org.fastcatsearch.ir.io.BufferedFileInput;
+import org.fastcatsearch.ir.io.IndexInput;
+import org.fastcatsearch.ir.util.DocumentNumberConverter;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * 머징대상 세그먼트의 문서번호 정보.
+ * 머징된 세그먼트에서는 앞 세그먼트들의 살아있는 문서 다음으로 삭제문서를 제외한 순차번호를 받는다.
+ * SearchPostingReader, DocumentMerger 와 같은 순서로 번호를 부여한다.
+ * 색인정렬시에는 IndexSortOrder 가 설정한 문서번호 맵을 따른다.
+ */
+class MergingSegment {
+
+    private File dir;
+    private int documentCount;
+    private int aliveDocumentCount;
+    private int baseDocNo;
+    private BitSet deleteSet;
+    private DocumentNumberConverter converter;
+    private int[] docMap; //색인정렬시 원래 문서번호 -> 새 문서번호. 삭제문서는 -1.
+
+    private MergingSegment(File dir, int baseDocNo) throws IOException {
+        this.dir = dir;
+        this.baseDocNo = baseDocNo;
+        IndexInput docInput = new BufferedFileInput(dir, IndexFileNames.docStored);
+        try {
+            documentCount = DocumentBlockReader.readDocumentCount(docInput);
+        } finally {
+            docInput.close();
+        }
+        deleteSet = new BitSet(dir, IndexFileNames.docDeleteSet);
+        int[] deleteIdList = new int[documentCount];
+        int deleteCount = 0;
+        for (int docNo = 0; docNo < documentCount; docNo++) {
+            if (deleteSet.isSet(docNo)) {
+                deleteIdList[deleteCount++] = docNo;
+            }
+        }
+        int[] list = new int[deleteCount];
+        System.arraycopy(deleteIdList, 0, list, 0, deleteCount);
+        converter = new DocumentNumberConverter(list);
+        aliveDocumentCount = documentCount - deleteCount;
+    }
+
+    public static MergingSegment[] open(File... dirs) throws IOException {
+        MergingSegment[] segments = new MergingSegment[dirs.length];
+        int baseDocNo = 0;
+        for (int i = 0; i < dirs.length; i++) {
+            segments[i] = new MergingSegment(dirs[i], baseDocNo);
+            baseDocNo += segments[i].aliveDocumentCount;
+        }
+        return segments;
+    }
+
+    public File dir() {
+        return dir;
+    }
+
+    public int documentCount() {
+        return documentCount;
+    }
+
+    public int aliveDocumentCount() {
+        return aliveDocumentCount;
+    }
+
+    void setDocMap(int[] docMap) {
+        this.docMap = docMap;
+    }
+
+    public int[] docMap() {
+        return docMap;
+    }
+
+    public boolean isAlive(int docNo) {
+        return !deleteSet.isSet(docNo);
+    }
+
+    /**
+     * 머징된 세그먼트에서의 문서번호. 삭제된 문서이면 -1.
+     */
+    public int newDocNo(int docNo) {
+        if (docMap != null) {
+            return docMap[docNo];
+        }
+        int localDocNo = converter.convert(docNo);
+        if (localDocNo < 0) {
+            return -1;
+        }
+        return baseDocNo + localDocNo;
+    }
+}
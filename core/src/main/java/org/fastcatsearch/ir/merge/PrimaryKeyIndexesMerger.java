@@ -0,0 +1,88 @@
+package org.fastcatsearch.ir.merge;
+
+import org.fastcatsearch.ir.common.IndexFileNames;
+import org.fastcatsearch.ir.config.IndexConfig;
+import org.fastcatsearch.ir.document.LargePrimaryKeyIndexWriter;
+import org.fastcatsearch.ir.document.PrimaryKeyBloomFilter;
+import org.fastcatsearch.ir.document.PrimaryKeyIndexBulkReader;
+import org.fastcatsearch.ir.io.BitSet;
+import org.fastcatsearch.ir.io.BytesBuffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * 세그먼트들의 pk맵을 머징된 문서번호로 다시 기록하고, 새 세그먼트의 삭제문서 리스트를 만든다.
+ * 삭제된 문서의 pk는 버리고, 살아있는 문서간 pk가 중복되면 뒤 세그먼트의 문서를 남기고 앞 문서를 삭제처리한다.
+ */
+public class PrimaryKeyIndexesMerger {
+    private static Logger logger = LoggerFactory.getLogger(PrimaryKeyIndexesMerger.class);
+
+    private static final int MEMORY_LIMIT = 64 * 1024 * 1024;
+    private static final int CHECK_COUNT = 100000;
+
+    private File dir;
+    private IndexConfig indexConfig;
+    private int deleteCount;
+
+    public PrimaryKeyIndexesMerger(File dir, IndexConfig indexConfig) {
+        this.dir = dir;
+        this.indexConfig = indexConfig;
+    }
+
+    public void merge(MergingSegment[] segments) throws IOException {
+        BitSet deleteSet = new BitSet(dir, IndexFileNames.docDeleteSet, true);
+        LargePrimaryKeyIndexWriter indexWriter = null;
+        try {
+            BytesBuffer buf = new BytesBuffer(1024);
+            int count = 0;
+            for (MergingSegment segment : segments) {
+                File pkFile = new File(segment.dir(), IndexFileNames.primaryKeyMap);
+                if (!pkFile.exists()) {
+                    continue;
+                }
+                if (indexWriter == null) {
+                    indexWriter = new LargePrimaryKeyIndexWriter(dir, IndexFileNames.primaryKeyMap, indexConfig.getPkTermInterval(), indexConfig.getPkBucketSize());
+                }
+                PrimaryKeyIndexBulkReader pkBulkReader = new PrimaryKeyIndexBulkReader(pkFile);
+                try {
+                    int docNo = -1;
+                    while ((docNo = pkBulkReader.next(buf)) != -1) {
+                        int newDocNo = segment.newDocNo(docNo);
+                        if (newDocNo >= 0) {
+                            int preDocNo = indexWriter.put(buf.bytes, buf.offset, buf.remaining(), newDocNo);
+                            if (preDocNo >= 0) {
+                                deleteSet.set(preDocNo);
+                            }
+                            if (++count % CHECK_COUNT == 0 && indexWriter.checkWorkingMemorySize() > MEMORY_LIMIT) {
+                                indexWriter.flush();
+                            }
+                        }
+                        buf.clear();
+                    }
+                } finally {
+                    pkBulkReader.close();
+                }
+            }
+        } finally {
+            if (indexWriter != null) {
+                indexWriter.close();
+            }
+        }
+        if (indexWriter != null) {
+            PrimaryKeyBloomFilter.build(new File(dir, IndexFileNames.primaryKeyMap)).save(dir);
+        }
+        deleteSet.save();
+        deleteCount = deleteSet.getOnCount();
+        logger.debug("merge primary key delete[{}]", deleteCount);
+    }
+
+    /**
+     * 머징중 pk중복으로 삭제된 문서갯수.
+     */
+    public int getDeleteDocCount() {
+        return deleteCount;
+    }
+}
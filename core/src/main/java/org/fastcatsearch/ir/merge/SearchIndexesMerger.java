@@ -1,7 +1,55 @@
 package org.fastcatsearch.ir.merge;
 
+import org.fastcatsearch.ir.config.IndexConfig;
+import org.fastcatsearch.ir.index.SearchIndexMerger;
+import org.fastcatsearch.ir.settings.IndexSetting;
+import org.fastcatsearch.ir.settings.Schema;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
 /**
- * Created by swsong on 2015. 11. 16..
+ * 스키마의 모든 검색색인을 포스팅단위로 머징한다. 문서를 다시 분석하지 않는다.
  */
 public class SearchIndexesMerger {
+    private static Logger logger = LoggerFactory.getLogger(SearchIndexesMerger.class);
+
+    private Schema schema;
+    private File dir;
+    private int indexInterval;
+
+    public SearchIndexesMerger(Schema schema, File dir, IndexConfig indexConfig) {
+        this.schema = schema;
+        this.dir = dir;
+        this.indexInterval = indexConfig.getIndexTermInterval();
+    }
+
+    public void merge(File... dirs) throws IOException {
+        merge(dirs, null);
+    }
+
+    /**
+     * @param docMaps 색인정렬시 세그먼트별 원래 문서번호 -> 새 문서번호 맵. null 이면 세그먼트 순서대로 이어붙인다.
+     */
+    public void merge(File[] dirs, int[][] docMaps) throws IOException {
+        List<IndexSetting> indexSettingList = schema.schemaSetting().getIndexSettingList();
+        if (indexSettingList == null) {
+            return;
+        }
+        for (IndexSetting indexSetting : indexSettingList) {
+            String indexId = indexSetting.getId();
+            long st = System.currentTimeMillis();
+            SearchIndexMerger searchIndexMerger = new SearchIndexMerger(indexId, dir, indexInterval);
+            try {
+                searchIndexMerger.setDocMaps(docMaps);
+                searchIndexMerger.merge(dirs);
+            } finally {
+                searchIndexMerger.close();
+            }
+            logger.debug("merge search index [{}] elapsed[{}ms]", indexId, System.currentTimeMillis() - st);
+        }
+    }
 }
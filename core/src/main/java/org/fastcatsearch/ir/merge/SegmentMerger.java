@@ -1,57 +1,304 @@
 package org.fastcatsearch.ir.merge;
 
+import org.fastcatsearch.ir.common.IRException;
+import org.fastcatsearch.ir.common.IndexFileNames;
 import org.fastcatsearch.ir.config.DataInfo;
-import org.fastcatsearch.ir.index.SearchIndexMerger;
-import org.fastcatsearch.ir.search.SegmentReader;
-import org.fastcatsearch.ir.settings.Schema;
+import org.fastcatsearch.ir.config.IndexConfig;
 import org.fastcatsearch.ir.document.DocumentMerger;
+import org.fastcatsearch.ir.index.SegmentIndexSettings;
+import org.fastcatsearch.ir.query.Sort;
+import org.fastcatsearch.ir.settings.FieldIndexSetting;
+import org.fastcatsearch.ir.settings.GroupIndexSetting;
+import org.fastcatsearch.ir.settings.IndexSetting;
+import org.fastcatsearch.ir.settings.Schema;
+import org.fastcatsearch.ir.util.Formatter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
- * Created by swsong on 2015. 11. 16..
+ * 세그먼트들을 문서 재분석 없이 하나로 합친다.
+ * 문서, 검색색인 포스팅, 필드색인, 그룹색인, pk맵을 각각 파일단위로 머징하며 삭제문서는 제외된다.
+ * 문서번호는 세그먼트 순서대로 살아있는 문서에 순차부여한다.(MergingSegment 참조)
+ * IndexConfig 에 색인정렬(index-sort)이 있으면 정렬필드 순서로 문서번호를 다시 부여한다.(IndexSortOrder 참조)
+ *
+ * 스키마가 바뀌어 색인파일이 없거나 필드색인, 그룹색인 설정이 달라진 세그먼트는 머징할수 없으므로 canMerge()로 먼저 확인해야 한다.
+ *
+ * 색인종류별 머징은 서로 다른 파일을 기록하므로 executor 가 설정되면 병렬로 수행한다. 없으면 현재 쓰레드에서 차례로 수행한다.
+ * rate limiter 가 설정되면 머징단계에서 기록하는 파일의 쓰기속도를 제한한다.(MergeProgress 참조)
  */
 public class SegmentMerger {
+    private static Logger logger = LoggerFactory.getLogger(SegmentMerger.class);
+
+    private Schema schema;
     private File newSegmentDir;
+    private DataInfo.SegmentInfo segmentInfo;
+    private IndexConfig indexConfig;
+    private ExecutorService executor;
+    private MergeRateLimiter rateLimiter;
+    private MergeProgress progress;
+    //병렬 머징중 한 단계라도 실패하면 true. 아직 시작하지 않은 단계를 건너뛴다.
+    private volatile boolean failed;
 
-    public SegmentMerger(File dir) {
+    public SegmentMerger(Schema schema, File dir, DataInfo.SegmentInfo segmentInfo, IndexConfig indexConfig) {
+        this.schema = schema;
         this.newSegmentDir = dir;
+        this.segmentInfo = segmentInfo;
+        this.indexConfig = indexConfig;
+        this.progress = new MergeProgress(segmentInfo.getId());
+    }
 
+    public void setExecutor(ExecutorService executor) {
+        this.executor = executor;
     }
 
-    public DataInfo.SegmentInfo merge(File... dirs) throws IOException {
-        DocumentMerger documentMerger = null;
+    public void setRateLimiter(MergeRateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
 
-        try {
-            documentMerger = new DocumentMerger(newSegmentDir);
-            documentMerger.merge(dirs);
-        } finally {
-            if(documentMerger != null) {
-                documentMerger.close();
+    public MergeProgress progress() {
+        return progress;
+    }
+
+    /**
+     * 현재 스키마의 색인파일이 모든 세그먼트에 존재하고, 필드색인과 그룹색인이 현재 스키마와 같은 설정으로 기록되었는지 확인한다.
+     * 필드색인은 현재 스키마의 길이로 byte를 그대로 복사하므로 설정이 다르면 다시 색인해야 한다.
+     */
+    public static boolean canMerge(Schema schema, File... dirs) {
+        List<String> fileNames = requiredFileNames(schema);
+        for (File dir : dirs) {
+            for (String fileName : fileNames) {
+                if (!new File(dir, fileName).exists()) {
+                    logger.info("Cannot merge segment {}. {} not found.", dir.getAbsolutePath(), fileName);
+                    return false;
+                }
+            }
+            if (!SegmentIndexSettings.matches(dir, schema)) {
+                logger.info("Cannot merge segment {}. Field or group index settings are changed.", dir.getAbsolutePath());
+                return false;
             }
         }
+        return true;
+    }
 
-        //TODO search index 필드만큼 loop를 돈다
-        String indexId = "productname";
-        int indexInterval = 128;
-        SearchIndexMerger searchIndexMerger = null;
-        try {
-            searchIndexMerger = new SearchIndexMerger(indexId, newSegmentDir, indexInterval);
-            searchIndexMerger.merge(dirs);
-        }finally {
-            if(searchIndexMerger != null) {
-                searchIndexMerger.close();
+    private static List<String> requiredFileNames(Schema schema) {
+        List<String> list = new ArrayList<String>();
+        list.add(IndexFileNames.docStored);
+        list.add(IndexFileNames.docPosition);
+        list.add(IndexFileNames.docDeleteSet);
+        List<IndexSetting> indexSettingList = schema.schemaSetting().getIndexSettingList();
+        if (indexSettingList != null) {
+            for (IndexSetting setting : indexSettingList) {
+                list.add(IndexFileNames.getSearchLexiconFileName(setting.getId()));
+                list.add(IndexFileNames.getSearchPostingFileName(setting.getId()));
             }
         }
+        List<FieldIndexSetting> fieldIndexSettingList = schema.schemaSetting().getFieldIndexSettingList();
+        if (fieldIndexSettingList != null) {
+            for (FieldIndexSetting setting : fieldIndexSettingList) {
+                list.add(IndexFileNames.getFieldIndexFileName(setting.getId()));
+            }
+        }
+        List<GroupIndexSetting> groupIndexSettingList = schema.schemaSetting().getGroupIndexSettingList();
+        if (groupIndexSettingList != null) {
+            for (GroupIndexSetting setting : groupIndexSettingList) {
+                list.add(IndexFileNames.getGroupIndexFileName(setting.getId()));
+                list.add(IndexFileNames.getGroupKeyFileName(setting.getId()));
+            }
+        }
+        return list;
+    }
+
+    public DataInfo.SegmentInfo merge(File... dirs) throws IOException, IRException {
+        long st = System.currentTimeMillis();
+        newSegmentDir.mkdirs();
+        MergingSegment[] segments = MergingSegment.open(dirs);
+        int documentCount = 0;
+        for (MergingSegment segment : segments) {
+            documentCount += segment.aliveDocumentCount();
+        }
 
+        Sort indexSort = IndexSortOrder.indexSort(schema, indexConfig.getIndexSort());
+        IndexSortOrder order = null;
+        int[][] docMaps = null;
+        if (indexSort != null) {
+            order = IndexSortOrder.sort(schema, indexSort, segments);
+            docMaps = new int[segments.length][];
+            for (int i = 0; i < segments.length; i++) {
+                docMaps[i] = segments[i].docMap();
+            }
+        }
 
+        final File[] segmentDirs = dirs;
+        final MergingSegment[] mergingSegments = segments;
+        final IndexSortOrder sortOrder = order;
+        final int[][] segmentDocMaps = docMaps;
+        final PrimaryKeyIndexesMerger primaryKeyIndexesMerger = new PrimaryKeyIndexesMerger(newSegmentDir, indexConfig);
+        List<MergeStep> steps = new ArrayList<MergeStep>();
+        steps.add(new MergeStep("document") {
+            @Override
+            protected void merge() throws IOException, IRException {
+                DocumentMerger documentMerger = new DocumentMerger(newSegmentDir);
+                try {
+                    if (sortOrder != null) {
+                        documentMerger.merge(segmentDirs, sortOrder.segmentList(), sortOrder.docNoList());
+                    } else {
+                        documentMerger.merge(segmentDirs);
+                    }
+                } finally {
+                    documentMerger.close();
+                }
+            }
+        });
+        steps.add(new MergeStep("search-index") {
+            @Override
+            protected void merge() throws IOException, IRException {
+                new SearchIndexesMerger(schema, newSegmentDir, indexConfig).merge(segmentDirs, segmentDocMaps);
+            }
+        });
+        steps.add(new MergeStep("field-index") {
+            @Override
+            protected void merge() throws IOException, IRException {
+                new FieldIndexesMerger(schema, newSegmentDir).merge(mergingSegments, sortOrder);
+            }
+        });
+        steps.add(new MergeStep("group-index") {
+            @Override
+            protected void merge() throws IOException, IRException {
+                new GroupIndexesMerger(schema, newSegmentDir, indexConfig).merge(mergingSegments, sortOrder);
+            }
+        });
+        steps.add(new MergeStep("term-offset") {
+            @Override
+            protected void merge() throws IOException, IRException {
+                new TermOffsetsMerger(schema, newSegmentDir).merge(mergingSegments, sortOrder);
+            }
+        });
+        steps.add(new MergeStep("primary-key") {
+            @Override
+            protected void merge() throws IOException, IRException {
+                primaryKeyIndexesMerger.merge(mergingSegments);
+            }
+        });
+        progress.start(documentCount, steps.size(), rateLimiter);
+        try {
+            runSteps(steps);
+        } finally {
+            progress.finish();
+        }
+        SegmentIndexSettings.write(newSegmentDir, schema, null);
 
+        segmentInfo.setDocumentCount(documentCount);
+        segmentInfo.setDeleteCount(primaryKeyIndexesMerger.getDeleteDocCount());
+        segmentInfo.setIndexSort(indexSort != null ? indexSort.toIndexSortString() : null);
+        logger.info("Segment [{}] merged from {} segments, documents[{}] deletes[{}] sort[{}] written[{}] paused[{}] elapsed[{}]", segmentInfo.getId(), dirs.length, documentCount,
+                segmentInfo.getDeleteCount(), segmentInfo.getIndexSort(), Formatter.getFormatSize(progress.bytesWritten()),
+                Formatter.getFormatTime(progress.pausedMillis()), Formatter.getFormatTime(System.currentTimeMillis() - st));
+        return segmentInfo;
+    }
 
-        return null;
+    private void runSteps(List<MergeStep> steps) throws IOException, IRException {
+        if (executor == null) {
+            for (MergeStep step : steps) {
+                step.call();
+            }
+            return;
+        }
+        List<Future<Void>> futures = new ArrayList<Future<Void>>(steps.size());
+        Throwable error = null;
+        for (MergeStep step : steps) {
+            //종료된 pool 에 넣으면 CallerRunsPolicy 가 작업을 버리므로 future 가 끝나지 않는다.
+            if (executor.isShutdown()) {
+                error = new IRException("Merge executor is shut down.");
+                break;
+            }
+            try {
+                futures.add(executor.submit(step));
+            } catch (RejectedExecutionException e) {
+                error = e;
+                break;
+            }
+        }
+        if (error != null) {
+            failed = true;
+        }
+        //실패해도 실행중인 단계는 취소하지 않는다. 아직 시작하지 않은 단계는 failed 를 보고 바로 끝나므로,
+        //모든 단계가 멈출때까지 기다린뒤 에러를 던진다. 그래야 호출자가 세그먼트 디렉토리를 지울때 기록중인 파일이 없다.
+        boolean interrupted = false;
+        for (Future<Void> future : futures) {
+            while (true) {
+                try {
+                    future.get();
+                    break;
+                } catch (ExecutionException e) {
+                    failed = true;
+                    if (error == null) {
+                        error = e.getCause();
+                    }
+                    break;
+                } catch (InterruptedException e) {
+                    failed = true;
+                    interrupted = true;
+                    if (error == null) {
+                        error = e;
+                    }
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (error != null) {
+            if (error instanceof IOException) {
+                throw (IOException) error;
+            } else if (error instanceof IRException) {
+                throw (IRException) error;
+            }
+            throw new IRException(error);
+        }
     }
 
-    public void close() {
+    /**
+     * 색인종류 하나의 머징. 수행 쓰레드에 MergeProgress 를 bind 한다.
+     */
+    private abstract class MergeStep implements Callable<Void> {
+        private String name;
 
+        MergeStep(String name) {
+            this.name = name;
+        }
+
+        protected abstract void merge() throws IOException, IRException;
+
+        @Override
+        public Void call() throws IOException, IRException {
+            if (failed) {
+                //다른 단계가 실패했으면 시작하지 않는다.
+                return null;
+            }
+            long st = System.currentTimeMillis();
+            progress.startStep(name);
+            boolean done = false;
+            try {
+                merge();
+                done = true;
+            } finally {
+                if (!done) {
+                    failed = true;
+                }
+                progress.finishStep(name);
+            }
+            logger.debug("Segment [{}] merge step [{}] elapsed[{}]", segmentInfo.getId(), name, Formatter.getFormatTime(System.currentTimeMillis() - st));
+            return null;
+        }
     }
 }
@@ -0,0 +1,111 @@
+package org.fastcatsearch.ir.merge;
+
+import org.fastcatsearch.ir.common.IndexFileNames;
+import org.fastcatsearch.ir.io.BufferedFileInput;
+import org.fastcatsearch.ir.io.BufferedFileOutput;
+import org.fastcatsearch.ir.io.IOUtil;
+import org.fastcatsearch.ir.io.IndexInput;
+import org.fastcatsearch.ir.io.IndexOutput;
+import org.fastcatsearch.ir.settings.IndexSetting;
+import org.fastcatsearch.ir.settings.Schema;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * storeOffset 검색색인의 텀 오프셋 파일을 살아있는 문서만 이어붙인다. 문서별 엔트리는 문서번호와 무관하므로 분석없이 그대로 복사하고 위치만 다시 기록한다.
+ * 색인정렬시에는 IndexSortOrder 순서로 복사한다. 오프셋 파일이 없는 세그먼트의 문서는 -1 로 기록되어 하이라이팅시 본문을 분석한다.
+ */
+public class TermOffsetsMerger {
+    private static Logger logger = LoggerFactory.getLogger(TermOffsetsMerger.class);
+
+    private Schema schema;
+    private File dir;
+
+    public TermOffsetsMerger(Schema schema, File dir) {
+        this.schema = schema;
+        this.dir = dir;
+    }
+
+    public void merge(MergingSegment[] segments, IndexSortOrder order) throws IOException {
+        List<IndexSetting> indexSettingList = schema.schemaSetting().getIndexSettingList();
+        if (indexSettingList == null) {
+            return;
+        }
+        for (IndexSetting indexSetting : indexSettingList) {
+            if (indexSetting.isStoreOffset()) {
+                merge(indexSetting.getId(), segments, order);
+            }
+        }
+    }
+
+    private void merge(String id, MergingSegment[] segments, IndexSortOrder order) throws IOException {
+        String fileName = IndexFileNames.getSearchOffsetFileName(id);
+        String positionFileName = IndexFileNames.getPositionFileName(fileName);
+        IndexInput[] inputs = new IndexInput[segments.length];
+        IndexInput[] positionInputs = new IndexInput[segments.length];
+        IndexOutput output = new BufferedFileOutput(dir, fileName);
+        IndexOutput positionOutput = new BufferedFileOutput(dir, positionFileName);
+        byte[] buffer = new byte[1024];
+        try {
+            for (int i = 0; i < segments.length; i++) {
+                File dataFile = new File(segments[i].dir(), fileName);
+                File positionFile = new File(segments[i].dir(), positionFileName);
+                if (dataFile.exists() && positionFile.exists()) {
+                    inputs[i] = new BufferedFileInput(dataFile);
+                    positionInputs[i] = new BufferedFileInput(positionFile);
+                }
+            }
+            if (order != null) {
+                for (int newDocNo = 0; newDocNo < order.size(); newDocNo++) {
+                    buffer = copyEntry(inputs[order.segment(newDocNo)], positionInputs[order.segment(newDocNo)], order.docNo(newDocNo), output, positionOutput, buffer);
+                }
+            } else {
+                for (int i = 0; i < segments.length; i++) {
+                    MergingSegment segment = segments[i];
+                    for (int docNo = 0; docNo < segment.documentCount(); docNo++) {
+                        if (segment.isAlive(docNo)) {
+                            buffer = copyEntry(inputs[i], positionInputs[i], docNo, output, positionOutput, buffer);
+                        }
+                    }
+                }
+            }
+            logger.debug("merge term offsets [{}] size[{}]", id, output.position());
+        } finally {
+            for (int i = 0; i < segments.length; i++) {
+                if (inputs[i] != null) {
+                    inputs[i].close();
+                    positionInputs[i].close();
+                }
+            }
+            output.close();
+            positionOutput.close();
+        }
+    }
+
+    private byte[] copyEntry(IndexInput input, IndexInput positionInput, int docNo, IndexOutput output, IndexOutput positionOutput, byte[] buffer) throws IOException {
+        long ptr = -1;
+        long positionOffset = (long) docNo * IOUtil.SIZE_OF_LONG;
+        if (positionInput != null && positionOffset + IOUtil.SIZE_OF_LONG <= positionInput.length()) {
+            positionInput.seek(positionOffset);
+            ptr = positionInput.readLong();
+        }
+        if (ptr < 0) {
+            positionOutput.writeLong(-1L);
+            return buffer;
+        }
+        input.seek(ptr);
+        int length = input.readVInt();
+        if (buffer.length < length) {
+            buffer = new byte[length];
+        }
+        input.readBytes(buffer, 0, length);
+        positionOutput.writeLong(output.position());
+        output.writeVInt(length);
+        output.writeBytes(buffer, 0, length);
+        return buffer;
+    }
+}
@@ -0,0 +1,208 @@
+package org.fastcatsearch.ir.merge;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 세그먼트를 크기 단계(tier)로 나누어 단계마다 segmentsPerTier 개까지만 허용하는 머징정책.
+ *
+ * 가장 작은 세그먼트(floorSegmentBytes 이상)를 첫 단계 크기로 하고, 단계마다 maxMergeAtOnce 배씩 커진다고 보고 전체 크기에서 허용 세그먼트 갯수를 구한다.
+ * 세그먼트 갯수가 허용치를 넘으면 크기순으로 인접한 maxMergeAtOnce 개 이하의 후보묶음들 중 점수가 가장 낮은 묶음을 머징한다.
+ * 점수는 가장 큰 세그먼트가 차지하는 비율(skew)이 낮을수록, 정리되는 삭제문서가 많을수록 낮아서 적은 쓰기로 세그먼트 갯수를 줄이는 묶음이 먼저 선택된다.
+ *
+ * 머징결과가 maxMergedSegmentBytes 를 넘는 묶음은 만들지 않는다. 그 절반을 넘는 큰 세그먼트는 삭제비율이 deleteRatioAllowed 이상일때만 단독으로 머징하여 삭제문서를 정리한다.
+ * 동시에 진행하는 머징은 maxConcurrentMerges 개로 제한한다.
+ */
+public class TieredMergePolicy implements MergePolicy {
+    private static Logger logger = LoggerFactory.getLogger(TieredMergePolicy.class);
+
+    private static final long MB = 1024 * 1024;
+
+    private int segmentsPerTier = 10;
+    private int maxMergeAtOnce = 10;
+    private long maxMergedSegmentBytes = 5 * 1024 * MB;
+    private long floorSegmentBytes = 2 * MB;
+    private double deleteRatioAllowed = 0.4;
+    private double reclaimDeletesWeight = 2.0;
+    private int maxConcurrentMerges = 2;
+
+    public TieredMergePolicy setSegmentsPerTier(int segmentsPerTier) {
+        this.segmentsPerTier = Math.max(2, segmentsPerTier);
+        return this;
+    }
+
+    public TieredMergePolicy setMaxMergeAtOnce(int maxMergeAtOnce) {
+        this.maxMergeAtOnce = Math.max(2, maxMergeAtOnce);
+        return this;
+    }
+
+    public TieredMergePolicy setMaxMergedSegmentMB(long maxMergedSegmentMB) {
+        this.maxMergedSegmentBytes = maxMergedSegmentMB * MB;
+        return this;
+    }
+
+    public TieredMergePolicy setFloorSegmentMB(long floorSegmentMB) {
+        this.floorSegmentBytes = floorSegmentMB * MB;
+        return this;
+    }
+
+    public TieredMergePolicy setDeleteRatioAllowed(double deleteRatioAllowed) {
+        this.deleteRatioAllowed = deleteRatioAllowed;
+        return this;
+    }
+
+    public TieredMergePolicy setReclaimDeletesWeight(double reclaimDeletesWeight) {
+        this.reclaimDeletesWeight = reclaimDeletesWeight;
+        return this;
+    }
+
+    public TieredMergePolicy setMaxConcurrentMerges(int maxConcurrentMerges) {
+        this.maxConcurrentMerges = maxConcurrentMerges;
+        return this;
+    }
+
+    @Override
+    public List<Set<String>> findMerges(List<MergeCandidate> segments, int runningMergeCount) {
+        List<Set<String>> merges = new ArrayList<Set<String>>();
+        int slots = maxConcurrentMerges - runningMergeCount;
+        if (slots <= 0 || segments.size() == 0) {
+            return merges;
+        }
+
+        List<MergeCandidate> sorted = new ArrayList<MergeCandidate>(segments);
+        Collections.sort(sorted, new Comparator<MergeCandidate>() {
+            @Override
+            public int compare(MergeCandidate o1, MergeCandidate o2) {
+                long b1 = o1.liveBytes();
+                long b2 = o2.liveBytes();
+                return b1 > b2 ? -1 : (b1 < b2 ? 1 : 0);
+            }
+        });
+
+        List<MergeCandidate> eligible = new ArrayList<MergeCandidate>();
+        long totalBytes = 0;
+        long minBytes = Long.MAX_VALUE;
+        for (MergeCandidate candidate : sorted) {
+            long bytes = candidate.liveBytes();
+            if (bytes > maxMergedSegmentBytes / 2) {
+                //더 키울수 없는 세그먼트는 삭제문서가 많을때만 단독으로 머징한다.
+                if (candidate.deleteRatio() >= deleteRatioAllowed && merges.size() < slots) {
+                    Set<String> merge = new HashSet<String>();
+                    merge.add(candidate.segmentId());
+                    merges.add(merge);
+                    logger.debug("reclaim deletes {}", candidate);
+                }
+                continue;
+            }
+            eligible.add(candidate);
+            totalBytes += floorSize(bytes);
+            minBytes = Math.min(minBytes, floorSize(bytes));
+        }
+        if (eligible.size() == 0) {
+            return merges;
+        }
+
+        int allowedSegmentCount = allowedSegmentCount(totalBytes, minBytes);
+        while (merges.size() < slots && eligible.size() > allowedSegmentCount) {
+            List<MergeCandidate> best = null;
+            double bestScore = 0;
+            for (int start = 0; start <= eligible.size() - 2; start++) {
+                List<MergeCandidate> candidate = new ArrayList<MergeCandidate>();
+                long mergedBytes = 0;
+                boolean hitTooLarge = false;
+                for (int i = start; i < eligible.size() && candidate.size() < maxMergeAtOnce; i++) {
+                    MergeCandidate segment = eligible.get(i);
+                    if (mergedBytes + segment.liveBytes() > maxMergedSegmentBytes) {
+                        //더 작은 세그먼트로 남은 자리를 채운다.
+                        hitTooLarge = true;
+                        continue;
+                    }
+                    candidate.add(segment);
+                    mergedBytes += segment.liveBytes();
+                }
+                if (candidate.size() < 2) {
+                    continue;
+                }
+                double score = score(candidate, hitTooLarge);
+                if (best == null || score < bestScore) {
+                    best = candidate;
+                    bestScore = score;
+                }
+            }
+            if (best == null) {
+                break;
+            }
+            Set<String> merge = new HashSet<String>();
+            for (MergeCandidate segment : best) {
+                merge.add(segment.segmentId());
+            }
+            merges.add(merge);
+            eligible.removeAll(best);
+            logger.debug("tiered merge score[{}] allowed[{}] {}", bestScore, allowedSegmentCount, best);
+        }
+        return merges;
+    }
+
+    private long floorSize(long bytes) {
+        return Math.max(floorSegmentBytes, bytes);
+    }
+
+    /**
+     * 가장 작은 세그먼트 크기부터 단계별로 segmentsPerTier 개씩 허용했을때 전체 크기를 담는데 필요한 세그먼트 갯수.
+     */
+    protected int allowedSegmentCount(long totalBytes, long minBytes) {
+        long levelSize = minBytes;
+        long bytesLeft = totalBytes;
+        double allowed = 0;
+        while (true) {
+            double levelSegmentCount = (double) bytesLeft / levelSize;
+            if (levelSegmentCount < segmentsPerTier) {
+                allowed += Math.ceil(levelSegmentCount);
+                break;
+            }
+            allowed += segmentsPerTier;
+            bytesLeft -= segmentsPerTier * levelSize;
+            levelSize *= maxMergeAtOnce;
+        }
+        return Math.max((int) allowed, segmentsPerTier);
+    }
+
+    /**
+     * 낮을수록 좋은 머징. 크기가 고른 묶음, 결과가 작은 묶음, 삭제문서가 많은 묶음의 점수가 낮다.
+     */
+    protected double score(List<MergeCandidate> candidate, boolean hitTooLarge) {
+        long totalBeforeMerge = 0;
+        long totalAfterMerge = 0;
+        long totalAfterMergeFloored = 0;
+        for (MergeCandidate segment : candidate) {
+            totalBeforeMerge += segment.sizeInBytes();
+            totalAfterMerge += segment.liveBytes();
+            totalAfterMergeFloored += floorSize(segment.liveBytes());
+        }
+        double skew;
+        if (hitTooLarge) {
+            //최대크기에 걸린 묶음은 더 커질수 없으므로 고른 묶음으로 본다.
+            skew = 1.0 / maxMergeAtOnce;
+        } else {
+            //크기순으로 정렬되어 있으므로 첫번째가 가장 크다.
+            skew = (double) floorSize(candidate.get(0).liveBytes()) / totalAfterMergeFloored;
+        }
+        double score = skew * Math.pow(Math.max(totalAfterMerge, 1), 0.05);
+        double nonDeleteRatio = totalBeforeMerge > 0 ? (double) totalAfterMerge / totalBeforeMerge : 1.0;
+        score *= Math.pow(nonDeleteRatio, reclaimDeletesWeight);
+        return score;
+    }
+
+    @Override
+    public String toString() {
+        return "[TieredMergePolicy] segmentsPerTier[" + segmentsPerTier + "] maxMergeAtOnce[" + maxMergeAtOnce + "] maxMergedSegmentBytes[" + maxMergedSegmentBytes
+                + "] floorSegmentBytes[" + floorSegmentBytes + "] deleteRatioAllowed[" + deleteRatioAllowed + "] maxConcurrentMerges[" + maxConcurrentMerges + "]";
+    }
+}
@@ -23,6 +23,8 @@ import org.fastcatsearch.ir.filter.function.*;
 import org.fastcatsearch.ir.settings.FieldIndexSetting;
 import org.fastcatsearch.ir.settings.FieldSetting;
 
+import java.util.Arrays;
+
 public class Filter {
 
 	// filter function for bitwise calculation
@@ -193,6 +195,27 @@ public class Filter {
 		return function;
 	}
 
+	/**
+	 * 조건에 맞는 문서의 점수를 올려주는 필터인지 여부.
+	 */
+	public boolean isBoostFunction() {
+		return (function & (MATCH_BOOST | SECTION_BOOST | PREFIX_BOOST | SUFFIX_BOOST | EXCLUDE_BOOST | BOOST | GEO_RADIUS_BOOST)) != 0;
+	}
+
+	/**
+	 * 세그먼트별 필터결과 캐시의 키. 결과가 문서의 필드값에만 달려있는 필터만 캐시하며,
+	 * 점수를 바꾸는 boost 필터나 문서별 부가정보(거리, 매치순서)를 남기는 필터는 null 을 리턴한다.
+	 */
+	public String cacheKey() {
+		if ((function & (MATCH | SECTION | PREFIX | SUFFIX | EXCLUDE | EMPTY | SECTION_EXCLUDE)) == 0) {
+			return null;
+		}
+		if (!(fieldIndexId instanceof String) || functionParams != null) {
+			return null;
+		}
+		return function + "|" + fieldIndexId + "|" + Arrays.toString(functionParamList) + "|" + Arrays.toString(paramList) + "|" + Arrays.toString(endParamList);
+	}
+
 	public String param() {
 		return paramList[0];
 	}
@@ -23,6 +23,7 @@ import java.util.Map;
 
 import org.fastcatsearch.ir.common.IRException;
 import org.fastcatsearch.ir.search.FieldIndexesReader;
+import org.fastcatsearch.ir.search.FilterDocSetCache;
 import org.fastcatsearch.ir.settings.FieldSetting;
 import org.fastcatsearch.ir.settings.Schema;
 
@@ -55,8 +56,24 @@ public class Filters {
 	public List<Filter> getFilterList(){
 		return filterList;
 	}
+
+	/**
+	 * 점수를 바꾸는 필터가 있는지 여부. 있다면 검색절의 점수로 top K 여부를 판단할수 없다.
+	 */
+	public boolean hasBoostFunction(){
+		for(Filter filter : filterList){
+			if(filter.isBoostFunction()){
+				return true;
+			}
+		}
+		return false;
+	}
 	
 	public HitFilter getHitFilter(Schema schema, FieldIndexesReader fieldIndexesReader, int bulkSize) throws IOException, IRException {
 		return new HitFilter(filterList, schema, fieldIndexesReader, bulkSize);
 	}
+
+	public HitFilter getHitFilter(Schema schema, FieldIndexesReader fieldIndexesReader, int bulkSize, FilterDocSetCache filterDocSetCache) throws IOException, IRException {
+		return new HitFilter(filterList, schema, fieldIndexesReader, bulkSize, filterDocSetCache);
+	}
 }
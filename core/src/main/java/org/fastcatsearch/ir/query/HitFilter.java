@@ -17,16 +17,22 @@
 package org.fastcatsearch.ir.query;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
 import org.fastcatsearch.ir.common.IRException;
 import org.fastcatsearch.ir.filter.FilterException;
 import org.fastcatsearch.ir.filter.FilterFunction;
+import org.fastcatsearch.ir.filter.function.SectionFilter;
+import org.fastcatsearch.ir.io.BitSet;
 import org.fastcatsearch.ir.io.DataRef;
+import org.fastcatsearch.ir.io.RoaringDocSet;
 import org.fastcatsearch.ir.search.FieldIndexReader;
 import org.fastcatsearch.ir.search.FieldIndexesReader;
+import org.fastcatsearch.ir.search.FilterDocSetCache;
 import org.fastcatsearch.ir.search.IndexRef;
+import org.fastcatsearch.ir.search.PointIndexReader;
 import org.fastcatsearch.ir.settings.FieldIndexSetting;
 import org.fastcatsearch.ir.settings.FieldSetting;
 import org.fastcatsearch.ir.settings.Schema;
@@ -37,6 +43,8 @@ import org.slf4j.LoggerFactory;
 /**
  * match, section, suffix, prefix 네가지 기능을 제공하며,
  * 숫자형 필드는 suffix, prefix 매치를 제공하지 않는다.
+ * section 필터의 필드색인에 포인트색인이 있으면 세그먼트당 한번 범위의 문서집합을 만들고 문서별로는 bit만 확인한다.
+ * 세그먼트 필터캐시가 주어지면 점수와 무관한 필터는 캐시된 문서집합으로 확인하고, 필드색인 데이터는 남은 필터가 있을때만 읽는다.
  * */
 public class HitFilter {
 	
@@ -44,26 +52,32 @@ public class HitFilter {
 	
 	private Filter[] filterList;
 	private FilterFunction[] filterFunctions;
+	//포인트색인으로 미리 찾은 필터별 문서집합. 없으면 null이며 필드색인 데이터로 문서별 비교한다.
+	private BitSet[] pointDocSets;
+	//필터캐시에서 가져온 필터별 문서집합. 없으면 null.
+	private RoaringDocSet[] cachedDocSets;
+	//필터별 dataRefList 순번. 포인트색인이나 캐시를 사용하는 필터는 -1.
+	private int[] dataRefIndex;
+	private boolean hasDocSetFilter;
+	private boolean hasDataRefFilter;
 	
 	private IndexRef<FieldIndexReader> fieldIndexRef;
 	private List<DataRef> dataRefList;
 	
 	
 	public HitFilter(List<Filter> filterList, Schema schema, FieldIndexesReader fieldIndexesReader, int bulkSize) throws IOException, IRException {
+		this(filterList, schema, fieldIndexesReader, bulkSize, null);
+	}
+
+	public HitFilter(List<Filter> filterList, Schema schema, FieldIndexesReader fieldIndexesReader, int bulkSize, FilterDocSetCache filterDocSetCache) throws IOException, IRException {
 		int size = filterList.size();
 		this.filterList = new Filter[size];
 		filterFunctions = new FilterFunction[size];
+		pointDocSets = new BitSet[size];
+		cachedDocSets = new RoaringDocSet[size];
+		dataRefIndex = new int[size];
 		
-		Object[] fieldList = new Object[size];
-		int k = 0;
-		for (Filter filter : filterList) {
-			fieldList[k++] = filter.fieldIndexId();
-		}
-		//각 필드에대한 indexreader를 clone해서 dataRef와 연결시킨다.
-		fieldIndexRef = fieldIndexesReader.selectIndexRef(fieldList);
-		
-		dataRefList = fieldIndexRef.getDataRefList();
-		
+		List<Object> fieldList = new ArrayList<Object>(size);
 		for (int i = 0; i < size; i++) {
 			Filter filter = filterList.get(i);
 			this.filterList[i] = filter;
@@ -79,6 +93,10 @@ public class HitFilter {
                 String fieldId = fieldIndexSetting.getRef();
                 FieldSetting fieldSetting = schema.getFieldSetting(fieldId);
                 filterFunctions[i] = filter.createFilterFunction(fieldIndexSetting, fieldSetting);
+                pointDocSets[i] = pointDocSet(filterFunctions[i], fieldIndexesReader, (String) fieldIndexIdObject);
+                if (pointDocSets[i] == null && filterDocSetCache != null) {
+                    cachedDocSets[i] = cachedDocSet(filter, filterFunctions[i], fieldIndexesReader, filterDocSetCache);
+                }
             } else if(fieldIndexIdObject instanceof String[]) {
                 for(String fieldIndexId : (String[]) fieldIndexIdObject) {
                     fieldIndexSetting = schema.getFieldIndexSetting(fieldIndexId);
@@ -91,8 +109,80 @@ public class HitFilter {
                 filterFunctions[i] = filter.createFilterFunction(null, null);
             }
 
-			logger.debug("FilterFunction[{}] > {}", i, filterFunctions[i]);
+			if (pointDocSets[i] != null || cachedDocSets[i] != null) {
+				dataRefIndex[i] = -1;
+				hasDocSetFilter = true;
+			} else {
+				dataRefIndex[i] = fieldList.size();
+				fieldList.add(fieldIndexIdObject);
+				hasDataRefFilter = true;
+			}
+			logger.debug("FilterFunction[{}] > {} point[{}] cached[{}]", i, filterFunctions[i], pointDocSets[i] != null, cachedDocSets[i] != null);
 		}
+		//각 필드에대한 indexreader를 clone해서 dataRef와 연결시킨다.
+		fieldIndexRef = fieldIndexesReader.selectIndexRef(fieldList.toArray());
+		
+		dataRefList = fieldIndexRef.getDataRefList();
+	}
+
+	/**
+	 * 범위필터이고 필드색인에 포인트색인이 있으면 범위에 해당하는 문서집합을 미리 만든다.
+	 * */
+	private BitSet pointDocSet(FilterFunction filterFunction, FieldIndexesReader fieldIndexesReader, String fieldIndexId) throws IOException {
+		if (!(filterFunction instanceof SectionFilter)) {
+			return null;
+		}
+		long[][] ranges = ((SectionFilter) filterFunction).pointRanges();
+		if (ranges == null) {
+			return null;
+		}
+		PointIndexReader pointIndexReader = fieldIndexesReader.clonePointIndexReader(fieldIndexId);
+		if (pointIndexReader == null) {
+			return null;
+		}
+		try {
+			BitSet docSet = pointIndexReader.newDocSet();
+			for (int j = 0; j < ranges[0].length; j++) {
+				pointIndexReader.collect(ranges[0][j], ranges[1][j], docSet);
+			}
+			return docSet;
+		} finally {
+			pointIndexReader.close();
+		}
+	}
+
+	/**
+	 * 캐시에 있으면 그대로 사용하고, 없으면 반복해서 요청된 필터일때만 세그먼트의 살아있는 문서 전체를 확인하여 만든다.
+	 * */
+	private RoaringDocSet cachedDocSet(Filter filter, FilterFunction filterFunction, FieldIndexesReader fieldIndexesReader, FilterDocSetCache filterDocSetCache) throws IOException, FilterException {
+		String key = filter.cacheKey();
+		if (key == null) {
+			return null;
+		}
+		RoaringDocSet docSet = filterDocSetCache.get(key);
+		if (docSet != null || !filterDocSetCache.admit(key)) {
+			return docSet;
+		}
+		int generation = filterDocSetCache.generation();
+		BitSet deleteSet = filterDocSetCache.deleteSet();
+		int documentCount = filterDocSetCache.documentCount();
+		IndexRef<FieldIndexReader> indexRef = fieldIndexesReader.selectIndexRef(new Object[] { filter.fieldIndexId() });
+		DataRef dataRef = indexRef.getDataRef(0);
+		RankInfo rankInfo = new RankInfo();
+		docSet = new RoaringDocSet(documentCount);
+		for (int docNo = 0; docNo < documentCount; docNo++) {
+			if (deleteSet != null && deleteSet.isSet(docNo)) {
+				continue;
+			}
+			indexRef.read(docNo);
+			rankInfo.init(docNo, 0);
+			if (filterFunction.filtering(rankInfo, dataRef)) {
+				docSet.add(docNo);
+			}
+		}
+		docSet.trim();
+		filterDocSetCache.put(key, docSet, generation);
+		return docSet;
 	}
 
 	private void checkFieldIndexId(Schema schema, String fieldIndexId) throws IRException {
@@ -107,6 +197,14 @@ public class HitFilter {
 			return 0;
 		}
 		
+		//문서집합으로 확인가능한 필터로 먼저 걸러내어 필드색인 데이터를 읽을 문서를 줄인다.
+		if (hasDocSetFilter) {
+			nread = filteringDocSet(rankInfoList, nread);
+		}
+		if (!hasDataRefFilter) {
+			return nread;
+		}
+		
 		int count = 0;
 		for (int k = 0; k < nread; k++) {
 			
@@ -119,9 +217,12 @@ public class HitFilter {
 			boolean isInclude = true;
 			
 			for (int i = 0; i < filterFunctions.length; i++) {
-				DataRef dataRef = dataRefList.get(i);
+				if (dataRefIndex[i] < 0) {
+					continue;
+				}
+				boolean isMatched = filterFunctions[i].filtering(rankInfo, dataRefList.get(dataRefIndex[i]));
 				//이미 제외된 거라면 더이상 확인하지 않는다.
-				if(filterFunctions[i].filtering(rankInfo, dataRef)){
+				if(isMatched){
 					//부합한다면 다음조건으로 계속진행한다. 
 					//필터조건끼리는 AND관계이므로 모든 조건이 부합할때까지는 아직 break하면 안된다.
 				}else{
@@ -140,4 +241,27 @@ public class HitFilter {
 		
 		return count;
 	}
+
+	private int filteringDocSet(RankInfo[] rankInfoList, int nread) {
+		int count = 0;
+		for (int k = 0; k < nread; k++) {
+			RankInfo rankInfo = rankInfoList[k];
+			int docNo = rankInfo.docNo();
+			boolean isInclude = true;
+			for (int i = 0; i < filterFunctions.length; i++) {
+				if (pointDocSets[i] != null) {
+					isInclude = pointDocSets[i].isSet(docNo);
+				} else if (cachedDocSets[i] != null) {
+					isInclude = cachedDocSets[i].contains(docNo);
+				}
+				if (!isInclude) {
+					break;
+				}
+			}
+			if (isInclude) {
+				rankInfoList[count++] = rankInfo;
+			}
+		}
+		return count;
+	}
 }
@@ -120,6 +120,10 @@ public class Metadata {
         if (value.contains("nounicode")) {
             option |= Query.SEARCH_OPT_NOUNICODE;
         }
+
+        if (value.contains("exactcount")) {
+            option |= Query.SEARCH_OPT_EXACT_COUNT;
+        }
 	}
 	public boolean isSearchOption(int value){
 		return (option & value) > 0;
@@ -41,6 +41,8 @@ public class Query {
 	public static int SEARCH_OPT_EXPLAIN = 1 << 1;
     public static int SEARCH_OPT_LOWERCASE = 1 << 2;
     public static int SEARCH_OPT_NOUNICODE = 1 << 3;
+    //점수정렬시 top K에 들어갈수 없는 문서를 건너뛰지 않고 모두 읽어 정확한 결과갯수를 구한다.
+    public static int SEARCH_OPT_EXACT_COUNT = 1 << 4;
 
 	public static enum EL {
 		cn, sd, ht, sn, ln, so, ud, fl, se, ft, gr, gf, ra, sp, qm, rm, bd;
@@ -195,6 +195,21 @@ public class RankInfo {
 		}
 	}
 
+	/**
+	 * 검색결과 수집시 RankInfo 를 다음 문서에 재사용하기 전에 호출한다.
+	 * 설명 리스트는 HitElement 로 넘어갔을수 있으므로 비우지 않고 버린다.
+	 */
+	public void recycle() {
+		docNo = -1;
+		score = 0;
+		hit = 0;
+		matchFlag = 0;
+		distance = 0;
+		filterMatchOrder = 0;
+		rowExplanations = null;
+		clearOccurrence();
+	}
+
     public void addTermOccurrences(TermOccurrences termOccurs) {
         if(termOccurrencesList == null) {
             termOccurrencesList = new ArrayList<TermOccurrences>();
@@ -38,16 +38,38 @@ public class Sort {
 		this.isSuffle = shuffle;
 	}
 	
+	/**
+	 * 색인정렬 설정값 "필드색인아이디[:asc|desc]" 을 읽는다. 정렬방식이 없으면 asc 이다.
+	 * */
+	public static Sort parse(String value) {
+		if (value == null || value.trim().length() == 0) {
+			return null;
+		}
+		String[] list = value.trim().split(":");
+		boolean asc = list.length < 2 || !list[1].trim().equalsIgnoreCase("desc");
+		return new Sort(list[0].trim(), asc);
+	}
+	
 	public String toString(){
 		return fieldIndexId+":"+asc;
 	}
 	
+	/**
+	 * 색인정렬 설정값 형식. 세그먼트정보에 기록되어 검색시 정렬조건과 비교된다.
+	 * */
+	public String toIndexSortString() {
+		return fieldIndexId + (asc ? ":asc" : ":desc");
+	}
+	
 	public String fieldIndexId(){
 		return fieldIndexId;
 	}
 	public boolean asc(){
 		return asc;
 	}
+	public boolean isShuffle(){
+		return isSuffle;
+	}
 	public SortFunction createSortFunction(FieldSetting fieldSetting) {
 		if(fieldSetting.isNumericField()){
 			//데이터가 int, long등의 숫자형일 경우 byte[] 의 비교방식이 달라진다.
@@ -20,6 +20,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.fastcatsearch.ir.field.ScoreField;
 import org.fastcatsearch.ir.search.BundleSortGenerator;
 import org.fastcatsearch.ir.search.FieldIndexesReader;
 import org.fastcatsearch.ir.search.HitMerger;
@@ -57,6 +58,28 @@ public class Sorts {
 		return sortList;
 	}
 	
+	/**
+	 * 첫 정렬조건이 점수 내림차순인지 여부. 이 경우 점수가 top K의 마지막 점수보다 작은 문서는 결과에 들어갈수 없다.
+	 */
+	public boolean isScoreDescFirst(){
+		if(sortList.size() == 0){
+			return false;
+		}
+		Sort sort = sortList.get(0);
+		return sort.fieldIndexId().equalsIgnoreCase(ScoreField.fieldName) && !sort.asc();
+	}
+	
+	/**
+	 * 첫 정렬조건이 세그먼트의 색인정렬과 같은지 여부. 이 경우 문서번호 순서가 곧 정렬순서이므로 앞쪽 문서만 보아도 된다.
+	 */
+	public boolean isIndexSortFirst(String indexSort){
+		if(indexSort == null || sortList.size() == 0){
+			return false;
+		}
+		Sort sort = sortList.get(0);
+		return !sort.isShuffle() && sort.toIndexSortString().equals(indexSort);
+	}
+	
 	public SortGenerator getSortGenerator(Schema schema, FieldIndexesReader fieldIndexesReader, Bundle bundle) throws IOException {
 		if(bundle == null) {
 			return new SortGenerator(sortList, schema, fieldIndexesReader);
@@ -2,6 +2,8 @@ package org.fastcatsearch.ir.search;
 
 import org.fastcatsearch.ir.io.CharVector;
 
+import java.io.IOException;
+
 public abstract class AbstractPostingReader implements PostingReader {
 
 	protected CharVector term;
@@ -16,6 +18,20 @@ public abstract class AbstractPostingReader implements PostingReader {
 		this.documentCount = documentCount;
 	}
 
+	/**
+	 * skip 정보가 없는 경우 순차로 읽어서 찾는다.
+	 */
+	@Override
+	public PostingDoc advance(int docNo) throws IOException {
+		while (hasNext()) {
+			PostingDoc postingDoc = next();
+			if (postingDoc.docNo() >= docNo) {
+				return postingDoc;
+			}
+		}
+		return null;
+	}
+
 	@Override
 	public int weight() {
 		return weight;
@@ -36,4 +52,9 @@ public abstract class AbstractPostingReader implements PostingReader {
 		return documentCount;
 	}
 
+	@Override
+	public int maxTf() {
+		return -1;
+	}
+
 }
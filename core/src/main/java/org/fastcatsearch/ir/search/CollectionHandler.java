@@ -12,6 +12,7 @@ import org.fastcatsearch.ir.common.SettingException;
 import org.fastcatsearch.ir.config.CollectionContext;
 import org.fastcatsearch.ir.config.DataInfo;
 import org.fastcatsearch.ir.config.DataInfo.SegmentInfo;
+import org.fastcatsearch.ir.document.PrimaryKeyBloomFilter;
 import org.fastcatsearch.ir.document.PrimaryKeyIndexBulkReader;
 import org.fastcatsearch.ir.document.PrimaryKeyIndexReader;
 import org.fastcatsearch.ir.index.DeleteIdSet;
@@ -21,6 +22,9 @@ import org.fastcatsearch.ir.io.BitSet;
 import org.fastcatsearch.ir.io.BufferedFileInput;
 import org.fastcatsearch.ir.io.BufferedFileOutput;
 import org.fastcatsearch.ir.io.BytesBuffer;
+import org.fastcatsearch.ir.io.IndexInputFactory;
+import org.fastcatsearch.ir.merge.MergeProgress;
+import org.fastcatsearch.ir.merge.MergeRateLimiter;
 import org.fastcatsearch.ir.settings.AnalyzerSetting;
 import org.fastcatsearch.ir.settings.Schema;
 import org.fastcatsearch.ir.util.Counter;
@@ -36,6 +40,7 @@ import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.DelayQueue;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicInteger;
 
 public class CollectionHandler {
@@ -60,6 +65,15 @@ public class CollectionHandler {
 
     private DelayQueue<SegmentDelayedClose> segmentDelayedCloseQueue;
 
+    //세그먼트 병렬검색용 쓰레드풀. null 이면 호출쓰레드에서 순차적으로 검색한다.
+    private ExecutorService searchExecutor;
+
+    //세그먼트 머징단계를 병렬로 수행할 쓰레드풀과 머징 쓰기속도 제한. null 이면 순차수행, 제한없음.
+    private ExecutorService mergeExecutor;
+    private MergeRateLimiter mergeRateLimiter;
+    //진행중인 머징. 관리 API 에서 조회한다.
+    private Map<String, MergeProgress> mergeProgressMap = new ConcurrentHashMap<String, MergeProgress>();
+
     private Map<String, String> mergingSegmentSet;
     private Map<String, List<String>> deletionForMergingMap;
     private Map<String, AtomicInteger> deletionIdRefCounter;
@@ -125,6 +139,11 @@ public class CollectionHandler {
 		return isLoaded;
 	}
 
+	// 세그먼트 색인파일을 읽는 방식은 컬렉션의 index-config 설정을 따른다.
+	private IndexInputFactory indexInputFactory() {
+		return IndexInputFactory.getFactory(collectionContext.indexConfig());
+	}
+
 	private void loadSearcherAndReader() throws IRException {
 
 		analyzerPoolManager = new AnalyzerPoolManager();
@@ -153,7 +172,7 @@ public class CollectionHandler {
             for (SegmentInfo segmentInfo : collectionContext.dataInfo().getSegmentInfoList()) {
                 File segmentDir = dataPaths.segmentFile(dataSequence, segmentInfo.getId());
                 if(segmentDir.exists()) {
-                    segmentReaderMap.put(segmentInfo.getId(), new SegmentReader(segmentInfo, schema, segmentDir, analyzerPoolManager));
+                    segmentReaderMap.put(segmentInfo.getId(), new SegmentReader(segmentInfo, schema, segmentDir, analyzerPoolManager, indexInputFactory()));
                 } else {
                     logger.error("[{}] Cannot find segment dir = {}", collectionId, segmentDir.getName());
                 }
@@ -302,15 +321,10 @@ public class CollectionHandler {
             int liveDocumentSize = segmentInfo.getLiveCount();
             segmentLogger.info("[{}] -NewSegment-----", collectionId);
             segmentLogger.info("[{}] NewSegment start[{}] id[{}] doc[{}] del[{}] delReq[{}]", collectionId, segmentInfo.getStartTime(), tempSegmentId, segmentInfo.getDocumentCount(), segmentInfo.getDeleteCount(), deleteIdSet.size());
-            List<PrimaryKeyIndexReader> pkReaderList = new ArrayList<PrimaryKeyIndexReader>();
-            List<BitSet> deleteSetList = new ArrayList<BitSet>();
-
-            int segmentSize = segmentReaderMap.size();
-            for (SegmentReader segmentReader : segmentReaderMap.values()) {
-                File dir = segmentReader.segmentDir();
-                pkReaderList.add(new PrimaryKeyIndexReader(dir, IndexFileNames.primaryKeyMap));
-                deleteSetList.add(new BitSet(dir, IndexFileNames.docDeleteSet));
-            }
+            // pk reader와 bloom filter는 세그먼트별로 캐시된 것을 사용하고, delete.set은 삭제할 문서가 있는 세그먼트만 읽는다.
+            List<SegmentReader> prevSegmentReaderList = new ArrayList<SegmentReader>(segmentReaderMap.values());
+            int segmentSize = prevSegmentReaderList.size();
+            BitSet[] deleteSetList = new BitSet[segmentSize];
 
             //세그먼트간의 삭제처리.
             if (segmentSize > 0) {
@@ -319,20 +333,16 @@ public class CollectionHandler {
                 * */
                 if (liveDocumentSize > 0) {
                     File pkFile = new File(segmentDir, IndexFileNames.primaryKeyMap);
-                    applyPrimaryKeyToSegments(pkFile, pkReaderList, deleteSetList);
+                    applyPrimaryKeyToSegments(pkFile, prevSegmentReaderList, deleteSetList);
                 }
                 /*
                 * 2. deleteIdSet 적용
                 * */
                 if(deleteIdSet.size() > 0) {
-                    applyDeleteIdSetToSegments(deleteIdSet, pkReaderList, deleteSetList);
+                    applyDeleteIdSetToSegments(deleteIdSet, prevSegmentReaderList, deleteSetList);
                 }
             }
 
-            for (PrimaryKeyIndexReader pkReader : pkReaderList) {
-                pkReader.close();
-            }
-
             // delete.req 파일은 머징중인 세그먼트의 데이터 일관성을 위함이다.
             // 머징중인 세그먼트가 있을때에만 delete.req 파일을 만든다.
 
@@ -398,7 +408,7 @@ public class CollectionHandler {
                 segmentInfo.setId(segmentId);
 
                 //신규 세그먼트 추가.
-                SegmentReader segmentReader = new SegmentReader(segmentInfo, schema, newSegmentDir, analyzerPoolManager);
+                SegmentReader segmentReader = new SegmentReader(segmentInfo, schema, newSegmentDir, analyzerPoolManager, indexInputFactory());
                 segmentReaderMap.put(segmentId, segmentReader);
                 collectionContext.addSegmentInfo(segmentInfo);
                 long createTime = System.currentTimeMillis();
@@ -407,13 +417,16 @@ public class CollectionHandler {
             }
 
             // 여기에서 삭제파일을 업데이트 한다.
-            for (BitSet deleteSet : deleteSetList) {
-                deleteSet.save();
-                logger.debug("[{}] New delete.set saved. set={}", collectionId, deleteSet);
+            for (int i = 0; i < segmentSize; i++) {
+                BitSet deleteSet = deleteSetList[i];
+                if (deleteSet != null) {
+                    deleteSet.save();
+                    logger.debug("[{}] New delete.set saved. set={}", collectionId, deleteSet);
+                    //변경된 세그먼트의 삭제리스트 재로딩
+                    prevSegmentReaderList.get(i).loadDeleteSet();
+                }
             }
-            //기존 세그먼트들 삭제리스트 재로딩
             for (SegmentReader r : segmentReaderMap.values()) {
-                r.loadDeleteSet();
                 r.syncDeleteCountToInfo();
             }
 
@@ -443,7 +456,7 @@ public class CollectionHandler {
     /*
     * 동적색인 pk update
     * */
-    private int applyPrimaryKeyToSegments(File pkFile, List<PrimaryKeyIndexReader> prevPkReaderList, List<BitSet> prevDeleteSetList) throws IOException {
+    private int applyPrimaryKeyToSegments(File pkFile, List<SegmentReader> prevSegmentReaderList, BitSet[] prevDeleteSetList) throws IOException {
 
         // 이전 모든 세그먼트를 통틀어 업데이트되고 삭제된 문서수.
         int updateDocumentSize = 0; // 이번 pk와 이전 pk가 동일할 경우
@@ -457,11 +470,10 @@ public class CollectionHandler {
             // 새로 추가된 pk가 이전 세그먼트에 존재하면 update된 것이다.
             while (pkBulkReader.next(buf) != -1) {
                 // backward matching
-                int i = 0;
-                for (PrimaryKeyIndexReader pkReader : prevPkReaderList) {
-                    int localDocNo = pkReader.get(buf);
+                for (int i = 0; i < prevSegmentReaderList.size(); i++) {
+                    int localDocNo = findPrimaryKey(prevSegmentReaderList.get(i), buf);
                     if (localDocNo != -1) {
-                        BitSet deleteSet = prevDeleteSetList.get(i);
+                        BitSet deleteSet = deleteSet(prevSegmentReaderList, prevDeleteSetList, i);
                         if (!deleteSet.isSet(localDocNo)) {
                             // add delete list
                             deleteSet.set(localDocNo);
@@ -471,7 +483,6 @@ public class CollectionHandler {
 //                            segmentLogger.info("DEL_0 {} [{}] {}", pkReader.getDir().getName(), localDocNo, new String(buf.array(), 0, buf.limit));
                         }
                     }
-                    i++;
                 }
 
                 buf.clear();
@@ -488,8 +499,8 @@ public class CollectionHandler {
     /*
     * 동적색인 delete 적용.
     * */
-    private int applyDeleteIdSetToSegments(DeleteIdSet deleteIdSet, List<PrimaryKeyIndexReader> prevPkReaderList,
-                                           List<BitSet> prevDeleteSetList) throws IOException {
+    private int applyDeleteIdSetToSegments(DeleteIdSet deleteIdSet, List<SegmentReader> prevSegmentReaderList,
+                                           BitSet[] prevDeleteSetList) throws IOException {
 
         int deleteDocumentSize = 0;
 
@@ -509,11 +520,10 @@ public class CollectionHandler {
             BytesRef buf = primaryKeysToBytesRef.getBytesRef(ids);
 
             //기존 색인 세그먼트들에서 찾아서 지운다.
-            int i = 0;
-            for (PrimaryKeyIndexReader pkReader : prevPkReaderList) {
-                int localDocNo = pkReader.get(buf);
+            for (int i = 0; i < prevSegmentReaderList.size(); i++) {
+                int localDocNo = findPrimaryKey(prevSegmentReaderList.get(i), buf);
                 if (localDocNo != -1) {
-                    BitSet deleteSet = prevDeleteSetList.get(i);
+                    BitSet deleteSet = deleteSet(prevSegmentReaderList, prevDeleteSetList, i);
                     if (!deleteSet.isSet(localDocNo)) {
                         // add delete list
                         deleteSet.set(localDocNo);
@@ -521,7 +531,6 @@ public class CollectionHandler {
                         logger.info("[{}] Mark deleted ids[{}] as docNo[{}]", collectionId, ids, localDocNo);
                     }
                 }
-                i++;
             }
 
         }
@@ -529,6 +538,27 @@ public class CollectionHandler {
         return deleteDocumentSize;
     }
 
+    /*
+    * bloom filter에 없는 pk는 pk맵을 찾지 않는다.
+    * */
+    private int findPrimaryKey(SegmentReader segmentReader, BytesBuffer buf) throws IOException {
+        PrimaryKeyBloomFilter bloomFilter = segmentReader.primaryKeyBloomFilter();
+        if (bloomFilter != null && !bloomFilter.mightContain(buf)) {
+            return -1;
+        }
+        return segmentReader.primaryKeyIndexReader().get(buf);
+    }
+
+    /*
+    * 세그먼트의 delete.set은 처음 삭제할 문서가 나왔을때 읽는다.
+    * */
+    private BitSet deleteSet(List<SegmentReader> segmentReaderList, BitSet[] deleteSetList, int i) throws IOException {
+        if (deleteSetList[i] == null) {
+            deleteSetList[i] = new BitSet(segmentReaderList.get(i).segmentDir(), IndexFileNames.docDeleteSet);
+        }
+        return deleteSetList[i];
+    }
+
     //머징시 문서가 모두 0가 될때사용.
     public synchronized CollectionContext removeZeroSegment(Set<String> segmentIdRemoveList) throws IOException, IRException {
         segmentLogger.info("[{}] -RemoveSegment-----", collectionId);
@@ -579,7 +609,8 @@ public class CollectionHandler {
          */
 
         PrimaryKeyIndexReader pkReader = new PrimaryKeyIndexReader(segmentDir, IndexFileNames.primaryKeyMap);
-        BitSet deleteSet = new BitSet();
+        //머징시 pk가 중복된 이전 문서는 이미 delete.set 에 기록되어 있으므로, 그 위에 delete.req 의 삭제를 더한다.
+        BitSet deleteSet = new BitSet(segmentDir, IndexFileNames.docDeleteSet);
 
         // createdSegmentIdList 의 아이디를 가지고, 삭제를 확인한다. id.pk.lst 파일에 업데이트된 pk가 모두 들어있다.
         BytesBuffer buf = new BytesBuffer(1024);
@@ -637,7 +668,7 @@ public class CollectionHandler {
         deleteSet.save();
 
         segmentInfo.setId(segmentId);
-        SegmentReader segmentReader = new SegmentReader(segmentInfo, schema, newSegmentDir, analyzerPoolManager);
+        SegmentReader segmentReader = new SegmentReader(segmentInfo, schema, newSegmentDir, analyzerPoolManager, indexInputFactory());
         segmentReader.syncDeleteCountToInfo();
         segmentReaderMap.put(segmentId, segmentReader);
 
@@ -804,4 +835,40 @@ public class CollectionHandler {
     public void setSegmentDelayedCloseQueue(DelayQueue<SegmentDelayedClose> segmentDelayedCloseQueue) {
         this.segmentDelayedCloseQueue = segmentDelayedCloseQueue;
     }
+
+    public void setSearchExecutor(ExecutorService searchExecutor) {
+        this.searchExecutor = searchExecutor;
+    }
+
+    public ExecutorService searchExecutor() {
+        return searchExecutor;
+    }
+
+    public void setMergeExecutor(ExecutorService mergeExecutor) {
+        this.mergeExecutor = mergeExecutor;
+    }
+
+    public ExecutorService mergeExecutor() {
+        return mergeExecutor;
+    }
+
+    public void setMergeRateLimiter(MergeRateLimiter mergeRateLimiter) {
+        this.mergeRateLimiter = mergeRateLimiter;
+    }
+
+    public MergeRateLimiter mergeRateLimiter() {
+        return mergeRateLimiter;
+    }
+
+    public void addMergeProgress(MergeProgress progress) {
+        mergeProgressMap.put(progress.segmentId(), progress);
+    }
+
+    public void removeMergeProgress(MergeProgress progress) {
+        mergeProgressMap.remove(progress.segmentId());
+    }
+
+    public List<MergeProgress> mergeProgressList() {
+        return new ArrayList<MergeProgress>(mergeProgressMap.values());
+    }
 }
@@ -1,6 +1,8 @@
 package org.fastcatsearch.ir.search;
 
 import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.search.highlight.WeightedTerm;
 import org.apache.lucene.util.BytesRef;
 import org.fastcatsearch.error.CoreErrorCode;
 import org.fastcatsearch.error.SearchAbortError;
@@ -24,12 +26,17 @@ import org.fastcatsearch.ir.settings.FieldSetting;
 import org.fastcatsearch.ir.settings.FieldSetting.Type;
 import org.fastcatsearch.ir.settings.Schema;
 import org.fastcatsearch.ir.summary.BasicHighlightAndSummary;
+import org.fastcatsearch.ir.summary.TermOffsetsTokenStream;
 import org.fastcatsearch.ir.util.Formatter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 public class CollectionSearcher implements Cloneable {
 	private static Logger logger = LoggerFactory.getLogger(CollectionSearcher.class);
@@ -42,7 +49,7 @@ public class CollectionSearcher implements Cloneable {
     private int bundleMemMaxCountLimit = 10 * 10000;
     private int bundleHashBucketSize = 100 * 10000;
 
-    private boolean isAborted;
+    private volatile boolean isAborted;
 
 	public CollectionSearcher(CollectionHandler collectionHandler) {
 		this.collectionId = collectionHandler.collectionId();
@@ -64,7 +71,7 @@ public class CollectionSearcher implements Cloneable {
         isAborted = true;
     }
 
-    private void checkAborted() throws SearchAbortError {
+    void checkAborted() throws SearchAbortError {
         if(isAborted) {
             throw new SearchAbortError();
         }
@@ -137,10 +144,30 @@ public class CollectionSearcher implements Cloneable {
 				dataMerger = new GroupDataMerger(groups, segmentSize);
 			}
 
-            for(SegmentReader r : collectionHandler.segmentReaders()) {
-                GroupHit groupHit = r.segmentSearcher().searchGroupHit(q);
-                if (dataMerger != null) {
-                    dataMerger.put(groupHit.groupData());
+            ExecutorService searchExecutor = collectionHandler.searchExecutor();
+            if (searchExecutor != null) {
+                List<Callable<GroupHit>> taskList = new ArrayList<Callable<GroupHit>>(segmentSize);
+                for (final SegmentReader r : collectionHandler.segmentReaders()) {
+                    final Query query = q;
+                    taskList.add(new Callable<GroupHit>() {
+                        @Override
+                        public GroupHit call() throws Exception {
+                            checkAborted();
+                            return r.segmentSearcher().searchGroupHit(query);
+                        }
+                    });
+                }
+                for (GroupHit groupHit : invokeAll(searchExecutor, taskList)) {
+                    if (dataMerger != null) {
+                        dataMerger.put(groupHit.groupData());
+                    }
+                }
+            } else {
+                for(SegmentReader r : collectionHandler.segmentReaders()) {
+                    GroupHit groupHit = r.segmentSearcher().searchGroupHit(q);
+                    if (dataMerger != null) {
+                        dataMerger.put(groupHit.groupData());
+                    }
                 }
             }
 
@@ -153,6 +180,45 @@ public class CollectionSearcher implements Cloneable {
 
 	}
 
+	/**
+	 * 세그먼트 작업들을 검색 쓰레드풀에서 동시에 수행하고 순서대로 결과를 리턴한다.
+	 * 하나라도 실패하거나 검색이 중단되면 나머지 작업들도 취소한다.
+	 * */
+	private <T> List<T> invokeAll(ExecutorService searchExecutor, List<? extends Callable<T>> taskList) throws IRException, IOException {
+		List<Future<T>> futureList = new ArrayList<Future<T>>(taskList.size());
+		try {
+			for (Callable<T> task : taskList) {
+				futureList.add(searchExecutor.submit(task));
+			}
+			List<T> resultList = new ArrayList<T>(futureList.size());
+			for (Future<T> future : futureList) {
+				resultList.add(future.get());
+			}
+			return resultList;
+		} catch (InterruptedException e) {
+			abort();
+			Thread.currentThread().interrupt();
+			throw new SearchAbortError("Search interrupted");
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IRException) {
+				throw (IRException) cause;
+			} else if (cause instanceof IOException) {
+				throw (IOException) cause;
+			} else if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			} else if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new IRException(cause);
+		} finally {
+			//이미 끝난 작업에는 영향이 없다.
+			for (Future<T> future : futureList) {
+				future.cancel(true);
+			}
+		}
+	}
+
 	public Document requestDocument(String segmentId, int docNo) throws IOException {
         SegmentReader reader = collectionHandler.segmentReader(segmentId);
 		if(reader != null) {
@@ -225,66 +291,58 @@ public class CollectionSearcher implements Cloneable {
         // 32byte의 key를 HashSet에 넣었을때 100만개에 100MB, 1000만개에 1G 정도 메모리 소요.
         // 대부분 100만개 이하일 것이므로, 메모리에서 수행하도록 한다.
 //		Set<BytesRef> bundleKeySet = new HashSet<BytesRef>();
-        int keySize = 0;
-        HybridHashSet bundleKeySet = new HybridHashSet(bundleMemMaxCountLimit, bundleHashBucketSize, keySize);
+        HybridHashSet bundleKeySet = new HybridHashSet(bundleMemMaxCountLimit, bundleHashBucketSize, 0);
 		List<Explanation> explanationList = null;
 		BitSet[] segmentDocHitSetList = null;
 
 		try {
             segmentDocHitSetList = new BitSet[segmentSize];
-            Iterator<SegmentReader> iterator = segmentReaders.iterator();
-
-			for(int i = 0; iterator.hasNext(); i++) {
-
-                checkAborted();
-
-				// segment 의 모든 결과를 보아야 중복체크가 가능하므로 reader를 받아오도록 한다.
-				HitReader hitReader = iterator.next().segmentSearcher().searchHitReader(q, boostList);
-				//
-				//
-				//FIXME highlightInfo 계속 덮어쓰나?
-				//
-				if (highlightInfo == null) {
-					highlightInfo = hitReader.highlightInfo();
-				}
+            List<SegmentSearchTask> taskList = new ArrayList<SegmentSearchTask>(segmentSize);
+            ExecutorService searchExecutor = collectionHandler.searchExecutor();
+            if (searchExecutor != null && segmentSize > 1) {
+                //세그먼트별로 각자의 ranker에 top K를 모은뒤 병합한다.
+                for (SegmentReader segmentReader : segmentReaders) {
+                    FixedMaxPriorityQueue<HitElement> segmentRanker = sorts == null ? new DefaultRanker(sortMaxSize) : sorts.createRanker(schema, sortMaxSize);
+                    taskList.add(new SegmentSearchTask(this, segmentReader, q, boostList, segmentRanker, bundleKeySet));
+                }
+                invokeAll(searchExecutor, taskList);
+                for (SegmentSearchTask task : taskList) {
+                    FixedMaxPriorityQueue<HitElement> segmentRanker = task.ranker();
+                    HitElement e = null;
+                    while ((e = segmentRanker.pop()) != null) {
+                        ranker.push(e);
+                    }
+                }
+            } else {
+                for (SegmentReader segmentReader : segmentReaders) {
+                    SegmentSearchTask task = new SegmentSearchTask(this, segmentReader, q, boostList, ranker, bundleKeySet);
+                    taskList.add(task.call());
+                }
+            }
 
-				segmentDocHitSetList[i] = new BitSet();
-				// posting data
-				HitElement e = null;
-				while ((e = hitReader.next()) != null) {
+            for (int i = 0; i < segmentSize; i++) {
+                SegmentSearchTask task = taskList.get(i);
+                //highlightInfo 는 쿼리의 절에서 만들어지므로 세그먼트마다 같다. 처음 것만 쓴다.
+                if (highlightInfo == null) {
+                    highlightInfo = task.highlightInfo();
+                }
+                segmentDocHitSetList[i] = task.docHitSet();
+                totalSize += task.totalSize();
 
-                    checkAborted();
+                // Put GroupResult
+                if (dataMerger != null) {
+                    dataMerger.put(task.groupsData());
+                }
 
-					if (e.getBundleKey() != null) {
-                        if(keySize == 0) {
-                            keySize = e.getBundleKey().length();
-                            bundleKeySet.setKeySize(keySize);
-                        }
-						segmentDocHitSetList[i].set(e.docNo());
-						if(bundleKeySet.add(e.getBundleKey())) {
-							totalSize++;
-						}
-					} else {
-						totalSize++;
-					}
-					ranker.push(e);
-//					logger.debug("heap insert hit > {}", e.docNo());
-				}
-				
-				// Put GroupResult
-				if (dataMerger != null) {
-					dataMerger.put(hitReader.makeGroupData());
-				}
-				
-				if(hitReader.explanation() != null){
-					if(explanationList == null){
-						explanationList = new ArrayList<Explanation>();
-					}
-					hitReader.explanation().setSegmentId(i);
-					hitReader.explanation().setCollectionId(collectionId);
-					explanationList.add(hitReader.explanation());
-				}
-			}
+                if(task.explanation() != null){
+                    if(explanationList == null){
+                        explanationList = new ArrayList<Explanation>();
+                    }
+                    task.explanation().setSegmentId(i);
+                    task.explanation().setCollectionId(collectionId);
+                    explanationList.add(task.explanation());
+                }
+            }
 			
         } catch (FilterException e) {
             throw new IRException(e);
@@ -508,6 +566,11 @@ public class CollectionSearcher implements Cloneable {
 
 		Document[] eachDocList = new Document[realSize];
 		Document[][] eachBundleDocList = null;
+		//하이라이팅시 저장된 텀 오프셋을 읽기 위해 문서의 세그먼트와 문서번호를 함께 보관한다.
+		SegmentSearcher[] eachSearcherList = new SegmentSearcher[realSize];
+		int[] eachDocNoList = new int[realSize];
+		SegmentSearcher[][] eachBundleSearcherList = null;
+		int[][] eachBundleDocNoList = null;
 
         Map<String, SegmentSearcher> segmentSearchMap = new HashMap<String, SegmentSearcher>();
 		int idx = 0;
@@ -540,13 +603,19 @@ public class CollectionSearcher implements Cloneable {
 			}
 			Document doc = segmentSearcher.getDocument(docNo, fieldSelectOption);
 			eachDocList[idx] = doc;
+			eachSearcherList[idx] = segmentSearcher;
+			eachDocNoList[idx] = docNo;
 			
 			if(bundleDocIdList != null) {
 				//묶음문서 존재시에만 생성한다.
 				if(eachBundleDocList == null) {
 					eachBundleDocList = new Document[realSize][];
+					eachBundleSearcherList = new SegmentSearcher[realSize][];
+					eachBundleDocNoList = new int[realSize][];
 				}
 				Document[] bundleDoclist = new Document[bundleDocIdList.size()];
+				SegmentSearcher[] bundleSearcherList = new SegmentSearcher[bundleDocIdList.size()];
+				int[] bundleDocNoList = new int[bundleDocIdList.size()];
 				for (int j = 0; j < bundleDocIdList.size(); j++) {
 
                     checkAborted();
@@ -575,16 +644,22 @@ public class CollectionSearcher implements Cloneable {
 
 					Document bundleDoc = segmentSearcher.getDocument(bundleDocNo, fieldSelectOption);
 					bundleDoclist[j] = bundleDoc;
+					bundleSearcherList[j] = segmentSearcher;
+					bundleDocNoList[j] = bundleDocNo;
 				}
 				eachBundleDocList[idx] = bundleDoclist;
+				eachBundleSearcherList[idx] = bundleSearcherList;
+				eachBundleDocNoList[idx] = bundleDocNoList;
 			}
 			
 			idx++;
 		}
 		
 		
+		//질의어 분석결과는 요청내의 모든 문서와 필드에서 공유한다.
+		Map<String, WeightedTerm[]> queryTermCache = new HashMap<String, WeightedTerm[]>();
 		for (int i = 0; i < realSize; i++) {
-			row[i] = makeRowFromDocument(eachDocList[i], views, fieldSequenceList, tags, highlightInfo);
+			row[i] = makeRowFromDocument(eachDocList[i], eachSearcherList[i], eachDocNoList[i], views, fieldSequenceList, tags, highlightInfo, queryTermCache);
 			
 			//bundle document
 			if(eachBundleDocList != null) {
@@ -596,7 +671,7 @@ public class CollectionSearcher implements Cloneable {
 					}
 					bundleRow[i] = new Row[bundleDocList.length];
 					for (int j = 0; j < bundleDocList.length; j++) {
-						bundleRow[i][j] = makeRowFromDocument(bundleDocList[j], views, fieldSequenceList, tags, highlightInfo);
+						bundleRow[i][j] = makeRowFromDocument(bundleDocList[j], eachBundleSearcherList[i][j], eachBundleDocNoList[i][j], views, fieldSequenceList, tags, highlightInfo, queryTermCache);
 					}
 				}
 			}
@@ -605,7 +680,8 @@ public class CollectionSearcher implements Cloneable {
 		return new DocumentResult(row, bundleRow, fieldIdList);
 	}
 
-	private Row makeRowFromDocument(Document document, ViewContainer views, int[] fieldSequenceList, String[] tags, HighlightInfo highlightInfo) throws IOException {
+	private Row makeRowFromDocument(Document document, SegmentSearcher segmentSearcher, int docNo, ViewContainer views, int[] fieldSequenceList, String[] tags, HighlightInfo highlightInfo,
+			Map<String, WeightedTerm[]> queryTermCache) throws IOException {
 		Row rows = new Row(views.size());
 		for (int j = 0; j < views.size(); j++) {
 			View view = views.get(j);
@@ -638,7 +714,7 @@ public class CollectionSearcher implements Cloneable {
 						String queryTerm = highlightInfo.getQueryTerm(fieldId);
 						if (indexAnalyzerId != null && queryAnalyzerId != null && queryTerm != null) {
 //							a = System.nanoTime();
-							text = getHighlightedSnippet(fieldId, text, indexAnalyzerId, queryAnalyzerId, queryTerm, tags, view, searchOption);
+							text = getHighlightedSnippet(fieldId, text, indexAnalyzerId, queryAnalyzerId, queryTerm, tags, view, searchOption, segmentSearcher, docNo, queryTermCache);
 //							b += (System.nanoTime() - a);
 							isHighlightSummary = true;
 						}
@@ -665,7 +741,8 @@ public class CollectionSearcher implements Cloneable {
 		
 		return rows;
 	}
-	private String getHighlightedSnippet(String fieldId, String text, String indexAnalyzerId, String queryAnalyzerId, String queryString, String[] tags, View view, Option searchOption) throws IOException {
+	private String getHighlightedSnippet(String fieldId, String text, String indexAnalyzerId, String queryAnalyzerId, String queryString, String[] tags, View view, Option searchOption,
+			SegmentSearcher segmentSearcher, int docNo, Map<String, WeightedTerm[]> queryTermCache) throws IOException {
 		AnalyzerPool queryAnalyzerPool = collectionHandler.analyzerPoolManager().getPool(queryAnalyzerId);
 		//analyzer id 가 같으면 하나만 공통으로 사용한다.
 		boolean isSamePool = queryAnalyzerId.equals(indexAnalyzerId);
@@ -704,7 +781,21 @@ public class CollectionSearcher implements Cloneable {
 							text = text.replaceAll(tags[0] + tags[0] + temp + tags[1] + tags[1], tags[0] + temp + tags[1]);
 						}
 					} else {
-						text = has.highlight(fieldId, indexAnalyzer, queryAnalyzer, text, queryString, tags, view.snippetSize(), view.fragmentSize(), searchOption);
+						String cacheKey = queryAnalyzerId + "\t" + searchOption.value() + "\t" + queryString;
+						WeightedTerm[] weightedTerms = queryTermCache.get(cacheKey);
+						if (weightedTerms == null) {
+							weightedTerms = has.analyzeQuery(fieldId, queryAnalyzer, queryString, searchOption);
+							queryTermCache.put(cacheKey, weightedTerms);
+						}
+						//storeOffset 색인에 기록된 텀 오프셋이 있으면 본문을 다시 분석하지 않는다.
+						TermOffsets termOffsets = segmentSearcher.getTermOffsets(fieldId, indexAnalyzerId, docNo);
+						TokenStream tokenStream = null;
+						if (termOffsets != null && termOffsets.isValid(text.length())) {
+							tokenStream = new TermOffsetsTokenStream(termOffsets, text);
+						} else {
+							tokenStream = has.documentTokenStream(fieldId, indexAnalyzer, text);
+						}
+						text = has.highlight(tokenStream, weightedTerms, text, tags, view.snippetSize(), view.fragmentSize());
 					}
 				} finally {
 					if(!isSamePool){
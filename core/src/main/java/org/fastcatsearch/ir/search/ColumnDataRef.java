@@ -0,0 +1,71 @@
+package org.fastcatsearch.ir.search;
+
+import java.nio.ByteBuffer;
+
+import org.fastcatsearch.ir.io.DataRef;
+import org.fastcatsearch.ir.settings.FieldSetting.Type;
+
+/**
+ * 메모리에 올려진 FieldIndexColumn 을 읽는 DataRef.
+ * bytesRef 에는 파일에서 읽은것과 같은 데이터가 채워지므로 기존 필터, 정렬, 그룹핑 로직은 그대로 동작하며,
+ * 숫자형 column은 intValue(), longValue() 등으로 byte 디코딩 없이 바로 값을 읽을수 있다.
+ * */
+public class ColumnDataRef extends DataRef {
+
+	private FieldIndexColumn column;
+	private ByteBuffer bytesBuffer;
+	private int docNo;
+
+	public ColumnDataRef(FieldIndexColumn column) {
+		super(column.dataSize());
+		this.column = column;
+		this.bytesBuffer = column.newBytesBuffer();
+	}
+
+	public void read(int docNo) {
+		this.docNo = docNo;
+		column.read(docNo, bytesRef, bytesBuffer);
+		init(1);
+	}
+
+	public FieldIndexColumn column() {
+		return column;
+	}
+
+	public boolean isPrimitive() {
+		return column.isPrimitive();
+	}
+
+	public int intValue() {
+		return column.intValue(docNo);
+	}
+
+	public long longValue() {
+		return column.longValue(docNo);
+	}
+
+	public float floatValue() {
+		return column.floatValue(docNo);
+	}
+
+	public double doubleValue() {
+		return column.doubleValue(docNo);
+	}
+
+	@Override
+	public Object getValue() {
+		if (column.isPrimitive()) {
+			Type type = column.type();
+			if (type == Type.INT) {
+				return column.intValue(docNo);
+			} else if (type == Type.LONG) {
+				return column.longValue(docNo);
+			} else if (type == Type.FLOAT) {
+				return column.floatValue(docNo);
+			} else if (type == Type.DOUBLE) {
+				return column.doubleValue(docNo);
+			}
+		}
+		return super.getValue();
+	}
+}
@@ -37,6 +37,34 @@ public class DataPostingReader extends AbstractPostingReader {
 		return null;
 	}
 
+	/**
+	 * 메모리상의 정렬된 배열이므로 이진탐색으로 찾는다.
+	 */
+	@Override
+	public PostingDoc advance(int docNo) throws IOException {
+		int low = postingPointer;
+		int high = dataLength - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			if (dataList[mid].docNo() < docNo) {
+				low = mid + 1;
+			} else {
+				high = mid - 1;
+			}
+		}
+		postingPointer = low;
+		return next();
+	}
+
+	@Override
+	public int maxTf() {
+		int maxTf = 0;
+		for (int i = 0; i < dataLength; i++) {
+			maxTf = Math.max(maxTf, dataList[i].tf());
+		}
+		return maxTf;
+	}
+
 	@Override
 	public void close() {
 		dataList = null;
@@ -0,0 +1,164 @@
+package org.fastcatsearch.ir.search;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.apache.lucene.util.BytesRef;
+import org.fastcatsearch.ir.io.IOUtil;
+import org.fastcatsearch.ir.io.IndexInput;
+import org.fastcatsearch.ir.settings.FieldSetting.Type;
+
+/**
+ * 메모리에 올린 고정길이 싱글밸류 필드색인 데이터.
+ * 숫자형 필드는 타입별 primitive 배열로, 그외 필드는 문서별 고정길이 byte를 off-heap ByteBuffer에 담는다.
+ * 세그먼트당 한번 로딩되며 변경되지 않으므로, clone된 FieldIndexReader들이 함께 사용한다.
+ * */
+public class FieldIndexColumn {
+
+	private final Type type;
+	private final int dataSize;
+	private final int documentCount;
+
+	private int[] intColumn;
+	private long[] longColumn;
+	private float[] floatColumn;
+	private double[] doubleColumn;
+	private ByteBuffer bytesColumn;
+
+	private FieldIndexColumn(Type type, int dataSize, int documentCount) {
+		this.type = type;
+		this.dataSize = dataSize;
+		this.documentCount = documentCount;
+	}
+
+	/**
+	 * 필드색인 데이터파일 전체를 읽어 column을 만든다. 메모리에 올릴수 없는 크기라면 null을 리턴한다.
+	 * */
+	public static FieldIndexColumn load(IndexInput dataInput, Type type, int dataSize) throws IOException {
+		long length = dataInput.length();
+		if (dataSize <= 0 || length / dataSize > Integer.MAX_VALUE || length > Integer.MAX_VALUE) {
+			return null;
+		}
+		int documentCount = (int) (length / dataSize);
+		FieldIndexColumn column = new FieldIndexColumn(type, dataSize, documentCount);
+		dataInput.seek(0);
+		if (type == Type.INT && dataSize == IOUtil.SIZE_OF_INT) {
+			column.intColumn = new int[documentCount];
+			for (int i = 0; i < documentCount; i++) {
+				column.intColumn[i] = dataInput.readInt();
+			}
+		} else if ((type == Type.LONG || type == Type.DATETIME) && dataSize == IOUtil.SIZE_OF_LONG) {
+			column.longColumn = new long[documentCount];
+			for (int i = 0; i < documentCount; i++) {
+				column.longColumn[i] = dataInput.readLong();
+			}
+		} else if (type == Type.FLOAT && dataSize == IOUtil.SIZE_OF_INT) {
+			column.floatColumn = new float[documentCount];
+			for (int i = 0; i < documentCount; i++) {
+				column.floatColumn[i] = Float.intBitsToFloat(dataInput.readInt());
+			}
+		} else if (type == Type.DOUBLE && dataSize == IOUtil.SIZE_OF_LONG) {
+			column.doubleColumn = new double[documentCount];
+			for (int i = 0; i < documentCount; i++) {
+				column.doubleColumn[i] = Double.longBitsToDouble(dataInput.readLong());
+			}
+		} else {
+			int size = documentCount * dataSize;
+			ByteBuffer buffer = ByteBuffer.allocateDirect(size);
+			byte[] block = new byte[IOUtil.FILEBLOCKSIZE];
+			int remain = size;
+			while (remain > 0) {
+				int n = Math.min(block.length, remain);
+				dataInput.readBytes(block, 0, n);
+				buffer.put(block, 0, n);
+				remain -= n;
+			}
+			buffer.clear();
+			column.bytesColumn = buffer;
+		}
+		return column;
+	}
+
+	public Type type() {
+		return type;
+	}
+
+	public int dataSize() {
+		return dataSize;
+	}
+
+	public int documentCount() {
+		return documentCount;
+	}
+
+	/**
+	 * int, long, float, double 배열로 올려진 column인지 여부.
+	 * */
+	public boolean isPrimitive() {
+		return bytesColumn == null;
+	}
+
+	public int intValue(int docNo) {
+		return intColumn[docNo];
+	}
+
+	public long longValue(int docNo) {
+		return longColumn[docNo];
+	}
+
+	public float floatValue(int docNo) {
+		return floatColumn[docNo];
+	}
+
+	public double doubleValue(int docNo) {
+		return doubleColumn[docNo];
+	}
+
+	/**
+	 * ByteBuffer column은 position을 가지므로 reader마다 duplicate해서 사용한다.
+	 * */
+	protected ByteBuffer newBytesBuffer() {
+		return bytesColumn != null ? bytesColumn.duplicate() : null;
+	}
+
+	/**
+	 * 파일에 기록된 것과 같은 byte 표현으로 bytesRef에 채운다.
+	 * */
+	public void read(int docNo, BytesRef bytesRef, ByteBuffer bytesBuffer) {
+		byte[] bytes = bytesRef.bytes;
+		if (intColumn != null) {
+			writeInt(intColumn[docNo], bytes);
+		} else if (longColumn != null) {
+			writeLong(longColumn[docNo], bytes);
+		} else if (floatColumn != null) {
+			writeInt(Float.floatToRawIntBits(floatColumn[docNo]), bytes);
+		} else if (doubleColumn != null) {
+			writeLong(Double.doubleToRawLongBits(doubleColumn[docNo]), bytes);
+		} else {
+			bytesBuffer.position(docNo * dataSize);
+			bytesBuffer.get(bytes, 0, dataSize);
+		}
+	}
+
+	private static void writeInt(int v, byte[] bytes) {
+		bytes[0] = (byte) (v >>> 24);
+		bytes[1] = (byte) (v >>> 16);
+		bytes[2] = (byte) (v >>> 8);
+		bytes[3] = (byte) v;
+	}
+
+	private static void writeLong(long v, byte[] bytes) {
+		writeInt((int) (v >>> 32), bytes);
+		bytes[4] = (byte) (v >>> 24);
+		bytes[5] = (byte) (v >>> 16);
+		bytes[6] = (byte) (v >>> 8);
+		bytes[7] = (byte) v;
+	}
+
+	/**
+	 * 메모리 사용량(byte).
+	 * */
+	public long memorySize() {
+		return (long) documentCount * dataSize;
+	}
+}
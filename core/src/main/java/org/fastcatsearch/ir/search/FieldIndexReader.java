@@ -22,7 +22,9 @@ import java.util.Map;
 
 import org.fastcatsearch.ir.common.IRException;
 import org.fastcatsearch.ir.common.IndexFileNames;
+import org.fastcatsearch.ir.index.PointIndexWriter;
 import org.fastcatsearch.ir.io.DataRef;
+import org.fastcatsearch.ir.io.IndexInputFactory;
 import org.fastcatsearch.ir.io.StreamInputRef;
 import org.fastcatsearch.ir.settings.FieldIndexSetting;
 import org.fastcatsearch.ir.settings.FieldSetting;
@@ -31,10 +33,20 @@ import org.fastcatsearch.ir.settings.FieldSetting;
 
 public class FieldIndexReader extends ReferenceableIndexReader {
 	
+	//memory 옵션일때 세그먼트 로딩시 올려둔 데이터. clone들이 공유한다.
+	private FieldIndexColumn column;
+	private ColumnDataRef columnDataRef;
+	//point 옵션일때의 포인트색인. 없으면 null.
+	private PointIndexReader pointIndexReader;
+	
 	public FieldIndexReader() { }
 	
 	
 	public FieldIndexReader(FieldIndexSetting fieldIndexSetting, Map<String, FieldSetting> fieldSettingMap, File dir) throws IOException, IRException{
+		this(fieldIndexSetting, fieldSettingMap, dir, IndexInputFactory.BUFFERED);
+	}
+
+	public FieldIndexReader(FieldIndexSetting fieldIndexSetting, Map<String, FieldSetting> fieldSettingMap, File dir, IndexInputFactory inputFactory) throws IOException, IRException{
 		String id = fieldIndexSetting.getId();
 		String refId = fieldIndexSetting.getRef();
 		FieldSetting refFieldSetting = fieldSettingMap.get(refId);
@@ -48,8 +60,54 @@ public class FieldIndexReader extends ReferenceableIndexReader {
 			throw new IRException("필드색인은 고정길이필드이거나 field index size를 정해야 합니다.");
 		}
 			
-		init(id, refFieldSetting, dataFile, multiValueFile, dataSize);
+		init(id, refFieldSetting, dataFile, multiValueFile, dataSize, inputFactory);
+		
+		if(fieldIndexSetting.isMemory()){
+			if(isMultiValue){
+				logger.warn("필드색인 {}는 멀티밸류이므로 메모리에 올리지 않습니다.", id);
+			}else{
+				column = FieldIndexColumn.load(dataInput, refFieldSetting.getType(), dataSize);
+				if(column != null){
+					columnDataRef = new ColumnDataRef(column);
+					dataRef = columnDataRef;
+					logger.debug("필드색인 {} 메모리 로딩 doc[{}] size[{}]", id, column.documentCount(), column.memorySize());
+				}else{
+					logger.warn("필드색인 {}의 크기가 커서 메모리에 올리지 않습니다.", id);
+				}
+			}
+		}
 		
+		if(PointIndexWriter.isPointIndex(fieldIndexSetting, refFieldSetting)){
+			File pointFile = new File(dir, IndexFileNames.getFieldPointFileName(id));
+			if(pointFile.exists()){
+				pointIndexReader = new PointIndexReader(pointFile, inputFactory);
+			}
+		}
+	}
+	
+	@Override
+	public void read(int docNo) throws IOException{
+		if(columnDataRef != null){
+			columnDataRef.read(docNo);
+		}else{
+			super.read(docNo);
+		}
+	}
+	
+	public FieldIndexColumn column(){
+		return column;
+	}
+	
+	public PointIndexReader pointIndexReader(){
+		return pointIndexReader;
+	}
+	
+	@Override
+	public void close() throws IOException {
+		super.close();
+		if(pointIndexReader != null){
+			pointIndexReader.close();
+		}
 	}
 	
 
@@ -61,9 +119,16 @@ public class FieldIndexReader extends ReferenceableIndexReader {
 		if(isMultiValue){
 			reader.multiValueInput = multiValueInput.clone();
 			reader.dataRef = new StreamInputRef(reader.multiValueInput, dataSize);
+		}else if(column != null){
+			reader.column = column;
+			reader.columnDataRef = new ColumnDataRef(column);
+			reader.dataRef = reader.columnDataRef;
 		}else{
 			reader.dataRef = new DataRef(dataSize);
 		}
+		if(pointIndexReader != null){
+			reader.pointIndexReader = pointIndexReader.clone();
+		}
 		reader.dataSize = dataSize;
 		reader.isMultiValue = isMultiValue;
 		return reader;
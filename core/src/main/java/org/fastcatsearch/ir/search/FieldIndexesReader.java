@@ -6,6 +6,7 @@ import java.util.ArrayList;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.fastcatsearch.ir.common.IRException;
+import org.fastcatsearch.ir.io.IndexInputFactory;
 import org.fastcatsearch.ir.settings.FieldIndexSetting;
 import org.fastcatsearch.ir.settings.Schema;
 
@@ -15,6 +16,10 @@ public class FieldIndexesReader extends SelectableIndexesReader<FieldIndexReader
 	}
 
 	public FieldIndexesReader(Schema schema, File dir) throws IOException, IRException {
+		this(schema, dir, IndexInputFactory.BUFFERED);
+	}
+
+	public FieldIndexesReader(Schema schema, File dir, IndexInputFactory inputFactory) throws IOException, IRException {
 		indexSettingList = schema.schemaSetting().getFieldIndexSettingList();
 		int indexCount = indexSettingList == null ? 0 : indexSettingList.size();
 
@@ -24,7 +29,7 @@ public class FieldIndexesReader extends SelectableIndexesReader<FieldIndexReader
 			FieldIndexSetting setting = indexSettingList.get(i);
 			FieldIndexReader reader = null;
 			try {
-				reader = new FieldIndexReader(setting, schema.fieldSettingMap(), dir);
+				reader = new FieldIndexReader(setting, schema.fieldSettingMap(), dir, inputFactory);
 			} catch (Exception e) {
 				logger.error("필드색인 {}로딩중 에러 >> {}", setting.getId(), e);
 			}
@@ -52,6 +57,22 @@ public class FieldIndexesReader extends SelectableIndexesReader<FieldIndexReader
 		return reader;
 	}
 
+	/**
+	 * 필드색인의 포인트색인을 clone하여 리턴한다. 포인트색인이 없으면 null.
+	 * */
+	public PointIndexReader clonePointIndexReader(String fieldIndexId) {
+		for (int i = 0; i < indexSettingList.size(); i++) {
+			if (indexSettingList.get(i).getId().equalsIgnoreCase(fieldIndexId)) {
+				FieldIndexReader reader = readerList.get(i);
+				if (reader != null && reader.pointIndexReader() != null) {
+					return reader.pointIndexReader().clone();
+				}
+				return null;
+			}
+		}
+		return null;
+	}
+
 	protected FieldIndexReader cloneReader(int sequence) {
 		return readerList.get(sequence).clone();
 	}
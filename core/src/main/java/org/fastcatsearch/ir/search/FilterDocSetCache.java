@@ -0,0 +1,143 @@
+package org.fastcatsearch.ir.search;
+
+import org.fastcatsearch.ir.io.BitSet;
+import org.fastcatsearch.ir.io.RoaringDocSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 세그먼트별 필터결과 캐시. 필터조건(Filter.cacheKey)을 키로 조건에 맞는 살아있는 문서집합을 RoaringDocSet 으로 보관한다.
+ * 한번 쓰이고 마는 필터로 세그먼트 전체를 읽지 않도록 ADMIT_COUNT 번 이상 요청된 필터만 만든다.
+ * 삭제문서는 집합에서 빠져있으므로 삭제문서가 바뀌면 모두 비운다. 메모리 한도를 넘으면 가장 오래 쓰이지 않은 것부터 버린다.
+ *
+ * @see org.fastcatsearch.ir.query.HitFilter
+ * */
+public class FilterDocSetCache {
+	private static Logger logger = LoggerFactory.getLogger(FilterDocSetCache.class);
+
+	public static final long DEFAULT_MAX_MEMORY = 8 * 1024 * 1024;
+	public static final int ADMIT_COUNT = 2;
+	private static final int MAX_USE_COUNT_SIZE = 1024;
+
+	private final int documentCount;
+	private final long maxMemory;
+	private BitSet deleteSet;
+	//삭제문서가 바뀔때마다 증가하여, 이전 삭제문서로 만든 집합이 들어오지 않게 한다.
+	private int generation;
+	private long memorySize;
+
+	private final LinkedHashMap<String, RoaringDocSet> cache;
+	private final LinkedHashMap<String, Integer> useCounts;
+
+	private long hitCount;
+	private long missCount;
+
+	public FilterDocSetCache(int documentCount) {
+		this(documentCount, DEFAULT_MAX_MEMORY);
+	}
+
+	public FilterDocSetCache(int documentCount, long maxMemory) {
+		this.documentCount = documentCount;
+		this.maxMemory = maxMemory;
+		cache = new LinkedHashMap<String, RoaringDocSet>(16, 0.75f, true);
+		useCounts = new LinkedHashMap<String, Integer>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Integer> eldest) {
+				return size() > MAX_USE_COUNT_SIZE;
+			}
+		};
+	}
+
+	public int documentCount() {
+		return documentCount;
+	}
+
+	public synchronized BitSet deleteSet() {
+		return deleteSet;
+	}
+
+	public synchronized int generation() {
+		return generation;
+	}
+
+	/**
+	 * 세그먼트의 삭제문서가 바뀌었을때 호출한다. 캐시를 모두 비운다.
+	 * */
+	public synchronized void setDeleteSet(BitSet deleteSet) {
+		this.deleteSet = deleteSet;
+		generation++;
+		cache.clear();
+		memorySize = 0;
+	}
+
+	public synchronized RoaringDocSet get(String key) {
+		RoaringDocSet docSet = cache.get(key);
+		if (docSet != null) {
+			hitCount++;
+		} else {
+			missCount++;
+		}
+		return docSet;
+	}
+
+	/**
+	 * 요청횟수를 세어 캐시를 만들 필터인지 판단한다.
+	 * */
+	public synchronized boolean admit(String key) {
+		Integer count = useCounts.get(key);
+		count = count == null ? 1 : count + 1;
+		useCounts.put(key, count);
+		return count >= ADMIT_COUNT;
+	}
+
+	/**
+	 * @param generation 집합을 만들기 시작할때의 generation(). 그사이 삭제문서가 바뀌었으면 넣지 않는다.
+	 * */
+	public synchronized void put(String key, RoaringDocSet docSet, int generation) {
+		if (generation != this.generation) {
+			return;
+		}
+		long size = docSet.memorySize();
+		if (size > maxMemory) {
+			return;
+		}
+		RoaringDocSet old = cache.put(key, docSet);
+		if (old != null) {
+			memorySize -= old.memorySize();
+		}
+		memorySize += size;
+		Iterator<RoaringDocSet> iterator = cache.values().iterator();
+		while (memorySize > maxMemory && iterator.hasNext()) {
+			memorySize -= iterator.next().memorySize();
+			iterator.remove();
+		}
+		useCounts.remove(key);
+		logger.debug("put filter docset [{}] {} total[{}]", key, docSet, memorySize);
+	}
+
+	public synchronized void clear() {
+		cache.clear();
+		useCounts.clear();
+		memorySize = 0;
+	}
+
+	public synchronized int size() {
+		return cache.size();
+	}
+
+	public synchronized long memorySize() {
+		return memorySize;
+	}
+
+	public synchronized long hitCount() {
+		return hitCount;
+	}
+
+	public synchronized long missCount() {
+		return missCount;
+	}
+}
@@ -25,6 +25,7 @@ import org.fastcatsearch.ir.common.IRException;
 import org.fastcatsearch.ir.common.IndexFileNames;
 import org.fastcatsearch.ir.document.PrimaryKeyIndexReader;
 import org.fastcatsearch.ir.io.DataRef;
+import org.fastcatsearch.ir.io.IndexInputFactory;
 import org.fastcatsearch.ir.io.FixedDataInput;
 import org.fastcatsearch.ir.io.IOUtil;
 import org.fastcatsearch.ir.io.SequencialDataInput;
@@ -49,6 +50,10 @@ public class GroupIndexReader extends ReferenceableIndexReader {
 	public GroupIndexReader() {}
 	
 	public GroupIndexReader(GroupIndexSetting groupIndexSetting, Map<String, FieldSetting> fieldSettingMap, File dir) throws IOException, IRException{
+		this(groupIndexSetting, fieldSettingMap, dir, IndexInputFactory.BUFFERED);
+	}
+
+	public GroupIndexReader(GroupIndexSetting groupIndexSetting, Map<String, FieldSetting> fieldSettingMap, File dir, IndexInputFactory inputFactory) throws IOException, IRException{
 		String id = groupIndexSetting.getId();
 		String refId = groupIndexSetting.getRef();
 		FieldSetting refFieldSetting = fieldSettingMap.get(refId);
@@ -56,7 +61,7 @@ public class GroupIndexReader extends ReferenceableIndexReader {
 		File dataFile = new File(dir, IndexFileNames.getGroupIndexFileName(id));
 		File multiValueFile = new File(dir, IndexFileNames.getMultiValueFileName(IndexFileNames.getGroupIndexFileName(id)));
     	
-		init(id, refFieldSetting, dataFile, multiValueFile, IOUtil.SIZE_OF_INT);
+		init(id, refFieldSetting, dataFile, multiValueFile, IOUtil.SIZE_OF_INT, inputFactory);
 		
 		if(refFieldSetting.isVariableField()){
 			groupKeyInput = new VariableDataInput(dir, IndexFileNames.getGroupKeyFileName(id));
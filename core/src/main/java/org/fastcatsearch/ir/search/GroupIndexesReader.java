@@ -6,6 +6,7 @@ import java.util.ArrayList;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.fastcatsearch.ir.common.IRException;
+import org.fastcatsearch.ir.io.IndexInputFactory;
 import org.fastcatsearch.ir.settings.GroupIndexSetting;
 import org.fastcatsearch.ir.settings.Schema;
 
@@ -14,6 +15,10 @@ public class GroupIndexesReader extends SelectableIndexesReader<GroupIndexReader
 	public GroupIndexesReader(){ }
 	
 	public GroupIndexesReader(Schema schema, File dir) throws IOException, IRException{
+		this(schema, dir, IndexInputFactory.BUFFERED);
+	}
+
+	public GroupIndexesReader(Schema schema, File dir, IndexInputFactory inputFactory) throws IOException, IRException{
 		indexSettingList = schema.schemaSetting().getGroupIndexSettingList();
 		int indexCount = indexSettingList == null ? 0 : indexSettingList.size();
 		
@@ -24,7 +29,7 @@ public class GroupIndexesReader extends SelectableIndexesReader<GroupIndexReader
 			GroupIndexReader reader = null;
 			try{
 //				reader = new GroupIndexReader(setting, schema.fieldSettingMap(), dir, revision);
-                reader = new GroupIndexReader(setting, schema.fieldSettingMap(), dir);
+                reader = new GroupIndexReader(setting, schema.fieldSettingMap(), dir, inputFactory);
 			}catch(Exception e){
 				logger.error("그룹색인 {}로딩중 에러 >> {}", setting.getId(), e);
 			}
@@ -19,10 +19,24 @@ package org.fastcatsearch.ir.search;
 import java.io.IOException;
 
 import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.search.highlight.WeightedTerm;
 import org.fastcatsearch.ir.query.Term.Option;
 
 public interface HighlightAndSummary {
 	
 	public String highlight(String fieldId, Analyzer indexAnalyzer, Analyzer queryAnalyzer, String pText, String query, String[] tags, int len, int maxFragments, Option searchOption) throws IOException;
+	
+	/**
+	 * 질의어를 분석한 텀목록. 요청내에서 문서, 필드가 바뀌어도 같은 질의어와 분석기이면 재사용할수 있다.
+	 */
+	public WeightedTerm[] analyzeQuery(String fieldId, Analyzer queryAnalyzer, String query, Option searchOption) throws IOException;
+	
+	/**
+	 * 문서 본문을 색인분석기로 분석하는 토큰스트림.
+	 */
+	public TokenStream documentTokenStream(String fieldId, Analyzer indexAnalyzer, String pText) throws IOException;
+	
+	public String highlight(TokenStream tokenStream, WeightedTerm[] weightedTerms, String pText, String[] tags, int len, int maxFragments) throws IOException;
 	    
 }
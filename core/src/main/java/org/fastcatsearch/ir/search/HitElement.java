@@ -61,6 +61,19 @@ public class HitElement extends AbstractHitElement<HitElement> {
 		this.bundleKey = bundleKey;
 	}
 
+	/**
+	 * 랭커에서 밀려나 재사용하는 HitElement 를 다른 문서로 초기화한다. 정렬데이터 버퍼는 그대로 두고 SortGenerator 가 덮어쓴다.
+	 */
+	public void init(int docNo, int score, int hit, List<RowExplanation> list) {
+		this.collectionId = null;
+		this.docNo = docNo;
+		this.score = score;
+		this.hit = hit;
+		this.list = list;
+		this.distance = 0;
+		this.filterMatchOrder = 0;
+	}
+
     public float distance() {
         return distance;
     }
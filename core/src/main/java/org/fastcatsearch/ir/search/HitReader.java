@@ -1,10 +1,12 @@
 package org.fastcatsearch.ir.search;
 
+import org.apache.lucene.util.BytesRef;
 import org.fastcatsearch.ir.common.IRException;
 import org.fastcatsearch.ir.filter.FilterException;
 import org.fastcatsearch.ir.group.GroupDataGenerator;
 import org.fastcatsearch.ir.group.GroupsData;
 import org.fastcatsearch.ir.io.BitSet;
+import org.fastcatsearch.ir.io.FixedMaxPriorityQueue;
 import org.fastcatsearch.ir.query.*;
 import org.fastcatsearch.ir.search.clause.*;
 import org.fastcatsearch.ir.settings.Schema;
@@ -18,6 +20,7 @@ import java.io.StringWriter;
 
 public class HitReader {
 	private static Logger logger = LoggerFactory.getLogger(HitReader.class);
+	private static final int MAX_EXACT_FLOAT_SCORE = 1 << 24;
 	
 	private Schema schema;
     private SegmentReader segmentReader;
@@ -46,6 +49,28 @@ public class HitReader {
 	HitElement[] hitElementBuffer;
 	int nread;
 	int totalCount;
+	private boolean isPrunable;
+	private int minCompetitiveScore;
+	
+	//세그먼트 색인정렬과 첫 정렬조건이 같으면 앞에서부터 collectLimit 개만 모은다.
+	private boolean isEarlyTerminable;
+	private boolean isExactCount;
+	private int collectLimit;
+	private int docCount;
+	private BytesRef boundarySortData;
+	private boolean isEarlyTerminated;
+	//조기종료후 exactcount 이면 결과는 만들지 않고 갯수만 센다.
+	private boolean isCountOnly;
+	
+	//RankInfo 는 BULK_SIZE 개를 만들어 재사용한다. 필터가 rankInfoList 를 앞으로 당기며 덮어쓰므로 슬롯 원본은 따로 둔다.
+	private RankInfo[] rankInfoPool;
+	//묶음검색이 아니면 HitElement 를 재사용한다. 랭커에 들어가지 못했거나 밀려난 HitElement 를 돌려받아 보관한다.
+	private boolean isRecyclable;
+	private HitElement[] freeElements;
+	private int freeCount;
+	//주어지면 이 랭커에 들어갈수 없는 문서는 next()로 넘기지 않고 바로 재사용한다.
+	private FixedMaxPriorityQueue<HitElement> competitiveRanker;
+	private int skippedCount;
 	
 	
 	public HitReader(SegmentReader segmentReader, Metadata meta, Clause clause, Filters filters, Groups groups, Filters groupFilters, Sorts sorts, Bundle bundle, PkScoreList boostList) throws IOException, ClauseException, IRException {
@@ -58,7 +83,7 @@ public class HitReader {
 		FieldIndexesReader fieldIndexesReader = null;
 //		int sortMaxSize = meta.start() + meta.rows() - 1;
 		schema = segmentReader.schema();
-		int docCount = segmentReader.docCount();
+		docCount = segmentReader.docCount();
         segmentId = segmentReader.segmentId();
         // Search
 		highlightInfo = new HighlightInfo();
@@ -79,7 +104,7 @@ public class HitReader {
 				fieldIndexesReader = segmentReader.newFieldIndexesReader();
 			}
 			//schema를 통해 field index setting을 알아야 필터링시 ignorecase등의 정보를 활용가능하다.
-			hitFilter = filters.getHitFilter(schema, fieldIndexesReader, BULK_SIZE);
+			hitFilter = filters.getHitFilter(schema, fieldIndexesReader, BULK_SIZE, segmentReader.filterDocSetCache());
 		}
 		
 		//group
@@ -89,7 +114,7 @@ public class HitReader {
 			}
 			groupGenerator = groups.getGroupDataGenerator(schema, segmentReader.newGroupIndexesReader(), fieldIndexesReader);
 			if (groupFilters != null) {
-				groupHitFilter = groupFilters.getHitFilter(schema, fieldIndexesReader, BULK_SIZE);
+				groupHitFilter = groupFilters.getHitFilter(schema, fieldIndexesReader, BULK_SIZE, segmentReader.filterDocSetCache());
 			}
 		}
 		
@@ -101,6 +126,8 @@ public class HitReader {
 					fieldIndexesReader = segmentReader.newFieldIndexesReader();
 				}
                 sortGenerator = Sorts.DEFAULT_SORTS.getSortGenerator(schema, fieldIndexesReader, bundle);
+			} else {
+				sortGenerator = new SortGenerator();
 			}
 		} else {
 			if(fieldIndexesReader == null){
@@ -132,8 +159,32 @@ public class HitReader {
 		
 		operatedClause.init(clauseExplanation);
 		
+		/*
+		 * 점수 내림차순 정렬이면서 모든 문서를 보아야 하는 그룹, 묶음, 점수를 바꾸는 필터가 없을때에는
+		 * top K에 들어갈수 없는 문서를 검색절에서 건너뛸수 있다. 이때 결과갯수는 정확하지 않으므로 exactcount 옵션이면 하지 않는다.
+		 */
+		isPrunable = sorts != null && sorts.isScoreDescFirst() && groups == null && bundle == null && !isExplain
+				&& (filters == null || !filters.hasBoostFunction()) && !meta.isSearchOption(Query.SEARCH_OPT_EXACT_COUNT);
+		
+		/*
+		 * 세그먼트가 첫 정렬조건 순서로 기록되어 있으면 문서번호 순서가 곧 정렬순서이므로, 정렬최대갯수를 모은 뒤로는
+		 * 마지막 문서와 정렬값이 같은 문서까지만 보면 된다. 그룹과 묶음은 모든 문서를 보아야 하므로 제외한다.
+		 */
+		isEarlyTerminable = sorts != null && sorts.isIndexSortFirst(segmentReader.segmentInfo().getIndexSort()) && groups == null && bundle == null;
+		isExactCount = meta.isSearchOption(Query.SEARCH_OPT_EXACT_COUNT);
+		collectLimit = meta.start() + meta.rows() - 1;
+		isEarlyTerminable = isEarlyTerminable && collectLimit > 0;
+		
 		rankInfoList = new RankInfo[BULK_SIZE];
+		rankInfoPool = new RankInfo[BULK_SIZE];
+		for (int i = 0; i < BULK_SIZE; i++) {
+			rankInfoPool[i] = new RankInfo(isExplain);
+		}
 		hitElementBuffer = new HitElement[BULK_SIZE];
+		isRecyclable = bundle == null;
+		if (isRecyclable) {
+			freeElements = new HitElement[BULK_SIZE * 2];
+		}
 	}
 	
 	public HitElement next() throws IOException, FilterException {
@@ -156,7 +207,8 @@ public class HitReader {
 			
 			// search and check delete documents
 			while (nread < BULK_SIZE) {
-				RankInfo rankInfo = new RankInfo(isExplain);
+				RankInfo rankInfo = rankInfoPool[nread];
+				rankInfo.recycle();
 				if (operatedClause.next(rankInfo)) {
 					if (!localDeleteSet.isSet(rankInfo.docNo())) {
 						rankInfoList[nread] = rankInfo;
@@ -181,10 +233,17 @@ public class HitReader {
 			}
 		}
 			
+		int lastDocNo = rankInfoList[nread - 1].docNo();
 		if (filters != null && filters.size() > 0 && hitFilter != null) {
 			nread = hitFilter.filtering(rankInfoList, nread);
 		}
 		
+		if (isCountOnly) {
+			totalCount += nread;
+			nread = 0;
+			return;
+		}
+		
 		// group
 		if (groups != null) {
 			groupGenerator.insert(rankInfoList, nread);
@@ -195,24 +254,143 @@ public class HitReader {
 			}
 		}
 		
-		if (sorts == null || sorts == Sorts.DEFAULT_SORTS) {
-			//정렬없는 묶음검색의 경우.
-			if(sortGenerator != null) {
-				sortGenerator.getHitElement(rankInfoList, hitElementBuffer, nread);
-			} else {
-				for (int i = 0; i < nread; i++) {
-					hitElementBuffer[i] = new HitElement(rankInfoList[i].docNo(), rankInfoList[i].score(), rankInfoList[i].hit(), rankInfoList[i].rowExplanations());
-                    hitElementBuffer[i].setDistance(rankInfoList[i].distance());
-					hitElementBuffer[i].setFilterMatchOrder(rankInfoList[i].filterMatchOrder());
-				}
+		if (isRecyclable) {
+			for (int i = 0; i < nread; i++) {
+				hitElementBuffer[i] = sortGenerator.fillHitElement(rankInfoList[i], pollElement());
+				hitElementBuffer[i].setSegmentId(segmentId);
 			}
 		} else {
+			//묶음검색은 묶음키를 HitElement 마다 새로 만든다.
 			sortGenerator.getHitElement(rankInfoList, hitElementBuffer, nread);
 		}
 		
-		
+		int matchCount = nread;
+		if (isEarlyTerminable && !isEarlyTerminated) {
+			nread = collectUntilBoundary(nread);
+			for (int i = nread; i < matchCount; i++) {
+				recycle(hitElementBuffer[i]);
+			}
+		}
 		totalCount += nread;
 		
+		if (isEarlyTerminated) {
+			if (isExactCount) {
+				//남은 문서는 갯수만 센다.
+				totalCount += matchCount - nread;
+				isCountOnly = true;
+			} else {
+				//읽은 문서범위의 결과비율로 전체 결과갯수를 추정한다.
+				int matched = totalCount + matchCount - nread;
+				long estimated = (long) matched * docCount / (lastDocNo + 1);
+				totalCount = (int) Math.max(totalCount, Math.min(estimated, docCount));
+				exausted = true;
+			}
+		}
+		
+		if (competitiveRanker != null) {
+			nread = dropNonCompetitive(nread);
+		}
+	}
+	
+	/**
+	 * 랭커의 root 보다 뒤인 문서는 top K에 들어갈수 없으므로 넘기지 않고 HitElement 를 바로 재사용한다.
+	 * 랭커의 root 는 앞으로 더 앞쪽으로만 바뀌므로 여기서 버린 문서가 나중에 들어갈수 있게 되지는 않는다.
+	 */
+	private int dropNonCompetitive(int nread) {
+		int count = 0;
+		for (int i = 0; i < nread; i++) {
+			HitElement e = hitElementBuffer[i];
+			if (competitiveRanker.isCompetitive(e)) {
+				hitElementBuffer[count++] = e;
+			} else {
+				recycle(e);
+				skippedCount++;
+			}
+		}
+		return count;
+	}
+	
+	private HitElement pollElement() {
+		if (freeCount > 0) {
+			HitElement e = freeElements[--freeCount];
+			freeElements[freeCount] = null;
+			return e;
+		}
+		return null;
+	}
+	
+	/**
+	 * 랭커에 들어가지 못했거나 밀려나서 더이상 참조되지 않는 HitElement 를 돌려받아 다음 문서에 재사용한다.
+	 * 같은 질의의 다른 세그먼트 HitReader 에서 만든 HitElement 도 받을수 있다. 묶음검색이면 무시한다.
+	 */
+	public void recycle(HitElement e) {
+		if (isRecyclable && freeCount < freeElements.length) {
+			freeElements[freeCount++] = e;
+		}
+	}
+	
+	/**
+	 * 결과를 넣을 랭커를 알려주면 랭커에 들어갈수 없는 문서는 next()에서 넘기지 않는다. 묶음검색에는 적용되지 않는다.
+	 * 랭커는 이 HitReader 를 읽는 쓰레드에서만 사용되어야 한다.
+	 */
+	public void setCompetitiveRanker(FixedMaxPriorityQueue<HitElement> ranker) {
+		if (isRecyclable) {
+			competitiveRanker = ranker;
+		}
+	}
+	
+	/**
+	 * 결과갯수에는 포함되었지만 랭커에 들어갈수 없어 next()로 넘기지 않은 문서 갯수.
+	 */
+	public int skippedCount() {
+		return skippedCount;
+	}
+	
+	/**
+	 * 정렬최대갯수번째 결과의 정렬값을 경계로 잡고, 경계값과 다른 첫 결과에서 멈춘다.
+	 * 정렬값이 같은 문서는 랭커에서 문서번호로 순위가 정해지므로 경계값과 같은 문서는 모두 넘겨준다.
+	 */
+	private int collectUntilBoundary(int nread) {
+		int i = 0;
+		if (boundarySortData == null) {
+			int need = collectLimit - totalCount;
+			if (nread < need) {
+				return nread;
+			}
+			//HitElement 는 랭커에서 밀려나면 재사용되므로 복사해둔다.
+			boundarySortData = hitElementBuffer[need - 1].rankData(0).duplicate();
+			i = need;
+		}
+		for (; i < nread; i++) {
+			if (!boundarySortData.bytesEquals(hitElementBuffer[i].rankData(0))) {
+				isEarlyTerminated = true;
+				return i;
+			}
+		}
+		return nread;
+	}
+	
+	/**
+	 * 색인정렬로 일부 문서만 보고 끝났는지 여부. exactcount 가 아니면 totalCount 는 추정값이다.
+	 */
+	public boolean isEarlyTerminated() {
+		return isEarlyTerminated;
+	}
+	
+	public boolean isPrunable() {
+		return isPrunable;
+	}
+	
+	/**
+	 * 점수가 minScore 보다 작은 문서는 top K에 들어갈수 없으므로 검색절에서 건너뛰게 한다.
+	 * 정렬시 점수는 float 으로 비교되므로 float 으로 정확히 표현되지 않는 큰 점수는 동점이 될수 있어 적용하지 않는다.
+	 */
+	public void setMinCompetitiveScore(int minScore) {
+		if (!isPrunable || minScore <= minCompetitiveScore || minScore > MAX_EXACT_FLOAT_SCORE) {
+			return;
+		}
+		minCompetitiveScore = minScore;
+		operatedClause.setMinCompetitiveScore(minScore);
 	}
 	
 	public int totalCount() { 
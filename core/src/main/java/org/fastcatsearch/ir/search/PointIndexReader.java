@@ -0,0 +1,158 @@
+package org.fastcatsearch.ir.search;
+
+import org.fastcatsearch.ir.io.BitSet;
+import org.fastcatsearch.ir.io.IOUtil;
+import org.fastcatsearch.ir.io.IndexInput;
+import org.fastcatsearch.ir.io.IndexInputFactory;
+import org.fastcatsearch.ir.settings.FieldSetting.Type;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * 숫자 필드색인의 포인트색인. 값 오름차순으로 정렬된 (값, 문서번호)를 블럭단위로 기록하고 블럭별 첫 값을 메모리에 올려,
+ * 범위조건을 블럭 이진탐색 후 범위내 엔트리만 순차로 읽어 문서집합으로 만든다.
+ * 값은 타입과 무관하게 long 크기비교가 숫자 크기순서와 같도록 변환하여 기록한다.(sortableValue 참조)
+ *
+ * field.필드명.point
+ *     포맷 : int(버전), int(문서갯수), int(엔트리갯수), int(블럭크기), int(블럭갯수), { long(블럭첫값) } * 블럭갯수, { long(값), int(문서번호) } * 엔트리갯수
+ *
+ * @see org.fastcatsearch.ir.index.PointIndexWriter
+ * */
+public class PointIndexReader implements Cloneable {
+
+	public static final int VERSION = 1;
+	public static final int ENTRY_SIZE = IOUtil.SIZE_OF_LONG + IOUtil.SIZE_OF_INT;
+
+	private IndexInput input;
+	private int documentCount;
+	private int count;
+	private int blockSize;
+	private long[] blockFirstValues;
+	private long dataPosition;
+
+	private PointIndexReader() {
+	}
+
+	public PointIndexReader(File file, IndexInputFactory inputFactory) throws IOException {
+		input = inputFactory.open(file);
+		int version = input.readInt();
+		if (version != VERSION) {
+			input.close();
+			throw new IOException("Unknown point index version " + version + " : " + file.getAbsolutePath());
+		}
+		documentCount = input.readInt();
+		count = input.readInt();
+		blockSize = input.readInt();
+		int blockCount = input.readInt();
+		blockFirstValues = new long[blockCount];
+		for (int i = 0; i < blockCount; i++) {
+			blockFirstValues[i] = input.readLong();
+		}
+		dataPosition = input.position();
+	}
+
+	public int documentCount() {
+		return documentCount;
+	}
+
+	public int count() {
+		return count;
+	}
+
+	/**
+	 * 문서갯수 크기의 빈 문서집합.
+	 * */
+	public BitSet newDocSet() {
+		return new BitSet(documentCount / IOUtil.BITS_OF_LONG + 1);
+	}
+
+	/**
+	 * 변환된 값이 min 이상 max 이하인 문서를 docSet 에 추가한다.
+	 * */
+	public void collect(long min, long max, BitSet docSet) throws IOException {
+		if (count == 0 || min > max) {
+			return;
+		}
+		//같은 값이 여러 블럭에 걸칠수 있으므로 첫값이 min 보다 작은 마지막 블럭부터 읽는다.
+		int low = 0;
+		int high = blockFirstValues.length - 1;
+		int block = 0;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			if (blockFirstValues[mid] < min) {
+				block = mid;
+				low = mid + 1;
+			} else {
+				high = mid - 1;
+			}
+		}
+		int entry = block * blockSize;
+		input.seek(dataPosition + (long) entry * ENTRY_SIZE);
+		for (; entry < count; entry++) {
+			long value = input.readLong();
+			int docNo = input.readInt();
+			if (value > max) {
+				break;
+			}
+			if (value >= min) {
+				docSet.set(docNo);
+			}
+		}
+	}
+
+	@Override
+	public PointIndexReader clone() {
+		PointIndexReader reader = new PointIndexReader();
+		reader.input = input.clone();
+		reader.documentCount = documentCount;
+		reader.count = count;
+		reader.blockSize = blockSize;
+		reader.blockFirstValues = blockFirstValues;
+		reader.dataPosition = dataPosition;
+		return reader;
+	}
+
+	public void close() throws IOException {
+		input.close();
+	}
+
+	/**
+	 * 포인트색인을 만들수 있는 타입과 데이터크기인지 여부.
+	 * */
+	public static boolean isSupported(Type type, int dataSize) {
+		if (type == Type.INT || type == Type.FLOAT) {
+			return dataSize == IOUtil.SIZE_OF_INT;
+		} else if (type == Type.LONG || type == Type.DOUBLE || type == Type.DATETIME) {
+			return dataSize == IOUtil.SIZE_OF_LONG;
+		}
+		return false;
+	}
+
+	/**
+	 * 필드색인에 기록된 값(INT, FLOAT은 int 비트, 그외는 long 비트)을 long 크기비교가 가능한 값으로 변환한다.
+	 * 실수는 부호비트에 따라 나머지 비트를 뒤집어 음수의 순서를 맞추며, -0.0은 0.0과 같게 취급한다.
+	 * */
+	public static long sortableValue(Type type, long bits) {
+		if (type == Type.FLOAT) {
+			float f = Float.intBitsToFloat((int) bits);
+			int intBits = Float.floatToIntBits(f == 0f ? 0f : f);
+			return intBits ^ ((intBits >> 31) & 0x7fffffff);
+		} else if (type == Type.DOUBLE) {
+			double d = Double.longBitsToDouble(bits);
+			long longBits = Double.doubleToLongBits(d == 0d ? 0d : d);
+			return longBits ^ ((longBits >> 63) & 0x7fffffffffffffffL);
+		} else if (type == Type.INT) {
+			return (int) bits;
+		}
+		return bits;
+	}
+
+	public static long sortableValue(float value) {
+		return sortableValue(Type.FLOAT, Float.floatToRawIntBits(value));
+	}
+
+	public static long sortableValue(double value) {
+		return sortableValue(Type.DOUBLE, Double.doubleToRawLongBits(value));
+	}
+}
@@ -1,9 +1,12 @@
 package org.fastcatsearch.ir.search;
 
 public class PostingDoc {
-	private int docNo;
-	private int tf;
-	private int[] positions;
+	protected int docNo;
+	protected int tf;
+	protected int[] positions;
+	
+	protected PostingDoc(){
+	}
 	
 	public PostingDoc(int docNo, int tf){
 		this(docNo, tf, null);
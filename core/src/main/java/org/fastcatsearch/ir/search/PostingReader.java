@@ -18,8 +18,17 @@ public interface PostingReader {
 	
 	public boolean hasNext() throws IOException;
 
+	/**
+	 * 리턴되는 PostingDoc은 reader에 따라 재사용될수 있으므로, 다음 next나 advance 호출 이후까지 보관하려면 복사해야 한다.
+	 */
 	public PostingDoc next() throws IOException;
 
+	/**
+	 * 현재위치 이후에서 문서번호가 docNo 이상인 첫번째 문서로 이동한다.
+	 * @return 찾은 문서. 더이상 문서가 없으면 null.
+	 */
+	public PostingDoc advance(int docNo) throws IOException;
+
 	public void close();
 
 	public int termPosition();
@@ -27,4 +36,9 @@ public interface PostingReader {
 	public CharVector term();
 
 	public int documentCount();
+
+	/**
+	 * 포스팅 문서들의 최대 출현횟수. 색인에 기록되어 있지 않아 알수 없으면 -1.
+	 */
+	public int maxTf();
 }
@@ -28,6 +28,7 @@ import org.fastcatsearch.ir.field.FieldDataParseException;
 import org.fastcatsearch.ir.io.BytesDataOutput;
 import org.fastcatsearch.ir.io.CharVector;
 import org.fastcatsearch.ir.io.DataOutput;
+import org.fastcatsearch.ir.io.IndexInputFactory;
 import org.fastcatsearch.ir.query.Term;
 import org.fastcatsearch.ir.search.clause.OperatedClause;
 import org.fastcatsearch.ir.search.clause.TermOperatedClause;
@@ -51,6 +52,10 @@ public class PrimaryKeyIndexesReader implements Cloneable {
 	}
 
 	public PrimaryKeyIndexesReader(Schema schema, File dir) throws IOException, IRException {
+		this(schema, dir, IndexInputFactory.BUFFERED);
+	}
+
+	public PrimaryKeyIndexesReader(Schema schema, File dir, IndexInputFactory inputFactory) throws IOException, IRException {
 //		this(schema, dir, 0);
 //	}
 //
@@ -65,7 +70,7 @@ public class PrimaryKeyIndexesReader implements Cloneable {
 		}
 
 //		pkReader = new PrimaryKeyIndexReader(IndexFileNames.getRevisionDir(dir, revision), IndexFileNames.primaryKeyMap);
-		pkReader = new PrimaryKeyIndexReader(dir, IndexFileNames.primaryKeyMap);
+		pkReader = new PrimaryKeyIndexReader(dir, IndexFileNames.primaryKeyMap, inputFactory);
 	}
 
 	@Override
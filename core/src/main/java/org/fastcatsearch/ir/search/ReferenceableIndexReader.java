@@ -4,7 +4,7 @@ import java.io.File;
 import java.io.IOException;
 
 import org.fastcatsearch.ir.common.IRException;
-import org.fastcatsearch.ir.io.BufferedFileInput;
+import org.fastcatsearch.ir.io.IndexInputFactory;
 import org.fastcatsearch.ir.io.DataRef;
 import org.fastcatsearch.ir.io.IOUtil;
 import org.fastcatsearch.ir.io.IndexInput;
@@ -34,13 +34,17 @@ public abstract class ReferenceableIndexReader implements ReferenceableReader {
 	public ReferenceableIndexReader() {}
 	
 	public void init(String indexId, FieldSetting refFieldSetting, File dataFile, File multiValueFile, int dataSize) throws IOException, IRException{
+		init(indexId, refFieldSetting, dataFile, multiValueFile, dataSize, IndexInputFactory.BUFFERED);
+	}
+
+	public void init(String indexId, FieldSetting refFieldSetting, File dataFile, File multiValueFile, int dataSize, IndexInputFactory inputFactory) throws IOException, IRException{
 		this.indexId = indexId;
 		this.dataSize = dataSize;
-		dataInput = new BufferedFileInput(dataFile);
+		dataInput = inputFactory.open(dataFile);
     	
     	isMultiValue = refFieldSetting.isMultiValue();
     	if(isMultiValue){
-    		multiValueInput = new BufferedFileInput(multiValueFile);
+    		multiValueInput = inputFactory.open(multiValueFile);
     		dataRef = new StreamInputRef(multiValueInput, dataSize);
     	}else{
     		dataRef = new DataRef(dataSize);
@@ -19,16 +19,19 @@ package org.fastcatsearch.ir.search;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.apache.lucene.analysis.Analyzer;
 import org.fastcatsearch.ir.analysis.AnalyzerPool;
 import org.fastcatsearch.ir.common.IRException;
 import org.fastcatsearch.ir.common.IndexFileNames;
+import org.fastcatsearch.ir.fst.FST;
 import org.fastcatsearch.ir.index.IndexFieldOption;
+import org.fastcatsearch.ir.index.PostingSkipList;
 import org.fastcatsearch.ir.io.BufferedFileInput;
+import org.fastcatsearch.ir.io.IndexInputFactory;
 import org.fastcatsearch.ir.io.CharVector;
-import org.fastcatsearch.ir.io.FixedMinHeap;
 import org.fastcatsearch.ir.io.IOUtil;
 import org.fastcatsearch.ir.io.IndexInput;
 import org.fastcatsearch.ir.search.method.AbstractSearchMethod;
@@ -42,6 +45,8 @@ import org.slf4j.LoggerFactory;
 
 /**
  * 검색시 numeric field도 모두 string 형으로 처리하기때문에, key는 123 1200 2 20000 31 과 같이 정렬되어 있다.
+ * 
+ * 텀 사전은 FST(search.X.fst)가 있으면 FST에서 lexicon 위치를 바로 찾고, 없는 이전 색인은 MemoryLexicon 으로 근처 위치를 찾은뒤 lexicon 을 순차탐색한다.
  * */
 public class SearchIndexReader implements Cloneable {
 	private static Logger logger = LoggerFactory.getLogger(SearchIndexReader.class);
@@ -51,6 +56,8 @@ public class SearchIndexReader implements Cloneable {
 	private IndexInput lexiconInput;
 	private Schema schema;
 	private MemoryLexicon memoryLexicon;
+	private FST lexiconFST;
+	private FST reverseLexiconFST;
 	private long fileLimit;
 	private IndexFieldOption indexFieldOption;
 
@@ -62,6 +69,10 @@ public class SearchIndexReader implements Cloneable {
 	}
 
 	public SearchIndexReader(IndexSetting indexSetting, Schema schema, File dir, AnalyzerPool queryAnalyzerPool, int segmentDocumentCount) throws IOException, IRException {
+		this(indexSetting, schema, dir, queryAnalyzerPool, segmentDocumentCount, IndexInputFactory.BUFFERED);
+	}
+
+	public SearchIndexReader(IndexSetting indexSetting, Schema schema, File dir, AnalyzerPool queryAnalyzerPool, int segmentDocumentCount, IndexInputFactory inputFactory) throws IOException, IRException {
 //		this(indexSetting, schema, dir, 0, queryAnalyzerPool, segmentDocumentCount);
 //	}
 //
@@ -77,8 +88,8 @@ public class SearchIndexReader implements Cloneable {
 		try {
 //			postingInput = new BufferedFileInput(IndexFileNames.getRevisionDir(dir, revision) , IndexFileNames.getSearchPostingFileName(id));
 //			lexiconInput = new BufferedFileInput(IndexFileNames.getRevisionDir(dir, revision) , IndexFileNames.getSearchLexiconFileName(id));
-            postingInput = new BufferedFileInput(dir , IndexFileNames.getSearchPostingFileName(id));
-            lexiconInput = new BufferedFileInput(dir , IndexFileNames.getSearchLexiconFileName(id));
+            postingInput = inputFactory.open(dir , IndexFileNames.getSearchPostingFileName(id));
+            lexiconInput = inputFactory.open(dir , IndexFileNames.getSearchLexiconFileName(id));
 			
 			fileLimit = lexiconInput.length();
 			
@@ -95,6 +106,19 @@ public class SearchIndexReader implements Cloneable {
 			throw new IRException(e);
 		}
 		
+		File fstFile = new File(dir, IndexFileNames.getSearchFSTFileName(id));
+		if (fstFile.exists()) {
+			lexiconFST = FST.load(fstFile);
+			logger.debug("====lexicon fst - {}==== terms = {}, size = {}", id, lexiconFST.size(), lexiconFST.memorySize());
+			File reverseFstFile = new File(dir, IndexFileNames.getSearchReverseFSTFileName(id));
+			if (reverseFstFile.exists()) {
+				reverseLexiconFST = FST.load(reverseFstFile);
+			}
+			//FST가 있으면 sparse index는 필요없다.
+			memoryLexicon = new MemoryLexicon(0);
+			return;
+		}
+		
 		IndexInput indexInput = null;
 		try {
 			indexInput = new BufferedFileInput(dir, IndexFileNames.getSearchIndexFileName(id));
@@ -137,6 +161,8 @@ public class SearchIndexReader implements Cloneable {
 		reader.postingInput = postingInput.clone();
 		reader.lexiconInput = lexiconInput.clone();
 		reader.memoryLexicon = memoryLexicon;
+		reader.lexiconFST = lexiconFST;
+		reader.reverseLexiconFST = reverseLexiconFST;
 		reader.fileLimit = fileLimit;
 		reader.queryAnalyzerPool = queryAnalyzerPool;
 		reader.indexSetting = indexSetting;
@@ -147,7 +173,7 @@ public class SearchIndexReader implements Cloneable {
 	}
 	
 	public PostingDocs getPosting(CharVector singleTerm) throws IOException {
-		if (memoryLexicon.size() == 0){
+		if (isEmpty()){
 			return null;
 		}
 		
@@ -155,6 +181,14 @@ public class SearchIndexReader implements Cloneable {
 			return null;
 		}
 
+		if (lexiconFST != null) {
+			long lexiconPosition = lexiconFST.get(singleTerm);
+			if (lexiconPosition < 0) {
+				return null;
+			}
+			return getTermDocs(singleTerm, readPostingPosition(lexiconPosition));
+		}
+		
 		long[] posInfo = new long[2];
 		boolean found = memoryLexicon.binsearch(singleTerm, posInfo);
 
@@ -199,11 +233,40 @@ public class SearchIndexReader implements Cloneable {
 		return null;
 	}
 
+	private boolean isEmpty() {
+		if (lexiconFST != null) {
+			return lexiconFST.size() == 0;
+		}
+		return memoryLexicon.size() == 0;
+	}
+	
+	//lexicon 위치의 텀을 건너뛰고 포스팅 위치를 읽는다.
+	private long readPostingPosition(long lexiconPosition) throws IOException {
+		lexiconInput.seek(lexiconPosition);
+		int byteSize = lexiconInput.readVInt();
+		lexiconInput.seek(lexiconInput.position() + byteSize);
+		return lexiconInput.readLong();
+	}
+	
+	//term 보다 크거나 같은 텀부터 순차탐색할 lexicon 위치. FST가 없으면 MemoryLexicon 의 가까운 위치.
+	private long lexiconStartPosition(CharVector term) {
+		if (lexiconFST != null) {
+			long lexiconPosition = lexiconFST.ceil(term);
+			return lexiconPosition >= 0 ? lexiconPosition : fileLimit;
+		}
+		long[] posInfo = new long[2];
+		memoryLexicon.binsearch(term, posInfo);
+		return posInfo[0];
+	}
+	
 	private PostingDocs getTermDocs(CharVector singleTerm, long pos) throws IOException {
 		postingInput.seek(pos);
-		int len = postingInput.readVInt();
+		int len = postingInput.readInt();
 		int count = postingInput.readInt();
 		int lastDocNo = postingInput.readInt();
+		if (indexFieldOption.isStoreSkip()) {
+			PostingSkipList.skip(postingInput);
+		}
 
 		PostingDoc[] termDocList = new PostingDoc[count];
 		logger.debug(">>>>> create PostingDoc array size {} = {} / {}MB", singleTerm, count, Runtime.getRuntime().totalMemory() / (1024 * 1024));
@@ -287,16 +350,13 @@ public class SearchIndexReader implements Cloneable {
 	}
 
 	protected PostingDocs getPrefixPosting(CharVector singleTerm) throws IOException {
-		if (memoryLexicon.size() == 0)
+		if (isEmpty())
 			return null;
 
-		long[] posInfo = new long[2];
-		boolean found = memoryLexicon.binsearch(singleTerm, posInfo);
-
 		int foundCount = 0;
 		long startPos = -1;
 
-		long lexiconPos = posInfo[0];
+		long lexiconPos = lexiconStartPosition(singleTerm);
 		// logger.debug("lexiconPos = {}", lexiconPos);
 		lexiconInput.seek(lexiconPos);
 
@@ -306,8 +366,8 @@ public class SearchIndexReader implements Cloneable {
 			int cmp = comparePrefixKey(term2, singleTerm);
 			// logger.debug("compare key "+new String(term2)+" = "+cmp);
 
-			// 작거나 같으면 prefix에 부합한다.2013-05-28 swsong.
-			if (cmp <= 0) {
+			// 같으면 prefix에 부합한다. MemoryLexicon 의 시작위치는 prefix보다 작은 텀일수 있으므로 작은 텀은 건너뛴다.
+			if (cmp == 0) {
 				long pos = lexiconInput.readLong();
 				if (foundCount == 0) {
 					startPos = pos;
@@ -315,7 +375,9 @@ public class SearchIndexReader implements Cloneable {
 				foundCount++;
 				// logger.debug("prefix term = {}", new String(term2));
 
-			} else if (cmp > 0) {
+			} else if (cmp < 0) {
+				lexiconInput.seek(lexiconInput.position() + IOUtil.SIZE_OF_LONG);
+			} else {
 				// if term value is greater than this term, there's no suchword.
 				// search fail
 				// logger.debug("search finish! = "+new String(singleTerm.array,
@@ -328,20 +390,15 @@ public class SearchIndexReader implements Cloneable {
 		return makeTermDocs(singleTerm, startPos, foundCount);
 	}
 
+	/**
+	 * *abc 는 abc로 끝나는 텀, *abc* 는 abc를 포함하는 텀을 찾는다.
+	 * 뒤집은 텀의 FST가 있으면 suffix 검색은 FST의 prefix 탐색으로 처리하고, 그외에는 lexicon 전체를 순차탐색한다.
+	 * 찾은 텀들의 포스팅은 연속해 있지 않으므로 각 포스팅 위치를 모아서 읽는다.
+	 */
 	protected PostingDocs getSuffixPosting(CharVector singleTerm) throws IOException {
-		if (memoryLexicon.size() == 0)
+		if (isEmpty())
 			return null;
 
-		long[] posInfo = new long[2];
-		boolean found = memoryLexicon.binsearch(singleTerm, posInfo);
-
-		int foundCount = 0;
-		long startPos = -1;
-
-		long lexiconPos = posInfo[0];
-		// logger.debug("lexiconPos = {}", lexiconPos);
-		lexiconInput.seek(lexiconPos);
-
 		boolean isIncludSearch = false;
 
 		if (singleTerm.charAt(singleTerm.length() - 1) == '*') {
@@ -349,36 +406,48 @@ public class SearchIndexReader implements Cloneable {
 			isIncludSearch = true;
 		}
 
+		if (!isIncludSearch && reverseLexiconFST != null) {
+			char[] reverse = new char[singleTerm.length()];
+			for (int i = 0; i < reverse.length; i++) {
+				reverse[i] = singleTerm.charAt(reverse.length - 1 - i);
+			}
+			long[] lexiconPositions = reverseLexiconFST.prefix(new CharVector(reverse));
+			long[] postingPositions = new long[lexiconPositions.length];
+			for (int i = 0; i < lexiconPositions.length; i++) {
+				postingPositions[i] = readPostingPosition(lexiconPositions[i]);
+			}
+			logger.debug("suffix {} foundCount = {}", singleTerm, postingPositions.length);
+			return makeTermDocs(singleTerm, postingPositions, postingPositions.length);
+		}
+
+		int foundCount = 0;
+		long[] postingPositions = new long[16];
+
+		// 텀 순서와 무관하므로 처음부터 끝까지 확인한다. lexicon 의 첫 int는 텀갯수.
+		lexiconInput.seek(IOUtil.SIZE_OF_INT);
+
 		while (lexiconInput.position() < fileLimit) {
 			// lexiconInput
 			char[] term2 = lexiconInput.readUString();
 			int cmp = isIncludSearch ? compareIncludingKey(term2, singleTerm) : compareSuffixKey(term2, singleTerm);
 			// logger.debug("compare key "+new String(term2)+" = "+cmp);
 			if (cmp == 0) {
-				long pos = lexiconInput.readLong();
-				if (foundCount == 0)
-					startPos = pos;
-				foundCount++;
-				// logger.debug("prefix term = {}", new String(term2));
-
-			} else if (cmp > 0) {
-				// if term value is greater than this term, there's no such
-				// word.
-				// search fail
-				break;
+				if (foundCount == postingPositions.length) {
+					postingPositions = Arrays.copyOf(postingPositions, foundCount * 2);
+				}
+				postingPositions[foundCount++] = lexiconInput.readLong();
 			} else {
 				// skip reading pos
 				lexiconInput.seek(lexiconInput.position() + IOUtil.SIZE_OF_LONG);
-				// retry!
 			}
 		}
 
-		logger.debug("startPos = {}, foundCount = {}", startPos, foundCount);
-		return makeTermDocs(singleTerm, startPos, foundCount);
+		logger.debug("suffix {} foundCount = {}", singleTerm, foundCount);
+		return makeTermDocs(singleTerm, postingPositions, foundCount);
 	}
 
 	protected PostingDocs getRangePosting(CharVector startTerm, CharVector endTerm) throws IOException {
-		if (memoryLexicon.size() == 0)
+		if (isEmpty())
 			return null;
 		logger.debug("Range : {} ~ {}", startTerm, endTerm);
 
@@ -394,8 +463,7 @@ public class SearchIndexReader implements Cloneable {
 		/*
 		 * 1. find startTerm
 		 */
-		long[] posInfo = new long[2];
-		boolean found = memoryLexicon.binsearch(startTerm, posInfo);
+		long lexiconPos = lexiconStartPosition(startTerm);
 
 		// if(isNumericField)
 		// found = memoryLexicon.binsearchNumeric(startTerm,
@@ -406,7 +474,6 @@ public class SearchIndexReader implements Cloneable {
 		int foundCount = 0;
 		long startPos = -1;
 
-		long lexiconPos = posInfo[0];
 		logger.debug("lexiconPos = {} / limit = {}", lexiconPos, fileLimit);
 		lexiconInput.seek(lexiconPos);
 
@@ -493,75 +560,89 @@ public class SearchIndexReader implements Cloneable {
 	// thread-unsafe! 호출하는 메서드에서 thread-safe하게 호출해야한다.
 	int mpseq = 0;
 
+	//startPos 부터 연속된 foundCount 개의 포스팅을 읽어 머징한다.
 	private PostingDocs makeTermDocs(CharVector term, long startPos, int foundCount) throws IOException {
 
 		if (foundCount > 0) {
-			FixedMinHeap<PostingDocsReader> heap = new FixedMinHeap<PostingDocsReader>(foundCount);
 			mpseq++;
 
-			long pos = startPos;
-			postingInput.seek(pos);
+			postingInput.seek(startPos);
 
 			List<PostingDocs> termDocsList = new ArrayList<PostingDocs>(foundCount);
 
 			for (int c = 0; c < foundCount; c++) {
-				int prevId = -1;
-				// 위치정보를 가지고 포스팅을 읽는다.
-				int len = postingInput.readVInt();
-				int count = postingInput.readInt();
-				int lastDocNo = postingInput.readInt();
+				termDocsList.add(readPostingDocs(term));
+			}
 
-				// logger.debug("prefix posting {} / {}", c, foundCount);
-				// logger.debug("prefix posting len = {}", len);
-				// logger.debug("prefix posting count = {}", count);
-				// logger.debug("prefix posting lastDocNo = {}", lastDocNo);
+			return new PostingDocsMerger(termDocsList).merge(term, 1024);
+		}
+		return null;
+	}
 
-				PostingDoc[] termDocList = new PostingDoc[count];
+	//떨어져 있는 포스팅들을 각 위치에서 읽어 머징한다. 위치는 오름차순이어야 순차로 읽는다.
+	private PostingDocs makeTermDocs(CharVector term, long[] postingPositions, int foundCount) throws IOException {
 
-				int docId = -1;
+		if (foundCount > 0) {
+			mpseq++;
 
-				for (int i = 0; i < count; i++) {
-					if (prevId >= 0) {
-						docId = postingInput.readVInt() + prevId + 1;
-					} else {
-						docId = postingInput.readVInt();
-					}
+			Arrays.sort(postingPositions, 0, foundCount);
+			List<PostingDocs> termDocsList = new ArrayList<PostingDocs>(foundCount);
 
-					int tf = postingInput.readVInt();
-
-					int[] positions = null;
-					if (indexFieldOption.isStorePosition()) {
-						int prevPosition = -1;
-						positions = new int[tf];
-						for (int j = 0; j < tf; j++) {
-							if (prevPosition >= 0) {
-								positions[j] = postingInput.readVInt() + prevPosition + 1;
-							} else {
-								positions[j] = postingInput.readVInt();
-							}
-							prevPosition = positions[j];
-						}
+			for (int c = 0; c < foundCount; c++) {
+				postingInput.seek(postingPositions[c]);
+				termDocsList.add(readPostingDocs(term));
+			}
 
-					}
+			return new PostingDocsMerger(termDocsList).merge(term, 1024);
+		}
+		return null;
+	}
 
-					termDocList[i] = new PostingDoc(docId, tf, positions);
+	//현재 위치의 포스팅 하나를 읽는다.
+	private PostingDocs readPostingDocs(CharVector term) throws IOException {
+		int prevId = -1;
+		// 위치정보를 가지고 포스팅을 읽는다.
+		int len = postingInput.readInt();
+		int count = postingInput.readInt();
+		int lastDocNo = postingInput.readInt();
+		if (indexFieldOption.isStoreSkip()) {
+			PostingSkipList.skip(postingInput);
+		}
 
-					prevId = docId;
+		PostingDoc[] termDocList = new PostingDoc[count];
+
+		int docId = -1;
+
+		for (int i = 0; i < count; i++) {
+			if (prevId >= 0) {
+				docId = postingInput.readVInt() + prevId + 1;
+			} else {
+				docId = postingInput.readVInt();
+			}
 
+			int tf = postingInput.readVInt();
+
+			int[] positions = null;
+			if (indexFieldOption.isStorePosition()) {
+				int prevPosition = -1;
+				positions = new int[tf];
+				for (int j = 0; j < tf; j++) {
+					if (prevPosition >= 0) {
+						positions[j] = postingInput.readVInt() + prevPosition + 1;
+					} else {
+						positions[j] = postingInput.readVInt();
+					}
+					prevPosition = positions[j];
 				}
 
-				// TermDocsReader r = new TermDocsReader(new TermDocs(indexFieldSequence, term, termDocList, count));
+			}
 
-				termDocsList.add(new PostingDocs(term, termDocList, count));
-				// if (r.next()) {
-				// heap.push(r);
-				// }
+			termDocList[i] = new PostingDoc(docId, tf, positions);
 
-			}// for
+			prevId = docId;
 
-			return new PostingDocsMerger(termDocsList).merge(term, 1024);
 		}
-		return null;
+		return new PostingDocs(term, termDocList, count);
 	}
 
 
@@ -606,25 +687,18 @@ public class SearchIndexReader implements Cloneable {
 		return len1 - len2;
 	}
 
+	//t 가 term 으로 끝나면 0.
 	private int compareSuffixKey(char[] t, CharVector term) {
-
-		// enable to include term
-		if (t.length >= term.length()) {
-			for (int i = 0, j = 0; i < t.length; i++) {
-				if ((t.length - i) < j) {
-					break;
-				}
-				if (t[t.length - 1 - i] == term.charAt(term.length() - 1 - j)) {
-					if (++j == term.length()) {
-						return 0;
-					}
-				} else {
-					j = 0;
-					continue;
-				}
+		int offset = t.length - term.length();
+		if (offset < 0) {
+			return -1;
+		}
+		for (int i = 0; i < term.length(); i++) {
+			if (t[offset + i] != term.charAt(i)) {
+				return -1;
 			}
 		}
-		return -1;
+		return 0;
 	}
 
 	private int compareIncludingKey(char[] t, CharVector term) {
@@ -665,7 +739,7 @@ public class SearchIndexReader implements Cloneable {
 	}
 	public SearchMethod createSearchMethod(AbstractSearchMethod searchMethod){
 		//index input은 clone하여 각자 사용한다. 
-		searchMethod.init(this.memoryLexicon, this.lexiconInput.clone(), this.postingInput.clone(), this.indexFieldOption, this.segmentDocumentCount);
+		searchMethod.init(this.memoryLexicon, this.lexiconFST, this.lexiconInput.clone(), this.postingInput.clone(), this.indexFieldOption, this.segmentDocumentCount);
 		return searchMethod;
 	}
 	
@@ -21,6 +21,7 @@ import org.fastcatsearch.error.SearchError;
 import org.fastcatsearch.ir.analysis.AnalyzerPool;
 import org.fastcatsearch.ir.analysis.AnalyzerPoolManager;
 import org.fastcatsearch.ir.common.IRException;
+import org.fastcatsearch.ir.io.IndexInputFactory;
 import org.fastcatsearch.ir.query.HighlightInfo;
 import org.fastcatsearch.ir.query.Term;
 import org.fastcatsearch.ir.search.clause.OperatedClause;
@@ -55,6 +56,10 @@ public class SearchIndexesReader implements Cloneable {
 	}
 
 	public SearchIndexesReader(Schema schema, File dir, AnalyzerPoolManager analyzerPoolManager, int segmentDocumentCount) throws IOException, IRException {
+		this(schema, dir, analyzerPoolManager, segmentDocumentCount, IndexInputFactory.BUFFERED);
+	}
+
+	public SearchIndexesReader(Schema schema, File dir, AnalyzerPoolManager analyzerPoolManager, int segmentDocumentCount, IndexInputFactory inputFactory) throws IOException, IRException {
 		this.schema = schema;
 		this.segmentDocumentCount = segmentDocumentCount;
 		indexSettingList = schema.schemaSetting().getIndexSettingList();
@@ -76,7 +81,7 @@ public class SearchIndexesReader implements Cloneable {
 					throw new IRException("Query analyzer not found >> " + setting.getId() + " : " + queryAnalyzerName);
 				}
 				
-                reader = new SearchIndexReader(setting, schema, dir, queryAnalyzerPool, segmentDocumentCount);
+                reader = new SearchIndexReader(setting, schema, dir, queryAnalyzerPool, segmentDocumentCount, inputFactory);
 			} catch (Exception e) {
 				logger.error("색인Reader {}로딩중 에러 >> {}", setting.getId(), e);
 				if (reader != null) {
@@ -87,7 +92,7 @@ public class SearchIndexesReader implements Cloneable {
 		}
 		PrimaryKeySetting primaryKeySetting = schema.schemaSetting().getPrimaryKeySetting();
 		if(primaryKeySetting.getFieldList() != null && primaryKeySetting.getFieldList().size() > 0) {
-            primaryKeyIndexesReader = new PrimaryKeyIndexesReader(schema, dir);
+            primaryKeyIndexesReader = new PrimaryKeyIndexesReader(schema, dir, inputFactory);
 		}
         referenceCount = new AtomicInteger();
 	}
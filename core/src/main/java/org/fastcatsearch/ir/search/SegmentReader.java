@@ -22,7 +22,10 @@ import org.fastcatsearch.ir.common.IRException;
 import org.fastcatsearch.ir.common.IndexFileNames;
 import org.fastcatsearch.ir.config.DataInfo.SegmentInfo;
 import org.fastcatsearch.ir.document.DocumentReader;
+import org.fastcatsearch.ir.document.PrimaryKeyBloomFilter;
+import org.fastcatsearch.ir.document.PrimaryKeyIndexReader;
 import org.fastcatsearch.ir.io.BitSet;
+import org.fastcatsearch.ir.io.IndexInputFactory;
 import org.fastcatsearch.ir.settings.Schema;
 import org.fastcatsearch.ir.util.CloseableThreadLocal;
 import org.slf4j.Logger;
@@ -50,9 +53,17 @@ public class SegmentReader implements Comparable {
 	private FieldIndexesReader fieldIndexesReader;
 	private GroupIndexesReader groupIndexesReader;
 	private DocumentReader documentReader;
+	private TermOffsetsReader termOffsetsReader;
 	private BitSet deleteSet;
+	//필터결과 캐시. 삭제문서가 바뀌면 비워진다.
+	private FilterDocSetCache filterDocSetCache;
 	private SegmentInfo segmentInfo;
 	private File segmentDir;
+	private IndexInputFactory inputFactory;
+
+	//동적색인 반영용. CollectionHandler 의 synchronized 구간에서만 사용하므로 clone하지 않는다.
+	private PrimaryKeyIndexReader primaryKeyIndexReader;
+	private PrimaryKeyBloomFilter primaryKeyBloomFilter;
 
 	final CloseableThreadLocal<DocumentReader> documentReaderLocal = new CloseableThreadLocal<DocumentReader>() {
 		@Override
@@ -75,6 +86,13 @@ public class SegmentReader implements Comparable {
 		}
 	};
 	
+	final CloseableThreadLocal<TermOffsetsReader> termOffsetsReaderLocal = new CloseableThreadLocal<TermOffsetsReader>() {
+		@Override
+		protected TermOffsetsReader initialValue() {
+			return termOffsetsReader.clone();
+		}
+	};
+
 	final CloseableThreadLocal<GroupIndexesReader> groupIndexesReaderLocal = new CloseableThreadLocal<GroupIndexesReader>() {
 		@Override
 		protected GroupIndexesReader initialValue() {
@@ -83,29 +101,69 @@ public class SegmentReader implements Comparable {
 	};
 	
 	public SegmentReader(SegmentInfo segmentInfo, Schema schema, File segmentDir, AnalyzerPoolManager analyzerPoolManager) throws IOException, IRException {
+		this(segmentInfo, schema, segmentDir, analyzerPoolManager, IndexInputFactory.BUFFERED);
+	}
+
+	/**
+	 * @param inputFactory 색인파일을 열때 사용할 IndexInput 구현. 컬렉션의 IndexConfig 설정을 따른다.
+	 * */
+	public SegmentReader(SegmentInfo segmentInfo, Schema schema, File segmentDir, AnalyzerPoolManager analyzerPoolManager, IndexInputFactory inputFactory) throws IOException, IRException {
     	this.segmentId = segmentInfo.getId();
         this.schema = schema;
 		this.segmentDir = segmentDir;
 		this.segmentInfo = segmentInfo;
+		this.inputFactory = inputFactory;
 
-		this.documentReader = new DocumentReader(schema.schemaSetting(), segmentDir);
+		this.documentReader = new DocumentReader(schema.schemaSetting(), segmentDir, inputFactory);
 		int documentCount = documentReader.getDocumentCount();
+		this.filterDocSetCache = new FilterDocSetCache(documentCount);
         loadDeleteSet();
 
 		// reader들은 thread-safe하지 않다. clone해서 사용됨.
-        this.searchIndexesReader = new SearchIndexesReader(schema, segmentDir, analyzerPoolManager, documentCount);
+        this.searchIndexesReader = new SearchIndexesReader(schema, segmentDir, analyzerPoolManager, documentCount, inputFactory);
 		
 		//field index
-		this.fieldIndexesReader = new FieldIndexesReader(schema, segmentDir);
+		this.fieldIndexesReader = new FieldIndexesReader(schema, segmentDir, inputFactory);
+		
+        this.groupIndexesReader = new GroupIndexesReader(schema, segmentDir, inputFactory);
 		
-        this.groupIndexesReader = new GroupIndexesReader(schema, segmentDir);
+		//하이라이팅용 텀 오프셋
+		this.termOffsetsReader = new TermOffsetsReader(schema, segmentDir, inputFactory);
 	}
 
 	public void loadDeleteSet() throws IOException {
 		deleteSet = new BitSet(segmentDir, IndexFileNames.docDeleteSet);
+		filterDocSetCache.setDeleteSet(deleteSet);
         logger.debug("DeleteCount = {}", deleteSet.getOnCount());
 	}
 
+	/**
+	 * 세그먼트가 닫힐때까지 재사용되는 pk reader. 동적색인 반영시 사용한다.
+	 * */
+	public PrimaryKeyIndexReader primaryKeyIndexReader() throws IOException {
+		if (primaryKeyIndexReader == null) {
+			primaryKeyIndexReader = new PrimaryKeyIndexReader(segmentDir, IndexFileNames.primaryKeyMap, inputFactory);
+		}
+		return primaryKeyIndexReader;
+	}
+
+	/**
+	 * pk맵의 bloom filter. bloom 파일이 없는 예전 세그먼트는 pk맵을 읽어 메모리에 만든다.
+	 * pk맵이 없으면 null.
+	 * */
+	public PrimaryKeyBloomFilter primaryKeyBloomFilter() throws IOException {
+		if (primaryKeyBloomFilter == null) {
+			primaryKeyBloomFilter = PrimaryKeyBloomFilter.load(segmentDir);
+			if (primaryKeyBloomFilter == null) {
+				File pkFile = new File(segmentDir, IndexFileNames.primaryKeyMap);
+				if (pkFile.exists()) {
+					primaryKeyBloomFilter = PrimaryKeyBloomFilter.build(pkFile);
+				}
+			}
+		}
+		return primaryKeyBloomFilter;
+	}
+
 	public SegmentSearcher segmentSearcher(){
 		return new SegmentSearcher(this);
 	}
@@ -150,12 +208,22 @@ public class SegmentReader implements Comparable {
 		return documentReaderLocal.get();
 	}
 	
+	public TermOffsetsReader newTermOffsetsReader(){
+		return termOffsetsReaderLocal.get();
+	}
+	
 	public void setDeleteSet(BitSet deleteSet) {
 		this.deleteSet = deleteSet;
+		filterDocSetCache.setDeleteSet(deleteSet);
+	}
+
+	public FilterDocSetCache filterDocSetCache() {
+		return filterDocSetCache;
 	}
 
 	public void close() throws IOException {
 		IOException exception = null; 
+		filterDocSetCache.clear();
 		try{
 			searchIndexesReader.close();
 		}catch(IOException e){ exception = e; }
@@ -172,6 +240,16 @@ public class SegmentReader implements Comparable {
 			documentReader.close();
 		}catch(IOException e){ exception = e; }
 		
+		try{
+			termOffsetsReader.close();
+		}catch(IOException e){ exception = e; }
+		
+		if(primaryKeyIndexReader != null){
+			try{
+				primaryKeyIndexReader.close();
+			}catch(IOException e){ exception = e; }
+		}
+		
 		if(exception != null){
 			throw exception;
 		}
@@ -0,0 +1,157 @@
+package org.fastcatsearch.ir.search;
+
+import org.apache.lucene.util.BytesRef;
+import org.fastcatsearch.ir.common.IRException;
+import org.fastcatsearch.ir.filter.FilterException;
+import org.fastcatsearch.ir.group.GroupsData;
+import org.fastcatsearch.ir.io.BitSet;
+import org.fastcatsearch.ir.io.FixedMaxPriorityQueue;
+import org.fastcatsearch.ir.io.HybridHashSet;
+import org.fastcatsearch.ir.query.HighlightInfo;
+import org.fastcatsearch.ir.query.Query;
+import org.fastcatsearch.ir.search.clause.ClauseException;
+
+import java.io.IOException;
+import java.util.concurrent.Callable;
+
+/**
+ * 하나의 세그먼트를 검색하여 HitReader의 결과를 ranker에 모두 넣는 작업.
+ * CollectionSearcher 에서 세그먼트별로 생성되며, 검색 쓰레드풀에서 병렬로 수행되거나 호출쓰레드에서 바로 수행된다.
+ *
+ * 세그먼트의 reader들은 thread local clone 이므로, 그룹데이터 생성까지 이 작업안에서 끝내야 한다.
+ * 묶음키 set은 여러 작업이 공유하므로 bundleKeySet 에 동기화하여 BULK_SIZE 단위로 넣는다.
+ * */
+class SegmentSearchTask implements Callable<SegmentSearchTask> {
+
+    private static final int BULK_SIZE = 100;
+
+    private final CollectionSearcher collectionSearcher;
+    private final SegmentReader segmentReader;
+    private final Query query;
+    private final PkScoreList boostList;
+    private final FixedMaxPriorityQueue<HitElement> ranker;
+    private final HybridHashSet bundleKeySet;
+
+    private BitSet docHitSet;
+    private int totalSize;
+    private GroupsData groupsData;
+    private HighlightInfo highlightInfo;
+    private Explanation explanation;
+
+    private BytesRef[] bundleKeyBuffer;
+    private int bundleKeyCount;
+
+    public SegmentSearchTask(CollectionSearcher collectionSearcher, SegmentReader segmentReader, Query query, PkScoreList boostList,
+                             FixedMaxPriorityQueue<HitElement> ranker, HybridHashSet bundleKeySet) {
+        this.collectionSearcher = collectionSearcher;
+        this.segmentReader = segmentReader;
+        this.query = query;
+        this.boostList = boostList;
+        this.ranker = ranker;
+        this.bundleKeySet = bundleKeySet;
+    }
+
+    @Override
+    public SegmentSearchTask call() throws IOException, ClauseException, IRException, FilterException {
+        collectionSearcher.checkAborted();
+
+        // segment 의 모든 결과를 보아야 중복체크가 가능하므로 reader를 받아오도록 한다.
+        HitReader hitReader = segmentReader.segmentSearcher().searchHitReader(query, boostList);
+        highlightInfo = hitReader.highlightInfo();
+        docHitSet = new BitSet();
+        boolean isPrunable = hitReader.isPrunable();
+        //ranker 는 이 작업이 끝날때까지 이 쓰레드에서만 쓰인다.
+        hitReader.setCompetitiveRanker(ranker);
+
+        HitElement e = null;
+        while ((e = hitReader.next()) != null) {
+
+            collectionSearcher.checkAborted();
+
+            BytesRef bundleKey = e.getBundleKey();
+            if (bundleKey != null) {
+                docHitSet.set(e.docNo());
+                addBundleKey(bundleKey);
+                ranker.push(e);
+            } else {
+                totalSize++;
+                //들어가지 못했거나 밀려난 HitElement 는 HitReader 가 재사용한다.
+                HitElement overflow = ranker.insertWithOverflow(e);
+                if (overflow != null) {
+                    hitReader.recycle(overflow);
+                }
+            }
+            //top K가 채워지면 마지막 점수보다 작은 문서는 더이상 읽지 않게 한다.
+            if (isPrunable && ranker.isFull()) {
+                hitReader.setMinCompetitiveScore(ranker.peek().score());
+            }
+        }
+        flushBundleKeys();
+        //랭커에 들어갈수 없어 HitReader 가 넘기지 않은 문서도 결과갯수에 포함한다.
+        totalSize += hitReader.skippedCount();
+        //색인정렬로 앞쪽 문서만 모았으면 결과갯수는 HitReader 가 센(또는 추정한) 값을 쓴다.
+        if (hitReader.isEarlyTerminated()) {
+            totalSize = hitReader.totalCount();
+        }
+
+        // 그룹데이터는 세그먼트의 reader를 사용하므로 여기서 만든다.
+        groupsData = hitReader.makeGroupData();
+        explanation = hitReader.explanation();
+        return this;
+    }
+
+    private void addBundleKey(BytesRef bundleKey) {
+        if (bundleKeyBuffer == null) {
+            bundleKeyBuffer = new BytesRef[BULK_SIZE];
+        }
+        bundleKeyBuffer[bundleKeyCount++] = bundleKey;
+        if (bundleKeyCount == BULK_SIZE) {
+            flushBundleKeys();
+        }
+    }
+
+    private void flushBundleKeys() {
+        if (bundleKeyCount == 0) {
+            return;
+        }
+        synchronized (bundleKeySet) {
+            if (bundleKeySet.size() == 0) {
+                bundleKeySet.setKeySize(bundleKeyBuffer[0].length());
+            }
+            for (int i = 0; i < bundleKeyCount; i++) {
+                if (bundleKeySet.add(bundleKeyBuffer[i])) {
+                    totalSize++;
+                }
+                bundleKeyBuffer[i] = null;
+            }
+        }
+        bundleKeyCount = 0;
+    }
+
+    public FixedMaxPriorityQueue<HitElement> ranker() {
+        return ranker;
+    }
+
+    public BitSet docHitSet() {
+        return docHitSet;
+    }
+
+    /**
+     * 이 세그먼트에서 새로 집계된 결과갯수. 묶음검색의 경우 다른 세그먼트에서 먼저 나온 묶음키는 제외된다.
+     * */
+    public int totalSize() {
+        return totalSize;
+    }
+
+    public GroupsData groupsData() {
+        return groupsData;
+    }
+
+    public HighlightInfo highlightInfo() {
+        return highlightInfo;
+    }
+
+    public Explanation explanation() {
+        return explanation;
+    }
+}
@@ -33,6 +33,7 @@ public class SegmentSearcher {
 	private HitFilter hitFilter;
 	private HitFilter groupHitFilter;
 	private DocumentReader documentReader;
+	private TermOffsetsReader termOffsetsReader;
 	private SegmentReader segmentReader;
 	private Schema schema;
 
@@ -70,6 +71,19 @@ public class SegmentSearcher {
 		return document;
 	}
 
+	/**
+	 * 하이라이팅용으로 색인시 기록한 텀 오프셋. storeOffset 색인이 없거나 기록되지 않았으면 null.
+	 */
+	public TermOffsets getTermOffsets(String fieldId, String indexAnalyzerId, int docNo) throws IOException {
+		if (termOffsetsReader == null) {
+			termOffsetsReader = segmentReader.newTermOffsetsReader();
+		}
+		if (!termOffsetsReader.hasOffsets()) {
+			return null;
+		}
+		return termOffsetsReader.read(fieldId, indexAnalyzerId, docNo);
+	}
+
 	public HitReader searchHitReader(Query query, PkScoreList boostList) throws ClauseException, IOException, IRException {
 		return searchHitReader(query.getMeta(), query.getClause(), query.getFilters(), query.getGroups(), query.getGroupFilters(), query.getSorts(), query.getBundle(), boostList);
 	}
@@ -99,7 +113,7 @@ public class SegmentSearcher {
 				fieldIndexesReader = segmentReader.newFieldIndexesReader();
 			}
 			//schema를 통해 field index setting을 알아야 필터링시 ignorecase등의 정보를 활용가능하다.
-			hitFilter = filters.getHitFilter(schema, fieldIndexesReader, BULK_SIZE);
+			hitFilter = filters.getHitFilter(schema, fieldIndexesReader, BULK_SIZE, segmentReader.filterDocSetCache());
 		}
 
 		//group
@@ -110,10 +124,7 @@ public class SegmentSearcher {
 			groupGenerator = groups.getGroupDataGenerator(schema, segmentReader.newGroupIndexesReader(), fieldIndexesReader);
 		}
 
-		// sort
-        ranker = new DefaultRanker(sortMaxSize);
-        SortGenerator sortGenerator = new SortGenerator();
-
+		//그룹결과와 결과갯수만 필요하므로 정렬과 HitElement 는 만들지 않는다.
 		RankInfo[] rankInfoList = new RankInfo[BULK_SIZE];
 		boolean exausted = false;
 		BitSet localDeleteSet = segmentReader.deleteSet();
@@ -138,13 +149,19 @@ public class SegmentSearcher {
 		
 		
 		operatedClause.init(clauseExplanation);
+		//RankInfo 는 BULK_SIZE 개를 재사용한다. 필터가 rankInfoList 를 덮어쓰므로 슬롯 원본은 따로 둔다.
+		RankInfo[] rankInfoPool = new RankInfo[BULK_SIZE];
+		for (int i = 0; i < BULK_SIZE; i++) {
+			rankInfoPool[i] = new RankInfo(isExplain);
+		}
 //		int searchTime = 0, sortTime = 0, groupTime = 0, filterTime = 0;
 		while (!exausted) {
 			int nread = 0;
 //			long st = System.nanoTime();
 			// search
 			for (nread = 0; nread < BULK_SIZE; nread++) {
-				RankInfo rankInfo = new RankInfo(isExplain);
+				RankInfo rankInfo = rankInfoPool[nread];
+				rankInfo.recycle();
 				if (operatedClause.next(rankInfo)) {
 					rankInfoList[nread] = rankInfo;
 				} else {
@@ -183,12 +200,7 @@ public class SegmentSearcher {
 				groupGenerator.insert(rankInfoList, nread);
 			}
 
-            HitElement[] e = sortGenerator.getHitElement(rankInfoList, nread);
-            for (int i = 0; i < nread; i++) {
-                if(ranker.push(e[i])) {
-                    totalCount++;
-                }
-            }
+			totalCount += nread;
 			
 			
 //			sortTime += (System.nanoTime() - st);
@@ -238,6 +250,12 @@ public class SegmentSearcher {
         
 		
 		RankInfo[] rankInfoList = new RankInfo[BULK_SIZE];
+		RankInfo[] rankInfoPool = new RankInfo[BULK_SIZE];
+		for (int i = 0; i < BULK_SIZE; i++) {
+			rankInfoPool[i] = new RankInfo();
+		}
+		//랭커에 들어가지 못했거나 밀려난 HitElement 는 다음 문서에 재사용한다.
+		HitElement freeElement = null;
 		boolean exausted = false;
 		BitSet localDeleteSet = segmentReader.deleteSet();
 		
@@ -246,7 +264,8 @@ public class SegmentSearcher {
 			int nread = 0;
 			// search
 			for (nread = 0; nread < BULK_SIZE; nread++) {
-				RankInfo rankInfo = new RankInfo();
+				RankInfo rankInfo = rankInfoPool[nread];
+				rankInfo.recycle();
 				if (operatedClause.next(rankInfo)) {
 					rankInfoList[nread] = rankInfo;
 				} else {
@@ -295,9 +314,9 @@ public class SegmentSearcher {
 
 			nread = count;
 
-            HitElement[] e = sortGenerator.getHitElement(rankInfoList, nread);
             for (int i = 0; i < nread; i++) {
-                ranker.push(e[i]);
+                HitElement e = sortGenerator.fillHitElement(rankInfoList[i], freeElement);
+                freeElement = ranker.insertWithOverflow(e);
             }
 
 			totalCount += nread;
@@ -151,6 +151,63 @@ public class SortGenerator {
         }
 	}
 	
+	/**
+	 * RankInfo 로 HitElement 를 채운다. e 가 null 이면 새로 만들고, 재사용하는 e 는 가지고 있는 정렬데이터 버퍼에 덮어쓴다.
+	 * 랭커에 들어가지 못할 문서를 위해 매번 HitElement 와 정렬데이터를 새로 만들지 않기 위해 사용한다.
+	 */
+	public HitElement fillHitElement(RankInfo ri, HitElement e) throws IOException {
+		if (e == null) {
+			e = new HitElement(ri.docNo(), ri.score(), ri.hit(), sortSize > 0 ? new BytesRef[sortSize] : null, ri.rowExplanations());
+		} else {
+			e.init(ri.docNo(), ri.score(), ri.hit(), ri.rowExplanations());
+		}
+		if (sortSize > 0) {
+			indexRef.read(ri.docNo());
+			readRankData(ri, e.rankData());
+		}
+		e.setDistance(ri.distance());
+		e.setFilterMatchOrder(ri.filterMatchOrder());
+		return e;
+	}
+
+	private void readRankData(RankInfo ri, BytesRef[] rankData) {
+		for (int j = 0; j < sortSize; j++) {
+			if(fieldIndex[j] == ScoreField.fieldNumber){
+				rankData[j] = writeInt(rankData[j], ScoreField.fieldSize, Float.floatToIntBits(ri.score()));
+			}else if(fieldIndex[j] == HitField.fieldNumber){
+				rankData[j] = writeInt(rankData[j], HitField.fieldSize, ri.hit());
+			}else if(fieldIndex[j] == DistanceField.fieldNumber){
+				rankData[j] = writeInt(rankData[j], DistanceField.fieldSize, Float.floatToIntBits(ri.distance()));
+			}else if(fieldIndex[j] == MatchOrderField.fieldNumber) {
+				rankData[j] = writeInt(rankData[j], MatchOrderField.fieldSize, ri.filterMatchOrder());
+			} else {
+				rankData[j] = copyData(dataList[j], rankData[j]);
+			}
+		}
+	}
+
+	private BytesRef writeInt(BytesRef target, int size, int value) {
+		if (target == null) {
+			target = new BytesRef(size);
+		}
+		target.clear();
+		IOUtil.writeInt(target, value);
+		target.flip();
+		return target;
+	}
+
+	//duplicate() 와 같은 모양(offset 0, length, limit)으로 복사한다.
+	private BytesRef copyData(BytesRef source, BytesRef target) {
+		if (target == null || target.bytes.length < source.length) {
+			target = new BytesRef(source.length);
+		}
+		System.arraycopy(source.bytes, source.offset, target.bytes, 0, source.length);
+		target.offset = 0;
+		target.length = source.length;
+		target.limit = source.length;
+		return target;
+	}
+
 	protected BytesRef[] readRankData(RankInfo ri) {
 		BytesRef[] rankData = new BytesRef[sortSize];
 		for (int j = 0; j < sortSize; j++) {
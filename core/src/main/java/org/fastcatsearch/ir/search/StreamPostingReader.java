@@ -0,0 +1,214 @@
+package org.fastcatsearch.ir.search;
+
+import java.io.IOException;
+
+import org.fastcatsearch.ir.index.IndexFieldOption;
+import org.fastcatsearch.ir.index.PostingSkipList;
+import org.fastcatsearch.ir.io.CharVector;
+import org.fastcatsearch.ir.io.IndexInput;
+
+/**
+ * 포스팅파일에서 문서를 하나씩 필요할때 읽어들인다.
+ * 문서마다 객체를 만들지 않고 하나의 PostingDoc 을 재사용하므로, next나 advance를 다시 호출하면 이전에 리턴받은 PostingDoc의 값은 바뀐다.
+ * 출현위치는 positions()를 호출할 때에만 읽으며, 호출하지 않고 다음 문서로 넘어가면 읽지 않고 건너뛴다.
+ * 색인에 skip 정보가 있다면 advance 시 대상 문서번호보다 작은 블럭은 읽지 않고 건너뛴다.
+ * skip 정보에 최대 출현횟수가 있다면 maxTf()로 제공하여 텀의 최대점수를 계산할수 있게 한다.
+ *
+ * @see PostingSkipList
+ * */
+public class StreamPostingReader extends AbstractPostingReader {
+
+	private IndexInput postingInput;
+	private boolean isStorePosition;
+
+	private int postingCount;
+	private int postingRemain;
+	private int prevId;
+
+	private PostingCursor cursor;
+	private int positionRemain; //현재 문서에서 아직 읽지 않은 출현위치 갯수.
+
+	private boolean hasSkip;
+	private int maxTf = -1;
+	private int skipCount;
+	private long skipPosition;
+	private long dataPosition;
+	private int[] skipDocNo; //블럭의 마지막 문서번호
+	private long[] skipOffset; //다음 블럭의 시작위치
+
+	public StreamPostingReader(CharVector term, int termPosition, int weight, int documentCount, IndexFieldOption indexFieldOption, IndexInput postingInput, long inputOffset) {
+		super(term, termPosition, weight, documentCount);
+		this.postingInput = postingInput;
+		this.isStorePosition = indexFieldOption.isStorePosition();
+
+		try {
+			postingInput.seek(inputOffset);
+			int len = postingInput.readInt();
+			this.postingCount = postingInput.readInt();
+			int lastDocNo = postingInput.readInt();
+			if (indexFieldOption.isStoreSkip()) {
+				skipCount = postingInput.readVInt();
+				int skipLength = postingInput.readVInt();
+				skipPosition = postingInput.position();
+				dataPosition = skipPosition + skipLength;
+				if (indexFieldOption.isStoreMaxTf()) {
+					maxTf = postingInput.readVInt();
+					skipPosition = postingInput.position();
+				}
+				postingInput.seek(dataPosition);
+				hasSkip = skipCount > 0;
+			}
+		} catch (IOException e) {
+			logger.error("error while read posting header", e);
+		}
+		postingRemain = postingCount;
+		prevId = -1;
+		cursor = new PostingCursor();
+	}
+
+	@Override
+	public int size() {
+		return postingCount;
+	}
+
+	@Override
+	public int maxTf() {
+		return maxTf;
+	}
+
+	@Override
+	public boolean hasNext() throws IOException {
+		return postingRemain > 0;
+	}
+
+	@Override
+	public PostingDoc next() throws IOException {
+		if (postingRemain <= 0) {
+			return null;
+		}
+		skipPositions();
+		int docId;
+		if (prevId >= 0) {
+			docId = postingInput.readVInt() + prevId + 1;
+		} else {
+			docId = postingInput.readVInt();
+		}
+		int tf = postingInput.readVInt();
+		if (tf > 0 && isStorePosition) {
+			positionRemain = tf;
+		}
+		cursor.init(docId, tf);
+		postingRemain--;
+		prevId = docId;
+		return cursor;
+	}
+
+	// 읽지 않은 출현위치는 버린다.
+	private void skipPositions() throws IOException {
+		while (positionRemain > 0) {
+			postingInput.readVInt();
+			positionRemain--;
+		}
+	}
+
+	private int[] readPositions() throws IOException {
+		int[] positions = new int[positionRemain];
+		int prevPosition = -1;
+		for (int j = 0; j < positions.length; j++) {
+			if (prevPosition >= 0) {
+				positions[j] = postingInput.readVInt() + prevPosition + 1;
+			} else {
+				positions[j] = postingInput.readVInt();
+			}
+			prevPosition = positions[j];
+		}
+		positionRemain = 0;
+		return positions;
+	}
+
+	@Override
+	public PostingDoc advance(int docNo) throws IOException {
+		skipTo(docNo);
+		return super.advance(docNo);
+	}
+
+	private void skipTo(int docNo) throws IOException {
+		if (!hasSkip) {
+			return;
+		}
+		if (skipDocNo == null) {
+			loadSkip();
+		}
+		// 이미 읽은 블럭의 skip 정보는 보지 않는다.
+		int readCount = postingCount - postingRemain;
+		int found = -1;
+		for (int k = readCount / PostingSkipList.SKIP_INTERVAL; k < skipCount && skipDocNo[k] < docNo; k++) {
+			found = k;
+		}
+		if (found >= 0) {
+			postingInput.seek(skipOffset[found]);
+			prevId = skipDocNo[found];
+			postingRemain = postingCount - (found + 1) * PostingSkipList.SKIP_INTERVAL;
+			positionRemain = 0;
+		}
+	}
+
+	private void loadSkip() throws IOException {
+		long position = postingInput.position();
+		postingInput.seek(skipPosition);
+		skipDocNo = new int[skipCount];
+		skipOffset = new long[skipCount];
+		int docNo = 0;
+		long offset = dataPosition;
+		for (int k = 0; k < skipCount; k++) {
+			docNo += postingInput.readVInt();
+			offset += postingInput.readVInt();
+			skipDocNo[k] = docNo;
+			skipOffset[k] = offset;
+		}
+		postingInput.seek(position);
+	}
+
+	@Override
+	public void close() {
+		if (postingInput != null) {
+			try {
+				postingInput.close();
+			} catch (IOException e) {
+				// ignore
+
+			}
+			cursor = null;
+		}
+	}
+
+	/**
+	 * 재사용되는 PostingDoc. 출현위치는 요청시 스트림에서 읽는다.
+	 * */
+	private class PostingCursor extends PostingDoc {
+
+		private boolean positionRead;
+
+		private void init(int docNo, int tf) {
+			this.docNo = docNo;
+			this.tf = tf;
+			this.positions = null;
+			this.positionRead = false;
+		}
+
+		@Override
+		public int[] positions() {
+			if (!positionRead) {
+				positionRead = true;
+				if (positionRemain > 0) {
+					try {
+						positions = readPositions();
+					} catch (IOException e) {
+						logger.error("error while read positions", e);
+					}
+				}
+			}
+			return positions;
+		}
+	}
+}
@@ -0,0 +1,85 @@
+package org.fastcatsearch.ir.search;
+
+/**
+ * 한 문서 한 필드의 색인시 분석된 텀과 오프셋. TermOffsetsReader 가 읽어 하이라이팅에 사용한다.
+ * 텀이 원문의 [start, end) 와 같으면 term 은 null 이다.
+ */
+public class TermOffsets {
+
+    private int size;
+    private int[] starts;
+    private int[] ends;
+    private char[][] terms;
+    private String[][] additionalTerms;
+    private int[][] additionalOffsets;
+
+    public TermOffsets(int size) {
+        starts = new int[size];
+        ends = new int[size];
+        terms = new char[size][];
+        additionalTerms = new String[size][];
+        additionalOffsets = new int[size][];
+    }
+
+    void add(int start, int end, char[] term, String[] additionals, int[] additionalOffsetList) {
+        starts[size] = start;
+        ends[size] = end;
+        terms[size] = term;
+        additionalTerms[size] = additionals;
+        additionalOffsets[size] = additionalOffsetList;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int start(int i) {
+        return starts[i];
+    }
+
+    public int end(int i) {
+        return ends[i];
+    }
+
+    /**
+     * 원문과 같으면 null.
+     */
+    public char[] term(int i) {
+        return terms[i];
+    }
+
+    /**
+     * 추가텀이 없으면 null.
+     */
+    public String[] additionalTerms(int i) {
+        return additionalTerms[i];
+    }
+
+    /**
+     * 추가텀의 [start, end] 쌍이 차례로 들어있다.
+     */
+    public int[] additionalOffsets(int i) {
+        return additionalOffsets[i];
+    }
+
+    /**
+     * 모든 오프셋이 원문 길이안에 있는지 확인한다. 다르면 색인후 원문이 바뀐것이므로 사용하지 않는다.
+     */
+    public boolean isValid(int textLength) {
+        for (int i = 0; i < size; i++) {
+            if (starts[i] < 0 || ends[i] > textLength || starts[i] > ends[i]) {
+                return false;
+            }
+            int[] offsets = additionalOffsets[i];
+            if (offsets != null) {
+                for (int k = 0; k < offsets.length; k += 2) {
+                    if (offsets[k] < 0 || offsets[k + 1] > textLength) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+}
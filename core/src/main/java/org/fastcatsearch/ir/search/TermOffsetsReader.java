@@ -0,0 +1,170 @@
+package org.fastcatsearch.ir.search;
+
+import org.fastcatsearch.ir.common.IndexFileNames;
+import org.fastcatsearch.ir.io.IndexInput;
+import org.fastcatsearch.ir.io.IndexInputFactory;
+import org.fastcatsearch.ir.settings.IndexRefSetting;
+import org.fastcatsearch.ir.settings.IndexSetting;
+import org.fastcatsearch.ir.settings.Schema;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * storeOffset 검색색인의 search.{id}.offset 파일을 읽는다. thread-safe 하지 않으므로 clone 해서 사용한다.
+ * 파일이 없는 색인(storeOffset 설정 이전 세그먼트등)은 제외되며, 이때 read 는 null 을 리턴한다.
+ *
+ * @see org.fastcatsearch.ir.index.TermOffsetsWriter
+ */
+public class TermOffsetsReader implements Cloneable {
+    private static final Logger logger = LoggerFactory.getLogger(TermOffsetsReader.class);
+
+    private List<IndexSetting> indexSettingList;
+    private IndexInput[] dataInputList;
+    private IndexInput[] positionInputList;
+
+    private TermOffsetsReader() {
+    }
+
+    public TermOffsetsReader(Schema schema, File dir, IndexInputFactory inputFactory) throws IOException {
+        indexSettingList = new ArrayList<IndexSetting>();
+        List<IndexInput> dataInputs = new ArrayList<IndexInput>();
+        List<IndexInput> positionInputs = new ArrayList<IndexInput>();
+        List<IndexSetting> settingList = schema.schemaSetting().getIndexSettingList();
+        if (settingList != null) {
+            for (IndexSetting setting : settingList) {
+                if (!setting.isStoreOffset()) {
+                    continue;
+                }
+                String fileName = IndexFileNames.getSearchOffsetFileName(setting.getId());
+                File dataFile = new File(dir, fileName);
+                File positionFile = new File(dir, IndexFileNames.getPositionFileName(fileName));
+                if (!dataFile.exists() || !positionFile.exists()) {
+                    logger.debug("term offset file not found. index={} dir={}", setting.getId(), dir);
+                    continue;
+                }
+                indexSettingList.add(setting);
+                dataInputs.add(inputFactory.open(dataFile));
+                positionInputs.add(inputFactory.open(positionFile));
+            }
+        }
+        dataInputList = dataInputs.toArray(new IndexInput[0]);
+        positionInputList = positionInputs.toArray(new IndexInput[0]);
+    }
+
+    /**
+     * 기록된 색인이 하나도 없으면 false.
+     */
+    public boolean hasOffsets() {
+        return indexSettingList.size() > 0;
+    }
+
+    /**
+     * fieldId 를 indexAnalyzerId 분석기로 색인한 storeOffset 검색색인에서 문서의 텀 오프셋을 읽는다.
+     * 해당 색인이 없거나 기록되지 않은 문서, 필드이면 null.
+     */
+    public TermOffsets read(String fieldId, String indexAnalyzerId, int docNo) throws IOException {
+        for (int i = 0; i < indexSettingList.size(); i++) {
+            List<IndexRefSetting> refList = indexSettingList.get(i).getFieldList();
+            for (int refSequence = 0; refSequence < refList.size(); refSequence++) {
+                IndexRefSetting refSetting = refList.get(refSequence);
+                if (refSetting.getRef().equalsIgnoreCase(fieldId) && refSetting.getIndexAnalyzer().equalsIgnoreCase(indexAnalyzerId)) {
+                    return read(i, refSequence, docNo);
+                }
+            }
+        }
+        return null;
+    }
+
+    private TermOffsets read(int sequence, int refSequence, int docNo) throws IOException {
+        IndexInput positionInput = positionInputList[sequence];
+        long positionOffset = (long) docNo * 8L;
+        if (docNo < 0 || positionOffset + 8 > positionInput.length()) {
+            return null;
+        }
+        positionInput.seek(positionOffset);
+        long position = positionInput.readLong();
+        if (position < 0) {
+            return null;
+        }
+        IndexInput input = dataInputList[sequence];
+        input.seek(position);
+        input.readVInt(); //entry length
+        int refCount = input.readVInt();
+        for (int i = 0; i < refCount; i++) {
+            int header = input.readVInt();
+            if (header == 0) {
+                if (i == refSequence) {
+                    return null;
+                }
+                continue;
+            }
+            int blockLength = input.readVInt();
+            if (i != refSequence) {
+                input.seek(input.position() + blockLength);
+                continue;
+            }
+            int tokenCount = header - 1;
+            TermOffsets termOffsets = new TermOffsets(tokenCount);
+            for (int k = 0; k < tokenCount; k++) {
+                int start = input.readVInt();
+                int end = start + input.readVInt();
+                char[] term = null;
+                if (input.readByte() != 0) {
+                    term = input.readUString();
+                }
+                int additionalCount = input.readVInt();
+                String[] additionals = null;
+                int[] additionalOffsets = null;
+                if (additionalCount > 0) {
+                    additionals = new String[additionalCount];
+                    additionalOffsets = new int[additionalCount * 2];
+                    for (int m = 0; m < additionalCount; m++) {
+                        additionals[m] = new String(input.readUString());
+                        additionalOffsets[m * 2] = input.readVInt();
+                        additionalOffsets[m * 2 + 1] = additionalOffsets[m * 2] + input.readVInt();
+                    }
+                }
+                termOffsets.add(start, end, term, additionals, additionalOffsets);
+            }
+            return termOffsets;
+        }
+        return null;
+    }
+
+    @Override
+    public TermOffsetsReader clone() {
+        TermOffsetsReader reader = new TermOffsetsReader();
+        reader.indexSettingList = indexSettingList;
+        reader.dataInputList = new IndexInput[dataInputList.length];
+        reader.positionInputList = new IndexInput[positionInputList.length];
+        for (int i = 0; i < dataInputList.length; i++) {
+            reader.dataInputList[i] = dataInputList[i].clone();
+            reader.positionInputList[i] = positionInputList[i].clone();
+        }
+        return reader;
+    }
+
+    public void close() throws IOException {
+        IOException exception = null;
+        for (int i = 0; i < dataInputList.length; i++) {
+            try {
+                dataInputList[i].close();
+            } catch (IOException e) {
+                exception = e;
+            }
+            try {
+                positionInputList[i].close();
+            } catch (IOException e) {
+                exception = e;
+            }
+        }
+        if (exception != null) {
+            throw exception;
+        }
+    }
+}
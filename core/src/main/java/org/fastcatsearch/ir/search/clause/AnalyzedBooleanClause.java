@@ -139,6 +139,26 @@ public class AnalyzedBooleanClause extends OperatedClause {
 		return operatedClause.next(rankInfo);
 	}
 
+	@Override
+	protected boolean advanceDoc(int docNo, RankInfo rankInfo) throws IOException {
+		if (operatedClause == null) {
+			return false;
+		}
+		return operatedClause.advance(docNo, rankInfo);
+	}
+
+	@Override
+	public int maxScore() {
+		return operatedClause != null ? operatedClause.maxScore() : 0;
+	}
+
+	@Override
+	public void setMinCompetitiveScore(int minScore) {
+		if (operatedClause != null) {
+			operatedClause.setMinCompetitiveScore(minScore);
+		}
+	}
+
 	@Override
 	public void close() {
 		if (operatedClause != null) {
@@ -45,57 +45,74 @@ public class AndOperatedClause extends OperatedClause {
     public AndOperatedClause(OperatedClause clause1, OperatedClause clause2, int proximity, boolean needsPositions) {
         this(clause1, clause2);
         this.proximity = proximity;
-        this.needsPositions = needsPositions;
+        if(needsPositions) {
+            setNeedsPositions();
+        }
+    }
+
+    @Override
+    public void setNeedsPositions() {
+        needsPositions = true;
+        super.setNeedsPositions();
     }
 
     protected boolean nextDoc(RankInfo rankInfo) throws IOException {
-        while(true) {
-            if(needsPositions) {
-                docInfo1.clearOccurrence();
-                docInfo2.clearOccurrence();
-            }
-            hasNext1 = clause1.next(docInfo1);
-            hasNext2 = clause2.next(docInfo2);
-
-            if (hasNext1 && hasNext2) {
-                int doc1 = docInfo1.docNo();
-                int doc2 = docInfo2.docNo();
-                while (hasNext1 && hasNext2 && (doc1 != doc2)) {
-                    while (hasNext1 && (doc1 < doc2)) {
-                        if(needsPositions) {
-                            docInfo1.clearOccurrence();
-                        }
-                        hasNext1 = clause1.next(docInfo1);
-                        doc1 = docInfo1.docNo();
-                    }
-                    while (hasNext2 && (doc1 > doc2)) {
-                        if(needsPositions) {
-                            docInfo2.clearOccurrence();
-                        }
-                        hasNext2 = clause2.next(docInfo2);
-                        doc2 = docInfo2.docNo();
-                    }
-                }
+        if(needsPositions) {
+            docInfo1.clearOccurrence();
+        }
+        hasNext1 = clause1.next(docInfo1);
+        return leapfrog(rankInfo);
+    }
 
-                if (hasNext1 && hasNext2 && (doc1 == doc2)) {
-
-                    rankInfo.explain(docInfo1);
-                    rankInfo.explain(docInfo2);
-                    if (needsPositions) {
-                        rankInfo.addTermOccurrencesList(docInfo1.getTermOccurrencesList());
-                        rankInfo.addTermOccurrencesList(docInfo2.getTermOccurrencesList());
-                    }
-                    //positions는 doc2(나중 텀)의 것 을 넣어준다.
-                    rankInfo.init(doc1, docInfo1.score() + docInfo2.score(), docInfo1.hit() + docInfo2.hit());
-                    return true;
-                }
+    @Override
+    protected boolean advanceDoc(int docNo, RankInfo rankInfo) throws IOException {
+        if(needsPositions) {
+            docInfo1.clearOccurrence();
+        }
+        hasNext1 = clause1.advance(docNo, docInfo1);
+        return leapfrog(rankInfo);
+    }
 
-                return false;
+    /*
+     * 절1의 문서번호까지 절2를 건너뛰고, 다시 절2의 문서번호까지 절1을 건너뛰는 식으로 번갈아가며 같은 문서를 찾는다.
+     * 하위절이 skip 정보를 사용할수 있다면 사이의 문서들은 읽지 않는다.
+     * */
+    private boolean leapfrog(RankInfo rankInfo) throws IOException {
+        if (!hasNext1) {
+            //절1과 절2중 하나라도 끝나면 AND 집합도 더이상 없는것이다.
+            return false;
+        }
+        if(needsPositions) {
+            docInfo2.clearOccurrence();
+        }
+        hasNext2 = clause2.advance(docInfo1.docNo(), docInfo2);
+
+        while (hasNext1 && hasNext2) {
+            int doc1 = docInfo1.docNo();
+            int doc2 = docInfo2.docNo();
+            if (doc1 == doc2) {
+                rankInfo.explain(docInfo1);
+                rankInfo.explain(docInfo2);
+                if (needsPositions) {
+                    rankInfo.addTermOccurrencesList(docInfo1.getTermOccurrencesList());
+                    rankInfo.addTermOccurrencesList(docInfo2.getTermOccurrencesList());
+                }
+                //positions는 doc2(나중 텀)의 것 을 넣어준다.
+                rankInfo.init(doc1, docInfo1.score() + docInfo2.score(), docInfo1.hit() + docInfo2.hit());
+                return true;
+            } else if (doc1 < doc2) {
+                if(needsPositions) {
+                    docInfo1.clearOccurrence();
+                }
+                hasNext1 = clause1.advance(doc2, docInfo1);
             } else {
-                //절1과 절2중 하나라도 끝나면 AND 집합도 더이상 없는것이다.
-                return false;
+                if(needsPositions) {
+                    docInfo2.clearOccurrence();
+                }
+                hasNext2 = clause2.advance(doc1, docInfo2);
             }
         }
+        return false;
     }
 
 
@@ -101,6 +101,67 @@ public abstract class OperatedClause {
 	}
 	
 	protected abstract boolean nextDoc(RankInfo docInfo) throws IOException;
+
+	/**
+	 * 현재위치 이후에서 문서번호가 docNo 이상인 첫번째 문서로 이동한다.
+	 * AND 와 같이 교집합을 구할때 상대편 문서번호까지 건너뛰기 위해 사용한다.
+	 * @return RankInfo를 올바로 읽었는지 여부.
+	 */
+	public boolean advance(int docNo, RankInfo rankInfo) throws IOException {
+		if(explanation != null){
+			rankInfo.reset();
+			long start = System.nanoTime();
+			if(advanceDoc(docNo, rankInfo)){
+				explanation.addTime(System.nanoTime() - start);
+				explanation.addRow();
+				return true;
+			}else{
+				explanation.addTime(System.nanoTime() - start);
+				return false;
+			}
+		}else{
+			return advanceDoc(docNo, rankInfo);
+		}
+	}
+
+	/**
+	 * 건너뛰기를 지원하지 않는 절은 순차로 읽는다. 하위 절에서 skip이 가능하면 재정의한다.
+	 */
+	protected boolean advanceDoc(int docNo, RankInfo rankInfo) throws IOException {
+		while(nextDoc(rankInfo)){
+			if(rankInfo.docNo() >= docNo){
+				return true;
+			}
+			//버린 문서의 정보가 쌓이지 않도록 한다.
+			rankInfo.reset();
+			rankInfo.clearOccurrence();
+		}
+		return false;
+	}
+	
+	/**
+	 * 이 절이 리턴할수 있는 문서점수의 상한. 알수 없으면 Integer.MAX_VALUE.
+	 * 점수정렬 검색에서 top K에 들어갈수 없는 문서를 건너뛰는 데 사용한다.
+	 */
+	public int maxScore() {
+		return Integer.MAX_VALUE;
+	}
+
+	/**
+	 * 점수가 minScore 보다 작은 문서는 더이상 결과에 들어갈수 없음을 알려준다.
+	 * 이후 호출되는 next, advance 는 점수가 minScore 보다 작은 문서를 리턴하지 않고 건너뛸수 있다.(리턴해도 무방하다)
+	 * minScore 는 검색중 커지기만 한다. 기본은 무시하며, 상한을 알수 있는 절에서 재정의한다.
+	 */
+	public void setMinCompetitiveScore(int minScore) {
+	}
+
+	/**
+	 * 상한의 합. 어느 한쪽이라도 알수 없으면 알수 없다.
+	 */
+	protected static int sumMaxScore(int maxScore1, int maxScore2) {
+		long sum = (long) maxScore1 + maxScore2;
+		return sum >= Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) sum;
+	}
 	
 	public abstract void close();
 	
@@ -115,6 +176,20 @@ public abstract class OperatedClause {
 	public OperatedClause[] children() {
 		return null;
 	}
+
+	/**
+	 * 출현위치가 필요할때 호출하여 하위절까지 전달한다. 포스팅의 출현위치는 이 경우에만 읽는다.
+	 */
+	public void setNeedsPositions() {
+		OperatedClause[] children = children();
+		if(children != null){
+			for(OperatedClause child : children){
+				if(child != null){
+					child.setNeedsPositions();
+				}
+			}
+		}
+	}
 	
 	public abstract void printTrace(Writer writer, int indent, int depth) throws IOException;
 
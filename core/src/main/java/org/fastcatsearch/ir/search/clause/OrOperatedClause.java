@@ -34,6 +34,10 @@ public class OrOperatedClause extends OperatedClause {
 
     private boolean needsPositions;
 
+    private int minScore;
+    private int maxScore1;
+    private int maxScore2;
+
     public OrOperatedClause(OperatedClause clause1, OperatedClause clause2) {
         super("OR");
         this.clause1 = clause1;
@@ -48,154 +52,49 @@ public class OrOperatedClause extends OperatedClause {
     public OrOperatedClause(OperatedClause clause1, OperatedClause clause2, int proximity, boolean needsPositions) {
         this(clause1, clause2);
         this.proximity = proximity;
+        if(needsPositions) {
+            setNeedsPositions();
+        }
+    }
+
+    @Override
+    public void setNeedsPositions() {
+        needsPositions = true;
+        super.setNeedsPositions();
     }
 
     protected boolean nextDoc(RankInfo rankInfo) throws IOException {
+        if(minScore > 0) {
+            return nextCompetitiveDoc(rankInfo);
+        }
         while(hasNext1 || hasNext2){
             int doc1 = docInfo1.docNo();
             int doc2 = docInfo2.docNo();
             if(hasNext1 && hasNext2){
                 if(doc1 < doc2){
-                    rankInfo.init(doc1, docInfo1.score(), docInfo1.hit());
-                    rankInfo.addMatchFlag(docInfo1.matchFlag());
-                    rankInfo.explain(docInfo1);
-                    if(needsPositions) {
-                        rankInfo.addTermOccurrencesList(docInfo1.getTermOccurrencesList());
-                        docInfo1.clearOccurrence();
-                    }
-                    hasNext1 = clause1.next(docInfo1);
+                    takeFirst(rankInfo);
                 }else if(doc1 > doc2){
-                    rankInfo.init(doc2, docInfo2.score(), docInfo2.hit());
-                    rankInfo.addMatchFlag(docInfo2.matchFlag());
-                    rankInfo.explain(docInfo2);
-                    if(needsPositions) {
-                        rankInfo.addTermOccurrencesList(docInfo2.getTermOccurrencesList());
-                        docInfo2.clearOccurrence();
-                    }
-                    hasNext2 = clause2.next(docInfo2);
+                    takeSecond(rankInfo);
                 }else {
-                    int hit = 0;
-                    int score = docInfo1.score() + docInfo2.score();
-//                    if (proximity != 0) {
-//                        int[] pos1 = docInfo1.positions();
-//                        int[] pos2 = docInfo2.positions();
-//                        if (pos1 != null && pos2 != null) {
-//                            OUTER:
-//                            for (int p1 : pos1) {
-//                                for (int p2 : pos2) {
-////                                    logger.debug("{}>>{}:{}", doc1, p1, p2);
-//                                    //시작단어이면 점수 증가.
-//                                    if (proximity > 0) {
-//                                        if(p1 == 0 || p2 == 0) {
-//                                            score += 100000;
-//                                        }
-//                                        //순서존재.
-//                                        int diff = p2 - p1;
-//                                        //diff 가 0이면 같은 단어이므로 추가점수를 주지 않는다.
-//                                        if(diff == 0) {
-//                                            //앞선 단어점수유지.
-//                                            hit = docInfo1.hit();
-//                                            break;
-//                                        } else if (diff == 1) {
-//                                            //인접확인.
-//                                            score += 1100000;; //정확히 1차이.
-//                                            hit = docInfo1.hit() + docInfo2.hit();
-//                                            hit += 1; //추가점수.
-//                                            break OUTER;
-//                                        } else if (diff > 0 && diff <= proximity) {
-//                                            score += 1000000;; //1이 아닌 0이나 2이상.
-//                                            break OUTER;
-//                                        }
-//                                    } else {
-//                                        //순서없음.
-//                                        int diff = p2 - p1;
-//                                        //diff 가 0이면 같은 단어이므로 추가점수를 주지 않는다.
-//                                        if(diff == 0) {
-//                                            hit = docInfo1.hit();
-//                                            break;
-//                                        } else if(diff > 0) {
-//                                            //순서올바로
-//                                            if (diff == 1) {
-//                                                score += 1100000;
-//                                                hit = docInfo1.hit() + docInfo2.hit();
-//                                                hit += 1; //추가점수.
-//                                                //시작단어이면 점수 증가.
-//                                                if(p1 == 0 || p2 == 0) {
-//                                                    hit += 2;
-//                                                }
-//                                                break OUTER;
-//                                            } else if(diff <= -proximity) {
-//                                                score += 1000000;
-//                                                hit = docInfo1.hit() + docInfo2.hit();
-//                                                if(p1 == 0 || p2 == 0) {
-//                                                    hit += 1; //추가점수.
-//                                                }
-//                                                break OUTER;
-//                                            }
-//                                        } else if(diff < 0) {
-//                                            //순서바뀜.
-//                                            if(diff == -1) {
-//                                                score += 1000000;
-//                                                hit = docInfo1.hit() + docInfo2.hit();
-//                                                //페널티
-//                                                hit -= 1;
-//                                                break OUTER;
-//                                            } else if(diff >= proximity) {
-//                                                score += 1000000;
-//                                                hit = docInfo1.hit() + docInfo2.hit();
-//                                                hit -= 2;
-//                                                break OUTER;
-//                                            }
-//                                        }
-//                                    }
-//                                }
-//                            }
-//                        }
-//                    }
-                    if(hit == 0) {
-                        hit = Math.max(docInfo1.hit(), docInfo2.hit());
-                    }
-                    rankInfo.init(doc1, score, hit);
-                    rankInfo.addMatchFlag(docInfo1.matchFlag());
-                    rankInfo.addMatchFlag(docInfo2.matchFlag());
-                    rankInfo.explain(docInfo1);
-                    rankInfo.explain(docInfo2);
-                    if(needsPositions) {
-                        rankInfo.addTermOccurrencesList(docInfo1.getTermOccurrencesList());
-                        rankInfo.addTermOccurrencesList(docInfo2.getTermOccurrencesList());
-                        docInfo1.clearOccurrence();
-                        docInfo2.clearOccurrence();
-                    }
-                    hasNext1 = clause1.next(docInfo1);
-                    hasNext2 = clause2.next(docInfo2);
+                    takeBoth(rankInfo);
                 }
 
                 return true;
             }
 
             if(hasNext1){
-                rankInfo.init(doc1, docInfo1.score(), docInfo1.hit());
-                rankInfo.addMatchFlag(docInfo1.matchFlag());
-                rankInfo.explain(docInfo1);
                 if(needsPositions) {
                     rankInfo.clearOccurrence();
-                    rankInfo.addTermOccurrencesList(docInfo1.getTermOccurrencesList());
-                    docInfo1.clearOccurrence();
                 }
-                hasNext1 = clause1.next(docInfo1);
+                takeFirst(rankInfo);
                 return true;
             }
 
             if(hasNext2){
-                rankInfo.init(doc2, docInfo2.score(), docInfo2.hit());
-                rankInfo.addMatchFlag(docInfo2.matchFlag());
-                rankInfo.explain(docInfo2);
                 if(needsPositions) {
                     rankInfo.clearOccurrence();
-                    rankInfo.addTermOccurrencesList(docInfo2.getTermOccurrencesList());
-                    docInfo2.clearOccurrence();
                 }
-                hasNext2 = clause2.next(docInfo2);
+                takeSecond(rankInfo);
                 return true;
             }
 
@@ -204,6 +103,289 @@ public class OrOperatedClause extends OperatedClause {
         return false;
     }
 
+    /**
+     * MaxScore 방식으로 점수가 minScore 이상이 될수 있는 문서만 리턴한다.
+     * 한쪽 절의 최대점수가 minScore 보다 작으면 그 절에만 있는 문서는 결과에 들어갈수 없으므로,
+     * 다른쪽 절이 문서를 이끌고 그 절은 해당 문서번호로 advance 하여 skip 정보로 건너뛴다.
+     * 양쪽 모두 minScore 보다 작으면 두 절에 모두 있는 문서만 확인하며, 합도 작으면 종료한다.
+     */
+    private boolean nextCompetitiveDoc(RankInfo rankInfo) throws IOException {
+        while(hasNext1 || hasNext2){
+            boolean essential1 = maxScore1 >= minScore;
+            boolean essential2 = maxScore2 >= minScore;
+            if(!essential1 && !essential2) {
+                if(!hasNext1 || !hasNext2 || sumMaxScore(maxScore1, maxScore2) < minScore) {
+                    hasNext1 = false;
+                    hasNext2 = false;
+                    return false;
+                }
+                int doc1 = docInfo1.docNo();
+                int doc2 = docInfo2.docNo();
+                if(doc1 < doc2) {
+                    advanceFirst(doc2);
+                } else if(doc1 > doc2) {
+                    advanceSecond(doc1);
+                } else if(docInfo1.score() + docInfo2.score() >= minScore) {
+                    takeBoth(rankInfo);
+                    return true;
+                } else {
+                    skipFirst();
+                    skipSecond();
+                }
+            } else if(!essential1) {
+                //clause2 가 문서를 이끈다.
+                if(!hasNext2) {
+                    hasNext1 = false;
+                    return false;
+                }
+                int doc2 = docInfo2.docNo();
+                if(hasNext1 && docInfo1.docNo() < doc2) {
+                    advanceFirst(doc2);
+                }
+                if(hasNext1 && docInfo1.docNo() == doc2) {
+                    if(docInfo1.score() + docInfo2.score() >= minScore) {
+                        takeBoth(rankInfo);
+                        return true;
+                    }
+                    skipFirst();
+                    skipSecond();
+                } else if(docInfo2.score() >= minScore) {
+                    takeSecond(rankInfo);
+                    return true;
+                } else {
+                    skipSecond();
+                }
+            } else if(!essential2) {
+                //clause1 이 문서를 이끈다.
+                if(!hasNext1) {
+                    hasNext2 = false;
+                    return false;
+                }
+                int doc1 = docInfo1.docNo();
+                if(hasNext2 && docInfo2.docNo() < doc1) {
+                    advanceSecond(doc1);
+                }
+                if(hasNext2 && docInfo2.docNo() == doc1) {
+                    if(docInfo1.score() + docInfo2.score() >= minScore) {
+                        takeBoth(rankInfo);
+                        return true;
+                    }
+                    skipFirst();
+                    skipSecond();
+                } else if(docInfo1.score() >= minScore) {
+                    takeFirst(rankInfo);
+                    return true;
+                } else {
+                    skipFirst();
+                }
+            } else {
+                //양쪽 모두 필요하므로 합집합을 구하되 점수가 모자란 문서는 버린다.
+                int doc1 = docInfo1.docNo();
+                int doc2 = docInfo2.docNo();
+                if(hasNext1 && (!hasNext2 || doc1 < doc2)) {
+                    if(docInfo1.score() >= minScore) {
+                        takeFirst(rankInfo);
+                        return true;
+                    }
+                    skipFirst();
+                } else if(hasNext2 && (!hasNext1 || doc2 < doc1)) {
+                    if(docInfo2.score() >= minScore) {
+                        takeSecond(rankInfo);
+                        return true;
+                    }
+                    skipSecond();
+                } else if(docInfo1.score() + docInfo2.score() >= minScore) {
+                    takeBoth(rankInfo);
+                    return true;
+                } else {
+                    skipFirst();
+                    skipSecond();
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    protected boolean advanceDoc(int docNo, RankInfo rankInfo) throws IOException {
+        if(hasNext1 && docInfo1.docNo() < docNo) {
+            advanceFirst(docNo);
+        }
+        if(hasNext2 && docInfo2.docNo() < docNo) {
+            advanceSecond(docNo);
+        }
+        return nextDoc(rankInfo);
+    }
+
+    private void takeFirst(RankInfo rankInfo) throws IOException {
+        rankInfo.init(docInfo1.docNo(), docInfo1.score(), docInfo1.hit());
+        rankInfo.addMatchFlag(docInfo1.matchFlag());
+        rankInfo.explain(docInfo1);
+        if(needsPositions) {
+            rankInfo.addTermOccurrencesList(docInfo1.getTermOccurrencesList());
+            docInfo1.clearOccurrence();
+        }
+        hasNext1 = clause1.next(docInfo1);
+    }
+
+    private void takeSecond(RankInfo rankInfo) throws IOException {
+        rankInfo.init(docInfo2.docNo(), docInfo2.score(), docInfo2.hit());
+        rankInfo.addMatchFlag(docInfo2.matchFlag());
+        rankInfo.explain(docInfo2);
+        if(needsPositions) {
+            rankInfo.addTermOccurrencesList(docInfo2.getTermOccurrencesList());
+            docInfo2.clearOccurrence();
+        }
+        hasNext2 = clause2.next(docInfo2);
+    }
+
+    private void takeBoth(RankInfo rankInfo) throws IOException {
+        int hit = 0;
+        int score = docInfo1.score() + docInfo2.score();
+//        if (proximity != 0) {
+//            int[] pos1 = docInfo1.positions();
+//            int[] pos2 = docInfo2.positions();
+//            if (pos1 != null && pos2 != null) {
+//                OUTER:
+//                for (int p1 : pos1) {
+//                    for (int p2 : pos2) {
+////                                    logger.debug("{}>>{}:{}", doc1, p1, p2);
+//                        //시작단어이면 점수 증가.
+//                        if (proximity > 0) {
+//                            if(p1 == 0 || p2 == 0) {
+//                                score += 100000;
+//                            }
+//                            //순서존재.
+//                            int diff = p2 - p1;
+//                            //diff 가 0이면 같은 단어이므로 추가점수를 주지 않는다.
+//                            if(diff == 0) {
+//                                //앞선 단어점수유지.
+//                                hit = docInfo1.hit();
+//                                break;
+//                            } else if (diff == 1) {
+//                                //인접확인.
+//                                score += 1100000;; //정확히 1차이.
+//                                hit = docInfo1.hit() + docInfo2.hit();
+//                                hit += 1; //추가점수.
+//                                break OUTER;
+//                            } else if (diff > 0 && diff <= proximity) {
+//                                score += 1000000;; //1이 아닌 0이나 2이상.
+//                                break OUTER;
+//                            }
+//                        } else {
+//                            //순서없음.
+//                            int diff = p2 - p1;
+//                            //diff 가 0이면 같은 단어이므로 추가점수를 주지 않는다.
+//                            if(diff == 0) {
+//                                hit = docInfo1.hit();
+//                                break;
+//                            } else if(diff > 0) {
+//                                //순서올바로
+//                                if (diff == 1) {
+//                                    score += 1100000;
+//                                    hit = docInfo1.hit() + docInfo2.hit();
+//                                    hit += 1; //추가점수.
+//                                    //시작단어이면 점수 증가.
+//                                    if(p1 == 0 || p2 == 0) {
+//                                        hit += 2;
+//                                    }
+//                                    break OUTER;
+//                                } else if(diff <= -proximity) {
+//                                    score += 1000000;
+//                                    hit = docInfo1.hit() + docInfo2.hit();
+//                                    if(p1 == 0 || p2 == 0) {
+//                                        hit += 1; //추가점수.
+//                                    }
+//                                    break OUTER;
+//                                }
+//                            } else if(diff < 0) {
+//                                //순서바뀜.
+//                                if(diff == -1) {
+//                                    score += 1000000;
+//                                    hit = docInfo1.hit() + docInfo2.hit();
+//                                    //페널티
+//                                    hit -= 1;
+//                                    break OUTER;
+//                                } else if(diff >= proximity) {
+//                                    score += 1000000;
+//                                    hit = docInfo1.hit() + docInfo2.hit();
+//                                    hit -= 2;
+//                                    break OUTER;
+//                                }
+//                            }
+//                        }
+//                    }
+//                }
+//            }
+//        }
+        if(hit == 0) {
+            hit = Math.max(docInfo1.hit(), docInfo2.hit());
+        }
+        rankInfo.init(docInfo1.docNo(), score, hit);
+        rankInfo.addMatchFlag(docInfo1.matchFlag());
+        rankInfo.addMatchFlag(docInfo2.matchFlag());
+        rankInfo.explain(docInfo1);
+        rankInfo.explain(docInfo2);
+        if(needsPositions) {
+            rankInfo.addTermOccurrencesList(docInfo1.getTermOccurrencesList());
+            rankInfo.addTermOccurrencesList(docInfo2.getTermOccurrencesList());
+            docInfo1.clearOccurrence();
+            docInfo2.clearOccurrence();
+        }
+        hasNext1 = clause1.next(docInfo1);
+        hasNext2 = clause2.next(docInfo2);
+    }
+
+    //결과에 넣지 않는 문서의 출현위치가 쌓이지 않도록 비우고 다음 문서로 이동한다.
+    private void skipFirst() throws IOException {
+        if(needsPositions) {
+            docInfo1.clearOccurrence();
+        }
+        hasNext1 = clause1.next(docInfo1);
+    }
+
+    private void skipSecond() throws IOException {
+        if(needsPositions) {
+            docInfo2.clearOccurrence();
+        }
+        hasNext2 = clause2.next(docInfo2);
+    }
+
+    private void advanceFirst(int docNo) throws IOException {
+        if(needsPositions) {
+            docInfo1.clearOccurrence();
+        }
+        hasNext1 = clause1.advance(docNo, docInfo1);
+    }
+
+    private void advanceSecond(int docNo) throws IOException {
+        if(needsPositions) {
+            docInfo2.clearOccurrence();
+        }
+        hasNext2 = clause2.advance(docNo, docInfo2);
+    }
+
+    @Override
+    public int maxScore() {
+        return sumMaxScore(clause1 != null ? clause1.maxScore() : 0, clause2 != null ? clause2.maxScore() : 0);
+    }
+
+    /**
+     * 다른쪽 절이 최대점수만큼 더해줄수 있으므로 각 하위절에는 그만큼 뺀 점수를 전달한다.
+     */
+    @Override
+    public void setMinCompetitiveScore(int minScore) {
+        this.minScore = minScore;
+        maxScore1 = clause1 != null ? clause1.maxScore() : 0;
+        maxScore2 = clause2 != null ? clause2.maxScore() : 0;
+        if(clause1 != null) {
+            clause1.setMinCompetitiveScore(minScore - maxScore2);
+        }
+        if(clause2 != null) {
+            clause2.setMinCompetitiveScore(minScore - maxScore1);
+        }
+    }
+
     @Override
     public String toString(){
         return "["+getClass().getSimpleName()+"]"
@@ -34,6 +34,9 @@ public class TermOperatedClause extends OperatedClause {
     private String synonymOf;
 
     private TermOccurrences termOccurrence;
+    private boolean needsPositions;
+    private int minScore;
+    private boolean isCompetitive = true; //최대점수가 minScore 보다 작아지면 더이상 읽지 않는다.
 
     public TermOperatedClause(String indexId, String termString, PostingReader postingReader) throws IOException {
         this(indexId, termString, postingReader, 0, null);
@@ -60,35 +63,97 @@ public class TermOperatedClause extends OperatedClause {
     }
 
     protected boolean nextDoc(RankInfo rankInfo) throws IOException {
-        if (postingReader == null) {
+        if (postingReader == null || !isCompetitive) {
             rankInfo.setEmpty();
             return false;
         }
-        if (postingReader.hasNext()) {
+        while (postingReader.hasNext()) {
             PostingDoc postingDoc = postingReader.next();
-            int score = 0;
+            int score = score(postingDoc);
+            if (score >= minScore) {
+                fill(postingDoc, score, rankInfo);
+                return true;
+            }
+        }
+        rankInfo.setEmpty();
+        return false;
+    }
 
-            if(postingReader.weight() > 0) {
-                score = postingReader.weight();
-            } else if(postingReader.weight() == -1) {
-                float tf = 2.2f * postingDoc.tf() / (2.0f + postingDoc.tf());
-                float idf = (float) Math.log(documentCount / segmentDF);
-                score = (int) (tf * idf * SCORE_BASE);
+    @Override
+    protected boolean advanceDoc(int docNo, RankInfo rankInfo) throws IOException {
+        if (postingReader == null || !isCompetitive) {
+            rankInfo.setEmpty();
+            return false;
+        }
+        PostingDoc postingDoc = postingReader.advance(docNo);
+        while (postingDoc != null) {
+            int score = score(postingDoc);
+            if (score >= minScore) {
+                fill(postingDoc, score, rankInfo);
+                return true;
             }
-//            logger.debug("TermOP >> {} doc[{}] score[{}] hit[{}] pos[{}]", termString, postingDoc.docNo(), score, termString.length(), postingDoc.positions());
-//			rankInfo.init(postingDoc.docNo(), score, postingDoc.tf(), postingDoc.positions());
-            rankInfo.init(postingDoc.docNo(), score, termString.length() * 3);
-            rankInfo.addMatchSequence(termSequence);
-            if(postingDoc.positions() != null) {
-                rankInfo.addTermOccurrences(termOccurrence.withPosition(postingDoc.positions()));
+            postingDoc = postingReader.hasNext() ? postingReader.next() : null;
+        }
+        rankInfo.setEmpty();
+        return false;
+    }
+
+    private int score(PostingDoc postingDoc) {
+        return score(postingDoc.tf());
+    }
+
+    private int score(int termFreq) {
+        int score = 0;
+
+        if(postingReader.weight() > 0) {
+            score = postingReader.weight();
+        } else if(postingReader.weight() == -1) {
+            float tf = 2.2f * termFreq / (2.0f + termFreq);
+            float idf = (float) Math.log(documentCount / segmentDF);
+            score = (int) (tf * idf * SCORE_BASE);
+        }
+        return score;
+    }
+
+    /**
+     * 포스팅의 최대 출현횟수로 구한 점수. 출현횟수에 대해 점수가 증가하므로 상한이 된다.
+     * 최대 출현횟수가 색인되지 않은 경우 출현횟수 항의 극한값(2.2)으로 구한다.
+     */
+    @Override
+    public int maxScore() {
+        if (postingReader == null || segmentDF <= 0) {
+            return 0;
+        }
+        if(postingReader.weight() == -1) {
+            int maxTf = postingReader.maxTf();
+            if (maxTf < 0) {
+                float idf = (float) Math.log(documentCount / segmentDF);
+                return (int) Math.ceil(2.2f * idf * SCORE_BASE);
             }
-            if(isExplain()){
-                rankInfo.explain(id, score, postingReader.term().toString());
+        }
+        return score(Math.max(postingReader.maxTf(), 1));
+    }
+
+    @Override
+    public void setMinCompetitiveScore(int minScore) {
+        this.minScore = minScore;
+        isCompetitive = maxScore() >= minScore;
+    }
+
+    private void fill(PostingDoc postingDoc, int score, RankInfo rankInfo) {
+//        logger.debug("TermOP >> {} doc[{}] score[{}] hit[{}] pos[{}]", termString, postingDoc.docNo(), score, termString.length(), postingDoc.positions());
+//		rankInfo.init(postingDoc.docNo(), score, postingDoc.tf(), postingDoc.positions());
+        rankInfo.init(postingDoc.docNo(), score, termString.length() * 3);
+        rankInfo.addMatchSequence(termSequence);
+        if(needsPositions) {
+            //출현위치는 요청시에만 포스팅에서 읽는다.
+            int[] positions = postingDoc.positions();
+            if(positions != null) {
+                rankInfo.addTermOccurrences(termOccurrence.withPosition(positions));
             }
-            return true;
-        } else {
-            rankInfo.setEmpty();
-            return false;
+        }
+        if(isExplain()){
+            rankInfo.explain(id, score, postingReader.term().toString());
         }
     }
 
@@ -122,6 +187,11 @@ public class TermOperatedClause extends OperatedClause {
 //		explanation.setTerm(postingReader.term().toString());
 //	}
 
+    @Override
+    public void setNeedsPositions() {
+        needsPositions = true;
+    }
+
     @Override
     public String term() {
         return termString;
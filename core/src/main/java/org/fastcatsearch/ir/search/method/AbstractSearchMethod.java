@@ -1,5 +1,6 @@
 package org.fastcatsearch.ir.search.method;
 
+import org.fastcatsearch.ir.fst.FST;
 import org.fastcatsearch.ir.index.IndexFieldOption;
 import org.fastcatsearch.ir.io.CharVector;
 import org.fastcatsearch.ir.io.IndexInput;
@@ -19,6 +20,9 @@ public abstract class AbstractSearchMethod implements SearchMethod {
 	protected IndexInput postingInput;
 	
 	protected MemoryLexicon memoryLexicon;
+	
+	//null 이면 FST가 없는 이전 색인이며 memoryLexicon 을 사용한다.
+	protected FST lexiconFST;
 
 	protected IndexFieldOption indexFieldOption;
 	
@@ -39,6 +43,11 @@ public abstract class AbstractSearchMethod implements SearchMethod {
 		this.lexiconFileLimit = lexiconInput.length();
 	}
 	
+	public void init(MemoryLexicon memoryLexicon, FST lexiconFST, IndexInput lexiconInput, IndexInput postingInput, IndexFieldOption indexFieldOption, int segmentDocumentCount) {
+		init(memoryLexicon, lexiconInput, postingInput, indexFieldOption, segmentDocumentCount);
+		this.lexiconFST = lexiconFST;
+	}
+	
 	protected int compareKey(char[] t, CharVector term) {
 
 		int len1 = t.length;
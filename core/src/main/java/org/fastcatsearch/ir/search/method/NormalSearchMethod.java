@@ -4,7 +4,7 @@ import java.io.IOException;
 
 import org.fastcatsearch.ir.io.CharVector;
 import org.fastcatsearch.ir.io.IOUtil;
-import org.fastcatsearch.ir.search.BufferedPostingReader;
+import org.fastcatsearch.ir.search.StreamPostingReader;
 import org.fastcatsearch.ir.search.PostingReader;
 
 public class NormalSearchMethod extends AbstractSearchMethod {
@@ -12,11 +12,27 @@ public class NormalSearchMethod extends AbstractSearchMethod {
 	@Override
 	public PostingReader doSearch(String indexId, CharVector term, int termPosition, int weight, int segmentDocumentCount) throws IOException {
 
-		if (memoryLexicon.size() == 0) {
+		if (term.length() == 0) {
 			return null;
 		}
 
-		if (term.length() == 0) {
+		if (lexiconFST != null) {
+			if (lexiconFST.size() == 0) {
+				return null;
+			}
+			long lexiconPosition = lexiconFST.get(term);
+			if (lexiconPosition < 0) {
+				return null;
+			}
+			//lexicon 위치의 텀을 건너뛰고 포스팅 위치를 읽는다.
+			lexiconInput.seek(lexiconPosition);
+			int byteSize = lexiconInput.readVInt();
+			lexiconInput.seek(lexiconInput.position() + byteSize);
+			long inputOffset = lexiconInput.readLong();
+			return new StreamPostingReader(term, termPosition, weight, segmentDocumentCount, indexFieldOption, postingInput, inputOffset);
+		}
+
+		if (memoryLexicon.size() == 0) {
 			return null;
 		}
 
@@ -58,7 +74,7 @@ public class NormalSearchMethod extends AbstractSearchMethod {
 			throw e;
 		}
 		if (inputOffset >= 0) {
-			return new BufferedPostingReader(term, termPosition, weight, segmentDocumentCount, indexFieldOption, postingInput, inputOffset);
+			return new StreamPostingReader(term, termPosition, weight, segmentDocumentCount, indexFieldOption, postingInput, inputOffset);
 		}
 
 		return null;
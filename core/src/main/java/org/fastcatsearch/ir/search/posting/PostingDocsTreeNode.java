@@ -24,7 +24,9 @@ public class PostingDocsTreeNode extends NodeReader {
 	@Override
 	public int next() throws IOException {
 		if(postingReader.hasNext()){
-			postingDoc = postingReader.next();
+			//수집기에서 다음 문서를 읽은 후에도 사용하므로 복사해둔다.
+			PostingDoc doc = postingReader.next();
+			postingDoc = new PostingDoc(doc.docNo(), doc.tf(), doc.positions());
 			return postingDoc.docNo();
 		}else{
 			return -1;
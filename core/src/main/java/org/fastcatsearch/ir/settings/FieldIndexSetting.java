@@ -22,7 +22,7 @@ import javax.xml.bind.annotation.XmlType;
 import javax.xml.bind.annotation.adapters.XmlJavaTypeAdapter;
 
 @XmlRootElement(name = "field-index")
-@XmlType(propOrder = { "ignoreCase", "size", "ref", "name", "id" })
+@XmlType(propOrder = { "point", "memory", "ignoreCase", "size", "ref", "name", "id" })
 public class FieldIndexSetting implements ReferencableFieldSetting {
 	
 	private String id;
@@ -30,6 +30,8 @@ public class FieldIndexSetting implements ReferencableFieldSetting {
 	private String ref;
 	private int size;
 	private boolean ignoreCase;
+	private boolean memory; //세그먼트를 열때 필드색인 데이터를 메모리에 올려둔다. 고정길이 싱글밸류 필드에만 적용된다.
+	private boolean point; //숫자필드의 값 정렬 포인트색인을 함께 기록하여 범위필터를 문서집합으로 바로 찾는다.
 	
 	public FieldIndexSetting() {}
 	
@@ -46,6 +48,14 @@ public class FieldIndexSetting implements ReferencableFieldSetting {
 		this.ignoreCase = ignoreCase;
 	}
 
+	public void setMemory(Boolean memory) {
+		this.memory = memory;
+	}
+
+	public void setPoint(Boolean point) {
+		this.point = point;
+	}
+
 	@XmlAttribute(required=true)
 	public String getId() {
 		return id;
@@ -74,6 +84,18 @@ public class FieldIndexSetting implements ReferencableFieldSetting {
 		return ignoreCase;
 	}
 
+	@XmlAttribute
+	@XmlJavaTypeAdapter(OptionalBooleanFalseAdapter.class)
+	public Boolean isMemory() {
+		return memory;
+	}
+
+	@XmlAttribute
+	@XmlJavaTypeAdapter(OptionalBooleanFalseAdapter.class)
+	public Boolean isPoint() {
+		return point;
+	}
+
 	public void setId(String id) {
 		this.id = id.toUpperCase();
 	}
@@ -95,7 +117,7 @@ public class FieldIndexSetting implements ReferencableFieldSetting {
 	}
 
 	public String toString(){
-		return "[FieldIndex="+id+":"+name+":"+ref+":"+size+":"+ignoreCase+"]";
+		return "[FieldIndex="+id+":"+name+":"+ref+":"+size+":"+ignoreCase+":"+memory+":"+point+"]";
 	}
 
 	
@@ -24,7 +24,7 @@ import javax.xml.bind.annotation.XmlRootElement;
 import javax.xml.bind.annotation.XmlType;
 import javax.xml.bind.annotation.adapters.XmlJavaTypeAdapter;
 
-@XmlType(propOrder = { "noAdditional", "positionIncrementGap", "storePosition", "ignoreCase", "queryAnalyzer", "fieldList", "name", "id"} )
+@XmlType(propOrder = { "storeOffset", "storeSuffix", "noAdditional", "positionIncrementGap", "storePosition", "ignoreCase", "queryAnalyzer", "fieldList", "name", "id"} )
 @XmlRootElement(name = "index")
 public class IndexSetting {
 
@@ -37,6 +37,8 @@ public class IndexSetting {
 	private boolean storePosition;
 	private int positionIncrementGap;
 	private boolean noAdditional; //분석결과에서 additional term 발생시 추가로 색인하지 않는 필드로 지정
+	private boolean storeSuffix; //뒤집은 텀의 FST를 기록하여 suffix 검색(*abc)을 사전탐색으로 처리한다.
+	private boolean storeOffset; //문서별 텀과 오프셋을 기록하여 하이라이팅시 문서를 다시 분석하지 않는다.
 
 	public IndexSetting() { }
 	
@@ -50,7 +52,7 @@ public class IndexSetting {
 	}
 	
 	public String toString(){
-		return "[index="+id+":"+name+":"+fieldList+":"+queryAnalyzer+":"+ignoreCase+":"+storePosition+":"+positionIncrementGap+":"+noAdditional+"]";
+		return "[index="+id+":"+name+":"+fieldList+":"+queryAnalyzer+":"+ignoreCase+":"+storePosition+":"+positionIncrementGap+":"+noAdditional+":"+storeSuffix+":"+storeOffset+"]";
 	}
 
 	@XmlAttribute(required = true)
@@ -129,4 +131,24 @@ public class IndexSetting {
 		this.noAdditional = noAdditional;
 	}
 	
+	@XmlAttribute
+	@XmlJavaTypeAdapter(OptionalBooleanFalseAdapter.class)
+	public Boolean isStoreSuffix() {
+		return storeSuffix;
+	}
+
+	public void setStoreSuffix(Boolean storeSuffix) {
+		this.storeSuffix = storeSuffix;
+	}
+
+	@XmlAttribute
+	@XmlJavaTypeAdapter(OptionalBooleanFalseAdapter.class)
+	public Boolean isStoreOffset() {
+		return storeOffset;
+	}
+
+	public void setStoreOffset(Boolean storeOffset) {
+		this.storeOffset = storeOffset;
+	}
+	
 }
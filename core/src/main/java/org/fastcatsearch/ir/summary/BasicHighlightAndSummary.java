@@ -42,46 +42,12 @@ public class BasicHighlightAndSummary implements HighlightAndSummary {
 	@Override
 	public String highlight(String fieldId, Analyzer indexAnalyzer, Analyzer queryAnalyzer, String pText, String query, 
 			String[] tags, int len, int maxFragments, Option searchOption) throws IOException {
+		WeightedTerm[] weightedTerms = analyzeQuery(fieldId, queryAnalyzer, query, searchOption);
+		return highlight(documentTokenStream(fieldId, indexAnalyzer, pText), weightedTerms, pText, tags, len, maxFragments);
+	}
 
-		//
-		// initialize tags ( if null or blank )
-		//
-		if(tags==null) {
-			tags = new String[]{"",""};
-		}
-		
-		for(int inx=0;inx<tags.length;inx++) {
-			if(tags[inx]==null) { tags[inx]=""; }
-		}
-
-		//
-		// minimum count of fragments
-		//
-		if(maxFragments <= 0) {
-			maxFragments = 1;
-		}
-
-		//
-		// one full length of summary 
-		//
-		if(len<=0) {
-			len = pText.length() + 1;
-		}
-		
-		//
-		// lucene summary length is size of each fragment, so divide it by count of fragments
-		//
-		len = len / maxFragments;
-		
-		TokenStream tokenStream = null;
-		
-		
-		
-		//TODO 스니펫만 만들고 하이라이팅을 하지 않는필드에 대해서는 DummyFormatter를 만들어서 넣어준다.
-		
-		
-		Formatter formatter = new SimpleHTMLFormatter(tags[0], tags[1]);
-		
+	@Override
+	public WeightedTerm[] analyzeQuery(String fieldId, Analyzer queryAnalyzer, String query, Option searchOption) throws IOException {
 		logger.trace("query : {}", query);
 		//
 		// tokenize query and make weighted terms
@@ -94,7 +60,7 @@ public class BasicHighlightAndSummary implements HighlightAndSummary {
 		queryAnalyzerOption.setForQuery();
 		//queryAnalyzerOption.setForDocument();
 		
-		tokenStream = queryAnalyzer.tokenStream(fieldId, new StringReader(query), queryAnalyzerOption);
+		TokenStream tokenStream = queryAnalyzer.tokenStream(fieldId, new StringReader(query), queryAnalyzerOption);
 		
 		CharsRefTermAttribute termAttribute = null;
 		CharTermAttribute charTermAttribute = null;
@@ -224,26 +190,68 @@ public class BasicHighlightAndSummary implements HighlightAndSummary {
 		
 		WeightedTerm[] weightedTerms = new WeightedTerm[terms.size()];
 		weightedTerms = terms.toArray(weightedTerms);
-		
-		Scorer scorer = new TokenizedTermScorer(weightedTerms);
-		Highlighter highlighter = new Highlighter(formatter, scorer);
-		Fragmenter fragmenter = new SimpleFragmenter(len);
-		highlighter.setTextFragmenter(fragmenter);
-		
+		return weightedTerms;
+	}
+
+	@Override
+	public TokenStream documentTokenStream(String fieldId, Analyzer indexAnalyzer, String pText) throws IOException {
 		AnalyzerOption indexAnalyzerOption = new AnalyzerOption();
 		indexAnalyzerOption.useStopword();
 		indexAnalyzerOption.useSynonym(false);
 		//indexAnalyzerOption.setForQuery();
 		indexAnalyzerOption.setForDocument();
 		
-		tokenStream = new WrappedTokenStream(indexAnalyzer.tokenStream(fieldId, new StringReader(pText), indexAnalyzerOption), pText);
+		return new WrappedTokenStream(indexAnalyzer.tokenStream(fieldId, new StringReader(pText), indexAnalyzerOption), pText);
+	}
+
+	@Override
+	public String highlight(TokenStream tokenStream, WeightedTerm[] weightedTerms, String pText, String[] tags, int len, int maxFragments) throws IOException {
+		//
+		// initialize tags ( if null or blank )
+		//
+		if(tags==null) {
+			tags = new String[]{"",""};
+		}
+		
+		for(int inx=0;inx<tags.length;inx++) {
+			if(tags[inx]==null) { tags[inx]=""; }
+		}
+
+		//
+		// minimum count of fragments
+		//
+		if(maxFragments <= 0) {
+			maxFragments = 1;
+		}
+
+		//
+		// one full length of summary 
+		//
+		if(len<=0) {
+			len = pText.length() + 1;
+		}
+		
+		//
+		// lucene summary length is size of each fragment, so divide it by count of fragments
+		//
+		len = len / maxFragments;
+		
+		//TODO 스니펫만 만들고 하이라이팅을 하지 않는필드에 대해서는 DummyFormatter를 만들어서 넣어준다.
+		
+		
+		Formatter formatter = new SimpleHTMLFormatter(tags[0], tags[1]);
+		
+		Scorer scorer = new TokenizedTermScorer(weightedTerms);
+		Highlighter highlighter = new Highlighter(formatter, scorer);
+		Fragmenter fragmenter = new SimpleFragmenter(len);
+		highlighter.setTextFragmenter(fragmenter);
 		
 		String text = pText;
 
 		try {
 			text = highlighter.getBestFragments(tokenStream, pText, maxFragments, FRAGMENT_SEPARATOR);
 		} catch (InvalidTokenOffsetsException e) {
-			logger.debug("error : {} / pText:{} / query:{} / result:{}", e.getMessage(),  pText, query);
+			logger.debug("error : {} / pText:{}", e.getMessage(),  pText);
 		}
 
 		//
@@ -0,0 +1,62 @@
+package org.fastcatsearch.ir.summary;
+
+import java.io.IOException;
+
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.tokenattributes.AdditionalTermAttribute;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.analysis.tokenattributes.OffsetAttribute;
+import org.fastcatsearch.ir.search.TermOffsets;
+
+/**
+ * 색인시 기록한 텀 오프셋을 분석기 대신 하이라이터에 흘려준다.
+ * WrappedTokenStream 과 같은 속성(텀, 오프셋, 추가텀)을 제공한다.
+ */
+public class TermOffsetsTokenStream extends TokenStream {
+
+	private TermOffsets termOffsets;
+	private char[] text;
+	private int index;
+
+	private CharTermAttribute charTermAttribute = addAttribute(CharTermAttribute.class);
+	private OffsetAttribute offsetAttribute = addAttribute(OffsetAttribute.class);
+	private AdditionalTermAttribute additionalTermAttribute = addAttribute(AdditionalTermAttribute.class);
+
+	public TermOffsetsTokenStream(TermOffsets termOffsets, String text) {
+		this.termOffsets = termOffsets;
+		this.text = text.toCharArray();
+		additionalTermAttribute.init(this);
+	}
+
+	@Override
+	public void reset() throws IOException {
+		index = 0;
+		additionalTermAttribute.init(this);
+	}
+
+	@Override
+	public boolean incrementToken() throws IOException {
+		if (index >= termOffsets.size()) {
+			return false;
+		}
+		clearAttributes();
+		int start = termOffsets.start(index);
+		int end = termOffsets.end(index);
+		char[] term = termOffsets.term(index);
+		if (term == null) {
+			charTermAttribute.copyBuffer(text, start, end - start);
+		} else {
+			charTermAttribute.copyBuffer(term, 0, term.length);
+		}
+		offsetAttribute.setOffset(start, end);
+		String[] additionalTerms = termOffsets.additionalTerms(index);
+		if (additionalTerms != null) {
+			int[] offsets = termOffsets.additionalOffsets(index);
+			for (int i = 0; i < additionalTerms.length; i++) {
+				additionalTermAttribute.addAdditionalTerm(additionalTerms[i], null, null, 0, offsets[i * 2], offsets[i * 2 + 1]);
+			}
+		}
+		index++;
+		return true;
+	}
+}
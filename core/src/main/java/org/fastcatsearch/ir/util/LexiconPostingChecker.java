@@ -18,6 +18,7 @@ package org.fastcatsearch.ir.util;
 
 import org.fastcatsearch.ir.common.IndexFileNames;
 import org.fastcatsearch.ir.index.IndexFieldOption;
+import org.fastcatsearch.ir.index.PostingSkipList;
 import org.fastcatsearch.ir.io.BufferedFileInput;
 
 import java.io.File;
@@ -96,9 +97,12 @@ public class LexiconPostingChecker {
 			//List<Integer> postingList = new ArrayList<Integer>();
 		
 			try {
-				len = clone.readVInt();
+				len = clone.readInt();
 				postingCount = clone.readInt();
 				lastDocNo = clone.readInt();
+				if (indexFieldOption.isStoreSkip()) {
+					PostingSkipList.skip(clone);
+				}
 				
 				int postingRemain = postingCount;
 				
@@ -0,0 +1,126 @@
+package org.fastcatsearch.ir.document;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+import java.util.zip.Deflater;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.lucene.util.BytesRef;
+import org.fastcatsearch.ir.common.IndexFileNames;
+import org.fastcatsearch.ir.io.BufferedFileInput;
+import org.fastcatsearch.ir.io.BufferedFileOutput;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class DocumentBlockTest {
+
+	private static final int COUNT = 3000;
+
+	private File dir;
+	private byte[][] documents;
+
+	@Before
+	public void setUp() throws IOException {
+		dir = File.createTempFile("docblock", "");
+		dir.delete();
+		dir.mkdirs();
+		Random r = new Random(System.currentTimeMillis());
+		documents = new byte[COUNT][];
+		for (int i = 0; i < COUNT; i++) {
+			// 가끔 블럭크기보다 큰 문서도 넣는다.
+			int length = (i % 500 == 7) ? DocumentBlockWriter.BLOCK_SIZE + r.nextInt(1000) : r.nextInt(300);
+			documents[i] = new byte[length];
+			for (int k = 0; k < length; k++) {
+				documents[i][k] = (byte) ('a' + r.nextInt(8));
+			}
+		}
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		FileUtils.deleteDirectory(dir);
+	}
+
+	private void assertDocument(int docNo, BytesRef ref) {
+		byte[] expected = documents[docNo];
+		assertEquals("docNo=" + docNo, expected.length, ref.length);
+		for (int k = 0; k < expected.length; k++) {
+			assertEquals(expected[k], ref.bytes[ref.offset + k]);
+		}
+	}
+
+	private DocumentBlockReader newReader(DocumentBlockCache cache) throws IOException {
+		return new DocumentBlockReader(new BufferedFileInput(dir, IndexFileNames.docStored), new BufferedFileInput(dir, IndexFileNames.docPosition), cache);
+	}
+
+	@Test
+	public void testWriteRead() throws IOException {
+		DocumentBlockWriter writer = new DocumentBlockWriter(dir);
+		for (int i = 0; i < COUNT; i++) {
+			assertEquals(i, writer.add(documents[i], 0, documents[i].length));
+		}
+		// 기록된 블럭과 아직 메모리에 있는 블럭 모두 읽을수 있어야 한다.
+		assertDocument(0, writer.read(0));
+		assertDocument(COUNT / 2, writer.read(COUNT / 2));
+		assertDocument(COUNT - 1, writer.read(COUNT - 1));
+		writer.close();
+
+		DocumentBlockCache cache = new DocumentBlockCache(4);
+		DocumentBlockReader reader = newReader(cache);
+		assertTrue(reader.isBlockFormat());
+		assertEquals(COUNT, reader.documentCount());
+		for (int i = 0; i < COUNT; i++) {
+			assertDocument(i, reader.read(i));
+		}
+		assertNull(reader.read(COUNT));
+
+		DocumentBlockReader clone = reader.clone();
+		Random r = new Random();
+		for (int i = 0; i < COUNT; i++) {
+			int docNo = r.nextInt(COUNT);
+			assertDocument(docNo, clone.read(docNo));
+		}
+		assertTrue(cache.size() <= 4);
+		assertTrue(cache.hitCount() + cache.missCount() > 0);
+		clone.close();
+		reader.close();
+	}
+
+	@Test
+	public void testReadOldFormat() throws IOException {
+		// 문서별로 압축된 예전 포맷.
+		BufferedFileOutput docOutput = new BufferedFileOutput(dir, IndexFileNames.docStored);
+		BufferedFileOutput positionOutput = new BufferedFileOutput(dir, IndexFileNames.docPosition);
+		docOutput.writeInt(COUNT);
+		Deflater compressor = new Deflater(Deflater.BEST_SPEED);
+		byte[] workingBuffer = new byte[64 * 1024];
+		for (int i = 0; i < COUNT; i++) {
+			positionOutput.writeLong(docOutput.position());
+			compressor.reset();
+			compressor.setInput(documents[i]);
+			compressor.finish();
+			int length = compressor.deflate(workingBuffer);
+			assertTrue(compressor.finished());
+			docOutput.writeInt(length);
+			docOutput.writeBytes(workingBuffer, 0, length);
+		}
+		compressor.end();
+		docOutput.close();
+		positionOutput.close();
+
+		DocumentBlockReader reader = newReader(new DocumentBlockCache());
+		assertFalse(reader.isBlockFormat());
+		assertEquals(COUNT, reader.documentCount());
+		for (int i = COUNT - 1; i >= 0; i--) {
+			assertDocument(i, reader.read(i));
+		}
+		reader.close();
+	}
+}
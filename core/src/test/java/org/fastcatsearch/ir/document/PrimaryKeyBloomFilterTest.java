@@ -0,0 +1,92 @@
+package org.fastcatsearch.ir.document;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.commons.io.FileUtils;
+import org.fastcatsearch.ir.common.IndexFileNames;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PrimaryKeyBloomFilterTest {
+
+	private static final int COUNT = 20000;
+
+	private File dir;
+
+	@Before
+	public void setUp() throws IOException {
+		dir = File.createTempFile("pkbloom", "");
+		dir.delete();
+		dir.mkdirs();
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		FileUtils.deleteDirectory(dir);
+	}
+
+	private byte[] key(int i) {
+		return ("ID-" + i).getBytes();
+	}
+
+	@Test
+	public void testFalsePositiveRate() {
+		PrimaryKeyBloomFilter bloomFilter = new PrimaryKeyBloomFilter(COUNT);
+		for (int i = 0; i < COUNT; i++) {
+			byte[] key = key(i);
+			bloomFilter.add(key, 0, key.length);
+		}
+		for (int i = 0; i < COUNT; i++) {
+			byte[] key = key(i);
+			assertTrue(bloomFilter.mightContain(key, 0, key.length));
+		}
+		int falsePositive = 0;
+		for (int i = COUNT; i < COUNT * 2; i++) {
+			byte[] key = key(i);
+			if (bloomFilter.mightContain(key, 0, key.length)) {
+				falsePositive++;
+			}
+		}
+		// 이론상 1% 정도.
+		assertTrue("falsePositive=" + falsePositive, falsePositive < COUNT * 3 / 100);
+	}
+
+	@Test
+	public void testBuildFromPrimaryKeyMap() throws IOException {
+		LargePrimaryKeyIndexWriter writer = new LargePrimaryKeyIndexWriter(dir, IndexFileNames.primaryKeyMap, 64, 64 * 1024);
+		for (int i = 0; i < COUNT; i++) {
+			byte[] key = key(i);
+			writer.put(key, 0, key.length, i);
+		}
+		writer.close();
+
+		PrimaryKeyBloomFilter.build(new File(dir, IndexFileNames.primaryKeyMap)).save(dir);
+		PrimaryKeyBloomFilter bloomFilter = PrimaryKeyBloomFilter.load(dir);
+		for (int i = 0; i < COUNT; i++) {
+			byte[] key = key(i);
+			assertTrue(bloomFilter.mightContain(key, 0, key.length));
+		}
+		int falsePositive = 0;
+		for (int i = COUNT; i < COUNT * 2; i++) {
+			byte[] key = key(i);
+			if (bloomFilter.mightContain(key, 0, key.length)) {
+				falsePositive++;
+			}
+		}
+		assertTrue("falsePositive=" + falsePositive, falsePositive < COUNT * 3 / 100);
+	}
+
+	@Test
+	public void testEmpty() throws IOException {
+		assertEquals(null, PrimaryKeyBloomFilter.load(dir));
+		PrimaryKeyBloomFilter bloomFilter = new PrimaryKeyBloomFilter(0);
+		byte[] key = key(1);
+		assertFalse(bloomFilter.mightContain(key, 0, key.length));
+	}
+}
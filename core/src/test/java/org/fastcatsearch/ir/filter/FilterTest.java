@@ -38,6 +38,14 @@ public class FilterTest {
 			List<Object> fieldData, String pattern, String endPattern, 
 			int boostScore, List<Boolean> filterResult, List<Integer> boostResult) 
 					throws IOException, IRException {
+		testSingleReadWriteAndFilterOnTheFly(fieldId, filterType, fieldType, fieldSize, fieldData, pattern, endPattern, boostScore, filterResult, boostResult, false);
+	}
+	
+	public void testSingleReadWriteAndFilterOnTheFly(String fieldId, 
+			int filterType, Type fieldType, int fieldSize,
+			List<Object> fieldData, String pattern, String endPattern, 
+			int boostScore, List<Boolean> filterResult, List<Integer> boostResult, boolean memory) 
+					throws IOException, IRException {
 		
 		RankInfo rankInfo = new RankInfo();
 		
@@ -52,6 +60,7 @@ public class FilterTest {
 		
 		FieldIndexSetting fieldIndexSetting = new FieldIndexSetting(fieldId, 
 				fieldId, fieldId, fieldSetting.getSize(), false);
+		fieldIndexSetting.setMemory(memory);
 		Map<String, FieldSetting> fieldSettingMap = 
 				new HashMap<String, FieldSetting>();
 		Map<String, Integer> fieldSequenceMap = 
@@ -155,6 +164,39 @@ public class FilterTest {
 		assertEquals(filterResult, actual);
 	}
 	
+	@Test
+	public void testSectionFilterInMemory() throws IOException, IRException, ParseException {
+		List<Boolean> actual = Arrays.asList(new Boolean[] {
+				false,false,true,false
+		});
+		
+		List<Boolean> filterResult = new ArrayList<Boolean>();
+		List<Object> fieldData = Arrays.asList(new Object[] { 1, 999, 130, 1024 });
+		testSingleReadWriteAndFilterOnTheFly("CNT_READ", Filter.SECTION, Type.INT, 0, fieldData, "128", "256", 0, filterResult, new ArrayList<Integer>(), true);
+		assertEquals(actual, filterResult);
+		
+		filterResult = new ArrayList<Boolean>();
+		fieldData = Arrays.asList(new Object[] { -10.5f, 0.5f, 3.25f, 100f });
+		testSingleReadWriteAndFilterOnTheFly("PRICE", Filter.SECTION, Type.FLOAT, 0, fieldData, "1.5", "10", 0, filterResult, new ArrayList<Integer>(), true);
+		assertEquals(actual, filterResult);
+		
+		SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd");
+		filterResult = new ArrayList<Boolean>();
+		fieldData = Arrays.asList(new Object[] {
+			sdf.parse("2012-01-01"), sdf.parse("2013-05-05"), sdf.parse("2013-12-11"), sdf.parse("2014-01-01")
+		});
+		testSingleReadWriteAndFilterOnTheFly("REDATE", Filter.SECTION, Type.DATETIME, 0, fieldData, "2013-12-01", "2013-12-30", 0, filterResult, new ArrayList<Integer>(), true);
+		assertEquals(actual, filterResult);
+		
+		//문자열 필드는 off-heap buffer에서 읽어 기존 비교로직을 그대로 사용한다.
+		filterResult = new ArrayList<Boolean>();
+		fieldData = Arrays.asList(new Object[] {
+			new CharVector("00000"), new CharVector("00001"), new CharVector("01001"), new CharVector("00004")
+		});
+		testSingleReadWriteAndFilterOnTheFly("CATEGORY", Filter.MATCH, Type.ASTRING, 5, fieldData, "01001", "", 0, filterResult, new ArrayList<Integer>(), true);
+		assertEquals(actual, filterResult);
+	}
+	
 	@Test
 	public void testDateSectionFilterOnTheFly() throws IOException, IRException, ParseException {
 		
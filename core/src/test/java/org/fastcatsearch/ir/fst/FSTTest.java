@@ -0,0 +1,111 @@
+package org.fastcatsearch.ir.fst;
+
+import org.fastcatsearch.ir.io.CharVector;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class FSTTest {
+
+    @Test
+    public void testSmall() throws IOException {
+        TreeMap<String, Long> map = new TreeMap<String, Long>();
+        map.put("", 1L);
+        map.put("ABC", 10L);
+        map.put("ABCD", 20L);
+        map.put("ABD", 30L);
+        map.put("B", 31L);
+        map.put("BCD", 40L);
+        map.put("가나다", 55L);
+        map.put("가다", 60L);
+        FST fst = build(map);
+        verify(map, fst, new String[] { "", "A", "AB", "ABC", "ABCA", "ABCE", "ABE", "AC", "BB", "BCD", "BCDE", "C", "가", "가나", "가다라", "나" });
+    }
+
+    @Test
+    public void testRandom() throws IOException {
+        Random r = new Random(1);
+        TreeMap<String, Long> map = new TreeMap<String, Long>();
+        while (map.size() < 5000) {
+            map.put(randomTerm(r), 0L);
+        }
+        //lexicon 위치처럼 오름차순 값.
+        long position = 4;
+        for (Map.Entry<String, Long> entry : map.entrySet()) {
+            entry.setValue(position);
+            position += entry.getKey().length() * 2 + 9;
+        }
+        FST fst = build(map);
+
+        File file = File.createTempFile("fst", ".test");
+        try {
+            fst.save(file);
+            fst = FST.load(file);
+        } finally {
+            file.delete();
+        }
+        assertEquals(map.size(), fst.size());
+
+        String[] queries = new String[1000];
+        for (int i = 0; i < queries.length; i++) {
+            queries[i] = randomTerm(r);
+        }
+        verify(map, fst, queries);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsorted() {
+        FSTBuilder builder = new FSTBuilder();
+        builder.add(new CharVector("B"), 1);
+        builder.add(new CharVector("A"), 2);
+    }
+
+    private String randomTerm(Random r) {
+        int length = r.nextInt(6) + 1;
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = (char) ('A' + r.nextInt(4));
+        }
+        return new String(chars);
+    }
+
+    private FST build(TreeMap<String, Long> map) {
+        FSTBuilder builder = new FSTBuilder();
+        for (Map.Entry<String, Long> entry : map.entrySet()) {
+            builder.add(new CharVector(entry.getKey()), entry.getValue());
+        }
+        return builder.finish();
+    }
+
+    private void verify(TreeMap<String, Long> map, FST fst, String[] queries) {
+        for (Map.Entry<String, Long> entry : map.entrySet()) {
+            assertEquals(entry.getKey(), entry.getValue().longValue(), fst.get(new CharVector(entry.getKey())));
+        }
+        for (String query : queries) {
+            CharVector term = new CharVector(query);
+            Long expected = map.get(query);
+            assertEquals(query, expected == null ? -1L : expected.longValue(), fst.get(term));
+
+            String ceilKey = map.ceilingKey(query);
+            assertEquals(query, ceilKey == null ? -1L : map.get(ceilKey).longValue(), fst.ceil(term));
+
+            SortedMap<String, Long> prefixMap = map.subMap(query, query + Character.MAX_VALUE);
+            List<Long> values = new ArrayList<Long>(prefixMap.values());
+            long[] expectedPrefix = new long[values.size()];
+            for (int i = 0; i < expectedPrefix.length; i++) {
+                expectedPrefix[i] = values.get(i);
+            }
+            assertArrayEquals(query, expectedPrefix, fst.prefix(term));
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package org.fastcatsearch.ir.group;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.fastcatsearch.ir.group.value.DoubleGroupingValue;
+import org.fastcatsearch.ir.group.value.IntGroupingValue;
+import org.fastcatsearch.ir.group.value.LongGroupingValue;
+import org.fastcatsearch.ir.group.value.StringGroupingValue;
+import org.fastcatsearch.ir.io.DataRef;
+import org.fastcatsearch.ir.settings.FieldSetting.Type;
+import org.junit.Test;
+
+public class GroupAggregatorTest {
+
+	private DataRef intRef(int v) {
+		DataRef ref = new DataRef(4);
+		byte[] b = ref.bytesRef().bytes;
+		b[0] = (byte) (v >>> 24);
+		b[1] = (byte) (v >>> 16);
+		b[2] = (byte) (v >>> 8);
+		b[3] = (byte) v;
+		ref.bytesRef().length = 4;
+		ref.setType(Type.INT);
+		ref.init(1);
+		return ref;
+	}
+
+	private DataRef longRef(long v) {
+		DataRef ref = new DataRef(8);
+		byte[] b = ref.bytesRef().bytes;
+		for (int i = 0; i < 8; i++) {
+			b[i] = (byte) (v >>> (56 - i * 8));
+		}
+		ref.bytesRef().length = 8;
+		ref.setType(Type.LONG);
+		ref.init(1);
+		return ref;
+	}
+
+	private DataRef stringRef(String v) {
+		DataRef ref = new DataRef(v.length() + 2);
+		byte[] b = ref.bytesRef().bytes;
+		for (int i = 0; i < v.length(); i++) {
+			b[i] = (byte) v.charAt(i);
+		}
+		ref.bytesRef().length = b.length;
+		ref.setType(Type.ASTRING);
+		ref.init(1);
+		return ref;
+	}
+
+	@Test
+	public void testCount() {
+		GroupAggregator aggregator = GroupAggregator.create(GroupFunctionType.COUNT, Type.STRING, 500000);
+		aggregator.increment(3);
+		aggregator.increment(3);
+		aggregator.increment(499999);
+		assertEquals(2, ((IntGroupingValue) aggregator.value(3)).get().intValue());
+		assertEquals(1, ((IntGroupingValue) aggregator.value(499999)).get().intValue());
+		assertNull(aggregator.value(0));
+		assertNull(aggregator.value(4));
+	}
+
+	@Test
+	public void testIntSum() throws IOException {
+		GroupAggregator aggregator = GroupAggregator.create(GroupFunctionType.SUM, Type.INT, 10);
+		aggregator.addValue(1, intRef(10));
+		aggregator.addValue(1, intRef(-3));
+		aggregator.addValue(2, intRef(5));
+		assertEquals(7, ((IntGroupingValue) aggregator.value(1)).get().intValue());
+		assertEquals(5, ((IntGroupingValue) aggregator.value(2)).get().intValue());
+		assertNull(aggregator.value(0));
+	}
+
+	@Test
+	public void testLongMinMax() throws IOException {
+		GroupAggregator min = GroupAggregator.create(GroupFunctionType.MIN, Type.LONG, 10);
+		GroupAggregator max = GroupAggregator.create(GroupFunctionType.MAX, Type.LONG, 10);
+		long[] values = new long[] { 7L, -2L, Long.MAX_VALUE, 0L };
+		for (long v : values) {
+			min.addValue(5, longRef(v));
+			max.addValue(5, longRef(v));
+		}
+		assertEquals(-2L, ((LongGroupingValue) min.value(5)).get().longValue());
+		assertEquals(Long.MAX_VALUE, ((LongGroupingValue) max.value(5)).get().longValue());
+	}
+
+	@Test
+	public void testFirstLast() throws IOException {
+		GroupAggregator first = GroupAggregator.create(GroupFunctionType.FIRST, Type.DOUBLE, 10);
+		GroupAggregator last = GroupAggregator.create(GroupFunctionType.LAST, Type.DOUBLE, 10);
+		double[] values = new double[] { 1.5, -2.25, 3.0 };
+		for (double v : values) {
+			DataRef ref = longRef(Double.doubleToLongBits(v));
+			ref.setType(Type.DOUBLE);
+			first.addValue(0, ref);
+			last.addValue(0, ref);
+		}
+		assertEquals(1.5, ((DoubleGroupingValue) first.value(0)).get(), 0);
+		assertEquals(3.0, ((DoubleGroupingValue) last.value(0)).get(), 0);
+	}
+
+	@Test
+	public void testString() throws IOException {
+		GroupAggregator aggregator = GroupAggregator.create(GroupFunctionType.FIRST, Type.ASTRING, 10);
+		aggregator.addValue(9, stringRef("abc"));
+		aggregator.addValue(9, stringRef("xyz"));
+		GroupingValue value = aggregator.value(9);
+		assertTrue(value instanceof StringGroupingValue);
+		// nil 문자는 제거된다.
+		assertEquals("abc", value.get());
+		assertNull(aggregator.value(8));
+	}
+}
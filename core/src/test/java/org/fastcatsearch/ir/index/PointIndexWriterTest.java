@@ -0,0 +1,100 @@
+package org.fastcatsearch.ir.index;
+
+import org.apache.commons.io.FileUtils;
+import org.fastcatsearch.ir.common.IndexFileNames;
+import org.fastcatsearch.ir.io.BitSet;
+import org.fastcatsearch.ir.io.BufferedFileOutput;
+import org.fastcatsearch.ir.io.IndexInputFactory;
+import org.fastcatsearch.ir.io.IndexOutput;
+import org.fastcatsearch.ir.search.PointIndexReader;
+import org.fastcatsearch.ir.settings.FieldIndexSetting;
+import org.fastcatsearch.ir.settings.FieldSetting;
+import org.fastcatsearch.ir.settings.FieldSetting.Type;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class PointIndexWriterTest {
+
+    private File dir;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = File.createTempFile("point", "");
+        dir.delete();
+        dir.mkdirs();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(dir);
+    }
+
+    @Test
+    public void testIntRange() throws IOException {
+        Random r = new Random(1);
+        int[] values = new int[3000];
+        IndexOutput output = new BufferedFileOutput(dir, IndexFileNames.getFieldIndexFileName("PRICE"));
+        for (int i = 0; i < values.length; i++) {
+            //같은 값이 여러 블럭에 걸치도록 범위를 좁게 한다.
+            values[i] = r.nextInt(200) - 100;
+            output.writeInt(values[i]);
+        }
+        output.close();
+
+        PointIndexReader reader = write("PRICE", Type.INT);
+        assertEquals(values.length, reader.count());
+        for (int t = 0; t < 100; t++) {
+            long min = r.nextInt(240) - 120;
+            long max = min + r.nextInt(50);
+            BitSet docSet = reader.newDocSet();
+            reader.collect(min, max, docSet);
+            for (int docNo = 0; docNo < values.length; docNo++) {
+                assertEquals(values[docNo] >= min && values[docNo] <= max, docSet.isSet(docNo));
+            }
+        }
+        reader.close();
+    }
+
+    @Test
+    public void testDoubleRange() throws IOException {
+        Random r = new Random(2);
+        double[] values = new double[2000];
+        IndexOutput output = new BufferedFileOutput(dir, IndexFileNames.getFieldIndexFileName("SCORE"));
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i % 100 == 0 ? -0.0 : (r.nextDouble() - 0.5) * 1000;
+            output.writeLong(Double.doubleToLongBits(values[i]));
+        }
+        output.close();
+
+        PointIndexReader reader = write("SCORE", Type.DOUBLE);
+        for (int t = 0; t < 100; t++) {
+            double min = (r.nextDouble() - 0.5) * 1200;
+            double max = min + r.nextDouble() * 300;
+            if (t == 0) {
+                min = 0.0;
+            }
+            BitSet docSet = reader.newDocSet();
+            reader.collect(PointIndexReader.sortableValue(min), PointIndexReader.sortableValue(max), docSet);
+            for (int docNo = 0; docNo < values.length; docNo++) {
+                assertEquals(values[docNo] >= min && values[docNo] <= max, docSet.isSet(docNo));
+            }
+        }
+        reader.close();
+    }
+
+    private PointIndexReader write(String id, Type type) throws IOException {
+        FieldSetting fieldSetting = new FieldSetting(id, id, type);
+        FieldIndexSetting fieldIndexSetting = new FieldIndexSetting(id, id, id);
+        fieldIndexSetting.setPoint(true);
+        //작은 블럭으로 블럭 경계를 확인한다.
+        new PointIndexWriter(fieldIndexSetting, fieldSetting, dir, 16).write();
+        return new PointIndexReader(new File(dir, IndexFileNames.getFieldPointFileName(id)), IndexInputFactory.BUFFERED);
+    }
+}
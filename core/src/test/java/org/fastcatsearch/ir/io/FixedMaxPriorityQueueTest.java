@@ -53,5 +53,22 @@ public class FixedMaxPriorityQueueTest extends TestCase{
 	}
 
 	
+	public void testInsertWithOverflow(){
+		DefaultRanker queue = new DefaultRanker(3);
+		HitElement[] els = new HitElement[6];
+		for(int i=0;i<els.length;i++){
+			els[i] = new HitElement(i, 0, 1, null);
+		}
+		assertNull(queue.insertWithOverflow(els[2]));
+		assertNull(queue.insertWithOverflow(els[4]));
+		assertNull(queue.insertWithOverflow(els[3]));
+		//문서번호가 큰것이 앞선다. 가장 뒤인 2가 root 이다.
+		assertFalse(queue.isCompetitive(els[1]));
+		assertSame(els[1], queue.insertWithOverflow(els[1]));
+		assertTrue(queue.isCompetitive(els[5]));
+		assertSame(els[2], queue.insertWithOverflow(els[5]));
+		assertSame(els[3], queue.peek());
+		assertEquals(5, queue.totalSize());
+	}
 
 }
@@ -0,0 +1,149 @@
+package org.fastcatsearch.ir.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MMapIndexInputTest {
+
+	private static final int COUNT = 5000;
+
+	private File file;
+	private long[] positions;
+	private long seed;
+
+	@Before
+	public void setUp() throws IOException {
+		file = File.createTempFile("mmap", ".input");
+		positions = new long[COUNT];
+		seed = System.currentTimeMillis();
+		Random r = new Random(seed);
+		BufferedFileOutput output = new BufferedFileOutput(file);
+		byte[] bytes = new byte[37];
+		for (int i = 0; i < COUNT; i++) {
+			positions[i] = output.position();
+			output.writeInt(r.nextInt());
+			output.writeVInt(r.nextInt(100000));
+			output.writeLong(r.nextLong());
+			output.writeShort((short) r.nextInt());
+			r.nextBytes(bytes);
+			output.writeBytes(bytes, 0, bytes.length);
+		}
+		output.close();
+	}
+
+	@After
+	public void tearDown() {
+		file.delete();
+	}
+
+	private void assertRecord(Random r, IndexInput input) throws IOException {
+		byte[] expected = new byte[37];
+		byte[] actual = new byte[37];
+		assertEquals(r.nextInt(), input.readInt());
+		assertEquals(r.nextInt(100000), input.readVInt());
+		assertEquals(r.nextLong(), input.readLong());
+		assertEquals((short) r.nextInt(), input.readShort());
+		r.nextBytes(expected);
+		input.readBytes(actual, 0, actual.length);
+		for (int k = 0; k < expected.length; k++) {
+			assertEquals(expected[k], actual[k]);
+		}
+	}
+
+	@Test
+	public void testSequentialRead() throws IOException {
+		// 작은 chunk로 매핑하여 chunk 경계에 걸친 읽기를 확인한다.
+		MMapIndexInput input = new MMapIndexInput(file, 10);
+		assertEquals(file.length(), input.length());
+		Random r = new Random(seed);
+		for (int i = 0; i < COUNT; i++) {
+			assertEquals(positions[i], input.position());
+			assertRecord(r, input);
+		}
+		assertEquals(input.length(), input.position());
+		try {
+			input.readByte();
+			fail();
+		} catch (EOFException e) {
+			// expected
+		}
+		input.close();
+	}
+
+	@Test
+	public void testSeekAndClone() throws IOException {
+		MMapIndexInput input = new MMapIndexInput(file, 10);
+		// 전체를 한번 읽어 끝까지 이동한 뒤 seek 한다.
+		Random r = new Random(seed);
+		for (int i = 0; i < COUNT; i++) {
+			assertRecord(r, input);
+		}
+
+		int target = COUNT / 2;
+		input.seek(positions[target]);
+		IndexInput clone = input.clone();
+		assertEquals(positions[target], clone.position());
+
+		// clone은 독립적으로 위치를 가진다.
+		clone.seek(positions[0]);
+		assertEquals(positions[target], input.position());
+		r = new Random(seed);
+		assertRecord(r, clone);
+		assertEquals(positions[1], clone.position());
+
+		// 원본과 BufferedFileInput 이 같은 값을 읽는지 확인.
+		BufferedFileInput buffered = new BufferedFileInput(file);
+		buffered.seek(positions[target]);
+		for (int i = target; i < COUNT; i++) {
+			assertEquals(buffered.readInt(), input.readInt());
+			assertEquals(buffered.readVInt(), input.readVInt());
+			assertEquals(buffered.readLong(), input.readLong());
+			assertEquals(buffered.readShort(), input.readShort());
+			for (int k = 0; k < 37; k++) {
+				assertEquals(buffered.readByte(), input.readByte());
+			}
+		}
+		buffered.close();
+		clone.close();
+		input.close();
+	}
+
+	@Test
+	public void testCloseClone() throws IOException {
+		MMapIndexInput input = new MMapIndexInput(file, 10);
+		IndexInput clone = input.clone();
+		clone.seek(positions[COUNT - 1]);
+		// clone을 닫아도 mapping은 해제되지 않는다.
+		clone.close();
+		Random r = new Random(seed);
+		for (int i = 0; i < COUNT; i++) {
+			assertRecord(r, input);
+		}
+		input.close();
+		// 두번 닫아도 된다.
+		input.close();
+		assertTrue(file.delete());
+	}
+
+	@Test
+	public void testFactory() throws IOException {
+		assertEquals(IndexInputFactory.BUFFERED, IndexInputFactory.getFactory((String) null));
+		assertEquals(IndexInputFactory.MMAP, IndexInputFactory.getFactory("MMap"));
+		IndexInput input = IndexInputFactory.MMAP.open(file);
+		assertEquals(MMapIndexInput.class, input.getClass());
+		input.close();
+		input = IndexInputFactory.BUFFERED.open(file);
+		assertEquals(BufferedFileInput.class, input.getClass());
+		input.close();
+	}
+}
@@ -0,0 +1,107 @@
+package org.fastcatsearch.ir.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.fastcatsearch.ir.search.FilterDocSetCache;
+import org.junit.Test;
+
+public class RoaringDocSetTest {
+
+	@Test
+	public void testArrayToBitmap() {
+		int documentCount = 200000;
+		RoaringDocSet docSet = new RoaringDocSet(documentCount);
+		//첫 chunk 는 bitmap 으로 바뀌고, 두번째 chunk 는 배열로 남는다.
+		for (int docNo = 0; docNo < 65536; docNo += 2) {
+			docSet.add(docNo);
+		}
+		for (int docNo = 65536; docNo < 131072; docNo += 100) {
+			docSet.add(docNo);
+		}
+		docSet.trim();
+		assertEquals(32768 + 656, docSet.cardinality());
+		assertTrue(docSet.contains(0));
+		assertFalse(docSet.contains(1));
+		assertTrue(docSet.contains(65534));
+		assertTrue(docSet.contains(65536));
+		assertFalse(docSet.contains(65537));
+		assertTrue(docSet.contains(65636));
+		assertFalse(docSet.contains(150000));
+		assertFalse(docSet.contains(documentCount + 1));
+		assertFalse(docSet.contains(-1));
+		//bitmap 8KB + 배열 656개.
+		assertTrue(docSet.memorySize() < 8192 + 656 * 2 + 200);
+	}
+
+	@Test
+	public void testRandom() {
+		int documentCount = 500000;
+		Random r = new Random(1);
+		for (int density : new int[] { 2, 30, 1000 }) {
+			BitSet expected = new BitSet(documentCount);
+			RoaringDocSet docSet = new RoaringDocSet(documentCount);
+			int count = 0;
+			for (int docNo = 0; docNo < documentCount; docNo++) {
+				if (r.nextInt(density) == 0) {
+					expected.set(docNo);
+					docSet.add(docNo);
+					count++;
+				}
+			}
+			docSet.trim();
+			assertEquals(count, docSet.cardinality());
+			for (int docNo = 0; docNo < documentCount; docNo++) {
+				assertEquals(expected.isSet(docNo), docSet.contains(docNo));
+			}
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNotAscending() {
+		RoaringDocSet docSet = new RoaringDocSet(100);
+		docSet.add(10);
+		docSet.add(5);
+	}
+
+	@Test
+	public void testCacheInvalidate() {
+		FilterDocSetCache cache = new FilterDocSetCache(100, 1024 * 1024);
+		cache.setDeleteSet(new BitSet(100));
+		//두번째 요청부터 만든다.
+		assertFalse(cache.admit("a"));
+		assertTrue(cache.admit("a"));
+		int generation = cache.generation();
+		RoaringDocSet docSet = new RoaringDocSet(100);
+		docSet.add(3);
+		cache.put("a", docSet, generation);
+		assertTrue(cache.get("a") == docSet);
+
+		//삭제문서가 바뀌면 비워지고, 이전 generation 으로 만든 집합은 들어가지 않는다.
+		cache.setDeleteSet(new BitSet(100));
+		assertEquals(0, cache.size());
+		cache.put("a", docSet, generation);
+		assertEquals(null, cache.get("a"));
+	}
+
+	@Test
+	public void testCacheMemoryLimit() {
+		RoaringDocSet docSet = new RoaringDocSet(100);
+		docSet.add(1);
+		docSet.trim();
+		long size = docSet.memorySize();
+		FilterDocSetCache cache = new FilterDocSetCache(100, size * 2);
+		cache.put("a", docSet, cache.generation());
+		cache.put("b", docSet, cache.generation());
+		cache.get("a");
+		cache.put("c", docSet, cache.generation());
+		//가장 오래 쓰이지 않은 b 가 빠진다.
+		assertEquals(2, cache.size());
+		assertTrue(cache.get("a") != null);
+		assertEquals(null, cache.get("b"));
+		assertTrue(cache.get("c") != null);
+	}
+}
@@ -0,0 +1,55 @@
+package org.fastcatsearch.ir.merge;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MergeRateLimiterTest {
+
+    private static final int MB = 1024 * 1024;
+
+    @Test
+    public void testUnlimited() throws Exception {
+        MergeRateLimiter limiter = new MergeRateLimiter(0);
+        long st = System.nanoTime();
+        write(limiter, 64 * MB);
+        assertTrue(System.nanoTime() - st < 100 * 1000000L);
+        assertEquals(64L * MB, limiter.totalBytes());
+        assertEquals(0, limiter.pausedMillis());
+    }
+
+    @Test
+    public void testLimit() throws Exception {
+        //20MB/s 로 4MB 를 쓰면 약 200ms 가 걸린다.
+        MergeRateLimiter limiter = new MergeRateLimiter(20);
+        long st = System.nanoTime();
+        write(limiter, 4 * MB);
+        long elapsed = (System.nanoTime() - st) / 1000000L;
+        assertTrue(String.valueOf(elapsed), elapsed >= 150);
+        assertTrue(limiter.pausedMillis() >= 150);
+    }
+
+    @Test
+    public void testBackoff() throws Exception {
+        //부하가 높으면 최소속도 10MB/s 까지 낮춘다.
+        MergeRateLimiter limiter = new MergeRateLimiter(1000, 10, new MergeRateLimiter.Backoff() {
+            @Override
+            public double ratio() {
+                return 0;
+            }
+        });
+        long st = System.nanoTime();
+        write(limiter, 2 * MB);
+        long elapsed = (System.nanoTime() - st) / 1000000L;
+        assertEquals(10.0, limiter.currentMBPerSec(), 0.001);
+        assertTrue(String.valueOf(elapsed), elapsed >= 150);
+    }
+
+    private void write(MergeRateLimiter limiter, int bytes) throws Exception {
+        int chunk = 64 * 1024;
+        for (int written = 0; written < bytes; written += chunk) {
+            limiter.pause(chunk);
+        }
+    }
+}
@@ -1,35 +1,577 @@
 package org.fastcatsearch.ir.merge;
 
 import org.apache.commons.io.FileUtils;
-import org.fastcatsearch.ir.document.*;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.core.WhitespaceAnalyzer;
+import org.apache.lucene.search.highlight.WeightedTerm;
+import org.fastcatsearch.ir.analysis.AnalyzerPoolManager;
+import org.fastcatsearch.ir.analysis.DefaultAnalyzerFactory;
+import org.fastcatsearch.ir.common.IndexFileNames;
+import org.fastcatsearch.ir.config.DataInfo.SegmentInfo;
+import org.fastcatsearch.ir.config.IndexConfig;
+import org.fastcatsearch.ir.document.Document;
+import org.fastcatsearch.ir.document.DocumentReader;
+import org.fastcatsearch.ir.document.PrimaryKeyIndexReader;
+import org.fastcatsearch.ir.index.SegmentWriter;
+import org.fastcatsearch.ir.io.BitSet;
+import org.fastcatsearch.ir.io.BytesBuffer;
+import org.fastcatsearch.ir.io.BytesDataOutput;
+import org.fastcatsearch.ir.query.Metadata;
+import org.fastcatsearch.ir.query.Query;
+import org.fastcatsearch.ir.query.Sort;
+import org.fastcatsearch.ir.query.Sorts;
+import org.fastcatsearch.ir.query.Term;
+import org.fastcatsearch.ir.search.HighlightAndSummary;
+import org.fastcatsearch.ir.search.HitElement;
+import org.fastcatsearch.ir.search.HitReader;
+import org.fastcatsearch.ir.search.SegmentReader;
+import org.fastcatsearch.ir.search.SegmentSearcher;
+import org.fastcatsearch.ir.search.TermOffsets;
+import org.fastcatsearch.ir.search.clause.Clause;
+import org.fastcatsearch.ir.settings.*;
+import org.fastcatsearch.ir.settings.FieldSetting.Type;
+import org.fastcatsearch.ir.summary.BasicHighlightAndSummary;
+import org.fastcatsearch.ir.summary.TermOffsetsTokenStream;
+import org.junit.After;
+import org.junit.Before;
 import org.junit.Test;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.*;
 
 /**
- * Created by swsong on 2015. 11. 22..
+ * 머징결과를 살아있는 문서만으로 새로 색인한 세그먼트와 비교한다.
  */
 public class SegmentMergerTest {
 
+    private static final String ANALYZER_ID = "WHITESPACE";
+    private static final int SEGMENT_SIZE = 300;
+
+    private File baseDir;
+    private Schema schema;
+    private AnalyzerPoolManager analyzerPoolManager;
+
+    @Before
+    public void setUp() throws Exception {
+        baseDir = File.createTempFile("segment-merge", "");
+        baseDir.delete();
+        baseDir.mkdirs();
+        schema = new Schema(schemaSetting());
+        analyzerPoolManager = new AnalyzerPoolManager();
+        analyzerPoolManager.registerAnalyzer(ANALYZER_ID, new DefaultAnalyzerFactory(WhitespaceAnalyzer.class));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        FileUtils.deleteDirectory(baseDir);
+    }
+
+    private SchemaSetting schemaSetting() {
+        SchemaSetting setting = new SchemaSetting();
+        List<FieldSetting> fieldSettingList = new ArrayList<FieldSetting>();
+        FieldSetting id = new FieldSetting("ID", "id", Type.ASTRING);
+        id.setSize(10);
+        fieldSettingList.add(id);
+        fieldSettingList.add(new FieldSetting("TITLE", "title", Type.STRING));
+        FieldSetting category = new FieldSetting("CATEGORY", "category", Type.ASTRING);
+        category.setSize(4);
+        fieldSettingList.add(category);
+        FieldSetting tag = new FieldSetting("TAG", "tag", Type.STRING);
+        tag.setMultiValue(true);
+        tag.setMultiValueDelimiter(",");
+        fieldSettingList.add(tag);
+        fieldSettingList.add(new FieldSetting("PRICE", "price", Type.INT));
+        setting.setFieldSettingList(fieldSettingList);
+
+        PrimaryKeySetting primaryKeySetting = new PrimaryKeySetting(PrimaryKeySetting.ID);
+        primaryKeySetting.setFieldList(new ArrayList<RefSetting>());
+        primaryKeySetting.getFieldList().add(new RefSetting("ID"));
+        setting.setPrimaryKeySetting(primaryKeySetting);
+
+        List<IndexSetting> indexSettingList = new ArrayList<IndexSetting>();
+        IndexSetting indexSetting = new IndexSetting("TITLE", ANALYZER_ID);
+        List<IndexRefSetting> refList = new ArrayList<IndexRefSetting>();
+        refList.add(new IndexRefSetting("TITLE", ANALYZER_ID));
+        indexSetting.setFieldList(refList);
+        indexSetting.setIgnoreCase(true);
+        indexSetting.setStorePosition(true);
+        indexSetting.setStoreOffset(true);
+        indexSettingList.add(indexSetting);
+        setting.setIndexSettingList(indexSettingList);
+
+        List<FieldIndexSetting> fieldIndexSettingList = new ArrayList<FieldIndexSetting>();
+        fieldIndexSettingList.add(new FieldIndexSetting("CATEGORY", "category", "CATEGORY"));
+        FieldIndexSetting priceIndex = new FieldIndexSetting("PRICE", "price", "PRICE");
+        priceIndex.setPoint(true);
+        fieldIndexSettingList.add(priceIndex);
+        FieldIndexSetting tagIndex = new FieldIndexSetting("TAG", "tag", "TAG");
+        tagIndex.setSize(8);
+        fieldIndexSettingList.add(tagIndex);
+        setting.setFieldIndexSettingList(fieldIndexSettingList);
+
+        List<GroupIndexSetting> groupIndexSettingList = new ArrayList<GroupIndexSetting>();
+        groupIndexSettingList.add(new GroupIndexSetting("CATEGORY", "category", "CATEGORY"));
+        groupIndexSettingList.add(new GroupIndexSetting("TAG", "tag", "TAG"));
+        setting.setGroupIndexSettingList(groupIndexSettingList);
+        return setting;
+    }
+
+    private Document createDocument(int id) throws Exception {
+        List<FieldSetting> fieldSettingList = schema.schemaSetting().getFieldSettingList();
+        Document document = new Document(fieldSettingList.size());
+        document.add(fieldSettingList.get(0).createIndexableField("D" + id, null));
+        document.add(fieldSettingList.get(1).createIndexableField("t" + (id % 7) + " t" + (id % 13) + " all", null));
+        document.add(fieldSettingList.get(2).createIndexableField("C" + (id % 11), null));
+        String tag = id % 4 == 0 ? "" : "g" + (id % 5) + ",g" + (id % 3);
+        document.add(fieldSettingList.get(3).createIndexableField(tag, ","));
+        document.add(fieldSettingList.get(4).createIndexableField(String.valueOf(id * 3), null));
+        return document;
+    }
+
+    private SegmentInfo writeSegment(File dir, String segmentId, List<Integer> idList) throws Exception {
+        dir.mkdirs();
+        SegmentWriter writer = new SegmentWriter(schema, dir, new SegmentInfo(segmentId), IndexConfig.defaultConfig, analyzerPoolManager);
+        for (Integer id : idList) {
+            writer.addDocument(createDocument(id));
+        }
+        return writer.close();
+    }
+
+    private boolean isDeleted(int id) {
+        return id % 5 == 0 || id % 17 == 3;
+    }
+
+    @Test
+    public void testMerge() throws Exception {
+        File[] segmentDirs = new File[3];
+        List<Integer> aliveIdList = new ArrayList<Integer>();
+        for (int i = 0; i < segmentDirs.length; i++) {
+            List<Integer> idList = new ArrayList<Integer>();
+            for (int id = i * SEGMENT_SIZE; id < (i + 1) * SEGMENT_SIZE; id++) {
+                idList.add(id);
+            }
+            segmentDirs[i] = new File(baseDir, "a" + i);
+            writeSegment(segmentDirs[i], "a" + i, idList);
+            BitSet deleteSet = new BitSet(segmentDirs[i], IndexFileNames.docDeleteSet);
+            for (int docNo = 0; docNo < idList.size(); docNo++) {
+                if (isDeleted(idList.get(docNo))) {
+                    deleteSet.set(docNo);
+                } else {
+                    aliveIdList.add(idList.get(docNo));
+                }
+            }
+            deleteSet.save();
+        }
+        assertTrue(SegmentMerger.canMerge(schema, segmentDirs));
+
+        File mergedDir = new File(baseDir, "merged");
+        SegmentInfo mergedInfo = new SegmentMerger(schema, mergedDir, new SegmentInfo("a3"), IndexConfig.defaultConfig).merge(segmentDirs);
+        assertEquals(aliveIdList.size(), mergedInfo.getDocumentCount());
+        assertEquals(0, mergedInfo.getDeleteCount());
+
+        //살아있는 문서로 새로 색인한 세그먼트와 같아야 한다.
+        File expectedDir = new File(baseDir, "expected");
+        SegmentInfo expectedInfo = writeSegment(expectedDir, "a3", aliveIdList);
+
+        String[] sameFiles = new String[] { IndexFileNames.getFieldIndexFileName("CATEGORY"), IndexFileNames.getFieldIndexFileName("PRICE"),
+                IndexFileNames.getFieldPointFileName("PRICE"),
+                IndexFileNames.getFieldIndexFileName("TAG"), IndexFileNames.getMultiValueFileName(IndexFileNames.getFieldIndexFileName("TAG")),
+                IndexFileNames.getGroupIndexFileName("CATEGORY"), IndexFileNames.getGroupKeyFileName("CATEGORY"), IndexFileNames.getGroupKeyMapFileName("CATEGORY"),
+                IndexFileNames.getGroupIndexFileName("TAG"), IndexFileNames.getMultiValueFileName(IndexFileNames.getGroupIndexFileName("TAG")),
+                IndexFileNames.getGroupKeyFileName("TAG"), IndexFileNames.getGroupKeyMapFileName("TAG"), IndexFileNames.primaryKeyMap, IndexFileNames.docDeleteSet,
+                IndexFileNames.getSearchOffsetFileName("TITLE"), IndexFileNames.getPositionFileName(IndexFileNames.getSearchOffsetFileName("TITLE")) };
+        for (String fileName : sameFiles) {
+            assertTrue(fileName, FileUtils.contentEquals(new File(expectedDir, fileName), new File(mergedDir, fileName)));
+        }
+
+        SegmentReader mergedReader = new SegmentReader(mergedInfo, schema, mergedDir, analyzerPoolManager);
+        SegmentReader expectedReader = new SegmentReader(expectedInfo, schema, expectedDir, analyzerPoolManager);
+        try {
+            DocumentReader mergedDocumentReader = mergedReader.newDocumentReader();
+            DocumentReader expectedDocumentReader = expectedReader.newDocumentReader();
+            for (int docNo = 0; docNo < aliveIdList.size(); docNo++) {
+                Document merged = mergedDocumentReader.readDocument(docNo);
+                Document expected = expectedDocumentReader.readDocument(docNo);
+                assertEquals(expected.size(), merged.size());
+                for (int i = 0; i < expected.size(); i++) {
+                    assertEquals(expected.get(i).toString(), merged.get(i).toString());
+                }
+            }
+
+            String[] keywords = new String[] { "all", "t0", "t3", "t12", "T6" };
+            for (String keyword : keywords) {
+                List<Integer> expectedHits = search(expectedReader, keyword);
+                assertFalse(expectedHits.isEmpty());
+                assertEquals(keyword, expectedHits, search(mergedReader, keyword));
+            }
+            assertEquals(aliveIdList.size(), search(mergedReader, "all").size());
+
+            PrimaryKeyIndexReader pkReader = new PrimaryKeyIndexReader(mergedDir, IndexFileNames.primaryKeyMap);
+            try {
+                for (int docNo = 0; docNo < aliveIdList.size(); docNo++) {
+                    assertEquals(docNo, pkReader.get(primaryKey(aliveIdList.get(docNo))));
+                }
+                assertEquals(-1, pkReader.get(primaryKey(0)));
+            } finally {
+                pkReader.close();
+            }
+        } finally {
+            mergedReader.close();
+            expectedReader.close();
+        }
+    }
+
     @Test
-    public void test1() throws IOException {
-        File segment1Dir = new File("/Users/swsong/TEST_HOME/fastcatsearch-dynamic/collections/prod/data/index0/a0");
-        File segment2Dir = new File("/Users/swsong/TEST_HOME/fastcatsearch-dynamic/collections/prod/data/index0/a1");
-        File newSegmentDir = new File("/tmp/doc_merge");
-        if(newSegmentDir.exists()) {
-            FileUtils.deleteDirectory(newSegmentDir);
+    public void testConcurrentMerge() throws Exception {
+        File[] segmentDirs = new File[3];
+        for (int i = 0; i < segmentDirs.length; i++) {
+            List<Integer> idList = new ArrayList<Integer>();
+            for (int id = i * SEGMENT_SIZE; id < (i + 1) * SEGMENT_SIZE; id++) {
+                idList.add(id);
+            }
+            segmentDirs[i] = new File(baseDir, "a" + i);
+            writeSegment(segmentDirs[i], "a" + i, idList);
+            BitSet deleteSet = new BitSet(segmentDirs[i], IndexFileNames.docDeleteSet);
+            for (int docNo = 0; docNo < idList.size(); docNo++) {
+                if (isDeleted(idList.get(docNo))) {
+                    deleteSet.set(docNo);
+                }
+            }
+            deleteSet.save();
         }
-        newSegmentDir.mkdirs();
-        SegmentMerger merger = null;
 
+        File serialDir = new File(baseDir, "serial");
+        SegmentInfo serialInfo = new SegmentMerger(schema, serialDir, new SegmentInfo("a3"), IndexConfig.defaultConfig).merge(segmentDirs);
+
+        //색인종류별로 병렬 머징해도 결과파일은 같아야 한다.
+        ExecutorService executor = Executors.newFixedThreadPool(4);
         try {
-            merger = new SegmentMerger(newSegmentDir);
-            merger.merge(segment1Dir, segment2Dir);
+            File parallelDir = new File(baseDir, "parallel");
+            MergeRateLimiter rateLimiter = new MergeRateLimiter(100);
+            SegmentMerger merger = new SegmentMerger(schema, parallelDir, new SegmentInfo("a3"), IndexConfig.defaultConfig);
+            merger.setExecutor(executor);
+            merger.setRateLimiter(rateLimiter);
+            SegmentInfo parallelInfo = merger.merge(segmentDirs);
+            assertEquals(serialInfo.getDocumentCount(), parallelInfo.getDocumentCount());
+            assertEquals(serialInfo.getDeleteCount(), parallelInfo.getDeleteCount());
+            for (File file : serialDir.listFiles()) {
+                assertTrue(file.getName(), FileUtils.contentEquals(file, new File(parallelDir, file.getName())));
+            }
+            MergeProgress progress = merger.progress();
+            assertTrue(progress.isFinished());
+            assertEquals(progress.stepCount(), progress.finishedStepCount());
+            assertTrue(progress.runningSteps().isEmpty());
+            assertTrue(progress.bytesWritten() > 0);
+            assertEquals(progress.bytesWritten(), rateLimiter.totalBytes());
         } finally {
-            if(merger != null) {
-                merger.close();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testFailedConcurrentMerge() throws Exception {
+        File[] segmentDirs = new File[2];
+        for (int i = 0; i < segmentDirs.length; i++) {
+            List<Integer> idList = new ArrayList<Integer>();
+            for (int id = i * SEGMENT_SIZE; id < (i + 1) * SEGMENT_SIZE; id++) {
+                idList.add(id);
+            }
+            segmentDirs[i] = new File(baseDir, "a" + i);
+            writeSegment(segmentDirs[i], "a" + i, idList);
+        }
+        //그룹색인 단계만 실패하도록 파일을 지운다.
+        assertTrue(new File(segmentDirs[1], IndexFileNames.getGroupIndexFileName("CATEGORY")).delete());
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            SegmentMerger merger = new SegmentMerger(schema, new File(baseDir, "merged"), new SegmentInfo("a2"), IndexConfig.defaultConfig);
+            merger.setExecutor(executor);
+            try {
+                merger.merge(segmentDirs);
+                fail();
+            } catch (IOException e) {
+                //expected
             }
+            //에러를 던지기전에 실행중이던 단계가 모두 끝나 있어야 한다.
+            assertTrue(merger.progress().runningSteps().isEmpty());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testDuplicatePrimaryKey() throws Exception {
+        List<Integer> idList1 = new ArrayList<Integer>();
+        List<Integer> idList2 = new ArrayList<Integer>();
+        for (int id = 0; id < 20; id++) {
+            idList1.add(id);
+            idList2.add(id + 10);
+        }
+        File dir1 = new File(baseDir, "a0");
+        File dir2 = new File(baseDir, "a1");
+        writeSegment(dir1, "a0", idList1);
+        writeSegment(dir2, "a1", idList2);
+
+        File mergedDir = new File(baseDir, "merged");
+        SegmentInfo mergedInfo = new SegmentMerger(schema, mergedDir, new SegmentInfo("a2"), IndexConfig.defaultConfig).merge(dir1, dir2);
+        assertEquals(40, mergedInfo.getDocumentCount());
+        //뒤 세그먼트의 문서가 남는다.
+        assertEquals(10, mergedInfo.getDeleteCount());
+        BitSet deleteSet = new BitSet(mergedDir, IndexFileNames.docDeleteSet);
+        for (int docNo = 0; docNo < 40; docNo++) {
+            assertEquals(docNo >= 10 && docNo < 20, deleteSet.isSet(docNo));
+        }
+        PrimaryKeyIndexReader pkReader = new PrimaryKeyIndexReader(mergedDir, IndexFileNames.primaryKeyMap);
+        try {
+            assertEquals(20, pkReader.get(primaryKey(10)));
+            assertEquals(5, pkReader.get(primaryKey(5)));
+        } finally {
+            pkReader.close();
+        }
+    }
+
+    @Test
+    public void testCannotMerge() throws Exception {
+        List<Integer> idList = new ArrayList<Integer>();
+        idList.add(1);
+        File dir = new File(baseDir, "a0");
+        writeSegment(dir, "a0", idList);
+        assertTrue(SegmentMerger.canMerge(schema, dir));
+        new File(dir, IndexFileNames.getGroupIndexFileName("TAG")).delete();
+        assertFalse(SegmentMerger.canMerge(schema, dir));
+    }
+
+    @Test
+    public void testCannotMergeChangedSettings() throws Exception {
+        List<Integer> idList = new ArrayList<Integer>();
+        for (int id = 0; id < 20; id++) {
+            idList.add(id);
+        }
+        File dir = new File(baseDir, "a0");
+        writeSegment(dir, "a0", idList);
+        File mergedDir = new File(baseDir, "merged");
+        new SegmentMerger(schema, mergedDir, new SegmentInfo("a1"), IndexConfig.defaultConfig).merge(dir);
+        assertTrue(SegmentMerger.canMerge(schema, dir, mergedDir));
+
+        //필드색인 길이가 바뀌면 기존 byte를 복사할수 없다.
+        SchemaSetting setting = schemaSetting();
+        setting.getFieldIndexSettingList().get(2).setSize(16);
+        assertFalse(SegmentMerger.canMerge(new Schema(setting), dir));
+        assertFalse(SegmentMerger.canMerge(new Schema(setting), mergedDir));
+
+        //그룹색인의 참조필드가 바뀐 경우.
+        setting = schemaSetting();
+        setting.getGroupIndexSettingList().get(1).setRef("CATEGORY");
+        assertFalse(SegmentMerger.canMerge(new Schema(setting), dir));
+
+        setting = schemaSetting();
+        setting.getGroupIndexSettingList().get(0).setIgnoreCase(true);
+        assertFalse(SegmentMerger.canMerge(new Schema(setting), dir));
+
+        //설정이 기록되지 않은 이전 세그먼트는 다시 색인한다.
+        new File(dir, IndexFileNames.segmentIndexSettings).delete();
+        assertFalse(SegmentMerger.canMerge(schema, dir));
+    }
+
+    @Test
+    public void testTermOffsets() throws Exception {
+        List<Integer> idList = new ArrayList<Integer>();
+        for (int id = 0; id < 50; id++) {
+            idList.add(id);
+        }
+        File dir = new File(baseDir, "a0");
+        SegmentInfo segmentInfo = writeSegment(dir, "a0", idList);
+        SegmentReader segmentReader = new SegmentReader(segmentInfo, schema, dir, analyzerPoolManager);
+        HighlightAndSummary has = new BasicHighlightAndSummary();
+        Analyzer analyzer = analyzerPoolManager.getPool(ANALYZER_ID).getFromPool();
+        try {
+            SegmentSearcher segmentSearcher = segmentReader.segmentSearcher();
+            assertNull(segmentSearcher.getTermOffsets("TITLE", "OTHER", 0));
+            WeightedTerm[] weightedTerms = has.analyzeQuery("TITLE", analyzer, "t3 all", new Term.Option(Term.HIGHLIGHT));
+            String[] tags = new String[] { "<b>", "</b>" };
+            for (int docNo = 0; docNo < idList.size(); docNo++) {
+                String text = segmentSearcher.getDocument(docNo).get(1).toString();
+                TermOffsets termOffsets = segmentSearcher.getTermOffsets("TITLE", ANALYZER_ID, docNo);
+                assertEquals(3, termOffsets.size());
+                assertTrue(termOffsets.isValid(text.length()));
+                assertEquals(text.substring(0, text.indexOf(' ')), text.substring(termOffsets.start(0), termOffsets.end(0)));
+                assertEquals("all", text.substring(termOffsets.start(2), termOffsets.end(2)));
+                //본문을 분석한 결과와 같아야 한다.
+                String expected = has.highlight(has.documentTokenStream("TITLE", analyzer, text), weightedTerms, text, tags, 0, 1);
+                assertEquals(expected, has.highlight(new TermOffsetsTokenStream(termOffsets, text), weightedTerms, text, tags, 0, 1));
+                assertTrue(expected.endsWith("<b>all</b>"));
+            }
+        } finally {
+            analyzerPoolManager.getPool(ANALYZER_ID).releaseToPool(analyzer);
+            segmentReader.close();
+        }
+    }
+
+    private IndexConfig sortedConfig() {
+        IndexConfig config = new IndexConfig();
+        config.setPkTermInterval(IndexConfig.defaultConfig.getPkTermInterval());
+        config.setPkBucketSize(IndexConfig.defaultConfig.getPkBucketSize());
+        config.setIndexTermInterval(IndexConfig.defaultConfig.getIndexTermInterval());
+        config.setIndexWorkBucketSize(IndexConfig.defaultConfig.getIndexWorkBucketSize());
+        config.setIndexWorkMemorySize(IndexConfig.defaultConfig.getIndexWorkMemorySize());
+        config.setIndexSort("price:desc");
+        return config;
+    }
+
+    private String[] sameFiles() {
+        return new String[] { IndexFileNames.getFieldIndexFileName("CATEGORY"), IndexFileNames.getFieldIndexFileName("PRICE"),
+                IndexFileNames.getFieldPointFileName("PRICE"),
+                IndexFileNames.getFieldIndexFileName("TAG"), IndexFileNames.getMultiValueFileName(IndexFileNames.getFieldIndexFileName("TAG")),
+                IndexFileNames.getGroupIndexFileName("CATEGORY"), IndexFileNames.getGroupKeyFileName("CATEGORY"), IndexFileNames.getGroupKeyMapFileName("CATEGORY"),
+                IndexFileNames.getGroupIndexFileName("TAG"), IndexFileNames.getMultiValueFileName(IndexFileNames.getGroupIndexFileName("TAG")),
+                IndexFileNames.getGroupKeyFileName("TAG"), IndexFileNames.getGroupKeyMapFileName("TAG"), IndexFileNames.primaryKeyMap, IndexFileNames.docDeleteSet,
+                IndexFileNames.getSearchOffsetFileName("TITLE"), IndexFileNames.getPositionFileName(IndexFileNames.getSearchOffsetFileName("TITLE")) };
+    }
+
+    @Test
+    public void testSortedMerge() throws Exception {
+        File[] segmentDirs = new File[3];
+        List<Integer> aliveIdList = new ArrayList<Integer>();
+        for (int i = 0; i < segmentDirs.length; i++) {
+            List<Integer> idList = new ArrayList<Integer>();
+            for (int id = i * SEGMENT_SIZE; id < (i + 1) * SEGMENT_SIZE; id++) {
+                idList.add(id);
+            }
+            segmentDirs[i] = new File(baseDir, "a" + i);
+            writeSegment(segmentDirs[i], "a" + i, idList);
+            BitSet deleteSet = new BitSet(segmentDirs[i], IndexFileNames.docDeleteSet);
+            for (int docNo = 0; docNo < idList.size(); docNo++) {
+                if (isDeleted(idList.get(docNo))) {
+                    deleteSet.set(docNo);
+                } else {
+                    aliveIdList.add(idList.get(docNo));
+                }
+            }
+            deleteSet.save();
+        }
+
+        File mergedDir = new File(baseDir, "merged");
+        SegmentInfo mergedInfo = new SegmentMerger(schema, mergedDir, new SegmentInfo("a3"), sortedConfig()).merge(segmentDirs);
+        assertEquals(aliveIdList.size(), mergedInfo.getDocumentCount());
+        assertEquals("PRICE:desc", mergedInfo.getIndexSort());
+
+        //가격(id * 3) 내림차순으로 새로 색인한 세그먼트와 같아야 한다.
+        List<Integer> sortedIdList = new ArrayList<Integer>(aliveIdList);
+        Collections.reverse(sortedIdList);
+        File expectedDir = new File(baseDir, "expected");
+        SegmentInfo expectedInfo = writeSegment(expectedDir, "a3", sortedIdList);
+        for (String fileName : sameFiles()) {
+            assertTrue(fileName, FileUtils.contentEquals(new File(expectedDir, fileName), new File(mergedDir, fileName)));
+        }
+
+        //색인정렬 설정으로 기록한 세그먼트도 정렬되어 있어야 한다.
+        File writtenDir = new File(baseDir, "written");
+        writtenDir.mkdirs();
+        SegmentWriter writer = new SegmentWriter(schema, writtenDir, new SegmentInfo("a4"), sortedConfig(), analyzerPoolManager);
+        for (Integer id : aliveIdList) {
+            writer.addDocument(createDocument(id));
+        }
+        SegmentInfo writtenInfo = writer.close();
+        assertEquals("PRICE:desc", writtenInfo.getIndexSort());
+        for (String fileName : sameFiles()) {
+            assertTrue(fileName, FileUtils.contentEquals(new File(expectedDir, fileName), new File(writtenDir, fileName)));
+        }
+
+        SegmentReader mergedReader = new SegmentReader(mergedInfo, schema, mergedDir, analyzerPoolManager);
+        SegmentReader expectedReader = new SegmentReader(expectedInfo, schema, expectedDir, analyzerPoolManager);
+        try {
+            DocumentReader mergedDocumentReader = mergedReader.newDocumentReader();
+            DocumentReader expectedDocumentReader = expectedReader.newDocumentReader();
+            for (int docNo = 0; docNo < sortedIdList.size(); docNo++) {
+                Document merged = mergedDocumentReader.readDocument(docNo);
+                Document expected = expectedDocumentReader.readDocument(docNo);
+                for (int i = 0; i < expected.size(); i++) {
+                    assertEquals(expected.get(i).toString(), merged.get(i).toString());
+                }
+            }
+            for (String keyword : new String[] { "all", "t0", "t3", "t12" }) {
+                assertEquals(keyword, search(expectedReader, keyword), search(mergedReader, keyword));
+            }
+
+            //정렬조건이 색인정렬과 같으면 앞의 10개만 모으고 결과갯수는 추정한다.
+            HitReader hitReader = sortedHitReader(mergedReader, "all", null);
+            List<Integer> hits = collect(hitReader);
+            assertTrue(hitReader.isEarlyTerminated());
+            assertEquals(10, hits.size());
+            for (int docNo = 0; docNo < 10; docNo++) {
+                assertTrue(hits.contains(docNo));
+            }
+            assertEquals(sortedIdList.size(), hitReader.totalCount());
+
+            hitReader = sortedHitReader(mergedReader, "t3", "exactcount");
+            hits = collect(hitReader);
+            assertTrue(hitReader.isEarlyTerminated());
+            assertEquals(10, hits.size());
+            assertEquals(search(mergedReader, "t3").size(), hitReader.totalCount());
+            assertEquals(sorted(search(mergedReader, "t3")).subList(0, 10), sorted(hits));
+
+            //정렬되지 않은 세그먼트에는 적용하지 않는다.
+            hitReader = sortedHitReader(expectedReader, "all", null);
+            assertEquals(sortedIdList.size(), collect(hitReader).size());
+            assertFalse(hitReader.isEarlyTerminated());
+        } finally {
+            mergedReader.close();
+            expectedReader.close();
+        }
+    }
+
+    private HitReader sortedHitReader(SegmentReader segmentReader, String keyword, String searchOptions) throws Exception {
+        Query query = new Query();
+        query.setClause(new Clause(new Term("TITLE", keyword)));
+        Metadata meta = new Metadata(1, 10);
+        if (searchOptions != null) {
+            meta.setSearchOptions(searchOptions);
+        }
+        query.setMeta(meta);
+        Sorts sorts = new Sorts();
+        sorts.add(new Sort("PRICE", false));
+        query.setSorts(sorts);
+        return segmentReader.segmentSearcher().searchHitReader(query, null);
+    }
+
+    private List<Integer> collect(HitReader hitReader) throws Exception {
+        List<Integer> list = new ArrayList<Integer>();
+        HitElement e = null;
+        while ((e = hitReader.next()) != null) {
+            list.add(e.docNo());
+        }
+        return list;
+    }
+
+    private List<Integer> sorted(List<Integer> list) {
+        List<Integer> sorted = new ArrayList<Integer>(list);
+        Collections.sort(sorted);
+        return sorted;
+    }
+
+    private BytesBuffer primaryKey(int id) throws Exception {
+        BytesDataOutput pk = new BytesDataOutput();
+        createDocument(id).get(0).writeFixedDataTo(pk);
+        return pk.bytesRef();
+    }
+
+    private List<Integer> search(SegmentReader segmentReader, String keyword) throws Exception {
+        Query query = new Query();
+        query.setClause(new Clause(new Term("TITLE", keyword)));
+        query.setMeta(new Metadata(1, 10));
+        HitReader hitReader = segmentReader.segmentSearcher().searchHitReader(query, null);
+        List<Integer> list = new ArrayList<Integer>();
+        HitElement e = null;
+        while ((e = hitReader.next()) != null) {
+            list.add(e.docNo());
         }
+        return list;
     }
 }
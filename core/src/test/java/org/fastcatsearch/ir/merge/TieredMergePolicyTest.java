@@ -0,0 +1,100 @@
+package org.fastcatsearch.ir.merge;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TieredMergePolicyTest {
+
+    private static final long MB = 1024 * 1024;
+
+    @Test
+    public void testUnderBudget() {
+        TieredMergePolicy policy = new TieredMergePolicy();
+        List<MergeCandidate> segments = new ArrayList<MergeCandidate>();
+        for (int i = 0; i < 10; i++) {
+            segments.add(new MergeCandidate("s" + i, 100, 0, 10 * 1024));
+        }
+        //단계별 허용갯수 이하이면 머징하지 않는다.
+        assertEquals(0, policy.findMerges(segments, 0).size());
+    }
+
+    @Test
+    public void testMergeSmallSegments() {
+        TieredMergePolicy policy = new TieredMergePolicy();
+        List<MergeCandidate> segments = new ArrayList<MergeCandidate>();
+        segments.add(new MergeCandidate("big", 1000000, 0, 1024 * MB));
+        for (int i = 0; i < 30; i++) {
+            segments.add(new MergeCandidate("s" + i, 100, 0, 10 * 1024));
+        }
+        List<Set<String>> merges = policy.findMerges(segments, 0);
+        assertEquals(1, merges.size());
+        Set<String> merge = merges.get(0);
+        assertEquals(10, merge.size());
+        //크기가 다른 큰 세그먼트는 작은 세그먼트와 묶지 않는다.
+        assertFalse(merge.contains("big"));
+    }
+
+    @Test
+    public void testConcurrentLimit() {
+        TieredMergePolicy policy = new TieredMergePolicy().setMaxConcurrentMerges(1);
+        List<MergeCandidate> segments = new ArrayList<MergeCandidate>();
+        for (int i = 0; i < 40; i++) {
+            segments.add(new MergeCandidate("s" + i, 100, 0, 10 * 1024));
+        }
+        assertEquals(1, policy.findMerges(segments, 0).size());
+        assertEquals(0, policy.findMerges(segments, 1).size());
+    }
+
+    @Test
+    public void testMaxMergedSegmentSize() {
+        TieredMergePolicy policy = new TieredMergePolicy().setSegmentsPerTier(2).setMaxMergeAtOnce(4).setMaxMergedSegmentMB(100).setMaxConcurrentMerges(10);
+        List<MergeCandidate> segments = new ArrayList<MergeCandidate>();
+        for (int i = 0; i < 12; i++) {
+            segments.add(new MergeCandidate("s" + i, 1000, 0, 30 * MB));
+        }
+        List<Set<String>> merges = policy.findMerges(segments, 0);
+        assertTrue(merges.size() > 0);
+        for (Set<String> merge : merges) {
+            //30MB 세그먼트는 최대 3개까지만 묶인다.
+            assertTrue(merge.size() <= 3);
+        }
+    }
+
+    @Test
+    public void testReclaimDeletes() {
+        TieredMergePolicy policy = new TieredMergePolicy().setMaxMergedSegmentMB(100);
+        List<MergeCandidate> segments = new ArrayList<MergeCandidate>();
+        segments.add(new MergeCandidate("clean", 1000, 0, 80 * MB));
+        segments.add(new MergeCandidate("deleted", 1000, 200, 90 * MB));
+        segments.add(new MergeCandidate("mostlyDeleted", 1000, 500, 200 * MB));
+        List<Set<String>> merges = policy.findMerges(segments, 0);
+        //최대크기 절반을 넘는 세그먼트는 삭제비율이 40% 이상일때만 단독으로 머징한다.
+        assertEquals(1, merges.size());
+        assertEquals(1, merges.get(0).size());
+        assertTrue(merges.get(0).contains("mostlyDeleted"));
+    }
+
+    @Test
+    public void testPreferDeletes() {
+        TieredMergePolicy policy = new TieredMergePolicy().setSegmentsPerTier(2).setMaxMergeAtOnce(2).setMaxConcurrentMerges(1);
+        List<MergeCandidate> segments = new ArrayList<MergeCandidate>();
+        segments.add(new MergeCandidate("a", 1000, 0, 10 * MB));
+        segments.add(new MergeCandidate("b", 1000, 0, 10 * MB));
+        segments.add(new MergeCandidate("e", 1000, 0, 10 * MB));
+        segments.add(new MergeCandidate("f", 1000, 0, 10 * MB));
+        segments.add(new MergeCandidate("c", 1000, 300, 10 * MB));
+        segments.add(new MergeCandidate("d", 1000, 300, 10 * MB));
+        List<Set<String>> merges = policy.findMerges(segments, 0);
+        assertEquals(1, merges.size());
+        //같은 크기라면 삭제문서가 많은 묶음을 먼저 머징한다.
+        assertTrue(merges.get(0).contains("c"));
+        assertTrue(merges.get(0).contains("d"));
+    }
+}
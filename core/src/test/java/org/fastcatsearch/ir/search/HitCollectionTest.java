@@ -0,0 +1,199 @@
+package org.fastcatsearch.ir.search;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.lucene.analysis.core.WhitespaceAnalyzer;
+import org.fastcatsearch.ir.analysis.AnalyzerPoolManager;
+import org.fastcatsearch.ir.analysis.DefaultAnalyzerFactory;
+import org.fastcatsearch.ir.config.DataInfo.SegmentInfo;
+import org.fastcatsearch.ir.config.IndexConfig;
+import org.fastcatsearch.ir.document.Document;
+import org.fastcatsearch.ir.index.SegmentWriter;
+import org.fastcatsearch.ir.io.FixedMaxPriorityQueue;
+import org.fastcatsearch.ir.query.Metadata;
+import org.fastcatsearch.ir.query.Query;
+import org.fastcatsearch.ir.query.Sort;
+import org.fastcatsearch.ir.query.Sorts;
+import org.fastcatsearch.ir.query.Term;
+import org.fastcatsearch.ir.search.clause.Clause;
+import org.fastcatsearch.ir.settings.*;
+import org.fastcatsearch.ir.settings.FieldSetting.Type;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 같은 세그먼트들을 HitElement 를 재사용하는 수집(SegmentSearchTask 방식)과 문서마다 새로 만드는 수집으로 검색하여
+ * top K 순서, 점수, 결과갯수가 같은지 확인한다. 할당량 측정은 benchmark 모듈의 HitCollectionBenchmark 에서 한다.
+ */
+public class HitCollectionTest {
+
+    private static final String ANALYZER_ID = "WHITESPACE";
+    private static final long SEED = 20151116L;
+    private static final int SEGMENT_SIZE = 3000;
+    private static final int ROWS = 10;
+
+    private File baseDir;
+    private Schema schema;
+    private AnalyzerPoolManager analyzerPoolManager;
+    private List<SegmentReader> segmentReaderList;
+
+    @Before
+    public void setUp() throws Exception {
+        baseDir = File.createTempFile("hit-collection", "");
+        baseDir.delete();
+        baseDir.mkdirs();
+        schema = new Schema(schemaSetting());
+        analyzerPoolManager = new AnalyzerPoolManager();
+        analyzerPoolManager.registerAnalyzer(ANALYZER_ID, new DefaultAnalyzerFactory(WhitespaceAnalyzer.class));
+
+        Random random = new Random(SEED);
+        segmentReaderList = new ArrayList<SegmentReader>();
+        for (int i = 0; i < 3; i++) {
+            File dir = new File(baseDir, "a" + i);
+            SegmentInfo segmentInfo = writeSegment(dir, "a" + i, i * SEGMENT_SIZE, random);
+            segmentReaderList.add(new SegmentReader(segmentInfo, schema, dir, analyzerPoolManager));
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        for (SegmentReader segmentReader : segmentReaderList) {
+            segmentReader.close();
+        }
+        FileUtils.deleteDirectory(baseDir);
+    }
+
+    private SchemaSetting schemaSetting() {
+        SchemaSetting setting = new SchemaSetting();
+        List<FieldSetting> fieldSettingList = new ArrayList<FieldSetting>();
+        FieldSetting id = new FieldSetting("ID", "id", Type.ASTRING);
+        id.setSize(10);
+        fieldSettingList.add(id);
+        fieldSettingList.add(new FieldSetting("TITLE", "title", Type.STRING));
+        fieldSettingList.add(new FieldSetting("PRICE", "price", Type.INT));
+        setting.setFieldSettingList(fieldSettingList);
+
+        PrimaryKeySetting primaryKeySetting = new PrimaryKeySetting(PrimaryKeySetting.ID);
+        primaryKeySetting.setFieldList(new ArrayList<RefSetting>());
+        primaryKeySetting.getFieldList().add(new RefSetting("ID"));
+        setting.setPrimaryKeySetting(primaryKeySetting);
+
+        List<IndexSetting> indexSettingList = new ArrayList<IndexSetting>();
+        IndexSetting indexSetting = new IndexSetting("TITLE", ANALYZER_ID);
+        List<IndexRefSetting> refList = new ArrayList<IndexRefSetting>();
+        refList.add(new IndexRefSetting("TITLE", ANALYZER_ID));
+        indexSetting.setFieldList(refList);
+        indexSettingList.add(indexSetting);
+        setting.setIndexSettingList(indexSettingList);
+
+        List<FieldIndexSetting> fieldIndexSettingList = new ArrayList<FieldIndexSetting>();
+        fieldIndexSettingList.add(new FieldIndexSetting("PRICE", "price", "PRICE"));
+        setting.setFieldIndexSettingList(fieldIndexSettingList);
+        return setting;
+    }
+
+    private SegmentInfo writeSegment(File dir, String segmentId, int baseId, Random random) throws Exception {
+        dir.mkdirs();
+        List<FieldSetting> fieldSettingList = schema.schemaSetting().getFieldSettingList();
+        SegmentWriter writer = new SegmentWriter(schema, dir, new SegmentInfo(segmentId), IndexConfig.defaultConfig, analyzerPoolManager);
+        for (int id = baseId; id < baseId + SEGMENT_SIZE; id++) {
+            //단어 반복횟수로 점수가 달라지고, 가격은 동점이 많도록 만든다.
+            StringBuilder title = new StringBuilder();
+            int length = 1 + random.nextInt(8);
+            for (int i = 0; i < length; i++) {
+                title.append("w").append(random.nextInt(5)).append(' ');
+            }
+            title.append("all");
+            Document document = new Document(fieldSettingList.size());
+            document.add(fieldSettingList.get(0).createIndexableField("D" + id, null));
+            document.add(fieldSettingList.get(1).createIndexableField(title.toString(), null));
+            document.add(fieldSettingList.get(2).createIndexableField(String.valueOf(random.nextInt(40)), null));
+            writer.addDocument(document);
+        }
+        return writer.close();
+    }
+
+    @Test
+    public void testScoreSort() throws Exception {
+        assertSameCollection(query("w1", null));
+        assertSameCollection(query("all", null));
+    }
+
+    @Test
+    public void testFieldSort() throws Exception {
+        Sorts sorts = new Sorts();
+        sorts.add(new Sort("PRICE", false));
+        assertSameCollection(query("w3", sorts));
+        assertSameCollection(query("all", sorts));
+    }
+
+    private Query query(String keyword, Sorts sorts) {
+        Query query = new Query();
+        query.setClause(new Clause(new Term("TITLE", keyword)));
+        query.setMeta(new Metadata(1, ROWS));
+        query.setSorts(sorts);
+        return query;
+    }
+
+    private FixedMaxPriorityQueue<HitElement> createRanker(Query query) throws IOException {
+        Sorts sorts = query.getSorts();
+        return sorts == null ? new DefaultRanker(ROWS) : sorts.createRanker(schema, ROWS);
+    }
+
+    private void assertSameCollection(Query query) throws Exception {
+        //문서마다 HitElement 를 새로 만들어 모두 랭커에 넣는다.
+        FixedMaxPriorityQueue<HitElement> expectedRanker = createRanker(query);
+        int expectedCount = 0;
+        for (SegmentReader segmentReader : segmentReaderList) {
+            HitReader hitReader = segmentReader.segmentSearcher().searchHitReader(query, null);
+            HitElement e = null;
+            while ((e = hitReader.next()) != null) {
+                expectedRanker.push(e);
+            }
+            expectedCount += hitReader.totalCount();
+        }
+
+        //SegmentSearchTask 와 같이 세그먼트들이 랭커를 함께 쓰며, 밀려난 HitElement 는 다른 세그먼트의 HitReader 에서 재사용된다.
+        FixedMaxPriorityQueue<HitElement> ranker = createRanker(query);
+        int totalSize = 0;
+        int skippedCount = 0;
+        for (SegmentReader segmentReader : segmentReaderList) {
+            HitReader hitReader = segmentReader.segmentSearcher().searchHitReader(query, null);
+            hitReader.setCompetitiveRanker(ranker);
+            HitElement e = null;
+            while ((e = hitReader.next()) != null) {
+                totalSize++;
+                HitElement overflow = ranker.insertWithOverflow(e);
+                if (overflow != null) {
+                    hitReader.recycle(overflow);
+                }
+            }
+            totalSize += hitReader.skippedCount();
+            skippedCount += hitReader.skippedCount();
+        }
+
+        assertTrue(expectedCount > ROWS);
+        assertTrue(skippedCount > 0);
+        assertEquals(expectedCount, totalSize);
+        assertEquals(ROWS, ranker.size());
+        assertEquals(toList(expectedRanker), toList(ranker));
+    }
+
+    private List<String> toList(FixedMaxPriorityQueue<HitElement> ranker) {
+        List<String> list = new ArrayList<String>();
+        HitElement e = null;
+        while ((e = ranker.pop()) != null) {
+            list.add(e.segmentId() + ":" + e.docNo() + ":" + e.score());
+        }
+        return list;
+    }
+}
@@ -0,0 +1,169 @@
+package org.fastcatsearch.ir.search;
+
+import junit.framework.TestCase;
+import org.fastcatsearch.ir.index.IndexFieldOption;
+import org.fastcatsearch.ir.index.PostingSkipList;
+import org.fastcatsearch.ir.io.BufferedFileInput;
+import org.fastcatsearch.ir.io.BufferedFileOutput;
+import org.fastcatsearch.ir.io.BytesDataOutput;
+import org.fastcatsearch.ir.io.CharVector;
+import org.fastcatsearch.ir.io.IOUtil;
+import org.fastcatsearch.ir.io.IndexInput;
+import org.fastcatsearch.ir.io.IndexOutput;
+
+import java.io.File;
+import java.io.IOException;
+
+public class StreamPostingReaderTest extends TestCase {
+
+	private File dir = new File(System.getProperty("java.io.tmpdir"));
+	private String fileName = "StreamPostingReaderTest.posting";
+
+	public void testAdvanceWithSkip() throws IOException {
+		IndexFieldOption option = new IndexFieldOption();
+		option.setStorePosition();
+		option.setStoreSkip();
+		doTestAdvance(option);
+	}
+
+	public void testMaxTf() throws IOException {
+		IndexFieldOption option = new IndexFieldOption();
+		option.setStorePosition();
+		option.setStoreSkip();
+		option.setStoreMaxTf();
+		doTestAdvance(option);
+
+		int[] docs = new int[] { 1, 5, 9 };
+		long offset = writePosting(option, docs);
+		StreamPostingReader reader = newReader(option, offset);
+		assertEquals(3, reader.maxTf());
+		PostingDoc doc = reader.advance(2);
+		assertEquals(5, doc.docNo());
+		assertEquals(2, doc.tf());
+		assertEquals(3, reader.next().tf());
+		reader.close();
+
+		IndexFieldOption noMaxTf = new IndexFieldOption();
+		noMaxTf.setStoreSkip();
+		offset = writePosting(noMaxTf, docs);
+		reader = newReader(noMaxTf, offset);
+		assertEquals(-1, reader.maxTf());
+		reader.close();
+	}
+
+	public void testAdvanceWithoutSkip() throws IOException {
+		doTestAdvance(new IndexFieldOption());
+	}
+
+	public void testLazyPositions() throws IOException {
+		IndexFieldOption option = new IndexFieldOption();
+		option.setStorePosition();
+		option.setStoreSkip();
+		int count = 300;
+		int[] docs = new int[count];
+		for (int i = 0; i < count; i++) {
+			docs[i] = i * 2;
+		}
+		long offset = writePosting(option, docs);
+
+		StreamPostingReader reader = newReader(option, offset);
+		PostingDoc first = reader.next();
+		for (int i = 1; i < count; i++) {
+			PostingDoc doc = reader.next();
+			//문서마다 같은 객체를 재사용한다.
+			assertSame(first, doc);
+			assertEquals(docs[i], doc.docNo());
+			//출현위치를 읽지 않은 문서는 건너뛰어도 다음 문서를 올바로 읽어야 한다.
+			if (i % 3 == 0) {
+				assertEquals(docs[i], doc.positions()[0]);
+				assertEquals(docs[i], doc.positions()[0]);
+			}
+		}
+		assertFalse(reader.hasNext());
+		assertNull(reader.next());
+		reader.close();
+	}
+
+	private void doTestAdvance(IndexFieldOption option) throws IOException {
+		int count = 1000;
+		int[] docs = new int[count];
+		for (int i = 0; i < count; i++) {
+			docs[i] = i * 5 + (i % 3);
+		}
+		long offset = writePosting(option, docs);
+
+		StreamPostingReader reader = newReader(option, offset);
+		int[] targets = new int[] { 0, 3, 641, 1999, 2300, 4990, 4996 };
+		for (int target : targets) {
+			PostingDoc doc = reader.advance(target);
+			int expected = -1;
+			for (int d : docs) {
+				if (d >= target) {
+					expected = d;
+					break;
+				}
+			}
+			if (expected == -1) {
+				assertNull(doc);
+			} else {
+				assertEquals(expected, doc.docNo());
+				if (option.isStorePosition()) {
+					assertEquals(expected, doc.positions()[0]);
+				}
+			}
+		}
+		reader.close();
+
+		//advance와 next를 섞어서 사용해도 순서대로 읽어야 한다.
+		reader = newReader(option, offset);
+		assertEquals(docs[300], reader.advance(docs[300]).docNo());
+		assertEquals(docs[301], reader.next().docNo());
+		assertEquals(docs[900], reader.advance(docs[900] - 1).docNo());
+		assertEquals(docs[901], reader.next().docNo());
+		reader.close();
+	}
+
+	private StreamPostingReader newReader(IndexFieldOption option, long offset) throws IOException {
+		IndexInput input = new BufferedFileInput(dir, fileName);
+		return new StreamPostingReader(new CharVector("test"), 0, 0, 0, option, input, offset);
+	}
+
+	private long writePosting(IndexFieldOption option, int[] docs) throws IOException {
+		BytesDataOutput docOutput = new BytesDataOutput();
+		PostingSkipList skipList = new PostingSkipList(option.isStoreMaxTf());
+		int prevDocNo = -1;
+		for (int i = 0; i < docs.length; i++) {
+			//출현횟수는 1~3 이며 출현위치는 문서번호부터 연속이다.
+			int tf = i % 3 + 1;
+			docOutput.writeVInt(prevDocNo >= 0 ? docs[i] - prevDocNo - 1 : docs[i]);
+			docOutput.writeVInt(tf);
+			if (option.isStorePosition()) {
+				docOutput.writeVInt(docs[i]);
+				for (int j = 1; j < tf; j++) {
+					docOutput.writeVInt(0);
+				}
+			}
+			prevDocNo = docs[i];
+			skipList.updateMaxTf(tf);
+			skipList.add(i + 1, prevDocNo, (int) docOutput.position());
+		}
+
+		IndexOutput output = new BufferedFileOutput(dir, fileName);
+		try {
+			output.writeInt(option.value());
+			long offset = output.position();
+			int dataLength = (int) docOutput.position();
+			int skipLength = option.isStoreSkip() ? skipList.length() : 0;
+			output.writeInt(IOUtil.SIZE_OF_INT * 2 + skipLength + dataLength);
+			output.writeInt(docs.length);
+			output.writeInt(prevDocNo);
+			if (option.isStoreSkip()) {
+				skipList.writeTo(output);
+			}
+			output.writeBytes(docOutput.array(), 0, dataLength);
+			return offset;
+		} finally {
+			output.close();
+		}
+	}
+}
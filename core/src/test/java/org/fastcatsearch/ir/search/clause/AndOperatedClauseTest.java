@@ -74,6 +74,34 @@ public class AndOperatedClauseTest extends TestCase{
 		}
 	}
 	
+	public void testLeapfrog() throws IOException {
+		int count1 = 10000;
+		int[] docs1 = new int[count1];
+		for (int i = 0; i < count1; i++) {
+			docs1[i] = i * 3;
+		}
+
+		int count2 = 50;
+		int[] docs2 = new int[count2];
+		for (int i = 0; i < count2; i++) {
+			docs2[i] = docs1[i * 150 + 7];
+		}
+
+		AndOperatedClause andClause = new AndOperatedClause(new UserOperatedClause(count1, docs1, null), new UserOperatedClause(count2, docs2, null));
+		andClause.init();
+		RankInfo docInfo = new RankInfo();
+		int i = 0;
+		while (andClause.next(docInfo)) {
+			assertEquals(docs2[i++], docInfo.docNo());
+		}
+		assertEquals(count2, i);
+
+		andClause = new AndOperatedClause(new UserOperatedClause(count1, docs1, null), new UserOperatedClause(count2, docs2, null));
+		andClause.init();
+		assertTrue(andClause.advance(docs2[30], docInfo));
+		assertEquals(docs2[30], docInfo.docNo());
+	}
+
 	private Random r = new Random(System.currentTimeMillis());
 	
 	private void makeDocs(int count, int[] docs){
@@ -18,9 +18,19 @@ package org.fastcatsearch.ir.search.clause;
 
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.Random;
 
+import org.fastcatsearch.ir.io.CharVector;
 import org.fastcatsearch.ir.query.RankInfo;
+import org.fastcatsearch.ir.search.DataPostingReader;
+import org.fastcatsearch.ir.search.PostingDoc;
 import org.fastcatsearch.ir.search.clause.OrOperatedClause;
 import org.fastcatsearch.ir.search.clause.UserOperatedClause;
 
@@ -75,6 +85,104 @@ public class OrOperatedClauseTest extends TestCase{
 		}
 	}
 	
+	/*
+	 * minScore 이상인 문서는 빠짐없이 원래 점수로 나와야 한다.
+	 */
+	public void testMinCompetitiveScore() throws IOException {
+		Random random = new Random(1);
+		PostingDoc[][] postings = makePostings(random);
+		Map<Integer, Integer> expected = scores(newClause(postings), 0);
+		List<Integer> sortedScores = new ArrayList<Integer>(expected.values());
+		Collections.sort(sortedScores);
+
+		for (int percent : new int[] { 50, 90, 99 }) {
+			int minScore = sortedScores.get(sortedScores.size() * percent / 100);
+			Map<Integer, Integer> result = scores(newClause(postings), minScore);
+			for (Map.Entry<Integer, Integer> entry : expected.entrySet()) {
+				if (entry.getValue() >= minScore) {
+					assertEquals(entry.getValue(), result.get(entry.getKey()));
+				}
+			}
+			for (Map.Entry<Integer, Integer> entry : result.entrySet()) {
+				assertEquals(expected.get(entry.getKey()), entry.getValue());
+			}
+		}
+	}
+
+	/*
+	 * top K의 마지막 점수를 검색중 계속 올려주어도 top K 점수는 같아야 한다.
+	 */
+	public void testTopKPruning() throws IOException {
+		Random random = new Random(2);
+		PostingDoc[][] postings = makePostings(random);
+		int k = 10;
+		int[] expected = topK(newClause(postings), k, false);
+		int[] result = topK(newClause(postings), k, true);
+		assertTrue(Arrays.equals(expected, result));
+	}
+
+	private PostingDoc[][] makePostings(Random random) {
+		//흔한 텀과 드문 텀을 섞는다.
+		int[] sizes = new int[] { 5000, 2000, 300, 50 };
+		PostingDoc[][] postings = new PostingDoc[sizes.length][];
+		for (int t = 0; t < sizes.length; t++) {
+			postings[t] = new PostingDoc[sizes[t]];
+			int docNo = 0;
+			for (int i = 0; i < sizes[t]; i++) {
+				docNo += random.nextInt(20) + 1;
+				postings[t][i] = new PostingDoc(docNo, random.nextInt(5) + 1);
+			}
+		}
+		return postings;
+	}
+
+	private OperatedClause newClause(PostingDoc[][] postings) throws IOException {
+		OperatedClause clause = null;
+		for (int t = 0; t < postings.length; t++) {
+			String term = "term" + t;
+			DataPostingReader reader = new DataPostingReader(new CharVector(term), t, -1, postings[t], postings[t].length, 200000);
+			TermOperatedClause termClause = new TermOperatedClause("ID", term, reader);
+			clause = clause == null ? termClause : new OrOperatedClause(clause, termClause);
+		}
+		clause.init();
+		return clause;
+	}
+
+	private Map<Integer, Integer> scores(OperatedClause clause, int minScore) throws IOException {
+		if (minScore > 0) {
+			clause.setMinCompetitiveScore(minScore);
+		}
+		Map<Integer, Integer> scores = new HashMap<Integer, Integer>();
+		RankInfo rankInfo = new RankInfo();
+		while (clause.next(rankInfo)) {
+			if (rankInfo.score() >= minScore) {
+				scores.put(rankInfo.docNo(), rankInfo.score());
+			}
+		}
+		return scores;
+	}
+
+	private int[] topK(OperatedClause clause, int k, boolean prune) throws IOException {
+		PriorityQueue<Integer> queue = new PriorityQueue<Integer>();
+		RankInfo rankInfo = new RankInfo();
+		while (clause.next(rankInfo)) {
+			if (queue.size() < k) {
+				queue.add(rankInfo.score());
+			} else if (queue.peek() < rankInfo.score()) {
+				queue.poll();
+				queue.add(rankInfo.score());
+			}
+			if (prune && queue.size() == k) {
+				clause.setMinCompetitiveScore(queue.peek());
+			}
+		}
+		int[] result = new int[queue.size()];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = queue.poll();
+		}
+		return result;
+	}
+
 	private Random r = new Random(System.currentTimeMillis());
 	
 	private void makeDocs(int count, int[] docs){
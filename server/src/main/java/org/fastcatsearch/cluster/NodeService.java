@@ -195,6 +195,13 @@ public class NodeService extends AbstractService implements NodeLoadBalancable {
 	 * 동일노드로는 전송불가.
 	 */
 	public SendFileResultFuture sendFile(final Node node, File sourcefile, File targetFile) throws TransportException {
+		return sendFile(node, sourcefile, targetFile, 0);
+	}
+	
+	/*
+	 * offset 위치부터 이어서 전송한다. 동일노드라면 offset 과 상관없이 전체를 복사한다.
+	 */
+	public SendFileResultFuture sendFile(final Node node, File sourcefile, File targetFile, long offset) throws TransportException {
 		if (sourcefile.isDirectory()) {
 			return null;
 		}
@@ -224,7 +231,7 @@ public class NodeService extends AbstractService implements NodeLoadBalancable {
 		}
 		
 		
-		return transportModule.sendFile(node, sourcefile, targetFile);
+		return transportModule.sendFile(node, sourcefile, targetFile, offset);
 	}
 
 	@Override
@@ -15,48 +15,91 @@ import org.fastcatsearch.env.Environment;
 import org.fastcatsearch.module.AbstractModule;
 import org.fastcatsearch.module.ModuleException;
 import org.fastcatsearch.settings.Settings;
-import org.fastcatsearch.util.LRUCache;
+import org.fastcatsearch.util.ShardedCache;
+import org.fastcatsearch.util.ShardedCache.Weigher;
 
 /**
+ * 검색결과 캐시. lock이 shard별로 나뉜 ShardedCache 를 사용한다.
+ *
+ * 설정(ir.)
+ *   search-cache-size : 최대 entry 갯수
+ *   search-cache-memory : 최대 메모리 추정치. weigher가 있을때만 적용된다. shard마다 memory/shards 씩 나누어 적용하므로 그보다 큰 결과는 캐시되지 않는다.
+ *   search-cache-ttl_SEC : entry 유효시간(초). 0이면 만료되지 않는다.
+ *   search-cache-shards : lock을 나누는 shard 갯수.
  * */
 public class QueryCacheModule<K, V> extends AbstractModule {
 
-	private LRUCache<K, V> lruCache;
-	
+	private ShardedCache<K, V> cache;
+	private Weigher<K, V> weigher;
+
 	public QueryCacheModule(Environment environment, Settings settings) {
+		this(environment, settings, null);
+	}
+
+	public QueryCacheModule(Environment environment, Settings settings, Weigher<K, V> weigher) {
 		super(environment, settings);
+		this.weigher = weigher;
 	}
-    private int maxCacheSize;
+
+	private int maxCacheSize;
+	private long maxCacheMemory;
+	private long ttlMillis;
+	private int shardSize;
 
 	@Override
 	protected boolean doLoad() throws ModuleException {
-        maxCacheSize = settings.getInt("search-cache-size", 1000);
-        reset();
+		maxCacheSize = settings.getInt("search-cache-size", 1000);
+		maxCacheMemory = settings.getByteSize("search-cache-memory", 32 * 1024 * 1024);
+		ttlMillis = settings.getLong("search-cache-ttl_SEC", 0) * 1000L;
+		shardSize = settings.getInt("search-cache-shards", 16);
+		reset();
 		return true;
 	}
 
 	@Override
 	protected boolean doUnload() {
-		lruCache.close();
+		cache.clear();
 		return true;
 	}
 
-    public void reset() {
-        LRUCache<K, V> oldLruCache = this.lruCache;
-        lruCache = new LRUCache<K, V>(maxCacheSize);
-        if(oldLruCache != null) {
-            oldLruCache.close();
-        }
-    }
+	public void reset() {
+		ShardedCache<K, V> oldCache = this.cache;
+		cache = new ShardedCache<K, V>(shardSize, maxCacheSize, weigher != null ? maxCacheMemory : 0, ttlMillis, weigher);
+		if (oldCache != null) {
+			logger.debug("reset query cache. {}", oldCache);
+			oldCache.clear();
+		}
+	}
+
 	public void put(K key, V value) {
-		lruCache.put(key, value);
+		cache.put(key, value);
+	}
+
+	/**
+	 * 컬렉션 결과로 캐시한다. 여러 컬렉션은 콤마로 구분한다.
+	 * */
+	public void put(K key, V value, String collectionId) {
+		cache.put(key, value, collectionId != null ? collectionId.trim().split("\\s*,\\s*") : null);
 	}
 
 	public V get(K key) {
-		return lruCache.get(key);
+		return cache.get(key);
+	}
+
+	/**
+	 * 컬렉션의 캐시만 지운다. 새 세그먼트가 반영되었을때 사용한다.
+	 * */
+	public int invalidate(String collectionId) {
+		int count = cache.invalidate(collectionId);
+		logger.debug("invalidate query cache [{}] count[{}]", collectionId, count);
+		return count;
 	}
 
 	public int size() {
-		return lruCache.size();
+		return cache.size();
+	}
+
+	public ShardedCache<K, V> cache() {
+		return cache;
 	}
 }
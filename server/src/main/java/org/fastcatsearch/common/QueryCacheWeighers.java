@@ -0,0 +1,110 @@
+package org.fastcatsearch.common;
+
+import java.util.List;
+
+import org.fastcatsearch.ir.group.GroupEntry;
+import org.fastcatsearch.ir.group.GroupEntryList;
+import org.fastcatsearch.ir.group.GroupResult;
+import org.fastcatsearch.ir.group.GroupResults;
+import org.fastcatsearch.ir.group.GroupsData;
+import org.fastcatsearch.ir.query.Result;
+import org.fastcatsearch.ir.query.Row;
+import org.fastcatsearch.util.ShardedCache.Weigher;
+
+/**
+ * 검색결과 캐시 entry의 메모리 사용량 추정. 정확한 크기가 아닌 문자열 길이와 객체갯수에 기반한 근사치이다.
+ * */
+public class QueryCacheWeighers {
+
+	private static final int OBJECT_OVERHEAD = 32;
+	private static final int GROUP_VALUE_SIZE = 24;
+
+	public static final Weigher<String, Result> RESULT = new Weigher<String, Result>() {
+		@Override
+		public long weigh(String key, Result value) {
+			long weight = keyWeight(key);
+			weight += rowsWeight(value.getData());
+			Row[][] bundleRows = value.getBundleData();
+			if (bundleRows != null) {
+				for (Row[] rows : bundleRows) {
+					weight += rowsWeight(rows);
+				}
+			}
+			weight += groupResultsWeight(value.getGroupResult());
+			return weight;
+		}
+	};
+
+	public static final Weigher<String, GroupResults> GROUP_RESULTS = new Weigher<String, GroupResults>() {
+		@Override
+		public long weigh(String key, GroupResults value) {
+			return keyWeight(key) + groupResultsWeight(value);
+		}
+	};
+
+	public static final Weigher<String, GroupsData> GROUPS_DATA = new Weigher<String, GroupsData>() {
+		@Override
+		public long weigh(String key, GroupsData value) {
+			long weight = keyWeight(key);
+			List<GroupEntryList> list = value.list();
+			if (list != null) {
+				for (GroupEntryList entryList : list) {
+					if (entryList == null || entryList.getEntryList() == null) {
+						continue;
+					}
+					for (GroupEntry entry : entryList.getEntryList()) {
+						weight += groupEntryWeight(entry);
+					}
+				}
+			}
+			return weight;
+		}
+	};
+
+	private static long keyWeight(String key) {
+		return OBJECT_OVERHEAD * 2 + (key != null ? key.length() * 2 : 0);
+	}
+
+	private static long rowsWeight(Row[] rows) {
+		if (rows == null) {
+			return 0;
+		}
+		long weight = OBJECT_OVERHEAD;
+		for (Row row : rows) {
+			if (row == null) {
+				continue;
+			}
+			weight += OBJECT_OVERHEAD;
+			for (int i = 0; i < row.getFieldCount(); i++) {
+				char[] data = row.get(i);
+				weight += OBJECT_OVERHEAD / 2 + (data != null ? data.length * 2 : 0);
+			}
+		}
+		return weight;
+	}
+
+	private static long groupResultsWeight(GroupResults groupResults) {
+		if (groupResults == null) {
+			return 0;
+		}
+		long weight = OBJECT_OVERHEAD;
+		for (int i = 0; i < groupResults.groupSize(); i++) {
+			GroupResult groupResult = groupResults.getGroupResult(i);
+			if (groupResult == null) {
+				continue;
+			}
+			weight += OBJECT_OVERHEAD;
+			for (int j = 0; j < groupResult.size(); j++) {
+				weight += groupEntryWeight(groupResult.getEntry(j));
+			}
+		}
+		return weight;
+	}
+
+	private static long groupEntryWeight(GroupEntry entry) {
+		if (entry == null) {
+			return 0;
+		}
+		return OBJECT_OVERHEAD + (entry.key != null ? entry.key.length() * 2 : 0) + entry.functionSize() * GROUP_VALUE_SIZE;
+	}
+}
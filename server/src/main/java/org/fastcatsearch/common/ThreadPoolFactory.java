@@ -26,6 +26,30 @@ public class ThreadPoolFactory {
                 60L, TimeUnit.SECONDS,
                 new SynchronousQueue<Runnable>(), new DefaultThreadFactory(poolName, true));
 	}
+	/**
+	 * 쓰레드수와 대기큐 크기가 제한된 풀. 큐가 가득차면 요청한 쓰레드에서 직접 수행한다.
+	 * */
+	public static ThreadPoolExecutor newBoundedDaemonThreadPool(String poolName, int poolSize, int queueSize){
+		return new JobThreadPoolExecutor(poolSize, poolSize,
+                60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(queueSize), new DefaultThreadFactory(poolName, true), new ThreadPoolExecutor.CallerRunsPolicy());
+	}
+	/**
+	 * 쓰레드수와 대기큐 크기가 제한된 풀. 큐가 가득차면 RejectedExecutionException 을 던져 바로 거절한다.
+	 * queueSize 가 0 이면 대기큐 없이 쓰레드를 poolSize 까지 늘리고, 모두 사용중이면 거절한다.
+	 * */
+	public static ThreadPoolExecutor newAdmissionDaemonThreadPool(String poolName, int poolSize, int queueSize){
+		if(queueSize <= 0) {
+			return new JobThreadPoolExecutor(0, poolSize,
+	                60L, TimeUnit.SECONDS,
+	                new SynchronousQueue<Runnable>(), new DefaultThreadFactory(poolName, true), new ThreadPoolExecutor.AbortPolicy());
+		}
+		ThreadPoolExecutor executor = new JobThreadPoolExecutor(poolSize, poolSize,
+                60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(queueSize), new DefaultThreadFactory(poolName, true), new ThreadPoolExecutor.AbortPolicy());
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
 	public static ScheduledThreadPoolExecutor newScheduledThreadPool(String poolName){
 		return new ScheduledThreadPoolExecutor(0, new DefaultThreadFactory(poolName, false));
 	}
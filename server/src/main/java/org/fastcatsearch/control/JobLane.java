@@ -0,0 +1,23 @@
+package org.fastcatsearch.control;
+
+/**
+ * 작업이 실행되는 쓰레드풀 구분.
+ * 레인마다 쓰레드수와 대기큐 크기를 따로 제한하므로 색인이나 관리작업이 몰려도 검색작업의 쓰레드를 뺏지 않는다.
+ */
+public enum JobLane {
+	/** 사용자 검색요청. 브로커에서 각 노드의 결과를 모으는 작업. */
+	SEARCH,
+	/** 다른 노드에서 요청한 세그먼트 검색과 문서조회. 다른 작업을 기다리지 않는 말단작업. */
+	INTERNAL,
+	/** 전체/증분색인, 머징, 동적색인 문서기록. */
+	INDEXING,
+	/** 관리작업과 스케쥴작업. */
+	BACKGROUND;
+
+	/**
+	 * 설정키에 사용하는 이름. ex) job.lane.search.pool_size
+	 * */
+	public String settingName() {
+		return name().toLowerCase();
+	}
+}
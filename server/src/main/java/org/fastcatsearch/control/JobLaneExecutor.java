@@ -0,0 +1,118 @@
+package org.fastcatsearch.control;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.fastcatsearch.common.ThreadPoolFactory;
+import org.fastcatsearch.job.Job;
+
+/**
+ * 레인 하나의 쓰레드풀과 통계.
+ * 대기큐가 가득차면 작업을 쌓아두지 않고 바로 거절하며, 작업이 큐에서 기다린 시간을 레인별로 기록한다.
+ */
+public class JobLaneExecutor {
+
+	private final JobLane lane;
+	private final int poolSize;
+	private final int queueSize;
+	private final ThreadPoolExecutor executor;
+
+	private final AtomicLong submitCount = new AtomicLong();
+	private final AtomicLong rejectCount = new AtomicLong();
+	private final AtomicLong startCount = new AtomicLong();
+	private final AtomicLong totalQueueNanos = new AtomicLong();
+	private final AtomicLong maxQueueNanos = new AtomicLong();
+
+	public JobLaneExecutor(JobLane lane, int poolSize, int queueSize) {
+		this.lane = lane;
+		this.poolSize = poolSize;
+		this.queueSize = queueSize;
+		this.executor = ThreadPoolFactory.newAdmissionDaemonThreadPool("JobService." + lane.settingName(), poolSize, queueSize);
+	}
+
+	/**
+	 * 작업을 실행한다. 쓰레드와 대기큐가 모두 가득차 있으면 RejectedExecutionException 을 던진다.
+	 * */
+	public void execute(final Job job) throws RejectedExecutionException {
+		final long offerTime = System.nanoTime();
+		try {
+			executor.execute(new Runnable() {
+				@Override
+				public void run() {
+					queued(System.nanoTime() - offerTime);
+					job.run();
+				}
+			});
+			submitCount.incrementAndGet();
+		} catch (RejectedExecutionException e) {
+			rejectCount.incrementAndGet();
+			throw e;
+		}
+	}
+
+	private void queued(long nanos) {
+		startCount.incrementAndGet();
+		totalQueueNanos.addAndGet(nanos);
+		while (true) {
+			long max = maxQueueNanos.get();
+			if (nanos <= max || maxQueueNanos.compareAndSet(max, nanos)) {
+				break;
+			}
+		}
+	}
+
+	public void shutdownNow() {
+		executor.shutdownNow();
+	}
+
+	public JobLane lane() {
+		return lane;
+	}
+
+	public int poolSize() {
+		return poolSize;
+	}
+
+	public int queueSize() {
+		return queueSize;
+	}
+
+	public ThreadPoolExecutor executor() {
+		return executor;
+	}
+
+	public int activeCount() {
+		return executor.getActiveCount();
+	}
+
+	public int queuedCount() {
+		return executor.getQueue().size();
+	}
+
+	public long submitCount() {
+		return submitCount.get();
+	}
+
+	public long rejectCount() {
+		return rejectCount.get();
+	}
+
+	public long startCount() {
+		return startCount.get();
+	}
+
+	public double averageQueueMillis() {
+		long count = startCount.get();
+		return count > 0 ? totalQueueNanos.get() / 1000000.0 / count : 0.0;
+	}
+
+	public double maxQueueMillis() {
+		return maxQueueNanos.get() / 1000000.0;
+	}
+
+	@Override
+	public String toString() {
+		return "[JobLane] " + lane + " pool[" + poolSize + "] queue[" + queueSize + "] active[" + activeCount() + "] queued[" + queuedCount() + "] rejected[" + rejectCount() + "]";
+	}
+}
@@ -13,12 +13,14 @@ package org.fastcatsearch.control;
 
 import java.util.Collection;
 import java.util.Date;
+import java.util.EnumMap;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -46,19 +48,21 @@ public class JobService extends AbstractService implements JobExecutor {
 	private static Logger logger = LoggerFactory.getLogger(JobService.class);
 	private static Logger indexingLogger = LoggerFactory.getLogger("INDEXING_LOG");
 
-	private BlockingQueue<Job> jobQueue;
 	private Map<Long, ResultFuture> resultFutureMap;
 	private BlockingQueue<Job> sequencialJobQueue;
 	private Map<Long, Job> runningJobList;
 	private AtomicLong jobIdIncrement;
 
-	private ThreadPoolExecutor jobExecutor;
+	//작업종류별 쓰레드풀. 레인마다 쓰레드와 대기큐가 제한되어 있어 넘치는 작업은 바로 거절된다.
+	private Map<JobLane, JobLaneExecutor> laneExecutors;
+	//결과를 기다리지 않는 작업들의 후속처리 쓰레드풀. 쓰레드를 잡고 기다리지 않으므로 CPU 수 만큼만 둔다.
+	private ThreadPoolExecutor callbackExecutor;
+	//ResultFuture listener 의 타임아웃 스케쥴러.
+	private ScheduledExecutorService timeoutScheduler;
 
-	private JobConsumer worker;
 	private SequencialJobWorker sequencialJobWorker;
 	private IndexingMutex indexingMutex;
 //	private boolean useJobScheduler;
-	private int executorMaxPoolSize;
 	private static JobService instance;
 	private ConcurrentHashMap<String, ScheduledJob> scheduleMap; 
 
@@ -78,21 +82,23 @@ public class JobService extends AbstractService implements JobExecutor {
 		jobIdIncrement = new AtomicLong();
 		resultFutureMap = new ConcurrentHashMap<Long, ResultFuture>();
 		runningJobList = new ConcurrentHashMap<Long, Job>();
-		jobQueue = new LinkedBlockingQueue<Job>();
 		sequencialJobQueue = new LinkedBlockingQueue<Job>();
 		indexingMutex = new IndexingMutex();
 
-//		executorMaxPoolSize = settings.getInt("pool.max");
+		int cpuSize = Runtime.getRuntime().availableProcessors();
+		laneExecutors = new EnumMap<JobLane, JobLaneExecutor>(JobLane.class);
+		//검색은 다른 노드의 결과를 기다리는 동안 쓰레드를 잡고 있을수 있으므로 넉넉히 두고, 대기큐로 순간적인 몰림을 받아낸다.
+		newLaneExecutor(JobLane.SEARCH, 100, 500);
+		//내부검색은 CPU를 사용하는 말단작업이므로 코어수에 맞추고 대기큐에서 기다리게 한다.
+		newLaneExecutor(JobLane.INTERNAL, cpuSize * 4, 1000);
+		//색인작업은 다른 노드의 색인작업을 기다리므로 대기큐에 쌓이면 서로 기다리며 멈출수 있다. 큐없이 쓰레드 갯수만 제한한다.
+		newLaneExecutor(JobLane.INDEXING, 50, 0);
+		//스케쥴작업은 취소될때까지 쓰레드를 점유하므로 큐없이 충분한 쓰레드를 둔다.
+		newLaneExecutor(JobLane.BACKGROUND, 500, 0);
+		int callbackPoolSize = settings.getInt("callback_pool_size", Runtime.getRuntime().availableProcessors());
+		callbackExecutor = ThreadPoolFactory.newBoundedDaemonThreadPool("JobService.callbackExecutor", callbackPoolSize, callbackPoolSize * 1000);
+		timeoutScheduler = ThreadPoolFactory.newScheduledDaemonThreadPool("JobService.timeoutScheduler");
 
-		// int indexJobMaxSize = 100;
-		// int searchJobMaxSize = 100;
-		// int otherJobMaxSize = 100;
-
-//		jobExecutor = ThreadPoolFactory.newCachedThreadPool("JobService.jobExecutor", executorMaxPoolSize);
-		jobExecutor = ThreadPoolFactory.newUnlimitedCachedDaemonThreadPool("JobService.jobExecutor");
-
-		worker = new JobConsumer();
-		worker.start();
 		sequencialJobWorker = new SequencialJobWorker();
 		sequencialJobWorker.start();
 
@@ -103,13 +109,15 @@ public class JobService extends AbstractService implements JobExecutor {
 
 	protected boolean doStop() {
 		logger.debug("{} stop requested.", getClass().getName());
-		worker.interrupt();
 		sequencialJobWorker.interrupt();
 		resultFutureMap.clear();
-		jobQueue.clear();
 		sequencialJobQueue.clear();
 		runningJobList.clear();
-		jobExecutor.shutdownNow();
+		for(JobLaneExecutor laneExecutor : laneExecutors.values()){
+			laneExecutor.shutdownNow();
+		}
+		callbackExecutor.shutdownNow();
+		timeoutScheduler.shutdownNow();
 		
 		for(ScheduledJob job : scheduleMap.values()){
 			job.cancel();
@@ -128,7 +136,11 @@ public class JobService extends AbstractService implements JobExecutor {
 	}
 
 	public int inQueueJobSize() {
-		return jobQueue.size();
+		int size = 0;
+		for(JobLaneExecutor laneExecutor : laneExecutors.values()){
+			size += laneExecutor.queuedCount();
+		}
+		return size;
 	}
 
 	public Collection<Job> getRunningJobs() {
@@ -164,8 +176,29 @@ public class JobService extends AbstractService implements JobExecutor {
 		return indexingMutex.getIndexingList();
 	}
 
-	public ThreadPoolExecutor getJobExecutor() {
-		return jobExecutor;
+	public Collection<JobLaneExecutor> getLaneExecutors() {
+		return laneExecutors.values();
+	}
+
+	public JobLaneExecutor getLaneExecutor(JobLane lane) {
+		return laneExecutors.get(lane);
+	}
+
+	private void newLaneExecutor(JobLane lane, int defaultPoolSize, int defaultQueueSize) {
+		String prefix = "lane." + lane.settingName() + ".";
+		int poolSize = settings.getInt(prefix + "pool_size", defaultPoolSize);
+		int queueSize = settings.getInt(prefix + "queue_size", defaultQueueSize);
+		JobLaneExecutor laneExecutor = new JobLaneExecutor(lane, poolSize, queueSize);
+		laneExecutors.put(lane, laneExecutor);
+		logger.info("Job lane {} pool_size[{}] queue_size[{}]", lane, poolSize, queueSize);
+	}
+
+	public ThreadPoolExecutor getCallbackExecutor() {
+		return callbackExecutor;
+	}
+
+	public ScheduledExecutorService getTimeoutScheduler() {
+		return timeoutScheduler;
 	}
 
 	/**
@@ -205,16 +238,27 @@ public class JobService extends AbstractService implements JobExecutor {
 			indexingMutex.access(myJobId, (IndexingJob) job);
 		}
 
-		if (job.isNoResult()) {
-			job.setId(myJobId);
-			jobQueue.offer(job);
-			return null;
-		} else {
-			ResultFuture resultFuture = new ResultFuture(myJobId, resultFutureMap, job);
+		ResultFuture resultFuture = null;
+		job.setId(myJobId);
+		if (!job.isNoResult()) {
+			resultFuture = new ResultFuture(myJobId, resultFutureMap, job);
 			resultFutureMap.put(myJobId, resultFuture);
-			job.setId(myJobId);
-			jobQueue.offer(job);
-			return resultFuture;
+		}
+		execute(job);
+		return resultFuture;
+	}
+
+	/*
+	 * 작업의 레인에 바로 넣는다. 레인이 가득차 있으면 기다리지 않고 거절결과를 셋팅하므로 요청한 쪽에서 곧바로 실패를 받는다.
+	 */
+	private void execute(Job job) {
+		JobLaneExecutor laneExecutor = laneExecutors.get(job.lane());
+		runningJobList.put(job.getId(), job);
+		try {
+			laneExecutor.execute(job);
+		} catch (RejectedExecutionException e) {
+			logger.warn("처리허용량을 초과하여 작업이 거부되었습니다. {}, job={}", laneExecutor, job);
+			result(job, new ExecutorMaxCapacityExceedException("처리허용량을 초과하여 작업이 거부되었습니다. lane=" + laneExecutor.lane() + ", pool=" + laneExecutor.poolSize() + ", queue=" + laneExecutor.queueSize()), false);
 		}
 	}
 
@@ -301,40 +345,6 @@ public class JobService extends AbstractService implements JobExecutor {
 		return null;
 	}
 	
-	/*
-	 * 이 쓰레드는 절대로 죽어서는 아니되오.
-	 */
-	class JobConsumer extends Thread {
-		// 2013-4-5 exception발생시 worker가 죽어서 더이상 작업할당을 못하는 상황발생.
-		// InterruptedException을 제외한 모든 throwable을 catch하도록 수정.
-
-		public JobConsumer() {
-			super("JobConsumerThread");
-		}
-
-		public void run() {
-			while (!Thread.interrupted()) {
-				Job job = null;
-				try {
-					job = jobQueue.take();
-					runningJobList.put(job.getId(), job);
-					jobExecutor.execute(job);
-				} catch (InterruptedException e) {
-					logger.debug(this.getClass().getName() + " is interrupted.");
-				} catch (RejectedExecutionException e) {
-					// jobExecutor rejecthandler가 abortpolicy의 경우
-					// RejectedExecutionException을 던지게 되어있다.
-					logger.error("처리허용량을 초과하여 작업이 거부되었습니다. max.pool = {}, job={}", executorMaxPoolSize, job);
-					result(job, new ExecutorMaxCapacityExceedException("처리허용량을 초과하여 작업이 거부되었습니다. max.pool =" + executorMaxPoolSize), false);
-
-				} catch (Throwable e) {
-					logger.error("", e);
-				}
-			}
-
-		}
-	}
-
 	/*
 	 * 이 쓰레드는 절대로 죽어서는 아니되오.
 	 */
@@ -23,8 +23,12 @@ import org.slf4j.LoggerFactory;
 
 import java.util.Map;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class ResultFuture {
 	private static Logger logger = LoggerFactory.getLogger(ResultFuture.class);
@@ -37,6 +41,18 @@ public class ResultFuture {
 	private static NullResult NULL_RESULT = new NullResult();
 	private Job job;
 	private static class NullResult { }
+
+	/**
+	 * 결과를 기다리는 쓰레드 없이 결과가 도착하면 호출된다. 타임아웃시에는 poll 과 같은 에러객체가 전달된다.
+	 */
+	public static interface Listener {
+		public void onResult(Object result, boolean isSuccess);
+	}
+
+	private Listener listener;
+	private Executor listenerExecutor;
+	private final AtomicBoolean isNotified = new AtomicBoolean();
+	private ScheduledFuture<?> timeoutFuture;
 	
 	/**
 	 * 실패 결과.
@@ -65,6 +81,9 @@ public class ResultFuture {
 		try {
 			queue.put(NULL_RESULT);
 		} catch (InterruptedException ignore) { }
+		if(hasListener()) {
+			notifyListener();
+		}
 	}
 	
 	public void put(Object result, boolean isSuccess) {
@@ -76,6 +95,128 @@ public class ResultFuture {
 				queue.put(result);
 			}
 		} catch (InterruptedException ignore) { }
+		if(hasListener()) {
+			notifyListener();
+		}
+	}
+
+	/**
+	 * take/poll 대신 결과가 도착하면 listener 를 호출한다. 이미 결과가 있으면 바로 호출한다.
+	 * listener 는 결과를 전달한 쓰레드에서 수행된다.
+	 * */
+	public void addListener(Listener listener) {
+		addListener(listener, null);
+	}
+
+	/**
+	 * executor 가 있으면 listener 를 executor 에서 수행한다. 네트워크 쓰레드에서 도착한 결과의 후속처리에 사용한다.
+	 * job 에 타임아웃이 있으면 타임아웃시 에러객체로 listener 를 호출한다.
+	 * */
+	public void addListener(Listener listener, Executor executor) {
+		synchronized (this) {
+			this.listener = listener;
+			this.listenerExecutor = executor;
+			scheduleTimeout();
+		}
+		if(queue == null) {
+			//실패 결과.
+			if(isNotified.compareAndSet(false, true)) {
+				fireListener(null, false);
+			}
+		} else if(!queue.isEmpty()) {
+			notifyListener();
+		}
+	}
+
+	private synchronized boolean hasListener() {
+		return listener != null;
+	}
+
+	private void scheduleTimeout() {
+		final long timeout = job != null ? job.getTimeout() : 0;
+		if(timeout <= 0) {
+			return;
+		}
+		JobService jobService = JobService.getInstance();
+		if(jobService == null || jobService.getTimeoutScheduler() == null) {
+			return;
+		}
+		long remainMilisecondTime = Math.max(0, timeout - (System.currentTimeMillis() - startTime));
+		try {
+			timeoutFuture = jobService.getTimeoutScheduler().schedule(new Runnable() {
+				@Override
+				public void run() {
+					notifyTimeout(timeout);
+				}
+			}, remainMilisecondTime, TimeUnit.MILLISECONDS);
+		} catch (RejectedExecutionException e) {
+			//서비스 종료중.
+		}
+	}
+
+	private void notifyListener() {
+		if(!isNotified.compareAndSet(false, true)) {
+			return;
+		}
+		synchronized (this) {
+			if(timeoutFuture != null) {
+				timeoutFuture.cancel(false);
+			}
+		}
+		Object obj = queue.poll();
+		if(obj != null) {
+			result = obj;
+		}
+		fireListener(obj == NULL_RESULT ? null : obj, isSuccess);
+	}
+
+	private void notifyTimeout(long time) {
+		if(!isNotified.compareAndSet(false, true)) {
+			return;
+		}
+		//결과가 아직도착하지 않아서 받지못하거나, 네트워크 문제로 인해 전달이 안될수도 있으므로 불필요한 객체를 map에서 제거한다.
+		if(resultFutureMap != null) {
+			resultFutureMap.remove(requestId);
+		}
+		if(job.isForceAbortWhenTimeout()) {
+			job.abortJob();
+		}
+		Object error = null;
+		if(job instanceof ClusterSearchJob || job instanceof InternalSearchJob || job instanceof InternalDocumentSearchJob) {
+			error = new SearchError(ServerErrorCode.SEARCH_TIMEOUT_ERROR, String.valueOf(time));
+		} else {
+			error = new SearchError(ServerErrorCode.JOB_TIMEOUT_ERROR, String.valueOf(time));
+		}
+		result = error;
+		fireListener(error, false);
+	}
+
+	private void fireListener(final Object result, final boolean isSuccess) {
+		final Listener listener;
+		final Executor executor;
+		synchronized (this) {
+			listener = this.listener;
+			executor = this.listenerExecutor;
+		}
+		Runnable runnable = new Runnable() {
+			@Override
+			public void run() {
+				try {
+					listener.onResult(result, isSuccess);
+				} catch (Throwable t) {
+					logger.error("Error while handling result " + requestId, t);
+				}
+			}
+		};
+		if(executor != null) {
+			try {
+				executor.execute(runnable);
+				return;
+			} catch (RejectedExecutionException e) {
+				//서비스 종료중이면 현재 쓰레드에서 처리한다.
+			}
+		}
+		runnable.run();
 	}
 	
 	public boolean isSuccess(){
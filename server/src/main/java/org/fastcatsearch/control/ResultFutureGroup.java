@@ -0,0 +1,69 @@
+package org.fastcatsearch.control;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 여러 ResultFuture 의 결과가 모두 도착하면 listener 를 한번 호출한다.
+ * 결과를 기다리는 쓰레드를 두지 않고, 마지막 결과가 도착하면 executor 에서 후속처리를 수행한다.
+ * 각 결과의 타임아웃은 ResultFuture 와 동일하게 job 의 타임아웃을 따른다.
+ */
+public class ResultFutureGroup {
+
+	public static interface Listener {
+		/**
+		 * @param results 요청순서대로의 결과. 실패시에는 에러객체.
+		 * @param isSuccess 결과별 성공여부.
+		 * */
+		public void onComplete(Object[] results, boolean[] isSuccess);
+	}
+
+	public static void whenAll(ResultFuture[] resultFutures, final Executor executor, final Listener listener) {
+		final Object[] results = new Object[resultFutures.length];
+		final boolean[] isSuccess = new boolean[resultFutures.length];
+		if (resultFutures.length == 0) {
+			complete(executor, listener, results, isSuccess);
+			return;
+		}
+		final AtomicInteger remainCount = new AtomicInteger(resultFutures.length);
+		for (int i = 0; i < resultFutures.length; i++) {
+			final int index = i;
+			if (resultFutures[i] == null) {
+				//요청을 보내지 못한 경우 실패로 처리한다.
+				if (remainCount.decrementAndGet() == 0) {
+					complete(executor, listener, results, isSuccess);
+				}
+				continue;
+			}
+			resultFutures[i].addListener(new ResultFuture.Listener() {
+				@Override
+				public void onResult(Object result, boolean success) {
+					results[index] = result;
+					isSuccess[index] = success;
+					if (remainCount.decrementAndGet() == 0) {
+						complete(executor, listener, results, isSuccess);
+					}
+				}
+			});
+		}
+	}
+
+	private static void complete(Executor executor, final Listener listener, final Object[] results, final boolean[] isSuccess) {
+		Runnable runnable = new Runnable() {
+			@Override
+			public void run() {
+				listener.onComplete(results, isSuccess);
+			}
+		};
+		if (executor != null) {
+			try {
+				executor.execute(runnable);
+				return;
+			} catch (RejectedExecutionException e) {
+				//서비스 종료중이면 현재 쓰레드에서 처리한다.
+			}
+		}
+		runnable.run();
+	}
+}
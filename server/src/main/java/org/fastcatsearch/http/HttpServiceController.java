@@ -2,6 +2,7 @@ package org.fastcatsearch.http;
 
 import java.util.Map;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.fastcatsearch.http.action.ActionRequest;
 import org.fastcatsearch.http.action.ActionResponse;
@@ -32,6 +33,10 @@ public class HttpServiceController {
 		if (action != null) {
 			try {
 				executorService.execute(action);
+			} catch (RejectedExecutionException e) {
+				//처리쓰레드가 모두 사용중이면 요청을 쌓아두지 않고 바로 거절한다.
+				logger.warn("Action rejected. execute pool is full. uri={}", request.getUri());
+				httpChannel.sendError(HttpResponseStatus.SERVICE_UNAVAILABLE, e);
 			} catch (Exception e) {
 				logger.error("Action job allocation error!", e);
 			}
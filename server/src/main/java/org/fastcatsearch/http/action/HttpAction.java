@@ -18,6 +18,7 @@ public abstract class HttpAction implements Runnable, Cloneable {
 	protected Environment environment;
 	protected HttpSession session;
 	protected Type resultType;
+	private boolean isAsync; //runAction 이후에 응답을 보내는 action.
 	
 	public HttpAction(){
 	}
@@ -50,7 +51,9 @@ public abstract class HttpAction implements Runnable, Cloneable {
 		
 		try {
 			runAction(request, response);
-			response.done();
+			if(!isAsync) {
+				response.done();
+			}
         } catch (ActionException e) {
             response.error(e);
 		} catch (Throwable e) {
@@ -61,6 +64,27 @@ public abstract class HttpAction implements Runnable, Cloneable {
 		
 	}
 
+	/**
+	 * runAction 이 끝나도 응답을 보내지 않는다. 요청쓰레드를 잡고 결과를 기다리지 않는 action 에서 호출하며,
+	 * 결과가 도착하면 asyncDone 으로 응답을 보내야 한다.
+	 * */
+	protected void startAsync() {
+		isAsync = true;
+	}
+
+	protected boolean isAsync() {
+		return isAsync;
+	}
+
+	protected void asyncDone(ActionResponse response) {
+		try {
+			response.done();
+		} catch (Throwable e) {
+			logger.error("Action수행중 에러발생.", e);
+			response.error(e);
+		}
+	}
+
 	public boolean isMethod(ActionMethod actionMethod){
 		for(ActionMethod m : this.method){
 			if(m == actionMethod){
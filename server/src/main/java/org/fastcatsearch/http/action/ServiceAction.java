@@ -6,6 +6,7 @@ import org.fastcatsearch.util.ResponseWriter;
 import org.fastcatsearch.util.XMLResponseWriter;
 import org.jboss.netty.handler.codec.http.HttpResponseStatus;
 
+import java.io.IOException;
 import java.io.Writer;
 
 public abstract class ServiceAction extends HttpAction {
@@ -38,10 +39,23 @@ public abstract class ServiceAction extends HttpAction {
             resultWriter.object().key("success").value(false).key("errorMessage").value(t.toString()).endObject();
             resultWriter.done();
 		} finally {
-            writer.close();
+			//비동기 응답은 asyncDone 에서 닫는다.
+			if(!isAsync()) {
+				writer.close();
+			}
         }
 	}
 
+	@Override
+	protected void asyncDone(ActionResponse response) {
+		try {
+			response.getWriter().close();
+		} catch (IOException e) {
+			logger.error("", e);
+		}
+		super.asyncDone(response);
+	}
+
 	protected void writeHeader(ActionResponse response) {
 		writeHeader(response, DEFAULT_CHARSET);
 	}
@@ -0,0 +1,67 @@
+package org.fastcatsearch.http.action.management.collections;
+
+import org.fastcatsearch.http.ActionAuthority;
+import org.fastcatsearch.http.ActionAuthorityLevel;
+import org.fastcatsearch.http.ActionMapping;
+import org.fastcatsearch.http.action.ActionRequest;
+import org.fastcatsearch.http.action.ActionResponse;
+import org.fastcatsearch.http.action.AuthAction;
+import org.fastcatsearch.ir.IRService;
+import org.fastcatsearch.ir.merge.MergeProgress;
+import org.fastcatsearch.ir.merge.MergeRateLimiter;
+import org.fastcatsearch.ir.search.CollectionHandler;
+import org.fastcatsearch.service.ServiceManager;
+import org.fastcatsearch.util.ResponseWriter;
+
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * 컬렉션에서 진행중인 세그먼트 머징의 진행상황과 쓰기속도를 보여준다.
+ */
+@ActionMapping(value = "/management/collections/merge-status", authority = ActionAuthority.Collections, authorityLevel = ActionAuthorityLevel.READABLE)
+public class GetMergeStatusAction extends AuthAction {
+
+	@Override
+	public void doAuthAction(ActionRequest request, ActionResponse response) throws Exception {
+
+		String collectionId = request.getParameter("collectionId");
+		IRService irService = ServiceManager.getInstance().getService(IRService.class);
+		CollectionHandler collectionHandler = irService.collectionHandler(collectionId);
+
+		Writer writer = response.getWriter();
+		ResponseWriter responseWriter = getDefaultResponseWriter(writer);
+		responseWriter.object()
+		.key("collectionId").value(collectionId);
+
+		MergeRateLimiter rateLimiter = collectionHandler != null ? collectionHandler.mergeRateLimiter() : null;
+		if(rateLimiter != null) {
+			responseWriter.key("maxMBPerSec").value(rateLimiter.maxMBPerSec())
+			.key("currentMBPerSec").value(rateLimiter.currentMBPerSec());
+		}
+
+		responseWriter.key("merges").array("merge");
+		if(collectionHandler != null) {
+			List<MergeProgress> progressList = collectionHandler.mergeProgressList();
+			for(MergeProgress progress : progressList) {
+				responseWriter.object()
+				.key("segmentId").value(progress.segmentId())
+				.key("documentCount").value(progress.documentCount())
+				.key("stepCount").value(progress.stepCount())
+				.key("finishedStepCount").value(progress.finishedStepCount())
+				.key("runningSteps").value(progress.runningSteps().toString())
+				.key("elapsed").value(progress.elapsed())
+				.key("bytesWritten").value(progress.bytesWritten())
+				.key("throughputMBPerSec").value(String.format("%.2f", progress.throughputMBPerSec()))
+				.key("pausedMillis").value(progress.pausedMillis())
+				.endObject();
+			}
+		}
+		responseWriter.endArray();
+
+		responseWriter.endObject();
+
+		responseWriter.done();
+	}
+
+}
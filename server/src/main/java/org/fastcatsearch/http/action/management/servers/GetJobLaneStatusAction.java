@@ -0,0 +1,47 @@
+package org.fastcatsearch.http.action.management.servers;
+
+import org.fastcatsearch.control.JobLaneExecutor;
+import org.fastcatsearch.control.JobService;
+import org.fastcatsearch.http.ActionAuthority;
+import org.fastcatsearch.http.ActionAuthorityLevel;
+import org.fastcatsearch.http.ActionMapping;
+import org.fastcatsearch.http.action.ActionRequest;
+import org.fastcatsearch.http.action.ActionResponse;
+import org.fastcatsearch.http.action.AuthAction;
+import org.fastcatsearch.service.ServiceManager;
+import org.fastcatsearch.util.ResponseWriter;
+
+/**
+ * 이 노드의 작업 레인별 쓰레드, 대기큐 사용량과 거절건수, 큐 대기시간을 보여준다.
+ */
+@ActionMapping(value = "/management/servers/job-lanes", authority = ActionAuthority.Servers, authorityLevel = ActionAuthorityLevel.NONE)
+public class GetJobLaneStatusAction extends AuthAction {
+
+	@Override
+	public void doAuthAction(ActionRequest request, ActionResponse response) throws Exception {
+
+		JobService jobService = ServiceManager.getInstance().getService(JobService.class);
+
+		ResponseWriter responseWriter = getDefaultResponseWriter(response.getWriter());
+		responseWriter.object()
+		.key("runningJobSize").value(jobService.runningJobSize())
+		.key("lanes").array("lane");
+		for(JobLaneExecutor laneExecutor : jobService.getLaneExecutors()) {
+			responseWriter.object()
+			.key("lane").value(laneExecutor.lane().settingName())
+			.key("poolSize").value(laneExecutor.poolSize())
+			.key("queueSize").value(laneExecutor.queueSize())
+			.key("activeCount").value(laneExecutor.activeCount())
+			.key("queuedCount").value(laneExecutor.queuedCount())
+			.key("submitCount").value(laneExecutor.submitCount())
+			.key("rejectCount").value(laneExecutor.rejectCount())
+			.key("averageQueueMillis").value(String.format("%.2f", laneExecutor.averageQueueMillis()))
+			.key("maxQueueMillis").value(String.format("%.2f", laneExecutor.maxQueueMillis()))
+			.endObject();
+		}
+		responseWriter.endArray()
+		.endObject();
+		responseWriter.done();
+	}
+
+}
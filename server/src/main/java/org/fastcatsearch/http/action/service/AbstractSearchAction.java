@@ -1,5 +1,6 @@
 package org.fastcatsearch.http.action.service;
 
+import org.fastcatsearch.control.ExecutorMaxCapacityExceedException;
 import org.fastcatsearch.control.JobService;
 import org.fastcatsearch.control.ResultFuture;
 import org.fastcatsearch.error.SearchError;
@@ -18,6 +19,7 @@ import org.jboss.netty.handler.codec.http.HttpResponseStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.io.Writer;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -48,6 +50,42 @@ public abstract class AbstractSearchAction extends ServiceAction {
 		Object obj = jobResult.poll(timeout);
 		searchTime = (System.nanoTime() - st) / 1000000;
 
+		writeSearchResult(queryMap, obj, searchTime, jobResult.isSuccess(), writer);
+
+//		writer.close();
+
+		return obj;
+	}
+
+	/**
+	 * 검색작업을 보내고 결과를 기다리지 않고 리턴한다. 결과가 도착하거나 타임아웃이 되면 결과를 기록하여 응답을 보낸다.
+	 * */
+	protected void doSearchAsync(final long requestId, final ActionRequest request, final ActionResponse response, final QueryMap queryMap, int timeout, boolean forceAbortWhenTimeout) {
+		final long st = System.nanoTime();
+		Job searchJob = createSearchJob(queryMap);
+		searchJob.setTimeout(timeout * 1000L, forceAbortWhenTimeout);
+		ResultFuture jobResult = JobService.getInstance().offer(searchJob);
+		startAsync();
+		jobResult.addListener(new ResultFuture.Listener() {
+			@Override
+			public void onResult(Object obj, boolean isSuccess) {
+				try {
+					long searchTime = (System.nanoTime() - st) / 1000000;
+					if(obj instanceof ExecutorMaxCapacityExceedException) {
+						//검색 레인이 가득차서 거절된 요청은 클라이언트가 다시 시도할수 있도록 503으로 응답한다.
+						response.setStatus(HttpResponseStatus.SERVICE_UNAVAILABLE);
+					}
+					writeSearchResult(queryMap, obj, searchTime, isSuccess, response.getWriter());
+					requestLogger.info("end request id:{}", requestId);
+					logSearchError(requestId, request, obj);
+				} finally {
+					asyncDone(response);
+				}
+			}
+		});
+	}
+
+	private void writeSearchResult(QueryMap queryMap, Object obj, long searchTime, boolean isSuccess, Writer writer) {
         // searchOption에서 lowercase가 존재하는지 확인후, 존재하면 lowercase로 결과를 기록하도록 한다.
         String so = queryMap.get(Query.EL.so.name());
         Metadata meta = new Metadata();
@@ -57,14 +95,32 @@ public abstract class AbstractSearchAction extends ServiceAction {
         AbstractSearchResultWriter resultWriter = createSearchResultWriter(writer, isFieldLowercase, noUnicode);
 
 		try {
-			resultWriter.writeResult(obj, searchTime, jobResult.isSuccess());
+			resultWriter.writeResult(obj, searchTime, isSuccess);
 		} catch (ResultWriterException e) {
 			logger.error("", e);
+		} catch (IOException e) {
+			logger.error("", e);
 		}
+	}
 
-//		writer.close();
-
-		return obj;
+	private void logSearchError(long requestId, ActionRequest request, Object obj) {
+		if(obj instanceof Exception) {
+			Exception e = (Exception) obj;
+			String paramString = null;
+			if(request.isMethodGet()) {
+				//GET방식의 경우.
+				paramString = request.getParameterString();
+			} else {
+				paramString = request.getRequestBody();
+            }
+            String errorString = null;
+            if(e instanceof SearchError) {
+				errorString = e.getMessage();
+			} else {
+				errorString = e.toString();
+			}
+			searchErrorLogger.error("REQ-{}\tURL: {}?{}\tERROR: {}", requestId, request.uri(), paramString, errorString);
+		}
 	}
 
 	protected long getRequestId() {
@@ -96,38 +152,11 @@ public abstract class AbstractSearchAction extends ServiceAction {
 		if (timeout == null) {
 			timeout = DEFAULT_TIMEOUT;
 		}
-		Writer writer = response.getWriter();
 		response.setStatus(HttpResponseStatus.OK);
-		Object obj = null;
-		try {
-			obj = doSearch(requestId, queryMap, timeout, forceAbort, writer);
-		} finally {
-//			writer.close();
-			requestLogger.info("end request id:{}",requestId);
-		}
-
-		if(obj instanceof Exception) {
-			Exception e = (Exception) obj;
-			String paramString = null;
-			if(request.isMethodGet()) {
-				//GET방식의 경우.
-				paramString = request.getParameterString();
-			} else {
-				paramString = request.getRequestBody();
-            }
-            String errorString = null;
-            if(e instanceof SearchError) {
-				errorString = e.getMessage();
-			} else {
-				errorString = e.toString();
-			}
-			searchErrorLogger.error("REQ-{}\tURL: {}?{}\tERROR: {}", requestId, request.uri(), paramString, errorString);
-		}
-
+		//요청쓰레드는 결과를 기다리지 않는다.
+		doSearchAsync(requestId, request, response, queryMap, timeout, forceAbort);
 	}
 
-	
-
 	protected ResponseWriter getSearchResultWriter(Writer writer, boolean isFieldLowercase, boolean noUnicode) {
 		return getSearchResultWriter(writer, "_search_callback", isFieldLowercase, noUnicode);
 	}
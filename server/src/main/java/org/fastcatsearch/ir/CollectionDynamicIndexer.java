@@ -1,7 +1,11 @@
 package org.fastcatsearch.ir;
 
+import net.minidev.json.parser.ParseException;
 import org.apache.commons.io.FileUtils;
 import org.fastcatsearch.datasource.reader.DefaultDataSourceReader;
+import org.fastcatsearch.http.action.service.indexing.IndexDocumentsAction;
+import org.fastcatsearch.http.action.service.indexing.JSONRequestReader;
+import org.fastcatsearch.http.action.service.indexing.MapDocument;
 import org.fastcatsearch.ir.analysis.AnalyzerPoolManager;
 import org.fastcatsearch.ir.common.IRException;
 import org.fastcatsearch.ir.common.SettingException;
@@ -21,7 +25,9 @@ import org.fastcatsearch.ir.settings.RefSetting;
 import org.fastcatsearch.ir.settings.Schema;
 import org.fastcatsearch.ir.util.Formatter;
 import org.fastcatsearch.job.indexing.IndexingStopException;
+import org.fastcatsearch.util.DocumentWriteAheadLog;
 import org.fastcatsearch.util.FilePaths;
+import org.fastcatsearch.util.JSONParser;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -111,6 +117,47 @@ public class CollectionDynamicIndexer {
         return segmentDir;
     }
 
+    /**
+     * 한줄에 하나씩 기록된 JSON 문서요청을 타입에 따라 추가, 업데이트, 삭제한다.
+     * */
+    public void indexDocuments(String documents) throws IRException, IOException {
+        JSONRequestReader jsonReader = new JSONRequestReader(documents);
+        MapDocument doc = null;
+        while((doc = jsonReader.readAsMapDocument()) != null) {
+            indexDocument(doc.getType(), doc.getSourceMap());
+        }
+    }
+
+    /**
+     * 문서로그의 레코드를 색인한다. 레코드마다 type 과 json 이 나뉘어 있으므로 줄단위로 다시 파싱하지 않는다.
+     * */
+    public void indexDocuments(List<DocumentWriteAheadLog.Record> documents) throws IRException, IOException {
+        JSONParser jsonParser = new JSONParser();
+        for (DocumentWriteAheadLog.Record record : documents) {
+            Map<String, Object> sourceMap = null;
+            try {
+                sourceMap = jsonParser.parse(record.json());
+            } catch (ParseException e) {
+                logger.error("error while convert json to map : " + record.json(), e);
+                continue;
+            }
+            indexDocument(record.type(), sourceMap);
+        }
+    }
+
+    private void indexDocument(char docType, Map<String, Object> sourceMap) throws IRException, IOException {
+        String type = String.valueOf(docType);
+        if (type.equals(IndexDocumentsAction.INSERT_TYPE)) {
+            insertDocument(sourceMap);
+        } else if (type.equals(IndexDocumentsAction.UPDATE_TYPE)) {
+            updateDocument(sourceMap);
+        } else if (type.equals(IndexDocumentsAction.DELETE_TYPE)) {
+            deleteDocument(sourceMap);
+        } else {
+            logger.error("Unknown doctype[{}] {}", docType, sourceMap);
+        }
+    }
+
     public void insertDocument(Map<String, Object> source) throws IRException, IOException {
         Document document = documentFactory.createDocument(source);
         indexWriter.addDocument(document);
@@ -11,6 +11,7 @@ import org.fastcatsearch.ir.config.IndexConfig;
 import org.fastcatsearch.ir.document.Document;
 import org.fastcatsearch.ir.index.DeleteIdSet;
 import org.fastcatsearch.ir.index.SegmentWriter;
+import org.fastcatsearch.ir.merge.SegmentMerger;
 import org.fastcatsearch.ir.search.CollectionHandler;
 import org.fastcatsearch.ir.settings.Schema;
 import org.fastcatsearch.ir.util.Formatter;
@@ -24,12 +25,15 @@ import java.io.IOException;
 
 /**
  * 컬렉션의 세그먼트 머징을 수행하는 indexer.
+ * 모든 세그먼트에 현재 스키마의 색인파일이 있으면 SegmentMerger로 문서 재분석없이 색인파일을 직접 머징하고,
+ * 스키마 변경등으로 머징할수 없으면 문서를 다시 읽어 색인한다.
  * */
 public class CollectionMergeIndexer {
     protected static final Logger logger = LoggerFactory.getLogger(CollectionMergeIndexer.class);
     protected static Logger indexingLogger = LoggerFactory.getLogger("INDEXING_LOG");
     protected CollectionContext collectionContext;
     protected AnalyzerPoolManager analyzerPoolManager;
+    private CollectionHandler collectionHandler;
 
     private File segmentDir;
 
@@ -39,6 +43,8 @@ public class CollectionMergeIndexer {
     protected DataInfo.SegmentInfo segmentInfo;
 
     private AbstractDataSourceReader dataSourceReader;
+    private SegmentMerger segmentMerger;
+    private File[] segmentDirs;
 
     private Schema schema;
     private long startTime;
@@ -47,6 +53,7 @@ public class CollectionMergeIndexer {
     private int count;
 
 	public CollectionMergeIndexer(String documentId, CollectionHandler collectionHandler, File[] segmentDirs) throws IRException, IOException {
+        this.collectionHandler = collectionHandler;
         this.collectionContext = collectionHandler.collectionContext();
         this.analyzerPoolManager = collectionHandler.analyzerPoolManager();
 		//머징색인시는 현재 스키마를 그대로 사용한다.
@@ -64,11 +71,18 @@ public class CollectionMergeIndexer {
             throw new IRException(e);
         }
         IndexConfig indexConfig = collectionContext.indexConfig();
-        indexWriter = new SegmentWriter(schema, segmentDir, segmentInfo, indexConfig, analyzerPoolManager, null);
+        this.segmentDirs = segmentDirs;
         deleteIdSet = new DeleteIdSet();
-
-        dataSourceReader = new SegmentSourceReader(segmentDirs, schema.schemaSetting());
-        dataSourceReader.init();
+        if (SegmentMerger.canMerge(schema, segmentDirs)) {
+            segmentMerger = new SegmentMerger(schema, segmentDir, segmentInfo, indexConfig);
+            segmentMerger.setExecutor(collectionHandler.mergeExecutor());
+            segmentMerger.setRateLimiter(collectionHandler.mergeRateLimiter());
+        } else {
+            logger.info("[{}] Segment files do not match the schema. Merge by reindexing documents.", collectionContext.collectionId());
+            indexWriter = new SegmentWriter(schema, segmentDir, segmentInfo, indexConfig, analyzerPoolManager, null);
+            dataSourceReader = new SegmentSourceReader(segmentDirs, schema.schemaSetting());
+            dataSourceReader.init();
+        }
 	}
 
 	public File getSegmentDir() {
@@ -78,6 +92,21 @@ public class CollectionMergeIndexer {
     public void doIndexing() throws IRException, IOException {
         startTime = System.currentTimeMillis();
         lapTime = startTime;
+        if (segmentMerger != null) {
+            boolean isMerged = false;
+            collectionHandler.addMergeProgress(segmentMerger.progress());
+            try {
+                segmentInfo = segmentMerger.merge(segmentDirs);
+                isMerged = true;
+            } finally {
+                collectionHandler.removeMergeProgress(segmentMerger.progress());
+                if (!isMerged) {
+                    FileUtils.deleteQuietly(segmentDir);
+                }
+            }
+            count = segmentInfo.getDocumentCount();
+            return;
+        }
         while (dataSourceReader.hasNext()) {
             Document document = dataSourceReader.nextDocument();
 //			logger.debug("doc >> {}", document);
@@ -100,7 +129,11 @@ public class CollectionMergeIndexer {
 
     public DataInfo.SegmentInfo close() throws IRException, SettingException, IndexingStopException {
 
-        if (indexWriter != null) {
+        if (segmentMerger != null) {
+            //머징된 세그먼트 임을 표시한다.
+            segmentInfo.setMerged(true);
+            logger.debug("##Segment merger close {}", segmentInfo);
+        } else if (indexWriter != null) {
             try {
                 segmentInfo = indexWriter.close();
                 //머징된 세그먼트 임을 표시한다.
@@ -7,12 +7,15 @@ import org.fastcatsearch.cluster.NodeJobResult;
 import org.fastcatsearch.cluster.NodeService;
 import org.fastcatsearch.env.Environment;
 import org.fastcatsearch.ir.config.CollectionContext;
+import org.fastcatsearch.ir.merge.MergePolicy;
+import org.fastcatsearch.ir.merge.TieredMergePolicy;
 import org.fastcatsearch.job.indexing.NodeIndexDocumentFileJob;
 import org.fastcatsearch.module.AbstractModule;
 import org.fastcatsearch.module.ModuleException;
 import org.fastcatsearch.service.ServiceManager;
 import org.fastcatsearch.settings.Settings;
-import org.fastcatsearch.util.TimeBaseRollingDocumentLogger;
+import org.fastcatsearch.util.DynamicClassLoader;
+import org.fastcatsearch.util.DocumentWriteAheadLog;
 
 import java.io.File;
 import java.io.IOException;
@@ -25,10 +28,10 @@ import java.util.concurrent.Semaphore;
 public class DynamicIndexModule extends AbstractModule {
     private String collectionId;
 
-    private TimeBaseRollingDocumentLogger dataLogger;
+    private DocumentWriteAheadLog dataLogger;
     private File dir;
     private File stopIndexingFlagFile;
-    private int flushPeriodInSeconds;
+    private int logSegmentSize;
     private int rollingPeriodInSeconds;
     private int indexFileMaxCount;
     private long indexFileMaxSize;
@@ -44,43 +47,72 @@ public class DynamicIndexModule extends AbstractModule {
         this.collectionId = collectionId;
         dir = environment.filePaths().collectionFilePaths(collectionId).file("indexlog");
         stopIndexingFlagFile = new File(environment.filePaths().collectionFilePaths(collectionId).file(), "indexlog.stop");
-        flushPeriodInSeconds = settings.getInt("indexing.dynamic.log_flush_period_SEC", 1); //1초마다 flush.
+        logSegmentSize = settings.getInt("indexing.dynamic.log_segment_size_MB", 64) * 1024 * 1024; //64MB 단위로 로그파일을 미리 할당.
         rollingPeriodInSeconds = settings.getInt("indexing.dynamic.log_rolling_period_SEC", 30); //30초마다 파일변경.
         indexFileMaxCount = settings.getInt("indexing.dynamic.max_log_count", 10000);//최소 1만개 를 모아서 보낸다
         indexFileMaxSize = settings.getLong("indexing.dynamic.max_log_size_MB", 20L) * 1000 * 1000; //최소 20MB를 모아서 보낸다.
         mergePeriod = settings.getInt("indexing.dynamic.merge_period_SEC", 5) * 1000; //5초마다.
         indexingPeriod = settings.getInt("indexing.dynamic.indexing_period_SEC", 1) * 1000; //1초마다.
-        logger.debug("[{}] DynamicIndexModule flushPeriodInSeconds[{}] indexFileMaxCount[{}] indexFileMaxSize[{}] mergePeriod[{}] indexingPeriod[{}]",
-                collectionId, flushPeriodInSeconds, indexFileMaxCount, indexFileMaxSize, mergePeriod, indexingPeriod);
+        logger.debug("[{}] DynamicIndexModule logSegmentSize[{}] indexFileMaxCount[{}] indexFileMaxSize[{}] mergePeriod[{}] indexingPeriod[{}]",
+                collectionId, logSegmentSize, indexFileMaxCount, indexFileMaxSize, mergePeriod, indexingPeriod);
 
-        indexMergeScheduleWorker = new IndexMergeScheduleWorker(collectionId, mergePeriod);
+        indexMergeScheduleWorker = new IndexMergeScheduleWorker(collectionId, mergePeriod, newMergePolicy(settings));
         indexMergeScheduleWorker.setDaemon(true);
     }
 
+    /**
+     * merge.policy 에 클래스명을 지정하면 해당 MergePolicy 를 사용한다. 기본은 TieredMergePolicy.
+     */
+    private MergePolicy newMergePolicy(Settings settings) {
+        String policyClassName = settings.getString("merge.policy", "");
+        if (policyClassName.length() > 0) {
+            MergePolicy mergePolicy = DynamicClassLoader.loadObject(policyClassName, MergePolicy.class);
+            if (mergePolicy != null) {
+                logger.info("[{}] Merge policy {}", collectionId, policyClassName);
+                return mergePolicy;
+            }
+            logger.error("[{}] Cannot load merge policy {}. Use TieredMergePolicy.", collectionId, policyClassName);
+        }
+        TieredMergePolicy mergePolicy = new TieredMergePolicy()
+                .setSegmentsPerTier(settings.getInt("merge.segments_per_tier", 10))
+                .setMaxMergeAtOnce(settings.getInt("merge.max_merge_at_once", 10))
+                .setMaxMergedSegmentMB(settings.getLong("merge.max_merged_segment_MB", 5 * 1024L))
+                .setFloorSegmentMB(settings.getLong("merge.floor_segment_MB", 2L))
+                .setDeleteRatioAllowed(settings.getDouble("merge.delete_ratio_allowed", 0.4))
+                .setReclaimDeletesWeight(settings.getDouble("merge.reclaim_deletes_weight", 2.0))
+                .setMaxConcurrentMerges(settings.getInt("merge.max_concurrent_merges", 2));
+        logger.info("[{}] Merge policy {}", collectionId, mergePolicy);
+        return mergePolicy;
+    }
+
     @Override
     protected boolean doLoad() throws ModuleException {
-        dataLogger = new TimeBaseRollingDocumentLogger(dir, flushPeriodInSeconds, rollingPeriodInSeconds);
+        try {
+            dataLogger = new DocumentWriteAheadLog(dir, logSegmentSize, rollingPeriodInSeconds);
+        } catch (IOException e) {
+            throw new ModuleException("Cannot open document log " + dir.getAbsolutePath(), e);
+        }
         //stop 파일이 없어야만 시작한다.
         if(!stopIndexingFlagFile.exists()) {
             startIndexingSchedule();
         }
         indexMergeScheduleWorker.start();
         logger.info("[{}] Index Merger start scheduling!", collectionId);
-        logger.info("[{}] To be indexed files = {}", collectionId, dataLogger.getQueueSize());
+        logger.info("[{}] To be indexed log files = {}", collectionId, dataLogger.getQueueSize());
         return true;
     }
 
     @Override
     protected boolean doUnload() throws ModuleException {
-        if(dataLogger != null) {
-            dataLogger.close();
-        }
-
         if(indexFireScheduleWorker != null) {
             indexFireScheduleWorker.requestCancel();
         }
         indexMergeScheduleWorker.requestCancel();
 
+        if(dataLogger != null) {
+            dataLogger.close();
+        }
+
         return true;
     }
 
@@ -105,7 +137,7 @@ public class DynamicIndexModule extends AbstractModule {
 
     public boolean startIndexingSchedule() {
         if(indexFireScheduleWorker == null) {
-            indexFireScheduleWorker = new IndexFireScheduleWorker(collectionId, dataLogger.getFileQueue(), indexingPeriod, indexFileMaxCount, indexFileMaxSize);
+            indexFireScheduleWorker = new IndexFireScheduleWorker(environment, collectionId, dataLogger, indexingPeriod, indexFileMaxCount, indexFileMaxSize);
             indexFireScheduleWorker.setDaemon(true);
             indexFireScheduleWorker.start();
             stopIndexingFlagFile.delete();
@@ -116,22 +148,19 @@ public class DynamicIndexModule extends AbstractModule {
         return false;
     }
 
-    public boolean insertDocument(List<String> jsonList) {
-        for(String json : jsonList) {
-            dataLogger.log("I " + json);
-        }
+    /**
+     * 문서요청을 로그에 기록한다. 디스크에 반영된 뒤에 리턴한다.
+     * */
+    public boolean insertDocument(List<String> jsonList) throws IOException {
+        dataLogger.append('I', jsonList);
         return true;
     }
-    public boolean updateDocument(List<String> jsonList) {
-        for(String json : jsonList) {
-            dataLogger.log("U " + json);
-        }
+    public boolean updateDocument(List<String> jsonList) throws IOException {
+        dataLogger.append('U', jsonList);
         return true;
     }
-    public boolean deleteDocument(List<String> jsonList) {
-        for(String json : jsonList) {
-            dataLogger.log("D " + json);
-        }
+    public boolean deleteDocument(List<String> jsonList) throws IOException {
+        dataLogger.append('D', jsonList);
         return true;
     }
 }
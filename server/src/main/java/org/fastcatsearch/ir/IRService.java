@@ -15,6 +15,7 @@ import org.apache.commons.io.FileUtils;
 import org.fastcatsearch.alert.ClusterAlertService;
 import org.fastcatsearch.cluster.NodeLoadBalancable;
 import org.fastcatsearch.common.QueryCacheModule;
+import org.fastcatsearch.common.QueryCacheWeighers;
 import org.fastcatsearch.common.ThreadPoolFactory;
 import org.fastcatsearch.control.JobService;
 import org.fastcatsearch.env.Environment;
@@ -28,6 +29,7 @@ import org.fastcatsearch.ir.config.CollectionsConfig.Collection;
 import org.fastcatsearch.ir.config.IndexingScheduleConfig.IndexingSchedule;
 import org.fastcatsearch.ir.group.GroupResults;
 import org.fastcatsearch.ir.group.GroupsData;
+import org.fastcatsearch.ir.merge.MergeRateLimiter;
 import org.fastcatsearch.ir.query.InternalSearchResult;
 import org.fastcatsearch.ir.query.Result;
 import org.fastcatsearch.ir.search.CollectionHandler;
@@ -46,6 +48,7 @@ import org.fastcatsearch.service.ServiceManager;
 import org.fastcatsearch.settings.SearchPageSettings;
 import org.fastcatsearch.settings.SettingFileNames;
 import org.fastcatsearch.settings.Settings;
+import org.fastcatsearch.util.AsynchronousCounter;
 import org.fastcatsearch.util.CollectionContextUtil;
 import org.fastcatsearch.util.FilePaths;
 import org.fastcatsearch.util.JAXBConfigs;
@@ -60,6 +63,7 @@ import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.DelayQueue;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
 
 public class IRService extends AbstractService {
 
@@ -86,6 +90,13 @@ public class IRService extends AbstractService {
     //검색중인 세그먼트를 바로 닫으면 문제가 생기므로, 사용이 끝날때까지 기다렸다 close할수 있도록 저장하는 Q.
     private DelayQueue<SegmentDelayedClose> segmentDelayCloseQueue;
 
+    //세그먼트 병렬검색 쓰레드풀.
+    private ThreadPoolExecutor segmentSearchExecutor;
+
+    //세그먼트 머징단계 병렬수행 쓰레드풀과 모든 컬렉션이 공유하는 머징 쓰기속도 제한.
+    private ThreadPoolExecutor mergeExecutor;
+    private MergeRateLimiter mergeRateLimiter;
+
 	public IRService(Environment environment, Settings settings, ServiceManager serviceManager) {
 		super(environment, settings, serviceManager);
 		realtimeQueryStatisticsModule = new RealtimeQueryCountModule(environment, settings);
@@ -152,6 +163,40 @@ public class IRService extends AbstractService {
 		dataNodeCollectionIdSet = new HashSet<String>();
         segmentDelayCloseQueue = new DelayQueue<SegmentDelayedClose>();
 
+        //0 이면 세그먼트를 순차적으로 검색한다.
+        int segmentSearchPoolSize = settings.getInt("search.segment_pool_size", Runtime.getRuntime().availableProcessors());
+        if(segmentSearchPoolSize > 0) {
+            int segmentSearchQueueSize = settings.getInt("search.segment_queue_size", segmentSearchPoolSize * 100);
+            segmentSearchExecutor = ThreadPoolFactory.newBoundedDaemonThreadPool("segment-search-pool", segmentSearchPoolSize, segmentSearchQueueSize);
+            logger.info("Segment search pool size[{}] queue[{}]", segmentSearchPoolSize, segmentSearchQueueSize);
+        }
+
+        //0 이면 머징단계를 순차적으로 수행한다.
+        int mergePoolSize = settings.getInt("merge.pool_size", Math.min(Runtime.getRuntime().availableProcessors(), 4));
+        if(mergePoolSize > 0) {
+            mergeExecutor = ThreadPoolFactory.newBoundedDaemonThreadPool("segment-merge-pool", mergePoolSize, mergePoolSize * 10);
+        }
+        //0 이면 머징 쓰기속도를 제한하지 않는다.
+        double mergeMaxMBPerSec = settings.getDouble("merge.max_mb_per_sec", 0);
+        double mergeMinMBPerSec = settings.getDouble("merge.min_mb_per_sec", mergeMaxMBPerSec / 4);
+        final int mergeBackoffQps = settings.getInt("merge.backoff_qps", 0);
+        MergeRateLimiter.Backoff backoff = null;
+        if(mergeBackoffQps > 0) {
+            //초당 검색수가 기준을 넘으면 넘은 비율만큼 머징속도를 낮춘다.
+            backoff = new MergeRateLimiter.Backoff() {
+                @Override
+                public double ratio() {
+                    int qps = 0;
+                    for (Entry<String, AsynchronousCounter> entry : realtimeQueryStatisticsModule.statisticsEntrySet()) {
+                        qps += entry.getValue().getLastCount();
+                    }
+                    return qps <= mergeBackoffQps ? 1.0 : (double) mergeBackoffQps / qps;
+                }
+            };
+        }
+        mergeRateLimiter = new MergeRateLimiter(mergeMaxMBPerSec, mergeMinMBPerSec, backoff);
+        logger.info("Segment merge pool size[{}] max[{}MB/s] min[{}MB/s] backoff qps[{}]", mergePoolSize, mergeMaxMBPerSec, mergeMinMBPerSec, mergeBackoffQps);
+
 		List<Collection> collectionList = collectionsConfig.getCollectionList();
 		for (int collectionInx = 0 ; collectionInx < collectionList.size(); collectionInx++) {
 			Collection collection = collectionList.get(collectionInx);
@@ -171,10 +216,10 @@ public class IRService extends AbstractService {
 			ClusterAlertService.getInstance().alert(e);
 		}
 
-		searchCache = new QueryCacheModule<String, Result>(environment, settings);
-		groupingCache = new QueryCacheModule<String, GroupResults>(environment, settings);
-		groupingDataCache = new QueryCacheModule<String, GroupsData>(environment, settings);
-		documentCache = new QueryCacheModule<String, Result>(environment, settings);
+		searchCache = new QueryCacheModule<String, Result>(environment, settings, QueryCacheWeighers.RESULT);
+		groupingCache = new QueryCacheModule<String, GroupResults>(environment, settings, QueryCacheWeighers.GROUP_RESULTS);
+		groupingDataCache = new QueryCacheModule<String, GroupsData>(environment, settings, QueryCacheWeighers.GROUPS_DATA);
+		documentCache = new QueryCacheModule<String, Result>(environment, settings, QueryCacheWeighers.RESULT);
 		try {
 			searchCache.load();
 			groupingCache.load();
@@ -222,6 +267,9 @@ public class IRService extends AbstractService {
 				collectionHandler = new CollectionHandler(collectionContext, analyzerFactoryManager);
 				collectionHandler.setQueryCounter(realtimeQueryStatisticsModule.getQueryCounter(collectionId));
                 collectionHandler.setSegmentDelayedCloseQueue(segmentDelayCloseQueue);
+                collectionHandler.setSearchExecutor(segmentSearchExecutor);
+                collectionHandler.setMergeExecutor(mergeExecutor);
+                collectionHandler.setMergeRateLimiter(mergeRateLimiter);
 				if(collectionContext.collectionConfig().getDataNodeList() != null 
 					&& collectionContext.collectionConfig().getDataNodeList().contains(environment.myNodeId())){
 					dataNodeCollectionIdSet.add(collectionId);
@@ -345,6 +393,9 @@ public class IRService extends AbstractService {
 				realtimeQueryStatisticsModule.registerQueryCount(collectionId);
 				collectionHandler.setQueryCounter(realtimeQueryStatisticsModule.getQueryCounter(collectionId));
 				collectionHandler.setSegmentDelayedCloseQueue(segmentDelayCloseQueue);
+				collectionHandler.setSearchExecutor(segmentSearchExecutor);
+				collectionHandler.setMergeExecutor(mergeExecutor);
+				collectionHandler.setMergeRateLimiter(mergeRateLimiter);
 				return collectionHandler;
 			}
 
@@ -417,6 +468,9 @@ public class IRService extends AbstractService {
 	public CollectionHandler loadCollectionHandler(CollectionContext collectionContext) throws IRException, SettingException {
 		CollectionHandler collectionHandler = new CollectionHandler(collectionContext, analyzerFactoryManager);
         collectionHandler.setSegmentDelayedCloseQueue(segmentDelayCloseQueue);
+        collectionHandler.setSearchExecutor(segmentSearchExecutor);
+        collectionHandler.setMergeExecutor(mergeExecutor);
+        collectionHandler.setMergeRateLimiter(mergeRateLimiter);
         return collectionHandler.load();
 	}
 
@@ -448,6 +502,15 @@ public class IRService extends AbstractService {
 		groupingDataCache.unload();
 		documentCache.unload();
 
+		if(segmentSearchExecutor != null) {
+			segmentSearchExecutor.shutdownNow();
+			segmentSearchExecutor = null;
+		}
+		if(mergeExecutor != null) {
+			mergeExecutor.shutdownNow();
+			mergeExecutor = null;
+		}
+
 		collectionHandlerMap.clear();
 		return true;
 	}
@@ -1,44 +1,51 @@
 package org.fastcatsearch.ir;
 
 import org.apache.commons.io.FileUtils;
-import org.fastcatsearch.cluster.ClusterUtils;
 import org.fastcatsearch.cluster.Node;
 import org.fastcatsearch.cluster.NodeJobResult;
 import org.fastcatsearch.cluster.NodeService;
+import org.fastcatsearch.control.ResultFuture;
+import org.fastcatsearch.env.Environment;
+import org.fastcatsearch.exception.FastcatSearchException;
+import org.fastcatsearch.ir.common.IRException;
+import org.fastcatsearch.ir.common.SettingException;
 import org.fastcatsearch.ir.config.CollectionContext;
-import org.fastcatsearch.job.indexing.NodeIndexDocumentFileJob;
+import org.fastcatsearch.ir.config.DataInfo;
+import org.fastcatsearch.ir.index.DeleteIdSet;
+import org.fastcatsearch.ir.search.CollectionHandler;
+import org.fastcatsearch.job.indexing.IndexingStopException;
+import org.fastcatsearch.job.indexing.NodeApplySegmentJob;
 import org.fastcatsearch.service.ServiceManager;
-import org.fastcatsearch.util.TimeBaseRollingDocumentLogger.LogFileStatus;
+import org.fastcatsearch.task.IndexFileTransfer;
+import org.fastcatsearch.util.DocumentWriteAheadLog;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.*;
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
-import java.util.concurrent.BlockingQueue;
 
 /**
  * Created by swsong on 2016. 3. 6..
  */
 public class IndexFireScheduleWorker extends Thread {
     private static final Logger logger = LoggerFactory.getLogger(IndexFireScheduleWorker.class);
+    private Environment environment;
     private String collectionId;
     private boolean isCanceled;
-    private BlockingQueue<LogFileStatus> fileQueue;
+    private DocumentWriteAheadLog documentLog;
     private int indexFileMaxCount; //동적색인 전달시 최대 문서집합 갯수.
     private long indexFileMaxSize; //동적색인 전달시 최대 문서집합 사이즈
     private long indexingPeriod;
-    private BufferedReader currentReader;
-    private LogFileStatus currentFileStatus;
 
-    private StringBuilder remnant; //쪼개진 json의 일부 
-
-    public IndexFireScheduleWorker(String collectionId, BlockingQueue<LogFileStatus> fileQueue, long indexingPeriod, int indexFileMaxCount, long indexFileMaxSize) {
+    public IndexFireScheduleWorker(Environment environment, String collectionId, DocumentWriteAheadLog documentLog, long indexingPeriod, int indexFileMaxCount, long indexFileMaxSize) {
         super("IndexFireScheduler-" + collectionId);
+        this.environment = environment;
         this.collectionId = collectionId;
-        this.fileQueue = fileQueue;
+        this.documentLog = documentLog;
         this.indexingPeriod = indexingPeriod;
         this.indexFileMaxCount = indexFileMaxCount;
         this.indexFileMaxSize = indexFileMaxSize;
@@ -47,121 +54,6 @@ public class IndexFireScheduleWorker extends Thread {
     public void requestCancel() {
         this.interrupt();
         isCanceled = true;
-        if (currentReader != null) {
-            try {
-                currentReader.close();
-            } catch (IOException e) {
-                //ignore
-            }
-        }
-    }
-
-
-    public String makeDocuments(List<File> toBeDeleted) {
-
-        long totalSize = 0;
-        int count = 0;
-        StringBuilder documentsBuilder = null;
-
-        try {
-            while (!isCanceled) {
-
-                if (currentReader == null) {
-                    LogFileStatus logFileStatus = fileQueue.peek();
-
-                    if (logFileStatus == null) {
-                        //더이상 들어온 파일이 없다면 만들어둔 문서만 보낸다.
-                        if (documentsBuilder != null && documentsBuilder.length() > 0) {
-                            logger.debug("[{}] sendDocuments2 count[{}] size[{}]", collectionId, count, org.fastcatsearch.ir.util.Formatter.getFormatSize(totalSize));
-                            return documentsBuilder.toString();
-                        } else {
-                            return null;
-                        }
-                    }
-                    File file = logFileStatus.getFile();
-                    if (!file.exists()) {
-                        //존재하지 않는다면 누군가 지운것임. 다음 파일을 확인한다.
-                        fileQueue.poll(); //버린다
-                        continue;
-                    }
-                    currentReader = new BufferedReader(new InputStreamReader(new FileInputStream(file)));
-                    logger.debug("Open indexlog {}", file.getName());
-                    currentFileStatus = logFileStatus;
-                }
-
-                int tryCount = 0;
-                while (!isCanceled) {
-                    String docRequest = currentReader.readLine();
-                    if (docRequest == null || docRequest.length() == 0) {
-                        //쓰고 있는 중인지, 닫힌건지 판단필요.
-                        if (currentFileStatus.isClosed()) {
-                            //Writer가 파일을 닫았으므로, reader도 닫는다.
-                            currentReader.close();
-                            currentReader = null;
-                            //다쓴 파일은 삭제한다.
-                            toBeDeleted.add(currentFileStatus.getFile());
-                            fileQueue.poll(); //뽑아서 버린다
-                            currentFileStatus = null;
-                            //다음 파일을 확인한다.
-                            break;
-                        } else {
-                            //파일이 닫힐때 까지 무한 대기 할수 없으므로, 1초이내 안들어오면 보낸다.
-                            logger.trace("[{}] reading retry..", collectionId);
-                            try {
-                                tryCount++;
-                                Thread.sleep(250);
-                            } catch (InterruptedException ignore) {
-                            }
-
-                            if (tryCount >= 4) {
-                                if (documentsBuilder != null && documentsBuilder.length() > 0) {
-                                    logger.debug("[{}] sendDocuments3 count[{}] size[{}]", collectionId, count, org.fastcatsearch.ir.util.Formatter.getFormatSize(totalSize));
-                                    return documentsBuilder.toString();
-                                }
-                            }
-                        }
-                    } else {
-
-                        //Logger에서 bufferedWriter.flush를 해도 실제로 fileSystem에서 기록되는 것은 보장되지 않으므로 json이 끊어질 수 있다.
-                        //그렇기 때문에 이어 붙여준다.
-                        char lastChar = docRequest.charAt(docRequest.length() - 1);
-                        if (lastChar != '}') {
-                            if (remnant != null) {
-                                remnant.append(docRequest);
-                            } else {
-                                remnant = new StringBuilder(docRequest);
-                            }
-                            //닫히지 않은 JSON은 다시 읽어서 붙여준다.
-                            continue;
-                        } else {
-                            if (remnant != null) {
-                                remnant.append(docRequest);
-                                docRequest = remnant.toString();
-                                remnant = null;
-                            }
-                        }
-
-                        if (documentsBuilder == null) {
-                            documentsBuilder = new StringBuilder();
-                        }
-                        documentsBuilder.append(docRequest).append('\n');
-                        totalSize += (docRequest.length() + 1) * 2;
-                        count++;
-                        //0으로 만들어 주니 너무 많이 길어진다.
-//                        tryCount = 0;
-                        //보낼 사이즈가 찼다면..
-                        if ((indexFileMaxSize > 0 && totalSize >= indexFileMaxSize) || (indexFileMaxCount > 0 && count >= indexFileMaxCount)) {
-                            logger.debug("[{}] sendDocuments1 count[{}] size[{}]", collectionId, count, org.fastcatsearch.ir.util.Formatter.getFormatSize(totalSize));
-                            return documentsBuilder.toString();
-                        }
-                    }
-                }//while
-            }
-        } catch (IOException e) {
-            logger.error("", e);
-        }
-        //IO 에러시에는 null을 리턴한다.
-        return null;
     }
 
     @Override
@@ -169,17 +61,25 @@ public class IndexFireScheduleWorker extends Thread {
 
         logger.info("[{}] {} is started!", collectionId, getClass().getName());
         //절대죽어서는 아니되오.
-        List<File> toBeDeletedFiles = new ArrayList<File>();
         while (!isCanceled) {
             try {
-                toBeDeletedFiles.clear();
-                String documents = makeDocuments(toBeDeletedFiles);
-                if (documents != null) {
-                    sendDocuments(documents);
-                }
-                for (File f : toBeDeletedFiles) {
-                    //전송이 잘 되었다면 실제로 지운다.
-                    FileUtils.deleteQuietly(f);
+                //로그에는 레코드 단위로 기록되어 있으므로 기록된 만큼 바로 꺼내어 색인한다.
+                List<DocumentWriteAheadLog.Record> documents = documentLog.read(indexFileMaxCount, indexFileMaxSize);
+                if (documents.size() > 0) {
+                    logger.debug("[{}] sendDocuments count[{}]", collectionId, documents.size());
+                    try {
+                        sendDocuments(documents);
+                    } catch (Throwable t) {
+                        //적용하지 못한 문서는 다음 주기에 다시 읽는다.
+                        documentLog.rewind();
+                        throw t;
+                    }
+                    //전송이 잘 되었다면 읽은 위치를 저장한다.
+                    documentLog.commitRead();
+                    if (indexFileMaxCount > 0 && documents.size() >= indexFileMaxCount) {
+                        //남은 문서가 더 있을수 있으므로 기다리지 않는다.
+                        continue;
+                    }
                 }
             } catch (Throwable t) {
                 logger.error("", t);
@@ -194,10 +94,16 @@ public class IndexFireScheduleWorker extends Thread {
         logger.info("[{}] {} is terminated!", collectionId, getClass().getName());
     }
 
-    private void sendDocuments(String documents) {
+    /**
+     * 색인노드에서 문서를 한번만 분석, 색인하여 세그먼트를 만들고, 변경되지 않는 세그먼트 파일과 삭제목록만 각 노드로 전달한다.
+     * 각 노드는 전달받은 세그먼트를 applyNewSegment 로 적용만 하므로 분석 CPU를 중복사용하지 않는다.
+     * 적용시 세그먼트 ID는 각 노드의 다음 세그먼트 ID로 바뀌므로 노드마다 다를수 있다.
+     */
+    private void sendDocuments(List<DocumentWriteAheadLog.Record> documents) throws IRException, SettingException, IndexingStopException, IOException, FastcatSearchException {
         NodeService nodeService = ServiceManager.getInstance().getService(NodeService.class);
         IRService irService = ServiceManager.getInstance().getService(IRService.class);
-        CollectionContext collectionContext = irService.collectionContext(collectionId);
+        CollectionHandler collectionHandler = irService.collectionHandler(collectionId);
+        CollectionContext collectionContext = collectionHandler.collectionContext();
 
         Set<String> nodeSet = new HashSet<String>();
         nodeSet.addAll(collectionContext.collectionConfig().getDataNodeList());
@@ -206,14 +112,91 @@ public class IndexFireScheduleWorker extends Thread {
         List<Node> nodeList = new ArrayList<Node>(nodeService.getNodeById(nodeIdList));
 
         String documentId = String.valueOf(System.nanoTime());
-        NodeIndexDocumentFileJob indexFileDocumentJob = new NodeIndexDocumentFileJob(collectionId, documentId, documents);
         long st = System.nanoTime();
-        NodeJobResult[] nodeResultList = ClusterUtils.sendJobToNodeList(indexFileDocumentJob, nodeService, nodeList, true);
-        logger.debug("[{}] Send Indexing files. time : {}ms", collectionId, (System.nanoTime() - st) / 1000000);
-        //여기서 문서전송이 모두 끝날때 까지 대기해야 문서순서가 바뀌지 않음.
+        CollectionDynamicIndexer indexer = new CollectionDynamicIndexer(documentId, collectionHandler);
+        try {
+            indexer.indexDocuments(documents);
+        } catch (Exception e) {
+            //에러가 발생하기 전까지 색인한 문서는 적용한다.
+            logger.error("[" + collectionId + "] dynamic index error!", e);
+        }
+        DataInfo.SegmentInfo segmentInfo = indexer.close();
+        File segmentDir = indexer.getSegmentDir();
+        DeleteIdSet deleteIdSet = indexer.getDeleteIdSet();
+        if (segmentInfo.getDocumentCount() == 0 || segmentInfo.getLiveCount() <= 0) {
+            logger.info("[{}] Delete segment dir due to no documents = {}", collectionId, segmentDir.getAbsolutePath());
+            FileUtils.deleteDirectory(segmentDir);
+        }
+        //추가문서가 있거나, 또는 삭제문서가 있어야 적용을 한다.
+        if (segmentInfo.getLiveCount() <= 0 && deleteIdSet.size() == 0) {
+            return;
+        }
+        logger.debug("[{}] Build segment {}. time : {}ms", collectionId, segmentInfo, (System.nanoTime() - st) / 1000000);
+
+        List<Node> applyNodeList = nodeList;
+        if (segmentInfo.getLiveCount() > 0) {
+            st = System.nanoTime();
+            boolean[] transferResult = new IndexFileTransfer(environment).transferDirectory(segmentDir, nodeService, nodeList);
+            applyNodeList = new ArrayList<Node>();
+            for (int i = 0; i < nodeList.size(); i++) {
+                Node node = nodeList.get(i);
+                if (nodeService.isMyNode(node) || transferResult[i]) {
+                    applyNodeList.add(node);
+                } else {
+                    //세그먼트를 받지 못한 노드는 이후 문서가 어긋나므로 색인파일을 다시 복사해야 한다.
+                    logger.error("[{}] Fail to send segment {} to {}. The node needs to copy index again.", collectionId, segmentInfo.getId(), node);
+                }
+            }
+            logger.debug("[{}] Send segment files. time : {}ms", collectionId, (System.nanoTime() - st) / 1000000);
+        }
+
+        st = System.nanoTime();
+        NodeJobResult[] nodeResultList = applySegment(nodeService, applyNodeList, segmentInfo, deleteIdSet);
+        logger.debug("[{}] Apply segment. time : {}ms", collectionId, (System.nanoTime() - st) / 1000000);
+        //여기서 적용이 모두 끝날때 까지 대기해야 세그먼트 순서가 바뀌지 않음.
         for (NodeJobResult result : nodeResultList) {
-            logger.debug("[{}] Indexing request done > {} : Node {} > {}", collectionId, documentId, result.node().id(), result.result());
+            if (result.isSuccess()) {
+                logger.debug("[{}] Apply segment done > {} : Node {} > {}", collectionId, segmentInfo.getId(), result.node().id(), result.result());
+            } else {
+                logger.error("[{}] Apply segment fail > {} : Node {} > {}", collectionId, segmentInfo.getId(), result.node().id(), result.result());
+            }
+        }
+    }
+
+    /*
+     * applyNewSegment 는 SegmentInfo 의 id 와 생성시각을 바꾸므로 노드마다 복사본으로 작업을 만든다.
+     * 자신에게 적용하는 작업이 원격노드로 보낼 삭제목록을 읽는 동안 바꾸지 않도록, 원격노드로 먼저 전송하고 마지막에 자신에게 적용한다.
+     */
+    private NodeJobResult[] applySegment(NodeService nodeService, List<Node> nodeList, DataInfo.SegmentInfo segmentInfo, DeleteIdSet deleteIdSet) {
+        List<Node> orderedNodeList = new ArrayList<Node>(nodeList.size());
+        Node myNode = null;
+        for (Node node : nodeList) {
+            if (nodeService.isMyNode(node)) {
+                myNode = node;
+            } else {
+                orderedNodeList.add(node);
+            }
+        }
+        if (myNode != null) {
+            orderedNodeList.add(myNode);
+        }
+        List<ResultFuture> resultFutureList = new ArrayList<ResultFuture>(orderedNodeList.size());
+        for (Node node : orderedNodeList) {
+            NodeApplySegmentJob applySegmentJob = new NodeApplySegmentJob(collectionId, segmentInfo.copy(), deleteIdSet);
+            resultFutureList.add(nodeService.sendRequest(node, applySegmentJob));
+        }
+        NodeJobResult[] resultList = new NodeJobResult[orderedNodeList.size()];
+        for (int i = 0; i < orderedNodeList.size(); i++) {
+            ResultFuture resultFuture = resultFutureList.get(i);
+            if (resultFuture != null) {
+                Object result = resultFuture.take();
+                resultList[i] = new NodeJobResult(orderedNodeList.get(i), result, resultFuture.isSuccess());
+            } else {
+                //네트워크 장애 등으로 전송실패.
+                resultList[i] = new NodeJobResult(orderedNodeList.get(i), null, false);
+            }
         }
+        return resultList;
     }
 
 }
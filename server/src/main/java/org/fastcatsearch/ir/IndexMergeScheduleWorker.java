@@ -1,7 +1,12 @@
 package org.fastcatsearch.ir;
 
+import org.apache.commons.io.FileUtils;
+import org.fastcatsearch.control.ExecutorMaxCapacityExceedException;
 import org.fastcatsearch.control.JobService;
+import org.fastcatsearch.control.ResultFuture;
 import org.fastcatsearch.ir.config.DataInfo;
+import org.fastcatsearch.ir.merge.MergeCandidate;
+import org.fastcatsearch.ir.merge.MergePolicy;
 import org.fastcatsearch.ir.search.CollectionHandler;
 import org.fastcatsearch.ir.search.SegmentReader;
 import org.fastcatsearch.job.indexing.LocalDocZeroDeleteJob;
@@ -10,9 +15,11 @@ import org.fastcatsearch.service.ServiceManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
 import java.util.*;
 
 /**
+ * 주기적으로 세그먼트를 확인하여 살아있는 문서가 없는 세그먼트는 제거하고, MergePolicy 가 고른 세그먼트 묶음을 머징한다.
  * Created by swsong on 2016. 3. 4..
  */
 public class IndexMergeScheduleWorker extends Thread {
@@ -24,9 +31,14 @@ public class IndexMergeScheduleWorker extends Thread {
 
     private long scheduleDelayInMS;
 
-    private static float DELETE_ALLOW_RATIO = 0.4f;
+    private MergePolicy mergePolicy;
 
-    private static final int MERGE_MIN_SIZE = 4;
+    //스케쥴러가 시작한 머징들. 세그먼트가 아직 머징중이면 진행중인 머징으로 센다.
+    //작업이 거절되면 결과 listener 에서 지우므로 동기화된 리스트를 사용한다.
+    private List<Set<String>> runningMerges = Collections.synchronizedList(new ArrayList<Set<String>>());
+
+    //세그먼트 디렉토리 크기. 세그먼트는 바뀌지 않으므로 한번만 계산한다.
+    private Map<String, Long> segmentSizeMap = new HashMap<String, Long>();
 
     private CollectionHandler collectionHandler;
 
@@ -35,11 +47,12 @@ public class IndexMergeScheduleWorker extends Thread {
         isCanceled = true;
     }
 
-    public IndexMergeScheduleWorker(String collectionId, long scheduleDelayInMS) {
+    public IndexMergeScheduleWorker(String collectionId, long scheduleDelayInMS, MergePolicy mergePolicy) {
         super("IndexMergeScheduler-" + collectionId);
         setDaemon(true);
         this.collectionId = collectionId;
         this.scheduleDelayInMS = scheduleDelayInMS;
+        this.mergePolicy = mergePolicy;
     }
 
     @Override
@@ -52,13 +65,8 @@ public class IndexMergeScheduleWorker extends Thread {
                 logger.trace("[{}] Check merging....", collectionId);
                 Collection<SegmentReader> segmentReaders = collectionHandler.segmentReaders();
                 List<String> zeroDocs = new ArrayList<String>();
-                List<String> merge100 = new ArrayList<String>();
-                List<String> merge1K = new ArrayList<String>();
-                List<String> merge10K = new ArrayList<String>();
-                List<String> merge100K = new ArrayList<String>();
-                List<String> merge1M = new ArrayList<String>();
-                List<String> merge5M = new ArrayList<String>();
-                List<String> mergeOver5M = new ArrayList<String>();
+                List<MergeCandidate> candidates = new ArrayList<MergeCandidate>();
+                Set<String> segmentIdSet = new HashSet<String>();
 
                 for(SegmentReader segmentReader : segmentReaders) {
                     DataInfo.SegmentInfo segmentInfo = segmentReader.segmentInfo();
@@ -66,90 +74,31 @@ public class IndexMergeScheduleWorker extends Thread {
                     int deleteSize = segmentInfo.getDeleteCount();
                     int liveSize = docSize - deleteSize;
                     String segmentId = segmentInfo.getId();
+                    segmentIdSet.add(segmentId);
 
                     //이미 머징중인 세그먼트라면 통과한다.
                     if (collectionHandler.isMerging(segmentId)) {
                         continue;
                     }
 
-                    //크기가 비슷한 것끼리 묶는다.
-                    //100, 1만, 10만, 100만, 1000만, 그이상 구간을 둔다
                     //머징은 문서갯수가 0보다 큰넘만..
                     if(liveSize <= 0) {
                         zeroDocs.add(segmentId);
                     } else {
-                        if (liveSize < 100) {
-                            // 1~100
-                            merge100.add(segmentId);
-                        } else if (liveSize < 1000) {
-                            // 100 ~ 1000
-                            merge1K.add(segmentId);
-                        } else if (liveSize < 10 * 1000) {
-                            // 1000 ~ 1만
-                            merge10K.add(segmentId);
-                        } else if (liveSize < 100 * 1000) {
-                            // 1만 ~ 10만
-                            merge100K.add(segmentId);
-                        } else if (liveSize < 1000 * 1000) {
-                            // 10만 ~ 100만
-                            merge1M.add(segmentId);
-                        } else if (liveSize < 5 * 1000 * 1000) {
-                            // 100만 ~ 500만
-                            merge5M.add(segmentId);
-                        } else if (liveSize >= 5 * 1000 * 1000) {
-                            // 500만 이상
-                            if (deleteSize >= docSize * DELETE_ALLOW_RATIO) {
-                                //삭제가 40%이상일때만 머징.
-                                mergeOver5M.add(segmentId);
-                            }
-                        }
+                        candidates.add(new MergeCandidate(segmentId, docSize, deleteSize, segmentSize(segmentId, segmentReader.segmentDir())));
                     }
                 }
+                segmentSizeMap.keySet().retainAll(segmentIdSet);
+
                 logger.trace("[{}] Check merging start....", collectionId);
                 if(zeroDocs.size() > 0) {
                     Set<String> zeroSegmentIdSet = new HashSet<String>();
                     zeroSegmentIdSet.addAll(zeroDocs);
                     startRemoveJob(zeroSegmentIdSet);
                 }
-                if (mergeOver5M.size() > 0) {
-                    Set<String> mergeSegmentIdSet = new HashSet<String>();
-                    mergeSegmentIdSet.addAll(mergeOver5M);
-                    startMergingJob(mergeSegmentIdSet);
-                }
-
-                if (merge5M.size() >= MERGE_MIN_SIZE) {
-                    Set<String> mergeSegmentIdSet = new HashSet<String>();
-                    mergeSegmentIdSet.addAll(merge5M);
-                    startMergingJob(mergeSegmentIdSet);
-                }
-
-                if (merge1M.size() >= MERGE_MIN_SIZE) {
-                    Set<String> mergeSegmentIdSet = new HashSet<String>();
-                    mergeSegmentIdSet.addAll(merge1M);
-                    startMergingJob(mergeSegmentIdSet);
-                }
-
-                if (merge100K.size() >= MERGE_MIN_SIZE) {
-                    Set<String> mergeSegmentIdSet = new HashSet<String>();
-                    mergeSegmentIdSet.addAll(merge100K);
-                    startMergingJob(mergeSegmentIdSet);
-                }
 
-                if (merge10K.size() >= MERGE_MIN_SIZE) {
-                    Set<String> mergeSegmentIdSet = new HashSet<String>();
-                    mergeSegmentIdSet.addAll(merge10K);
-                    startMergingJob(mergeSegmentIdSet);
-                }
-
-                if (merge1K.size() >= MERGE_MIN_SIZE) {
-                    Set<String> mergeSegmentIdSet = new HashSet<String>();
-                    mergeSegmentIdSet.addAll(merge1K);
-                    //100도 함께 추가한다.
-                    mergeSegmentIdSet.addAll(merge100);
-                    startMergingJob(mergeSegmentIdSet);
-                } else if (merge100.size() >= MERGE_MIN_SIZE) {
-                    Set<String> mergeSegmentIdSet = new HashSet<String>();
-                    mergeSegmentIdSet.addAll(merge100);
+                List<Set<String>> merges = mergePolicy.findMerges(candidates, runningMergeCount());
+                for (Set<String> mergeSegmentIdSet : merges) {
                     startMergingJob(mergeSegmentIdSet);
                 }
                 logger.trace("[{}] Check merging end....", collectionId);
@@ -162,6 +111,34 @@ public class IndexMergeScheduleWorker extends Thread {
         }
     }
 
+    private int runningMergeCount() {
+        synchronized (runningMerges) {
+            Iterator<Set<String>> iterator = runningMerges.iterator();
+            while (iterator.hasNext()) {
+                boolean isRunning = false;
+                for (String segmentId : iterator.next()) {
+                    if (collectionHandler.isMerging(segmentId)) {
+                        isRunning = true;
+                        break;
+                    }
+                }
+                if (!isRunning) {
+                    iterator.remove();
+                }
+            }
+            return runningMerges.size();
+        }
+    }
+
+    private long segmentSize(String segmentId, File segmentDir) {
+        Long size = segmentSizeMap.get(segmentId);
+        if (size == null) {
+            size = segmentDir.exists() ? FileUtils.sizeOfDirectory(segmentDir) : 0L;
+            segmentSizeMap.put(segmentId, size);
+        }
+        return size;
+    }
+
     private void startRemoveJob(Set<String> zeroSegmentIdSet) {
         LocalDocZeroDeleteJob deleteJob = new LocalDocZeroDeleteJob(collectionId, zeroSegmentIdSet);
         deleteJob.setNoResult();
@@ -169,12 +146,26 @@ public class IndexMergeScheduleWorker extends Thread {
         ServiceManager.getInstance().getService(JobService.class).offer(deleteJob);
     }
 
-    private void startMergingJob(Set<String> mergeSegmentIdSet) {
+    private void startMergingJob(final Set<String> mergeSegmentIdSet) {
         String documentId = String.valueOf(System.nanoTime());
         LocalIndexMergingJob mergingJob = new LocalIndexMergingJob(collectionId, documentId, mergeSegmentIdSet);
-        mergingJob.setNoResult();
         collectionHandler.putMerging(mergeSegmentIdSet);
+        runningMerges.add(mergeSegmentIdSet);
         logger.info("[{}] start merging job {}", collectionId, mergeSegmentIdSet);
-        ServiceManager.getInstance().getService(JobService.class).offer(mergingJob);
+        ResultFuture resultFuture = ServiceManager.getInstance().getService(JobService.class).offer(mergingJob);
+        //INDEXING 레인이 가득차서 작업이 거절되면 job 이 실행되지 않으므로 머징표시를 여기서 풀어준다.
+        //실행중 실패는 job 에서 풀어주므로 거절만 처리한다.
+        resultFuture.addListener(new ResultFuture.Listener() {
+            @Override
+            public void onResult(Object result, boolean isSuccess) {
+                if (!isSuccess && result instanceof ExecutorMaxCapacityExceedException) {
+                    logger.warn("[{}] merging job is rejected {}", collectionId, mergeSegmentIdSet);
+                    for (String segmentId : mergeSegmentIdSet) {
+                        collectionHandler.finishMerging(segmentId);
+                    }
+                    runningMerges.remove(mergeSegmentIdSet);
+                }
+            }
+        });
     }
 }
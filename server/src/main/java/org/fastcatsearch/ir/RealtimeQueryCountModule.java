@@ -1,10 +1,10 @@
 package org.fastcatsearch.ir;
 
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.fastcatsearch.env.Environment;
 import org.fastcatsearch.module.AbstractModule;
@@ -16,6 +16,7 @@ public class RealtimeQueryCountModule extends AbstractModule {
 
 	private static final long sinkPeriod = 1000L; //통계를 0으로 만드는 주기.
 	private Timer timer;
+	//sink 타이머와 머징 backoff 가 등록/삭제중에도 순회하므로 ConcurrentHashMap 을 사용한다.
 	private Map<String, AsynchronousCounter> statisticsMap;
 	
 	//정해진 주기마다 통계를 0으로 만든다.
@@ -39,7 +40,7 @@ public class RealtimeQueryCountModule extends AbstractModule {
 	
 	@Override
 	protected boolean doLoad() throws ModuleException {
-		statisticsMap = new HashMap<String, AsynchronousCounter>();
+		statisticsMap = new ConcurrentHashMap<String, AsynchronousCounter>();
 		timer = new Timer();
 		timer.schedule(new StatisticsSinkTask(), sinkPeriod, sinkPeriod);
 		return true;
@@ -53,9 +54,7 @@ public class RealtimeQueryCountModule extends AbstractModule {
 	}
 
 	public void registerQueryCount(String collectionId){
-		synchronized (statisticsMap) {
-			statisticsMap.put(collectionId, new AsynchronousCounter());
-		}
+		statisticsMap.put(collectionId, new AsynchronousCounter());
 	}
 	public boolean incrementQueryCount(String collectionId){
 		AsynchronousCounter counter = statisticsMap.get(collectionId);
@@ -91,9 +90,7 @@ public class RealtimeQueryCountModule extends AbstractModule {
 	}
 	
 	public void removeQueryCount(String collectionId){
-		synchronized (statisticsMap) {
-			statisticsMap.remove(collectionId);
-		}
+		statisticsMap.remove(collectionId);
 	}
 	
 	public Set<Map.Entry<String, AsynchronousCounter>> statisticsEntrySet(){
@@ -18,6 +18,7 @@ import org.fastcatsearch.service.ServiceManager;
 public class CacheServiceRestartJob extends Job{
 	private static final long serialVersionUID = -720747639860359291L;
 	private int delay;
+	private String collectionId;
 	private static Object globalLock = new Object();
 	public CacheServiceRestartJob(){ 
 		delay = 1000; //1초.
@@ -27,6 +28,14 @@ public class CacheServiceRestartJob extends Job{
 		this.delay = delay;
 	}
 	
+	/**
+	 * 컬렉션의 캐시만 지운다. collectionId가 null이면 모든 캐시를 비운다.
+	 * */
+	public CacheServiceRestartJob(String collectionId, int delay){ 
+		this.collectionId = collectionId;
+		this.delay = delay;
+	}
+	
 	@Override
 	public JobResult doRun() {
 		try {
@@ -37,6 +46,13 @@ public class CacheServiceRestartJob extends Job{
 		
 		IRService irService = ServiceManager.getInstance().getService(IRService.class);
 		
+		if(collectionId != null) {
+			irService.searchCache().invalidate(collectionId);
+			irService.groupingCache().invalidate(collectionId);
+			irService.documentCache().invalidate(collectionId);
+			return new JobResult(true);
+		}
+		
 		synchronized (globalLock) {
 			try {
 				irService.searchCache().reset();
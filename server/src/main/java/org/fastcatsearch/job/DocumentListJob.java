@@ -86,7 +86,7 @@ public class DocumentListJob extends Job {
 //				result = collectionHandler.searcher().listDocument(collection, start, rows);
 
             if(!noCache){
-                irService.documentCache().put(cacheKey, result);
+                irService.documentCache().put(cacheKey, result, collection);
             }
         }
 //			long st = System.currentTimeMillis();
@@ -19,6 +19,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 import org.fastcatsearch.alert.ClusterAlertService;
 import org.fastcatsearch.control.JobExecutor;
+import org.fastcatsearch.control.JobLane;
 import org.fastcatsearch.env.Environment;
 import org.fastcatsearch.error.SearchAbortError;
 import org.fastcatsearch.error.SearchError;
@@ -134,6 +135,13 @@ public abstract class Job implements Runnable, Serializable {
 		return noResult;
 	}
 
+	/**
+	 * 작업이 실행될 쓰레드풀 레인. 기본은 관리작업 레인이며 검색, 색인작업은 재정의한다.
+	 * */
+	public JobLane lane() {
+		return JobLane.BACKGROUND;
+	}
+
 	public long jobStartTime() {
 		return startTime;
 	}
@@ -148,12 +156,19 @@ public abstract class Job implements Runnable, Serializable {
 
 	public abstract JobResult doRun() throws FastcatSearchException;
 
+	/**
+	 * doRun 이 이 객체를 리턴하면 결과를 바로 셋팅하지 않는다.
+	 * 다른 노드의 결과를 기다리지 않고 쓰레드를 반환하는 작업은 나중에 asyncResult 또는 asyncError 로 결과를 전달해야 한다.
+	 * */
+	protected static final JobResult ASYNC_RESULT = new JobResult();
+
 	static AtomicInteger count = new AtomicInteger();
 
 	public final void run() {
 		startTime = System.currentTimeMillis();
 		Object result = null;
 		boolean isSuccess = false;
+		boolean isAsync = false;
 		try {
 			if (this instanceof MasterNodeJob) {
 				if (!environment.isMasterNode()) {
@@ -164,7 +179,9 @@ public abstract class Job implements Runnable, Serializable {
 			
 			JobResult jobResult = doRun();
 			
-			if(jobResult != null) {
+			if (jobResult == ASYNC_RESULT) {
+				isAsync = true;
+			} else if(jobResult != null) {
 				result = jobResult.result;
 				isSuccess = jobResult.isSuccess;
 				if (result != null && result instanceof Throwable) {
@@ -177,28 +194,50 @@ public abstract class Job implements Runnable, Serializable {
 				logger.error("## 결과에 jobId가 없습니다. job={}, result={}", this, jobResult);
 				throw new FastcatSearchException("ERR-00110");
 			}
-        } catch (SearchAbortError e) {
-            result = e;
-            isSuccess = false;
-            logger.debug("search aborted by timeout " + getClass().getName() + " " + (args != null ? args : ""));
-        } catch (SearchError e) {
-            //검색에러는 따로 시스템에러 처리하지 않는다.
-            result = e;
-            isSuccess = false;
 		} catch (Throwable e) {
 			result = e;
 			isSuccess = false;
-			logger.error("error at " + getClass().getName() + " " + args, e);
-			ClusterAlertService clusterAlertService = ServiceManager.getInstance().getService(ClusterAlertService.class);
-			clusterAlertService.alert(e);
+			isAsync = false;
+			handleError(e);
 		} finally {
 			//결과셋팅.
-			jobExecutor.result(this, result, isSuccess);
-			endTime = System.currentTimeMillis();
+			if (!isAsync) {
+				jobExecutor.result(this, result, isSuccess);
+				endTime = System.currentTimeMillis();
+			}
 		}
 
 	}
 
+	/**
+	 * ASYNC_RESULT 를 리턴한 작업의 결과를 전달한다.
+	 * */
+	protected void asyncResult(JobResult jobResult) {
+		jobExecutor.result(this, jobResult.result, jobResult.isSuccess);
+		endTime = System.currentTimeMillis();
+	}
+
+	/**
+	 * ASYNC_RESULT 를 리턴한 작업의 에러를 전달한다. run()에서 발생한 에러와 동일하게 처리된다.
+	 * */
+	protected void asyncError(Throwable e) {
+		handleError(e);
+		jobExecutor.result(this, e, false);
+		endTime = System.currentTimeMillis();
+	}
+
+	private void handleError(Throwable e) {
+		if (e instanceof SearchAbortError) {
+			logger.debug("search aborted by timeout " + getClass().getName() + " " + (args != null ? args : ""));
+		} else if (e instanceof SearchError) {
+			//검색에러는 따로 시스템에러 처리하지 않는다.
+		} else {
+			logger.error("error at " + getClass().getName() + " " + args, e);
+			ClusterAlertService clusterAlertService = ServiceManager.getInstance().getService(ClusterAlertService.class);
+			clusterAlertService.alert(e);
+		}
+	}
+
 	protected void logError(Throwable e) {
 		StringWriter sw = new StringWriter();
 		PrintWriter writer = new PrintWriter(sw);
@@ -15,6 +15,7 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ThreadPoolExecutor;
 
+import org.fastcatsearch.control.JobLaneExecutor;
 import org.fastcatsearch.control.JobService;
 import org.fastcatsearch.exception.FastcatSearchException;
 
@@ -27,20 +28,24 @@ public class MonitorJobExecutorJob extends Job{
 	@Override
 	public JobResult doRun() throws FastcatSearchException {
 		
-		ThreadPoolExecutor executor = ((JobService)getJobExecutor()).getJobExecutor();
 		Map<String, String> result = new HashMap<String, String>();
 		
-		int d = executor.getActiveCount();
-		result.put("ActiveCount", Integer.toString(d));
-		
-		d = executor.getPoolSize();
-		result.put("PoolSize", Integer.toString(d));
-		
-		d = executor.getMaximumPoolSize();
-		result.put("MaximumPoolSize", Integer.toString(d));
-		
-		long l = executor.getCompletedTaskCount();
-		result.put("CompletedTaskCount", Long.toString(l));
+		for(JobLaneExecutor laneExecutor : ((JobService)getJobExecutor()).getLaneExecutors()){
+			ThreadPoolExecutor executor = laneExecutor.executor();
+			String prefix = laneExecutor.lane().settingName() + ".";
+			
+			int d = executor.getActiveCount();
+			result.put(prefix + "ActiveCount", Integer.toString(d));
+			
+			d = executor.getPoolSize();
+			result.put(prefix + "PoolSize", Integer.toString(d));
+			
+			d = executor.getMaximumPoolSize();
+			result.put(prefix + "MaximumPoolSize", Integer.toString(d));
+			
+			long l = executor.getCompletedTaskCount();
+			result.put(prefix + "CompletedTaskCount", Long.toString(l));
+		}
 		
 		return new JobResult(result);
 	}
@@ -0,0 +1,54 @@
+package org.fastcatsearch.job.cluster;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.fastcatsearch.common.io.Streamable;
+import org.fastcatsearch.control.JobLane;
+import org.fastcatsearch.exception.FastcatSearchException;
+import org.fastcatsearch.ir.io.DataInput;
+import org.fastcatsearch.ir.io.DataOutput;
+import org.fastcatsearch.job.Job;
+import org.fastcatsearch.transport.vo.StreamableLong;
+
+/**
+ * 노드에 기록된 파일의 길이를 알려준다. 파일이 없으면 0.
+ * 연결이 끊겨 중단된 파일전송을 이어서 보낼 위치를 찾는데 사용한다.
+ * */
+public class NodeFileLengthJob extends Job implements Streamable {
+
+	private static final long serialVersionUID = -3124579532210470785L;
+
+	private String filePath;
+
+	public NodeFileLengthJob() {
+	}
+
+	public NodeFileLengthJob(String filePath) {
+		this.filePath = filePath;
+	}
+
+	@Override
+	public JobLane lane() {
+		return JobLane.INTERNAL;
+	}
+
+	@Override
+	public JobResult doRun() throws FastcatSearchException {
+		File file = environment.filePaths().makePath(filePath).file();
+		long length = file.isFile() ? file.length() : 0;
+		logger.debug("File length {} >> {}", file.getAbsolutePath(), length);
+		return new JobResult(new StreamableLong(length));
+	}
+
+	@Override
+	public void readFrom(DataInput input) throws IOException {
+		filePath = input.readString();
+	}
+
+	@Override
+	public void writeTo(DataOutput output) throws IOException {
+		output.writeString(filePath);
+	}
+
+}
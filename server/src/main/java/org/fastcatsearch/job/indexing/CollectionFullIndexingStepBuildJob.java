@@ -146,7 +146,7 @@ public class CollectionFullIndexingStepBuildJob extends IndexingJob {
 			/*
 			 * 캐시 클리어.
 			 */
-			getJobExecutor().offer(new CacheServiceRestartJob());
+			getJobExecutor().offer(new CacheServiceRestartJob(collectionId, 1000));
 
 			IndexStatus indexStatus = collectionContext.indexStatus().getFullIndexStatus();
 			indexingLogger.info("[{}] Collection Full Indexing Finished! {} time = {}", collectionId, indexStatus, duration);
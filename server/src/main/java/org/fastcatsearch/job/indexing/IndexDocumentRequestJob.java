@@ -1,6 +1,7 @@
 package org.fastcatsearch.job.indexing;
 
 import org.fastcatsearch.common.io.Streamable;
+import org.fastcatsearch.control.JobLane;
 import org.fastcatsearch.exception.FastcatSearchException;
 import org.fastcatsearch.http.action.service.indexing.IndexDocumentsAction;
 import org.fastcatsearch.http.action.service.indexing.JSONRequestReader;
@@ -21,6 +22,11 @@ import java.util.List;
 public class IndexDocumentRequestJob extends Job implements Streamable {
 	private static final long serialVersionUID = -9030366773507675894L;
 
+	@Override
+	public JobLane lane() {
+		return JobLane.INDEXING;
+	}
+
 	@Override
 	public JobResult doRun() throws FastcatSearchException {
 		String collectionId = getStringArgs(0);
@@ -3,6 +3,7 @@ package org.fastcatsearch.job.indexing;
 import java.io.IOException;
 
 import org.fastcatsearch.common.io.Streamable;
+import org.fastcatsearch.control.JobLane;
 import org.fastcatsearch.db.mapper.IndexingResultMapper.ResultStatus;
 import org.fastcatsearch.ir.CollectionIndexerable;
 import org.fastcatsearch.ir.common.IndexingType;
@@ -51,6 +52,11 @@ public abstract class IndexingJob extends Job implements Streamable {
 		return indexingStartTime;
 	}
 
+	@Override
+	public JobLane lane() {
+		return JobLane.INDEXING;
+	}
+
 	public void requestStop() {
 		logger.info("Collection [{}] Indexing Job Stop Requested! ", collectionId);
 		stopRequested = true;
@@ -7,6 +7,7 @@ import org.fastcatsearch.ir.config.CollectionContext;
 import org.fastcatsearch.ir.config.DataInfo;
 import org.fastcatsearch.ir.search.CollectionHandler;
 import org.fastcatsearch.ir.util.Formatter;
+import org.fastcatsearch.control.JobLane;
 import org.fastcatsearch.job.Job;
 import org.fastcatsearch.service.ServiceManager;
 import org.fastcatsearch.util.CollectionContextUtil;
@@ -37,6 +38,11 @@ public class LocalDocZeroDeleteJob extends Job {
         this.zeroSegmentIdSet = zeroSegmentIdSet;
     }
 
+    @Override
+    public JobLane lane() {
+        return JobLane.INDEXING;
+    }
+
     @Override
     public JobResult doRun() throws FastcatSearchException {
         try {
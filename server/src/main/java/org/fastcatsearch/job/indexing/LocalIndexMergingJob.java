@@ -8,6 +8,7 @@ import org.fastcatsearch.ir.config.DataInfo;
 import org.fastcatsearch.ir.search.CollectionHandler;
 import org.fastcatsearch.ir.search.SegmentReader;
 import org.fastcatsearch.ir.util.Formatter;
+import org.fastcatsearch.control.JobLane;
 import org.fastcatsearch.job.Job;
 import org.fastcatsearch.service.ServiceManager;
 import org.fastcatsearch.util.CollectionContextUtil;
@@ -40,6 +41,11 @@ public class LocalIndexMergingJob extends Job {
         this.mergingSegmentIdSet = mergingSegmentIdSet;
     }
 
+    @Override
+    public JobLane lane() {
+        return JobLane.INDEXING;
+    }
+
     @Override
     public JobResult doRun() throws FastcatSearchException {
         long startTime = System.currentTimeMillis();
@@ -123,6 +129,11 @@ public class LocalIndexMergingJob extends Job {
 
         } catch (Throwable e) {
             logger.error("", e);
+            //실패한 세그먼트들을 다음 머징 후보로 돌려놓는다. 머징중으로 남아있으면 머징정책의 동시머징 갯수를 계속 차지한다.
+            collectionHandler.takeMergingDeletion(documentId);
+            for (String mergeSegmentId : mergingSegmentIdSet) {
+                collectionHandler.finishMerging(mergeSegmentId);
+            }
             throw new FastcatSearchException("ERR-00525", e);
         }
     }
@@ -0,0 +1,124 @@
+package org.fastcatsearch.job.indexing;
+
+import org.fastcatsearch.common.io.Streamable;
+import org.fastcatsearch.control.JobExecutor;
+import org.fastcatsearch.control.JobLane;
+import org.fastcatsearch.exception.FastcatSearchException;
+import org.fastcatsearch.ir.IRService;
+import org.fastcatsearch.ir.config.CollectionContext;
+import org.fastcatsearch.ir.config.DataInfo;
+import org.fastcatsearch.ir.index.DeleteIdSet;
+import org.fastcatsearch.ir.io.DataInput;
+import org.fastcatsearch.ir.io.DataOutput;
+import org.fastcatsearch.ir.search.CollectionHandler;
+import org.fastcatsearch.ir.util.Formatter;
+import org.fastcatsearch.job.CacheServiceRestartJob;
+import org.fastcatsearch.job.DataJob;
+import org.fastcatsearch.service.ServiceManager;
+import org.fastcatsearch.util.CollectionContextUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * 색인노드가 만들어 전송한 동적색인 세그먼트를 컬렉션에 적용한다.
+ * 세그먼트 파일은 미리 전송되어 있어야 한다. 각 노드는 문서를 분석, 색인하지 않고 세그먼트와 삭제목록만 적용한다.
+ * 적용시 segmentInfo 의 id 가 노드의 다음 세그먼트 id 로 바뀌므로 노드마다 별도의 작업객체를 사용해야 한다.
+ */
+public class NodeApplySegmentJob extends DataJob implements Streamable {
+
+    protected static Logger indexingLogger = LoggerFactory.getLogger("INDEXING_LOG");
+
+    private String collectionId;
+    private DataInfo.SegmentInfo segmentInfo;
+    private DeleteIdSet deleteIdSet;
+
+    public NodeApplySegmentJob() {
+    }
+
+    public NodeApplySegmentJob(String collectionId, DataInfo.SegmentInfo segmentInfo, DeleteIdSet deleteIdSet) {
+        this.collectionId = collectionId;
+        this.segmentInfo = segmentInfo;
+        this.deleteIdSet = deleteIdSet;
+    }
+
+    public DataInfo.SegmentInfo segmentInfo() {
+        return segmentInfo;
+    }
+
+    public DeleteIdSet deleteIdSet() {
+        return deleteIdSet;
+    }
+
+    @Override
+    public JobLane lane() {
+        return JobLane.INDEXING;
+    }
+
+    @Override
+    public JobResult doRun() throws FastcatSearchException {
+        long startTime = System.currentTimeMillis();
+        IRService irService = ServiceManager.getInstance().getService(IRService.class);
+        CollectionHandler collectionHandler = irService.collectionHandler(collectionId);
+        if (collectionHandler == null) {
+            throw new FastcatSearchException("Collection [" + collectionId + "] is not loaded.");
+        }
+        File segmentDir = collectionHandler.collectionContext().indexFilePaths().file(segmentInfo.getId());
+        if (segmentInfo.getLiveCount() > 0 && !segmentDir.exists()) {
+            throw new FastcatSearchException("Segment dir is not exist. " + segmentDir.getAbsolutePath());
+        }
+        try {
+            applySegment(collectionHandler, segmentInfo, segmentDir, deleteIdSet, getJobExecutor(), startTime);
+        } catch (Exception e) {
+            throw new FastcatSearchException(e);
+        }
+        return new JobResult(true);
+    }
+
+    /**
+     * 새 세그먼트와 삭제목록을 컬렉션에 적용하고 컬렉션 정보를 저장한다. 추가문서나 삭제문서가 없으면 적용하지 않는다.
+     * */
+    public static void applySegment(CollectionHandler collectionHandler, DataInfo.SegmentInfo segmentInfo, File segmentDir, DeleteIdSet deleteIdSet, JobExecutor jobExecutor, long startTime) throws Exception {
+        String collectionId = collectionHandler.collectionId();
+        int totalLiveDocs = 0;
+        if (segmentInfo.getLiveCount() > 0 || deleteIdSet.size() > 0) {
+            CollectionContext collectionContext = collectionHandler.applyNewSegment(segmentInfo, segmentDir, deleteIdSet);
+            CollectionContextUtil.saveCollectionAfterDynamicIndexing(collectionContext);
+            jobExecutor.offer(new CacheServiceRestartJob(collectionId, 0));
+            totalLiveDocs = collectionContext.dataInfo().getDocuments() - collectionContext.dataInfo().getDeletes();
+        } else {
+            CollectionContext collectionContext = collectionHandler.collectionContext();
+            totalLiveDocs = collectionContext.dataInfo().getDocuments() - collectionContext.dataInfo().getDeletes();
+        }
+        long elapsed = System.currentTimeMillis() - startTime;
+
+        indexingLogger.info("[{}] Dynamic Indexing Done. Segment[{}] Inserts[{}] Deletes[{}] Elapsed[{}] TotalLive[{}]", collectionId, segmentInfo.getId(), segmentInfo.getDocumentCount(), segmentInfo.getDeleteCount(), Formatter.getFormatTime(elapsed), totalLiveDocs);
+    }
+
+    @Override
+    public void readFrom(DataInput input) throws IOException {
+        collectionId = input.readString();
+        segmentInfo = new DataInfo.SegmentInfo(input.readString(), input.readInt(), input.readInt(), input.readLong());
+        if (input.readBoolean()) {
+            segmentInfo.setIndexSort(input.readString());
+        }
+        deleteIdSet = new DeleteIdSet();
+        deleteIdSet.readFrom(input);
+    }
+
+    @Override
+    public void writeTo(DataOutput output) throws IOException {
+        output.writeString(collectionId);
+        output.writeString(segmentInfo.getId());
+        output.writeInt(segmentInfo.getDocumentCount());
+        output.writeInt(segmentInfo.getDeleteCount());
+        output.writeLong(segmentInfo.getCreateTime());
+        output.writeBoolean(segmentInfo.getIndexSort() != null);
+        if (segmentInfo.getIndexSort() != null) {
+            output.writeString(segmentInfo.getIndexSort());
+        }
+        deleteIdSet.writeTo(output);
+    }
+}
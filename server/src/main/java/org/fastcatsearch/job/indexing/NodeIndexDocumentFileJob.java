@@ -1,33 +1,28 @@
 package org.fastcatsearch.job.indexing;
 
 import org.fastcatsearch.common.io.Streamable;
+import org.fastcatsearch.control.JobLane;
 import org.fastcatsearch.exception.FastcatSearchException;
-import org.fastcatsearch.http.action.service.indexing.IndexDocumentsAction;
-import org.fastcatsearch.http.action.service.indexing.JSONRequestReader;
-import org.fastcatsearch.http.action.service.indexing.MapDocument;
 import org.fastcatsearch.ir.CollectionDynamicIndexer;
 import org.fastcatsearch.ir.IRService;
-import org.fastcatsearch.ir.config.CollectionContext;
 import org.fastcatsearch.ir.config.DataInfo;
-import org.fastcatsearch.ir.index.DeleteIdSet;
 import org.fastcatsearch.ir.io.DataInput;
 import org.fastcatsearch.ir.io.DataOutput;
 import org.fastcatsearch.ir.search.CollectionHandler;
-import org.fastcatsearch.ir.util.Formatter;
-import org.fastcatsearch.job.CacheServiceRestartJob;
 import org.fastcatsearch.job.DataJob;
 import org.fastcatsearch.service.ServiceManager;
-import org.fastcatsearch.util.CollectionContextUtil;
 import org.fastcatsearch.util.FileUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.Map;
 
 /**
  * Created by swsong on 2016. 1. 14..
+ *
+ * 문서를 받아 이 노드에서 직접 색인하고 적용한다.
+ * 동적색인은 색인노드에서 세그먼트를 만들어 NodeApplySegmentJob 으로 전달하므로, 이 작업은 이전버전 노드의 요청을 처리하기 위해 남겨둔다.
  */
 public class NodeIndexDocumentFileJob extends DataJob implements Streamable {
 
@@ -46,6 +41,11 @@ public class NodeIndexDocumentFileJob extends DataJob implements Streamable {
         this.documents = documents;
     }
 
+    @Override
+    public JobLane lane() {
+        return JobLane.INDEXING;
+    }
+
     @Override
     public JobResult doRun() throws FastcatSearchException {
         try {
@@ -55,48 +55,18 @@ public class NodeIndexDocumentFileJob extends DataJob implements Streamable {
             CollectionDynamicIndexer indexer = null;
             try {
                 indexer = new CollectionDynamicIndexer(documentId, collectionHandler);
-                JSONRequestReader jsonReader = new JSONRequestReader(documents);
-//                List<MapDocument> docList = JSONRequestReader.readMapDocuments(documents);
-                MapDocument doc = null;
-                while((doc = jsonReader.readAsMapDocument()) != null) {
-//                for(MapDocument doc : docList) {
-                    String type = String.valueOf(doc.getType());
-                    Map<String, Object> sourceMap = doc.getSourceMap();
-                    if (type.equals(IndexDocumentsAction.INSERT_TYPE)) {
-                        indexer.insertDocument(sourceMap);
-                    } else if (type.equals(IndexDocumentsAction.UPDATE_TYPE)) {
-                        indexer.updateDocument(sourceMap);
-                    } else if (type.equals(IndexDocumentsAction.DELETE_TYPE)) {
-                        indexer.deleteDocument(sourceMap);
-                    } else {
-                        logger.error("Unknown doctype[{}] {}", doc.getType(), sourceMap);
-                    }
-                }
+                indexer.indexDocuments(documents);
             } finally {
-                DataInfo.SegmentInfo segmentInfo = null;
                 if (indexer != null) {
-                    segmentInfo = indexer.close();
+                    DataInfo.SegmentInfo segmentInfo = indexer.close();
 
                     File segmentDir = indexer.getSegmentDir();
                     if(segmentInfo.getDocumentCount() == 0 || segmentInfo.getLiveCount() <= 0) {
                         logger.info("[{}] Delete segment dir due to no documents = {}", collectionHandler.collectionId(), segmentDir.getAbsolutePath());
                         FileUtils.deleteDirectory(segmentDir);
                     }
-                    DeleteIdSet deleteIdSet = indexer.getDeleteIdSet();
                     //추가문서가 있거나, 또는 삭제문서가 있어야 적용을 한다.
-                    int totalLiveDocs = 0;
-                    if(segmentInfo.getLiveCount() > 0 || deleteIdSet.size() > 0) {
-                        CollectionContext collectionContext = collectionHandler.applyNewSegment(segmentInfo, segmentDir, deleteIdSet);
-                        CollectionContextUtil.saveCollectionAfterDynamicIndexing(collectionContext);
-                        getJobExecutor().offer(new CacheServiceRestartJob(0));
-                        totalLiveDocs = collectionContext.dataInfo().getDocuments() - collectionContext.dataInfo().getDeletes();
-                    } else {
-                        CollectionContext collectionContext = collectionHandler.collectionContext();
-                        totalLiveDocs = collectionContext.dataInfo().getDocuments() - collectionContext.dataInfo().getDeletes();
-                    }
-                    long elapsed = System.currentTimeMillis() - startTime;
-
-                    indexingLogger.info("[{}] Dynamic Indexing Done. Inserts[{}] Deletes[{}] Elapsed[{}] TotalLive[{}]", collectionId, segmentInfo.getDocumentCount(), segmentInfo.getDeleteCount(), Formatter.getFormatTime(elapsed), totalLiveDocs);
+                    NodeApplySegmentJob.applySegment(collectionHandler, segmentInfo, segmentDir, indexer.getDeleteIdSet(), getJobExecutor(), startTime);
                 }
             }
         } catch (Exception e) {
@@ -6,6 +6,7 @@ import java.util.List;
 import java.util.Map;
 
 import org.fastcatsearch.common.io.Streamable;
+import org.fastcatsearch.control.JobLane;
 import org.fastcatsearch.error.SearchAbortError;
 import org.fastcatsearch.error.SearchError;
 import org.fastcatsearch.error.ServerErrorCode;
@@ -57,6 +58,11 @@ public class InternalDocumentSearchJob extends Job implements Streamable {
         }
     }
 
+    @Override
+    public JobLane lane() {
+        return JobLane.INTERNAL;
+    }
+
     @Override
 	public JobResult doRun() throws FastcatSearchException {
 
@@ -3,6 +3,7 @@ package org.fastcatsearch.job.internal;
 import java.io.IOException;
 
 import org.fastcatsearch.common.io.Streamable;
+import org.fastcatsearch.control.JobLane;
 import org.fastcatsearch.error.SearchError;
 import org.fastcatsearch.error.ServerErrorCode;
 import org.fastcatsearch.exception.FastcatSearchException;
@@ -29,6 +30,11 @@ public class InternalGroupSearchJob extends Job implements Streamable {
 		this.queryMap = queryMap;
 	}
 	
+	@Override
+	public JobLane lane() {
+		return JobLane.INTERNAL;
+	}
+
 	@Override
 	public JobResult doRun() throws FastcatSearchException {
 		
@@ -4,6 +4,7 @@ import java.io.IOException;
 import java.util.Map;
 
 import org.fastcatsearch.common.io.Streamable;
+import org.fastcatsearch.control.JobLane;
 import org.fastcatsearch.error.SearchAbortError;
 import org.fastcatsearch.error.SearchError;
 import org.fastcatsearch.error.ServerErrorCode;
@@ -55,6 +56,11 @@ public class InternalSearchJob extends Job implements Streamable {
         }
     }
 
+    @Override
+    public JobLane lane() {
+        return JobLane.INTERNAL;
+    }
+
     @Override
     public JobResult doRun() throws FastcatSearchException {
 
@@ -1,6 +1,7 @@
 package org.fastcatsearch.job.internal;
 
 import org.fastcatsearch.common.io.Streamable;
+import org.fastcatsearch.control.JobLane;
 import org.fastcatsearch.error.SearchError;
 import org.fastcatsearch.error.ServerErrorCode;
 import org.fastcatsearch.exception.FastcatSearchException;
@@ -36,6 +37,11 @@ public class InternalSearchLongTestJob extends Job implements Streamable {
         this.forMerging = forMerging;
     }
 
+    @Override
+    public JobLane lane() {
+        return JobLane.INTERNAL;
+    }
+
     @Override
     public JobResult doRun() throws FastcatSearchException {
 
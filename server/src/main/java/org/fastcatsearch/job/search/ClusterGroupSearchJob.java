@@ -7,6 +7,7 @@ import java.util.Random;
 import org.fastcatsearch.cluster.Node;
 import org.fastcatsearch.cluster.NodeService;
 import org.fastcatsearch.common.Strings;
+import org.fastcatsearch.control.JobLane;
 import org.fastcatsearch.control.ResultFuture;
 import org.fastcatsearch.error.SearchError;
 import org.fastcatsearch.error.ServerErrorCode;
@@ -29,6 +30,11 @@ public class ClusterGroupSearchJob extends Job {
 
 	private static final long serialVersionUID = -1051204900646595240L;
 
+	@Override
+	public JobLane lane() {
+		return JobLane.SEARCH;
+	}
+
 	@Override
 	public JobResult doRun() throws FastcatSearchException {
 		
@@ -106,7 +112,7 @@ public class ClusterGroupSearchJob extends Job {
 		groupResults = aggregator.aggregate(resultList);
 		
 		if(groupResults != null && !noCache){
-			irService.groupingCache().put(queryMap.queryString(), groupResults);
+			irService.groupingCache().put(queryMap.queryString(), groupResults, collectionId);
 		}
 		
 		logger.debug("ClusterGroupSearchJob 수행시간 : {}", Strings.getHumanReadableTimeInterval(System.currentTimeMillis() - st));
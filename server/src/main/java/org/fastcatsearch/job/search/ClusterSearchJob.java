@@ -2,7 +2,10 @@ package org.fastcatsearch.job.search;
 
 import org.fastcatsearch.cluster.Node;
 import org.fastcatsearch.cluster.NodeService;
+import org.fastcatsearch.control.JobLane;
+import org.fastcatsearch.control.JobService;
 import org.fastcatsearch.control.ResultFuture;
+import org.fastcatsearch.control.ResultFutureGroup;
 import org.fastcatsearch.error.SearchAbortError;
 import org.fastcatsearch.error.ServerErrorCode;
 import org.fastcatsearch.error.SearchError;
@@ -31,135 +34,204 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.concurrent.Executor;
 
 /**
  * 검색을 수행하여 병합까지 마치는 broker 검색작업.
+ *
+ * 데이터노드의 검색결과와 문서결과를 쓰레드를 잡고 기다리지 않는다.
+ * 요청을 보낸뒤 작업쓰레드를 반환하고, 결과가 모두 도착하면 JobService 의 callback 쓰레드에서 다음 단계를 수행한다.
  * */
 public class ClusterSearchJob extends Job {
 
 	private static final long serialVersionUID = 2375551165135599911L;
 
+	@Override
+	public JobLane lane() {
+		return JobLane.SEARCH;
+	}
+
 	@Override
 	public JobResult doRun() throws FastcatSearchException {
+		return new ClusterSearch((QueryMap) getArgs()).search();
+	}
+
+	/**
+	 * 검색요청 하나의 단계별 상태.
+	 * */
+	private class ClusterSearch {
+		private long st;
+		private QueryMap queryMap;
+		private String errorMsg;
+		private boolean noCache;
+		private String collectionId;
+		private String searchKeyword;
+		private boolean isCache;
+		private Result searchResult;
+		private String tagString;
+
+		private Query q;
+		private Metadata meta;
+		private Groups groups;
+		private IRService irService;
+		private NodeService nodeService;
+		private Executor callbackExecutor;
+		private String[] collectionIdList;
+		private CollectionContext collectionContext;
+		private Map<String, Integer> collectionNumberMap;
+		private Node[] selectedNodeList;
+
+		private Schema schema;
+		private InternalSearchResult aggregatedSearchResult;
+		private int totalSize;
+		private List<Explanation> explanations;
+		private int realSize;
+		private int[] collectionTags;
+		private int[] eachScores;
+		private int[] eachHits;
+		private float[] eachDistance;
+		private int[] eachFilterMatchOrder;
+		private int[] bundleTotalSizeList;
+		private List<RowExplanation>[] rowExplanationsList;
+
+		public ClusterSearch(QueryMap queryMap) {
+			this.st = System.nanoTime();
+			this.queryMap = queryMap;
+		}
+
+		/**
+		 * 쿼리를 분석하여 데이터노드에 검색요청을 보낸다. 캐시에 결과가 있으면 바로 리턴한다.
+		 * */
+		public JobResult search() throws FastcatSearchException {
+			try {
+
+				q = QueryParser.getInstance().parseQuery(queryMap);
 
-        String errorMsg = null;
-		long st = System.nanoTime();
-		QueryMap queryMap = (QueryMap) getArgs();
-		boolean noCache = false;
-		String collectionId = null;
-		String searchKeyword = null;
-		boolean isCache = false;
-		Result searchResult = null;
-		String tagString = null;
-		try {
-
-			Query q = QueryParser.getInstance().parseQuery(queryMap);
-
-			Metadata meta = q.getMeta();
-			QueryModifier queryModifier = meta.queryModifier();
-			//쿼리모디파이.
-			if (queryModifier != null) {
-				q = queryModifier.modify(meta.collectionId(), q);
 				meta = q.getMeta();
-			}
-			
-			collectionId = meta.collectionId();
-			if(collectionId == null) {
-//				return new JobResult(new QueryParseException("cn cannot be empty."));
-				throw new SearchError(ServerErrorCode.QUERY_SYNTAX_ERROR, "cn cannot be empty.");
-			}
-			searchKeyword = meta.getUserData("KEYWORD");
+				QueryModifier queryModifier = meta.queryModifier();
+				//쿼리모디파이.
+				if (queryModifier != null) {
+					q = queryModifier.modify(meta.collectionId(), q);
+					meta = q.getMeta();
+				}
 
-			// no cache 옵션이 없으면 캐시를 확인한다.
-			if (meta.isSearchOption(Query.SEARCH_OPT_NOCACHE)) {
-				noCache = true;
-			}
-	
-			IRService irService = ServiceManager.getInstance().getService(IRService.class);
-			if (!noCache) {
-				Result result = irService.searchCache().get(queryMap.queryString());
-				// logger.debug("CACHE_GET result>>{}, qr >>{}", result, queryMap.queryString());
-				if (result != null) {
-					isCache = true;
-					searchResult = result;
-					return new JobResult(result);
+				collectionId = meta.collectionId();
+				if(collectionId == null) {
+					throw new SearchError(ServerErrorCode.QUERY_SYNTAX_ERROR, "cn cannot be empty.");
+				}
+				searchKeyword = meta.getUserData("KEYWORD");
+
+				// no cache 옵션이 없으면 캐시를 확인한다.
+				if (meta.isSearchOption(Query.SEARCH_OPT_NOCACHE)) {
+					noCache = true;
 				}
-			}
 
-			Map<String, String> userDataMap = meta.userData();
-			if(userDataMap != null) {
-				StringBuilder sb = new StringBuilder();
-				for(Map.Entry<String, String> e : userDataMap.entrySet()) {
-					if(! "KEYWORD".equals(e.getKey())) {
-						if(sb.length() > 0) {
-							sb.append(",");
+				irService = ServiceManager.getInstance().getService(IRService.class);
+				if (!noCache) {
+					Result result = irService.searchCache().get(queryMap.queryString());
+					if (result != null) {
+						isCache = true;
+						searchResult = result;
+						writeSearchLog();
+						return new JobResult(result);
+					}
+				}
+
+				Map<String, String> userDataMap = meta.userData();
+				if(userDataMap != null) {
+					StringBuilder sb = new StringBuilder();
+					for(Map.Entry<String, String> e : userDataMap.entrySet()) {
+						if(! "KEYWORD".equals(e.getKey())) {
+							if(sb.length() > 0) {
+								sb.append(",");
+							}
+							sb.append(e.getKey()).append("=").append(e.getValue());
 						}
-						sb.append(e.getKey()).append("=").append(e.getValue());
 					}
+
+					tagString = sb.toString();
 				}
 
-				tagString = sb.toString();
-			}
+				nodeService = ServiceManager.getInstance().getService(NodeService.class);
+				callbackExecutor = JobService.getInstance().getCallbackExecutor();
 
-			NodeService nodeService = ServiceManager.getInstance().getService(NodeService.class);
+				groups = q.getGroups();
 
-			Groups groups = q.getGroups();
+				collectionIdList = collectionId.split(",");
+				if(collectionIdList.length > 1) {
+					shuffleCollectionList(collectionIdList);
+				}
 
-			String[] collectionIdList = collectionId.split(",");
-			if(collectionIdList.length > 1) {
-				shuffleCollectionList(collectionIdList);
-			}
-			
-			// CollectionContext collectionContext = irService.collectionContext(collectionId);
-			// 무조건 첫번째 context사용. 모든 컬렉션이 동일하다고 가정.
-			CollectionContext collectionContext = irService.collectionContext(collectionIdList[0]);
+				// 무조건 첫번째 context사용. 모든 컬렉션이 동일하다고 가정.
+				collectionContext = irService.collectionContext(collectionIdList[0]);
 
-			ResultFuture[] resultFutureList = new ResultFuture[collectionIdList.length];
-			Map<String, Integer> collectionNumberMap = new HashMap<String, Integer>();
-			Node[] selectedNodeList = new Node[collectionIdList.length];
+				ResultFuture[] resultFutureList = new ResultFuture[collectionIdList.length];
+				collectionNumberMap = new HashMap<String, Integer>();
+				selectedNodeList = new Node[collectionIdList.length];
 
-			boolean forMerging = collectionIdList.length > 1;
-			for (int i = 0; i < collectionIdList.length; i++) {
-				String id = collectionIdList[i];
-				if(irService.collectionHandler(id) == null) {
-					throw new SearchError(ServerErrorCode.COLLECTION_NOT_FOUND, id);
+				boolean forMerging = collectionIdList.length > 1;
+				for (int i = 0; i < collectionIdList.length; i++) {
+					String id = collectionIdList[i];
+					if(irService.collectionHandler(id) == null) {
+						throw new SearchError(ServerErrorCode.COLLECTION_NOT_FOUND, id);
+					}
+					collectionNumberMap.put(id, i);
+
+					Node dataNode = nodeService.getBalancedNode(id);
+					if (dataNode == null) {
+						// 적합한 살아있는 노드를 찾지못함.
+						logger.error("Not Found Node for {}", id);
+						continue;
+					}
+					selectedNodeList[i] = dataNode;
+
+					QueryMap newQueryMap = queryMap.clone();
+					newQueryMap.setId(id);
+					logger.debug("query-{} {} >> {}", i, id, newQueryMap);
+					// collectionId가 하나이상이면 머징을 해야한다.
+					InternalSearchJob job = new InternalSearchJob(newQueryMap, forMerging);
+					job.setTimeout(getTimeout(), isForceAbortWhenTimeout());
+					resultFutureList[i] = nodeService.sendRequest(dataNode, job);
+					// 노드 접속불가일경우 resultFutureList[i]가 null로 리턴됨.
+					if (resultFutureList[i] == null) {
+						throw new SearchError(ServerErrorCode.DATA_NODE_CONNECTION_ERROR, dataNode.toString() );
+					}
 				}
-				collectionNumberMap.put(id, i);
 
-				Node dataNode = nodeService.getBalancedNode(id);
-				if (dataNode == null) {
-					// 적합한 살아있는 노드를 찾지못함.
-					logger.error("Not Found Node for {}", id);
-					continue;
+				ResultFutureGroup.whenAll(resultFutureList, callbackExecutor, new ResultFutureGroup.Listener() {
+					@Override
+					public void onComplete(Object[] results, boolean[] isSuccess) {
+						try {
+							searchResultReceived(results, isSuccess);
+						} catch (Throwable e) {
+							fail(e);
+						}
+					}
+				});
+				return ASYNC_RESULT;
+			} catch (Throwable e) {
+				Throwable error = toJobError(e);
+				writeSearchLog();
+				if (error instanceof FastcatSearchException) {
+					throw (FastcatSearchException) error;
+				} else if (error instanceof RuntimeException) {
+					throw (RuntimeException) error;
 				}
-				selectedNodeList[i] = dataNode;
-
-				QueryMap newQueryMap = queryMap.clone();
-				newQueryMap.setId(id);
-				logger.debug("query-{} {} >> {}", i, id, newQueryMap);
-				// collectionId가 하나이상이면 머징을 해야한다.
-				InternalSearchJob job = new InternalSearchJob(newQueryMap, forMerging);
-                job.setTimeout(getTimeout(), isForceAbortWhenTimeout());
-				resultFutureList[i] = nodeService.sendRequest(dataNode, job);
-                // 노드 접속불가일경우 resultFutureList[i]가 null로 리턴됨.
-                if (resultFutureList[i] == null) {
-                    throw new SearchError(ServerErrorCode.DATA_NODE_CONNECTION_ERROR, dataNode.toString() );
-                }
+				throw new FastcatSearchException(error);
 			}
+		}
 
+		/**
+		 * 검색결과를 병합하고 문서요청을 보낸다.
+		 * */
+		private void searchResultReceived(Object[] results, boolean[] isSuccess) throws Exception {
 			List<InternalSearchResult> resultList = new ArrayList<InternalSearchResult>(collectionIdList.length);
 			HighlightInfo highlightInfo = null;
 
 			for (int i = 0; i < collectionIdList.length; i++) {
-				Object obj = resultFutureList[i].take();
-				if (!resultFutureList[i].isSuccess()) {
-                    if (obj instanceof SearchError) {
-                        throw (SearchError) obj;
-                    } else if (obj instanceof Throwable) {
-                        throw new FastcatSearchException((Throwable) obj);
-                    } else {
-                        throw new FastcatSearchException("Error while searching.", obj);
-                    }
+				Object obj = results[i];
+				if (!isSuccess[i]) {
+					throw resultError(obj);
 				}
 
 				StreamableInternalSearchResult obj2 = (StreamableInternalSearchResult) obj;
@@ -176,35 +248,32 @@ public class ClusterSearchJob extends Job {
 			// collectionIdList 내의 스키마는 동일하다는 가정하에 진행한다. collectionIdList[0] 의 스키마를 가져온다.
 			//
 
-			Schema schema = collectionContext.schema();
+			schema = collectionContext.schema();
 			SearchResultAggregator aggregator = new SearchResultAggregator(q, schema);
-			InternalSearchResult aggregatedSearchResult = aggregator.aggregate(resultList);
-			int totalSize = aggregatedSearchResult.getTotalCount();
-			List<Explanation> explanations = aggregatedSearchResult.getExplanations();
+			aggregatedSearchResult = aggregator.aggregate(resultList);
+			totalSize = aggregatedSearchResult.getTotalCount();
+			explanations = aggregatedSearchResult.getExplanations();
 
 			// /
 			// / 컬렉션별 도큐먼트를 가져와서 완전한 결과객체를 만든다.
 			//
 
 			// internalSearchResult의 결과를 보면서 컬렉션 별로 분류한다.
-			int realSize = aggregatedSearchResult.getCount();
+			realSize = aggregatedSearchResult.getCount();
 			DocIdList[] docIdList = new DocIdList[collectionIdList.length];
-			int[] collectionTags = new int[realSize]; // 해당 문서가 어느 collection에 속하는지 알려주는 항목.
-//			ArrayDeque<Integer>[] eachScores = new ArrayDeque[collectionIdList.length];
-            int[] eachScores = new int[realSize];
-            int[] eachHits = new int[realSize];
-            float[] eachDistance = new float[realSize];
-			int[] eachFilterMatchOrder = new int[realSize];
-            int[] bundleTotalSizeList = new int[realSize];
-			List<RowExplanation>[] rowExplanationsList = null;
+			collectionTags = new int[realSize]; // 해당 문서가 어느 collection에 속하는지 알려주는 항목.
+			eachScores = new int[realSize];
+			eachHits = new int[realSize];
+			eachDistance = new float[realSize];
+			eachFilterMatchOrder = new int[realSize];
+			bundleTotalSizeList = new int[realSize];
 
 			if(explanations != null){
 				rowExplanationsList = new List[realSize];
 			}
-			
+
 			for (int i = 0; i < collectionIdList.length; i++) {
 				docIdList[i] = new DocIdList(realSize);
-//				eachScores[i] = new ArrayDeque<Integer>(realSize);
 			}
 
 			int idx = 0;
@@ -214,11 +283,11 @@ public class ClusterSearchJob extends Job {
 				int collectionNo = collectionNumberMap.get(el.collectionId());
 				//묶음 문서 존재시 같이 넣어준다.
 				docIdList[collectionNo].add(el.segmentId(), el.docNo(), el.getBundleDocIdList());
-                eachScores[idx] = el.score();
-                eachHits[idx] = el.hit();
-                eachDistance[idx] = el.distance();
+				eachScores[idx] = el.score();
+				eachHits[idx] = el.hit();
+				eachDistance[idx] = el.distance();
 				eachFilterMatchOrder[idx] = el.filterMatchOrder();
-                bundleTotalSizeList[idx] = el.getTotalBundleSize();
+				bundleTotalSizeList[idx] = el.getTotalBundleSize();
 
 				collectionTags[idx] = collectionNo;
 				if(rowExplanationsList != null){
@@ -228,19 +297,19 @@ public class ClusterSearchJob extends Job {
 			}
 
 			// document 요청을 보낸다.
-			resultFutureList = new ResultFuture[collectionIdList.length];
+			ResultFuture[] resultFutureList = new ResultFuture[collectionIdList.length];
 			ViewContainer views = q.getViews();
-            if(views == null) {
-                views = new ViewContainer();
-            }
-            if(views.size() == 0) {
-                List<FieldSetting> list =schema.schemaSetting().getFieldSettingList();
-                if(list.size() > 0) {
-                    views.add(new View(list.get(0).getId()));
-                }
-            }
-
-            long documentTimeout = getTimeout() / 2;
+			if(views == null) {
+				views = new ViewContainer();
+			}
+			if(views.size() == 0) {
+				List<FieldSetting> list =schema.schemaSetting().getFieldSettingList();
+				if(list.size() > 0) {
+					views.add(new View(list.get(0).getId()));
+				}
+			}
+
+			long documentTimeout = getTimeout() / 2;
 			String[] tags = q.getMeta().tags();
 			for (int i = 0; i < collectionIdList.length; i++) {
 				String cid = collectionIdList[i];
@@ -249,27 +318,37 @@ public class ClusterSearchJob extends Job {
 				logger.debug("collection [{}] search at {}", cid, dataNode);
 
 				InternalDocumentSearchJob job = new InternalDocumentSearchJob(cid, docIdList[i], views, tags, highlightInfo);
-                job.setTimeout(documentTimeout, isForceAbortWhenTimeout());
+				job.setTimeout(documentTimeout, isForceAbortWhenTimeout());
 				resultFutureList[i] = nodeService.sendRequest(dataNode, job);
-                if (resultFutureList[i] == null) {
-                    throw new SearchError(ServerErrorCode.DATA_NODE_CONNECTION_ERROR, dataNode.toString() );
-                }
+				if (resultFutureList[i] == null) {
+					throw new SearchError(ServerErrorCode.DATA_NODE_CONNECTION_ERROR, dataNode.toString() );
+				}
 			}
 
+			ResultFutureGroup.whenAll(resultFutureList, callbackExecutor, new ResultFutureGroup.Listener() {
+				@Override
+				public void onComplete(Object[] results, boolean[] isSuccess) {
+					try {
+						documentResultReceived(results, isSuccess);
+					} catch (Throwable e) {
+						fail(e);
+					}
+				}
+			});
+		}
+
+		/**
+		 * 문서결과로 최종 결과를 만들어 작업결과로 전달한다.
+		 * */
+		private void documentResultReceived(Object[] results, boolean[] isSuccess) throws Exception {
 			// document 결과를 받는다.
 			DocumentResult[] docResultList = new DocumentResult[collectionIdList.length];
 
 			for (int i = 0; i < collectionIdList.length; i++) {
 				String cid = collectionIdList[i];
-				Object obj = resultFutureList[i].take();
-				if (!resultFutureList[i].isSuccess()) {
-                    if (obj instanceof SearchError) {
-                        throw (SearchError) obj;
-                    } else if (obj instanceof Throwable) {
-                        throw new FastcatSearchException((Throwable) obj);
-                    } else {
-                        throw new FastcatSearchException("Error while searching.", obj);
-                    }
+				Object obj = results[i];
+				if (!isSuccess[i]) {
+					throw resultError(obj);
 				}
 
 				StreamableDocumentResult obj2 = (StreamableDocumentResult) obj;
@@ -294,18 +373,17 @@ public class ClusterSearchJob extends Job {
 					}
 					bundleRows[i] = bundleRow;
 				}
-//				int score = eachScores[collectionNo].pop();
-                int score = eachScores[i];
+				int score = eachScores[i];
 				rows[i].setScore(score);
-                rows[i].setHit(eachHits[i]);
-                rows[i].setDistance(eachDistance[i]);
+				rows[i].setHit(eachHits[i]);
+				rows[i].setDistance(eachDistance[i]);
 				rows[i].setFilterMatchOrder(eachFilterMatchOrder[i]);
-				
+
 				documentResult.next();
 			}
 
 			//TODO row별과 통합 explain결과 포함시킨다.
-			
+
 			/*
 			 * Group Result
 			 */
@@ -326,24 +404,46 @@ public class ClusterSearchJob extends Job {
 				* */
 				searchResult = resultModifier.modify(searchResult, searchKeyword, queryMap.get("cn"), queryMap.get("ht"));
 			}
-			
+
 			if(!noCache && realSize > 0){
-				irService.searchCache().put(queryMap.queryString(), searchResult);
+				irService.searchCache().put(queryMap.queryString(), searchResult, collectionId);
+			}
+			writeSearchLog();
+			asyncResult(new JobResult(searchResult));
+		}
+
+		private Exception resultError(Object obj) {
+			if (obj instanceof SearchError) {
+				return (SearchError) obj;
+			} else if (obj instanceof Throwable) {
+				return new FastcatSearchException((Throwable) obj);
+			} else {
+				return new FastcatSearchException("Error while searching.", obj);
+			}
+		}
+
+		/**
+		 * 검색타임아웃은 SearchAbortError 로 바꾸어 전달한다.
+		 * */
+		private Throwable toJobError(Throwable e) {
+			if (e instanceof IRException) {
+				return new FastcatSearchException(e);
+			} else if (e instanceof SearchError) {
+				errorMsg = e.getMessage();
+				if (((SearchError) e).getErrorCode() == ServerErrorCode.SEARCH_TIMEOUT_ERROR) {
+					return new SearchAbortError("SearchAborted");
+				}
 			}
-//			logger.debug("CACHE_PUT result>>{}, qr >>{}", searchResult, queryMap.queryString());
-
-//			logger.debug("ClusterSearchJob 수행시간 : {}", Strings.getHumanReadableTimeInterval((System.nanoTime() - st) / 1000000));
-			return new JobResult(searchResult);
-		}catch(IRException e){
-			throw new FastcatSearchException(e);
-        }catch(SearchError e){
-            errorMsg = e.getMessage();
-            if(e.getErrorCode() == ServerErrorCode.SEARCH_TIMEOUT_ERROR) {
-                throw new SearchAbortError("SearchAborted");
-            } else {
-                throw e;
-            }
-		} finally {
+			return e;
+		}
+
+		private void fail(Throwable e) {
+			Throwable error = toJobError(e);
+			writeSearchLog();
+			asyncError(error);
+		}
+
+		private void writeSearchLog() {
 			//로깅은 반드시 수행한다.
 			SearchLogger.writeSearchLog(collectionId, searchKeyword, searchResult, (System.nanoTime() - st) / 1000000, isCache, errorMsg, tagString);
 		}
@@ -2,6 +2,7 @@ package org.fastcatsearch.job.search;
 
 import org.fastcatsearch.cluster.Node;
 import org.fastcatsearch.cluster.NodeService;
+import org.fastcatsearch.control.JobLane;
 import org.fastcatsearch.control.ResultFuture;
 import org.fastcatsearch.error.SearchError;
 import org.fastcatsearch.error.ServerErrorCode;
@@ -39,6 +40,11 @@ public class ClusterSearchLongTestJob extends Job {
 	private static final long serialVersionUID = 2375551165135599911L;
 	protected static Logger searchLogger = LoggerFactory.getLogger("SEARCH_LOG");
 
+    @Override
+    public JobLane lane() {
+        return JobLane.SEARCH;
+    }
+
     @Override
     public JobResult doRun() throws FastcatSearchException {
 
@@ -303,7 +309,7 @@ public class ClusterSearchLongTestJob extends Job {
 			}
 			
 			if(!noCache && realSize > 0){
-				irService.searchCache().put(queryMap.queryString(), searchResult);
+				irService.searchCache().put(queryMap.queryString(), searchResult, collectionId);
 			}
 //			logger.debug("CACHE_PUT result>>{}, qr >>{}", searchResult, queryMap.queryString());
 
@@ -19,6 +19,7 @@ import org.fastcatsearch.ir.query.Metadata;
 import org.fastcatsearch.ir.query.Query;
 import org.fastcatsearch.ir.query.Result;
 import org.fastcatsearch.ir.search.CollectionHandler;
+import org.fastcatsearch.control.JobLane;
 import org.fastcatsearch.job.Job;
 import org.fastcatsearch.query.QueryParser;
 import org.fastcatsearch.service.ServiceManager;
@@ -29,6 +30,11 @@ public class DocumentSearchJob extends Job {
 	private String GROUP_SEPARATOR = "(?<!\\\\)&";
 	private String VALUE_SEPARATOR = "(?<!\\\\)=";
 	
+	@Override
+	public JobLane lane() {
+		return JobLane.SEARCH;
+	}
+
 	@Override
 	public JobResult doRun() throws FastcatSearchException {
 		String[] args = getStringArrayArgs();
@@ -84,7 +90,7 @@ public class DocumentSearchJob extends Job {
 //				result = collectionHandler.searcher().findDocument(collectionName, idStr);
 
             if(!noCache){
-                irService.documentCache().put(cacheKey, result);
+                irService.documentCache().put(cacheKey, result, collectionId);
             }
         }
 //			long st = System.currentTimeMillis();
@@ -26,6 +26,7 @@ import org.fastcatsearch.ir.query.Groups;
 import org.fastcatsearch.ir.query.Metadata;
 import org.fastcatsearch.ir.query.Query;
 import org.fastcatsearch.ir.search.CollectionHandler;
+import org.fastcatsearch.control.JobLane;
 import org.fastcatsearch.job.Job;
 import org.fastcatsearch.query.QueryMap;
 import org.fastcatsearch.query.QueryParser;
@@ -36,6 +37,11 @@ public class GroupSearchJob extends Job {
 	
 	private static final long serialVersionUID = 3171817565336360699L;
 
+	@Override
+	public JobLane lane() {
+		return JobLane.SEARCH;
+	}
+
 	@Override
 	public JobResult doRun() throws FastcatSearchException {
 		QueryMap queryMap = (QueryMap) getArgs();
@@ -76,7 +82,7 @@ public class GroupSearchJob extends Job {
                 Groups groups =q.getGroups();
 				groupResults = groups.getGroupResultsGenerator().generate(groupData);
 				if(groupResults != null){
-					irService.groupingCache().put(queryMap.queryString(), groupResults);
+					irService.groupingCache().put(queryMap.queryString(), groupResults, collection);
 				}
 			}
 			
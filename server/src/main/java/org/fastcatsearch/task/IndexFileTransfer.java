@@ -4,14 +4,19 @@ import java.io.File;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
 
 import org.fastcatsearch.cluster.Node;
 import org.fastcatsearch.cluster.NodeService;
+import org.fastcatsearch.control.ResultFuture;
 import org.fastcatsearch.env.Environment;
 import org.fastcatsearch.exception.FastcatSearchException;
+import org.fastcatsearch.job.cluster.NodeFileLengthJob;
+import org.fastcatsearch.settings.Settings;
 import org.fastcatsearch.transport.TransportException;
 import org.fastcatsearch.transport.common.SendFileResultFuture;
+import org.fastcatsearch.transport.vo.StreamableLong;
 import org.fastcatsearch.util.FileUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -21,9 +26,17 @@ public class IndexFileTransfer {
 	private static Logger logger = LoggerFactory.getLogger(IndexFileTransfer.class);
 
 	private Environment environment;
+	
+	//노드별로 동시에 전송하는 파일갯수.
+	private int inFlightSize;
+	//연결이 끊기거나 전송이 실패했을때 이어보내기 재시도 횟수.
+	private int maxRetry;
 
 	public IndexFileTransfer(Environment environment) {
 		this.environment = environment;
+		Settings settings = environment.settingManager().getSystemSettings();
+		this.inFlightSize = Math.max(1, settings.getInt("node.transport.send_file_in_flight", 4));
+		this.maxRetry = Math.max(0, settings.getInt("node.transport.send_file_retry", 3));
 	}
 
 	// 세그먼트를 전송한다.
@@ -31,10 +44,7 @@ public class IndexFileTransfer {
 		boolean[] resultList = new boolean[nodeList.size()];
 		logger.debug("tranferDirectory >> {}", directory.getAbsolutePath());
 		Collection<File> files = FileUtils.listFiles(directory, null, true);
-		int totalFileCount = files.size();
 
-		// TODO 순차적전송을 개선하여 더 빠른 방법을 찾아보자.
-		OUTTER:
 		for (int i = 0; i < nodeList.size(); i++) {
 			Node node = nodeList.get(i);
 			if(!node.isActive()){
@@ -45,37 +55,12 @@ public class IndexFileTransfer {
 				continue;
 			}
 			logger.debug("Send File Nodes [{} / {}] {}", new Object[] { i + 1, nodeList.size(), node });
-			Iterator<File> fileIterator = files.iterator();
-			int fileCount = 1;
-			while (fileIterator.hasNext()) {
-				File sourceFile = fileIterator.next();
-				File relativeFile = environment.filePaths().relativise(sourceFile);
-				logger.info("[{} / {}]파일 {} 전송시작! ", new Object[] { fileCount, totalFileCount, sourceFile.getPath() });
-
-				SendFileResultFuture sendFileResultFuture;
-				try {
-					sendFileResultFuture = nodeService.sendFile(node, sourceFile, relativeFile);
-				} catch (TransportException e) {
-					logger.error("Transport exception sending {} to {} : {}", sourceFile.getName(), node, e);
-					continue OUTTER; //다음노드로.
-				}
-				if (sendFileResultFuture != null) {
-					Object result = sendFileResultFuture.take();
-					if (sendFileResultFuture.isSuccess()) {
-						logger.info("[{} / {}]파일 {} 전송완료!", new Object[] { fileCount, totalFileCount, relativeFile.getPath() });
-					} else {
-						logger.error("Fail to send {} to {} : {}", sourceFile.getName(), node);
-						continue OUTTER; //다음노드로.
-					}
-				} else {
-					// null이라면 디렉토리 또는 동일노드..
-					logger.warn("skip file {} to {}", sourceFile.getName(), node);
-					continue; //다음파일로...
-				}
-
-				fileCount++;
+			try {
+				sendFiles(files, nodeService, node);
+			} catch (TransportException e) {
+				logger.error("Fail to send directory {} to {} : {}", new Object[] { directory.getName(), node, e.getMessage() });
+				continue; //다음노드로.
 			}
-
 			resultList[i] = true;
 		}
 		
@@ -94,39 +79,107 @@ public class IndexFileTransfer {
 			files = new HashSet<File>();
 			files.add(file);
 		}
+		sendFiles(files, nodeService, node);
+	}
+	
+	/*
+	 * 파일을 inFlightSize 갯수만큼 동시에 보내고, 먼저 보낸 파일부터 결과를 확인한다.
+	 * 실패한 파일은 수신노드에 기록된 길이부터 이어서 다시 보낸다.
+	 */
+	private void sendFiles(Collection<File> files, NodeService nodeService, Node node) throws TransportException {
 		int totalFileCount = files.size();
+		LinkedList<FileTransfer> window = new LinkedList<FileTransfer>();
 		Iterator<File> fileIterator = files.iterator();
 		int fileCount = 1;
-		
 		while (fileIterator.hasNext()) {
 			File sourceFile = fileIterator.next();
 			File relativeFile = environment.filePaths().relativise(sourceFile);
 			logger.info("[{} / {}]파일 {} 전송시작! ", new Object[] { fileCount, totalFileCount, sourceFile.getPath() });
-
+			
+			if (window.size() >= inFlightSize) {
+				complete(window.removeFirst(), nodeService, node, totalFileCount);
+			}
+			
 			SendFileResultFuture sendFileResultFuture = null;
 			try {
 				sendFileResultFuture = nodeService.sendFile(node, sourceFile, relativeFile);
 			} catch (TransportException e) {
-				logger.error("Transport exception sending {} to {} : {}", sourceFile.getName(), node, e);
+				logger.error("Transport exception sending {} to {} : {}", new Object[] { sourceFile.getName(), node, e });
 				throw e;
 			}
-			if (sendFileResultFuture != null) {
-				logger.debug("파일전송 결과대기.");
-				Object result = sendFileResultFuture.take();
-				logger.debug("파일전송 결과받음 >> {}", result);
-				if (sendFileResultFuture.isSuccess()) {
-					logger.info("[{} / {}]파일 {} 전송완료!", new Object[] { fileCount, totalFileCount, relativeFile.getPath() });
-				} else {
-					logger.error("Fail to send {} to {} : {}", sourceFile.getName(), node);
-					throw new TransportException("Fail to send file "+sourceFile.getName());
-				}
-			} else {
+			if (sendFileResultFuture == null) {
 				// null이라면 디렉토리 또는 동일노드..
 				logger.warn("skip file {} to {}", sourceFile.getName(), node);
 				continue; //다음파일로...
 			}
-
+			window.add(new FileTransfer(fileCount, sourceFile, relativeFile, sendFileResultFuture));
 			fileCount++;
 		}
+		
+		while (!window.isEmpty()) {
+			complete(window.removeFirst(), nodeService, node, totalFileCount);
+		}
+	}
+	
+	private void complete(FileTransfer transfer, NodeService nodeService, Node node, int totalFileCount) throws TransportException {
+		int retry = 0;
+		while (true) {
+			if (transfer.resultFuture != null) {
+				logger.debug("파일전송 결과대기.");
+				Object result = transfer.resultFuture.take();
+				logger.debug("파일전송 결과받음 >> {}", result);
+				if (transfer.resultFuture.isSuccess()) {
+					logger.info("[{} / {}]파일 {} 전송완료!", new Object[] { transfer.seq, totalFileCount, transfer.relativeFile.getPath() });
+					return;
+				}
+				logger.error("Fail to send {} to {} : {}", new Object[] { transfer.sourceFile.getName(), node, result });
+			}
+			if (retry >= maxRetry) {
+				throw new TransportException("Fail to send file " + transfer.sourceFile.getName());
+			}
+			retry++;
+			try {
+				//재연결할 시간을 준다.
+				Thread.sleep(1000L * retry);
+			} catch (InterruptedException e) {
+				throw new TransportException("Interrupted while sending file " + transfer.sourceFile.getName());
+			}
+			
+			long offset = receivedLength(nodeService, node, transfer);
+			logger.info("파일 {} 이어서 전송 retry[{}/{}] offset[{}]", new Object[] { transfer.relativeFile.getPath(), retry, maxRetry, offset });
+			try {
+				transfer.resultFuture = nodeService.sendFile(node, transfer.sourceFile, transfer.relativeFile, offset);
+			} catch (TransportException e) {
+				logger.error("Transport exception sending {} to {} : {}", new Object[] { transfer.sourceFile.getName(), node, e.getMessage() });
+				transfer.resultFuture = null;
+			}
+		}
+	}
+	
+	//수신노드에 기록된 파일길이. 알수 없으면 처음부터 보낸다.
+	private long receivedLength(NodeService nodeService, Node node, FileTransfer transfer) {
+		ResultFuture resultFuture = nodeService.sendRequest(node, new NodeFileLengthJob(transfer.relativeFile.getPath()));
+		if (resultFuture == null) {
+			return 0;
+		}
+		Object result = resultFuture.take();
+		if (resultFuture.isSuccess() && result instanceof StreamableLong) {
+			return Math.min(((StreamableLong) result).value(), transfer.sourceFile.length());
+		}
+		return 0;
+	}
+	
+	private static class FileTransfer {
+		private int seq;
+		private File sourceFile;
+		private File relativeFile;
+		private SendFileResultFuture resultFuture;
+		
+		private FileTransfer(int seq, File sourceFile, File relativeFile, SendFileResultFuture resultFuture) {
+			this.seq = seq;
+			this.sourceFile = sourceFile;
+			this.relativeFile = relativeFile;
+			this.resultFuture = resultFuture;
+		}
 	}
 }
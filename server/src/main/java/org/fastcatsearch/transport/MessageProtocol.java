@@ -71,6 +71,13 @@ public class MessageProtocol {
 //	}
 	
 	public static void writeHeader(ChannelBuffer buffer, byte type, long requestId, byte status) {
+		writeHeader(buffer, type, requestId, status, 0);
+	}
+	
+	/**
+	 * 버퍼 뒤에 followingLength 만큼의 데이터가 따로 기록되는 메시지의 헤더. ex) FileRegion 으로 전송하는 파일데이터
+	 * */
+	public static void writeHeader(ChannelBuffer buffer, byte type, long requestId, byte status, int followingLength) {
 		int index = buffer.readerIndex();
         buffer.setByte(index, HEADER[0]);
         index += 1;
@@ -78,7 +85,7 @@ public class MessageProtocol {
         index += 1;
         buffer.setByte(index, type);
         index += 1;
-        buffer.setInt(index, buffer.readableBytes() - 7);
+        buffer.setInt(index, buffer.readableBytes() - 7 + followingLength);
         index += 4;
         buffer.setLong(index, requestId);
         index += 8;
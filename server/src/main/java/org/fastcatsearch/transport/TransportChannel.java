@@ -61,7 +61,7 @@ public class TransportChannel {
         
         ChannelBuffer buffer = stream.bytesReference().toChannelBuffer();
         MessageProtocol.writeHeader(buffer, type, requestId, status);
-        ChannelFuture future = channel.write(buffer);
+        ChannelFuture future = TransportModule.write(channel, buffer);
         future.addListener(new TransportModule.CacheFutureListener(cachedEntry));
     }
     public void sendResponse(Streamable response) throws IOException {
@@ -78,7 +78,7 @@ public class TransportChannel {
         
         ChannelBuffer buffer = stream.bytesReference().toChannelBuffer();
         MessageProtocol.writeHeader(buffer, type, requestId, status);
-        ChannelFuture future = channel.write(buffer);
+        ChannelFuture future = TransportModule.write(channel, buffer);
         future.addListener(new TransportModule.CacheFutureListener(cachedEntry));
     }
     
@@ -97,7 +97,7 @@ public class TransportChannel {
         
         ChannelBuffer buffer = stream.bytesReference().toChannelBuffer();
         MessageProtocol.writeHeader(buffer, type, requestId, status);
-        ChannelFuture future = channel.write(buffer);
+        ChannelFuture future = TransportModule.write(channel, buffer);
         future.addListener(new TransportModule.CacheFutureListener(cachedEntry));
     }
    
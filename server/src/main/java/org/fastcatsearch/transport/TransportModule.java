@@ -1,11 +1,8 @@
 package org.fastcatsearch.transport;
 
 
-import org.apache.commons.io.FileUtils;
 import org.fastcatsearch.cluster.Node;
-import org.fastcatsearch.common.BytesReference;
 import org.fastcatsearch.common.ThreadPoolFactory;
-import org.fastcatsearch.common.io.BlockingCachedStreamOutput;
 import org.fastcatsearch.common.io.BytesStreamOutput;
 import org.fastcatsearch.common.io.CachedStreamOutput;
 import org.fastcatsearch.common.io.Streamable;
@@ -29,7 +26,10 @@ import org.jboss.netty.util.HashedWheelTimer;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.RandomAccessFile;
 import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.UUID;
@@ -37,6 +37,7 @@ import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
 
 public class TransportModule extends AbstractModule {
 	
@@ -72,11 +73,8 @@ public class TransportModule extends AbstractModule {
 	private int sendFileChunkSize;
     private JobExecutor jobExecutor;
     
-    private int cachedQueueSize;
-    
     private final ReadWriteLock globalLock = new ReentrantReadWriteLock();
     private FileTransportHandler fileTransportHandler;
-    private BlockingCachedStreamOutput fileStreamOutputCache;
 
 	//색인 데이터 전송시 별도 대역폭의 네트워크를 생성하는지 여부.
 	private boolean hasSeparateDataNetwork;
@@ -107,11 +105,14 @@ public class TransportModule extends AbstractModule {
         this.tcpSendBufferSize = settings.getInt("tcp_send_buffer_size", 1048576);
         this.tcpReceiveBufferSize = settings.getInt("tcp_receive_buffer_size", 1048576);
         this.sendFileChunkSize = (int) settings.getByteSize("send_file_chunk_size", 3 * 1024 * 1024);
-        this.cachedQueueSize = (int) settings.getInt("send_file_cache_queue_size", 10);
         logger.debug("Transport setting worker_count[{}], port[{}], connect_timeout[{}]",
                 new Object[]{workerCount, port, connectTimeout});
         
-		this.executorService = ThreadPoolFactory.newUnlimitedCachedDaemonThreadPool("transport-pool");
+		//요청처리 쓰레드는 작업을 JobService 레인에 넣고 바로 돌아오므로 많이 둘 필요가 없다.
+		//큐가 가득차면 IO 쓰레드에서 직접 처리하여 읽기속도를 늦춘다.
+		int poolSize = settings.getInt("pool_size", Runtime.getRuntime().availableProcessors() * 2);
+		int queueSize = settings.getInt("queue_size", poolSize * 1000);
+		this.executorService = ThreadPoolFactory.newBoundedDaemonThreadPool("transport-pool", poolSize, queueSize);
 		/*
 		 * Client
 		 * */
@@ -184,8 +185,7 @@ public class TransportModule extends AbstractModule {
         
         connectedNodes = new ConcurrentHashMap<Node, NodeChannels>();
         resultFutureMap = new ConcurrentHashMap<Long, ResultFuture>();
-        
-        fileStreamOutputCache = new BlockingCachedStreamOutput(cachedQueueSize, sendFileChunkSize + 3 * 1024);
+
         return true;
 	}
 	
@@ -221,8 +221,6 @@ public class TransportModule extends AbstractModule {
                         clientBootstrap.releaseExternalResources();
                         clientBootstrap = null;
                     }
-                    
-                    fileStreamOutputCache.clear();
                 } finally {
                     globalLock.writeLock().unlock();
                     latch.countDown();
@@ -402,21 +400,29 @@ public class TransportModule extends AbstractModule {
     }
     
     public SendFileResultFuture sendFile(final Node node, File sourcefile, File targetFile) throws TransportException {
+    	return sendFile(node, sourcefile, targetFile, 0);
+    }
+    
+    /**
+     * 파일을 offset 위치부터 전송한다. 연결이 끊겨 중단된 전송을 수신측에 기록된 길이부터 이어서 보낼때 사용한다.
+     * 전송중 채널이 닫히면 결과객체는 TransportException 으로 실패처리된다.
+     * */
+    public SendFileResultFuture sendFile(final Node node, File sourcefile, File targetFile, long offset) throws TransportException {
     	if(node == null){
     		throw new TransportException("node is null");
     	}
-//    	if(!node.isActive()){
-//    		throw new TransportException("node is not active : "+node.toString());
-//    	}
     	final long requestId = newRequestId();
     	try {
     		SendFileResultFuture resultFuture = new SendFileResultFuture(requestId, resultFutureMap);
             resultFutureMap.put(requestId, resultFuture);
-            sendFileRequest(node, requestId, sourcefile, targetFile, resultFuture);
+            sendFileRequest(node, requestId, sourcefile, targetFile, offset, resultFuture);
             
             return resultFuture;
         } catch (final Exception e) {
-            resultFutureMap.remove(requestId);
+            ResultFuture resultFuture = resultFutureMap.remove(requestId);
+            if(resultFuture instanceof SendFileResultFuture){
+            	((SendFileResultFuture) resultFuture).detachChannel();
+            }
            
            throw new TransportException("메시지 전송중 에러발생.", e);
         }
@@ -424,6 +430,9 @@ public class TransportModule extends AbstractModule {
     
     public void resultReceived(long requestId, Object result) {
     	ResultFuture resultFuture = resultFutureMap.remove(requestId);
+    	if(resultFuture instanceof SendFileResultFuture){
+    		((SendFileResultFuture) resultFuture).detachChannel();
+    	}
     	if(resultFuture == null){
     		//입력할 결과객체가 없음.
     		logger.warn("입력할 결과객체가 없음. timeout으로 제거되었을수있습니다. requestId={}, result={}", requestId, result);
@@ -434,6 +443,9 @@ public class TransportModule extends AbstractModule {
 
 	public void exceptionReceived(long requestId, StreamableThrowable e) {
 		ResultFuture resultFuture = resultFutureMap.remove(requestId);
+		if(resultFuture instanceof SendFileResultFuture){
+    		((SendFileResultFuture) resultFuture).detachChannel();
+    	}
     	if(resultFuture == null){
     		//입력할 결과객체가 없음.
     		logger.warn("입력할 결과객체가 없음. timeout으로 제거되었을수있습니다. requestId={}, Throwable={}", requestId, e.getThrowable());
@@ -473,9 +485,19 @@ public class TransportModule extends AbstractModule {
         ChannelBuffer buffer = stream.bytesReference().toChannelBuffer();
         MessageProtocol.writeHeader(buffer, type, requestId, status);
 
-        ChannelFuture future = targetChannel.write(buffer);
+        ChannelFuture future = write(targetChannel, buffer);
         future.addListener(new CacheFutureListener(cachedEntry));
     }
+    
+    /**
+     * 파일청크는 헤더와 FileRegion 두번에 나누어 기록하며 그 사이에 다른 메시지가 끼면 수신측 프레임이 깨진다.
+     * 채널에 메시지를 기록할때는 항상 채널을 잠그고 기록한다.
+     * */
+    public static ChannelFuture write(Channel channel, ChannelBuffer buffer) {
+    	synchronized (channel) {
+    		return channel.write(buffer);
+    	}
+    }
 	
     private String getHashedFilePath(String filePath){
         UUID uuid = UUID.nameUUIDFromBytes(filePath.getBytes());
@@ -483,111 +505,141 @@ public class TransportModule extends AbstractModule {
     }
     
     /*
-     * header + seq(4) + [filepath(string) + filesize(long) + checksumCRC32(long)]+ hashfilepath(string) + datalength(vint) + data 
+     * header + seq(4) + [filepath(string) + filesize(long) + offset(long)] + hashfilepath(string) + chunkCRC32(long) + datalength(vint) + data
+     * 
+     * data 는 힙에 복사하지 않고 FileRegion 으로 소켓에 직접 전송(transferTo)한다.
+     * 청크의 checksum 은 앞 청크가 IO 쓰레드에서 전송되는 동안 페이지캐시에서 읽어 계산하므로 파일 전체를 미리 읽지 않는다.
      * */
-	private void sendFileRequest(final Node node, final long requestId, File sourcefile, File targetFile, SendFileResultFuture resultFuture) throws IOException, TransportException {
+	private void sendFileRequest(final Node node, final long requestId, File sourcefile, File targetFile, long offset, final SendFileResultFuture resultFuture) throws IOException, TransportException {
 		NodeChannels channels = getNodeChannels(node);
 		Channel targetChannel = channels.getLowChannel();
 		byte type = 0;
 		type = TransportOption.setTypeFile(type);
 		byte status = 0;
-		logger.debug("sendFileRequest {} type={}, {} >> {}", targetChannel, type, sourcefile.getAbsolutePath(), targetFile.getPath());
-        FileChunkEnumeration enumeration = null;
-        try{
-        	if(!sourcefile.exists()){
-        		throw new IOException("파일을 찾을수 없습니다.file = " + sourcefile.getAbsolutePath());
-        	}
-        	enumeration = new FileChunkEnumeration(sourcefile, sendFileChunkSize);
-	    	long checksumCRC32 = FileUtils.checksumCRC32(sourcefile);//checksum 생성은 시간이 조금 소요되는 작업. 3G => 10초.
-	        long fileSize = sourcefile.length();
-	        long writeSize = 0;
+		logger.debug("sendFileRequest {} type={}, {} >> {}, offset={}", new Object[]{targetChannel, type, sourcefile.getAbsolutePath(), targetFile.getPath(), offset});
+		if(!sourcefile.exists()){
+			throw new IOException("파일을 찾을수 없습니다.file = " + sourcefile.getAbsolutePath());
+		}
+		
+		//전송중 연결이 끊기면 결과를 기다리지 않도록 바로 실패처리한다.
+		ChannelFutureListener closeListener = new ChannelFutureListener() {
+			@Override
+			public void operationComplete(ChannelFuture future) throws Exception {
+				ResultFuture removed = resultFutureMap.remove(requestId);
+				if(removed != null){
+					removed.put(new TransportException("파일전송중 연결이 끊어졌습니다. requestId=" + requestId), false);
+				}
+			}
+		};
+		resultFuture.attachChannel(targetChannel, closeListener);
+		
+		final RandomAccessFile raf = new RandomAccessFile(sourcefile, "r");
+		ChannelFuture lastFuture = null;
+		try{
+			FileChannel fileChannel = raf.getChannel();
+	        long fileSize = fileChannel.size();
+	        if(offset < 0 || offset > fileSize){
+	        	throw new IOException("잘못된 전송위치입니다. offset=" + offset + ", filesize=" + fileSize + ", file=" + sourcefile.getAbsolutePath());
+	        }
 	        String sourceFilePath = sourcefile.getAbsolutePath();
 	        String targetFilePath = targetFile.getPath(); //원래 path를 그대로 이용해서 상대경로전송이 가능하도록 한다.
 	        String hashedFilePath = getHashedFilePath(sourceFilePath);
-	        logger.debug("Send filesize ={}, crc={}, file={}", new Object[]{fileSize, checksumCRC32, sourceFilePath});	        
+	        logger.debug("Send filesize ={}, offset={}, file={}", new Object[]{fileSize, offset, sourceFilePath});
 	        
-	    	for(int seq = 0; enumeration.hasMoreElements(); seq++){
-	    		if(resultFuture.isCanceled()){
+	        CRC32 crc32 = new CRC32();
+	        byte[] checksumBuffer = new byte[64 * 1024];
+	        long position = offset;
+	        int seq = 0;
+	        //파일크기가 0 이거나 이미 모두 전송된 경우에도 완료를 알리기 위해 빈 청크 하나는 보낸다.
+	        do {
+	        	if(resultFuture.isCanceled() || !targetChannel.isConnected()){
 	    			break;
 	    		}
-	    		
-	    		BytesReference bytesRef = enumeration.nextElement();
-//	    		logger.debug("write file seq ={}, length={}", seq, bytesRef.length());
-	    		
-	    		writeSize += bytesRef.length();
-	    		
-//	    		CachedStreamOutput.Entry cachedEntry = CachedStreamOutput.popEntry();
-	    		BlockingCachedStreamOutput.Entry cachedEntry = fileStreamOutputCache.popEntry();
-	            BytesStreamOutput stream = cachedEntry.bytes();
-	            stream.skip(MessageProtocol.HEADER_SIZE);
-	    		
-	            //write seq ( 0,1,2,3,4....)
-	            stream.writeInt(seq);
-	            
-	            if(seq == 0){
-	            	//시작시에는 파일명과 총파일크기를 보낸다.
-	                //write file path
-	                stream.writeString(targetFilePath);
-	                //write file size
-	                stream.writeLong(fileSize);
-	                stream.writeLong(checksumCRC32);
-	            }
-	            
-	            stream.writeString(hashedFilePath);
-	            
-	            
-	            //write file data
-	            stream.writeVInt(bytesRef.length());
-	            if(bytesRef.length() > 0){
-	            	stream.write(bytesRef.array(), bytesRef.arrayOffset(), bytesRef.length());
-	            }
-	            
-	            stream.close();
-	            //TODO 만약 이 라인 이전에 에러발생시 cache가 리턴되지 않고 누락되는 잠재버그가 발생할수있다.
-	            
-	            ChannelBuffer buffer = stream.bytesReference().toChannelBuffer();
-	            MessageProtocol.writeHeader(buffer, type, requestId, status);
-	            //
-	            //TEST buffer 검증.
-	            //
-	            int readerIndex = buffer.readerIndex();
-	            readerIndex += 2;
-	            assert type == buffer.getByte(readerIndex);
-	            readerIndex += 1;
-	            readerIndex += 4;
-	            
-	            assert requestId == buffer.getLong(readerIndex);
-	            readerIndex += 8;
-	            assert status == buffer.getByte(readerIndex);
-	            readerIndex += 1;
-	            assert seq == buffer.getInt(readerIndex);
-	            readerIndex += 4;
-	            
-	            ChannelFuture future = targetChannel.write(buffer);
-	            future.addListener(new BlockingCacheFutureListener(fileStreamOutputCache, cachedEntry));
-	    	}
-        
-	    	
+	        	int length = (int) Math.min(sendFileChunkSize, fileSize - position);
+	        	
+	        	crc32.reset();
+	        	long readPosition = position;
+	        	long readEnd = position + length;
+	        	while(readPosition < readEnd){
+	        		int n = fileChannel.read(ByteBuffer.wrap(checksumBuffer, 0, (int) Math.min(checksumBuffer.length, readEnd - readPosition)), readPosition);
+	        		if(n < 0){
+	        			throw new IOException("파일을 끝까지 읽을수 없습니다. position=" + readPosition + ", file=" + sourceFilePath);
+	        		}
+	        		crc32.update(checksumBuffer, 0, n);
+	        		readPosition += n;
+	        	}
+	        	
+	        	//앞 청크가 소켓에 기록된 뒤에 다음 청크를 넣는다. 수신측이 느려도 쓰기큐에 파일 전체가 쌓이지 않는다.
+	        	//checksum 은 기다리기 전에 계산하므로 앞 청크의 전송과 겹쳐서 수행된다.
+	        	if(lastFuture != null && !awaitWritten(lastFuture, resultFuture)){
+	        		break;
+	        	}
+	        	
+	        	CachedStreamOutput.Entry cachedEntry = CachedStreamOutput.popEntry();
+	        	BytesStreamOutput stream = cachedEntry.bytes();
+	        	stream.skip(MessageProtocol.HEADER_SIZE);
+	        	//write seq ( 0,1,2,3,4....)
+	        	stream.writeInt(seq);
+	        	if(seq == 0){
+	        		//시작시에는 파일명과 총파일크기, 시작위치를 보낸다.
+	        		stream.writeString(targetFilePath);
+	        		stream.writeLong(fileSize);
+	        		stream.writeLong(offset);
+	        	}
+	        	stream.writeString(hashedFilePath);
+	        	stream.writeLong(crc32.getValue());
+	        	stream.writeVInt(length);
+	        	stream.close();
+	        	
+	        	ChannelBuffer buffer = stream.bytesReference().toChannelBuffer();
+	        	MessageProtocol.writeHeader(buffer, type, requestId, status, length);
+	        	
+	        	//같은 채널로 여러 파일과 메시지가 동시에 전송되므로 헤더와 데이터 사이에 다른 메시지가 끼지 않도록 한다. write(Channel, ChannelBuffer) 와 같은 잠금을 사용한다.
+	        	synchronized (targetChannel) {
+	        		targetChannel.write(buffer).addListener(new CacheFutureListener(cachedEntry));
+	        		if(length > 0){
+	        			lastFuture = targetChannel.write(new DefaultFileRegion(fileChannel, position, length, false));
+	        		}
+	        	}
+	        	position += length;
+	        	seq++;
+	        } while(position < fileSize);
+	        
 	    	if(resultFuture.isCanceled()){
     			logger.info("파일전송이 중단되었습니다. file={}", sourceFilePath);
+    		}else if(position != fileSize){
+    			logger.error("파일전송이 중단되었습니다. sent={}, filesize={}, file={}", new Object[]{position, fileSize, sourceFilePath});
     		}else{
-		    	assert fileSize == writeSize: "파일사이즈가 다릅니다.";
-		    	if(fileSize != writeSize){
-		    		logger.error("파일사이즈가 다릅니다. expected={}, actual={}, file={}", new Object[]{fileSize, writeSize, sourceFilePath});
-		    	}else{
-		    		logger.info("File Write Done filesize={}, file={}", writeSize, sourceFilePath);
-		    	}
+    			logger.info("File Write Done filesize={}, offset={}, file={}", new Object[]{fileSize, offset, sourceFilePath});
     		}
-        }catch(Throwable t){
-        	logger.error("", t);
-        	throw new IOException(t);
         }finally{
-        	if(enumeration != null){
-        		enumeration.close();
+        	//마지막 데이터가 소켓으로 전송된 뒤에 파일을 닫는다.
+        	if(lastFuture != null){
+        		lastFuture.addListener(new ChannelFutureListener() {
+					@Override
+					public void operationComplete(ChannelFuture future) throws Exception {
+						raf.close();
+					}
+				});
+        	}else{
+        		raf.close();
         	}
         }
 	}
 	
+	/*
+	 * 청크의 기록이 끝나기를 기다린다. 기록에 실패했거나 전송이 취소되었으면 false.
+	 * 느린 수신측 때문에 오래 걸릴수 있으므로 중간중간 취소여부를 확인한다.
+	 * */
+	private boolean awaitWritten(ChannelFuture future, SendFileResultFuture resultFuture) {
+		while(!future.awaitUninterruptibly(1000)){
+			if(resultFuture.isCanceled()){
+				return false;
+			}
+		}
+		return future.isSuccess();
+	}
+	
 	public void disconnectFromNode(Node node) {
 		logger.debug("disconnectFromNode > {}", node);
 		synchronized (connectLock(node.id())) {
@@ -632,22 +684,6 @@ public class TransportModule extends AbstractModule {
         }
     }
 	
-	public static class BlockingCacheFutureListener implements ChannelFutureListener {
-
-        private final BlockingCachedStreamOutput.Entry cachedEntry;
-        private final BlockingCachedStreamOutput cache;
-
-        public BlockingCacheFutureListener(BlockingCachedStreamOutput cache, BlockingCachedStreamOutput.Entry cachedEntry) {
-        	this.cache = cache;
-            this.cachedEntry = cachedEntry;
-        }
-
-        @Override
-        public void operationComplete(ChannelFuture channelFuture) throws Exception {
-        	cache.pushEntry(cachedEntry);
-        }
-    }
-
 	public void execute(Runnable requestRunnable) {
 		executorService.execute(requestRunnable);
 	}
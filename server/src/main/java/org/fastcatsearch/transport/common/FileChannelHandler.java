@@ -89,30 +89,38 @@ public class FileChannelHandler extends SimpleChannelUpstreamHandler {
 
 	@Override
 	public void channelClosed(ChannelHandlerContext ctx, ChannelStateEvent e) throws Exception {
+		fileHandler.abort(ctx.getChannel());
 		super.channelClosed(ctx, e);
 	}
 
 	private void handleFileTransportRequest(Channel channel, DataInput input, long requestId) throws IOException {
 		logger.debug("File Handler >> {}, mapsize={}", this, fileResponseChannelMap.size());
-		// seq(4) + [filepath(string) + filesize(long) + checksumCRC32(long)]+hashfilepath(string) + datalength(vint) + data
+		// seq(4) + [filepath(string) + filesize(long) + offset(long)] + hashfilepath(string) + chunkCRC32(long) + datalength(vint) + data
 		int seq = input.readInt();
 		String filePath = null;
 		long fileSize = -1;
-		long checksumCRC32 = 0;
+		long offset = 0;
 		if (seq == 0) {
 			filePath = input.readString();
 			fileSize = input.readLong();
-			checksumCRC32 = input.readLong();
-			logger.debug("File Receive seq={}, filesize={}, crc={}, file={}", new Object[] { seq, fileSize, checksumCRC32, filePath });
+			offset = input.readLong();
+			logger.debug("File Receive seq={}, filesize={}, offset={}, file={}", new Object[] { seq, fileSize, offset, filePath });
 		}
 		String fileKey = input.readString();
 
 		TransportChannel transportChannel = fileResponseChannelMap.get(fileKey);
-		if (transportChannel == null) {
+		if (seq == 0 || transportChannel == null) {
+			//다시 전송하는 경우 새 요청번호로 결과를 보내야 한다.
 			transportChannel = new TransportChannel(channel, requestId);
 			fileResponseChannelMap.put(fileKey, transportChannel);
 		}
-		boolean isDone = fileHandler.handleFile(seq, filePath, fileSize, checksumCRC32, fileKey, input);
+		boolean isDone = false;
+		try {
+			isDone = fileHandler.handleFile(channel, seq, filePath, fileSize, offset, fileKey, input);
+		} catch (IOException e) {
+			fileResponseChannelMap.remove(fileKey);
+			throw e;
+		}
 
 		if (isDone) {
 			fileResponseChannelMap.remove(fileKey);
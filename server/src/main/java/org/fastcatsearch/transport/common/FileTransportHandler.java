@@ -2,15 +2,17 @@ package org.fastcatsearch.transport.common;
 
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
 
-import org.apache.commons.io.FileUtils;
 import org.fastcatsearch.common.Strings;
 import org.fastcatsearch.env.Path;
 import org.fastcatsearch.ir.io.DataInput;
+import org.jboss.netty.channel.Channel;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -26,44 +28,38 @@ public class FileTransportHandler {
 	}
 	
 	//마지막 청크기록으로 모두 끝났다면 true 전송.
-	//IO에러 또는 체크섬 불일치 에러는 IOException를 던진다.
-	public boolean handleFile(int seq, String filePath, long fileSize, long checksumCRC32, String fileKey, DataInput input) throws IOException {
+	//IO에러 또는 청크 checksum 불일치 에러는 IOException를 던진다.
+	public boolean handleFile(Channel channel, int seq, String filePath, long fileSize, long offset, String fileKey, DataInput input) throws IOException {
 		FileStreamHandle fileHandle = fileMap.get(fileKey);
 		if(seq == 0){
-			//새로 생성.
-			if(fileHandle == null){
-				File file = path.makePath(filePath).file();
-				logger.debug("## {} >> {}", filePath, file);
-				try {
-//					File file = new File(absolutePath);
-					File dir = file.getParentFile();
-					if(dir != null){
-						dir.mkdirs();
-					}
-					fileHandle = new FileStreamHandle(file, fileSize, checksumCRC32);
-					fileMap.put(fileKey, fileHandle);
-					logger.debug("File handle map size = {}", fileMap.size());
-				} catch (FileNotFoundException e) {
-					logger.error("파일을 생성할수 없습니다.", e);
-					throw new IOException("파일을 생성할수 없습니다.", e);
-				}
-			}else{
-				//발생하면 안되는 경우.
-				logger.error("seq가 0인데 map에 동일 파일수신이 남아있습니다.seq={}, filePath={}", seq, filePath);
+			if(fileHandle != null){
+				//이전 전송이 중단된 뒤 다시 보내는 경우. 이전 핸들은 닫고 새로 연다.
+				logger.warn("중단된 파일수신을 새로 시작합니다. offset={}, filePath={}", offset, filePath);
+				fileMap.remove(fileKey);
+				fileHandle.closeQuietly();
+			}
+			File file = path.makePath(filePath).file();
+			logger.debug("## {} >> {}, offset={}", new Object[]{filePath, file, offset});
+			File dir = file.getParentFile();
+			if(dir != null){
+				dir.mkdirs();
 			}
+			fileHandle = new FileStreamHandle(channel, file, fileSize, offset);
+			fileMap.put(fileKey, fileHandle);
+			logger.debug("File handle map size = {}", fileMap.size());
 		}
 		
 		if(fileHandle == null){
 			//null일경우는 이전 seq에서 에러발생한 경우.
 			//더 이상 파일을 기록하지 않는다.
 			throw new IOException("파일핸들이 없습니다.");
-//			return;
 		}
 		
 		try{
 			fileHandle.write(input);
 		}catch(IOException e){
 			fileMap.remove(fileKey);
+			fileHandle.closeQuietly();
 			throw e;
 		}
 		
@@ -73,8 +69,6 @@ public class FileTransportHandler {
 			} finally {
 				fileMap.remove(fileKey);
 			}
-			fileHandle.doChecksumValidation();
-			
 			//모두 기록했다면 true
 			return true;
 		}
@@ -82,36 +76,72 @@ public class FileTransportHandler {
 		return false;
 	}
 	
+	/**
+	 * 채널이 닫히면 해당 채널로 수신중이던 파일을 닫는다. 기록된 부분은 남겨두어 이어받기에 사용한다.
+	 * */
+	public void abort(Channel channel) {
+		Iterator<Map.Entry<String, FileStreamHandle>> iterator = fileMap.entrySet().iterator();
+		while(iterator.hasNext()){
+			FileStreamHandle fileHandle = iterator.next().getValue();
+			if(fileHandle.channel == channel){
+				iterator.remove();
+				logger.warn("연결이 끊겨 파일수신을 중단합니다. wrote={}/{}, file={}", new Object[]{fileHandle.position, fileHandle.fileSize, fileHandle.filePath});
+				fileHandle.closeQuietly();
+			}
+		}
+	}
+	
+	public int size() {
+		return fileMap.size();
+	}
+	
 	class FileStreamHandle {
+		Channel channel;
 		String filePath;
 		long fileSize;
-		long checksumCRC32;
-		File file;
-		FileOutputStream fos;
-		long wroteBytes;
-		byte[] buf = new byte[1024];
+		RandomAccessFile raf;
+		long position;
+		byte[] buf = new byte[64 * 1024];
+		CRC32 crc32 = new CRC32();
 		long startTime = System.currentTimeMillis();
 		
-		public FileStreamHandle(File file, long fileSize, long checksumCRC32) throws IOException{
-			this.file = file;
+		public FileStreamHandle(Channel channel, File file, long fileSize, long offset) throws IOException{
+			this.channel = channel;
 			this.filePath = file.getAbsolutePath();
 			this.fileSize = fileSize;
-			this.checksumCRC32 = checksumCRC32;
+			if(offset > 0 && (!file.exists() || file.length() < offset)){
+				throw new IOException("이어받을 파일의 길이가 부족합니다. offset=" + offset + ", length=" + file.length() + ", file=" + filePath);
+			}
 			try {
-				fos = new FileOutputStream(filePath);
+				raf = new RandomAccessFile(file, "rw");
 			} catch (FileNotFoundException e) {
 				logger.error("파일을 생성할수 없습니다.", e);
 				throw new IOException("파일을 생성할수 없습니다.", e);
 			}
+			try {
+				//offset 이후에 남아있는 부분은 다시 받는다.
+				raf.setLength(offset);
+				raf.seek(offset);
+			} catch (IOException e) {
+				closeQuietly();
+				throw e;
+			}
+			this.position = offset;
+		}
+		
+		public synchronized void close() throws IOException {
+			raf.close();
 		}
 		
-		public void close() throws IOException {
-			fos.flush();
-			fos.close();
+		public void closeQuietly() {
+			try {
+				close();
+			} catch (IOException ignore) {
+			}
 		}
 		
-		public long wroteBytes(){
-			return wroteBytes;
+		public long position(){
+			return position;
 		}
 		
 		public long fileSize(){
@@ -119,42 +149,38 @@ public class FileTransportHandler {
 		}
 		
 		public boolean isDone() {
-//			logger.debug("isDone wrote = {}/ {}", wroteBytes, fileSize);
-			if(wroteBytes == fileSize){
+			if(position == fileSize){
 				logger.info("파일수신완료. time={}, file={}", Strings.getHumanReadableTimeInterval(System.currentTimeMillis() - startTime), filePath);
-			}else if(wroteBytes > fileSize) {
-				logger.error("파일 사이즈가 더 큽니다. actual={}, expected={}, file={}", new Object[]{wroteBytes, fileSize, filePath});
+			}else if(position > fileSize) {
+				logger.error("파일 사이즈가 더 큽니다. actual={}, expected={}, file={}", new Object[]{position, fileSize, filePath});
 			}
-			return wroteBytes == fileSize;
+			return position == fileSize;
 		}
 		
-		public void doChecksumValidation() throws IOException{
-			//checksumCRC32
-			long actualChecksum = FileUtils.checksumCRC32(file);
-			if(actualChecksum != checksumCRC32){
-				throw new IOException("파일의 checksum이 일치하지 않습니다.expected="+checksumCRC32+", actual="+actualChecksum+", file="+filePath);
-			}else{
-				logger.debug("파일검증완료. checksum={}, file={}", checksumCRC32, filePath);
-			}
-			
-		}
-
+		/*
+		 * chunkCRC32(long) + datalength(vint) + data
+		 * 청크를 받을때마다 checksum 을 확인하므로 완료후 파일전체를 다시 읽지 않는다.
+		 * */
 		public synchronized void write(DataInput input) throws IOException {
+			long checksumCRC32 = input.readLong();
 			int dataLength = input.readVInt();
 			logger.debug("fileHandler write dataLength={}", dataLength);
+			crc32.reset();
 			int nRead = 0;
 			//파일사이즈가 0이라면 루프를 돌지 않는다.
 			while(nRead < dataLength){
-				int n = input.read(buf);
-				//읽은 데이터가 0개 인경우 재시도. 
-				if(n < 0){
-					logger.error("읽을 데이터가 없습니다.filePath={}", filePath);
-					break;
-				}
-				fos.write(buf, 0, n);
-				wroteBytes += n;
+				int n = Math.min(buf.length, dataLength - nRead);
+				input.readBytes(buf, 0, n);
+				crc32.update(buf, 0, n);
+				raf.write(buf, 0, n);
 				nRead += n;
 			}
+			if(crc32.getValue() != checksumCRC32){
+				//잘못 받은 청크는 잘라내어 이어받기시 다시 받도록 한다.
+				raf.setLength(position);
+				throw new IOException("청크의 checksum이 일치하지 않습니다.expected="+checksumCRC32+", actual="+crc32.getValue()+", position="+position+", file="+filePath);
+			}
+			position += dataLength;
 		}
 	}
 }
@@ -210,30 +210,46 @@ public class MessageChannelHandler extends SimpleChannelUpstreamHandler {
 				if (job.isNoResult()) {
 					jobExecutor.offer(job);
 				} else {
+					//결과를 기다리지 않고 도착하면 응답을 보낸다.
 					ResultFuture resultFuture = jobExecutor.offer(job);
-                    long timeout = job.getTimeout();
-                    Object obj = resultFuture.take();
-					// logger.debug("## RequestHandler {} result >> {}", job.getClass().getSimpleName(), obj);
-					if (obj instanceof Streamable) {
-						Streamable result = (Streamable) obj;
-						transportChannel.sendResponse(result);
-					} else if (obj instanceof Throwable) {
-						throw (Throwable) obj;
-					} else {
-						// 전송된 job의 결과가 streamable이 아니라면 어떻게 할까?
-						transportChannel.sendResponse(obj);
-					}
+					resultFuture.addListener(new ResultFuture.Listener() {
+						@Override
+						public void onResult(Object obj, boolean isSuccess) {
+							sendResult(obj);
+						}
+					});
 				}
 				// logger.debug("Request Job Result >> {}", obj);
 			} catch (Throwable e) {
-				logger.error("Fail to write response message", e);
-				// we can only send a response transport is started....
-				try {
-					transportChannel.sendResponse(e);
-				} catch (IOException e1) {
-					logger.warn("Failed to send error message back to client", e1);
-					logger.warn("Actual Exception", e);
+				sendError(e);
+			}
+		}
+
+		private void sendResult(Object obj) {
+			try {
+				// logger.debug("## RequestHandler {} result >> {}", job.getClass().getSimpleName(), obj);
+				if (obj instanceof Streamable) {
+					Streamable result = (Streamable) obj;
+					transportChannel.sendResponse(result);
+				} else if (obj instanceof Throwable) {
+					throw (Throwable) obj;
+				} else {
+					// 전송된 job의 결과가 streamable이 아니라면 어떻게 할까?
+					transportChannel.sendResponse(obj);
 				}
+			} catch (Throwable e) {
+				sendError(e);
+			}
+		}
+
+		private void sendError(Throwable e) {
+			logger.error("Fail to write response message", e);
+			// we can only send a response transport is started....
+			try {
+				transportChannel.sendResponse(e);
+			} catch (IOException e1) {
+				logger.warn("Failed to send error message back to client", e1);
+				logger.warn("Actual Exception", e);
 			}
 		}
 	}
@@ -3,11 +3,16 @@ package org.fastcatsearch.transport.common;
 import java.util.Map;
 
 import org.fastcatsearch.control.ResultFuture;
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelFutureListener;
 
 public class SendFileResultFuture extends ResultFuture {
 
 	private boolean cancel;
 	
+	private Channel channel;
+	private ChannelFutureListener closeListener;
+	
 	public SendFileResultFuture(long requestId, Map<Long, ResultFuture> resultFutureMap) {
 		super(requestId, resultFutureMap);
 	}
@@ -20,4 +25,24 @@ public class SendFileResultFuture extends ResultFuture {
 		return cancel;
 	}
 	
+	/**
+	 * 전송채널이 닫힐때 결과를 실패처리할 listener 를 등록한다.
+	 * */
+	public synchronized void attachChannel(Channel channel, ChannelFutureListener closeListener){
+		this.channel = channel;
+		this.closeListener = closeListener;
+		channel.getCloseFuture().addListener(closeListener);
+	}
+	
+	/**
+	 * 결과를 받았으면 채널에 남아있는 listener 를 제거한다. 
+	 * */
+	public synchronized void detachChannel(){
+		if(channel != null){
+			channel.getCloseFuture().removeListener(closeListener);
+			channel = null;
+			closeListener = null;
+		}
+	}
+	
 }
@@ -0,0 +1,38 @@
+package org.fastcatsearch.transport.vo;
+
+import java.io.IOException;
+
+import org.fastcatsearch.common.io.Streamable;
+import org.fastcatsearch.ir.io.DataInput;
+import org.fastcatsearch.ir.io.DataOutput;
+
+public class StreamableLong implements Streamable {
+
+	private long value;
+
+	public StreamableLong() {
+	}
+
+	public StreamableLong(long value) {
+		this.value = value;
+	}
+
+	public long value() {
+		return value;
+	}
+
+	@Override
+	public void readFrom(DataInput input) throws IOException {
+		value = input.readLong();
+	}
+
+	@Override
+	public void writeTo(DataOutput output) throws IOException {
+		output.writeLong(value);
+	}
+
+	@Override
+	public String toString() {
+		return value + "";
+	}
+}
@@ -0,0 +1,597 @@
+package org.fastcatsearch.util;
+
+import org.fastcatsearch.ir.io.MMapIndexInput;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * 동적색인 문서요청을 기록하는 바이너리 write-ahead log.
+ *
+ * 레코드 : length(int) + crc32(int) + type(byte) + json(utf-8 bytes). length 는 json 길이이고 crc 는 type 과 json 의 checksum 이다.
+ * 세그먼트 파일은 segmentSize 만큼 미리 할당하여 mmap 으로 기록하며, 동시에 들어온 기록은 한번의 force 로 디스크에 반영한다(group commit).
+ * 읽은 위치는 cursor 파일에 저장하므로 재시작후 이어서 읽는다.
+ * 재시작시 기록도중 끊긴 레코드는 crc 로 판별하여 잘라내므로 반쪽짜리 문서가 색인되지 않는다.
+ * */
+public class DocumentWriteAheadLog {
+    private static final Logger logger = LoggerFactory.getLogger(DocumentWriteAheadLog.class);
+
+    public static final int RECORD_HEADER_SIZE = 9;
+    private static final String SEGMENT_SUFFIX = ".wal";
+    private static final String CURSOR_FILENAME = "cursor";
+    private static final String CURSOR_TEMP_FILENAME = "cursor.tmp";
+    private static final String ENCODING = "utf-8";
+
+    private File dir;
+    private int segmentSize;
+    private long rollingPeriodInNanoseconds;
+
+    //기록된 순서대로. 마지막 세그먼트만 기록중일수 있다.
+    private LinkedList<Segment> segments;
+    private Segment activeSegment;
+    private long nextSegmentId;
+    private boolean isClosed;
+
+    private long writtenBytes;
+    private long syncedBytes;
+    private final Object syncLock = new Object();
+    //세그먼트를 닫으면 mapping 을 바로 해제하므로, 읽는 중이거나 force 중인 세그먼트를 닫지 않도록 readLock, syncLock 을 잡고 닫는다.
+    //lock 순서는 readLock > syncLock > this 이다.
+    private final Object readLock = new Object();
+
+    //읽기는 색인쓰레드 하나에서만 수행한다. read 는 readSegment/readPosition 만 옮기고, commitRead 해야 committed 위치가 된다.
+    private Segment readSegment;
+    private int readPosition;
+    private Segment committedSegment;
+    private int committedPosition;
+
+    public DocumentWriteAheadLog(File dir, int segmentSize, int rollingPeriodInSeconds) throws IOException {
+        this.dir = dir;
+        this.segmentSize = segmentSize;
+        this.rollingPeriodInNanoseconds = ((long) rollingPeriodInSeconds) * 1000 * 1000 * 1000;
+        this.segments = new LinkedList<Segment>();
+        if (!dir.exists()) {
+            dir.mkdirs();
+        }
+        recover();
+        migrateTextLogs();
+    }
+
+    /**
+     * 문서들을 기록하고 디스크에 반영될때까지 기다린다. 빈 문서는 기록하지 않는다.
+     * */
+    public void append(char type, List<String> jsonList) throws IOException {
+        List<byte[]> dataList = new ArrayList<byte[]>(jsonList.size());
+        for (String json : jsonList) {
+            if (json != null && json.length() > 0) {
+                dataList.add(json.getBytes(ENCODING));
+            }
+        }
+        if (dataList.size() == 0) {
+            return;
+        }
+        long target = 0;
+        synchronized (this) {
+            if (isClosed) {
+                throw new IOException("Document log is closed. " + dir.getAbsolutePath());
+            }
+            CRC32 crc32 = new CRC32();
+            for (byte[] data : dataList) {
+                int recordSize = RECORD_HEADER_SIZE + data.length;
+                if (activeSegment == null || activeSegment.remaining() < recordSize
+                        || System.nanoTime() - activeSegment.openTime > rollingPeriodInNanoseconds) {
+                    roll(recordSize);
+                }
+                crc32.reset();
+                crc32.update(type);
+                crc32.update(data, 0, data.length);
+                MappedByteBuffer buffer = activeSegment.buffer;
+                buffer.position(activeSegment.limit);
+                buffer.putInt(data.length);
+                buffer.putInt((int) crc32.getValue());
+                buffer.put((byte) type);
+                buffer.put(data);
+                activeSegment.limit += recordSize;
+                writtenBytes += recordSize;
+            }
+            target = writtenBytes;
+        }
+        sync(target);
+    }
+
+    /*
+     * 먼저 들어온 쓰레드가 그때까지 기록된 모든 데이터를 force 하고, 기다리던 쓰레드는 자신의 기록이 이미 반영되었으면 바로 리턴한다.
+     * 세그먼트를 바꿀때 이전 세그먼트는 force 하므로 여기서는 현재 세그먼트만 반영하면 된다.
+     */
+    private void sync(long target) {
+        synchronized (syncLock) {
+            if (syncedBytes >= target) {
+                return;
+            }
+            Segment segment = null;
+            long upTo = 0;
+            synchronized (this) {
+                segment = activeSegment;
+                upTo = writtenBytes;
+            }
+            if (segment != null) {
+                segment.buffer.force();
+            }
+            syncedBytes = upTo;
+        }
+    }
+
+    private void roll(int minSize) throws IOException {
+        sealActiveSegment();
+        long id = nextSegmentId++;
+        File file = segmentFile(id);
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            int size = Math.max(segmentSize, minSize);
+            raf.setLength(size);
+            MappedByteBuffer buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+            activeSegment = new Segment(id, file, raf, buffer, 0, false);
+            segments.add(activeSegment);
+            logger.debug("[{}] open document log {}", dir.getParentFile().getName(), file.getName());
+        } catch (IOException e) {
+            raf.close();
+            file.delete();
+            throw e;
+        }
+    }
+
+    private void sealActiveSegment() {
+        if (activeSegment != null) {
+            activeSegment.buffer.force();
+            activeSegment.sealed = true;
+            activeSegment = null;
+        }
+    }
+
+    /**
+     * 현재 읽기위치부터 maxCount 갯수 또는 maxSize 바이트까지 읽는다. 0 이하이면 제한하지 않는다.
+     * 읽기위치는 commitRead 를 호출해야 저장되며, 적용에 실패하면 rewind 로 되돌린다.
+     * */
+    public List<Record> read(int maxCount, long maxSize) throws IOException {
+        synchronized (readLock) {
+            List<Record> result = new ArrayList<Record>();
+            long totalSize = 0;
+            while (true) {
+                Segment segment = null;
+                int limit = 0;
+                Segment nextSegment = null;
+                synchronized (this) {
+                    if (isClosed) {
+                        throw new IOException("Document log is closed. " + dir.getAbsolutePath());
+                    }
+                    if (readSegment == null || !segments.contains(readSegment)) {
+                        readSegment = segments.isEmpty() ? null : segments.getFirst();
+                        readPosition = 0;
+                    }
+                    segment = readSegment;
+                    if (segment == null) {
+                        break;
+                    }
+                    limit = segment.limit;
+                    if (segment.sealed) {
+                        int index = segments.indexOf(segment);
+                        if (index + 1 < segments.size()) {
+                            nextSegment = segments.get(index + 1);
+                        }
+                    }
+                }
+                //limit 이전의 데이터는 더이상 변경되지 않으므로 lock 없이 읽는다.
+                ByteBuffer buffer = segment.readBuffer;
+                while (readPosition < limit) {
+                    if ((maxCount > 0 && result.size() >= maxCount) || (maxSize > 0 && totalSize >= maxSize)) {
+                        return result;
+                    }
+                    int length = buffer.getInt(readPosition);
+                    int checksum = buffer.getInt(readPosition + 4);
+                    char type = (char) buffer.get(readPosition + 8);
+                    byte[] data = new byte[length];
+                    buffer.position(readPosition + RECORD_HEADER_SIZE);
+                    buffer.get(data);
+                    CRC32 crc32 = new CRC32();
+                    crc32.update(type);
+                    crc32.update(data, 0, length);
+                    if ((int) crc32.getValue() != checksum) {
+                        throw new IOException("Document log checksum mismatch. file=" + segment.file.getName() + ", position=" + readPosition);
+                    }
+                    result.add(new Record(type, new String(data, ENCODING)));
+                    readPosition += RECORD_HEADER_SIZE + length;
+                    totalSize += length;
+                }
+                if (nextSegment == null) {
+                    break;
+                }
+                readSegment = nextSegment;
+                readPosition = 0;
+            }
+            return result;
+        }
+    }
+
+    /**
+     * 읽은 위치를 cursor 파일에 저장하고, 모두 읽은 세그먼트는 지운다.
+     * 다 읽은 기록중 세그먼트가 rolling 주기를 넘었으면 닫아서 함께 지운다.
+     * */
+    public void commitRead() throws IOException {
+        List<Segment> consumed = new ArrayList<Segment>();
+        long segmentId = 0;
+        int position = 0;
+        synchronized (this) {
+            if (isClosed) {
+                throw new IOException("Document log is closed. " + dir.getAbsolutePath());
+            }
+            if (readSegment == null) {
+                return;
+            }
+            if (readSegment == activeSegment && readPosition == activeSegment.limit
+                    && System.nanoTime() - activeSegment.openTime > rollingPeriodInNanoseconds) {
+                sealActiveSegment();
+            }
+            Iterator<Segment> iterator = segments.iterator();
+            while (iterator.hasNext()) {
+                Segment segment = iterator.next();
+                boolean isReadDone = segment == readSegment && segment.sealed && readPosition == segment.limit;
+                if (segment != readSegment || isReadDone) {
+                    iterator.remove();
+                    consumed.add(segment);
+                }
+                if (segment == readSegment) {
+                    break;
+                }
+            }
+            if (!segments.contains(readSegment)) {
+                //다음에 읽을 세그먼트부터.
+                readSegment = null;
+                readPosition = 0;
+                segmentId = segments.isEmpty() ? nextSegmentId : segments.getFirst().id;
+            } else {
+                segmentId = readSegment.id;
+                position = readPosition;
+            }
+            committedSegment = readSegment;
+            committedPosition = readPosition;
+        }
+        writeCursor(segmentId, position);
+        //기록중이던 세그먼트를 닫았으면 sync 가 아직 force 하고 있을수 있다.
+        synchronized (readLock) {
+            synchronized (syncLock) {
+                for (Segment segment : consumed) {
+                    segment.close();
+                    if (!segment.file.delete()) {
+                        logger.warn("Cannot delete document log {}", segment.file.getAbsolutePath());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 마지막 commitRead 이후에 읽은 레코드를 다시 읽도록 읽기위치를 되돌린다.
+     * */
+    public synchronized void rewind() {
+        readSegment = committedSegment;
+        readPosition = committedPosition;
+    }
+
+    /**
+     * 아직 읽지 않은 세그먼트 갯수.
+     * */
+    public synchronized int getQueueSize() {
+        if (readSegment == null) {
+            return segments.size();
+        }
+        return segments.size() - segments.indexOf(readSegment);
+    }
+
+    public synchronized long getWrittenBytes() {
+        return writtenBytes;
+    }
+
+    public void close() {
+        synchronized (readLock) {
+            synchronized (syncLock) {
+                synchronized (this) {
+                    if (isClosed) {
+                        return;
+                    }
+                    isClosed = true;
+                    sealActiveSegment();
+                    for (Segment segment : segments) {
+                        segment.close();
+                    }
+                }
+            }
+        }
+    }
+
+    private File segmentFile(long id) {
+        return new File(dir, String.format("%020d", id) + SEGMENT_SUFFIX);
+    }
+
+    /*
+     * cursor : segmentId(long) + position(int) + crc32(int)
+     * 임시파일에 기록하고 sync 한 뒤 이름을 바꾸므로 저장도중 죽어도 이전 cursor 가 남는다.
+     */
+    private void writeCursor(long segmentId, int position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(16);
+        buffer.putLong(segmentId);
+        buffer.putInt(position);
+        CRC32 crc32 = new CRC32();
+        crc32.update(buffer.array(), 0, 12);
+        buffer.putInt((int) crc32.getValue());
+        File tempFile = new File(dir, CURSOR_TEMP_FILENAME);
+        FileOutputStream fos = new FileOutputStream(tempFile);
+        try {
+            fos.write(buffer.array());
+            fos.getFD().sync();
+        } finally {
+            fos.close();
+        }
+        File cursorFile = new File(dir, CURSOR_FILENAME);
+        if (!tempFile.renameTo(cursorFile)) {
+            cursorFile.delete();
+            if (!tempFile.renameTo(cursorFile)) {
+                throw new IOException("Cannot write document log cursor " + cursorFile.getAbsolutePath());
+            }
+        }
+    }
+
+    //segmentId, position. 없거나 깨졌으면 null.
+    private long[] readCursor() {
+        File cursorFile = new File(dir, CURSOR_FILENAME);
+        if (!cursorFile.exists() || cursorFile.length() != 16) {
+            return null;
+        }
+        try {
+            byte[] data = new byte[16];
+            DataInputStream input = new DataInputStream(new FileInputStream(cursorFile));
+            try {
+                input.readFully(data);
+            } finally {
+                input.close();
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            CRC32 crc32 = new CRC32();
+            crc32.update(buffer.array(), 0, 12);
+            long segmentId = buffer.getLong();
+            int position = buffer.getInt();
+            if (buffer.getInt() != (int) crc32.getValue()) {
+                logger.error("Document log cursor is broken. Read from the first log. {}", cursorFile.getAbsolutePath());
+                return null;
+            }
+            return new long[]{segmentId, position};
+        } catch (IOException e) {
+            logger.error("Cannot read document log cursor. Read from the first log.", e);
+            return null;
+        }
+    }
+
+    /*
+     * 남아있는 세그먼트를 읽기전용으로 연다. 이미 읽은 세그먼트는 지우고, 끊긴 레코드가 있으면 그 위치에서 파일을 잘라낸다.
+     * 재시작 후에는 항상 새 세그먼트에 기록한다.
+     */
+    private void recover() throws IOException {
+        File[] files = dir.listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return name.endsWith(SEGMENT_SUFFIX);
+            }
+        });
+        TreeMap<Long, File> sorter = new TreeMap<Long, File>();
+        if (files != null) {
+            for (File f : files) {
+                try {
+                    sorter.put(Long.parseLong(f.getName().substring(0, f.getName().length() - SEGMENT_SUFFIX.length())), f);
+                } catch (NumberFormatException e) {
+                    logger.warn("Unknown document log file {}", f.getAbsolutePath());
+                }
+            }
+        }
+        long[] cursor = readCursor();
+        for (Map.Entry<Long, File> entry : sorter.entrySet()) {
+            long id = entry.getKey();
+            File file = entry.getValue();
+            nextSegmentId = Math.max(nextSegmentId, id + 1);
+            if (cursor != null && id < cursor[0]) {
+                file.delete();
+                continue;
+            }
+            int limit = validLength(file);
+            if (limit < file.length()) {
+                RandomAccessFile raf = new RandomAccessFile(file, "rw");
+                try {
+                    raf.setLength(limit);
+                } finally {
+                    raf.close();
+                }
+            }
+            if (limit == 0) {
+                file.delete();
+                continue;
+            }
+            RandomAccessFile raf = new RandomAccessFile(file, "r");
+            MappedByteBuffer buffer = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, limit);
+            Segment segment = new Segment(id, file, raf, buffer, limit, true);
+            segments.add(segment);
+            if (cursor != null && id == cursor[0]) {
+                readSegment = segment;
+                readPosition = (int) Math.min(cursor[1], limit);
+                committedSegment = readSegment;
+                committedPosition = readPosition;
+            }
+            logger.info("[{}] document log = {} size = {}", dir.getParentFile().getName(), file.getName(), limit);
+        }
+        if (cursor != null) {
+            nextSegmentId = Math.max(nextSegmentId, cursor[0] + 1);
+        }
+    }
+
+    //처음부터 checksum 이 맞는 레코드까지의 길이.
+    private int validLength(File file) throws IOException {
+        DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 64 * 1024));
+        long fileLength = file.length();
+        int position = 0;
+        CRC32 crc32 = new CRC32();
+        byte[] data = new byte[1024];
+        try {
+            while (position + RECORD_HEADER_SIZE <= fileLength) {
+                int length = input.readInt();
+                int checksum = input.readInt();
+                byte type = input.readByte();
+                if (length == 0 && checksum == 0 && type == 0) {
+                    //미리 할당된 빈 공간.
+                    break;
+                }
+                if (length < 0 || position + RECORD_HEADER_SIZE + (long) length > fileLength) {
+                    logger.warn("Truncate broken document log record. file={}, position={}", file.getName(), position);
+                    break;
+                }
+                if (data.length < length) {
+                    data = new byte[length];
+                }
+                input.readFully(data, 0, length);
+                crc32.reset();
+                crc32.update(type);
+                crc32.update(data, 0, length);
+                if ((int) crc32.getValue() != checksum) {
+                    logger.warn("Truncate broken document log record. file={}, position={}", file.getName(), position);
+                    break;
+                }
+                position += RECORD_HEADER_SIZE + length;
+            }
+        } finally {
+            input.close();
+        }
+        return position;
+    }
+
+    /*
+     * 이전 버전의 텍스트 로그("I {json}" 한줄씩)가 남아있으면 한번만 옮겨 기록하고 지운다.
+     */
+    private void migrateTextLogs() throws IOException {
+        File[] files = dir.listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                try {
+                    Long.parseLong(name);
+                    return true;
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+            }
+        });
+        if (files == null || files.length == 0) {
+            return;
+        }
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File o1, File o2) {
+                long c = Long.parseLong(o1.getName()) - Long.parseLong(o2.getName());
+                return c > 0 ? 1 : c < 0 ? -1 : 0;
+            }
+        });
+        for (File file : files) {
+            int count = 0;
+            BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), ENCODING));
+            try {
+                StringBuilder remnant = null;
+                String line = null;
+                while ((line = reader.readLine()) != null) {
+                    if (line.length() == 0) {
+                        continue;
+                    }
+                    //flush 중에 쪼개진 json 은 이어 붙인다.
+                    if (line.charAt(line.length() - 1) != '}') {
+                        if (remnant == null) {
+                            remnant = new StringBuilder();
+                        }
+                        remnant.append(line);
+                        continue;
+                    }
+                    if (remnant != null) {
+                        line = remnant.append(line).toString();
+                        remnant = null;
+                    }
+                    if (line.length() > 2) {
+                        append(line.charAt(0), Collections.singletonList(line.substring(2)));
+                        count++;
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+            logger.info("[{}] migrate text indexlog {} documents = {}", dir.getParentFile().getName(), file.getName(), count);
+            file.delete();
+        }
+    }
+
+    public static class Record {
+        private char type;
+        private String json;
+
+        public Record(char type, String json) {
+            this.type = type;
+            this.json = json;
+        }
+
+        public char type() {
+            return type;
+        }
+
+        public String json() {
+            return json;
+        }
+    }
+
+    private class Segment {
+        private long id;
+        private File file;
+        private RandomAccessFile raf;
+        private MappedByteBuffer buffer;
+        private ByteBuffer readBuffer;
+        private int limit;
+        private boolean sealed;
+        private long openTime;
+        private boolean closed;
+
+        private Segment(long id, File file, RandomAccessFile raf, MappedByteBuffer buffer, int limit, boolean sealed) {
+            this.id = id;
+            this.file = file;
+            this.raf = raf;
+            this.buffer = buffer;
+            this.readBuffer = buffer.duplicate();
+            this.limit = limit;
+            this.sealed = sealed;
+            this.openTime = System.nanoTime();
+        }
+
+        private int remaining() {
+            return buffer.capacity() - limit;
+        }
+
+        //mapping 도 바로 해제한다. GC를 기다리면 지운 세그먼트 파일의 디스크공간이 계속 남는다. 이후에는 buffer, readBuffer 에 접근하면 안된다.
+        private void close() {
+            //같은 mapping 을 두번 해제하면 JVM 이 죽을수 있다.
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                raf.close();
+            } catch (IOException e) {
+                logger.error("", e);
+            }
+            MMapIndexInput.unmap(buffer);
+        }
+    }
+}
@@ -305,6 +305,7 @@ public class SchemaSettingUtil {
 				setting.setRef(data.optString("field").trim());
 				setting.setSize(data.optInt("size"));
 				setting.setIgnoreCase("true".equals(data.optString("ignoreCase")));
+				setting.setMemory("true".equals(data.optString("memory")));
 				fieldIndexSettingList.add(setting);
 			}
 		}
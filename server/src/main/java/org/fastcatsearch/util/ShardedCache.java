@@ -0,0 +1,307 @@
+/*
+ * Copyright (c) 2013 Websquared, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors:
+ *     swsong - initial API and implementation
+ */
+
+package org.fastcatsearch.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * lock을 shard별로 나눈 LRU 캐시. key의 hash로 shard를 고르고, shard마다 access-order LinkedHashMap과 lock을 가진다.
+ *
+ * 용량은 entry 갯수와 weight(byte추정치) 두가지로 제한하며, shard별로 나누어 적용한다. 넘치면 해당 shard에서 오래 사용되지 않은 entry부터 지운다.
+ * 따라서 entry 하나의 weight 한도는 전체 한도가 아니라 shard 한도(maxWeight / shard갯수)이며, 이보다 큰 entry는 넣지 않고 rejectCount 로 센다.
+ * SoftReference를 쓰지 않으므로 GC에 의해 캐시가 한번에 비워지지 않는다. 대신 weight 한도를 힙 크기에 맞게 설정해야 한다.
+ *
+ * entry에는 tag(컬렉션아이디)를 붙일수 있으며 invalidate(tag)로 해당 tag의 entry만 지운다.
+ * */
+public class ShardedCache<K, V> {
+
+	/**
+	 * 캐시 entry의 메모리 사용량 추정.
+	 * */
+	public static interface Weigher<K, V> {
+		public long weigh(K key, V value);
+	}
+
+	private final Shard<K, V>[] shards;
+	private final int shardMask;
+	private final long ttlMillis;
+	private final Weigher<K, V> weigher;
+
+	private final AtomicLong hitCount = new AtomicLong();
+	private final AtomicLong missCount = new AtomicLong();
+	private final AtomicLong putCount = new AtomicLong();
+	private final AtomicLong evictionCount = new AtomicLong();
+	private final AtomicLong expireCount = new AtomicLong();
+	private final AtomicLong invalidateCount = new AtomicLong();
+	private final AtomicLong rejectCount = new AtomicLong();
+
+	/**
+	 * @param shardSize shard 갯수. 2의 승수로 올림된다.
+	 * @param maxEntries 전체 entry 갯수 한도. 0 이하이면 제한없음.
+	 * @param maxWeight 전체 weight 한도. 0 이하이면 제한없음. shard마다 1/shard갯수 씩 나누어 가지며, 이것이 entry 하나의 한도가 된다.
+	 * @param ttlMillis entry 유효시간. 0 이하이면 만료되지 않는다.
+	 * */
+	public ShardedCache(int shardSize, int maxEntries, long maxWeight, long ttlMillis, Weigher<K, V> weigher) {
+		int size = 1;
+		while (size < shardSize) {
+			size <<= 1;
+		}
+		shards = new Shard[size];
+		shardMask = size - 1;
+		int shardMaxEntries = maxEntries > 0 ? Math.max(1, (maxEntries + size - 1) / size) : 0;
+		long shardMaxWeight = maxWeight > 0 ? Math.max(1, (maxWeight + size - 1) / size) : 0;
+		for (int i = 0; i < size; i++) {
+			shards[i] = new Shard<K, V>(shardMaxEntries, shardMaxWeight);
+		}
+		this.ttlMillis = ttlMillis;
+		this.weigher = weigher;
+	}
+
+	private Shard<K, V> shard(Object key) {
+		int h = key.hashCode();
+		h ^= (h >>> 16);
+		return shards[h & shardMask];
+	}
+
+	public V get(K key) {
+		Shard<K, V> shard = shard(key);
+		shard.lock.lock();
+		try {
+			Entry<V> entry = shard.map.get(key);
+			if (entry != null) {
+				if (ttlMillis > 0 && System.currentTimeMillis() - entry.createTime > ttlMillis) {
+					shard.remove(key);
+					expireCount.incrementAndGet();
+				} else {
+					hitCount.incrementAndGet();
+					return entry.value;
+				}
+			}
+		} finally {
+			shard.lock.unlock();
+		}
+		missCount.incrementAndGet();
+		return null;
+	}
+
+	public void put(K key, V value) {
+		put(key, value, null);
+	}
+
+	/**
+	 * @param tags entry가 속한 컬렉션등. invalidate(tag)시 함께 지워진다.
+	 * */
+	public void put(K key, V value, String[] tags) {
+		if (value == null) {
+			return;
+		}
+		long weight = weigher != null ? weigher.weigh(key, value) : 1;
+		Entry<V> entry = new Entry<V>(value, weight, System.currentTimeMillis(), tags);
+		Shard<K, V> shard = shard(key);
+		shard.lock.lock();
+		try {
+			if (shard.maxWeight > 0 && weight > shard.maxWeight) {
+				// shard 전체보다 큰 entry는 넣지 않는다. 같은 키의 이전 값은 지운다.
+				shard.remove(key);
+				rejectCount.incrementAndGet();
+				return;
+			}
+			Entry<V> old = shard.map.put(key, entry);
+			if (old != null) {
+				shard.weight -= old.weight;
+			}
+			shard.weight += weight;
+			putCount.incrementAndGet();
+			evictionCount.addAndGet(shard.evict());
+		} finally {
+			shard.lock.unlock();
+		}
+	}
+
+	public void remove(K key) {
+		Shard<K, V> shard = shard(key);
+		shard.lock.lock();
+		try {
+			shard.remove(key);
+		} finally {
+			shard.lock.unlock();
+		}
+	}
+
+	/**
+	 * tag가 붙은 entry와 tag가 없는 entry를 지운다. tag가 없는 entry는 어느 컬렉션의 결과인지 알수 없기 때문이다.
+	 * @return 지운 entry 갯수
+	 * */
+	public int invalidate(String tag) {
+		int count = 0;
+		for (Shard<K, V> shard : shards) {
+			shard.lock.lock();
+			try {
+				Iterator<Entry<V>> iterator = shard.map.values().iterator();
+				while (iterator.hasNext()) {
+					Entry<V> entry = iterator.next();
+					if (entry.hasTag(tag)) {
+						shard.weight -= entry.weight;
+						iterator.remove();
+						count++;
+					}
+				}
+			} finally {
+				shard.lock.unlock();
+			}
+		}
+		invalidateCount.addAndGet(count);
+		return count;
+	}
+
+	public void clear() {
+		for (Shard<K, V> shard : shards) {
+			shard.lock.lock();
+			try {
+				shard.map.clear();
+				shard.weight = 0;
+			} finally {
+				shard.lock.unlock();
+			}
+		}
+	}
+
+	public int size() {
+		int size = 0;
+		for (Shard<K, V> shard : shards) {
+			shard.lock.lock();
+			try {
+				size += shard.map.size();
+			} finally {
+				shard.lock.unlock();
+			}
+		}
+		return size;
+	}
+
+	public long weight() {
+		long weight = 0;
+		for (Shard<K, V> shard : shards) {
+			shard.lock.lock();
+			try {
+				weight += shard.weight;
+			} finally {
+				shard.lock.unlock();
+			}
+		}
+		return weight;
+	}
+
+	public long hitCount() {
+		return hitCount.get();
+	}
+
+	public long missCount() {
+		return missCount.get();
+	}
+
+	public long putCount() {
+		return putCount.get();
+	}
+
+	public long evictionCount() {
+		return evictionCount.get();
+	}
+
+	public long expireCount() {
+		return expireCount.get();
+	}
+
+	public long invalidateCount() {
+		return invalidateCount.get();
+	}
+
+	public long rejectCount() {
+		return rejectCount.get();
+	}
+
+	/**
+	 * entry 하나가 가질수 있는 최대 weight. 0 이면 제한없음.
+	 * */
+	public long maxEntryWeight() {
+		return shards[0].maxWeight;
+	}
+
+	@Override
+	public String toString() {
+		return "[ShardedCache] size[" + size() + "] weight[" + weight() + "] hit[" + hitCount + "] miss[" + missCount + "] put[" + putCount + "] evict[" + evictionCount
+				+ "] expire[" + expireCount + "] invalidate[" + invalidateCount + "] reject[" + rejectCount + "]";
+	}
+
+	private static class Entry<V> {
+		private final V value;
+		private final long weight;
+		private final long createTime;
+		private final String[] tags;
+
+		public Entry(V value, long weight, long createTime, String[] tags) {
+			this.value = value;
+			this.weight = weight;
+			this.createTime = createTime;
+			this.tags = tags;
+		}
+
+		public boolean hasTag(String tag) {
+			if (tags == null) {
+				return true;
+			}
+			for (String t : tags) {
+				if (t.equalsIgnoreCase(tag)) {
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+
+	private static class Shard<K, V> {
+		private final ReentrantLock lock = new ReentrantLock();
+		private final LinkedHashMap<K, Entry<V>> map = new LinkedHashMap<K, Entry<V>>(16, 0.75f, true);
+		private final int maxEntries;
+		private final long maxWeight;
+		private long weight;
+
+		public Shard(int maxEntries, long maxWeight) {
+			this.maxEntries = maxEntries;
+			this.maxWeight = maxWeight;
+		}
+
+		private void remove(Object key) {
+			Entry<V> entry = map.remove(key);
+			if (entry != null) {
+				weight -= entry.weight;
+			}
+		}
+
+		// 한도를 넘으면 가장 오래 사용되지 않은 entry부터 지운다.
+		private int evict() {
+			int count = 0;
+			Iterator<Map.Entry<K, Entry<V>>> iterator = map.entrySet().iterator();
+			while (iterator.hasNext() && ((maxEntries > 0 && map.size() > maxEntries) || (maxWeight > 0 && weight > maxWeight))) {
+				Map.Entry<K, Entry<V>> eldest = iterator.next();
+				weight -= eldest.getValue().weight;
+				iterator.remove();
+				count++;
+			}
+			return count;
+		}
+	}
+}
@@ -0,0 +1,111 @@
+package org.fastcatsearch.control;
+
+import org.fastcatsearch.exception.FastcatSearchException;
+import org.fastcatsearch.job.Job;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class JobLaneExecutorTest {
+
+	@Test
+	public void testRejectWhenFull() throws InterruptedException {
+		JobLaneExecutor laneExecutor = new JobLaneExecutor(JobLane.SEARCH, 1, 1);
+		CountDownLatch release = new CountDownLatch(1);
+		CountDownLatch finished = new CountDownLatch(2);
+		try {
+			laneExecutor.execute(new BlockingJob(release, finished));
+			laneExecutor.execute(new BlockingJob(release, finished));
+			//쓰레드 1개와 대기큐 1개가 모두 찼으므로 바로 거절된다.
+			try {
+				laneExecutor.execute(new BlockingJob(release, finished));
+				fail();
+			} catch (RejectedExecutionException e) {
+			}
+			assertEquals(2, laneExecutor.submitCount());
+			assertEquals(1, laneExecutor.rejectCount());
+			assertEquals(1, laneExecutor.queuedCount());
+
+			Thread.sleep(50);
+			release.countDown();
+			assertTrue(finished.await(5, TimeUnit.SECONDS));
+			assertEquals(2, laneExecutor.startCount());
+			//두번째 작업은 첫번째 작업이 끝날때까지 큐에서 기다렸다.
+			assertTrue(laneExecutor.maxQueueMillis() >= 40);
+		} finally {
+			release.countDown();
+			laneExecutor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testNoQueue() throws InterruptedException {
+		JobLaneExecutor laneExecutor = new JobLaneExecutor(JobLane.INDEXING, 2, 0);
+		CountDownLatch release = new CountDownLatch(1);
+		CountDownLatch finished = new CountDownLatch(2);
+		try {
+			laneExecutor.execute(new BlockingJob(release, finished));
+			laneExecutor.execute(new BlockingJob(release, finished));
+			//대기큐가 없으면 쓰레드 갯수까지만 받는다.
+			try {
+				laneExecutor.execute(new BlockingJob(release, finished));
+				fail();
+			} catch (RejectedExecutionException e) {
+			}
+			assertEquals(1, laneExecutor.rejectCount());
+			release.countDown();
+			assertTrue(finished.await(5, TimeUnit.SECONDS));
+		} finally {
+			release.countDown();
+			laneExecutor.shutdownNow();
+		}
+	}
+
+	static class BlockingJob extends Job {
+		private static final long serialVersionUID = 1L;
+		private transient CountDownLatch release;
+		private transient CountDownLatch finished;
+
+		BlockingJob(CountDownLatch release, CountDownLatch finished) {
+			this.release = release;
+			this.finished = finished;
+			setJobExecutor(new JobExecutor() {
+				@Override
+				public ResultFuture offer(Job job) {
+					return null;
+				}
+
+				@Override
+				public void result(Job job, Object result, boolean isSuccess) {
+				}
+
+				@Override
+				public int runningJobSize() {
+					return 0;
+				}
+
+				@Override
+				public int inQueueJobSize() {
+					return 0;
+				}
+			});
+			setId(1);
+		}
+
+		@Override
+		public JobResult doRun() throws FastcatSearchException {
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+			}
+			finished.countDown();
+			return new JobResult(true);
+		}
+	}
+}
@@ -0,0 +1,109 @@
+package org.fastcatsearch.control;
+
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ResultFutureGroupTest {
+
+	private Map<Long, ResultFuture> resultFutureMap = new ConcurrentHashMap<Long, ResultFuture>();
+
+	@Test
+	public void testListener() {
+		final AtomicReference<Object> received = new AtomicReference<Object>();
+		ResultFuture before = new ResultFuture(1, resultFutureMap);
+		before.put("A", true);
+		//이미 도착한 결과는 바로 전달된다.
+		before.addListener(new ResultFuture.Listener() {
+			@Override
+			public void onResult(Object result, boolean isSuccess) {
+				received.set(result);
+			}
+		});
+		assertEquals("A", received.get());
+		assertEquals("A", before.take());
+
+		final AtomicInteger count = new AtomicInteger();
+		ResultFuture after = new ResultFuture(2, resultFutureMap);
+		after.addListener(new ResultFuture.Listener() {
+			@Override
+			public void onResult(Object result, boolean isSuccess) {
+				received.set(result);
+				count.incrementAndGet();
+				assertFalse(isSuccess);
+			}
+		});
+		after.put(null, false);
+		assertNull(received.get());
+		assertEquals(1, count.get());
+	}
+
+	@Test
+	public void testWhenAll() throws InterruptedException {
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			final ResultFuture[] futures = new ResultFuture[3];
+			for (int i = 0; i < futures.length; i++) {
+				futures[i] = new ResultFuture(i, resultFutureMap);
+			}
+			final CountDownLatch latch = new CountDownLatch(1);
+			final AtomicReference<Object[]> results = new AtomicReference<Object[]>();
+			final AtomicReference<boolean[]> successes = new AtomicReference<boolean[]>();
+			ResultFutureGroup.whenAll(futures, executor, new ResultFutureGroup.Listener() {
+				@Override
+				public void onComplete(Object[] r, boolean[] isSuccess) {
+					results.set(r);
+					successes.set(isSuccess);
+					latch.countDown();
+				}
+			});
+			//다른 쓰레드에서 역순으로 도착한다.
+			for (int i = futures.length - 1; i >= 0; i--) {
+				final int index = i;
+				executor.execute(new Runnable() {
+					@Override
+					public void run() {
+						futures[index].put("R" + index, index != 1);
+					}
+				});
+			}
+			assertTrue(latch.await(5, TimeUnit.SECONDS));
+			assertEquals("R0", results.get()[0]);
+			assertEquals("R1", results.get()[1]);
+			assertEquals("R2", results.get()[2]);
+			assertTrue(successes.get()[0]);
+			assertFalse(successes.get()[1]);
+			assertTrue(successes.get()[2]);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testNullFuture() {
+		final AtomicReference<boolean[]> successes = new AtomicReference<boolean[]>();
+		ResultFuture future = new ResultFuture(1, resultFutureMap);
+		future.put("A", true);
+		ResultFutureGroup.whenAll(new ResultFuture[] { future, null }, null, new ResultFutureGroup.Listener() {
+			@Override
+			public void onComplete(Object[] results, boolean[] isSuccess) {
+				successes.set(isSuccess);
+			}
+		});
+		//요청을 보내지 못한 결과는 실패로 전달된다.
+		assertTrue(successes.get()[0]);
+		assertFalse(successes.get()[1]);
+	}
+}
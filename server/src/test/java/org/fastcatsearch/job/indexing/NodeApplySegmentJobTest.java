@@ -0,0 +1,58 @@
+package org.fastcatsearch.job.indexing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.fastcatsearch.common.io.BytesStreamInput;
+import org.fastcatsearch.common.io.BytesStreamOutput;
+import org.fastcatsearch.ir.common.IRException;
+import org.fastcatsearch.ir.config.DataInfo;
+import org.fastcatsearch.ir.index.DeleteIdSet;
+import org.fastcatsearch.ir.index.PrimaryKeys;
+import org.junit.Test;
+
+public class NodeApplySegmentJobTest {
+
+	@Test
+	public void testWriteAndRead() throws IOException, IRException {
+		DataInfo.SegmentInfo segmentInfo = new DataInfo.SegmentInfo("1234567", 100, 3, 1400000000000L);
+		DeleteIdSet deleteIdSet = new DeleteIdSet(2);
+		deleteIdSet.add("a", "1");
+		deleteIdSet.add("b", "2");
+
+		NodeApplySegmentJob actual = writeAndRead(new NodeApplySegmentJob("sample", segmentInfo, deleteIdSet));
+
+		assertEquals("1234567", actual.segmentInfo().getId());
+		assertEquals(100, actual.segmentInfo().getDocumentCount());
+		assertEquals(3, actual.segmentInfo().getDeleteCount());
+		assertEquals(1400000000000L, actual.segmentInfo().getCreateTime());
+		assertNull(actual.segmentInfo().getIndexSort());
+		assertEquals(2, actual.deleteIdSet().keySize());
+		assertEquals(2, actual.deleteIdSet().size());
+		assertTrue(actual.deleteIdSet().contains(new PrimaryKeys("a", "1")));
+		assertTrue(actual.deleteIdSet().contains(new PrimaryKeys("b", "2")));
+	}
+
+	@Test
+	public void testIndexSort() throws IOException {
+		//삭제문서만 있는 세그먼트도 전달된다.
+		DataInfo.SegmentInfo segmentInfo = new DataInfo.SegmentInfo("1234568", 0, 0, 0);
+		segmentInfo.setIndexSort("DATE:desc");
+
+		NodeApplySegmentJob actual = writeAndRead(new NodeApplySegmentJob("sample", segmentInfo, new DeleteIdSet(1)));
+
+		assertEquals("DATE:desc", actual.segmentInfo().getIndexSort());
+		assertEquals(0, actual.deleteIdSet().size());
+	}
+
+	private NodeApplySegmentJob writeAndRead(NodeApplySegmentJob job) throws IOException {
+		BytesStreamOutput output = new BytesStreamOutput();
+		job.writeTo(output);
+		NodeApplySegmentJob actual = new NodeApplySegmentJob();
+		actual.readFrom(new BytesStreamInput(output.bytesReference()));
+		return actual;
+	}
+}
@@ -0,0 +1,93 @@
+package org.fastcatsearch.transport.common;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.zip.CRC32;
+
+import org.apache.commons.io.FileUtils;
+import org.fastcatsearch.common.io.BytesStreamInput;
+import org.fastcatsearch.common.io.BytesStreamOutput;
+import org.fastcatsearch.env.Path;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FileTransportHandlerTest {
+
+	private File root;
+	private FileTransportHandler handler;
+
+	@Before
+	public void setUp() throws IOException {
+		root = new File(System.getProperty("java.io.tmpdir"), "FileTransportHandlerTest-" + System.nanoTime());
+		handler = new FileTransportHandler(new Path(root));
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		FileUtils.deleteDirectory(root);
+	}
+
+	@Test
+	public void testResumeFromOffset() throws IOException {
+		byte[] data = new byte[1000];
+		for (int i = 0; i < data.length; i++) {
+			data[i] = (byte) i;
+		}
+		//앞부분을 받다가 연결이 끊겼다.
+		assertFalse(handler.handleFile(null, 0, "seg/a.dat", data.length, 0, "key", chunk(data, 0, 300)));
+		assertFalse(handler.handleFile(null, 1, null, -1, 0, "key", chunk(data, 300, 300)));
+		handler.abort(null);
+		assertEquals(0, handler.size());
+
+		File file = new File(root, "seg/a.dat");
+		assertEquals(600, file.length());
+
+		//기록된 길이보다 앞에서 이어받으면 뒷부분은 다시 받는다.
+		assertFalse(handler.handleFile(null, 0, "seg/a.dat", data.length, 500, "key", chunk(data, 500, 200)));
+		assertTrue(handler.handleFile(null, 1, null, -1, 0, "key", chunk(data, 700, 300)));
+		assertEquals(0, handler.size());
+		assertArrayEquals(data, FileUtils.readFileToByteArray(file));
+	}
+
+	@Test
+	public void testChunkChecksumMismatch() throws IOException {
+		byte[] data = new byte[100];
+		assertFalse(handler.handleFile(null, 0, "b.dat", 200, 0, "key", chunk(data, 0, 100)));
+
+		BytesStreamOutput output = new BytesStreamOutput();
+		output.writeLong(12345L);
+		output.writeVInt(100);
+		output.write(data, 0, 100);
+		try {
+			handler.handleFile(null, 1, null, -1, 0, "key", new BytesStreamInput(output.bytesReference()));
+			fail();
+		} catch (IOException e) {
+		}
+		assertEquals(0, handler.size());
+		//잘못 받은 청크는 남지 않는다.
+		assertEquals(100, new File(root, "b.dat").length());
+	}
+
+	@Test
+	public void testEmptyFile() throws IOException {
+		assertTrue(handler.handleFile(null, 0, "c.dat", 0, 0, "key", chunk(new byte[0], 0, 0)));
+		assertTrue(new File(root, "c.dat").exists());
+	}
+
+	private BytesStreamInput chunk(byte[] data, int offset, int length) throws IOException {
+		CRC32 crc32 = new CRC32();
+		crc32.update(data, offset, length);
+		BytesStreamOutput output = new BytesStreamOutput();
+		output.writeLong(crc32.getValue());
+		output.writeVInt(length);
+		output.write(data, offset, length);
+		return new BytesStreamInput(output.bytesReference());
+	}
+}
@@ -0,0 +1,183 @@
+package org.fastcatsearch.util;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class DocumentWriteAheadLogTest {
+
+    private File dir;
+
+    @Before
+    public void setUp() {
+        dir = new File(System.getProperty("java.io.tmpdir"), "DocumentWriteAheadLogTest-" + System.nanoTime() + "/indexlog");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        org.apache.commons.io.FileUtils.deleteDirectory(dir.getParentFile());
+    }
+
+    @Test
+    public void testReadAfterRestart() throws IOException {
+        DocumentWriteAheadLog log = new DocumentWriteAheadLog(dir, 1024 * 1024, 30);
+        log.append('I', Arrays.asList("{\"id\":\"1\"}", "{\"id\":\"2\"}", "{\"id\":\"3\"}"));
+        log.append('D', Arrays.asList("{\"id\":\"1\"}"));
+
+        List<DocumentWriteAheadLog.Record> records = log.read(2, 0);
+        assertEquals(2, records.size());
+        assertEquals('I', records.get(0).type());
+        assertEquals("{\"id\":\"1\"}", records.get(0).json());
+        log.commitRead();
+        //읽었지만 저장하지 않은 위치는 재시작후 다시 읽는다.
+        assertEquals(1, log.read(1, 0).size());
+        log.close();
+
+        log = new DocumentWriteAheadLog(dir, 1024 * 1024, 30);
+        records = log.read(0, 0);
+        assertEquals(2, records.size());
+        assertEquals("{\"id\":\"3\"}", records.get(0).json());
+        assertEquals('D', records.get(1).type());
+        log.commitRead();
+        assertEquals(0, log.read(0, 0).size());
+        log.close();
+    }
+
+    @Test
+    public void testRewindAfterFailure() throws IOException {
+        DocumentWriteAheadLog log = new DocumentWriteAheadLog(dir, 64, 30);
+        List<String> jsonList = new ArrayList<String>();
+        for (int i = 0; i < 6; i++) {
+            jsonList.add("{\"id\":\"" + i + "\",\"title\":\"document log\"}");
+        }
+        log.append('I', jsonList);
+        assertEquals(2, log.read(2, 0).size());
+        log.commitRead();
+
+        //적용에 실패한 배치는 되돌려서 같은 레코드를 다시 읽는다.
+        List<DocumentWriteAheadLog.Record> failed = log.read(3, 0);
+        log.rewind();
+        List<DocumentWriteAheadLog.Record> retried = log.read(3, 0);
+        assertEquals(3, retried.size());
+        for (int i = 0; i < failed.size(); i++) {
+            assertEquals(failed.get(i).json(), retried.get(i).json());
+        }
+        assertEquals("{\"id\":\"2\",\"title\":\"document log\"}", retried.get(0).json());
+        log.commitRead();
+        log.close();
+
+        log = new DocumentWriteAheadLog(dir, 64, 30);
+        List<DocumentWriteAheadLog.Record> records = log.read(0, 0);
+        assertEquals(1, records.size());
+        assertEquals("{\"id\":\"5\",\"title\":\"document log\"}", records.get(0).json());
+        log.close();
+    }
+
+    @Test
+    public void testTruncateBrokenRecord() throws IOException {
+        DocumentWriteAheadLog log = new DocumentWriteAheadLog(dir, 1024 * 1024, 30);
+        log.append('I', Arrays.asList("{\"id\":\"1\"}", "{\"id\":\"2\"}"));
+        long written = log.getWrittenBytes();
+        log.close();
+
+        //기록도중 끊긴 레코드.
+        File segmentFile = segmentFiles()[0];
+        RandomAccessFile raf = new RandomAccessFile(segmentFile, "rw");
+        raf.seek(written);
+        raf.writeInt(100);
+        raf.writeInt(12345);
+        raf.writeByte('I');
+        raf.write("{\"id\":".getBytes("utf-8"));
+        raf.close();
+
+        log = new DocumentWriteAheadLog(dir, 1024 * 1024, 30);
+        assertEquals(written, segmentFile.length());
+        List<DocumentWriteAheadLog.Record> records = log.read(0, 0);
+        assertEquals(2, records.size());
+        assertEquals("{\"id\":\"2\"}", records.get(1).json());
+        log.close();
+    }
+
+    @Test
+    public void testRollingAndDelete() throws IOException {
+        DocumentWriteAheadLog log = new DocumentWriteAheadLog(dir, 64, 30);
+        List<String> jsonList = new ArrayList<String>();
+        for (int i = 0; i < 10; i++) {
+            jsonList.add("{\"id\":\"" + i + "\",\"title\":\"document log\"}");
+        }
+        log.append('I', jsonList);
+        assertEquals(10, segmentFiles().length);
+
+        assertEquals(4, log.read(4, 0).size());
+        log.commitRead();
+        //다 읽은 세그먼트는 지운다.
+        assertEquals(6, segmentFiles().length);
+        assertEquals(6, log.read(0, 0).size());
+        log.commitRead();
+        assertEquals(1, segmentFiles().length);
+        log.close();
+
+        log = new DocumentWriteAheadLog(dir, 64, 30);
+        assertEquals(0, log.read(0, 0).size());
+        log.close();
+    }
+
+    @Test
+    public void testReadAfterClose() throws IOException {
+        DocumentWriteAheadLog log = new DocumentWriteAheadLog(dir, 1024 * 1024, 30);
+        log.append('I', Arrays.asList("{\"id\":\"1\"}"));
+        log.close();
+        //닫으면 mapping 이 해제되므로 읽지 않고 예외를 던져야 한다.
+        try {
+            log.read(0, 0);
+            fail();
+        } catch (IOException expected) {
+        }
+        try {
+            log.commitRead();
+            fail();
+        } catch (IOException expected) {
+        }
+        log.close();
+
+        log = new DocumentWriteAheadLog(dir, 1024 * 1024, 30);
+        assertEquals(1, log.read(0, 0).size());
+        log.close();
+    }
+
+    @Test
+    public void testMigrateTextLog() throws IOException {
+        dir.mkdirs();
+        //flush 중 쪼개진 json 이 있는 이전 텍스트 로그.
+        File textLog = new File(dir, "1000");
+        org.apache.commons.io.FileUtils.writeStringToFile(textLog, "I {\"id\":\"1\"}\nU {\"id\":\n\"2\"}\nD {\"id\":\"3\"}\n", "utf-8");
+
+        DocumentWriteAheadLog log = new DocumentWriteAheadLog(dir, 1024 * 1024, 30);
+        List<DocumentWriteAheadLog.Record> records = log.read(0, 0);
+        assertEquals(3, records.size());
+        assertEquals('U', records.get(1).type());
+        assertEquals("{\"id\":\"2\"}", records.get(1).json());
+        assertEquals(false, textLog.exists());
+        log.close();
+    }
+
+    private File[] segmentFiles() {
+        return dir.listFiles(new FileFilter() {
+            @Override
+            public boolean accept(File file) {
+                return file.getName().endsWith(".wal");
+            }
+        });
+    }
+}
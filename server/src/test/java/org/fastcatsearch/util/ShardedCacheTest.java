@@ -0,0 +1,131 @@
+package org.fastcatsearch.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import org.fastcatsearch.util.ShardedCache.Weigher;
+import org.junit.Test;
+
+public class ShardedCacheTest {
+
+	private static final Weigher<String, String> LENGTH_WEIGHER = new Weigher<String, String>() {
+		@Override
+		public long weigh(String key, String value) {
+			return value.length();
+		}
+	};
+
+	@Test
+	public void testEvictByCount() {
+		ShardedCache<String, String> cache = new ShardedCache<String, String>(1, 3, 0, 0, null);
+		cache.put("a", "1");
+		cache.put("b", "2");
+		cache.put("c", "3");
+		// a를 최근에 사용하여 b가 가장 오래된 entry가 된다.
+		assertNotNull(cache.get("a"));
+		cache.put("d", "4");
+		assertEquals(3, cache.size());
+		assertNull(cache.get("b"));
+		assertNotNull(cache.get("a"));
+		assertNotNull(cache.get("d"));
+		assertEquals(1, cache.evictionCount());
+	}
+
+	@Test
+	public void testEvictByWeight() {
+		ShardedCache<String, String> cache = new ShardedCache<String, String>(1, 0, 10, 0, LENGTH_WEIGHER);
+		cache.put("a", "1234");
+		cache.put("b", "1234");
+		assertEquals(8, cache.weight());
+		cache.put("c", "1234");
+		assertEquals(8, cache.weight());
+		assertNull(cache.get("a"));
+		// shard 한도보다 큰 entry는 넣지 않는다.
+		cache.put("d", "12345678901");
+		assertNull(cache.get("d"));
+		assertEquals(8, cache.weight());
+		// 같은 키로 덮어쓰면 weight도 바뀐다.
+		cache.put("b", "12");
+		assertEquals(6, cache.weight());
+	}
+
+	@Test
+	public void testEntryNearShardWeight() {
+		// 전체 40을 4개 shard가 10씩 나누어 가진다.
+		ShardedCache<String, String> cache = new ShardedCache<String, String>(4, 0, 40, 0, LENGTH_WEIGHER);
+		assertEquals(10, cache.maxEntryWeight());
+		cache.put("a", "123456789");
+		cache.put("b", "1234567890");
+		assertNotNull(cache.get("a"));
+		assertNotNull(cache.get("b"));
+		assertEquals(0, cache.rejectCount());
+		// 전체 한도보다 작아도 shard 한도를 넘으면 넣지 않는다.
+		cache.put("c", "12345678901");
+		assertNull(cache.get("c"));
+		assertEquals(1, cache.rejectCount());
+		// 기존 값이 있던 키에 한도를 넘는 값을 넣으면 이전 값도 지워진다.
+		cache.put("b", "12345678901");
+		assertNull(cache.get("b"));
+		assertEquals(2, cache.rejectCount());
+		assertEquals(9, cache.weight());
+	}
+
+	@Test
+	public void testFullShardEntryEvictsOthers() {
+		ShardedCache<String, String> cache = new ShardedCache<String, String>(1, 0, 10, 0, LENGTH_WEIGHER);
+		cache.put("a", "12");
+		cache.put("b", "12");
+		// shard 한도와 같은 entry는 들어가고 나머지를 모두 밀어낸다.
+		cache.put("c", "1234567890");
+		assertEquals(1, cache.size());
+		assertEquals(10, cache.weight());
+		assertNotNull(cache.get("c"));
+		assertEquals(2, cache.evictionCount());
+		assertEquals(0, cache.rejectCount());
+	}
+
+	@Test
+	public void testExpire() throws InterruptedException {
+		ShardedCache<String, String> cache = new ShardedCache<String, String>(4, 100, 0, 50, null);
+		cache.put("a", "1");
+		assertNotNull(cache.get("a"));
+		Thread.sleep(100);
+		assertNull(cache.get("a"));
+		assertEquals(0, cache.size());
+		assertEquals(1, cache.expireCount());
+	}
+
+	@Test
+	public void testInvalidateByTag() {
+		ShardedCache<String, String> cache = new ShardedCache<String, String>(4, 100, 0, 0, null);
+		cache.put("a", "1", new String[] { "news" });
+		cache.put("b", "2", new String[] { "blog" });
+		cache.put("c", "3", new String[] { "news", "blog" });
+		cache.put("d", "4");
+		// tag가 없는 entry도 함께 지워진다.
+		assertEquals(3, cache.invalidate("NEWS"));
+		assertNull(cache.get("a"));
+		assertNotNull(cache.get("b"));
+		assertNull(cache.get("c"));
+		assertNull(cache.get("d"));
+		assertEquals(1, cache.size());
+	}
+
+	@Test
+	public void testStats() {
+		ShardedCache<String, String> cache = new ShardedCache<String, String>(3, 100, 0, 0, null);
+		for (int i = 0; i < 10; i++) {
+			cache.put(String.valueOf(i), String.valueOf(i));
+		}
+		for (int i = 0; i < 20; i++) {
+			cache.get(String.valueOf(i));
+		}
+		assertEquals(10, cache.putCount());
+		assertEquals(10, cache.hitCount());
+		assertEquals(10, cache.missCount());
+		cache.clear();
+		assertEquals(0, cache.size());
+		assertEquals(0, cache.weight());
+	}
+}